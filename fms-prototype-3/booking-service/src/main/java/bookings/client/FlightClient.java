@@ -0,0 +1,53 @@
+package bookings.client;
+
+import bookings.service.dto.FlightFareDTO;
+import bookings.service.dto.SeatHoldDTO;
+import org.springframework.cloud.openfeign.FeignClient;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+
+import java.time.LocalDate;
+
+/**
+ * Calls the flight service, as the connected user, see {@link UserFeignClientInterceptor}.
+ */
+@FeignClient(name = "flights", decode404 = true)
+public interface FlightClient {
+
+    /**
+     * @param id the id of the flight.
+     * @return the flight, priced by the fare engine of the flight service, or {@code 404 (Not Found)}.
+     */
+    @GetMapping("/api/flights/{id}")
+    ResponseEntity<FlightFareDTO> getFlight(@PathVariable("id") Long id);
+
+    /**
+     * Stores the flight of a schedule on a date, unless it is stored already.
+     *
+     * @param scheduleId the id of the schedule.
+     * @param departureDate the departure date.
+     * @return the stored flight, not priced, or {@code 404 (Not Found)} if the schedule does not operate on that date.
+     */
+    @PostMapping("/api/flight-schedules/{id}/flights/{departureDate}")
+    ResponseEntity<FlightFareDTO> materializeFlight(@PathVariable("id") Long scheduleId,
+                                                    @PathVariable("departureDate") LocalDate departureDate);
+
+    /**
+     * @param flightId the id of the flight.
+     * @param seatHoldDTO the cabin and number of seats to hold.
+     * @return the hold; fails with {@code 409 (Conflict)} if not enough seats are available, or with
+     * {@code 400 (Bad Request)} if the cabin has no seat inventory.
+     */
+    @PostMapping("/api/flights/{flightId}/seat-holds")
+    SeatHoldDTO createSeatHold(@PathVariable("flightId") Long flightId, @RequestBody SeatHoldDTO seatHoldDTO);
+
+    /**
+     * @param holdId the id of the hold to release.
+     */
+    @DeleteMapping("/api/seat-holds/{holdId}")
+    void deleteSeatHold(@PathVariable("holdId") String holdId);
+}
@@ -2,6 +2,8 @@ package bookings.config;
 
 import org.springframework.boot.context.properties.ConfigurationProperties;
 
+import java.time.Duration;
+
 /**
  * Properties specific to Bookings.
  * <p>
@@ -10,4 +12,243 @@ import org.springframework.boot.context.properties.ConfigurationProperties;
  */
 @ConfigurationProperties(prefix = "application", ignoreUnknownFields = false)
 public class ApplicationProperties {
+
+    private final BookingHold bookingHold = new BookingHold();
+    private final Reconciliation reconciliation = new Reconciliation();
+    private final BookingNumber bookingNumber = new BookingNumber();
+    private final Checkout checkout = new Checkout();
+    private final Itinerary itinerary = new Itinerary();
+
+    public BookingHold getBookingHold() {
+        return bookingHold;
+    }
+
+    public Reconciliation getReconciliation() {
+        return reconciliation;
+    }
+
+    public BookingNumber getBookingNumber() {
+        return bookingNumber;
+    }
+
+    public Checkout getCheckout() {
+        return checkout;
+    }
+
+    public Itinerary getItinerary() {
+        return itinerary;
+    }
+
+    public static class BookingHold {
+
+        /**
+         * How long the seats of an unpaid booking are held.
+         */
+        private Duration timeout = Duration.ofMinutes(15);
+
+        /**
+         * Resolution of the hold expiry timing wheel, also the period it is advanced at.
+         */
+        private long tickMillis = 1000;
+
+        /**
+         * Number of buckets per level of the hold expiry timing wheel.
+         */
+        private int wheelSize = 512;
+
+        /**
+         * Number of expired holds released in one transaction.
+         */
+        private int releaseBatchSize = 500;
+
+        public Duration getTimeout() {
+            return timeout;
+        }
+
+        public void setTimeout(Duration timeout) {
+            this.timeout = timeout;
+        }
+
+        public long getTickMillis() {
+            return tickMillis;
+        }
+
+        public void setTickMillis(long tickMillis) {
+            this.tickMillis = tickMillis;
+        }
+
+        public int getWheelSize() {
+            return wheelSize;
+        }
+
+        public void setWheelSize(int wheelSize) {
+            this.wheelSize = wheelSize;
+        }
+
+        public int getReleaseBatchSize() {
+            return releaseBatchSize;
+        }
+
+        public void setReleaseBatchSize(int releaseBatchSize) {
+            this.releaseBatchSize = releaseBatchSize;
+        }
+    }
+
+    public static class Reconciliation {
+
+        /**
+         * Number of threads reconciling the batches of the assigned partitions, one batch per partition at a time.
+         */
+        private int workerThreads = 12;
+
+        /**
+         * Longest time a poll for payment and luggage events waits for them.
+         */
+        private long pollMillis = 500;
+
+        /**
+         * Number of booking numbers the Bloom filter of known booking numbers is sized for.
+         */
+        private int expectedBookings = 1000000;
+
+        /**
+         * Probability that the Bloom filter takes an unknown booking number for a known one, which only
+         * costs an update matching no booking.
+         */
+        private double falsePositiveProbability = 0.01;
+
+        public int getWorkerThreads() {
+            return workerThreads;
+        }
+
+        public void setWorkerThreads(int workerThreads) {
+            this.workerThreads = workerThreads;
+        }
+
+        public long getPollMillis() {
+            return pollMillis;
+        }
+
+        public void setPollMillis(long pollMillis) {
+            this.pollMillis = pollMillis;
+        }
+
+        public int getExpectedBookings() {
+            return expectedBookings;
+        }
+
+        public void setExpectedBookings(int expectedBookings) {
+            this.expectedBookings = expectedBookings;
+        }
+
+        public double getFalsePositiveProbability() {
+            return falsePositiveProbability;
+        }
+
+        public void setFalsePositiveProbability(double falsePositiveProbability) {
+            this.falsePositiveProbability = falsePositiveProbability;
+        }
+    }
+
+    public static class BookingNumber {
+
+        /**
+         * Worker id of this instance in its booking numbers, from 0 to 63, e.g. taken from its Eureka
+         * instance metadata. A negative id leases a free one through Hazelcast instead.
+         */
+        private int workerId = -1;
+
+        /**
+         * How long a leased worker id stays taken once its instance stopped renewing it. It is not
+         * reused sooner, so clocks may be that far apart between instances.
+         */
+        private Duration leaseTtl = Duration.ofMinutes(1);
+
+        /**
+         * Delay between two renewals of the leased worker id, well below its time to live.
+         */
+        private long leaseRenewMillis = 10000;
+
+        public int getWorkerId() {
+            return workerId;
+        }
+
+        public void setWorkerId(int workerId) {
+            this.workerId = workerId;
+        }
+
+        public Duration getLeaseTtl() {
+            return leaseTtl;
+        }
+
+        public void setLeaseTtl(Duration leaseTtl) {
+            this.leaseTtl = leaseTtl;
+        }
+
+        public long getLeaseRenewMillis() {
+            return leaseRenewMillis;
+        }
+
+        public void setLeaseRenewMillis(long leaseRenewMillis) {
+            this.leaseRenewMillis = leaseRenewMillis;
+        }
+    }
+
+    public static class Checkout {
+
+        /**
+         * Longest time a client follows the status of a checkout on one stream, before reconnecting.
+         */
+        private Duration streamTimeout = Duration.ofMinutes(5);
+
+        public Duration getStreamTimeout() {
+            return streamTimeout;
+        }
+
+        public void setStreamTimeout(Duration streamTimeout) {
+            this.streamTimeout = streamTimeout;
+        }
+    }
+
+    public static class Itinerary {
+
+        /**
+         * Longest time a poll for the events of the itineraries waits for them.
+         */
+        private long pollMillis = 500;
+
+        /**
+         * How often the events left to project are counted, for {@code itinerary.projection.lag}.
+         */
+        private long lagIntervalMillis = 5000;
+
+        /**
+         * Whether to project again all the events of the topics, from their first offset, once started.
+         */
+        private boolean rebuildOnStartup = false;
+
+        public long getPollMillis() {
+            return pollMillis;
+        }
+
+        public void setPollMillis(long pollMillis) {
+            this.pollMillis = pollMillis;
+        }
+
+        public long getLagIntervalMillis() {
+            return lagIntervalMillis;
+        }
+
+        public void setLagIntervalMillis(long lagIntervalMillis) {
+            this.lagIntervalMillis = lagIntervalMillis;
+        }
+
+        public boolean isRebuildOnStartup() {
+            return rebuildOnStartup;
+        }
+
+        public void setRebuildOnStartup(boolean rebuildOnStartup) {
+            this.rebuildOnStartup = rebuildOnStartup;
+        }
+    }
 }
@@ -7,6 +7,9 @@ import javax.persistence.*;
 import javax.validation.constraints.*;
 
 import java.io.Serializable;
+import java.time.Instant;
+
+import bookings.domain.enumeration.EBookingStatus;
 
 /**
  * A Booking.
@@ -22,18 +25,49 @@ public class Booking implements Serializable {
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
 
-    @NotNull
-    @Column(name = "booking_number", nullable = false)
-    private Integer bookingNumber;
+    /**
+     * Generated when the booking is created, see {@link bookings.service.BookingNumberGenerator}.
+     */
+    @Column(name = "booking_number", nullable = false, unique = true, updatable = false)
+    private Long bookingNumber;
 
     @NotNull
     @Column(name = "flight_number", nullable = false)
     private String flightNumber;
 
+    /**
+     * The id of the dated flight booked, in the flight service: the flights of a schedule share their flight number.
+     * Unknown for the bookings made before flights were dated.
+     */
+    @Column(name = "flight_id")
+    private Long flightId;
+
     @NotNull
     @Column(name = "passenger_id", nullable = false)
     private String passengerId;
 
+    @Enumerated(EnumType.STRING)
+    @Column(name = "status")
+    private EBookingStatus status;
+
+    /**
+     * Until when the seats of a {@link EBookingStatus#HELD held} booking are kept without payment.
+     */
+    @Column(name = "hold_expires_at")
+    private Instant holdExpiresAt;
+
+    /**
+     * The id of the seat held for the booking in the flight service, none if the cabin booked has no seat inventory.
+     */
+    @Column(name = "seat_hold_id")
+    private String seatHoldId;
+
+    /**
+     * Whether luggage was checked in for the booking.
+     */
+    @Column(name = "luggage_added", nullable = false)
+    private boolean luggageAdded;
+
     // jhipster-needle-entity-add-field - JHipster will add fields here
     public Long getId() {
         return id;
@@ -43,16 +77,16 @@ public class Booking implements Serializable {
         this.id = id;
     }
 
-    public Integer getBookingNumber() {
+    public Long getBookingNumber() {
         return bookingNumber;
     }
 
-    public Booking bookingNumber(Integer bookingNumber) {
+    public Booking bookingNumber(Long bookingNumber) {
         this.bookingNumber = bookingNumber;
         return this;
     }
 
-    public void setBookingNumber(Integer bookingNumber) {
+    public void setBookingNumber(Long bookingNumber) {
         this.bookingNumber = bookingNumber;
     }
 
@@ -69,6 +103,19 @@ public class Booking implements Serializable {
         this.flightNumber = flightNumber;
     }
 
+    public Long getFlightId() {
+        return flightId;
+    }
+
+    public Booking flightId(Long flightId) {
+        this.flightId = flightId;
+        return this;
+    }
+
+    public void setFlightId(Long flightId) {
+        this.flightId = flightId;
+    }
+
     public String getPassengerId() {
         return passengerId;
     }
@@ -81,6 +128,58 @@ public class Booking implements Serializable {
     public void setPassengerId(String passengerId) {
         this.passengerId = passengerId;
     }
+
+    public EBookingStatus getStatus() {
+        return status;
+    }
+
+    public Booking status(EBookingStatus status) {
+        this.status = status;
+        return this;
+    }
+
+    public void setStatus(EBookingStatus status) {
+        this.status = status;
+    }
+
+    public Instant getHoldExpiresAt() {
+        return holdExpiresAt;
+    }
+
+    public Booking holdExpiresAt(Instant holdExpiresAt) {
+        this.holdExpiresAt = holdExpiresAt;
+        return this;
+    }
+
+    public void setHoldExpiresAt(Instant holdExpiresAt) {
+        this.holdExpiresAt = holdExpiresAt;
+    }
+
+    public String getSeatHoldId() {
+        return seatHoldId;
+    }
+
+    public Booking seatHoldId(String seatHoldId) {
+        this.seatHoldId = seatHoldId;
+        return this;
+    }
+
+    public void setSeatHoldId(String seatHoldId) {
+        this.seatHoldId = seatHoldId;
+    }
+
+    public boolean isLuggageAdded() {
+        return luggageAdded;
+    }
+
+    public Booking luggageAdded(boolean luggageAdded) {
+        this.luggageAdded = luggageAdded;
+        return this;
+    }
+
+    public void setLuggageAdded(boolean luggageAdded) {
+        this.luggageAdded = luggageAdded;
+    }
     // jhipster-needle-entity-add-getters-setters - JHipster will add getters and setters here
 
     @Override
@@ -106,7 +205,12 @@ public class Booking implements Serializable {
             "id=" + getId() +
             ", bookingNumber=" + getBookingNumber() +
             ", flightNumber='" + getFlightNumber() + "'" +
+            ", flightId=" + getFlightId() +
             ", passengerId='" + getPassengerId() + "'" +
+            ", status='" + getStatus() + "'" +
+            ", holdExpiresAt='" + getHoldExpiresAt() + "'" +
+            ", seatHoldId='" + getSeatHoldId() + "'" +
+            ", luggageAdded='" + isLuggageAdded() + "'" +
             "}";
     }
 }
@@ -0,0 +1,187 @@
+package bookings.domain;
+
+import javax.persistence.*;
+import javax.validation.constraints.*;
+
+import java.io.Serializable;
+import java.time.Instant;
+
+import bookings.domain.enumeration.ECheckoutStatus;
+
+/**
+ * A Checkout: the progress of a booking through its payment, then its luggage, driven by the
+ * {@link bookings.service.CheckoutSaga}.
+ * <p>
+ * Checkouts are not cached: each one changes a few times, from the events of other services.
+ */
+@Entity
+@Table(name = "checkout")
+public class Checkout implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @NotNull
+    @Column(name = "booking_number", nullable = false, unique = true)
+    private Long bookingNumber;
+
+    @NotNull
+    @Column(name = "passenger_id", nullable = false)
+    private String passengerId;
+
+    @NotNull
+    @Enumerated(EnumType.STRING)
+    @Column(name = "status", nullable = false)
+    private ECheckoutStatus status;
+
+    /**
+     * The type of the luggage to add once paid, none if {@code null}.
+     */
+    @Column(name = "luggage_type")
+    private String luggageType;
+
+    @Column(name = "weight_category")
+    private Integer weightCategory;
+
+    @Column(name = "failure_reason")
+    private String failureReason;
+
+    @NotNull
+    @Column(name = "updated_at", nullable = false)
+    private Instant updatedAt;
+
+    // jhipster-needle-entity-add-field - JHipster will add fields here
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public Long getBookingNumber() {
+        return bookingNumber;
+    }
+
+    public Checkout bookingNumber(Long bookingNumber) {
+        this.bookingNumber = bookingNumber;
+        return this;
+    }
+
+    public void setBookingNumber(Long bookingNumber) {
+        this.bookingNumber = bookingNumber;
+    }
+
+    public String getPassengerId() {
+        return passengerId;
+    }
+
+    public Checkout passengerId(String passengerId) {
+        this.passengerId = passengerId;
+        return this;
+    }
+
+    public void setPassengerId(String passengerId) {
+        this.passengerId = passengerId;
+    }
+
+    public ECheckoutStatus getStatus() {
+        return status;
+    }
+
+    public Checkout status(ECheckoutStatus status) {
+        this.status = status;
+        return this;
+    }
+
+    public void setStatus(ECheckoutStatus status) {
+        this.status = status;
+    }
+
+    public String getLuggageType() {
+        return luggageType;
+    }
+
+    public Checkout luggageType(String luggageType) {
+        this.luggageType = luggageType;
+        return this;
+    }
+
+    public void setLuggageType(String luggageType) {
+        this.luggageType = luggageType;
+    }
+
+    public Integer getWeightCategory() {
+        return weightCategory;
+    }
+
+    public Checkout weightCategory(Integer weightCategory) {
+        this.weightCategory = weightCategory;
+        return this;
+    }
+
+    public void setWeightCategory(Integer weightCategory) {
+        this.weightCategory = weightCategory;
+    }
+
+    public String getFailureReason() {
+        return failureReason;
+    }
+
+    public Checkout failureReason(String failureReason) {
+        this.failureReason = failureReason;
+        return this;
+    }
+
+    public void setFailureReason(String failureReason) {
+        this.failureReason = failureReason;
+    }
+
+    public Instant getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public Checkout updatedAt(Instant updatedAt) {
+        this.updatedAt = updatedAt;
+        return this;
+    }
+
+    public void setUpdatedAt(Instant updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+    // jhipster-needle-entity-add-getters-setters - JHipster will add getters and setters here
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof Checkout)) {
+            return false;
+        }
+        return id != null && id.equals(((Checkout) o).id);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31;
+    }
+
+    // prettier-ignore
+    @Override
+    public String toString() {
+        return "Checkout{" +
+            "id=" + getId() +
+            ", bookingNumber=" + getBookingNumber() +
+            ", passengerId='" + getPassengerId() + "'" +
+            ", status='" + getStatus() + "'" +
+            ", luggageType='" + getLuggageType() + "'" +
+            ", weightCategory=" + getWeightCategory() +
+            ", failureReason='" + getFailureReason() + "'" +
+            ", updatedAt='" + getUpdatedAt() + "'" +
+            "}";
+    }
+}
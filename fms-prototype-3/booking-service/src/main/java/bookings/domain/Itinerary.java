@@ -0,0 +1,305 @@
+package bookings.domain;
+
+import javax.persistence.*;
+import javax.validation.constraints.*;
+
+import java.io.Serializable;
+import java.time.Instant;
+import java.time.LocalDate;
+
+/**
+ * An Itinerary: one trip of a passenger, with its booking, flight, payment and luggage, projected from the
+ * events of the services that own them by the {@link bookings.service.ItineraryProjector}.
+ * <p>
+ * Itineraries are not cached: they are only read by their passenger, and rewritten by every event of their trip.
+ */
+@Entity
+@Table(name = "itinerary")
+public class Itinerary implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @NotNull
+    @Column(name = "booking_number", nullable = false, unique = true)
+    private Long bookingNumber;
+
+    /**
+     * Unknown until the booking event of the trip is projected.
+     */
+    @Column(name = "passenger_id")
+    private String passengerId;
+
+    @Column(name = "flight_number")
+    private String flightNumber;
+
+    /**
+     * The dated flight of the trip, whose state is copied into the itinerary: see {@link Booking#getFlightId()}.
+     */
+    @Column(name = "flight_id")
+    private Long flightId;
+
+    @Column(name = "departure_date")
+    private LocalDate departureDate;
+
+    @Column(name = "origin")
+    private String origin;
+
+    @Column(name = "destination")
+    private String destination;
+
+    @Column(name = "flight_cancelled", nullable = false)
+    private boolean flightCancelled;
+
+    @Column(name = "booking_cancelled", nullable = false)
+    private boolean bookingCancelled;
+
+    @Column(name = "paid", nullable = false)
+    private boolean paid;
+
+    @Column(name = "amount_paid")
+    private Double amountPaid;
+
+    @Column(name = "luggage_type")
+    private String luggageType;
+
+    @Column(name = "rfid_tag")
+    private String rfidTag;
+
+    @NotNull
+    @Column(name = "updated_at", nullable = false)
+    private Instant updatedAt;
+
+    // jhipster-needle-entity-add-field - JHipster will add fields here
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public Long getBookingNumber() {
+        return bookingNumber;
+    }
+
+    public Itinerary bookingNumber(Long bookingNumber) {
+        this.bookingNumber = bookingNumber;
+        return this;
+    }
+
+    public void setBookingNumber(Long bookingNumber) {
+        this.bookingNumber = bookingNumber;
+    }
+
+    public String getPassengerId() {
+        return passengerId;
+    }
+
+    public Itinerary passengerId(String passengerId) {
+        this.passengerId = passengerId;
+        return this;
+    }
+
+    public void setPassengerId(String passengerId) {
+        this.passengerId = passengerId;
+    }
+
+    public String getFlightNumber() {
+        return flightNumber;
+    }
+
+    public Itinerary flightNumber(String flightNumber) {
+        this.flightNumber = flightNumber;
+        return this;
+    }
+
+    public void setFlightNumber(String flightNumber) {
+        this.flightNumber = flightNumber;
+    }
+
+    public Long getFlightId() {
+        return flightId;
+    }
+
+    public Itinerary flightId(Long flightId) {
+        this.flightId = flightId;
+        return this;
+    }
+
+    public void setFlightId(Long flightId) {
+        this.flightId = flightId;
+    }
+
+    public LocalDate getDepartureDate() {
+        return departureDate;
+    }
+
+    public Itinerary departureDate(LocalDate departureDate) {
+        this.departureDate = departureDate;
+        return this;
+    }
+
+    public void setDepartureDate(LocalDate departureDate) {
+        this.departureDate = departureDate;
+    }
+
+    public String getOrigin() {
+        return origin;
+    }
+
+    public Itinerary origin(String origin) {
+        this.origin = origin;
+        return this;
+    }
+
+    public void setOrigin(String origin) {
+        this.origin = origin;
+    }
+
+    public String getDestination() {
+        return destination;
+    }
+
+    public Itinerary destination(String destination) {
+        this.destination = destination;
+        return this;
+    }
+
+    public void setDestination(String destination) {
+        this.destination = destination;
+    }
+
+    public boolean isFlightCancelled() {
+        return flightCancelled;
+    }
+
+    public Itinerary flightCancelled(boolean flightCancelled) {
+        this.flightCancelled = flightCancelled;
+        return this;
+    }
+
+    public void setFlightCancelled(boolean flightCancelled) {
+        this.flightCancelled = flightCancelled;
+    }
+
+    public boolean isBookingCancelled() {
+        return bookingCancelled;
+    }
+
+    public Itinerary bookingCancelled(boolean bookingCancelled) {
+        this.bookingCancelled = bookingCancelled;
+        return this;
+    }
+
+    public void setBookingCancelled(boolean bookingCancelled) {
+        this.bookingCancelled = bookingCancelled;
+    }
+
+    public boolean isPaid() {
+        return paid;
+    }
+
+    public Itinerary paid(boolean paid) {
+        this.paid = paid;
+        return this;
+    }
+
+    public void setPaid(boolean paid) {
+        this.paid = paid;
+    }
+
+    public Double getAmountPaid() {
+        return amountPaid;
+    }
+
+    public Itinerary amountPaid(Double amountPaid) {
+        this.amountPaid = amountPaid;
+        return this;
+    }
+
+    public void setAmountPaid(Double amountPaid) {
+        this.amountPaid = amountPaid;
+    }
+
+    public String getLuggageType() {
+        return luggageType;
+    }
+
+    public Itinerary luggageType(String luggageType) {
+        this.luggageType = luggageType;
+        return this;
+    }
+
+    public void setLuggageType(String luggageType) {
+        this.luggageType = luggageType;
+    }
+
+    public String getRfidTag() {
+        return rfidTag;
+    }
+
+    public Itinerary rfidTag(String rfidTag) {
+        this.rfidTag = rfidTag;
+        return this;
+    }
+
+    public void setRfidTag(String rfidTag) {
+        this.rfidTag = rfidTag;
+    }
+
+    public Instant getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public Itinerary updatedAt(Instant updatedAt) {
+        this.updatedAt = updatedAt;
+        return this;
+    }
+
+    public void setUpdatedAt(Instant updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+    // jhipster-needle-entity-add-getters-setters - JHipster will add getters and setters here
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof Itinerary)) {
+            return false;
+        }
+        return id != null && id.equals(((Itinerary) o).id);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31;
+    }
+
+    // prettier-ignore
+    @Override
+    public String toString() {
+        return "Itinerary{" +
+            "id=" + getId() +
+            ", bookingNumber=" + getBookingNumber() +
+            ", passengerId='" + getPassengerId() + "'" +
+            ", flightNumber='" + getFlightNumber() + "'" +
+            ", flightId=" + getFlightId() +
+            ", departureDate='" + getDepartureDate() + "'" +
+            ", origin='" + getOrigin() + "'" +
+            ", destination='" + getDestination() + "'" +
+            ", flightCancelled='" + isFlightCancelled() + "'" +
+            ", bookingCancelled='" + isBookingCancelled() + "'" +
+            ", paid='" + isPaid() + "'" +
+            ", amountPaid=" + getAmountPaid() +
+            ", luggageType='" + getLuggageType() + "'" +
+            ", rfidTag='" + getRfidTag() + "'" +
+            ", updatedAt='" + getUpdatedAt() + "'" +
+            "}";
+    }
+}
@@ -0,0 +1,160 @@
+package bookings.domain;
+
+import javax.persistence.*;
+import javax.validation.constraints.*;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+
+/**
+ * An ItineraryFlight: the last known state of a dated flight, as announced by the flight service, copied into the
+ * {@link Itinerary itineraries} of its bookings, including the ones booked after the flight was announced.
+ * Flights are known by their id in the flight service, the flights of a schedule sharing their flight number.
+ */
+@Entity
+@Table(name = "itinerary_flight")
+public class ItineraryFlight implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @NotNull
+    @Column(name = "flight_id", nullable = false, unique = true)
+    private Long flightId;
+
+    @Column(name = "flight_number")
+    private String flightNumber;
+
+    @Column(name = "departure_date")
+    private LocalDate departureDate;
+
+    @Column(name = "origin")
+    private String origin;
+
+    @Column(name = "destination")
+    private String destination;
+
+    @Column(name = "cancelled", nullable = false)
+    private boolean cancelled;
+
+    // jhipster-needle-entity-add-field - JHipster will add fields here
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public Long getFlightId() {
+        return flightId;
+    }
+
+    public ItineraryFlight flightId(Long flightId) {
+        this.flightId = flightId;
+        return this;
+    }
+
+    public void setFlightId(Long flightId) {
+        this.flightId = flightId;
+    }
+
+    public String getFlightNumber() {
+        return flightNumber;
+    }
+
+    public ItineraryFlight flightNumber(String flightNumber) {
+        this.flightNumber = flightNumber;
+        return this;
+    }
+
+    public void setFlightNumber(String flightNumber) {
+        this.flightNumber = flightNumber;
+    }
+
+    public LocalDate getDepartureDate() {
+        return departureDate;
+    }
+
+    public ItineraryFlight departureDate(LocalDate departureDate) {
+        this.departureDate = departureDate;
+        return this;
+    }
+
+    public void setDepartureDate(LocalDate departureDate) {
+        this.departureDate = departureDate;
+    }
+
+    public String getOrigin() {
+        return origin;
+    }
+
+    public ItineraryFlight origin(String origin) {
+        this.origin = origin;
+        return this;
+    }
+
+    public void setOrigin(String origin) {
+        this.origin = origin;
+    }
+
+    public String getDestination() {
+        return destination;
+    }
+
+    public ItineraryFlight destination(String destination) {
+        this.destination = destination;
+        return this;
+    }
+
+    public void setDestination(String destination) {
+        this.destination = destination;
+    }
+
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    public ItineraryFlight cancelled(boolean cancelled) {
+        this.cancelled = cancelled;
+        return this;
+    }
+
+    public void setCancelled(boolean cancelled) {
+        this.cancelled = cancelled;
+    }
+    // jhipster-needle-entity-add-getters-setters - JHipster will add getters and setters here
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof ItineraryFlight)) {
+            return false;
+        }
+        return id != null && id.equals(((ItineraryFlight) o).id);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31;
+    }
+
+    // prettier-ignore
+    @Override
+    public String toString() {
+        return "ItineraryFlight{" +
+            "id=" + getId() +
+            ", flightId=" + getFlightId() +
+            ", flightNumber='" + getFlightNumber() + "'" +
+            ", departureDate='" + getDepartureDate() + "'" +
+            ", origin='" + getOrigin() + "'" +
+            ", destination='" + getDestination() + "'" +
+            ", cancelled='" + isCancelled() + "'" +
+            "}";
+    }
+}
@@ -0,0 +1,8 @@
+package bookings.domain.enumeration;
+
+/**
+ * The EBookingStatus enumeration.
+ */
+public enum EBookingStatus {
+    HELD, PAID, EXPIRED, CANCELLED
+}
@@ -0,0 +1,12 @@
+package bookings.domain.enumeration;
+
+/**
+ * The ECheckoutStatus enumeration: the steps of a checkout, from its booking to its payment and luggage.
+ */
+public enum ECheckoutStatus {
+    PAYMENT_PENDING, LUGGAGE_PENDING, COMPLETED, FAILED;
+
+    public boolean isFinished() {
+        return this == COMPLETED || this == FAILED;
+    }
+}
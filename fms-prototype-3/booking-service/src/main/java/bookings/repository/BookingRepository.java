@@ -2,11 +2,19 @@ package bookings.repository;
 
 import bookings.domain.Booking;
 
+import bookings.domain.enumeration.EBookingStatus;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.*;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import javax.persistence.LockModeType;
 import javax.validation.constraints.NotNull;
+import java.time.Instant;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 /**
  * Spring Data  repository for the Booking entity.
@@ -14,5 +22,46 @@ import java.util.List;
 @SuppressWarnings("unused")
 @Repository
 public interface BookingRepository extends JpaRepository<Booking, Long> {
-    List<Booking> findBookingByBookingNumber(@NotNull Integer bookingNumber);
+    List<Booking> findBookingByBookingNumber(@NotNull Long bookingNumber);
+
+    Page<Booking> findAllByPassengerId(String passengerId, Pageable pageable);
+
+    Optional<Booking> findOneByIdAndPassengerId(Long id, String passengerId);
+
+    /**
+     * Pages through the bookings of a status in id order, reading only what the hold expiry needs.
+     */
+    @Query("select booking.id as id, booking.holdExpiresAt as holdExpiresAt from Booking booking " +
+        "where booking.status = :status and booking.id > :afterId order by booking.id")
+    List<BookingHold> findHoldsByStatusAfter(@Param("status") EBookingStatus status, @Param("afterId") Long afterId, Pageable pageable);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    List<Booking> findAllByIdInAndStatus(Collection<Long> ids, EBookingStatus status);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    List<Booking> findAllByBookingNumberIn(Collection<Long> bookingNumbers);
+
+    @Query("select distinct booking.bookingNumber from Booking booking where booking.bookingNumber in :bookingNumbers")
+    List<Long> findBookingNumbersIn(@Param("bookingNumbers") Collection<Long> bookingNumbers);
+
+    /**
+     * Moves the bookings of some booking numbers from one status to another, in one statement.
+     */
+    @Modifying
+    @Query("update Booking booking set booking.status = :status, booking.holdExpiresAt = null " +
+        "where booking.bookingNumber in :bookingNumbers and booking.status = :fromStatus")
+    int updateStatusByBookingNumberIn(@Param("bookingNumbers") Collection<Long> bookingNumbers,
+                                      @Param("fromStatus") EBookingStatus fromStatus, @Param("status") EBookingStatus status);
+
+    @Modifying
+    @Query("update Booking booking set booking.luggageAdded = true " +
+        "where booking.bookingNumber in :bookingNumbers and booking.luggageAdded = false")
+    int markLuggageAddedByBookingNumberIn(@Param("bookingNumbers") Collection<Long> bookingNumbers);
+
+    interface BookingHold {
+
+        Long getId();
+
+        Instant getHoldExpiresAt();
+    }
 }
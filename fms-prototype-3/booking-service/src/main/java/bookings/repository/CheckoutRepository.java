@@ -0,0 +1,28 @@
+package bookings.repository;
+
+import bookings.domain.Checkout;
+
+import bookings.domain.enumeration.ECheckoutStatus;
+import org.springframework.data.jpa.repository.*;
+import org.springframework.stereotype.Repository;
+
+import javax.persistence.LockModeType;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Spring Data  repository for the Checkout entity.
+ */
+@SuppressWarnings("unused")
+@Repository
+public interface CheckoutRepository extends JpaRepository<Checkout, Long> {
+
+    Optional<Checkout> findOneByIdAndPassengerId(Long id, String passengerId);
+
+    /**
+     * Locks the checkouts of some booking numbers, so the events of a checkout move it one at a time.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    List<Checkout> findAllByBookingNumberInAndStatusIn(Collection<Long> bookingNumbers, Collection<ECheckoutStatus> statuses);
+}
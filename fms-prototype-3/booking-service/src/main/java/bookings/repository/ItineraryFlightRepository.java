@@ -0,0 +1,19 @@
+package bookings.repository;
+
+import bookings.domain.ItineraryFlight;
+
+import org.springframework.data.jpa.repository.*;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Spring Data  repository for the ItineraryFlight entity.
+ */
+@SuppressWarnings("unused")
+@Repository
+public interface ItineraryFlightRepository extends JpaRepository<ItineraryFlight, Long> {
+
+    List<ItineraryFlight> findAllByFlightIdIn(Collection<Long> flightIds);
+}
@@ -0,0 +1,35 @@
+package bookings.repository;
+
+import bookings.domain.Itinerary;
+
+import org.springframework.data.jpa.repository.*;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Spring Data  repository for the Itinerary entity.
+ */
+@SuppressWarnings("unused")
+@Repository
+public interface ItineraryRepository extends JpaRepository<Itinerary, Long> {
+
+    /**
+     * The trips of a passenger, in order of departure: a range scan of {@code idx_itinerary_passenger_id_departure_date}.
+     */
+    List<Itinerary> findAllByPassengerIdOrderByDepartureDateAscBookingNumberAsc(String passengerId);
+
+    List<Itinerary> findAllByBookingNumberIn(Collection<Long> bookingNumbers);
+
+    /**
+     * Copies the state of a dated flight into the itineraries of its bookings, in one statement.
+     */
+    @Modifying
+    @Query("update Itinerary i set i.departureDate = :departureDate, i.origin = :origin, i.destination = :destination, " +
+        "i.flightCancelled = :cancelled where i.flightId = :flightId")
+    int updateFlight(@Param("flightId") Long flightId, @Param("departureDate") LocalDate departureDate,
+                     @Param("origin") String origin, @Param("destination") String destination, @Param("cancelled") boolean cancelled);
+}
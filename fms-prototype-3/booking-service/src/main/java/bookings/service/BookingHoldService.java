@@ -0,0 +1,188 @@
+package bookings.service;
+
+import bookings.config.ApplicationProperties;
+import bookings.domain.Booking;
+import bookings.domain.enumeration.EBookingStatus;
+import bookings.domain.enumeration.ETopicType;
+import bookings.repository.BookingRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Expires the seat holds of unpaid bookings.
+ * <p>
+ * Held bookings are scheduled on a {@link HierarchicalTimingWheel}, so scheduling a hold does not touch
+ * the database, and expiry never scans the booking table. The wheel is advanced every tick; the bookings
+ * it expires are released in batches, one transaction per batch, which also announces them on
+ * {@code booking_cancelled} through the outbox, and publishes a {@link BookingsExpiredEvent} for the
+ * checkouts waiting on them.
+ * <p>
+ * The wheel only triggers expiry: a booking is expired only if it is still {@link EBookingStatus#HELD held}
+ * when its row is locked, so a payment handled by another instance always wins.
+ */
+@Service
+public class BookingHoldService {
+
+    private final Logger log = LoggerFactory.getLogger(BookingHoldService.class);
+
+    private final ApplicationProperties.BookingHold properties;
+    private final BookingRepository bookingRepository;
+    private final BookingKafkaProducer bookingKafkaProducer;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TransactionTemplate transactionTemplate;
+    private final HierarchicalTimingWheel<Long> wheel;
+
+    public BookingHoldService(ApplicationProperties applicationProperties, BookingRepository bookingRepository,
+                              BookingKafkaProducer bookingKafkaProducer, ApplicationEventPublisher eventPublisher,
+                              PlatformTransactionManager transactionManager) {
+        this.properties = applicationProperties.getBookingHold();
+        this.bookingRepository = bookingRepository;
+        this.bookingKafkaProducer = bookingKafkaProducer;
+        this.eventPublisher = eventPublisher;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.wheel = new HierarchicalTimingWheel<>(properties.getTickMillis(), properties.getWheelSize(), System.currentTimeMillis());
+    }
+
+    /**
+     * Reschedules the holds of all held bookings.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadHolds() {
+        int batchSize = properties.getReleaseBatchSize();
+        long afterId = 0;
+        int loaded = 0;
+        List<BookingRepository.BookingHold> holds;
+        do {
+            holds = bookingRepository.findHoldsByStatusAfter(EBookingStatus.HELD, afterId, PageRequest.of(0, batchSize));
+            for (BookingRepository.BookingHold hold : holds) {
+                long expiresAt = hold.getHoldExpiresAt() == null ? 0 : hold.getHoldExpiresAt().toEpochMilli();
+                // holds that expired while the service was down expire on the next tick
+                if (!wheel.schedule(hold.getId(), expiresAt)) {
+                    wheel.schedule(hold.getId(), System.currentTimeMillis() + properties.getTickMillis());
+                }
+                afterId = hold.getId();
+            }
+            loaded += holds.size();
+        } while (holds.size() == batchSize);
+        log.info("Loaded {} booking holds", loaded);
+    }
+
+    /**
+     * Puts a new booking on hold, to be expired unless paid in time. The hold is scheduled once the
+     * current transaction, if any, commits.
+     *
+     * @param booking the booking, not yet saved.
+     * @return the booking.
+     */
+    public Booking hold(Booking booking) {
+        booking.status(EBookingStatus.HELD).holdExpiresAt(Instant.now().plus(properties.getTimeout()));
+        return booking;
+    }
+
+    /**
+     * Schedules the expiry of a saved held booking.
+     *
+     * @param booking the booking.
+     */
+    public void schedule(Booking booking) {
+        if (booking.getStatus() != EBookingStatus.HELD || booking.getHoldExpiresAt() == null) {
+            return;
+        }
+        Long id = booking.getId();
+        long expiresAt = booking.getHoldExpiresAt().toEpochMilli();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    wheel.schedule(id, expiresAt);
+                }
+            });
+        } else {
+            wheel.schedule(id, expiresAt);
+        }
+    }
+
+    /**
+     * Cancels the expiry of a booking, e.g. because it was paid or deleted.
+     *
+     * @param bookingId the id of the booking.
+     */
+    public void cancel(Long bookingId) {
+        wheel.cancel(bookingId);
+    }
+
+    /**
+     * Marks the held bookings of some booking numbers as paid, in one statement joining the current
+     * transaction if any. Their holds stay on the wheel: expiring a booking that is no longer held
+     * does nothing.
+     *
+     * @param bookingNumbers the booking numbers that were paid.
+     * @return the number of bookings marked as paid.
+     */
+    public int paid(Collection<Long> bookingNumbers) {
+        if (bookingNumbers.isEmpty()) {
+            return 0;
+        }
+        return transactionTemplate.execute(status ->
+            bookingRepository.updateStatusByBookingNumberIn(bookingNumbers, EBookingStatus.HELD, EBookingStatus.PAID));
+    }
+
+    /**
+     * Advances the wheel and releases the holds that expired.
+     */
+    @Scheduled(fixedDelayString = "${application.booking-hold.tick-millis:1000}")
+    public void expireHolds() {
+        List<Long> expired = wheel.advance(System.currentTimeMillis());
+        int batchSize = properties.getReleaseBatchSize();
+        for (int from = 0; from < expired.size(); from += batchSize) {
+            List<Long> batch = expired.subList(from, Math.min(from + batchSize, expired.size()));
+            try {
+                release(batch);
+            } catch (RuntimeException e) {
+                log.error("Could not release {} expired booking holds, retrying on the next tick", batch.size(), e);
+                long retryAt = System.currentTimeMillis() + properties.getTickMillis();
+                batch.forEach(id -> wheel.schedule(id, retryAt));
+            }
+        }
+    }
+
+    private void release(List<Long> bookingIds) {
+        List<Booking> released = transactionTemplate.execute(status -> {
+            List<Booking> bookings = bookingRepository.findAllByIdInAndStatus(bookingIds, EBookingStatus.HELD);
+            for (Booking booking : bookings) {
+                booking.setStatus(EBookingStatus.EXPIRED);
+            }
+            bookingKafkaProducer.sendBookingEvents(bookings, ETopicType.CANCELLED);
+            if (!bookings.isEmpty()) {
+                eventPublisher.publishEvent(new BookingsExpiredEvent(
+                    bookings.stream().map(Booking::getBookingNumber).collect(Collectors.toList())));
+            }
+            return bookings;
+        });
+        if (released != null && !released.isEmpty()) {
+            log.debug("Released {} expired booking holds", released.size());
+        }
+    }
+
+    /**
+     * @return the number of holds waiting to expire on this instance.
+     */
+    public int getScheduledHolds() {
+        return wheel.size();
+    }
+}
@@ -1,19 +1,17 @@
 package bookings.service;
 
-import bookings.config.KafkaProperties;
 import bookings.domain.Booking;
 import bookings.domain.enumeration.ETopicType;
 import bookings.service.dto.BookingDTO;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
-import org.apache.kafka.clients.producer.KafkaProducer;
-import org.apache.kafka.clients.producer.ProducerRecord;
+import fms.common.service.KafkaEventPublisher;
+import fms.common.service.OutboxService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
 
-import javax.annotation.PostConstruct;
-import javax.annotation.PreDestroy;
+import java.util.List;
 
 @Service
 public class BookingKafkaProducer {
@@ -23,48 +21,49 @@ public class BookingKafkaProducer {
     private static final String TOPIC_BOOKING_CANCELLED = "booking_cancelled";
 
     private final ObjectMapper objectMapper = new ObjectMapper();
-    private final KafkaProperties kafkaProperties;
-    private KafkaProducer<String, String> producer;
+    private final OutboxService outboxService;
 
-    public BookingKafkaProducer(KafkaProperties kafkaProperties) {
-        this.kafkaProperties = kafkaProperties;
-    }
-
-    @PostConstruct
-    public void initialize() {
-        this.producer = new KafkaProducer<>(kafkaProperties.getProducerProps());
-        Runtime.getRuntime().addShutdownHook(new Thread(this::shutdown));
-        logger.debug("Booking kafka producer initialized.");
+    public BookingKafkaProducer(OutboxService outboxService, KafkaEventPublisher kafkaEventPublisher) {
+        this.outboxService = outboxService;
+        kafkaEventPublisher.declareTopics(TOPIC_BOOKING_UPDATED, TOPIC_BOOKING_CANCELLED);
     }
 
+    /**
+     * Publishes a booking event, keyed by booking number so the events of a booking stay in order.
+     * The event is written to the outbox, and sent only if the current transaction commits.
+     *
+     * @param booking the booking.
+     * @param topicType the kind of event to send.
+     */
     public void sendBookingEvent(Booking booking, ETopicType topicType) {
         try{
             BookingDTO bookingDTO = new BookingDTO(booking);
             String message = objectMapper.writeValueAsString(bookingDTO);
-            ProducerRecord<String, String> event = null;
+            String key = String.valueOf(booking.getBookingNumber());
 
             switch (topicType) {
                 case SET:
                 case UPDATED:
-                    event = new ProducerRecord<>(TOPIC_BOOKING_UPDATED, message);
-                    logger.debug("Produced an event for topic {} : {}", TOPIC_BOOKING_UPDATED, event.value());
+                    outboxService.append(TOPIC_BOOKING_UPDATED, key, message);
                     break;
                 case CANCELLED:
-                    event = new ProducerRecord<>(TOPIC_BOOKING_CANCELLED, message);
-                    logger.debug("Produced an event for topic {} : {}", TOPIC_BOOKING_CANCELLED, event.value());
+                    outboxService.append(TOPIC_BOOKING_CANCELLED, key, message);
                     break;
             }
-
-            producer.send(event);
         } catch (JsonProcessingException e) {
             logger.error(e.getMessage());
         }
     }
 
-    @PreDestroy
-    private void shutdown() {
-        logger.debug("Booking kafka producer shutting down");
-        producer.close();
+    /**
+     * Publishes one event per booking; the outbox relay batches them.
+     *
+     * @param bookings the bookings to announce.
+     * @param topicType the kind of event to send.
+     */
+    public void sendBookingEvents(List<Booking> bookings, ETopicType topicType) {
+        for (Booking booking : bookings) {
+            sendBookingEvent(booking, topicType);
+        }
     }
 }
-
@@ -0,0 +1,121 @@
+package bookings.service;
+
+import bookings.config.ApplicationProperties;
+import com.hazelcast.core.HazelcastInstance;
+import com.hazelcast.core.IMap;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * Generates unique booking numbers, roughly ordered by creation time, without a database round trip.
+ * <p>
+ * A booking number is made, from its highest bits, of the milliseconds since {@link #EPOCH}, the worker
+ * id of the instance and a sequence within the millisecond. It fits in 53 bits, so it stays exact as a
+ * JSON number in the gateway. The clock is never followed backwards: numbers of a same worker keep
+ * increasing, borrowing the next millisecond once one runs out of sequence.
+ * <p>
+ * Worker ids are configured per instance, or leased through Hazelcast. A lease is renewed while the
+ * instance runs and left to expire when it stops, so an id is reused no sooner than its time to live.
+ * The unique index on booking numbers remains the last guard against an instance that lost its lease.
+ */
+@Service
+public class BookingNumberGenerator {
+
+    private final Logger log = LoggerFactory.getLogger(BookingNumberGenerator.class);
+
+    public static final String WORKER_LEASES_MAP = "booking-number-worker-leases";
+
+    static final long EPOCH = Instant.parse("2020-01-01T00:00:00Z").toEpochMilli();
+    static final int WORKER_BITS = 6;
+    static final int SEQUENCE_BITS = 6;
+    static final int MAX_WORKERS = 1 << WORKER_BITS;
+    private static final long SEQUENCE_MASK = (1L << SEQUENCE_BITS) - 1;
+
+    private final ApplicationProperties.BookingNumber properties;
+    private final IMap<Integer, String> leases;
+    private final String owner = UUID.randomUUID().toString();
+    private final LongSupplier clock;
+    private int workerId = -1;
+    private long lastMillis;
+    private long sequence;
+
+    @Autowired
+    public BookingNumberGenerator(ApplicationProperties applicationProperties, HazelcastInstance hazelcastInstance) {
+        this(applicationProperties.getBookingNumber(), hazelcastInstance.getMap(WORKER_LEASES_MAP), System::currentTimeMillis);
+    }
+
+    BookingNumberGenerator(ApplicationProperties.BookingNumber properties, IMap<Integer, String> leases, LongSupplier clock) {
+        if (properties.getWorkerId() >= MAX_WORKERS) {
+            throw new IllegalArgumentException("Booking number worker ids go from 0 to " + (MAX_WORKERS - 1));
+        }
+        this.properties = properties;
+        this.leases = leases;
+        this.clock = clock;
+    }
+
+    /**
+     * @return a new booking number.
+     * @throws IllegalStateException if no worker id is free.
+     */
+    public synchronized long next() {
+        long millis = Math.max(clock.getAsLong() - EPOCH, lastMillis);
+        if (millis == lastMillis) {
+            sequence = (sequence + 1) & SEQUENCE_MASK;
+            if (sequence == 0) {
+                millis++;
+            }
+        } else {
+            sequence = 0;
+        }
+        lastMillis = millis;
+        return (millis << (WORKER_BITS + SEQUENCE_BITS)) | ((long) workerId() << SEQUENCE_BITS) | sequence;
+    }
+
+    /**
+     * Renews the lease of the worker id, or gives it up if another instance took it meanwhile.
+     */
+    @Scheduled(fixedDelayString = "${application.booking-number.lease-renew-millis:10000}")
+    public synchronized void renewLease() {
+        if (properties.getWorkerId() >= 0 || workerId < 0) {
+            return;
+        }
+        if (owner.equals(leases.get(workerId))) {
+            leases.setTtl(workerId, properties.getLeaseTtl().toMillis(), TimeUnit.MILLISECONDS);
+        } else {
+            log.warn("Lost the lease of booking number worker id {}, leasing another one", workerId);
+            workerId = -1;
+        }
+    }
+
+    /**
+     * @return the worker id of this instance, leasing one if needed.
+     */
+    synchronized int workerId() {
+        if (properties.getWorkerId() >= 0) {
+            return properties.getWorkerId();
+        }
+        if (workerId < 0) {
+            workerId = lease();
+        }
+        return workerId;
+    }
+
+    private int lease() {
+        long ttl = properties.getLeaseTtl().toMillis();
+        for (int candidate = 0; candidate < MAX_WORKERS; candidate++) {
+            if (leases.putIfAbsent(candidate, owner, ttl, TimeUnit.MILLISECONDS) == null) {
+                log.info("Leased booking number worker id {}", candidate);
+                return candidate;
+            }
+        }
+        throw new IllegalStateException("All " + MAX_WORKERS + " booking number worker ids are leased");
+    }
+}
@@ -0,0 +1,161 @@
+package bookings.service;
+
+import bookings.config.ApplicationProperties;
+import bookings.repository.BookingRepository;
+import bookings.service.dto.CheckoutFailureDTO;
+import bookings.service.dto.LuggageDTO;
+import bookings.service.dto.PaymentDTO;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Reconciles bookings with the payments and luggage announced on {@code payment_set} and
+ * {@code luggage_set}, a batch of events at a time.
+ * <p>
+ * The booking numbers of a batch are first checked against a Bloom filter of the booking numbers known
+ * to exist. Only the others are looked up, in one {@code IN} query, and the ones found are added to the
+ * filter, so a booking number is skipped only once the database confirmed it does not exist. The bookings
+ * of a batch are then updated in one statement: paid held bookings become paid, and bookings with
+ * luggage are marked as such. The {@link CheckoutSaga} then moves on their checkouts in the same transaction,
+ * and fails the ones reported on {@code payment_failed} and {@code luggage_failed}. An unreadable event is
+ * logged and skipped, rather than failing its batch.
+ */
+@Service
+public class BookingReconciler {
+
+    private final Logger log = LoggerFactory.getLogger(BookingReconciler.class);
+
+    public static final String TOPIC_PAYMENT_SET = "payment_set";
+    public static final String TOPIC_LUGGAGE_SET = "luggage_set";
+    public static final String TOPIC_PAYMENT_FAILED = "payment_failed";
+    public static final String TOPIC_LUGGAGE_FAILED = "luggage_failed";
+    public static final List<String> TOPICS = Collections.unmodifiableList(Arrays.asList(
+        TOPIC_PAYMENT_SET, TOPIC_LUGGAGE_SET, TOPIC_PAYMENT_FAILED, TOPIC_LUGGAGE_FAILED));
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final BookingRepository bookingRepository;
+    private final BookingHoldService bookingHoldService;
+    private final CheckoutSaga checkoutSaga;
+    private final TransactionTemplate transactionTemplate;
+    private final LongBloomFilter knownBookingNumbers;
+
+    @Autowired
+    public BookingReconciler(ApplicationProperties applicationProperties, BookingRepository bookingRepository,
+                             BookingHoldService bookingHoldService, CheckoutSaga checkoutSaga,
+                             PlatformTransactionManager transactionManager) {
+        this(applicationProperties.getReconciliation(), bookingRepository, bookingHoldService, checkoutSaga,
+            new TransactionTemplate(transactionManager));
+    }
+
+    BookingReconciler(ApplicationProperties.Reconciliation properties, BookingRepository bookingRepository,
+                      BookingHoldService bookingHoldService, CheckoutSaga checkoutSaga, TransactionTemplate transactionTemplate) {
+        this.bookingRepository = bookingRepository;
+        this.bookingHoldService = bookingHoldService;
+        this.checkoutSaga = checkoutSaga;
+        this.transactionTemplate = transactionTemplate;
+        this.knownBookingNumbers = new LongBloomFilter(properties.getExpectedBookings(), properties.getFalsePositiveProbability());
+    }
+
+    /**
+     * Reconciles the bookings of a batch of events.
+     *
+     * @param topic the topic of the events, one of {@link #TOPICS}.
+     * @param events the events, in offset order.
+     * @return the number of bookings updated, or of checkouts failed.
+     */
+    public int reconcile(String topic, List<String> events) {
+        if (TOPIC_PAYMENT_FAILED.equals(topic) || TOPIC_LUGGAGE_FAILED.equals(topic)) {
+            return fail(topic, events);
+        }
+        Set<Long> bookingNumbers = existing(bookingNumbers(topic, events));
+        if (bookingNumbers.isEmpty()) {
+            return 0;
+        }
+        Integer updated = transactionTemplate.execute(status -> {
+            if (TOPIC_PAYMENT_SET.equals(topic)) {
+                int paid = bookingHoldService.paid(bookingNumbers);
+                checkoutSaga.paid(bookingNumbers);
+                return paid;
+            }
+            int marked = bookingRepository.markLuggageAddedByBookingNumberIn(bookingNumbers);
+            checkoutSaga.luggageAdded(bookingNumbers);
+            return marked;
+        });
+        log.debug("Reconciled {} bookings with {} events of {}", updated, events.size(), topic);
+        return updated == null ? 0 : updated;
+    }
+
+    private int fail(String topic, List<String> events) {
+        Map<Long, String> reasons = new LinkedHashMap<>();
+        for (String event : events) {
+            try {
+                CheckoutFailureDTO failure = objectMapper.readValue(event, CheckoutFailureDTO.class);
+                reasons.put(Long.valueOf(failure.getBookingNumber()), failure.getReason());
+            } catch (IOException | NumberFormatException e) {
+                log.warn("Skipped an unreadable event of {}: {}", topic, e.getMessage());
+            }
+        }
+        if (reasons.isEmpty()) {
+            return 0;
+        }
+        Integer failed = transactionTemplate.execute(status -> TOPIC_PAYMENT_FAILED.equals(topic)
+            ? checkoutSaga.paymentFailed(reasons)
+            : checkoutSaga.luggageFailed(reasons));
+        log.debug("Failed {} checkouts with {} events of {}", failed, events.size(), topic);
+        return failed == null ? 0 : failed;
+    }
+
+    private Set<Long> bookingNumbers(String topic, List<String> events) {
+        Set<Long> bookingNumbers = new LinkedHashSet<>();
+        for (String event : events) {
+            try {
+                String bookingNumber = TOPIC_PAYMENT_SET.equals(topic)
+                    ? objectMapper.readValue(event, PaymentDTO.class).getBookingNumber()
+                    : objectMapper.readValue(event, LuggageDTO.class).getBookingNumber();
+                bookingNumbers.add(Long.valueOf(bookingNumber));
+            } catch (IOException | NumberFormatException e) {
+                log.warn("Skipped an unreadable event of {}: {}", topic, e.getMessage());
+            }
+        }
+        return bookingNumbers;
+    }
+
+    private Set<Long> existing(Set<Long> bookingNumbers) {
+        Set<Long> existing = new LinkedHashSet<>();
+        List<Long> unknown = new ArrayList<>();
+        for (Long bookingNumber : bookingNumbers) {
+            if (knownBookingNumbers.mightContain(bookingNumber)) {
+                existing.add(bookingNumber);
+            } else {
+                unknown.add(bookingNumber);
+            }
+        }
+        if (!unknown.isEmpty()) {
+            List<Long> found = bookingRepository.findBookingNumbersIn(unknown);
+            for (Long bookingNumber : found) {
+                knownBookingNumbers.put(bookingNumber);
+                existing.add(bookingNumber);
+            }
+            if (found.size() < unknown.size()) {
+                unknown.removeAll(found);
+                log.warn("Skipped events for bookings that do not exist: {}", unknown);
+            }
+        }
+        return existing;
+    }
+}
@@ -0,0 +1,205 @@
+package bookings.service;
+
+import bookings.config.ApplicationProperties;
+import fms.common.config.KafkaProperties;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerRebalanceListener;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.ConsumerRecords;
+import org.apache.kafka.clients.consumer.KafkaConsumer;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.errors.WakeupException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+/**
+ * Consumes {@code payment_set} and {@code luggage_set}, and the checkout failures on {@code payment_failed} and
+ * {@code luggage_failed}, and hands their events to the {@link BookingReconciler} a batch per partition at a time.
+ * <p>
+ * One consumer polls all these topics. The events a poll returns for a partition are reconciled by a worker while
+ * the partition is paused, so the assigned partitions are reconciled in parallel, and each one in order. The
+ * offset of a partition is committed as soon as its batch is reconciled: a batch is reconciled again if the
+ * instance dies before, which reconciliation allows. A batch that fails, e.g. while the database is down, is
+ * sought back to and retried by the next poll. Revoked partitions finish and commit their batch first.
+ */
+@Service
+public class BookingReconciliationEngine {
+
+    private final Logger log = LoggerFactory.getLogger(BookingReconciliationEngine.class);
+
+    private final ApplicationProperties.Reconciliation properties;
+    private final BookingReconciler bookingReconciler;
+    private final Consumer<String, String> consumer;
+    private final ExecutorService workers;
+    private final Map<TopicPartition, Batch> inFlight = new HashMap<>();
+    private final AtomicBoolean closed = new AtomicBoolean(false);
+    private Thread poller;
+
+    @Autowired
+    public BookingReconciliationEngine(ApplicationProperties applicationProperties, KafkaProperties kafkaProperties,
+                                       BookingReconciler bookingReconciler) {
+        this(applicationProperties.getReconciliation(), bookingReconciler, new KafkaConsumer<>(consumerProps(kafkaProperties)),
+            workers(applicationProperties.getReconciliation().getWorkerThreads()));
+    }
+
+    BookingReconciliationEngine(ApplicationProperties.Reconciliation properties, BookingReconciler bookingReconciler,
+                                Consumer<String, String> consumer, ExecutorService workers) {
+        this.properties = properties;
+        this.bookingReconciler = bookingReconciler;
+        this.consumer = consumer;
+        this.workers = workers;
+    }
+
+    private static Map<String, Object> consumerProps(KafkaProperties kafkaProperties) {
+        Map<String, Object> consumerProps = kafkaProperties.getConsumerProps();
+        // offsets are committed once their batch is reconciled
+        consumerProps.put("enable.auto.commit", "false");
+        return consumerProps;
+    }
+
+    private static ExecutorService workers(int threads) {
+        AtomicInteger count = new AtomicInteger();
+        return Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "booking-reconciliation-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PostConstruct
+    public void start() {
+        subscribe();
+        poller = new Thread(this::run, "booking-reconciliation");
+        poller.setDaemon(true);
+        poller.start();
+        log.debug("Booking reconciliation (payment & luggage) started.");
+    }
+
+    void subscribe() {
+        consumer.subscribe(BookingReconciler.TOPICS,
+            new ConsumerRebalanceListener() {
+                @Override
+                public void onPartitionsRevoked(Collection<TopicPartition> partitions) {
+                    complete(partitions, true);
+                }
+
+                @Override
+                public void onPartitionsAssigned(Collection<TopicPartition> partitions) {
+                    log.debug("Reconciling bookings of {}", partitions);
+                }
+            });
+    }
+
+    private void run() {
+        try {
+            while (!closed.get()) {
+                try {
+                    poll();
+                } catch (WakeupException e) {
+                    // shutting down
+                } catch (RuntimeException e) {
+                    log.error("Could not poll payment and luggage events: {}", e.getMessage(), e);
+                }
+            }
+            complete(new ArrayList<>(inFlight.keySet()), true);
+        } catch (RuntimeException e) {
+            log.warn("Could not commit the last reconciled batches: {}", e.getMessage());
+        } finally {
+            consumer.close();
+            workers.shutdown();
+        }
+    }
+
+    /**
+     * Hands the events of a poll to the workers, a batch per partition, and commits the batches reconciled since.
+     */
+    void poll() {
+        ConsumerRecords<String, String> records = consumer.poll(Duration.ofMillis(properties.getPollMillis()));
+        for (TopicPartition partition : records.partitions()) {
+            List<ConsumerRecord<String, String>> batch = records.records(partition);
+            List<String> events = batch.stream().map(ConsumerRecord::value).collect(Collectors.toList());
+            consumer.pause(Collections.singleton(partition));
+            inFlight.put(partition, new Batch(batch.get(0).offset(), batch.get(batch.size() - 1).offset() + 1,
+                workers.submit(() -> bookingReconciler.reconcile(partition.topic(), events))));
+        }
+        complete(new ArrayList<>(inFlight.keySet()), false);
+    }
+
+    /**
+     * Commits the reconciled batches of some partitions and resumes them.
+     *
+     * @param partitions the partitions.
+     * @param wait whether to wait for the batches still being reconciled, rather than leave them for the next poll.
+     */
+    private void complete(Collection<TopicPartition> partitions, boolean wait) {
+        Map<TopicPartition, OffsetAndMetadata> offsets = new HashMap<>();
+        for (TopicPartition partition : partitions) {
+            Batch batch = inFlight.get(partition);
+            if (batch == null || (!wait && !batch.reconciled.isDone())) {
+                continue;
+            }
+            inFlight.remove(partition);
+            try {
+                batch.reconciled.get();
+                offsets.put(partition, new OffsetAndMetadata(batch.nextOffset));
+            } catch (ExecutionException e) {
+                log.error("Could not reconcile the bookings of {}, retrying from offset {}", partition, batch.firstOffset, e.getCause());
+                consumer.seek(partition, batch.firstOffset);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                consumer.seek(partition, batch.firstOffset);
+            }
+            consumer.resume(Collections.singleton(partition));
+        }
+        if (!offsets.isEmpty()) {
+            consumer.commitSync(offsets);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        log.debug("Shutdown booking reconciliation");
+        closed.set(true);
+        consumer.wakeup();
+        if (poller != null) {
+            try {
+                poller.join(10000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private static final class Batch {
+
+        private final long firstOffset;
+        private final long nextOffset;
+        private final Future<Integer> reconciled;
+
+        private Batch(long firstOffset, long nextOffset, Future<Integer> reconciled) {
+            this.firstOffset = firstOffset;
+            this.nextOffset = nextOffset;
+            this.reconciled = reconciled;
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package bookings.service;
+
+import java.util.List;
+
+/**
+ * Published by the {@link BookingHoldService}, in the transaction that expires some held bookings.
+ */
+public class BookingsExpiredEvent {
+
+    private final List<Long> bookingNumbers;
+
+    public BookingsExpiredEvent(List<Long> bookingNumbers) {
+        this.bookingNumbers = bookingNumbers;
+    }
+
+    public List<Long> getBookingNumbers() {
+        return bookingNumbers;
+    }
+}
@@ -0,0 +1,89 @@
+package bookings.service;
+
+import bookings.domain.Checkout;
+import bookings.service.dto.CheckoutDTO;
+import bookings.service.dto.CheckoutFailureDTO;
+import bookings.service.dto.FlightFareDTO;
+import bookings.service.dto.LuggageRequestDTO;
+import bookings.service.dto.PaymentRequestDTO;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import fms.common.service.KafkaEventPublisher;
+import fms.common.service.OutboxService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+/**
+ * Sends the commands of the {@link CheckoutSaga} to the payment and luggage services.
+ */
+@Service
+public class CheckoutKafkaProducer {
+
+    private static final Logger logger = LoggerFactory.getLogger(CheckoutKafkaProducer.class);
+    public static final String TOPIC_PAYMENT_REQUESTED = "payment_requested";
+    public static final String TOPIC_PAYMENT_REFUND_REQUESTED = "payment_refund_requested";
+    public static final String TOPIC_LUGGAGE_REQUESTED = "luggage_requested";
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final OutboxService outboxService;
+
+    public CheckoutKafkaProducer(OutboxService outboxService, KafkaEventPublisher kafkaEventPublisher) {
+        this.outboxService = outboxService;
+        kafkaEventPublisher.declareTopics(TOPIC_PAYMENT_REQUESTED, TOPIC_PAYMENT_REFUND_REQUESTED, TOPIC_LUGGAGE_REQUESTED);
+    }
+
+    /**
+     * Asks for the payment of a checkout. Like all the commands of a checkout, it is keyed by booking
+     * number, written to the outbox, and sent only if the current transaction commits.
+     *
+     * @param checkout the checkout.
+     * @param checkoutDTO the checkout request, with how to pay.
+     * @param flight the flight booked, with the fare to pay.
+     */
+    public void requestPayment(Checkout checkout, CheckoutDTO checkoutDTO, FlightFareDTO flight) {
+        PaymentRequestDTO paymentRequestDTO = new PaymentRequestDTO();
+        paymentRequestDTO.setBookingNumber(String.valueOf(checkout.getBookingNumber()));
+        paymentRequestDTO.setPassengerId(checkout.getPassengerId());
+        paymentRequestDTO.setFlightId(String.valueOf(flight.getId()));
+        paymentRequestDTO.setToPay(String.valueOf(flight.getPrice()));
+        paymentRequestDTO.setCreditCardId(String.valueOf(checkoutDTO.getCreditCardId()));
+        send(TOPIC_PAYMENT_REQUESTED, checkout, paymentRequestDTO);
+    }
+
+    /**
+     * Asks for the luggage of a paid checkout.
+     *
+     * @param checkout the checkout.
+     * @param flightNumber the flight of its booking.
+     */
+    public void requestLuggage(Checkout checkout, String flightNumber) {
+        LuggageRequestDTO luggageRequestDTO = new LuggageRequestDTO();
+        luggageRequestDTO.setBookingNumber(String.valueOf(checkout.getBookingNumber()));
+        luggageRequestDTO.setFlightNumber(flightNumber);
+        luggageRequestDTO.setPassengerId(checkout.getPassengerId());
+        luggageRequestDTO.setLuggageType(checkout.getLuggageType());
+        luggageRequestDTO.setWeightCategory(String.valueOf(checkout.getWeightCategory()));
+        send(TOPIC_LUGGAGE_REQUESTED, checkout, luggageRequestDTO);
+    }
+
+    /**
+     * Asks for the refund of a failed checkout that was paid.
+     *
+     * @param checkout the checkout.
+     */
+    public void requestRefund(Checkout checkout) {
+        CheckoutFailureDTO checkoutFailureDTO = new CheckoutFailureDTO();
+        checkoutFailureDTO.setBookingNumber(String.valueOf(checkout.getBookingNumber()));
+        checkoutFailureDTO.setReason(checkout.getFailureReason());
+        send(TOPIC_PAYMENT_REFUND_REQUESTED, checkout, checkoutFailureDTO);
+    }
+
+    private void send(String topic, Checkout checkout, Object command) {
+        try {
+            outboxService.append(topic, String.valueOf(checkout.getBookingNumber()), objectMapper.writeValueAsString(command));
+        } catch (JsonProcessingException e) {
+            logger.error(e.getMessage());
+        }
+    }
+}
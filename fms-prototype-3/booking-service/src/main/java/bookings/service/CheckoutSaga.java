@@ -0,0 +1,233 @@
+package bookings.service;
+
+import bookings.domain.Booking;
+import bookings.domain.Checkout;
+import bookings.domain.enumeration.EBookingStatus;
+import bookings.domain.enumeration.ECheckoutStatus;
+import bookings.domain.enumeration.ETopicType;
+import bookings.repository.BookingRepository;
+import bookings.repository.CheckoutRepository;
+import bookings.service.dto.CheckoutDTO;
+import bookings.service.dto.FlightFareDTO;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Checks out a booking: books it, then has it paid, then adds its luggage, each step being run by the
+ * service that owns it and reported back on Kafka.
+ * <p>
+ * A checkout starts in one transaction with its held booking, which is announced on {@code booking_updated},
+ * and the payment request. Payments and luggage are reported on {@code payment_set} and {@code luggage_set},
+ * failures on {@code payment_failed} and {@code luggage_failed}; the {@link BookingReconciler} hands them
+ * over in batches, in the transaction that updates their bookings. A failed checkout is compensated: its
+ * booking is cancelled, unless its hold expired, and its payment, if any, refunded. Checkouts are locked
+ * while they move, after their bookings, so the events of a checkout are applied one at a time, in any
+ * order, and at least once.
+ */
+@Service
+@Transactional
+public class CheckoutSaga {
+
+    private final Logger log = LoggerFactory.getLogger(CheckoutSaga.class);
+
+    private static final int MAX_REASON_LENGTH = 255;
+
+    private final BookingRepository bookingRepository;
+    private final CheckoutRepository checkoutRepository;
+    private final BookingHoldService bookingHoldService;
+    private final BookingNumberGenerator bookingNumberGenerator;
+    private final BookingKafkaProducer bookingKafkaProducer;
+    private final CheckoutKafkaProducer checkoutKafkaProducer;
+    private final CheckoutStatusBroadcaster checkoutStatusBroadcaster;
+    private final FlightService flightService;
+
+    public CheckoutSaga(BookingRepository bookingRepository, CheckoutRepository checkoutRepository,
+                        BookingHoldService bookingHoldService, BookingNumberGenerator bookingNumberGenerator,
+                        BookingKafkaProducer bookingKafkaProducer, CheckoutKafkaProducer checkoutKafkaProducer,
+                        CheckoutStatusBroadcaster checkoutStatusBroadcaster, FlightService flightService) {
+        this.bookingRepository = bookingRepository;
+        this.checkoutRepository = checkoutRepository;
+        this.bookingHoldService = bookingHoldService;
+        this.bookingNumberGenerator = bookingNumberGenerator;
+        this.bookingKafkaProducer = bookingKafkaProducer;
+        this.checkoutKafkaProducer = checkoutKafkaProducer;
+        this.checkoutStatusBroadcaster = checkoutStatusBroadcaster;
+        this.flightService = flightService;
+    }
+
+    /**
+     * Starts a checkout: holds a seat and a new booking, and requests its payment, at the quoted fare.
+     *
+     * @param checkoutDTO the checkout request.
+     * @param flight the flight booked, as quoted by the flight service.
+     * @param passengerId the passenger checking out.
+     * @return the checkout, waiting for its payment.
+     * @throws SeatsUnavailableException if the cabin booked is full.
+     */
+    public Checkout start(CheckoutDTO checkoutDTO, FlightFareDTO flight, String passengerId) {
+        Booking booking = bookingHoldService.hold(new Booking()
+            .bookingNumber(bookingNumberGenerator.next())
+            .flightNumber(flight.getFlightNumber())
+            .flightId(flight.getId())
+            .seatHoldId(flightService.holdSeat(flight).orElse(null))
+            .passengerId(passengerId));
+        booking = bookingRepository.save(booking);
+        bookingHoldService.schedule(booking);
+        bookingKafkaProducer.sendBookingEvent(booking, ETopicType.SET);
+
+        Checkout checkout = checkoutRepository.save(new Checkout()
+            .bookingNumber(booking.getBookingNumber())
+            .passengerId(passengerId)
+            .status(ECheckoutStatus.PAYMENT_PENDING)
+            .luggageType(checkoutDTO.getLuggageType())
+            .weightCategory(checkoutDTO.getLuggageType() == null ? null : checkoutDTO.getWeightCategory())
+            .updatedAt(Instant.now()));
+        checkoutKafkaProducer.requestPayment(checkout, checkoutDTO, flight);
+        log.debug("Started checkout {} of booking {}", checkout.getId(), booking.getBookingNumber());
+        return checkout;
+    }
+
+    /**
+     * Moves on the checkouts of paid bookings, to their luggage if they have some. A checkout paid after
+     * it failed, e.g. because its hold expired first, is refunded.
+     *
+     * @param bookingNumbers the booking numbers that were paid.
+     * @return the number of checkouts moved.
+     */
+    public int paid(Collection<Long> bookingNumbers) {
+        List<Checkout> checkouts = checkoutRepository.findAllByBookingNumberInAndStatusIn(bookingNumbers,
+            Arrays.asList(ECheckoutStatus.PAYMENT_PENDING, ECheckoutStatus.FAILED));
+        if (checkouts.isEmpty()) {
+            return 0;
+        }
+        Map<Long, Booking> bookings = bookings(checkouts);
+        int moved = 0;
+        for (Checkout checkout : checkouts) {
+            Booking booking = bookings.get(checkout.getBookingNumber());
+            if (checkout.getStatus() == ECheckoutStatus.FAILED) {
+                checkoutKafkaProducer.requestRefund(checkout);
+                continue;
+            }
+            if (booking == null || booking.getStatus() != EBookingStatus.PAID) {
+                fail(checkout, "The booking was " + (booking == null ? "deleted" : booking.getStatus()) + " before it was paid");
+                checkoutKafkaProducer.requestRefund(checkout);
+            } else if (checkout.getLuggageType() == null) {
+                move(checkout, ECheckoutStatus.COMPLETED);
+            } else {
+                move(checkout, ECheckoutStatus.LUGGAGE_PENDING);
+                checkoutKafkaProducer.requestLuggage(checkout, booking.getFlightNumber());
+            }
+            moved++;
+        }
+        return moved;
+    }
+
+    /**
+     * Completes the checkouts whose luggage was added.
+     *
+     * @param bookingNumbers the booking numbers that got luggage.
+     * @return the number of checkouts completed.
+     */
+    public int luggageAdded(Collection<Long> bookingNumbers) {
+        List<Checkout> checkouts = checkoutRepository.findAllByBookingNumberInAndStatusIn(bookingNumbers,
+            Collections.singleton(ECheckoutStatus.LUGGAGE_PENDING));
+        for (Checkout checkout : checkouts) {
+            move(checkout, ECheckoutStatus.COMPLETED);
+        }
+        return checkouts.size();
+    }
+
+    /**
+     * Fails the checkouts whose payment failed, and cancels their bookings.
+     *
+     * @param reasons the reason of each failure, by booking number.
+     * @return the number of checkouts failed.
+     */
+    public int paymentFailed(Map<Long, String> reasons) {
+        return failed(reasons, ECheckoutStatus.PAYMENT_PENDING, false);
+    }
+
+    /**
+     * Fails the checkouts whose luggage could not be added, cancels their bookings and refunds them.
+     *
+     * @param reasons the reason of each failure, by booking number.
+     * @return the number of checkouts failed.
+     */
+    public int luggageFailed(Map<Long, String> reasons) {
+        return failed(reasons, ECheckoutStatus.LUGGAGE_PENDING, true);
+    }
+
+    /**
+     * Fails the checkouts still waiting for the payment of a booking whose hold expired.
+     *
+     * @param event the bookings that expired.
+     */
+    @EventListener
+    public void bookingsExpired(BookingsExpiredEvent event) {
+        List<Checkout> checkouts = checkoutRepository.findAllByBookingNumberInAndStatusIn(event.getBookingNumbers(),
+            Collections.singleton(ECheckoutStatus.PAYMENT_PENDING));
+        for (Checkout checkout : checkouts) {
+            fail(checkout, "The booking hold expired before it was paid");
+        }
+    }
+
+    private int failed(Map<Long, String> reasons, ECheckoutStatus step, boolean refund) {
+        if (reasons.isEmpty()) {
+            return 0;
+        }
+        // bookings are locked before their checkouts, as when they are paid or expire
+        Map<Long, Booking> bookings = bookingRepository.findAllByBookingNumberIn(reasons.keySet()).stream()
+            .collect(Collectors.toMap(Booking::getBookingNumber, Function.identity()));
+        List<Checkout> checkouts = checkoutRepository.findAllByBookingNumberInAndStatusIn(reasons.keySet(),
+            Collections.singleton(step));
+        for (Checkout checkout : checkouts) {
+            fail(checkout, reasons.get(checkout.getBookingNumber()));
+            cancel(bookings.get(checkout.getBookingNumber()));
+            if (refund) {
+                checkoutKafkaProducer.requestRefund(checkout);
+            }
+        }
+        return checkouts.size();
+    }
+
+    private Map<Long, Booking> bookings(List<Checkout> checkouts) {
+        List<Long> bookingNumbers = checkouts.stream().map(Checkout::getBookingNumber).collect(Collectors.toList());
+        return bookingRepository.findAllByBookingNumberIn(bookingNumbers).stream()
+            .collect(Collectors.toMap(Booking::getBookingNumber, Function.identity()));
+    }
+
+    private void cancel(Booking booking) {
+        if (booking == null || (booking.getStatus() != EBookingStatus.HELD && booking.getStatus() != EBookingStatus.PAID)) {
+            return;
+        }
+        booking.status(EBookingStatus.CANCELLED).holdExpiresAt(null);
+        bookingHoldService.cancel(booking.getId());
+        bookingKafkaProducer.sendBookingEvent(booking, ETopicType.CANCELLED);
+    }
+
+    private void fail(Checkout checkout, String reason) {
+        if (reason != null && reason.length() > MAX_REASON_LENGTH) {
+            reason = reason.substring(0, MAX_REASON_LENGTH);
+        }
+        log.debug("Checkout {} of booking {} failed: {}", checkout.getId(), checkout.getBookingNumber(), reason);
+        checkout.failureReason(reason);
+        move(checkout, ECheckoutStatus.FAILED);
+    }
+
+    private void move(Checkout checkout, ECheckoutStatus status) {
+        checkout.status(status).updatedAt(Instant.now());
+        checkoutStatusBroadcaster.publish(checkout);
+    }
+}
@@ -0,0 +1,126 @@
+package bookings.service;
+
+import bookings.config.ApplicationProperties;
+import bookings.domain.Checkout;
+import com.hazelcast.core.HazelcastInstance;
+import com.hazelcast.core.ITopic;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArraySet;
+
+/**
+ * Pushes the status of checkouts to the clients following them, as server-sent events.
+ * <p>
+ * The saga may move a checkout on any instance, while its client is connected to one of them: status
+ * changes are published on a Hazelcast topic once committed, and each instance sends them to the streams
+ * it holds. A stream gets the current status when it opens, then every change, and is completed once
+ * the checkout is finished.
+ */
+@Service
+public class CheckoutStatusBroadcaster {
+
+    private final Logger log = LoggerFactory.getLogger(CheckoutStatusBroadcaster.class);
+
+    public static final String STATUS_TOPIC = "checkout-status";
+    public static final String STATUS_EVENT = "status";
+
+    private final ApplicationProperties.Checkout properties;
+    private final ITopic<Checkout> statusTopic;
+    private final ConcurrentMap<Long, Set<SseEmitter>> emitters = new ConcurrentHashMap<>();
+
+    @Autowired
+    public CheckoutStatusBroadcaster(ApplicationProperties applicationProperties, HazelcastInstance hazelcastInstance) {
+        this(applicationProperties.getCheckout(), hazelcastInstance.getTopic(STATUS_TOPIC));
+    }
+
+    CheckoutStatusBroadcaster(ApplicationProperties.Checkout properties, ITopic<Checkout> statusTopic) {
+        this.properties = properties;
+        this.statusTopic = statusTopic;
+        statusTopic.addMessageListener(message -> send(message.getMessageObject()));
+    }
+
+    /**
+     * Opens a stream of the status of a checkout.
+     *
+     * @param checkout the checkout, as currently stored.
+     * @return the stream, already completed if the checkout is finished.
+     */
+    public SseEmitter subscribe(Checkout checkout) {
+        SseEmitter emitter = new SseEmitter(properties.getStreamTimeout().toMillis());
+        Long id = checkout.getId();
+        if (!checkout.getStatus().isFinished()) {
+            emitters.computeIfAbsent(id, key -> new CopyOnWriteArraySet<>()).add(emitter);
+            emitter.onCompletion(() -> remove(id, emitter));
+            emitter.onTimeout(() -> remove(id, emitter));
+        }
+        send(emitter, checkout);
+        return emitter;
+    }
+
+    /**
+     * Publishes the status of a checkout once the current transaction, if any, commits.
+     *
+     * @param checkout the checkout.
+     */
+    public void publish(Checkout checkout) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    statusTopic.publish(checkout);
+                }
+            });
+        } else {
+            statusTopic.publish(checkout);
+        }
+    }
+
+    /**
+     * @return the number of checkouts followed on this instance.
+     */
+    public int getFollowedCheckouts() {
+        return emitters.size();
+    }
+
+    private void send(Checkout checkout) {
+        Set<SseEmitter> followers = emitters.get(checkout.getId());
+        if (followers == null) {
+            return;
+        }
+        for (SseEmitter emitter : followers) {
+            send(emitter, checkout);
+        }
+    }
+
+    private void send(SseEmitter emitter, Checkout checkout) {
+        try {
+            emitter.send(SseEmitter.event().name(STATUS_EVENT).id(String.valueOf(checkout.getUpdatedAt().toEpochMilli())).data(checkout));
+            if (checkout.getStatus().isFinished()) {
+                emitter.complete();
+                remove(checkout.getId(), emitter);
+            }
+        } catch (IOException | IllegalStateException e) {
+            // the client is gone, or the stream already completed
+            log.trace("Could not send the status of checkout {}: {}", checkout.getId(), e.getMessage());
+            emitter.complete();
+            remove(checkout.getId(), emitter);
+        }
+    }
+
+    private void remove(Long id, SseEmitter emitter) {
+        emitters.computeIfPresent(id, (key, followers) -> {
+            followers.remove(emitter);
+            return followers.isEmpty() ? null : followers;
+        });
+    }
+}
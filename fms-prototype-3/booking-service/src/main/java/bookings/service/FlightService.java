@@ -0,0 +1,128 @@
+package bookings.service;
+
+import bookings.client.FlightClient;
+import bookings.service.dto.FlightFareDTO;
+import bookings.service.dto.SeatHoldDTO;
+import feign.FeignException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDate;
+import java.util.Optional;
+
+/**
+ * Reads the flights booked from the flight service, which prices them, stores the flights of schedules
+ * there on their first booking, and holds their seats.
+ */
+@Service
+public class FlightService {
+
+    private final Logger log = LoggerFactory.getLogger(FlightService.class);
+
+    public static final String CANCELLED = "CANCELLED";
+
+    private final FlightClient flightClient;
+
+    public FlightService(FlightClient flightClient) {
+        this.flightClient = flightClient;
+    }
+
+    /**
+     * @param flightId the id of the flight.
+     * @return the flight with the fare it is sold at, or empty if it does not exist or is cancelled.
+     */
+    public Optional<FlightFareDTO> quote(Long flightId) {
+        ResponseEntity<FlightFareDTO> response = flightClient.getFlight(flightId);
+        if (!response.getStatusCode().is2xxSuccessful()) {
+            return Optional.empty();
+        }
+        return Optional.ofNullable(response.getBody())
+            .filter(flight -> flight.getPrice() != null && !CANCELLED.equals(flight.getStatus()));
+    }
+
+    /**
+     * Stores the flight of a schedule on a date in the flight service, unless it is stored already, so it can be
+     * booked like any dated flight.
+     *
+     * @param scheduleId the id of the schedule.
+     * @param departureDate the departure date.
+     * @return the id of the stored flight, or empty if the schedule does not operate on that date.
+     */
+    public Optional<Long> materialize(Long scheduleId, LocalDate departureDate) {
+        ResponseEntity<FlightFareDTO> response = flightClient.materializeFlight(scheduleId, departureDate);
+        if (!response.getStatusCode().is2xxSuccessful() || response.getBody() == null) {
+            return Optional.empty();
+        }
+        return Optional.ofNullable(response.getBody().getId());
+    }
+
+    /**
+     * Holds a seat of the cabin of a flight for a new booking. The seat is released again if the current
+     * transaction, if any, rolls back, so it is only held for a booking that was saved.
+     *
+     * @param flight the flight, as quoted.
+     * @return the id of the hold, or empty if the cabin has no seat inventory, in which case its seats are not counted.
+     * @throws SeatsUnavailableException if the cabin is full.
+     */
+    public Optional<String> holdSeat(FlightFareDTO flight) {
+        SeatHoldDTO seatHoldDTO = new SeatHoldDTO();
+        seatHoldDTO.setCabin(flight.getFareType());
+        seatHoldDTO.setSeats(1);
+        SeatHoldDTO hold;
+        try {
+            hold = flightClient.createSeatHold(flight.getId(), seatHoldDTO);
+        } catch (RuntimeException e) {
+            int status = status(e);
+            if (status == HttpStatus.CONFLICT.value()) {
+                throw new SeatsUnavailableException(flight.getId(), flight.getFareType());
+            }
+            if (status == HttpStatus.BAD_REQUEST.value()) {
+                log.debug("Flight {} has no seat inventory for {}", flight.getId(), flight.getFareType());
+                return Optional.empty();
+            }
+            throw e;
+        }
+        String holdId = hold.getHoldId();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    if (status == STATUS_ROLLED_BACK) {
+                        releaseSeat(holdId);
+                    }
+                }
+            });
+        }
+        return Optional.of(holdId);
+    }
+
+    /**
+     * Releases a seat hold, logging rather than failing if the flight service cannot be reached.
+     *
+     * @param holdId the id of the hold.
+     */
+    public void releaseSeat(String holdId) {
+        try {
+            flightClient.deleteSeatHold(holdId);
+        } catch (RuntimeException e) {
+            log.warn("Could not release seat hold {}: {}", holdId, e.getMessage());
+        }
+    }
+
+    /**
+     * @return the status the flight service answered with, if it answered, as the Feign exception may be wrapped by Hystrix.
+     */
+    private static int status(RuntimeException e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof FeignException) {
+                return ((FeignException) cause).status();
+            }
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,203 @@
+package bookings.service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A hierarchical timing wheel: schedules keys to expire at a given time, with O(1) insertion and cancellation.
+ * <p>
+ * The lowest level has {@code wheelSize} buckets of {@code tickMillis} each. Keys expiring beyond the
+ * lowest level's span go to an overflow level whose ticks span a whole lower level, created on demand.
+ * Buckets are intrusive doubly linked lists, so a key is unlinked from its bucket in constant time.
+ * When the clock reaches an overflow bucket, its keys are moved down to the level where they fit.
+ * <p>
+ * The wheel is not driven by its own thread: {@link #advance(long)} is called periodically and returns
+ * the keys that expired since the previous call. Expiration times are rounded up to the next tick, so a key
+ * never expires early, and at most one tick late. All methods are synchronized; each is short.
+ *
+ * @param <K> the type of the scheduled keys.
+ */
+public class HierarchicalTimingWheel<K> {
+
+    private final Map<K, Entry<K>> entries = new HashMap<>();
+    private final long tickMillis;
+    private final Level<K> root;
+
+    /**
+     * @param tickMillis the resolution of the wheel.
+     * @param wheelSize the number of buckets per level.
+     * @param startMillis the current time.
+     */
+    public HierarchicalTimingWheel(long tickMillis, int wheelSize, long startMillis) {
+        if (tickMillis < 1 || wheelSize < 2) {
+            throw new IllegalArgumentException("The tick must be positive and the wheel must have at least two buckets");
+        }
+        this.tickMillis = tickMillis;
+        this.root = new Level<>(tickMillis, wheelSize, startMillis);
+    }
+
+    /**
+     * Schedules a key, replacing its previous schedule if any.
+     *
+     * @param key the key.
+     * @param expirationMillis the time the key expires at.
+     * @return {@code false} if the key is already expired, in which case it is not scheduled.
+     */
+    public synchronized boolean schedule(K key, long expirationMillis) {
+        cancel(key);
+        long deadline = expirationMillis % tickMillis == 0 ? expirationMillis : (expirationMillis / tickMillis + 1) * tickMillis;
+        Entry<K> entry = new Entry<>(key, deadline);
+        if (!root.add(entry)) {
+            return false;
+        }
+        entries.put(key, entry);
+        return true;
+    }
+
+    /**
+     * Cancels the schedule of a key.
+     *
+     * @param key the key.
+     * @return whether the key was scheduled.
+     */
+    public synchronized boolean cancel(K key) {
+        Entry<K> entry = entries.remove(key);
+        if (entry == null) {
+            return false;
+        }
+        entry.unlink();
+        return true;
+    }
+
+    /**
+     * Moves the clock forward.
+     *
+     * @param nowMillis the current time.
+     * @return the keys that expired, in no particular order.
+     */
+    public synchronized List<K> advance(long nowMillis) {
+        List<K> expired = new ArrayList<>();
+        root.advanceTo(nowMillis, entry -> {
+            if (!root.add(entry)) {
+                entries.remove(entry.key);
+                expired.add(entry.key);
+            }
+        });
+        return expired;
+    }
+
+    public synchronized boolean isScheduled(K key) {
+        return entries.containsKey(key);
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    private interface Reinsert<K> {
+        void accept(Entry<K> entry);
+    }
+
+    private static final class Level<K> {
+
+        private final long tickMillis;
+        private final int wheelSize;
+        private final long intervalMillis;
+        private final Bucket<K>[] buckets;
+        private long currentTime;
+        private Level<K> overflow;
+
+        @SuppressWarnings("unchecked")
+        private Level(long tickMillis, int wheelSize, long startMillis) {
+            this.tickMillis = tickMillis;
+            this.wheelSize = wheelSize;
+            this.intervalMillis = tickMillis * wheelSize;
+            this.buckets = new Bucket[wheelSize];
+            for (int i = 0; i < wheelSize; i++) {
+                buckets[i] = new Bucket<>();
+            }
+            this.currentTime = startMillis - (startMillis % tickMillis);
+        }
+
+        /**
+         * @return {@code false} if the entry is expired.
+         */
+        private boolean add(Entry<K> entry) {
+            if (entry.expiration < currentTime + tickMillis) {
+                return false;
+            }
+            if (entry.expiration < currentTime + intervalMillis) {
+                buckets[(int) ((entry.expiration / tickMillis) % wheelSize)].add(entry);
+                return true;
+            }
+            if (overflow == null) {
+                overflow = new Level<>(intervalMillis, wheelSize, currentTime);
+            }
+            return overflow.add(entry);
+        }
+
+        private void advanceTo(long time, Reinsert<K> reinsert) {
+            while (currentTime + tickMillis <= time) {
+                currentTime += tickMillis;
+                if (overflow != null) {
+                    overflow.advanceTo(currentTime, reinsert);
+                }
+                buckets[(int) ((currentTime / tickMillis) % wheelSize)].drain(reinsert);
+            }
+        }
+    }
+
+    private static final class Bucket<K> {
+
+        private final Entry<K> head = new Entry<>(null, 0);
+
+        private Bucket() {
+            head.prev = head;
+            head.next = head;
+        }
+
+        private void add(Entry<K> entry) {
+            entry.bucket = this;
+            entry.prev = head.prev;
+            entry.next = head;
+            head.prev.next = entry;
+            head.prev = entry;
+        }
+
+        private void drain(Reinsert<K> reinsert) {
+            Entry<K> entry = head.next;
+            while (entry != head) {
+                Entry<K> next = entry.next;
+                entry.unlink();
+                reinsert.accept(entry);
+                entry = next;
+            }
+        }
+    }
+
+    private static final class Entry<K> {
+
+        private final K key;
+        private final long expiration;
+        private Bucket<K> bucket;
+        private Entry<K> prev;
+        private Entry<K> next;
+
+        private Entry(K key, long expiration) {
+            this.key = key;
+            this.expiration = expiration;
+        }
+
+        private void unlink() {
+            if (bucket != null) {
+                prev.next = next;
+                next.prev = prev;
+                prev = null;
+                next = null;
+                bucket = null;
+            }
+        }
+    }
+}
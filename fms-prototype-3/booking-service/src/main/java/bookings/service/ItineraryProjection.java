@@ -0,0 +1,177 @@
+package bookings.service;
+
+import bookings.config.ApplicationProperties;
+import fms.common.config.KafkaProperties;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.ConsumerRecords;
+import org.apache.kafka.clients.consumer.KafkaConsumer;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.errors.WakeupException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Consumes the events of the {@link ItineraryProjector#TOPICS} and hands each poll to the {@link ItineraryProjector}.
+ * <p>
+ * The projection has a consumer group of its own, the one of the service suffixed with {@code -itinerary}, so it
+ * reads every event whatever the other consumers of the service do with them. Offsets are committed once their poll
+ * is projected; a poll that fails is sought back to and projected again. {@link #rebuild()}, or
+ * {@code application.itinerary.rebuild-on-startup}, seeks the partitions this instance is assigned back to their first
+ * offset, which projection allows. {@code itinerary.projection.lag} reports the events left to project, per topic.
+ */
+@Service
+public class ItineraryProjection {
+
+    private final Logger log = LoggerFactory.getLogger(ItineraryProjection.class);
+
+    private final ApplicationProperties.Itinerary properties;
+    private final ItineraryProjector itineraryProjector;
+    private final Consumer<String, String> consumer;
+    private final AtomicBoolean closed = new AtomicBoolean(false);
+    private final AtomicBoolean rebuildRequested = new AtomicBoolean(false);
+    private final Map<String, Long> lag = new ConcurrentHashMap<>();
+    private long nextLagCheck;
+    private Thread poller;
+
+    @Autowired
+    public ItineraryProjection(ApplicationProperties applicationProperties, KafkaProperties kafkaProperties,
+                               ItineraryProjector itineraryProjector, MeterRegistry meterRegistry) {
+        this(applicationProperties.getItinerary(), itineraryProjector, new KafkaConsumer<>(consumerProps(kafkaProperties)),
+            meterRegistry);
+    }
+
+    ItineraryProjection(ApplicationProperties.Itinerary properties, ItineraryProjector itineraryProjector,
+                        Consumer<String, String> consumer, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.itineraryProjector = itineraryProjector;
+        this.consumer = consumer;
+        this.rebuildRequested.set(properties.isRebuildOnStartup());
+        for (String topic : ItineraryProjector.TOPICS) {
+            Gauge.builder("itinerary.projection.lag", this, projection -> projection.getLag(topic))
+                .tag("topic", topic).register(meterRegistry);
+        }
+    }
+
+    private static Map<String, Object> consumerProps(KafkaProperties kafkaProperties) {
+        Map<String, Object> consumerProps = kafkaProperties.getConsumerProps();
+        consumerProps.put("group.id", consumerProps.get("group.id") + "-itinerary");
+        // offsets are committed once their poll is projected
+        consumerProps.put("enable.auto.commit", "false");
+        return consumerProps;
+    }
+
+    @PostConstruct
+    public void start() {
+        consumer.subscribe(ItineraryProjector.TOPICS);
+        poller = new Thread(this::run, "itinerary-projection");
+        poller.setDaemon(true);
+        poller.start();
+        log.debug("Itinerary projection started.");
+    }
+
+    private void run() {
+        try {
+            while (!closed.get()) {
+                try {
+                    poll();
+                } catch (WakeupException e) {
+                    // shutting down
+                } catch (RuntimeException e) {
+                    log.error("Could not poll itinerary events: {}", e.getMessage(), e);
+                }
+            }
+        } finally {
+            consumer.close();
+        }
+    }
+
+    /**
+     * Projects the events of a poll and commits them, once any rebuild requested is started.
+     */
+    void poll() {
+        Set<TopicPartition> assignment = consumer.assignment();
+        if (!assignment.isEmpty() && rebuildRequested.compareAndSet(true, false)) {
+            consumer.seekToBeginning(assignment);
+            log.info("Rebuilding the itineraries of {}", assignment);
+        }
+        ConsumerRecords<String, String> records = consumer.poll(Duration.ofMillis(properties.getPollMillis()));
+        if (!records.isEmpty()) {
+            List<ConsumerRecord<String, String>> events = new ArrayList<>(records.count());
+            records.forEach(events::add);
+            try {
+                itineraryProjector.project(events);
+                consumer.commitSync();
+            } catch (WakeupException e) {
+                throw e;
+            } catch (RuntimeException e) {
+                log.error("Could not project itinerary events, retrying: {}", e.getMessage(), e);
+                for (TopicPartition partition : records.partitions()) {
+                    consumer.seek(partition, records.records(partition).get(0).offset());
+                }
+            }
+        }
+        long now = System.currentTimeMillis();
+        if (now >= nextLagCheck) {
+            nextLagCheck = now + properties.getLagIntervalMillis();
+            measureLag();
+        }
+    }
+
+    private void measureLag() {
+        Set<TopicPartition> assignment = consumer.assignment();
+        Map<String, Long> measured = new HashMap<>();
+        for (Map.Entry<TopicPartition, Long> end : consumer.endOffsets(assignment).entrySet()) {
+            long behind = Math.max(0, end.getValue() - consumer.position(end.getKey()));
+            measured.merge(end.getKey().topic(), behind, Long::sum);
+        }
+        for (String topic : ItineraryProjector.TOPICS) {
+            lag.put(topic, measured.getOrDefault(topic, 0L));
+        }
+    }
+
+    /**
+     * @param topic the topic.
+     * @return the number of events of the topic this instance has yet to project, as of its last check.
+     */
+    public long getLag(String topic) {
+        return lag.getOrDefault(topic, 0L);
+    }
+
+    /**
+     * Projects again all the events of the partitions this instance is assigned, from their first offset.
+     * The itineraries stay readable meanwhile, and are rewritten as their events are replayed.
+     */
+    public void rebuild() {
+        rebuildRequested.set(true);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        log.debug("Shutdown itinerary projection");
+        closed.set(true);
+        consumer.wakeup();
+        if (poller != null) {
+            try {
+                poller.join(10000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+}
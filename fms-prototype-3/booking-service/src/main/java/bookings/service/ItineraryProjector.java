@@ -0,0 +1,298 @@
+package bookings.service;
+
+import bookings.domain.Itinerary;
+import bookings.domain.ItineraryFlight;
+import bookings.repository.ItineraryFlightRepository;
+import bookings.repository.ItineraryRepository;
+import bookings.service.dto.BookingDTO;
+import bookings.service.dto.FlightDTO;
+import bookings.service.dto.LuggageDTO;
+import bookings.service.dto.PaymentDTO;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Projects the events of the booking, payment, luggage and flight services into the {@link Itinerary itineraries}
+ * of the passengers, one row per booking, a batch of events at a time.
+ * <p>
+ * The itineraries and flights a batch touches are loaded with one {@code IN} query each, changed in memory in offset
+ * order, and saved in one transaction; the itineraries of the flights the batch changed are then updated in one
+ * statement per flight. Flights are matched by their id in the flight service, the dated flights of a schedule
+ * sharing their flight number: the trips of bookings that carry no flight id keep the flight state they have. Every event sets the part of the itinerary it owns, and cancellations, payments and
+ * luggage are never undone, so projecting an event again, or the events of different topics in another order,
+ * ends in the same itinerary: the projection can be rebuilt by replaying the topics from their first offset.
+ * An unreadable event is logged and skipped, rather than failing its batch.
+ */
+@Service
+public class ItineraryProjector {
+
+    private final Logger log = LoggerFactory.getLogger(ItineraryProjector.class);
+
+    public static final String TOPIC_BOOKING_UPDATED = "booking_updated";
+    public static final String TOPIC_BOOKING_CANCELLED = "booking_cancelled";
+    public static final String TOPIC_FLIGHT_SET = "flight_set";
+    public static final String TOPIC_FLIGHT_UPDATED = "flight_updated";
+    public static final String TOPIC_FLIGHT_CANCELLED = "flight_cancelled";
+    public static final List<String> TOPICS = Collections.unmodifiableList(Arrays.asList(
+        TOPIC_BOOKING_UPDATED, TOPIC_BOOKING_CANCELLED, BookingReconciler.TOPIC_PAYMENT_SET, BookingReconciler.TOPIC_LUGGAGE_SET,
+        TOPIC_FLIGHT_SET, TOPIC_FLIGHT_UPDATED, TOPIC_FLIGHT_CANCELLED));
+
+    private final ObjectMapper objectMapper = new ObjectMapper().disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+    private final ItineraryRepository itineraryRepository;
+    private final ItineraryFlightRepository itineraryFlightRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    @Autowired
+    public ItineraryProjector(ItineraryRepository itineraryRepository, ItineraryFlightRepository itineraryFlightRepository,
+                              PlatformTransactionManager transactionManager) {
+        this(itineraryRepository, itineraryFlightRepository, new TransactionTemplate(transactionManager));
+    }
+
+    ItineraryProjector(ItineraryRepository itineraryRepository, ItineraryFlightRepository itineraryFlightRepository,
+                       TransactionTemplate transactionTemplate) {
+        this.itineraryRepository = itineraryRepository;
+        this.itineraryFlightRepository = itineraryFlightRepository;
+        this.transactionTemplate = transactionTemplate;
+    }
+
+    /**
+     * Projects a batch of events, in one transaction.
+     *
+     * @param records the events, of any of the {@link #TOPICS}, in offset order for each partition.
+     * @return the number of itineraries changed by the events of bookings, payments and luggage.
+     */
+    public int project(List<ConsumerRecord<String, String>> records) {
+        Events events = read(records);
+        if (events.isEmpty()) {
+            return 0;
+        }
+        Integer projected = transactionTemplate.execute(status -> {
+            Map<Long, Itinerary> itineraries = events.bookingNumbers.isEmpty() ? new HashMap<>()
+                : itineraryRepository.findAllByBookingNumberIn(events.bookingNumbers).stream()
+                .collect(Collectors.toMap(Itinerary::getBookingNumber, Function.identity()));
+            Map<Long, ItineraryFlight> flights = events.flightIds.isEmpty() ? new HashMap<>()
+                : itineraryFlightRepository.findAllByFlightIdIn(events.flightIds).stream()
+                .collect(Collectors.toMap(ItineraryFlight::getFlightId, Function.identity()));
+
+            Map<Long, Itinerary> changed = new LinkedHashMap<>();
+            Map<Long, ItineraryFlight> changedFlights = new LinkedHashMap<>();
+            for (Object event : events.events) {
+                if (event instanceof FlightEvent) {
+                    ItineraryFlight flight = project((FlightEvent) event, flights);
+                    changedFlights.put(flight.getFlightId(), flight);
+                } else {
+                    Itinerary itinerary = project(event, itineraries);
+                    changed.put(itinerary.getBookingNumber(), itinerary);
+                }
+            }
+
+            Instant now = Instant.now();
+            for (Itinerary itinerary : changed.values()) {
+                ItineraryFlight flight = itinerary.getFlightId() == null ? null : flights.get(itinerary.getFlightId());
+                if (flight != null) {
+                    copy(flight, itinerary);
+                }
+                itinerary.setUpdatedAt(now);
+            }
+            itineraryFlightRepository.saveAll(changedFlights.values());
+            itineraryRepository.saveAll(changed.values());
+            itineraryRepository.flush();
+            for (ItineraryFlight flight : changedFlights.values()) {
+                itineraryRepository.updateFlight(flight.getFlightId(), flight.getDepartureDate(), flight.getOrigin(),
+                    flight.getDestination(), flight.isCancelled());
+            }
+            return changed.size();
+        });
+        log.debug("Projected {} itineraries from {} events", projected, records.size());
+        return projected == null ? 0 : projected;
+    }
+
+    private Events read(List<ConsumerRecord<String, String>> records) {
+        Events events = new Events();
+        for (ConsumerRecord<String, String> record : records) {
+            try {
+                switch (record.topic()) {
+                    case TOPIC_BOOKING_UPDATED:
+                    case TOPIC_BOOKING_CANCELLED:
+                        BookingDTO booking = objectMapper.readValue(record.value(), BookingDTO.class);
+                        events.add(new BookingEvent(Long.valueOf(booking.getBookingNumber()), booking,
+                            TOPIC_BOOKING_CANCELLED.equals(record.topic())));
+                        if (booking.getFlightId() != null) {
+                            events.flightIds.add(booking.getFlightId());
+                        }
+                        break;
+                    case BookingReconciler.TOPIC_PAYMENT_SET:
+                        PaymentDTO payment = objectMapper.readValue(record.value(), PaymentDTO.class);
+                        events.add(new PaymentEvent(Long.valueOf(payment.getBookingNumber()), payment));
+                        break;
+                    case BookingReconciler.TOPIC_LUGGAGE_SET:
+                        LuggageDTO luggage = objectMapper.readValue(record.value(), LuggageDTO.class);
+                        events.add(new LuggageEvent(Long.valueOf(luggage.getBookingNumber()), luggage));
+                        break;
+                    case TOPIC_FLIGHT_SET:
+                    case TOPIC_FLIGHT_UPDATED:
+                    case TOPIC_FLIGHT_CANCELLED:
+                        FlightDTO flight = objectMapper.readValue(record.value(), FlightDTO.class);
+                        if (flight.getId() == null) {
+                            throw new IOException("No flight id");
+                        }
+                        events.events.add(new FlightEvent(flight, TOPIC_FLIGHT_CANCELLED.equals(record.topic())));
+                        events.flightIds.add(flight.getId());
+                        break;
+                    default:
+                        log.warn("Skipped an event of unknown topic {}", record.topic());
+                }
+            } catch (IOException | NumberFormatException e) {
+                log.warn("Skipped an unreadable event of {}: {}", record.topic(), e.getMessage());
+            }
+        }
+        return events;
+    }
+
+    private Itinerary project(Object event, Map<Long, Itinerary> itineraries) {
+        Long bookingNumber = ((TripEvent) event).bookingNumber;
+        Itinerary itinerary = itineraries.computeIfAbsent(bookingNumber, number -> new Itinerary().bookingNumber(number));
+        if (event instanceof BookingEvent) {
+            BookingEvent booking = (BookingEvent) event;
+            itinerary.passengerId(booking.booking.getPassengerId()).flightNumber(booking.booking.getFlightNumber())
+                .flightId(booking.booking.getFlightId());
+            if (booking.cancelled) {
+                itinerary.setBookingCancelled(true);
+            }
+        } else if (event instanceof PaymentEvent) {
+            itinerary.paid(true).amountPaid(parseAmount(((PaymentEvent) event).payment.getToPay()));
+        } else {
+            LuggageDTO luggage = ((LuggageEvent) event).luggage;
+            itinerary.luggageType(luggage.getLuggageType()).rfidTag(luggage.getRfidTag());
+            if (itinerary.getPassengerId() == null) {
+                itinerary.setPassengerId(luggage.getPassengerId());
+            }
+        }
+        return itinerary;
+    }
+
+    private ItineraryFlight project(FlightEvent event, Map<Long, ItineraryFlight> flights) {
+        ItineraryFlight flight = flights.computeIfAbsent(event.flight.getId(), flightId -> new ItineraryFlight().flightId(flightId));
+        flight.flightNumber(event.flight.getFlightNumber()).departureDate(parseDate(event.flight.getDepartureDate()))
+            .origin(event.flight.getOrigin()).destination(event.flight.getDestination());
+        if (event.cancelled) {
+            flight.setCancelled(true);
+        }
+        return flight;
+    }
+
+    private static void copy(ItineraryFlight flight, Itinerary itinerary) {
+        itinerary.departureDate(flight.getDepartureDate()).origin(flight.getOrigin()).destination(flight.getDestination())
+            .flightCancelled(flight.isCancelled());
+    }
+
+    private static LocalDate parseDate(String value) {
+        try {
+            return value == null ? null : LocalDate.parse(value);
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
+
+    private static Double parseAmount(String value) {
+        try {
+            return value == null ? null : Double.valueOf(value);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    /**
+     * The readable events of a batch, in order, and the keys to load for them.
+     */
+    private static final class Events {
+
+        private final List<Object> events = new ArrayList<>();
+        private final Set<Long> bookingNumbers = new LinkedHashSet<>();
+        private final Set<Long> flightIds = new LinkedHashSet<>();
+
+        private void add(TripEvent event) {
+            events.add(event);
+            bookingNumbers.add(event.bookingNumber);
+        }
+
+        private boolean isEmpty() {
+            return events.isEmpty();
+        }
+    }
+
+    private abstract static class TripEvent {
+
+        private final Long bookingNumber;
+
+        private TripEvent(Long bookingNumber) {
+            this.bookingNumber = bookingNumber;
+        }
+    }
+
+    private static final class BookingEvent extends TripEvent {
+
+        private final BookingDTO booking;
+        private final boolean cancelled;
+
+        private BookingEvent(Long bookingNumber, BookingDTO booking, boolean cancelled) {
+            super(bookingNumber);
+            this.booking = booking;
+            this.cancelled = cancelled;
+        }
+    }
+
+    private static final class PaymentEvent extends TripEvent {
+
+        private final PaymentDTO payment;
+
+        private PaymentEvent(Long bookingNumber, PaymentDTO payment) {
+            super(bookingNumber);
+            this.payment = payment;
+        }
+    }
+
+    private static final class LuggageEvent extends TripEvent {
+
+        private final LuggageDTO luggage;
+
+        private LuggageEvent(Long bookingNumber, LuggageDTO luggage) {
+            super(bookingNumber);
+            this.luggage = luggage;
+        }
+    }
+
+    private static final class FlightEvent {
+
+        private final FlightDTO flight;
+        private final boolean cancelled;
+
+        private FlightEvent(FlightDTO flight, boolean cancelled) {
+            this.flight = flight;
+            this.cancelled = cancelled;
+        }
+    }
+}
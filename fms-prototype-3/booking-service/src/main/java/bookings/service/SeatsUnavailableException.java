@@ -0,0 +1,13 @@
+package bookings.service;
+
+/**
+ * Thrown when the cabin of a flight has no seat left to book.
+ */
+public class SeatsUnavailableException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    public SeatsUnavailableException(Long flightId, String cabin) {
+        super("No " + cabin + " seat is available on flight " + flightId);
+    }
+}
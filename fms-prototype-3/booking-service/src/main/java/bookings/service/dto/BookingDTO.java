@@ -6,12 +6,19 @@ public class BookingDTO {
 
     private String bookingNumber;
     private String flightNumber;
+    private Long flightId;
     private String passengerId;
+    private String seatHoldId;
+
+    public BookingDTO() {
+    }
 
     public BookingDTO(Booking booking) {
         this.bookingNumber = booking.getBookingNumber().toString();
         this.flightNumber = booking.getFlightNumber();
+        this.flightId = booking.getFlightId();
         this.passengerId = booking.getPassengerId();
+        this.seatHoldId = booking.getSeatHoldId();
     }
 
     public String getBookingNumber() {
@@ -30,6 +37,14 @@ public class BookingDTO {
         this.flightNumber = flightNumber;
     }
 
+    public Long getFlightId() {
+        return flightId;
+    }
+
+    public void setFlightId(Long flightId) {
+        this.flightId = flightId;
+    }
+
     public String getPassengerId() {
         return passengerId;
     }
@@ -37,4 +52,12 @@ public class BookingDTO {
     public void setPassengerId(String passengerId) {
         this.passengerId = passengerId;
     }
+
+    public String getSeatHoldId() {
+        return seatHoldId;
+    }
+
+    public void setSeatHoldId(String seatHoldId) {
+        this.seatHoldId = seatHoldId;
+    }
 }
@@ -0,0 +1,85 @@
+package bookings.service.dto;
+
+import javax.validation.constraints.NotNull;
+import java.time.LocalDate;
+
+/**
+ * A checkout request: the flight to book, how to pay for it and the luggage to add, if any. What to pay is
+ * quoted by the flight service.
+ */
+public class CheckoutDTO {
+
+    /**
+     * The id of the dated flight, in the flight service, or {@code null} for a flight of a schedule that is not
+     * stored yet, see {@link #scheduleId}.
+     */
+    private Long flightId;
+
+    /**
+     * The id of the schedule of the flight, in the flight service, if the flight has no id yet.
+     */
+    private Long scheduleId;
+
+    /**
+     * The departure date of the flight, if the flight has no id yet.
+     */
+    private LocalDate departureDate;
+
+    @NotNull
+    private Long creditCardId;
+
+    /**
+     * The type of luggage to add, none if {@code null}.
+     */
+    private String luggageType;
+
+    private Integer weightCategory;
+
+    public Long getFlightId() {
+        return flightId;
+    }
+
+    public void setFlightId(Long flightId) {
+        this.flightId = flightId;
+    }
+
+    public Long getScheduleId() {
+        return scheduleId;
+    }
+
+    public void setScheduleId(Long scheduleId) {
+        this.scheduleId = scheduleId;
+    }
+
+    public LocalDate getDepartureDate() {
+        return departureDate;
+    }
+
+    public void setDepartureDate(LocalDate departureDate) {
+        this.departureDate = departureDate;
+    }
+
+    public Long getCreditCardId() {
+        return creditCardId;
+    }
+
+    public void setCreditCardId(Long creditCardId) {
+        this.creditCardId = creditCardId;
+    }
+
+    public String getLuggageType() {
+        return luggageType;
+    }
+
+    public void setLuggageType(String luggageType) {
+        this.luggageType = luggageType;
+    }
+
+    public Integer getWeightCategory() {
+        return weightCategory;
+    }
+
+    public void setWeightCategory(Integer weightCategory) {
+        this.weightCategory = weightCategory;
+    }
+}
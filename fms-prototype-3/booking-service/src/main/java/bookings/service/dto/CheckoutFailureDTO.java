@@ -0,0 +1,27 @@
+package bookings.service.dto;
+
+/**
+ * A checkout step that failed, on {@code payment_failed} or {@code luggage_failed}, or a failed checkout
+ * whose payment is to be refunded, on {@code payment_refund_requested}.
+ */
+public class CheckoutFailureDTO {
+
+    private String bookingNumber;
+    private String reason;
+
+    public String getBookingNumber() {
+        return bookingNumber;
+    }
+
+    public void setBookingNumber(String bookingNumber) {
+        this.bookingNumber = bookingNumber;
+    }
+
+    public String getReason() {
+        return reason;
+    }
+
+    public void setReason(String reason) {
+        this.reason = reason;
+    }
+}
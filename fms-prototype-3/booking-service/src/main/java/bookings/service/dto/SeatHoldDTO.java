@@ -0,0 +1,44 @@
+package bookings.service.dto;
+
+/**
+ * Seats held on a flight by the flight service, until released.
+ */
+public class SeatHoldDTO {
+
+    private String holdId;
+    private Long flightId;
+    private String cabin;
+    private Integer seats;
+
+    public String getHoldId() {
+        return holdId;
+    }
+
+    public void setHoldId(String holdId) {
+        this.holdId = holdId;
+    }
+
+    public Long getFlightId() {
+        return flightId;
+    }
+
+    public void setFlightId(Long flightId) {
+        this.flightId = flightId;
+    }
+
+    public String getCabin() {
+        return cabin;
+    }
+
+    public void setCabin(String cabin) {
+        this.cabin = cabin;
+    }
+
+    public Integer getSeats() {
+        return seats;
+    }
+
+    public void setSeats(Integer seats) {
+        this.seats = seats;
+    }
+}
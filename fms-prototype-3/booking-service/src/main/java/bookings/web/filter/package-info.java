@@ -0,0 +1,4 @@
+/**
+ * Servlet filters.
+ */
+package bookings.web.filter;
@@ -4,22 +4,30 @@ import bookings.domain.Booking;
 import bookings.domain.enumeration.ETopicType;
 import bookings.repository.BookingRepository;
 import bookings.security.SecurityUtils;
+import bookings.service.BookingHoldService;
 import bookings.service.BookingKafkaProducer;
+import bookings.service.BookingNumberGenerator;
+import bookings.service.FlightService;
+import bookings.service.dto.FlightFareDTO;
 import bookings.web.rest.errors.BadRequestAlertException;
 
 import io.github.jhipster.web.util.HeaderUtil;
+import io.github.jhipster.web.util.PaginationUtil;
 import io.github.jhipster.web.util.ResponseUtil;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
 import javax.validation.Valid;
 import java.net.URI;
 import java.net.URISyntaxException;
-import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
 
@@ -40,17 +48,32 @@ public class BookingResource {
 
     private final BookingRepository bookingRepository;
     private final BookingKafkaProducer bookingKafkaProducer;
+    private final BookingHoldService bookingHoldService;
+    private final BookingNumberGenerator bookingNumberGenerator;
+    private final FlightService flightService;
 
-    public BookingResource(BookingRepository bookingRepository, BookingKafkaProducer bookingKafkaProducer) {
+    public BookingResource(BookingRepository bookingRepository, BookingKafkaProducer bookingKafkaProducer,
+                           BookingHoldService bookingHoldService, BookingNumberGenerator bookingNumberGenerator,
+                           FlightService flightService) {
         this.bookingRepository = bookingRepository;
         this.bookingKafkaProducer = bookingKafkaProducer;
+        this.bookingHoldService = bookingHoldService;
+        this.bookingNumberGenerator = bookingNumberGenerator;
+        this.flightService = flightService;
     }
 
     /**
      * {@code POST  /bookings} : Create a new booking.
+     * <p>
+     * The booking number is generated, whatever the request holds. Bookings are always created held until
+     * paid, without luggage, and expire after the configured hold timeout: the status the request holds is
+     * ignored. A seat of the cabin of the dated flight is held in the flight service, which also tells its
+     * flight number.
      *
      * @param booking the booking to create.
-     * @return the {@link ResponseEntity} with status {@code 201 (Created)} and with body the new booking, or with status {@code 400 (Bad Request)} if the booking has already an ID.
+     * @return the {@link ResponseEntity} with status {@code 201 (Created)} and with body the new booking,
+     * or with status {@code 400 (Bad Request)} if the booking has already an ID or its flight cannot be booked,
+     * or with status {@code 409 (Conflict)} if the cabin of its flight is full.
      * @throws URISyntaxException if the Location URI syntax is incorrect.
      */
     @PostMapping("/bookings")
@@ -59,8 +82,19 @@ public class BookingResource {
         if (booking.getId() != null) {
             throw new BadRequestAlertException("A new booking cannot already have an ID", ENTITY_NAME, "idexists");
         }
+        if (booking.getFlightId() == null) {
+            throw new BadRequestAlertException("A new booking needs a dated flight", ENTITY_NAME, "flightidnull");
+        }
+        FlightFareDTO flight = flightService.quote(booking.getFlightId())
+            .orElseThrow(() -> new BadRequestAlertException("The flight does not exist or is cancelled", ENTITY_NAME, "flightunavailable"));
+        booking.setBookingNumber(bookingNumberGenerator.next());
+        booking.setFlightNumber(flight.getFlightNumber());
+        booking.setLuggageAdded(false);
+        booking.setSeatHoldId(flightService.holdSeat(flight).orElse(null));
+        bookingHoldService.hold(booking);
 
         Booking result = bookingRepository.save(booking);
+        bookingHoldService.schedule(result);
         bookingKafkaProducer.sendBookingEvent(result, ETopicType.SET);
 
         return ResponseEntity.created(new URI("/api/bookings/" + result.getId()))
@@ -69,11 +103,14 @@ public class BookingResource {
     }
 
     /**
-     * {@code PUT  /bookings} : Updates an existing booking.
+     * {@code PUT  /bookings} : Updates an existing booking of the connected user. Its booking number and passenger
+     * never change, and its status, holds and luggage are kept as stored: only the payments, the holds and the luggage
+     * move them.
      *
      * @param booking the booking to update.
      * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the updated booking,
      * or with status {@code 400 (Bad Request)} if the booking is not valid,
+     * or with status {@code 404 (Not Found)} if the booking is not a booking of the connected user,
      * or with status {@code 500 (Internal Server Error)} if the booking couldn't be updated.
      * @throws URISyntaxException if the Location URI syntax is incorrect.
      */
@@ -83,6 +120,19 @@ public class BookingResource {
         if (booking.getId() == null) {
             throw new BadRequestAlertException("Invalid id", ENTITY_NAME, "idnull");
         }
+        Optional<Booking> owned = SecurityUtils.getCurrentUserLogin()
+            .flatMap(login -> bookingRepository.findOneByIdAndPassengerId(booking.getId(), login));
+        // Return 404 if the entity is not owned by the connected user
+        if (!owned.isPresent()) {
+            return ResponseEntity.notFound().build();
+        }
+        Booking stored = owned.get();
+        booking.bookingNumber(stored.getBookingNumber())
+            .passengerId(stored.getPassengerId())
+            .status(stored.getStatus())
+            .holdExpiresAt(stored.getHoldExpiresAt())
+            .seatHoldId(stored.getSeatHoldId())
+            .luggageAdded(stored.isLuggageAdded());
 
         Booking result = bookingRepository.save(booking);
         bookingKafkaProducer.sendBookingEvent(result, ETopicType.UPDATED);
@@ -93,24 +143,19 @@ public class BookingResource {
     }
 
     /**
-     * {@code GET  /bookings} : get all the bookings.
+     * {@code GET  /bookings} : get the bookings of the connected user.
      *
+     * @param pageable the pagination information.
      * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the list of bookings in body.
      */
     @GetMapping("/bookings")
-    public List<Booking> getAllBookings() {
-        log.debug("REST request to get all Bookings");
-        List<Booking> resultingBookings = new ArrayList<>();
-        // Return 404 if the entity is not owned by the connected user
-        Optional<String> userLogin = SecurityUtils.getCurrentUserLogin();
-
-        for(Booking b: bookingRepository.findAll()) {
-            if(userLogin.isPresent() && userLogin.get().equals(b.getPassengerId())) {
-                resultingBookings.add(b);
-            }
-        }
-
-        return resultingBookings;
+    public ResponseEntity<List<Booking>> getAllBookings(Pageable pageable) {
+        log.debug("REST request to get a page of Bookings");
+        Page<Booking> page = SecurityUtils.getCurrentUserLogin()
+            .map(login -> bookingRepository.findAllByPassengerId(login, pageable))
+            .orElseGet(() -> Page.empty(pageable));
+        HttpHeaders headers = PaginationUtil.generatePaginationHttpHeaders(ServletUriComponentsBuilder.fromCurrentRequest(), page);
+        return ResponseEntity.ok().headers(headers).body(page.getContent());
     }
 
     /**
@@ -122,17 +167,10 @@ public class BookingResource {
     @GetMapping("/bookings/{id}")
     public ResponseEntity<Booking> getBooking(@PathVariable Long id) {
         log.debug("REST request to get Booking : {}", id);
-        Optional<Booking> booking = bookingRepository.findById(id);
-
         // Return 404 if the entity is not owned by the connected user
-        Optional<String> userLogin = SecurityUtils.getCurrentUserLogin();
-        if(booking.isPresent() &&
-            userLogin.isPresent() &&
-            userLogin.get().equals(booking.get().getPassengerId())) {
-            return ResponseUtil.wrapOrNotFound(booking);
-        } else {
-            return ResponseEntity.notFound().build();
-        }
+        Optional<Booking> booking = SecurityUtils.getCurrentUserLogin()
+            .flatMap(login -> bookingRepository.findOneByIdAndPassengerId(id, login));
+        return ResponseUtil.wrapOrNotFound(booking);
     }
 
     /**
@@ -144,21 +182,15 @@ public class BookingResource {
     @DeleteMapping("/bookings/{id}")
     public ResponseEntity<Void> deleteBooking(@PathVariable Long id) {
         log.debug("REST request to delete Booking : {}", id);
-
-        Optional<Booking> booking = bookingRepository.findById(id);
-
+        Optional<Booking> booking = SecurityUtils.getCurrentUserLogin()
+            .flatMap(login -> bookingRepository.findOneByIdAndPassengerId(id, login));
         // Return 404 if the entity is not owned by the connected user
-        Optional<String> userLogin = SecurityUtils.getCurrentUserLogin();
-        if(booking.isPresent() &&
-            userLogin.isPresent() &&
-            userLogin.get().equals(booking.get().getPassengerId())) {
-            bookingRepository.deleteById(id);
-            if(bookingRepository.findById(id).isPresent()) {
-                bookingKafkaProducer.sendBookingEvent(bookingRepository.findById(id).get(), ETopicType.CANCELLED);
-            }
-        } else {
+        if (!booking.isPresent()) {
             return ResponseEntity.notFound().build();
         }
+        bookingRepository.delete(booking.get());
+        bookingHoldService.cancel(id);
+        bookingKafkaProducer.sendBookingEvent(booking.get(), ETopicType.CANCELLED);
         return ResponseEntity.noContent().headers(HeaderUtil.createEntityDeletionAlert(applicationName, false, ENTITY_NAME, id.toString())).build();
     }
 }
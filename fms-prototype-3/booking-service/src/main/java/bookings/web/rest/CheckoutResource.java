@@ -0,0 +1,131 @@
+package bookings.web.rest;
+
+import bookings.domain.Checkout;
+import bookings.repository.CheckoutRepository;
+import bookings.security.SecurityUtils;
+import bookings.service.CheckoutSaga;
+import bookings.service.CheckoutStatusBroadcaster;
+import bookings.service.FlightService;
+import bookings.service.dto.CheckoutDTO;
+import bookings.service.dto.FlightFareDTO;
+import bookings.web.rest.errors.BadRequestAlertException;
+
+import io.github.jhipster.web.util.HeaderUtil;
+import io.github.jhipster.web.util.ResponseUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import javax.validation.Valid;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.util.Optional;
+
+/**
+ * REST controller for checking out bookings, see {@link bookings.service.CheckoutSaga}.
+ */
+@RestController
+@RequestMapping("/api")
+@Transactional
+public class CheckoutResource {
+
+    private final Logger log = LoggerFactory.getLogger(CheckoutResource.class);
+
+    private static final String ENTITY_NAME = "bookingsCheckout";
+
+    @Value("${jhipster.clientApp.name}")
+    private String applicationName;
+
+    private final CheckoutRepository checkoutRepository;
+    private final CheckoutSaga checkoutSaga;
+    private final CheckoutStatusBroadcaster checkoutStatusBroadcaster;
+    private final FlightService flightService;
+
+    public CheckoutResource(CheckoutRepository checkoutRepository, CheckoutSaga checkoutSaga,
+                            CheckoutStatusBroadcaster checkoutStatusBroadcaster, FlightService flightService) {
+        this.checkoutRepository = checkoutRepository;
+        this.checkoutSaga = checkoutSaga;
+        this.checkoutStatusBroadcaster = checkoutStatusBroadcaster;
+        this.flightService = flightService;
+    }
+
+    /**
+     * {@code POST  /checkouts} : Check out a new booking for the connected user: book it, pay it, then add its luggage, if any.
+     * <p>
+     * The flight is charged at the fare the flight service quotes for it. A flight of a schedule, as found by the flight
+     * search, is stored by the flight service first. Only the booking is made before answering; payment and luggage
+     * follow, and are reported by {@code GET /checkouts/:id} and {@code GET /checkouts/:id/events}.
+     *
+     * @param checkoutDTO the flight to book, how to pay and the luggage to add.
+     * @return the {@link ResponseEntity} with status {@code 202 (Accepted)} and with body the checkout, or with status
+     * {@code 400 (Bad Request)} if the luggage has no weight category or the flight cannot be booked, or with status
+     * {@code 409 (Conflict)} if its cabin is full.
+     * @throws URISyntaxException if the Location URI syntax is incorrect.
+     */
+    @PostMapping("/checkouts")
+    public ResponseEntity<Checkout> createCheckout(@Valid @RequestBody CheckoutDTO checkoutDTO) throws URISyntaxException {
+        log.debug("REST request to check out a booking on flight : {} ({} on {})", checkoutDTO.getFlightId(),
+            checkoutDTO.getScheduleId(), checkoutDTO.getDepartureDate());
+        if (checkoutDTO.getLuggageType() != null && checkoutDTO.getWeightCategory() == null) {
+            throw new BadRequestAlertException("Luggage needs a weight category", ENTITY_NAME, "weightcategorynull");
+        }
+        String login = SecurityUtils.getCurrentUserLogin()
+            .orElseThrow(() -> new BadRequestAlertException("Checking out needs a connected user", ENTITY_NAME, "nouser"));
+        if (checkoutDTO.getFlightId() == null) {
+            if (checkoutDTO.getScheduleId() == null || checkoutDTO.getDepartureDate() == null) {
+                throw new BadRequestAlertException("A checkout needs a flight, or a schedule and a departure date", ENTITY_NAME, "flightnull");
+            }
+            checkoutDTO.setFlightId(flightService.materialize(checkoutDTO.getScheduleId(), checkoutDTO.getDepartureDate())
+                .orElseThrow(() -> new BadRequestAlertException("The schedule does not operate on that date", ENTITY_NAME, "flightunavailable")));
+        }
+        FlightFareDTO flight = flightService.quote(checkoutDTO.getFlightId())
+            .orElseThrow(() -> new BadRequestAlertException("The flight does not exist or is cancelled", ENTITY_NAME, "flightunavailable"));
+
+        Checkout result = checkoutSaga.start(checkoutDTO, flight, login);
+
+        return ResponseEntity.accepted()
+            .location(new URI("/api/checkouts/" + result.getId()))
+            .headers(HeaderUtil.createEntityCreationAlert(applicationName, false, ENTITY_NAME, result.getId().toString()))
+            .body(result);
+    }
+
+    /**
+     * {@code GET  /checkouts/:id} : get the "id" checkout.
+     *
+     * @param id the id of the checkout to retrieve.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the checkout, or with status {@code 404 (Not Found)}.
+     */
+    @GetMapping("/checkouts/{id}")
+    public ResponseEntity<Checkout> getCheckout(@PathVariable Long id) {
+        log.debug("REST request to get Checkout : {}", id);
+        // Return 404 if the entity is not owned by the connected user
+        return ResponseUtil.wrapOrNotFound(findOwned(id));
+    }
+
+    /**
+     * {@code GET  /checkouts/:id/events} : follow the status of the "id" checkout, as server-sent events.
+     *
+     * @param id the id of the checkout to follow.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and a stream of the checkout, sent again each
+     * time its status changes and completed once it is finished, or with status {@code 404 (Not Found)}.
+     */
+    @GetMapping(value = "/checkouts/{id}/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> getCheckoutEvents(@PathVariable Long id) {
+        log.debug("REST request to follow Checkout : {}", id);
+        Optional<Checkout> checkout = findOwned(id);
+        // Return 404 if the entity is not owned by the connected user
+        if (!checkout.isPresent()) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok(checkoutStatusBroadcaster.subscribe(checkout.get()));
+    }
+
+    private Optional<Checkout> findOwned(Long id) {
+        return SecurityUtils.getCurrentUserLogin().flatMap(login -> checkoutRepository.findOneByIdAndPassengerId(id, login));
+    }
+}
@@ -0,0 +1,63 @@
+package bookings.web.rest;
+
+import bookings.domain.Itinerary;
+import bookings.repository.ItineraryRepository;
+import bookings.security.AuthoritiesConstants;
+import bookings.security.SecurityUtils;
+import bookings.service.ItineraryProjection;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * REST controller for reading the trips of the passengers, see {@link bookings.service.ItineraryProjector}.
+ */
+@RestController
+@RequestMapping("/api")
+@Transactional
+public class ItineraryResource {
+
+    private final Logger log = LoggerFactory.getLogger(ItineraryResource.class);
+
+    private final ItineraryRepository itineraryRepository;
+    private final ItineraryProjection itineraryProjection;
+
+    public ItineraryResource(ItineraryRepository itineraryRepository, ItineraryProjection itineraryProjection) {
+        this.itineraryRepository = itineraryRepository;
+        this.itineraryProjection = itineraryProjection;
+    }
+
+    /**
+     * {@code GET  /itineraries} : get the trips of the connected user, in order of departure, with their flight,
+     * payment and luggage, as last projected from the events of the services.
+     *
+     * @return the list of itineraries.
+     */
+    @GetMapping("/itineraries")
+    public List<Itinerary> getAllItineraries() {
+        log.debug("REST request to get the Itineraries of the connected user");
+        return SecurityUtils.getCurrentUserLogin()
+            .map(itineraryRepository::findAllByPassengerIdOrderByDepartureDateAscBookingNumberAsc)
+            .orElseGet(ArrayList::new);
+    }
+
+    /**
+     * {@code POST  /itineraries/rebuild} : project again all the events of the itineraries, from their first offset.
+     *
+     * @return the {@link ResponseEntity} with status {@code 202 (Accepted)}.
+     */
+    @PostMapping("/itineraries/rebuild")
+    @PreAuthorize("hasAuthority(\"" + AuthoritiesConstants.ADMIN + "\")")
+    public ResponseEntity<Void> rebuildItineraries() {
+        log.debug("REST request to rebuild the Itineraries");
+        itineraryProjection.rebuild();
+        return ResponseEntity.accepted().build();
+    }
+}
@@ -1,5 +1,6 @@
 package bookings.web.rest.errors;
 
+import bookings.service.SeatsUnavailableException;
 import io.github.jhipster.web.util.HeaderUtil;
 
 import org.springframework.beans.factory.annotation.Value;
@@ -104,4 +105,14 @@ public class ExceptionTranslator implements ProblemHandling, SecurityAdviceTrait
             .build();
         return create(ex, problem, request);
     }
+
+    @ExceptionHandler
+    public ResponseEntity<Problem> handleSeatsUnavailable(SeatsUnavailableException ex, NativeWebRequest request) {
+        Problem problem = Problem.builder()
+            .withStatus(Status.CONFLICT)
+            .withDetail(ex.getMessage())
+            .with(MESSAGE_KEY, ErrorConstants.ERR_SEATS_UNAVAILABLE)
+            .build();
+        return create(ex, problem, request);
+    }
 }
@@ -0,0 +1,124 @@
+package bookings.service;
+
+import bookings.config.ApplicationProperties;
+import com.hazelcast.config.Config;
+import com.hazelcast.core.Hazelcast;
+import com.hazelcast.core.HazelcastInstance;
+import com.hazelcast.core.IMap;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Test class for the {@link BookingNumberGenerator}.
+ */
+public class BookingNumberGeneratorTest {
+
+    private static HazelcastInstance hazelcastInstance;
+
+    private final ApplicationProperties.BookingNumber properties = new ApplicationProperties.BookingNumber();
+    private final AtomicLong clock = new AtomicLong(BookingNumberGenerator.EPOCH + 1000);
+    private IMap<Integer, String> leases;
+
+    @BeforeAll
+    public static void startHazelcast() {
+        Config config = new Config();
+        config.setInstanceName("booking-number-generator-test");
+        config.getNetworkConfig().getJoin().getMulticastConfig().setEnabled(false);
+        config.getNetworkConfig().getJoin().getTcpIpConfig().setEnabled(false);
+        hazelcastInstance = Hazelcast.newHazelcastInstance(config);
+    }
+
+    @AfterAll
+    public static void stopHazelcast() {
+        hazelcastInstance.shutdown();
+    }
+
+    @BeforeEach
+    public void setUp() {
+        leases = hazelcastInstance.getMap(BookingNumberGenerator.WORKER_LEASES_MAP);
+        leases.clear();
+    }
+
+    private BookingNumberGenerator generator() {
+        return new BookingNumberGenerator(properties, leases, clock::get);
+    }
+
+    @Test
+    public void bookingNumbersAreUniqueAndIncreasing() {
+        BookingNumberGenerator generator = generator();
+        Set<Long> bookingNumbers = new HashSet<>();
+        long previous = -1;
+        for (int i = 0; i < 1000; i++) {
+            if (i % 100 == 0) {
+                clock.incrementAndGet();
+            }
+            long bookingNumber = generator.next();
+            assertThat(bookingNumber).isGreaterThan(previous);
+            bookingNumbers.add(bookingNumber);
+            previous = bookingNumber;
+        }
+
+        assertThat(bookingNumbers).hasSize(1000);
+        assertThat(previous).as("exact as a JSON number").isLessThan(1L << 53);
+    }
+
+    @Test
+    public void aClockGoingBackwardsIsNotFollowed() {
+        BookingNumberGenerator generator = generator();
+        long first = generator.next();
+
+        clock.addAndGet(-5000);
+
+        assertThat(generator.next()).isGreaterThan(first);
+    }
+
+    @Test
+    public void instancesLeaseDifferentWorkerIds() {
+        BookingNumberGenerator first = generator();
+        BookingNumberGenerator second = generator();
+
+        assertThat(first.workerId()).isNotEqualTo(second.workerId());
+        assertThat(first.next()).isNotEqualTo(second.next());
+    }
+
+    @Test
+    public void aLostLeaseIsReplacedByAnother() {
+        BookingNumberGenerator generator = generator();
+        int workerId = generator.workerId();
+
+        leases.put(workerId, "another instance");
+        generator.renewLease();
+
+        assertThat(generator.workerId()).isNotEqualTo(workerId);
+        assertThat(leases.get(workerId)).isEqualTo("another instance");
+    }
+
+    @Test
+    public void aConfiguredWorkerIdIsNotLeased() {
+        properties.setWorkerId(42);
+
+        BookingNumberGenerator generator = generator();
+
+        assertThat(generator.workerId()).isEqualTo(42);
+        assertThat((generator.next() >> 6) & 63).isEqualTo(42);
+        assertThat(leases).isEmpty();
+    }
+
+    @Test
+    public void workerIdsRunOut() {
+        for (int workerId = 0; workerId < BookingNumberGenerator.MAX_WORKERS; workerId++) {
+            leases.put(workerId, "another instance");
+        }
+
+        assertThatThrownBy(generator()::next).isInstanceOf(IllegalStateException.class);
+    }
+}
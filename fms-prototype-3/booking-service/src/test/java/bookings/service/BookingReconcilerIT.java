@@ -0,0 +1,68 @@
+package bookings.service;
+
+import bookings.BookingsApp;
+import bookings.domain.Booking;
+import bookings.domain.enumeration.EBookingStatus;
+import bookings.repository.BookingRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Integration tests for the {@link BookingReconciler}.
+ */
+@SpringBootTest(classes = BookingsApp.class)
+@Transactional
+public class BookingReconcilerIT {
+
+    @Autowired
+    private BookingReconciler bookingReconciler;
+
+    @Autowired
+    private BookingRepository bookingRepository;
+
+    @Autowired
+    private EntityManager em;
+
+    private Booking booking(long bookingNumber, EBookingStatus status) {
+        return bookingRepository.saveAndFlush(new Booking().bookingNumber(bookingNumber).flightNumber("LH100").passengerId("user")
+            .status(status).holdExpiresAt(status == EBookingStatus.HELD ? Instant.now().plusSeconds(900) : null));
+    }
+
+    @Test
+    public void paymentsMarkHeldBookingsPaid() {
+        Booking held = booking(880001L, EBookingStatus.HELD);
+        Booking expired = booking(880002L, EBookingStatus.EXPIRED);
+
+        int reconciled = bookingReconciler.reconcile(BookingReconciler.TOPIC_PAYMENT_SET, Arrays.asList(
+            "{\"id\":\"1\",\"bookingNumber\":\"880001\",\"toPay\":\"100.0\"}",
+            "{\"id\":\"2\",\"bookingNumber\":\"880002\",\"toPay\":\"100.0\"}",
+            "{\"id\":\"3\",\"bookingNumber\":\"880003\",\"toPay\":\"100.0\"}"));
+
+        assertThat(reconciled).isEqualTo(1);
+        em.clear();
+        assertThat(bookingRepository.findById(held.getId()).get().getStatus()).isEqualTo(EBookingStatus.PAID);
+        assertThat(bookingRepository.findById(held.getId()).get().getHoldExpiresAt()).isNull();
+        assertThat(bookingRepository.findById(expired.getId()).get().getStatus()).isEqualTo(EBookingStatus.EXPIRED);
+    }
+
+    @Test
+    public void luggageMarksItsBookings() {
+        Booking booking = booking(880004L, EBookingStatus.PAID);
+
+        int reconciled = bookingReconciler.reconcile(BookingReconciler.TOPIC_LUGGAGE_SET, Collections.singletonList(
+            "{\"luggageType\":\"CHECKED\",\"bookingNumber\":\"880004\",\"passengerId\":\"user\",\"rfidTag\":\"R1\"}"));
+
+        assertThat(reconciled).isEqualTo(1);
+        em.clear();
+        assertThat(bookingRepository.findById(booking.getId()).get().isLuggageAdded()).isTrue();
+    }
+}
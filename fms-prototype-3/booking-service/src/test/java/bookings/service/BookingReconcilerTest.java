@@ -0,0 +1,107 @@
+package bookings.service;
+
+import bookings.config.ApplicationProperties;
+import bookings.repository.BookingRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+/**
+ * Test class for the {@link BookingReconciler}.
+ */
+public class BookingReconcilerTest {
+
+    private BookingRepository bookingRepository;
+    private BookingHoldService bookingHoldService;
+    private CheckoutSaga checkoutSaga;
+    private BookingReconciler reconciler;
+
+    @BeforeEach
+    public void setUp() {
+        bookingRepository = mock(BookingRepository.class);
+        bookingHoldService = mock(BookingHoldService.class);
+        checkoutSaga = mock(CheckoutSaga.class);
+        reconciler = new BookingReconciler(new ApplicationProperties.Reconciliation(), bookingRepository, bookingHoldService,
+            checkoutSaga, new TransactionTemplate(mock(PlatformTransactionManager.class)));
+    }
+
+    private static String payment(String bookingNumber) {
+        return "{\"id\":\"1\",\"bookingNumber\":\"" + bookingNumber + "\",\"toPay\":\"100.0\"}";
+    }
+
+    private static String luggage(String bookingNumber) {
+        return "{\"luggageType\":\"CHECKED\",\"bookingNumber\":\"" + bookingNumber + "\",\"passengerId\":\"user\",\"rfidTag\":\"R1\"}";
+    }
+
+    @Test
+    public void paymentsMarkTheirBookingsPaidInOneStatement() {
+        when(bookingRepository.findBookingNumbersIn(Arrays.asList(1L, 2L))).thenReturn(Arrays.asList(1L, 2L));
+        when(bookingHoldService.paid(any())).thenReturn(2);
+
+        int reconciled = reconciler.reconcile(BookingReconciler.TOPIC_PAYMENT_SET, Arrays.asList(payment("1"), payment("2"), payment("2")));
+
+        assertThat(reconciled).isEqualTo(2);
+        verify(bookingHoldService).paid(new LinkedHashSet<>(Arrays.asList(1L, 2L)));
+        verify(checkoutSaga).paid(new LinkedHashSet<>(Arrays.asList(1L, 2L)));
+    }
+
+    @Test
+    public void luggageMarksItsBookings() {
+        when(bookingRepository.findBookingNumbersIn(Collections.singletonList(3L))).thenReturn(Collections.singletonList(3L));
+        when(bookingRepository.markLuggageAddedByBookingNumberIn(any())).thenReturn(1);
+
+        int reconciled = reconciler.reconcile(BookingReconciler.TOPIC_LUGGAGE_SET, Collections.singletonList(luggage("3")));
+
+        assertThat(reconciled).isEqualTo(1);
+        verify(bookingRepository).markLuggageAddedByBookingNumberIn(Collections.singleton(3L));
+        verify(checkoutSaga).luggageAdded(Collections.singleton(3L));
+        verifyNoInteractions(bookingHoldService);
+    }
+
+    @Test
+    public void failuresFailTheirCheckouts() {
+        when(checkoutSaga.luggageFailed(any())).thenReturn(1);
+
+        int failed = reconciler.reconcile(BookingReconciler.TOPIC_LUGGAGE_FAILED,
+            Arrays.asList("not an event", "{\"bookingNumber\":\"4\",\"reason\":\"Unknown luggage type\"}"));
+
+        assertThat(failed).isEqualTo(1);
+        verify(checkoutSaga).luggageFailed(Collections.singletonMap(4L, "Unknown luggage type"));
+        verifyNoInteractions(bookingRepository, bookingHoldService);
+    }
+
+    @Test
+    public void knownBookingNumbersAreNotLookedUpAgain() {
+        when(bookingRepository.findBookingNumbersIn(Collections.singletonList(1L))).thenReturn(Collections.singletonList(1L));
+
+        reconciler.reconcile(BookingReconciler.TOPIC_PAYMENT_SET, Collections.singletonList(payment("1")));
+        reconciler.reconcile(BookingReconciler.TOPIC_LUGGAGE_SET, Collections.singletonList(luggage("1")));
+
+        verify(bookingRepository, times(1)).findBookingNumbersIn(any());
+        verify(bookingHoldService).paid(Collections.singleton(1L));
+        verify(bookingRepository).markLuggageAddedByBookingNumberIn(Collections.singleton(1L));
+    }
+
+    @Test
+    public void unreadableEventsAndUnknownBookingsAreSkipped() {
+        when(bookingRepository.findBookingNumbersIn(Collections.singletonList(7L))).thenReturn(Collections.emptyList());
+
+        int reconciled = reconciler.reconcile(BookingReconciler.TOPIC_PAYMENT_SET, Arrays.asList("not an event", payment("x"), payment("7")));
+
+        assertThat(reconciled).isZero();
+        verifyNoInteractions(bookingHoldService);
+    }
+}
@@ -0,0 +1,138 @@
+package bookings.service;
+
+import bookings.config.ApplicationProperties;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.MockConsumer;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.clients.consumer.OffsetResetStrategy;
+import org.apache.kafka.common.TopicPartition;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Test class for the {@link BookingReconciliationEngine}.
+ */
+public class BookingReconciliationEngineTest {
+
+    private static final TopicPartition PAYMENTS_0 = new TopicPartition(BookingReconciler.TOPIC_PAYMENT_SET, 0);
+    private static final TopicPartition PAYMENTS_1 = new TopicPartition(BookingReconciler.TOPIC_PAYMENT_SET, 1);
+    private static final TopicPartition LUGGAGE_0 = new TopicPartition(BookingReconciler.TOPIC_LUGGAGE_SET, 0);
+
+    private final ExecutorService workers = Executors.newFixedThreadPool(3);
+    private MockConsumer<String, String> consumer;
+    private BookingReconciler reconciler;
+    private BookingReconciliationEngine engine;
+
+    @BeforeEach
+    public void setUp() {
+        consumer = new MockConsumer<>(OffsetResetStrategy.EARLIEST);
+        reconciler = mock(BookingReconciler.class);
+        engine = new BookingReconciliationEngine(new ApplicationProperties.Reconciliation(), reconciler, consumer, workers);
+        engine.subscribe();
+        consumer.rebalance(Arrays.asList(PAYMENTS_0, PAYMENTS_1, LUGGAGE_0));
+        Map<TopicPartition, Long> beginningOffsets = new HashMap<>();
+        beginningOffsets.put(PAYMENTS_0, 0L);
+        beginningOffsets.put(PAYMENTS_1, 0L);
+        beginningOffsets.put(LUGGAGE_0, 0L);
+        consumer.updateBeginningOffsets(beginningOffsets);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        workers.shutdownNow();
+    }
+
+    private void add(TopicPartition partition, long offset, String event) {
+        consumer.addRecord(new ConsumerRecord<>(partition.topic(), partition.partition(), offset, null, event));
+    }
+
+    private Long committed(TopicPartition partition) {
+        OffsetAndMetadata offset = consumer.committed(Collections.singleton(partition)).get(partition);
+        return offset == null ? null : offset.offset();
+    }
+
+    private void pollUntil(BooleanSupplier condition) {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!condition.getAsBoolean()) {
+            assertThat(System.currentTimeMillis()).as("condition met in time").isLessThan(deadline);
+            engine.poll();
+        }
+    }
+
+    @Test
+    public void eachPartitionIsReconciledAsABatchAndCommitted() {
+        add(PAYMENTS_0, 0, "payment 1");
+        add(PAYMENTS_0, 1, "payment 2");
+        add(PAYMENTS_1, 0, "payment 3");
+        add(LUGGAGE_0, 0, "luggage 1");
+
+        pollUntil(() -> committed(PAYMENTS_0) != null && committed(PAYMENTS_1) != null && committed(LUGGAGE_0) != null);
+
+        assertThat(committed(PAYMENTS_0)).isEqualTo(2);
+        assertThat(committed(PAYMENTS_1)).isEqualTo(1);
+        assertThat(committed(LUGGAGE_0)).isEqualTo(1);
+        verify(reconciler).reconcile(BookingReconciler.TOPIC_PAYMENT_SET, Arrays.asList("payment 1", "payment 2"));
+        verify(reconciler).reconcile(BookingReconciler.TOPIC_PAYMENT_SET, Collections.singletonList("payment 3"));
+        verify(reconciler).reconcile(BookingReconciler.TOPIC_LUGGAGE_SET, Collections.singletonList("luggage 1"));
+        assertThat(consumer.paused()).isEmpty();
+    }
+
+    @Test
+    public void aFailedBatchIsRetriedFromItsFirstOffset() {
+        when(reconciler.reconcile(eq(BookingReconciler.TOPIC_PAYMENT_SET), anyList()))
+            .thenThrow(new IllegalStateException("database down"))
+            .thenReturn(2);
+        add(PAYMENTS_0, 0, "payment 1");
+        add(PAYMENTS_0, 1, "payment 2");
+
+        engine.poll();
+        pollUntil(() -> consumer.paused().isEmpty());
+        assertThat(consumer.position(PAYMENTS_0)).isZero();
+        assertThat(committed(PAYMENTS_0)).isNull();
+
+        // the consumer fetches the batch again from the offset it was sought back to
+        add(PAYMENTS_0, 0, "payment 1");
+        add(PAYMENTS_0, 1, "payment 2");
+        pollUntil(() -> committed(PAYMENTS_0) != null);
+
+        assertThat(committed(PAYMENTS_0)).isEqualTo(2);
+        verify(reconciler, times(2)).reconcile(BookingReconciler.TOPIC_PAYMENT_SET, Arrays.asList("payment 1", "payment 2"));
+    }
+
+    @Test
+    public void aPartitionIsPausedWhileItsBatchIsReconciled() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        when(reconciler.reconcile(any(), anyList())).thenAnswer(invocation -> {
+            release.await(5, TimeUnit.SECONDS);
+            return 1;
+        });
+        add(PAYMENTS_0, 0, "payment 1");
+
+        engine.poll();
+
+        assertThat(consumer.paused()).containsExactly(PAYMENTS_0);
+        release.countDown();
+        pollUntil(() -> committed(PAYMENTS_0) != null);
+        assertThat(consumer.paused()).isEmpty();
+    }
+}
@@ -0,0 +1,107 @@
+package bookings.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Test class for the {@link HierarchicalTimingWheel}.
+ */
+public class HierarchicalTimingWheelTest {
+
+    private static final long START = 1_000_000L;
+
+    private HierarchicalTimingWheel<Long> wheel;
+
+    @BeforeEach
+    public void setUp() {
+        wheel = new HierarchicalTimingWheel<>(10, 8, START);
+    }
+
+    @Test
+    public void keyExpiresAtItsTick() {
+        assertThat(wheel.schedule(1L, START + 35)).isTrue();
+
+        assertThat(wheel.advance(START + 34)).isEmpty();
+        assertThat(wheel.isScheduled(1L)).isTrue();
+        assertThat(wheel.advance(START + 39)).isEmpty();
+        assertThat(wheel.advance(START + 40)).containsExactly(1L);
+        assertThat(wheel.isScheduled(1L)).isFalse();
+        assertThat(wheel.size()).isZero();
+    }
+
+    @Test
+    public void cancelledKeyNeverExpires() {
+        wheel.schedule(1L, START + 50);
+        wheel.schedule(2L, START + 50);
+
+        assertThat(wheel.cancel(1L)).isTrue();
+        assertThat(wheel.cancel(1L)).isFalse();
+        assertThat(wheel.advance(START + 100)).containsExactly(2L);
+    }
+
+    @Test
+    public void keysBeyondTheFirstLevelCascadeDown() {
+        // the first level spans 80ms, the second 640ms, the third 5120ms
+        wheel.schedule(1L, START + 75);
+        wheel.schedule(2L, START + 500);
+        wheel.schedule(3L, START + 4_000);
+
+        assertThat(wheel.advance(START + 490)).containsExactly(1L);
+        assertThat(wheel.advance(START + 499)).isEmpty();
+        assertThat(wheel.advance(START + 500)).containsExactly(2L);
+        assertThat(wheel.advance(START + 3_990)).isEmpty();
+        assertThat(wheel.advance(START + 4_000)).containsExactly(3L);
+        assertThat(wheel.size()).isZero();
+    }
+
+    @Test
+    public void cancelAfterCascading() {
+        wheel.schedule(1L, START + 4_000);
+        wheel.advance(START + 3_000);
+
+        assertThat(wheel.cancel(1L)).isTrue();
+        assertThat(wheel.advance(START + 10_000)).isEmpty();
+    }
+
+    @Test
+    public void expiredKeyIsNotScheduled() {
+        assertThat(wheel.schedule(1L, START - 1)).isFalse();
+        assertThat(wheel.schedule(1L, START)).isFalse();
+        assertThat(wheel.isScheduled(1L)).isFalse();
+    }
+
+    @Test
+    public void reschedulingReplacesTheSchedule() {
+        wheel.schedule(1L, START + 20);
+        wheel.schedule(1L, START + 200);
+
+        assertThat(wheel.advance(START + 100)).isEmpty();
+        assertThat(wheel.size()).isEqualTo(1);
+        assertThat(wheel.advance(START + 200)).containsExactly(1L);
+    }
+
+    @Test
+    public void manyKeysExpireInOrderOfTicks() {
+        for (long key = 0; key < 10_000; key++) {
+            wheel.schedule(key, START + 10 + key);
+        }
+
+        long expired = 0;
+        for (long now = START; now <= START + 10_010; now += 10) {
+            for (Long key : wheel.advance(now)) {
+                assertThat(START + 10 + key).isLessThanOrEqualTo(now);
+                assertThat(START + 10 + key).isGreaterThan(now - 20);
+                expired++;
+            }
+        }
+        assertThat(expired).isEqualTo(10_000);
+    }
+
+    @Test
+    public void wheelNeedsTwoBuckets() {
+        assertThatThrownBy(() -> new HierarchicalTimingWheel<Long>(10, 1, START)).isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,92 @@
+package bookings.service;
+
+import bookings.config.ApplicationProperties;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.MockConsumer;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.clients.consumer.OffsetResetStrategy;
+import org.apache.kafka.common.TopicPartition;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Collections;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Test class for the {@link ItineraryProjection}.
+ */
+public class ItineraryProjectionTest {
+
+    private static final TopicPartition BOOKINGS_0 = new TopicPartition(ItineraryProjector.TOPIC_BOOKING_UPDATED, 0);
+
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private MockConsumer<String, String> consumer;
+    private ItineraryProjector projector;
+    private ItineraryProjection projection;
+
+    @BeforeEach
+    public void setUp() {
+        consumer = new MockConsumer<>(OffsetResetStrategy.EARLIEST);
+        projector = mock(ItineraryProjector.class);
+        ApplicationProperties.Itinerary properties = new ApplicationProperties.Itinerary();
+        properties.setLagIntervalMillis(0);
+        projection = new ItineraryProjection(properties, projector, consumer, meterRegistry);
+        consumer.subscribe(ItineraryProjector.TOPICS);
+        consumer.rebalance(Collections.singletonList(BOOKINGS_0));
+        consumer.updateBeginningOffsets(Collections.singletonMap(BOOKINGS_0, 0L));
+        consumer.updateEndOffsets(Collections.singletonMap(BOOKINGS_0, 0L));
+    }
+
+    private void add(long offset) {
+        consumer.addRecord(new ConsumerRecord<>(BOOKINGS_0.topic(), 0, offset, null, "booking " + offset));
+    }
+
+    private double lag() {
+        return meterRegistry.get("itinerary.projection.lag").tag("topic", BOOKINGS_0.topic()).gauge().value();
+    }
+
+    @Test
+    public void eachPollIsProjectedThenCommitted() {
+        add(0);
+        add(1);
+        consumer.updateEndOffsets(Collections.singletonMap(BOOKINGS_0, 5L));
+
+        projection.poll();
+
+        verify(projector).project(anyList());
+        OffsetAndMetadata committed = consumer.committed(Collections.singleton(BOOKINGS_0)).get(BOOKINGS_0);
+        assertThat(committed.offset()).isEqualTo(2);
+        assertThat(lag()).isEqualTo(3);
+    }
+
+    @Test
+    public void aFailedPollIsProjectedAgain() {
+        when(projector.project(anyList())).thenThrow(new IllegalStateException("database down"));
+        add(0);
+
+        projection.poll();
+
+        assertThat(consumer.committed(Collections.singleton(BOOKINGS_0)).get(BOOKINGS_0)).isNull();
+        assertThat(consumer.position(BOOKINGS_0)).isZero();
+    }
+
+    @Test
+    public void aRebuildStartsAgainFromTheFirstOffset() {
+        add(0);
+        add(1);
+        projection.poll();
+        assertThat(consumer.position(BOOKINGS_0)).isEqualTo(2);
+
+        projection.rebuild();
+        projection.poll();
+
+        assertThat(consumer.position(BOOKINGS_0)).isZero();
+    }
+}
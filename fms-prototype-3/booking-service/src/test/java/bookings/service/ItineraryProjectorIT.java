@@ -0,0 +1,127 @@
+package bookings.service;
+
+import bookings.BookingsApp;
+import bookings.domain.Itinerary;
+import bookings.repository.ItineraryRepository;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Integration tests for the {@link ItineraryProjector}.
+ */
+@SpringBootTest(classes = BookingsApp.class)
+@Transactional
+public class ItineraryProjectorIT {
+
+    private static final String FLIGHT = "{\"id\":200,\"flightNumber\":\"LH200\",\"departureDate\":\"2020-12-24\",\"origin\":\"FRA\",\"destination\":\"JFK\"}";
+
+    @Autowired
+    private ItineraryProjector itineraryProjector;
+
+    @Autowired
+    private ItineraryRepository itineraryRepository;
+
+    @Autowired
+    private EntityManager em;
+
+    private static ConsumerRecord<String, String> event(String topic, String value) {
+        return new ConsumerRecord<>(topic, 0, 0, null, value);
+    }
+
+    private static ConsumerRecord<String, String> booking(String topic, long bookingNumber, String flightNumber, long flightId) {
+        return event(topic, "{\"bookingNumber\":\"" + bookingNumber + "\",\"flightNumber\":\"" + flightNumber
+            + "\",\"flightId\":" + flightId + ",\"passengerId\":\"traveller\"}");
+    }
+
+    private static ConsumerRecord<String, String> flight(String topic, long flightId, String departureDate) {
+        return event(topic, "{\"id\":" + flightId + ",\"flightNumber\":\"LH201\",\"departureDate\":\"" + departureDate
+            + "\",\"origin\":\"FRA\",\"destination\":\"MUC\"}");
+    }
+
+    private Itinerary itinerary(long bookingNumber) {
+        em.flush();
+        em.clear();
+        return itineraryRepository.findAllByBookingNumberIn(Collections.singleton(bookingNumber)).get(0);
+    }
+
+    @Test
+    public void aTripIsProjectedFromTheEventsOfEveryService() {
+        int projected = itineraryProjector.project(Arrays.asList(
+            event(BookingReconciler.TOPIC_PAYMENT_SET, "{\"id\":\"1\",\"bookingNumber\":\"890001\",\"toPay\":\"100.0\"}"),
+            event(ItineraryProjector.TOPIC_FLIGHT_SET, FLIGHT),
+            booking(ItineraryProjector.TOPIC_BOOKING_UPDATED, 890001L, "LH200", 200L),
+            event(BookingReconciler.TOPIC_LUGGAGE_SET,
+                "{\"luggageType\":\"CARRY_ON\",\"bookingNumber\":\"890001\",\"passengerId\":\"traveller\",\"rfidTag\":\"R1\"}"),
+            event(BookingReconciler.TOPIC_LUGGAGE_SET, "not an event")));
+
+        assertThat(projected).isEqualTo(1);
+        Itinerary itinerary = itinerary(890001L);
+        assertThat(itinerary.getPassengerId()).isEqualTo("traveller");
+        assertThat(itinerary.getFlightNumber()).isEqualTo("LH200");
+        assertThat(itinerary.getFlightId()).isEqualTo(200L);
+        assertThat(itinerary.getDepartureDate()).isEqualTo(LocalDate.of(2020, 12, 24));
+        assertThat(itinerary.getOrigin()).isEqualTo("FRA");
+        assertThat(itinerary.getDestination()).isEqualTo("JFK");
+        assertThat(itinerary.isPaid()).isTrue();
+        assertThat(itinerary.getAmountPaid()).isEqualTo(100D);
+        assertThat(itinerary.getLuggageType()).isEqualTo("CARRY_ON");
+        assertThat(itinerary.getRfidTag()).isEqualTo("R1");
+        assertThat(itinerary.isBookingCancelled()).isFalse();
+    }
+
+    @Test
+    public void flightChangesReachTheTripsAlreadyProjected() {
+        itineraryProjector.project(Arrays.asList(booking(ItineraryProjector.TOPIC_BOOKING_UPDATED, 890002L, "LH201", 201L),
+            booking(ItineraryProjector.TOPIC_BOOKING_UPDATED, 890003L, "LH201", 201L)));
+
+        itineraryProjector.project(Collections.singletonList(flight(ItineraryProjector.TOPIC_FLIGHT_CANCELLED, 201L, "2020-12-25")));
+
+        em.flush();
+        em.clear();
+        List<Itinerary> itineraries = itineraryRepository.findAllByPassengerIdOrderByDepartureDateAscBookingNumberAsc("traveller");
+        assertThat(itineraries).extracting(Itinerary::getBookingNumber).containsExactly(890002L, 890003L);
+        assertThat(itineraries).allMatch(itinerary -> itinerary.isFlightCancelled()
+            && LocalDate.of(2020, 12, 25).equals(itinerary.getDepartureDate()) && "MUC".equals(itinerary.getDestination()));
+    }
+
+    @Test
+    public void aFlightChangeOnlyReachesTheTripsOfItsDate() {
+        itineraryProjector.project(Arrays.asList(flight(ItineraryProjector.TOPIC_FLIGHT_SET, 211L, "2020-12-25"),
+            flight(ItineraryProjector.TOPIC_FLIGHT_SET, 212L, "2020-12-26"),
+            booking(ItineraryProjector.TOPIC_BOOKING_UPDATED, 890005L, "LH201", 211L),
+            booking(ItineraryProjector.TOPIC_BOOKING_UPDATED, 890006L, "LH201", 212L)));
+
+        itineraryProjector.project(Collections.singletonList(flight(ItineraryProjector.TOPIC_FLIGHT_CANCELLED, 212L, "2020-12-26")));
+
+        assertThat(itinerary(890005L).isFlightCancelled()).isFalse();
+        assertThat(itinerary(890005L).getDepartureDate()).isEqualTo(LocalDate.of(2020, 12, 25));
+        assertThat(itinerary(890006L).isFlightCancelled()).isTrue();
+    }
+
+    @Test
+    public void projectingEventsAgainEndsInTheSameTrip() {
+        List<ConsumerRecord<String, String>> events = Arrays.asList(event(ItineraryProjector.TOPIC_FLIGHT_SET, FLIGHT),
+            booking(ItineraryProjector.TOPIC_BOOKING_UPDATED, 890004L, "LH200", 200L),
+            booking(ItineraryProjector.TOPIC_BOOKING_CANCELLED, 890004L, "LH200", 200L));
+        itineraryProjector.project(events);
+
+        // a replay from the first offset, while a booking update of another topic came last
+        itineraryProjector.project(Arrays.asList(events.get(2), events.get(0), events.get(1)));
+
+        assertThat(itineraryRepository.findAll()).filteredOn(itinerary -> itinerary.getBookingNumber() == 890004L).hasSize(1);
+        Itinerary itinerary = itinerary(890004L);
+        assertThat(itinerary.isBookingCancelled()).isTrue();
+        assertThat(itinerary.getDepartureDate()).isEqualTo(LocalDate.of(2020, 12, 24));
+    }
+}
@@ -0,0 +1,39 @@
+package bookings.service;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Test class for the {@link LongBloomFilter}.
+ */
+public class LongBloomFilterTest {
+
+    @Test
+    public void everyLongPutIsFound() {
+        LongBloomFilter filter = new LongBloomFilter(100000, 0.01);
+        for (long value = 0; value < 100000; value++) {
+            filter.put(value);
+        }
+
+        for (long value = 0; value < 100000; value++) {
+            assertThat(filter.mightContain(value)).as("contains %d", value).isTrue();
+        }
+    }
+
+    @Test
+    public void falsePositivesStayCloseToTheProbabilityTheFilterIsSizedFor() {
+        LongBloomFilter filter = new LongBloomFilter(100000, 0.01);
+        for (long value = 0; value < 100000; value++) {
+            filter.put(value);
+        }
+
+        int falsePositives = 0;
+        for (long value = 100000; value < 200000; value++) {
+            if (filter.mightContain(value)) {
+                falsePositives++;
+            }
+        }
+        assertThat(falsePositives).isLessThan(2000);
+    }
+}
@@ -1,23 +1,46 @@
 package bookings.web.rest;
 
 import bookings.BookingsApp;
+import bookings.client.FlightClient;
 import bookings.domain.Booking;
+import bookings.domain.enumeration.EBookingStatus;
 import bookings.repository.BookingRepository;
-
+import bookings.service.dto.FlightFareDTO;
+import bookings.service.dto.SeatHoldDTO;
+
+import feign.FeignException;
+import feign.Request;
+import feign.Response;
+import fms.common.domain.OutboxEvent;
+import fms.common.repository.OutboxEventRepository;
+import fms.common.web.filter.IdempotencyFilter;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.transaction.annotation.Transactional;
 import javax.persistence.EntityManager;
+import java.time.Instant;
+import java.nio.charset.StandardCharsets;
+import java.time.temporal.ChronoUnit;
+import java.util.Collections;
 import java.util.List;
+import java.util.UUID;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.contains;
 import static org.hamcrest.Matchers.hasItem;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
@@ -29,24 +52,37 @@ import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.
 @WithMockUser
 public class BookingResourceIT {
 
-    private static final Integer DEFAULT_BOOKING_NUMBER = 1;
-    private static final Integer UPDATED_BOOKING_NUMBER = 2;
+    private static final Long DEFAULT_BOOKING_NUMBER = 1L;
+    private static final Long UPDATED_BOOKING_NUMBER = 2L;
 
     private static final String DEFAULT_FLIGHT_NUMBER = "AAAAAAAAAA";
     private static final String UPDATED_FLIGHT_NUMBER = "BBBBBBBBBB";
 
-    private static final String DEFAULT_PASSENGER_ID = "AAAAAAAAAA";
+    private static final Long DEFAULT_FLIGHT_ID = 1L;
+    private static final Long UPDATED_FLIGHT_ID = 2L;
+
+    private static final String SEAT_HOLD_ID = "AAAAAAAAAA";
+
+    // the user the tests run as, who owns the entity of each test
+    private static final String DEFAULT_PASSENGER_ID = "user";
     private static final String UPDATED_PASSENGER_ID = "BBBBBBBBBB";
 
     @Autowired
     private BookingRepository bookingRepository;
 
+    @Autowired
+    private OutboxEventRepository outboxEventRepository;
+
     @Autowired
     private EntityManager em;
 
     @Autowired
     private MockMvc restBookingMockMvc;
 
+    // replaces the Feign client, which is registered under its class name
+    @MockBean(name = "bookings.client.FlightClient")
+    private FlightClient flightClient;
+
     private Booking booking;
 
     /**
@@ -59,6 +95,7 @@ public class BookingResourceIT {
         Booking booking = new Booking()
             .bookingNumber(DEFAULT_BOOKING_NUMBER)
             .flightNumber(DEFAULT_FLIGHT_NUMBER)
+            .flightId(DEFAULT_FLIGHT_ID)
             .passengerId(DEFAULT_PASSENGER_ID);
         return booking;
     }
@@ -72,6 +109,7 @@ public class BookingResourceIT {
         Booking booking = new Booking()
             .bookingNumber(UPDATED_BOOKING_NUMBER)
             .flightNumber(UPDATED_FLIGHT_NUMBER)
+            .flightId(UPDATED_FLIGHT_ID)
             .passengerId(UPDATED_PASSENGER_ID);
         return booking;
     }
@@ -79,12 +117,30 @@ public class BookingResourceIT {
     @BeforeEach
     public void initTest() {
         booking = createEntity(em);
+        FlightFareDTO flight = new FlightFareDTO();
+        flight.setId(DEFAULT_FLIGHT_ID);
+        flight.setFlightNumber(DEFAULT_FLIGHT_NUMBER);
+        flight.setFareType("ECONOMY");
+        flight.setPrice(100D);
+        flight.setStatus("SCHEDULED");
+        when(flightClient.getFlight(DEFAULT_FLIGHT_ID)).thenReturn(ResponseEntity.ok(flight));
+        SeatHoldDTO hold = new SeatHoldDTO();
+        hold.setHoldId(SEAT_HOLD_ID);
+        when(flightClient.createSeatHold(eq(DEFAULT_FLIGHT_ID), any())).thenReturn(hold);
+    }
+
+    private static FeignException seatHoldFailure(int status) {
+        Request request = Request.create(Request.HttpMethod.POST, "/api/flights/" + DEFAULT_FLIGHT_ID + "/seat-holds",
+            Collections.emptyMap(), null, StandardCharsets.UTF_8, null);
+        return FeignException.errorStatus("FlightClient#createSeatHold(Long,SeatHoldDTO)",
+            Response.builder().status(status).reason("").request(request).headers(Collections.emptyMap()).build());
     }
 
     @Test
     @Transactional
     public void createBooking() throws Exception {
         int databaseSizeBeforeCreate = bookingRepository.findAll().size();
+        int outboxSizeBeforeCreate = outboxEventRepository.findAll().size();
         // Create the Booking
         restBookingMockMvc.perform(post("/api/bookings")
             .contentType(MediaType.APPLICATION_JSON)
@@ -95,9 +151,64 @@ public class BookingResourceIT {
         List<Booking> bookingList = bookingRepository.findAll();
         assertThat(bookingList).hasSize(databaseSizeBeforeCreate + 1);
         Booking testBooking = bookingList.get(bookingList.size() - 1);
-        assertThat(testBooking.getBookingNumber()).isEqualTo(DEFAULT_BOOKING_NUMBER);
+        assertThat(testBooking.getBookingNumber()).isNotNull().isNotEqualTo(DEFAULT_BOOKING_NUMBER);
         assertThat(testBooking.getFlightNumber()).isEqualTo(DEFAULT_FLIGHT_NUMBER);
+        assertThat(testBooking.getFlightId()).isEqualTo(DEFAULT_FLIGHT_ID);
         assertThat(testBooking.getPassengerId()).isEqualTo(DEFAULT_PASSENGER_ID);
+        assertThat(testBooking.getStatus()).isEqualTo(EBookingStatus.HELD);
+        assertThat(testBooking.getHoldExpiresAt()).isAfter(Instant.now());
+        assertThat(testBooking.getSeatHoldId()).isEqualTo(SEAT_HOLD_ID);
+
+        // Validate the Booking event in the outbox
+        List<OutboxEvent> outboxEventList = outboxEventRepository.findAll();
+        assertThat(outboxEventList).hasSize(outboxSizeBeforeCreate + 1);
+        OutboxEvent testOutboxEvent = outboxEventList.get(outboxEventList.size() - 1);
+        assertThat(testOutboxEvent.getTopic()).isEqualTo("booking_updated");
+        assertThat(testOutboxEvent.getEventKey()).isEqualTo(String.valueOf(testBooking.getBookingNumber()));
+    }
+
+    @Test
+    @Transactional
+    public void createBookingIgnoresTheStatusSent() throws Exception {
+        booking.status(EBookingStatus.PAID).luggageAdded(true);
+
+        restBookingMockMvc.perform(post("/api/bookings")
+            .contentType(MediaType.APPLICATION_JSON)
+            .content(TestUtil.convertObjectToJsonBytes(booking)))
+            .andExpect(status().isCreated());
+
+        List<Booking> bookingList = bookingRepository.findAll();
+        Booking testBooking = bookingList.get(bookingList.size() - 1);
+        assertThat(testBooking.getStatus()).isEqualTo(EBookingStatus.HELD);
+        assertThat(testBooking.getHoldExpiresAt()).isAfter(Instant.now());
+        assertThat(testBooking.isLuggageAdded()).isFalse();
+    }
+
+    @Test
+    @Transactional
+    public void retriedCreateBookingIsNotDuplicated() throws Exception {
+        int databaseSizeBeforeCreate = bookingRepository.findAll().size();
+        int outboxSizeBeforeCreate = outboxEventRepository.findAll().size();
+        String idempotencyKey = UUID.randomUUID().toString();
+
+        // Create the Booking, then retry
+        String created = restBookingMockMvc.perform(post("/api/bookings")
+            .header(IdempotencyFilter.IDEMPOTENCY_KEY_HEADER, idempotencyKey)
+            .contentType(MediaType.APPLICATION_JSON)
+            .content(TestUtil.convertObjectToJsonBytes(booking)))
+            .andExpect(status().isCreated())
+            .andReturn().getResponse().getContentAsString();
+        restBookingMockMvc.perform(post("/api/bookings")
+            .header(IdempotencyFilter.IDEMPOTENCY_KEY_HEADER, idempotencyKey)
+            .contentType(MediaType.APPLICATION_JSON)
+            .content(TestUtil.convertObjectToJsonBytes(booking)))
+            .andExpect(status().isCreated())
+            .andExpect(header().string(IdempotencyFilter.IDEMPOTENT_REPLAYED_HEADER, "true"))
+            .andExpect(content().string(created));
+
+        // Validate a single Booking and event
+        assertThat(bookingRepository.findAll()).hasSize(databaseSizeBeforeCreate + 1);
+        assertThat(outboxEventRepository.findAll()).hasSize(outboxSizeBeforeCreate + 1);
     }
 
     @Test
@@ -122,21 +233,69 @@ public class BookingResourceIT {
 
     @Test
     @Transactional
-    public void checkBookingNumberIsRequired() throws Exception {
-        int databaseSizeBeforeTest = bookingRepository.findAll().size();
-        // set the field null
-        booking.setBookingNumber(null);
+    public void createBookingOnAFullFlightIsRejected() throws Exception {
+        int databaseSizeBeforeCreate = bookingRepository.findAll().size();
+        when(flightClient.createSeatHold(eq(DEFAULT_FLIGHT_ID), any())).thenThrow(seatHoldFailure(409));
 
-        // Create the Booking, which fails.
+        restBookingMockMvc.perform(post("/api/bookings")
+            .contentType(MediaType.APPLICATION_JSON)
+            .content(TestUtil.convertObjectToJsonBytes(booking)))
+            .andExpect(status().isConflict());
 
+        assertThat(bookingRepository.findAll()).hasSize(databaseSizeBeforeCreate);
+    }
+
+    @Test
+    @Transactional
+    public void createBookingOnAFlightWithoutSeatInventoryHoldsNoSeat() throws Exception {
+        when(flightClient.createSeatHold(eq(DEFAULT_FLIGHT_ID), any())).thenThrow(seatHoldFailure(400));
 
         restBookingMockMvc.perform(post("/api/bookings")
             .contentType(MediaType.APPLICATION_JSON)
             .content(TestUtil.convertObjectToJsonBytes(booking)))
+            .andExpect(status().isCreated())
+            .andExpect(jsonPath("$.seatHoldId").doesNotExist());
+    }
+
+    @Test
+    @Transactional
+    public void createBookingNeedsABookableFlight() throws Exception {
+        int databaseSizeBeforeCreate = bookingRepository.findAll().size();
+        when(flightClient.getFlight(UPDATED_FLIGHT_ID)).thenReturn(ResponseEntity.notFound().build());
+
+        restBookingMockMvc.perform(post("/api/bookings")
+            .contentType(MediaType.APPLICATION_JSON)
+            .content(TestUtil.convertObjectToJsonBytes(createEntity(em).flightId(null))))
             .andExpect(status().isBadRequest());
+        restBookingMockMvc.perform(post("/api/bookings")
+            .contentType(MediaType.APPLICATION_JSON)
+            .content(TestUtil.convertObjectToJsonBytes(createEntity(em).flightId(UPDATED_FLIGHT_ID))))
+            .andExpect(status().isBadRequest());
+
+        assertThat(bookingRepository.findAll()).hasSize(databaseSizeBeforeCreate);
+        verify(flightClient, never()).createSeatHold(any(), any());
+    }
+
+    @Test
+    @Transactional
+    public void createBookingGeneratesUniqueBookingNumbers() throws Exception {
+        int databaseSizeBeforeCreate = bookingRepository.findAll().size();
+        // the booking number is not needed
+        booking.setBookingNumber(null);
+
+        // Create the Booking twice
+        for (int i = 0; i < 2; i++) {
+            restBookingMockMvc.perform(post("/api/bookings")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(TestUtil.convertObjectToJsonBytes(booking)))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.bookingNumber").isNumber());
+        }
 
         List<Booking> bookingList = bookingRepository.findAll();
-        assertThat(bookingList).hasSize(databaseSizeBeforeTest);
+        assertThat(bookingList).hasSize(databaseSizeBeforeCreate + 2);
+        assertThat(bookingList.get(bookingList.size() - 1).getBookingNumber())
+            .isGreaterThan(bookingList.get(bookingList.size() - 2).getBookingNumber());
     }
 
     @Test
@@ -188,8 +347,9 @@ public class BookingResourceIT {
             .andExpect(status().isOk())
             .andExpect(content().contentType(MediaType.APPLICATION_JSON_VALUE))
             .andExpect(jsonPath("$.[*].id").value(hasItem(booking.getId().intValue())))
-            .andExpect(jsonPath("$.[*].bookingNumber").value(hasItem(DEFAULT_BOOKING_NUMBER)))
+            .andExpect(jsonPath("$.[*].bookingNumber").value(hasItem(DEFAULT_BOOKING_NUMBER.intValue())))
             .andExpect(jsonPath("$.[*].flightNumber").value(hasItem(DEFAULT_FLIGHT_NUMBER)))
+            .andExpect(jsonPath("$.[*].flightId").value(hasItem(DEFAULT_FLIGHT_ID.intValue())))
             .andExpect(jsonPath("$.[*].passengerId").value(hasItem(DEFAULT_PASSENGER_ID)));
     }
     
@@ -204,8 +364,9 @@ public class BookingResourceIT {
             .andExpect(status().isOk())
             .andExpect(content().contentType(MediaType.APPLICATION_JSON_VALUE))
             .andExpect(jsonPath("$.id").value(booking.getId().intValue()))
-            .andExpect(jsonPath("$.bookingNumber").value(DEFAULT_BOOKING_NUMBER))
+            .andExpect(jsonPath("$.bookingNumber").value(DEFAULT_BOOKING_NUMBER.intValue()))
             .andExpect(jsonPath("$.flightNumber").value(DEFAULT_FLIGHT_NUMBER))
+            .andExpect(jsonPath("$.flightId").value(DEFAULT_FLIGHT_ID.intValue()))
             .andExpect(jsonPath("$.passengerId").value(DEFAULT_PASSENGER_ID));
     }
     @Test
@@ -231,6 +392,7 @@ public class BookingResourceIT {
         updatedBooking
             .bookingNumber(UPDATED_BOOKING_NUMBER)
             .flightNumber(UPDATED_FLIGHT_NUMBER)
+            .flightId(UPDATED_FLIGHT_ID)
             .passengerId(UPDATED_PASSENGER_ID);
 
         restBookingMockMvc.perform(put("/api/bookings")
@@ -242,11 +404,57 @@ public class BookingResourceIT {
         List<Booking> bookingList = bookingRepository.findAll();
         assertThat(bookingList).hasSize(databaseSizeBeforeUpdate);
         Booking testBooking = bookingList.get(bookingList.size() - 1);
-        assertThat(testBooking.getBookingNumber()).isEqualTo(UPDATED_BOOKING_NUMBER);
+        assertThat(testBooking.getBookingNumber()).as("booking numbers never change").isEqualTo(DEFAULT_BOOKING_NUMBER);
         assertThat(testBooking.getFlightNumber()).isEqualTo(UPDATED_FLIGHT_NUMBER);
+        assertThat(testBooking.getFlightId()).isEqualTo(UPDATED_FLIGHT_ID);
+        assertThat(testBooking.getPassengerId()).as("the passenger is kept").isEqualTo(DEFAULT_PASSENGER_ID);
+    }
+
+    @Test
+    @Transactional
+    public void updateBookingOfAnotherPassenger() throws Exception {
+        bookingRepository.saveAndFlush(booking.passengerId(UPDATED_PASSENGER_ID));
+
+        Booking updatedBooking = bookingRepository.findById(booking.getId()).get();
+        em.detach(updatedBooking);
+        updatedBooking.flightNumber(UPDATED_FLIGHT_NUMBER).passengerId(DEFAULT_PASSENGER_ID);
+
+        restBookingMockMvc.perform(put("/api/bookings")
+            .contentType(MediaType.APPLICATION_JSON)
+            .content(TestUtil.convertObjectToJsonBytes(updatedBooking)))
+            .andExpect(status().isNotFound());
+
+        em.clear();
+        Booking testBooking = bookingRepository.findById(booking.getId()).get();
+        assertThat(testBooking.getFlightNumber()).isEqualTo(DEFAULT_FLIGHT_NUMBER);
         assertThat(testBooking.getPassengerId()).isEqualTo(UPDATED_PASSENGER_ID);
     }
 
+    @Test
+    @Transactional
+    public void updateBookingKeepsItsStatusHoldAndLuggage() throws Exception {
+        Instant holdExpiresAt = Instant.now().plusSeconds(600).truncatedTo(ChronoUnit.MILLIS);
+        bookingRepository.saveAndFlush(booking.status(EBookingStatus.HELD).holdExpiresAt(holdExpiresAt));
+
+        Booking updatedBooking = bookingRepository.findById(booking.getId()).get();
+        em.detach(updatedBooking);
+        // as edited from the gateway, which sends none of them, or crafted to skip the payment
+        updatedBooking.status(EBookingStatus.PAID).holdExpiresAt(null).luggageAdded(true).flightNumber(UPDATED_FLIGHT_NUMBER);
+
+        restBookingMockMvc.perform(put("/api/bookings")
+            .contentType(MediaType.APPLICATION_JSON)
+            .content(TestUtil.convertObjectToJsonBytes(updatedBooking)))
+            .andExpect(status().isOk());
+
+        em.flush();
+        em.clear();
+        Booking testBooking = bookingRepository.findById(booking.getId()).get();
+        assertThat(testBooking.getFlightNumber()).isEqualTo(UPDATED_FLIGHT_NUMBER);
+        assertThat(testBooking.getStatus()).isEqualTo(EBookingStatus.HELD);
+        assertThat(testBooking.getHoldExpiresAt()).isEqualTo(holdExpiresAt);
+        assertThat(testBooking.isLuggageAdded()).isFalse();
+    }
+
     @Test
     @Transactional
     public void updateNonExistingBooking() throws Exception {
@@ -280,4 +488,49 @@ public class BookingResourceIT {
         List<Booking> bookingList = bookingRepository.findAll();
         assertThat(bookingList).hasSize(databaseSizeBeforeDelete - 1);
     }
+
+    @Test
+    @Transactional
+    @WithMockUser(username = DEFAULT_PASSENGER_ID)
+    public void getAllBookingsOfTheConnectedPassengerOnly() throws Exception {
+        // Initialize the database
+        bookingRepository.saveAndFlush(booking);
+        bookingRepository.saveAndFlush(createEntity(em).bookingNumber(UPDATED_BOOKING_NUMBER).passengerId(UPDATED_PASSENGER_ID));
+
+        // Get the first page of the connected passenger's bookings
+        restBookingMockMvc.perform(get("/api/bookings?page=0&size=20&sort=id,desc"))
+            .andExpect(status().isOk())
+            .andExpect(header().string("X-Total-Count", "1"))
+            .andExpect(jsonPath("$.[*].id").value(contains(booking.getId().intValue())));
+    }
+
+    @Test
+    @Transactional
+    @WithMockUser(username = UPDATED_PASSENGER_ID)
+    public void getBookingOfAnotherPassenger() throws Exception {
+        // Initialize the database
+        bookingRepository.saveAndFlush(booking);
+
+        // Get the booking of another passenger
+        restBookingMockMvc.perform(get("/api/bookings/{id}", booking.getId()))
+            .andExpect(status().isNotFound());
+    }
+
+    @Test
+    @Transactional
+    @WithMockUser(username = UPDATED_PASSENGER_ID)
+    public void deleteBookingOfAnotherPassenger() throws Exception {
+        // Initialize the database
+        bookingRepository.saveAndFlush(booking);
+
+        int databaseSizeBeforeDelete = bookingRepository.findAll().size();
+
+        // Delete the booking of another passenger
+        restBookingMockMvc.perform(delete("/api/bookings/{id}", booking.getId())
+            .accept(MediaType.APPLICATION_JSON))
+            .andExpect(status().isNotFound());
+
+        // Validate the database still contains it
+        assertThat(bookingRepository.findAll()).hasSize(databaseSizeBeforeDelete);
+    }
 }
@@ -0,0 +1,334 @@
+package bookings.web.rest;
+
+import bookings.BookingsApp;
+import bookings.client.FlightClient;
+import bookings.domain.Booking;
+import bookings.domain.Checkout;
+import bookings.domain.enumeration.EBookingStatus;
+import bookings.domain.enumeration.ECheckoutStatus;
+import bookings.repository.BookingRepository;
+import bookings.repository.CheckoutRepository;
+import bookings.service.BookingReconciler;
+import bookings.service.dto.CheckoutDTO;
+import bookings.service.dto.FlightFareDTO;
+import bookings.service.dto.SeatHoldDTO;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import feign.FeignException;
+import feign.Request;
+import feign.Response;
+import fms.common.domain.OutboxEvent;
+import fms.common.repository.OutboxEventRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.transaction.annotation.Transactional;
+import javax.persistence.EntityManager;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * Integration tests for the {@link CheckoutResource} REST controller.
+ */
+@SpringBootTest(classes = BookingsApp.class)
+@AutoConfigureMockMvc
+@WithMockUser
+public class CheckoutResourceIT {
+
+    private static final String FLIGHT_NUMBER = "AAAAAAAAAA";
+    private static final Long FLIGHT_ID = 1L;
+    private static final Long SCHEDULE_ID = 1L;
+    private static final String SEAT_HOLD_ID = "AAAAAAAAAA";
+    private static final Double TO_PAY = 100D;
+    private static final Long CREDIT_CARD_ID = 1L;
+    private static final String LUGGAGE_TYPE = "CARGO_BAG_20KG";
+    private static final Integer WEIGHT_CATEGORY = 2;
+
+    @Autowired
+    private CheckoutRepository checkoutRepository;
+
+    @Autowired
+    private BookingRepository bookingRepository;
+
+    @Autowired
+    private OutboxEventRepository outboxEventRepository;
+
+    @Autowired
+    private BookingReconciler bookingReconciler;
+
+    @Autowired
+    private EntityManager em;
+
+    // replaces the Feign client, which is registered under its class name
+    @MockBean(name = "bookings.client.FlightClient")
+    private FlightClient flightClient;
+
+    @Autowired
+    private MockMvc restCheckoutMockMvc;
+
+    private CheckoutDTO checkoutDTO;
+
+    @BeforeEach
+    public void initTest() {
+        checkoutDTO = new CheckoutDTO();
+        checkoutDTO.setFlightId(FLIGHT_ID);
+        checkoutDTO.setCreditCardId(CREDIT_CARD_ID);
+        checkoutDTO.setLuggageType(LUGGAGE_TYPE);
+        checkoutDTO.setWeightCategory(WEIGHT_CATEGORY);
+        FlightFareDTO flight = new FlightFareDTO();
+        flight.setId(FLIGHT_ID);
+        flight.setFlightNumber(FLIGHT_NUMBER);
+        flight.setFareType("ECONOMY");
+        flight.setPrice(TO_PAY);
+        flight.setStatus("SCHEDULED");
+        when(flightClient.getFlight(FLIGHT_ID)).thenReturn(ResponseEntity.ok(flight));
+        SeatHoldDTO hold = new SeatHoldDTO();
+        hold.setHoldId(SEAT_HOLD_ID);
+        when(flightClient.createSeatHold(eq(FLIGHT_ID), any())).thenReturn(hold);
+    }
+
+    private Checkout checkout() throws Exception {
+        String created = restCheckoutMockMvc.perform(post("/api/checkouts")
+            .contentType(MediaType.APPLICATION_JSON)
+            .content(TestUtil.convertObjectToJsonBytes(checkoutDTO)))
+            .andExpect(status().isAccepted())
+            .andReturn().getResponse().getContentAsString();
+        // the saga moves on in later transactions, which read the bookings afresh
+        em.flush();
+        em.clear();
+        return checkoutRepository.findById(new ObjectMapper().readTree(created).get("id").asLong()).get();
+    }
+
+    private List<String> outboxTopicsSince(int outboxSize) {
+        List<OutboxEvent> outboxEventList = outboxEventRepository.findAll();
+        return outboxEventList.subList(outboxSize, outboxEventList.size()).stream()
+            .map(OutboxEvent::getTopic).collect(Collectors.toList());
+    }
+
+    @Test
+    @Transactional
+    public void createCheckout() throws Exception {
+        int outboxSizeBeforeCreate = outboxEventRepository.findAll().size();
+
+        MvcResult result = restCheckoutMockMvc.perform(post("/api/checkouts")
+            .contentType(MediaType.APPLICATION_JSON)
+            .content(TestUtil.convertObjectToJsonBytes(checkoutDTO)))
+            .andExpect(status().isAccepted())
+            .andExpect(jsonPath("$.status").value(ECheckoutStatus.PAYMENT_PENDING.toString()))
+            .andExpect(jsonPath("$.passengerId").value("user"))
+            .andReturn();
+
+        // Validate the Checkout and its held Booking in the database
+        Checkout testCheckout = checkoutRepository.findAll().get(checkoutRepository.findAll().size() - 1);
+        assertThat(result.getResponse().getHeader("Location")).isEqualTo("/api/checkouts/" + testCheckout.getId());
+        assertThat(testCheckout.getLuggageType()).isEqualTo(LUGGAGE_TYPE);
+        assertThat(testCheckout.getWeightCategory()).isEqualTo(WEIGHT_CATEGORY);
+        Booking testBooking = bookingRepository.findBookingByBookingNumber(testCheckout.getBookingNumber()).get(0);
+        assertThat(testBooking.getFlightNumber()).isEqualTo(FLIGHT_NUMBER);
+        assertThat(testBooking.getFlightId()).isEqualTo(FLIGHT_ID);
+        assertThat(testBooking.getPassengerId()).isEqualTo("user");
+        assertThat(testBooking.getStatus()).isEqualTo(EBookingStatus.HELD);
+        assertThat(testBooking.getSeatHoldId()).isEqualTo(SEAT_HOLD_ID);
+
+        // Validate the booking event and payment request in the outbox
+        assertThat(outboxTopicsSince(outboxSizeBeforeCreate)).containsExactly("booking_updated", "payment_requested");
+        OutboxEvent paymentRequest = outboxEventRepository.findAll().get(outboxSizeBeforeCreate + 1);
+        assertThat(new ObjectMapper().readTree(paymentRequest.getPayload()).get("toPay").asText()).isEqualTo(String.valueOf(TO_PAY));
+    }
+
+    @Test
+    @Transactional
+    public void createCheckoutOnAFullFlightIsRejected() throws Exception {
+        int databaseSizeBeforeTest = checkoutRepository.findAll().size();
+        Request request = Request.create(Request.HttpMethod.POST, "/api/flights/" + FLIGHT_ID + "/seat-holds",
+            Collections.emptyMap(), null, StandardCharsets.UTF_8, null);
+        when(flightClient.createSeatHold(eq(FLIGHT_ID), any())).thenThrow(FeignException.errorStatus(
+            "FlightClient#createSeatHold(Long,SeatHoldDTO)",
+            Response.builder().status(409).reason("").request(request).headers(Collections.emptyMap()).build()));
+
+        restCheckoutMockMvc.perform(post("/api/checkouts")
+            .contentType(MediaType.APPLICATION_JSON)
+            .content(TestUtil.convertObjectToJsonBytes(checkoutDTO)))
+            .andExpect(status().isConflict())
+            .andExpect(jsonPath("$.message").value("error.seatsunavailable"));
+
+        assertThat(checkoutRepository.findAll()).hasSize(databaseSizeBeforeTest);
+    }
+
+    @Test
+    @Transactional
+    public void createCheckoutOfAScheduledFlightStoresItFirst() throws Exception {
+        LocalDate departureDate = LocalDate.of(2020, 10, 21);
+        FlightFareDTO materialized = new FlightFareDTO();
+        materialized.setId(FLIGHT_ID);
+        when(flightClient.materializeFlight(SCHEDULE_ID, departureDate)).thenReturn(ResponseEntity.ok(materialized));
+        checkoutDTO.setFlightId(null);
+        checkoutDTO.setScheduleId(SCHEDULE_ID);
+        checkoutDTO.setDepartureDate(departureDate);
+
+        Checkout checkout = checkout();
+
+        Booking testBooking = bookingRepository.findBookingByBookingNumber(checkout.getBookingNumber()).get(0);
+        assertThat(testBooking.getFlightId()).isEqualTo(FLIGHT_ID);
+        assertThat(testBooking.getFlightNumber()).isEqualTo(FLIGHT_NUMBER);
+
+        when(flightClient.materializeFlight(SCHEDULE_ID, departureDate)).thenReturn(ResponseEntity.status(HttpStatus.NOT_FOUND).build());
+        restCheckoutMockMvc.perform(post("/api/checkouts")
+            .contentType(MediaType.APPLICATION_JSON)
+            .content(TestUtil.convertObjectToJsonBytes(checkoutDTO)))
+            .andExpect(status().isBadRequest());
+        checkoutDTO.setScheduleId(null);
+        restCheckoutMockMvc.perform(post("/api/checkouts")
+            .contentType(MediaType.APPLICATION_JSON)
+            .content(TestUtil.convertObjectToJsonBytes(checkoutDTO)))
+            .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @Transactional
+    public void createCheckoutOfAnUnknownOrCancelledFlight() throws Exception {
+        int databaseSizeBeforeTest = checkoutRepository.findAll().size();
+        when(flightClient.getFlight(FLIGHT_ID)).thenReturn(ResponseEntity.status(HttpStatus.NOT_FOUND).build());
+
+        restCheckoutMockMvc.perform(post("/api/checkouts")
+            .contentType(MediaType.APPLICATION_JSON)
+            .content(TestUtil.convertObjectToJsonBytes(checkoutDTO)))
+            .andExpect(status().isBadRequest());
+
+        FlightFareDTO cancelled = new FlightFareDTO();
+        cancelled.setId(FLIGHT_ID);
+        cancelled.setFlightNumber(FLIGHT_NUMBER);
+        cancelled.setPrice(TO_PAY);
+        cancelled.setStatus("CANCELLED");
+        when(flightClient.getFlight(FLIGHT_ID)).thenReturn(ResponseEntity.ok(cancelled));
+
+        restCheckoutMockMvc.perform(post("/api/checkouts")
+            .contentType(MediaType.APPLICATION_JSON)
+            .content(TestUtil.convertObjectToJsonBytes(checkoutDTO)))
+            .andExpect(status().isBadRequest());
+
+        assertThat(checkoutRepository.findAll()).hasSize(databaseSizeBeforeTest);
+    }
+
+    @Test
+    @Transactional
+    public void createCheckoutWithLuggageWithoutWeightCategory() throws Exception {
+        int databaseSizeBeforeTest = checkoutRepository.findAll().size();
+        checkoutDTO.setWeightCategory(null);
+
+        restCheckoutMockMvc.perform(post("/api/checkouts")
+            .contentType(MediaType.APPLICATION_JSON)
+            .content(TestUtil.convertObjectToJsonBytes(checkoutDTO)))
+            .andExpect(status().isBadRequest());
+
+        assertThat(checkoutRepository.findAll()).hasSize(databaseSizeBeforeTest);
+    }
+
+    @Test
+    @Transactional
+    public void checkoutIsPaidThenGetsItsLuggage() throws Exception {
+        Checkout checkout = checkout();
+        int outboxSizeBeforePayment = outboxEventRepository.findAll().size();
+
+        bookingReconciler.reconcile(BookingReconciler.TOPIC_PAYMENT_SET, Collections.singletonList(
+            "{\"id\":\"1\",\"bookingNumber\":\"" + checkout.getBookingNumber() + "\",\"toPay\":\"100.0\"}"));
+
+        restCheckoutMockMvc.perform(get("/api/checkouts/{id}", checkout.getId()))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.status").value(ECheckoutStatus.LUGGAGE_PENDING.toString()));
+        assertThat(outboxTopicsSince(outboxSizeBeforePayment)).containsExactly("luggage_requested");
+
+        bookingReconciler.reconcile(BookingReconciler.TOPIC_LUGGAGE_SET, Collections.singletonList(
+            "{\"luggageType\":\"" + LUGGAGE_TYPE + "\",\"bookingNumber\":\"" + checkout.getBookingNumber() + "\",\"passengerId\":\"user\",\"rfidTag\":\"R1\"}"));
+
+        restCheckoutMockMvc.perform(get("/api/checkouts/{id}", checkout.getId()))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.status").value(ECheckoutStatus.COMPLETED.toString()));
+        em.clear();
+        Booking testBooking = bookingRepository.findBookingByBookingNumber(checkout.getBookingNumber()).get(0);
+        assertThat(testBooking.getStatus()).isEqualTo(EBookingStatus.PAID);
+        assertThat(testBooking.isLuggageAdded()).isTrue();
+    }
+
+    @Test
+    @Transactional
+    public void failedLuggageCancelsTheBookingAndRefundsIt() throws Exception {
+        Checkout checkout = checkout();
+        bookingReconciler.reconcile(BookingReconciler.TOPIC_PAYMENT_SET, Collections.singletonList(
+            "{\"id\":\"1\",\"bookingNumber\":\"" + checkout.getBookingNumber() + "\",\"toPay\":\"100.0\"}"));
+        int outboxSizeBeforeFailure = outboxEventRepository.findAll().size();
+
+        bookingReconciler.reconcile(BookingReconciler.TOPIC_LUGGAGE_FAILED, Collections.singletonList(
+            "{\"bookingNumber\":\"" + checkout.getBookingNumber() + "\",\"reason\":\"No room left\"}"));
+
+        restCheckoutMockMvc.perform(get("/api/checkouts/{id}", checkout.getId()))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.status").value(ECheckoutStatus.FAILED.toString()))
+            .andExpect(jsonPath("$.failureReason").value("No room left"));
+        Booking testBooking = bookingRepository.findBookingByBookingNumber(checkout.getBookingNumber()).get(0);
+        assertThat(testBooking.getStatus()).isEqualTo(EBookingStatus.CANCELLED);
+        assertThat(outboxTopicsSince(outboxSizeBeforeFailure)).containsExactly("booking_cancelled", "payment_refund_requested");
+    }
+
+    @Test
+    @Transactional
+    public void failedPaymentCancelsTheBooking() throws Exception {
+        Checkout checkout = checkout();
+        int outboxSizeBeforeFailure = outboxEventRepository.findAll().size();
+
+        bookingReconciler.reconcile(BookingReconciler.TOPIC_PAYMENT_FAILED, Collections.singletonList(
+            "{\"bookingNumber\":\"" + checkout.getBookingNumber() + "\",\"reason\":\"Credit card expired\"}"));
+
+        assertThat(checkoutRepository.findById(checkout.getId()).get().getStatus()).isEqualTo(ECheckoutStatus.FAILED);
+        Booking testBooking = bookingRepository.findBookingByBookingNumber(checkout.getBookingNumber()).get(0);
+        assertThat(testBooking.getStatus()).isEqualTo(EBookingStatus.CANCELLED);
+        assertThat(outboxTopicsSince(outboxSizeBeforeFailure)).containsExactly("booking_cancelled");
+    }
+
+    @Test
+    @Transactional
+    public void getCheckoutEvents() throws Exception {
+        Checkout checkout = checkout();
+
+        MvcResult mvcResult = restCheckoutMockMvc.perform(get("/api/checkouts/{id}/events", checkout.getId()))
+            .andExpect(status().isOk())
+            .andExpect(request().asyncStarted())
+            .andReturn();
+
+        assertThat(mvcResult.getResponse().getContentAsString())
+            .contains("event:status")
+            .contains("\"status\":\"" + ECheckoutStatus.PAYMENT_PENDING + "\"");
+    }
+
+    @Test
+    @Transactional
+    public void getCheckoutOfAnotherPassenger() throws Exception {
+        Checkout checkout = checkoutRepository.saveAndFlush(new Checkout().bookingNumber(990001L).passengerId("other")
+            .status(ECheckoutStatus.PAYMENT_PENDING).updatedAt(Instant.now()));
+
+        restCheckoutMockMvc.perform(get("/api/checkouts/{id}", checkout.getId()))
+            .andExpect(status().isNotFound());
+        restCheckoutMockMvc.perform(get("/api/checkouts/{id}/events", checkout.getId()))
+            .andExpect(status().isNotFound());
+    }
+}
@@ -0,0 +1,70 @@
+package bookings.web.rest;
+
+import bookings.BookingsApp;
+import bookings.domain.Itinerary;
+import bookings.repository.ItineraryRepository;
+import bookings.security.AuthoritiesConstants;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.time.LocalDate;
+
+import static org.hamcrest.Matchers.contains;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * Integration tests for the {@link ItineraryResource} REST controller.
+ */
+@SpringBootTest(classes = BookingsApp.class)
+@AutoConfigureMockMvc
+@WithMockUser
+public class ItineraryResourceIT {
+
+    @Autowired
+    private ItineraryRepository itineraryRepository;
+
+    @Autowired
+    private MockMvc restItineraryMockMvc;
+
+    private Itinerary itinerary(long bookingNumber, String passengerId, LocalDate departureDate) {
+        return itineraryRepository.saveAndFlush(new Itinerary().bookingNumber(bookingNumber).passengerId(passengerId)
+            .flightNumber("LH300").departureDate(departureDate).paid(true).updatedAt(Instant.now()));
+    }
+
+    @Test
+    @Transactional
+    public void getAllItinerariesOfTheUserInOrderOfDeparture() throws Exception {
+        itinerary(891001L, "user", LocalDate.of(2020, 12, 30));
+        itinerary(891002L, "user", LocalDate.of(2020, 12, 1));
+        itinerary(891003L, "someone-else", LocalDate.of(2020, 12, 15));
+
+        restItineraryMockMvc.perform(get("/api/itineraries"))
+            .andExpect(status().isOk())
+            .andExpect(content().contentType(MediaType.APPLICATION_JSON_VALUE))
+            .andExpect(jsonPath("$.[*].bookingNumber").value(contains(891002, 891001)))
+            .andExpect(jsonPath("$.[*].flightNumber").value(contains("LH300", "LH300")))
+            .andExpect(jsonPath("$.[*].paid").value(contains(true, true)));
+    }
+
+    @Test
+    public void rebuildItinerariesNeedsAnAdmin() throws Exception {
+        restItineraryMockMvc.perform(post("/api/itineraries/rebuild"))
+            .andExpect(status().isForbidden());
+    }
+
+    @Test
+    @WithMockUser(authorities = AuthoritiesConstants.ADMIN)
+    public void rebuildItineraries() throws Exception {
+        restItineraryMockMvc.perform(post("/api/itineraries/rebuild"))
+            .andExpect(status().isAccepted());
+    }
+}
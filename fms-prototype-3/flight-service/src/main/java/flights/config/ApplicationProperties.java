@@ -10,4 +10,142 @@ import org.springframework.boot.context.properties.ConfigurationProperties;
  */
 @ConfigurationProperties(prefix = "application", ignoreUnknownFields = false)
 public class ApplicationProperties {
+
+    private final FlightImport flightImport = new FlightImport();
+    private final FlightSearch flightSearch = new FlightSearch();
+    private final SeatInventory seatInventory = new SeatInventory();
+    private final FareEngine fareEngine = new FareEngine();
+
+    public FlightImport getFlightImport() {
+        return flightImport;
+    }
+
+    public FlightSearch getFlightSearch() {
+        return flightSearch;
+    }
+
+    public SeatInventory getSeatInventory() {
+        return seatInventory;
+    }
+
+    public FareEngine getFareEngine() {
+        return fareEngine;
+    }
+
+    public static class FlightImport {
+
+        /**
+         * Number of rows validated in parallel and persisted in one transaction.
+         */
+        private int chunkSize = 1000;
+
+        /**
+         * JDBC batch size used while inserting an import chunk.
+         */
+        private int jdbcBatchSize = 250;
+
+        /**
+         * Maximum number of row errors kept in an import report, further errors are only counted.
+         */
+        private int maxReportedErrors = 1000;
+
+        public int getChunkSize() {
+            return chunkSize;
+        }
+
+        public void setChunkSize(int chunkSize) {
+            this.chunkSize = chunkSize;
+        }
+
+        public int getJdbcBatchSize() {
+            return jdbcBatchSize;
+        }
+
+        public void setJdbcBatchSize(int jdbcBatchSize) {
+            this.jdbcBatchSize = jdbcBatchSize;
+        }
+
+        public int getMaxReportedErrors() {
+            return maxReportedErrors;
+        }
+
+        public void setMaxReportedErrors(int maxReportedErrors) {
+            this.maxReportedErrors = maxReportedErrors;
+        }
+    }
+
+    public static class FlightSearch {
+
+        /**
+         * Longest date range a flight search may cover, as schedules are expanded day by day.
+         */
+        private int maxDays = 93;
+
+        public int getMaxDays() {
+            return maxDays;
+        }
+
+        public void setMaxDays(int maxDays) {
+            this.maxDays = maxDays;
+        }
+    }
+
+    public static class SeatInventory {
+
+        /**
+         * Whether seat counts are shared by all instances through Hazelcast, or kept per instance.
+         */
+        private boolean distributed = true;
+
+        public boolean isDistributed() {
+            return distributed;
+        }
+
+        public void setDistributed(boolean distributed) {
+            this.distributed = distributed;
+        }
+    }
+
+    public static class FareEngine {
+
+        /**
+         * Number of departure days, from today, covered by the precomputed fare tables.
+         * Fares of later departures are looked up in the fare rules of the route.
+         */
+        private int horizonDays = 366;
+
+        /**
+         * Number of routes a fork-join task recomputes itself instead of splitting them.
+         */
+        private int routesPerTask = 32;
+
+        /**
+         * Whether a fare change recomputes the fare tables of all instances, through Hazelcast, or only of this one.
+         */
+        private boolean distributed = true;
+
+        public int getHorizonDays() {
+            return horizonDays;
+        }
+
+        public void setHorizonDays(int horizonDays) {
+            this.horizonDays = horizonDays;
+        }
+
+        public int getRoutesPerTask() {
+            return routesPerTask;
+        }
+
+        public void setRoutesPerTask(int routesPerTask) {
+            this.routesPerTask = routesPerTask;
+        }
+
+        public boolean isDistributed() {
+            return distributed;
+        }
+
+        public void setDistributed(boolean distributed) {
+            this.distributed = distributed;
+        }
+    }
 }
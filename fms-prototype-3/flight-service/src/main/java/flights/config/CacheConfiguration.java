@@ -7,6 +7,8 @@ import com.hazelcast.config.*;
 import com.hazelcast.core.HazelcastInstance;
 import com.hazelcast.core.Hazelcast;
 
+import flights.service.SeatInventoryEngine;
+
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -114,6 +116,7 @@ public class CacheConfiguration {
         // Full reference is available at: https://docs.hazelcast.org/docs/management-center/3.9/manual/html/Deploying_and_Starting.html
         config.setManagementCenterConfig(initializeDefaultManagementCenterConfig(jHipsterProperties));
         config.getMapConfigs().put("flights.domain.*", initializeDomainMapConfig(jHipsterProperties));
+        config.getMapConfigs().put(SeatInventoryEngine.SEAT_COUNTS_MAP, initializeSeatCountsMapConfig(jHipsterProperties));
         return Hazelcast.newHazelcastInstance(config);
     }
 
@@ -161,6 +164,14 @@ public class CacheConfiguration {
         return mapConfig;
     }
 
+    private MapConfig initializeSeatCountsMapConfig(JHipsterProperties jHipsterProperties) {
+        MapConfig mapConfig = new MapConfig();
+        mapConfig.setBackupCount(jHipsterProperties.getCache().getHazelcast().getBackupCount());
+        // Seat counts are the reference for seat holds, they must never be evicted
+        mapConfig.setEvictionPolicy(EvictionPolicy.NONE);
+        return mapConfig;
+    }
+
     @Autowired(required = false)
     public void setGitProperties(GitProperties gitProperties) {
         this.gitProperties = gitProperties;
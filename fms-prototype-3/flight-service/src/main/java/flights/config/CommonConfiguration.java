@@ -0,0 +1,22 @@
+package flights.config;
+
+import fms.common.config.KafkaProperties;
+import fms.common.config.OutboxProperties;
+import fms.common.service.KafkaEventPublisher;
+import fms.common.service.KafkaSseBroadcaster;
+import fms.common.service.OutboxRelay;
+import fms.common.service.OutboxService;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+
+/**
+ * Registers the components of fms-common this service runs, and binds their settings:
+ * the Kafka event publisher, the SSE broadcaster and the outbox and its relay.
+ * The outbox events are mapped and stored through the {@link DatabaseConfiguration}.
+ */
+@Configuration
+@EnableConfigurationProperties({KafkaProperties.class, OutboxProperties.class})
+@Import({KafkaEventPublisher.class, KafkaSseBroadcaster.class, OutboxService.class, OutboxRelay.class})
+public class CommonConfiguration {
+}
@@ -3,6 +3,8 @@ package flights.domain;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import org.hibernate.annotations.Cache;
 import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
 
 import javax.persistence.*;
 import javax.validation.constraints.*;
@@ -14,6 +16,8 @@ import flights.domain.enumeration.EFlightType;
 
 import flights.domain.enumeration.EFareType;
 
+import flights.domain.enumeration.EFlightStatus;
+
 /**
  * A Flight.
  */
@@ -24,8 +28,21 @@ public class Flight implements Serializable {
 
     private static final long serialVersionUID = 1L;
 
+    /**
+     * Ids are handed out in blocks from the {@code id_generator} table (pooled-lo), so that inserts of
+     * many flights, e.g. by the bulk schedule import, can be grouped into JDBC batches.
+     */
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "flightIdGenerator")
+    @GenericGenerator(
+        name = "flightIdGenerator",
+        strategy = "org.hibernate.id.enhanced.TableGenerator",
+        parameters = {
+            @Parameter(name = "table_name", value = "id_generator"),
+            @Parameter(name = "segment_value", value = "flight"),
+            @Parameter(name = "increment_size", value = "50"),
+            @Parameter(name = "optimizer", value = "pooled-lo")
+        })
     private Long id;
 
     @NotNull
@@ -73,6 +90,21 @@ public class Flight implements Serializable {
     @JsonIgnoreProperties(value = "flights", allowSetters = true)
     private Airport destination;
 
+    /**
+     * Cancelling a flight only changes its status: its bookings still refer to it.
+     */
+    @NotNull
+    @Enumerated(EnumType.STRING)
+    @Column(name = "status", nullable = false)
+    private EFlightStatus status = EFlightStatus.SCHEDULED;
+
+    /**
+     * The schedule this flight was materialized from, if any.
+     */
+    @ManyToOne
+    @JsonIgnoreProperties(value = "flights", allowSetters = true)
+    private FlightSchedule schedule;
+
     // jhipster-needle-entity-add-field - JHipster will add fields here
     public Long getId() {
         return id;
@@ -224,6 +256,32 @@ public class Flight implements Serializable {
     public void setDestination(Airport airport) {
         this.destination = airport;
     }
+
+    public EFlightStatus getStatus() {
+        return status;
+    }
+
+    public Flight status(EFlightStatus status) {
+        this.status = status;
+        return this;
+    }
+
+    public void setStatus(EFlightStatus status) {
+        this.status = status;
+    }
+
+    public FlightSchedule getSchedule() {
+        return schedule;
+    }
+
+    public Flight schedule(FlightSchedule flightSchedule) {
+        this.schedule = flightSchedule;
+        return this;
+    }
+
+    public void setSchedule(FlightSchedule flightSchedule) {
+        this.schedule = flightSchedule;
+    }
     // jhipster-needle-entity-add-getters-setters - JHipster will add getters and setters here
 
     @Override
@@ -256,6 +314,7 @@ public class Flight implements Serializable {
             ", departureDate='" + getDepartureDate() + "'" +
             ", boardingGate=" + getBoardingGate() +
             ", airlineName='" + getAirlineName() + "'" +
+            ", status='" + getStatus() + "'" +
             "}";
     }
 }
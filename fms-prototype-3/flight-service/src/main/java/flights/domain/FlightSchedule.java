@@ -0,0 +1,355 @@
+package flights.domain;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+
+import javax.persistence.*;
+import javax.validation.constraints.*;
+
+import java.io.Serializable;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+
+import flights.domain.enumeration.EFlightType;
+
+import flights.domain.enumeration.EFareType;
+
+/**
+ * A FlightSchedule: a flight operated on the same days of every week during a validity period.
+ * <p>
+ * The dated {@link Flight}s of a schedule are not stored up front. They are derived with
+ * {@link #toFlight(LocalDate)} when flights are searched, and only persisted once they are
+ * booked or edited.
+ */
+@Entity
+@Table(name = "flight_schedule")
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
+public class FlightSchedule implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    public static final int ALL_DAYS_OF_WEEK = 0b1111111;
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @NotNull
+    @Column(name = "flight_number", nullable = false)
+    private String flightNumber;
+
+    /**
+     * Days of the week the flight operates on, bit 0 being Monday and bit 6 Sunday.
+     */
+    @NotNull
+    @Min(value = 1)
+    @Max(value = ALL_DAYS_OF_WEEK)
+    @Column(name = "days_of_week", nullable = false)
+    private Integer daysOfWeek;
+
+    @NotNull
+    @Column(name = "valid_from", nullable = false)
+    private LocalDate validFrom;
+
+    @NotNull
+    @Column(name = "valid_until", nullable = false)
+    private LocalDate validUntil;
+
+    @NotNull
+    @Enumerated(EnumType.STRING)
+    @Column(name = "flight_type", nullable = false)
+    private EFlightType flightType;
+
+    @NotNull
+    @Enumerated(EnumType.STRING)
+    @Column(name = "fare_type", nullable = false)
+    private EFareType fareType;
+
+    @Column(name = "pilot")
+    private String pilot;
+
+    @Column(name = "plane_model_number")
+    private String planeModelNumber;
+
+    @NotNull
+    @Column(name = "price", nullable = false)
+    private Double price;
+
+    @NotNull
+    @Column(name = "boarding_gate", nullable = false)
+    private Integer boardingGate;
+
+    @Column(name = "airline_name")
+    private String airlineName;
+
+    @ManyToOne(optional = false)
+    @NotNull
+    @JsonIgnoreProperties(value = "flightSchedules", allowSetters = true)
+    private Airport origin;
+
+    @ManyToOne(optional = false)
+    @NotNull
+    @JsonIgnoreProperties(value = "flightSchedules", allowSetters = true)
+    private Airport destination;
+
+    // jhipster-needle-entity-add-field - JHipster will add fields here
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getFlightNumber() {
+        return flightNumber;
+    }
+
+    public FlightSchedule flightNumber(String flightNumber) {
+        this.flightNumber = flightNumber;
+        return this;
+    }
+
+    public void setFlightNumber(String flightNumber) {
+        this.flightNumber = flightNumber;
+    }
+
+    public Integer getDaysOfWeek() {
+        return daysOfWeek;
+    }
+
+    public FlightSchedule daysOfWeek(Integer daysOfWeek) {
+        this.daysOfWeek = daysOfWeek;
+        return this;
+    }
+
+    public void setDaysOfWeek(Integer daysOfWeek) {
+        this.daysOfWeek = daysOfWeek;
+    }
+
+    public LocalDate getValidFrom() {
+        return validFrom;
+    }
+
+    public FlightSchedule validFrom(LocalDate validFrom) {
+        this.validFrom = validFrom;
+        return this;
+    }
+
+    public void setValidFrom(LocalDate validFrom) {
+        this.validFrom = validFrom;
+    }
+
+    public LocalDate getValidUntil() {
+        return validUntil;
+    }
+
+    public FlightSchedule validUntil(LocalDate validUntil) {
+        this.validUntil = validUntil;
+        return this;
+    }
+
+    public void setValidUntil(LocalDate validUntil) {
+        this.validUntil = validUntil;
+    }
+
+    public EFlightType getFlightType() {
+        return flightType;
+    }
+
+    public FlightSchedule flightType(EFlightType flightType) {
+        this.flightType = flightType;
+        return this;
+    }
+
+    public void setFlightType(EFlightType flightType) {
+        this.flightType = flightType;
+    }
+
+    public EFareType getFareType() {
+        return fareType;
+    }
+
+    public FlightSchedule fareType(EFareType fareType) {
+        this.fareType = fareType;
+        return this;
+    }
+
+    public void setFareType(EFareType fareType) {
+        this.fareType = fareType;
+    }
+
+    public String getPilot() {
+        return pilot;
+    }
+
+    public FlightSchedule pilot(String pilot) {
+        this.pilot = pilot;
+        return this;
+    }
+
+    public void setPilot(String pilot) {
+        this.pilot = pilot;
+    }
+
+    public String getPlaneModelNumber() {
+        return planeModelNumber;
+    }
+
+    public FlightSchedule planeModelNumber(String planeModelNumber) {
+        this.planeModelNumber = planeModelNumber;
+        return this;
+    }
+
+    public void setPlaneModelNumber(String planeModelNumber) {
+        this.planeModelNumber = planeModelNumber;
+    }
+
+    public Double getPrice() {
+        return price;
+    }
+
+    public FlightSchedule price(Double price) {
+        this.price = price;
+        return this;
+    }
+
+    public void setPrice(Double price) {
+        this.price = price;
+    }
+
+    public Integer getBoardingGate() {
+        return boardingGate;
+    }
+
+    public FlightSchedule boardingGate(Integer boardingGate) {
+        this.boardingGate = boardingGate;
+        return this;
+    }
+
+    public void setBoardingGate(Integer boardingGate) {
+        this.boardingGate = boardingGate;
+    }
+
+    public String getAirlineName() {
+        return airlineName;
+    }
+
+    public FlightSchedule airlineName(String airlineName) {
+        this.airlineName = airlineName;
+        return this;
+    }
+
+    public void setAirlineName(String airlineName) {
+        this.airlineName = airlineName;
+    }
+
+    public Airport getOrigin() {
+        return origin;
+    }
+
+    public FlightSchedule origin(Airport airport) {
+        this.origin = airport;
+        return this;
+    }
+
+    public void setOrigin(Airport airport) {
+        this.origin = airport;
+    }
+
+    public Airport getDestination() {
+        return destination;
+    }
+
+    public FlightSchedule destination(Airport airport) {
+        this.destination = airport;
+        return this;
+    }
+
+    public void setDestination(Airport airport) {
+        this.destination = airport;
+    }
+    // jhipster-needle-entity-add-getters-setters - JHipster will add getters and setters here
+
+    /**
+     * Builds a {@link #getDaysOfWeek() days of week} mask.
+     *
+     * @param days the days the flight operates on.
+     * @return the mask.
+     */
+    public static int daysOfWeekMask(DayOfWeek... days) {
+        int mask = 0;
+        for (DayOfWeek day : days) {
+            mask |= 1 << (day.getValue() - 1);
+        }
+        return mask;
+    }
+
+    /**
+     * @param date a departure date.
+     * @return whether the flight operates on the given date.
+     */
+    public boolean operatesOn(LocalDate date) {
+        return daysOfWeek != null && validFrom != null && validUntil != null
+            && !date.isBefore(validFrom) && !date.isAfter(validUntil)
+            && (daysOfWeek & (1 << (date.getDayOfWeek().getValue() - 1))) != 0;
+    }
+
+    /**
+     * Derives the dated flight of this schedule, without an id as long as it is not persisted.
+     *
+     * @param departureDate a date the schedule {@link #operatesOn(LocalDate) operates on}.
+     * @return the flight departing on the given date.
+     */
+    public Flight toFlight(LocalDate departureDate) {
+        return new Flight()
+            .flightNumber(flightNumber)
+            .flightType(flightType)
+            .fareType(fareType)
+            .pilot(pilot)
+            .planeModelNumber(planeModelNumber)
+            .price(price)
+            .departureDate(departureDate)
+            .boardingGate(boardingGate)
+            .airlineName(airlineName)
+            .origin(origin)
+            .destination(destination)
+            .schedule(this);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof FlightSchedule)) {
+            return false;
+        }
+        return id != null && id.equals(((FlightSchedule) o).id);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31;
+    }
+
+    // prettier-ignore
+    @Override
+    public String toString() {
+        return "FlightSchedule{" +
+            "id=" + getId() +
+            ", flightNumber='" + getFlightNumber() + "'" +
+            ", daysOfWeek=" + getDaysOfWeek() +
+            ", validFrom='" + getValidFrom() + "'" +
+            ", validUntil='" + getValidUntil() + "'" +
+            ", flightType='" + getFlightType() + "'" +
+            ", fareType='" + getFareType() + "'" +
+            ", pilot='" + getPilot() + "'" +
+            ", planeModelNumber='" + getPlaneModelNumber() + "'" +
+            ", price=" + getPrice() +
+            ", boardingGate=" + getBoardingGate() +
+            ", airlineName='" + getAirlineName() + "'" +
+            "}";
+    }
+}
@@ -0,0 +1,185 @@
+package flights.domain;
+
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+
+import javax.persistence.*;
+import javax.validation.constraints.*;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+
+import flights.domain.enumeration.EFareType;
+
+/**
+ * A RouteFare: the fare of a fare type on a route, for the flights departing within a date window.
+ * <p>
+ * When windows of the same route and fare type overlap, the fare starting last applies. Fares are
+ * quoted from the tables the {@link flights.service.FareEngine} precomputes from these rows.
+ */
+@Entity
+@Table(name = "route_fare")
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
+public class RouteFare implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @NotNull
+    @Column(name = "origin_id", nullable = false)
+    private Long originId;
+
+    @NotNull
+    @Column(name = "destination_id", nullable = false)
+    private Long destinationId;
+
+    @NotNull
+    @Enumerated(EnumType.STRING)
+    @Column(name = "fare_type", nullable = false)
+    private EFareType fareType;
+
+    @NotNull
+    @Column(name = "valid_from", nullable = false)
+    private LocalDate validFrom;
+
+    @Column(name = "valid_until")
+    private LocalDate validUntil;
+
+    @NotNull
+    @DecimalMin(value = "0")
+    @Column(name = "price", nullable = false)
+    private Double price;
+
+    // jhipster-needle-entity-add-field - JHipster will add fields here
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public Long getOriginId() {
+        return originId;
+    }
+
+    public RouteFare originId(Long originId) {
+        this.originId = originId;
+        return this;
+    }
+
+    public void setOriginId(Long originId) {
+        this.originId = originId;
+    }
+
+    public Long getDestinationId() {
+        return destinationId;
+    }
+
+    public RouteFare destinationId(Long destinationId) {
+        this.destinationId = destinationId;
+        return this;
+    }
+
+    public void setDestinationId(Long destinationId) {
+        this.destinationId = destinationId;
+    }
+
+    public EFareType getFareType() {
+        return fareType;
+    }
+
+    public RouteFare fareType(EFareType fareType) {
+        this.fareType = fareType;
+        return this;
+    }
+
+    public void setFareType(EFareType fareType) {
+        this.fareType = fareType;
+    }
+
+    public LocalDate getValidFrom() {
+        return validFrom;
+    }
+
+    public RouteFare validFrom(LocalDate validFrom) {
+        this.validFrom = validFrom;
+        return this;
+    }
+
+    public void setValidFrom(LocalDate validFrom) {
+        this.validFrom = validFrom;
+    }
+
+    public LocalDate getValidUntil() {
+        return validUntil;
+    }
+
+    public RouteFare validUntil(LocalDate validUntil) {
+        this.validUntil = validUntil;
+        return this;
+    }
+
+    public void setValidUntil(LocalDate validUntil) {
+        this.validUntil = validUntil;
+    }
+
+    public Double getPrice() {
+        return price;
+    }
+
+    public RouteFare price(Double price) {
+        this.price = price;
+        return this;
+    }
+
+    public void setPrice(Double price) {
+        this.price = price;
+    }
+
+    /**
+     * Changes the price: multiplies it by a factor, then adds an amount, rounding to the cent and never below zero.
+     *
+     * @param factor the factor.
+     * @param amount the amount, possibly negative.
+     * @return this fare.
+     */
+    public RouteFare adjust(double factor, double amount) {
+        this.price = Math.max(0, Math.round((price * factor + amount) * 100) / 100.0);
+        return this;
+    }
+    // jhipster-needle-entity-add-getters-setters - JHipster will add getters and setters here
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof RouteFare)) {
+            return false;
+        }
+        return id != null && id.equals(((RouteFare) o).id);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31;
+    }
+
+    // prettier-ignore
+    @Override
+    public String toString() {
+        return "RouteFare{" +
+            "id=" + getId() +
+            ", originId=" + getOriginId() +
+            ", destinationId=" + getDestinationId() +
+            ", fareType='" + getFareType() + "'" +
+            ", validFrom='" + getValidFrom() + "'" +
+            ", validUntil='" + getValidUntil() + "'" +
+            ", price=" + getPrice() +
+            "}";
+    }
+}
@@ -0,0 +1,119 @@
+package flights.domain;
+
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+
+import javax.persistence.*;
+import javax.validation.constraints.*;
+
+import java.io.Serializable;
+
+import flights.domain.enumeration.EFareType;
+
+/**
+ * A SeatInventory: the number of seats of a cabin of a flight.
+ * <p>
+ * Only the capacity is stored here. The seats held are counted by the
+ * {@link flights.service.SeatInventoryEngine} and recorded in the {@link SeatLedgerEntry seat ledger}.
+ */
+@Entity
+@Table(name = "seat_inventory")
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
+public class SeatInventory implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @NotNull
+    @Column(name = "flight_id", nullable = false)
+    private Long flightId;
+
+    @NotNull
+    @Enumerated(EnumType.STRING)
+    @Column(name = "cabin", nullable = false)
+    private EFareType cabin;
+
+    @NotNull
+    @Min(value = 0)
+    @Column(name = "capacity", nullable = false)
+    private Integer capacity;
+
+    // jhipster-needle-entity-add-field - JHipster will add fields here
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public Long getFlightId() {
+        return flightId;
+    }
+
+    public SeatInventory flightId(Long flightId) {
+        this.flightId = flightId;
+        return this;
+    }
+
+    public void setFlightId(Long flightId) {
+        this.flightId = flightId;
+    }
+
+    public EFareType getCabin() {
+        return cabin;
+    }
+
+    public SeatInventory cabin(EFareType cabin) {
+        this.cabin = cabin;
+        return this;
+    }
+
+    public void setCabin(EFareType cabin) {
+        this.cabin = cabin;
+    }
+
+    public Integer getCapacity() {
+        return capacity;
+    }
+
+    public SeatInventory capacity(Integer capacity) {
+        this.capacity = capacity;
+        return this;
+    }
+
+    public void setCapacity(Integer capacity) {
+        this.capacity = capacity;
+    }
+    // jhipster-needle-entity-add-getters-setters - JHipster will add getters and setters here
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof SeatInventory)) {
+            return false;
+        }
+        return id != null && id.equals(((SeatInventory) o).id);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31;
+    }
+
+    // prettier-ignore
+    @Override
+    public String toString() {
+        return "SeatInventory{" +
+            "id=" + getId() +
+            ", flightId=" + getFlightId() +
+            ", cabin='" + getCabin() + "'" +
+            ", capacity=" + getCapacity() +
+            "}";
+    }
+}
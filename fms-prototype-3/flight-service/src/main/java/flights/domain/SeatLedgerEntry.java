@@ -0,0 +1,172 @@
+package flights.domain;
+
+import javax.persistence.*;
+import javax.validation.constraints.*;
+
+import java.io.Serializable;
+import java.time.Instant;
+
+import flights.domain.enumeration.EFareType;
+
+import flights.domain.enumeration.ESeatLedgerEntryType;
+
+/**
+ * A SeatLedgerEntry: a seat hold or its release.
+ * <p>
+ * The ledger is append-only, so recording a hold never updates a shared row. The seats held on
+ * a cabin are the sum of the {@link #getSeats() seats} of its entries, releases being negative.
+ */
+@Entity
+@Table(name = "seat_ledger")
+public class SeatLedgerEntry implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @NotNull
+    @Column(name = "flight_id", nullable = false)
+    private Long flightId;
+
+    @NotNull
+    @Enumerated(EnumType.STRING)
+    @Column(name = "cabin", nullable = false)
+    private EFareType cabin;
+
+    @NotNull
+    @Column(name = "hold_id", nullable = false)
+    private String holdId;
+
+    @NotNull
+    @Enumerated(EnumType.STRING)
+    @Column(name = "entry_type", nullable = false)
+    private ESeatLedgerEntryType entryType;
+
+    @NotNull
+    @Column(name = "seats", nullable = false)
+    private Integer seats;
+
+    @NotNull
+    @Column(name = "created_at", nullable = false)
+    private Instant createdAt;
+
+    // jhipster-needle-entity-add-field - JHipster will add fields here
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public Long getFlightId() {
+        return flightId;
+    }
+
+    public SeatLedgerEntry flightId(Long flightId) {
+        this.flightId = flightId;
+        return this;
+    }
+
+    public void setFlightId(Long flightId) {
+        this.flightId = flightId;
+    }
+
+    public EFareType getCabin() {
+        return cabin;
+    }
+
+    public SeatLedgerEntry cabin(EFareType cabin) {
+        this.cabin = cabin;
+        return this;
+    }
+
+    public void setCabin(EFareType cabin) {
+        this.cabin = cabin;
+    }
+
+    public String getHoldId() {
+        return holdId;
+    }
+
+    public SeatLedgerEntry holdId(String holdId) {
+        this.holdId = holdId;
+        return this;
+    }
+
+    public void setHoldId(String holdId) {
+        this.holdId = holdId;
+    }
+
+    public ESeatLedgerEntryType getEntryType() {
+        return entryType;
+    }
+
+    public SeatLedgerEntry entryType(ESeatLedgerEntryType entryType) {
+        this.entryType = entryType;
+        return this;
+    }
+
+    public void setEntryType(ESeatLedgerEntryType entryType) {
+        this.entryType = entryType;
+    }
+
+    public Integer getSeats() {
+        return seats;
+    }
+
+    public SeatLedgerEntry seats(Integer seats) {
+        this.seats = seats;
+        return this;
+    }
+
+    public void setSeats(Integer seats) {
+        this.seats = seats;
+    }
+
+    public Instant getCreatedAt() {
+        return createdAt;
+    }
+
+    public SeatLedgerEntry createdAt(Instant createdAt) {
+        this.createdAt = createdAt;
+        return this;
+    }
+
+    public void setCreatedAt(Instant createdAt) {
+        this.createdAt = createdAt;
+    }
+    // jhipster-needle-entity-add-getters-setters - JHipster will add getters and setters here
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof SeatLedgerEntry)) {
+            return false;
+        }
+        return id != null && id.equals(((SeatLedgerEntry) o).id);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31;
+    }
+
+    // prettier-ignore
+    @Override
+    public String toString() {
+        return "SeatLedgerEntry{" +
+            "id=" + getId() +
+            ", flightId=" + getFlightId() +
+            ", cabin='" + getCabin() + "'" +
+            ", holdId='" + getHoldId() + "'" +
+            ", entryType='" + getEntryType() + "'" +
+            ", seats=" + getSeats() +
+            ", createdAt='" + getCreatedAt() + "'" +
+            "}";
+    }
+}
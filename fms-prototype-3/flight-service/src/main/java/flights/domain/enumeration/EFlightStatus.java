@@ -0,0 +1,8 @@
+package flights.domain.enumeration;
+
+/**
+ * The EFlightStatus enumeration.
+ */
+public enum EFlightStatus {
+    SCHEDULED, CANCELLED
+}
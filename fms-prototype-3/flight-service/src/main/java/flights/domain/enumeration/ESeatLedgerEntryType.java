@@ -0,0 +1,8 @@
+package flights.domain.enumeration;
+
+/**
+ * The ESeatLedgerEntryType enumeration.
+ */
+public enum ESeatLedgerEntryType {
+    HOLD, RELEASE
+}
@@ -3,12 +3,30 @@ package flights.repository;
 import flights.domain.Flight;
 
 import org.springframework.data.jpa.repository.*;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+
 /**
  * Spring Data  repository for the Flight entity.
  */
 @SuppressWarnings("unused")
 @Repository
 public interface FlightRepository extends JpaRepository<Flight, Long> {
+
+    Optional<Flight> findOneByScheduleIdAndDepartureDate(Long scheduleId, LocalDate departureDate);
+
+    @Query("select flight from Flight flight " +
+        "where flight.departureDate between :from and :until " +
+        "and (:originId is null or flight.origin.id = :originId) " +
+        "and (:destinationId is null or flight.destination.id = :destinationId)")
+    List<Flight> findAllDepartingBetween(@Param("originId") Long originId, @Param("destinationId") Long destinationId,
+                                         @Param("from") LocalDate from, @Param("until") LocalDate until);
+
+    @Modifying
+    @Query("update Flight flight set flight.schedule = null where flight.schedule.id = :scheduleId")
+    int detachFromSchedule(@Param("scheduleId") Long scheduleId);
 }
@@ -0,0 +1,25 @@
+package flights.repository;
+
+import flights.domain.FlightSchedule;
+
+import org.springframework.data.jpa.repository.*;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Spring Data  repository for the FlightSchedule entity.
+ */
+@SuppressWarnings("unused")
+@Repository
+public interface FlightScheduleRepository extends JpaRepository<FlightSchedule, Long> {
+
+    @Query("select flightSchedule from FlightSchedule flightSchedule " +
+        "where flightSchedule.validFrom <= :until and flightSchedule.validUntil >= :from " +
+        "and (:originId is null or flightSchedule.origin.id = :originId) " +
+        "and (:destinationId is null or flightSchedule.destination.id = :destinationId)")
+    List<FlightSchedule> findAllValidBetween(@Param("originId") Long originId, @Param("destinationId") Long destinationId,
+                                             @Param("from") LocalDate from, @Param("until") LocalDate until);
+}
@@ -0,0 +1,33 @@
+package flights.repository;
+
+import flights.domain.RouteFare;
+
+import flights.domain.enumeration.EFareType;
+import org.springframework.data.jpa.repository.*;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Spring Data  repository for the RouteFare entity.
+ */
+@SuppressWarnings("unused")
+@Repository
+public interface RouteFareRepository extends JpaRepository<RouteFare, Long> {
+
+    List<RouteFare> findAllByOriginIdAndDestinationId(Long originId, Long destinationId);
+
+    /**
+     * May return the fares of more routes than asked for: the origins and destinations are matched independently.
+     */
+    List<RouteFare> findAllByOriginIdInAndDestinationIdIn(Collection<Long> originIds, Collection<Long> destinationIds);
+
+    @Query("select routeFare from RouteFare routeFare where " +
+        "(:originId is null or routeFare.originId = :originId) and " +
+        "(:destinationId is null or routeFare.destinationId = :destinationId) and " +
+        "(:fareType is null or routeFare.fareType = :fareType)")
+    List<RouteFare> findAllMatching(@Param("originId") Long originId, @Param("destinationId") Long destinationId,
+                                    @Param("fareType") EFareType fareType);
+}
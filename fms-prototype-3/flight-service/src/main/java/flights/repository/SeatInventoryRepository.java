@@ -0,0 +1,22 @@
+package flights.repository;
+
+import flights.domain.SeatInventory;
+
+import flights.domain.enumeration.EFareType;
+import org.springframework.data.jpa.repository.*;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Spring Data  repository for the SeatInventory entity.
+ */
+@SuppressWarnings("unused")
+@Repository
+public interface SeatInventoryRepository extends JpaRepository<SeatInventory, Long> {
+
+    Optional<SeatInventory> findOneByFlightIdAndCabin(Long flightId, EFareType cabin);
+
+    List<SeatInventory> findAllByFlightId(Long flightId);
+}
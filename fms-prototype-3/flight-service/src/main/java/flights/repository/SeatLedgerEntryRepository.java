@@ -0,0 +1,25 @@
+package flights.repository;
+
+import flights.domain.SeatLedgerEntry;
+
+import flights.domain.enumeration.EFareType;
+import flights.domain.enumeration.ESeatLedgerEntryType;
+import org.springframework.data.jpa.repository.*;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+/**
+ * Spring Data  repository for the SeatLedgerEntry entity.
+ */
+@SuppressWarnings("unused")
+@Repository
+public interface SeatLedgerEntryRepository extends JpaRepository<SeatLedgerEntry, Long> {
+
+    @Query("select coalesce(sum(seatLedgerEntry.seats), 0) from SeatLedgerEntry seatLedgerEntry " +
+        "where seatLedgerEntry.flightId = :flightId and seatLedgerEntry.cabin = :cabin")
+    long sumSeats(@Param("flightId") Long flightId, @Param("cabin") EFareType cabin);
+
+    Optional<SeatLedgerEntry> findOneByHoldIdAndEntryType(String holdId, ESeatLedgerEntryType entryType);
+}
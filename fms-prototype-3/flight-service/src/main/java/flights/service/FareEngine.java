@@ -0,0 +1,306 @@
+package flights.service;
+
+import com.hazelcast.core.HazelcastInstance;
+import com.hazelcast.core.ITopic;
+import flights.config.ApplicationProperties;
+import flights.domain.Flight;
+import flights.domain.RouteFare;
+import flights.domain.enumeration.EFareType;
+import flights.repository.RouteFareRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.annotation.PreDestroy;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.OptionalDouble;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Quotes fares from tables precomputed per route, fare type and departure day.
+ * <p>
+ * Each route has an immutable {@link FareTable}, built from its {@link RouteFare fare rules} and
+ * replaced as a whole when they change, so quotes take no lock and read a single array element.
+ * Tables are built in parallel on a fork-join pool: all of them on startup and every day as the
+ * horizon moves, and the ones of the changed routes after a fare change. When distributed, the
+ * changed routes are published on a Hazelcast topic so every instance recomputes them. Recomputations
+ * are serialized, so an older table never replaces a newer one.
+ * <p>
+ * Flights of routes without fares keep the price they were created with.
+ */
+@Service
+public class FareEngine {
+
+    private final Logger log = LoggerFactory.getLogger(FareEngine.class);
+
+    public static final String FARE_CHANGES_TOPIC = "fare-changes";
+
+    private final ConcurrentMap<Route, FareTable> tables = new ConcurrentHashMap<>();
+    private final RouteFareRepository routeFareRepository;
+    private final int horizonDays;
+    private final int routesPerTask;
+    private final ForkJoinPool pool = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+    private final ITopic<long[]> fareChanges;
+
+    @Autowired
+    public FareEngine(ApplicationProperties applicationProperties, HazelcastInstance hazelcastInstance,
+                      RouteFareRepository routeFareRepository) {
+        this(routeFareRepository, applicationProperties.getFareEngine().getHorizonDays(),
+            applicationProperties.getFareEngine().getRoutesPerTask(),
+            applicationProperties.getFareEngine().isDistributed() ? hazelcastInstance.<long[]>getTopic(FARE_CHANGES_TOPIC) : null);
+    }
+
+    FareEngine(RouteFareRepository routeFareRepository, int horizonDays, int routesPerTask, ITopic<long[]> fareChanges) {
+        this.routeFareRepository = routeFareRepository;
+        this.horizonDays = horizonDays;
+        this.routesPerTask = routesPerTask;
+        this.fareChanges = fareChanges;
+        if (fareChanges != null) {
+            fareChanges.addMessageListener(message -> {
+                if (!message.getPublishingMember().localMember()) {
+                    pool.execute(() -> recompute(Route.decode(message.getMessageObject())));
+                }
+            });
+        }
+    }
+
+    /**
+     * Builds the fare tables of all routes, on startup and when the horizon moves.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(cron = "0 0 0 * * ?", zone = "UTC")
+    public synchronized void recomputeAll() {
+        Map<Route, List<RouteFare>> rules = groupByRoute(routeFareRepository.findAll());
+        build(rules, today());
+        tables.keySet().retainAll(rules.keySet());
+        log.info("Computed the fare tables of {} routes", rules.size());
+    }
+
+    /**
+     * Recomputes the fare tables of routes from their current fare rules.
+     *
+     * @param routes the routes.
+     */
+    public synchronized void recompute(Collection<Route> routes) {
+        if (routes.isEmpty()) {
+            return;
+        }
+        Set<Long> originIds = new HashSet<>();
+        Set<Long> destinationIds = new HashSet<>();
+        for (Route route : routes) {
+            originIds.add(route.originId);
+            destinationIds.add(route.destinationId);
+        }
+        Map<Route, List<RouteFare>> rules = groupByRoute(routeFareRepository.findAllByOriginIdInAndDestinationIdIn(originIds, destinationIds));
+        rules.keySet().retainAll(routes);
+        for (Route route : routes) {
+            if (!rules.containsKey(route)) {
+                tables.remove(route);
+            }
+        }
+        build(rules, today());
+        log.debug("Recomputed the fare tables of {} routes", routes.size());
+    }
+
+    /**
+     * Recomputes the fare tables of routes whose fare rules changed, on every instance, once the
+     * current transaction, if any, commits.
+     *
+     * @param routes the changed routes.
+     */
+    public void routesChanged(Collection<Route> routes) {
+        List<Route> changed = new ArrayList<>(routes);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    publish(changed);
+                }
+            });
+        } else {
+            publish(changed);
+        }
+    }
+
+    private void publish(List<Route> routes) {
+        recompute(routes);
+        if (fareChanges != null && !routes.isEmpty()) {
+            fareChanges.publish(Route.encode(routes));
+        }
+    }
+
+    /**
+     * @param originId the id of the origin airport.
+     * @param destinationId the id of the destination airport.
+     * @param fareType the fare type.
+     * @param departureDate the departure date.
+     * @return the fare, or empty if the route has none for that fare type and date.
+     */
+    public OptionalDouble quote(Long originId, Long destinationId, EFareType fareType, LocalDate departureDate) {
+        if (originId == null || destinationId == null || fareType == null || departureDate == null) {
+            return OptionalDouble.empty();
+        }
+        FareTable table = tables.get(new Route(originId, destinationId));
+        if (table == null) {
+            return OptionalDouble.empty();
+        }
+        double fare = table.quote(fareType, departureDate.toEpochDay());
+        return Double.isNaN(fare) ? OptionalDouble.empty() : OptionalDouble.of(fare);
+    }
+
+    /**
+     * @param flight the flight.
+     * @param fareType the fare type.
+     * @return the fare of the flight's route, or the flight's own price if the route has none.
+     */
+    public Double price(Flight flight, EFareType fareType) {
+        OptionalDouble fare = quote(flight.getOrigin() == null ? null : flight.getOrigin().getId(),
+            flight.getDestination() == null ? null : flight.getDestination().getId(), fareType, flight.getDepartureDate());
+        return fare.isPresent() ? fare.getAsDouble() : flight.getPrice();
+    }
+
+    /**
+     * Sets the price of flights to the fare of their route and fare type.
+     *
+     * @param flights the flights, which must not be saved afterwards.
+     * @return the flights.
+     */
+    public List<Flight> price(List<Flight> flights) {
+        for (Flight flight : flights) {
+            flight.setPrice(price(flight, flight.getFareType()));
+        }
+        return flights;
+    }
+
+    private void build(Map<Route, List<RouteFare>> rules, long firstDay) {
+        List<Map.Entry<Route, List<RouteFare>>> entries = new ArrayList<>(rules.entrySet());
+        pool.invoke(new BuildTask(entries, 0, entries.size(), firstDay));
+    }
+
+    private static Map<Route, List<RouteFare>> groupByRoute(List<RouteFare> fares) {
+        Map<Route, List<RouteFare>> rules = new HashMap<>();
+        for (RouteFare fare : fares) {
+            rules.computeIfAbsent(Route.of(fare), route -> new ArrayList<>()).add(fare);
+        }
+        return rules;
+    }
+
+    private static long today() {
+        return LocalDate.now(ZoneOffset.UTC).toEpochDay();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        pool.shutdown();
+    }
+
+    private final class BuildTask extends RecursiveAction {
+
+        private final List<Map.Entry<Route, List<RouteFare>>> entries;
+        private final int from;
+        private final int to;
+        private final long firstDay;
+
+        private BuildTask(List<Map.Entry<Route, List<RouteFare>>> entries, int from, int to, long firstDay) {
+            this.entries = entries;
+            this.from = from;
+            this.to = to;
+            this.firstDay = firstDay;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= routesPerTask) {
+                for (int i = from; i < to; i++) {
+                    Map.Entry<Route, List<RouteFare>> entry = entries.get(i);
+                    tables.put(entry.getKey(), FareTable.build(entry.getValue(), firstDay, horizonDays));
+                }
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            invokeAll(new BuildTask(entries, from, middle, firstDay), new BuildTask(entries, middle, to, firstDay));
+        }
+    }
+
+    /**
+     * A route, from an origin airport to a destination airport.
+     */
+    public static final class Route {
+
+        private final long originId;
+        private final long destinationId;
+
+        public Route(long originId, long destinationId) {
+            this.originId = originId;
+            this.destinationId = destinationId;
+        }
+
+        public static Route of(RouteFare fare) {
+            return new Route(fare.getOriginId(), fare.getDestinationId());
+        }
+
+        private static long[] encode(List<Route> routes) {
+            long[] ids = new long[routes.size() * 2];
+            for (int i = 0; i < routes.size(); i++) {
+                ids[2 * i] = routes.get(i).originId;
+                ids[2 * i + 1] = routes.get(i).destinationId;
+            }
+            return ids;
+        }
+
+        private static List<Route> decode(long[] ids) {
+            List<Route> routes = new ArrayList<>(ids.length / 2);
+            for (int i = 0; i + 1 < ids.length; i += 2) {
+                routes.add(new Route(ids[i], ids[i + 1]));
+            }
+            return routes;
+        }
+
+        public long getOriginId() {
+            return originId;
+        }
+
+        public long getDestinationId() {
+            return destinationId;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Route)) {
+                return false;
+            }
+            Route route = (Route) o;
+            return originId == route.originId && destinationId == route.destinationId;
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * Long.hashCode(originId) + Long.hashCode(destinationId);
+        }
+
+        @Override
+        public String toString() {
+            return originId + "->" + destinationId;
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package flights.service;
+
+import flights.domain.RouteFare;
+import flights.domain.enumeration.EFareType;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * The fares of one route, precomputed per fare type and departure day. Immutable.
+ * <p>
+ * Within the horizon, a fare is a single array read. Departures outside it are priced from the
+ * route's fare rules, kept as parallel primitive arrays.
+ */
+final class FareTable {
+
+    private static final EFareType[] FARE_TYPES = EFareType.values();
+
+    private static final Comparator<RouteFare> APPLICATION_ORDER = Comparator
+        .comparing(RouteFare::getValidFrom)
+        .thenComparing(RouteFare::getId, Comparator.nullsLast(Comparator.naturalOrder()));
+
+    private final long firstDay;
+    private final int days;
+    /** Indexed by fare type, then by day; {@code NaN} when the route has no fare. */
+    private final double[] fares;
+
+    /** The rules in the order they apply in, later ones overriding earlier ones. */
+    private final long[] ruleFromDays;
+    private final long[] ruleUntilDays;
+    private final int[] ruleFareTypes;
+    private final double[] rulePrices;
+
+    private FareTable(long firstDay, int days, double[] fares, long[] ruleFromDays, long[] ruleUntilDays,
+                      int[] ruleFareTypes, double[] rulePrices) {
+        this.firstDay = firstDay;
+        this.days = days;
+        this.fares = fares;
+        this.ruleFromDays = ruleFromDays;
+        this.ruleUntilDays = ruleUntilDays;
+        this.ruleFareTypes = ruleFareTypes;
+        this.rulePrices = rulePrices;
+    }
+
+    /**
+     * @param rules the fare rules of the route.
+     * @param firstDay the epoch day of the first day of the horizon.
+     * @param days the number of days of the horizon.
+     * @return the fare table of the route.
+     */
+    static FareTable build(List<RouteFare> rules, long firstDay, int days) {
+        List<RouteFare> sorted = new ArrayList<>(rules);
+        sorted.sort(APPLICATION_ORDER);
+
+        int count = sorted.size();
+        long[] ruleFromDays = new long[count];
+        long[] ruleUntilDays = new long[count];
+        int[] ruleFareTypes = new int[count];
+        double[] rulePrices = new double[count];
+        double[] fares = new double[FARE_TYPES.length * days];
+        Arrays.fill(fares, Double.NaN);
+
+        long lastDay = firstDay + days - 1;
+        for (int i = 0; i < count; i++) {
+            RouteFare rule = sorted.get(i);
+            ruleFromDays[i] = rule.getValidFrom().toEpochDay();
+            ruleUntilDays[i] = rule.getValidUntil() == null ? Long.MAX_VALUE : rule.getValidUntil().toEpochDay();
+            ruleFareTypes[i] = rule.getFareType().ordinal();
+            rulePrices[i] = rule.getPrice();
+
+            long from = Math.max(ruleFromDays[i], firstDay);
+            long until = Math.min(ruleUntilDays[i], lastDay);
+            if (from <= until) {
+                int offset = ruleFareTypes[i] * days;
+                Arrays.fill(fares, offset + (int) (from - firstDay), offset + (int) (until - firstDay) + 1, rulePrices[i]);
+            }
+        }
+        return new FareTable(firstDay, days, fares, ruleFromDays, ruleUntilDays, ruleFareTypes, rulePrices);
+    }
+
+    /**
+     * @param fareType the fare type.
+     * @param epochDay the epoch day of the departure.
+     * @return the fare, or {@code NaN} if the route has none for that fare type and day.
+     */
+    double quote(EFareType fareType, long epochDay) {
+        long day = epochDay - firstDay;
+        if (day >= 0 && day < days) {
+            return fares[fareType.ordinal() * days + (int) day];
+        }
+        for (int i = rulePrices.length - 1; i >= 0; i--) {
+            if (ruleFareTypes[i] == fareType.ordinal() && ruleFromDays[i] <= epochDay && epochDay <= ruleUntilDays[i]) {
+                return rulePrices[i];
+            }
+        }
+        return Double.NaN;
+    }
+
+    long getFirstDay() {
+        return firstDay;
+    }
+}
@@ -0,0 +1,116 @@
+package flights.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import flights.domain.Airport;
+import flights.domain.Flight;
+import flights.domain.enumeration.EFareType;
+import flights.domain.enumeration.EFlightType;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Turns the lines of a flight schedule file into {@link Flight} entities.
+ * <p>
+ * CSV files use the layout of the Liquibase fake data: a header line naming the columns
+ * ({@code flight_number;flight_type;...;origin_id;destination_id}) separated by {@code ;}.
+ * NDJSON files carry one flight per line, in the same JSON format as {@code POST /api/flights}.
+ * Once the header is read a parser holds no mutable state, so lines can be parsed in parallel.
+ */
+public class FlightImportParser {
+
+    public static final String CSV_SEPARATOR = ";";
+
+    private final FlightImportJob.Format format;
+    private final ObjectReader flightReader;
+    private Map<String, Integer> columns;
+
+    public FlightImportParser(FlightImportJob.Format format, ObjectMapper objectMapper) {
+        this.format = format;
+        this.flightReader = objectMapper.readerFor(Flight.class);
+    }
+
+    public boolean expectsHeader() {
+        return format == FlightImportJob.Format.CSV && columns == null;
+    }
+
+    public void readHeader(String line) {
+        Map<String, Integer> header = new HashMap<>();
+        String[] names = line.split(CSV_SEPARATOR, -1);
+        for (int i = 0; i < names.length; i++) {
+            header.put(names[i].trim().toLowerCase(), i);
+        }
+        this.columns = header;
+    }
+
+    /**
+     * Parses a single line.
+     *
+     * @param line the raw line.
+     * @return the flight described by the line, not yet validated.
+     * @throws IllegalArgumentException if the line cannot be read as a flight.
+     */
+    public Flight parse(String line) {
+        if (format == FlightImportJob.Format.NDJSON) {
+            try {
+                return flightReader.readValue(line);
+            } catch (JsonProcessingException e) {
+                throw new IllegalArgumentException("Malformed JSON: " + e.getOriginalMessage());
+            }
+        }
+        if (columns == null) {
+            throw new IllegalStateException("The CSV header has not been read");
+        }
+        String[] values = line.split(CSV_SEPARATOR, -1);
+        try {
+            return new Flight()
+                .flightNumber(text(values, "flight_number"))
+                .flightType(enumValue(EFlightType.class, text(values, "flight_type")))
+                .fareType(enumValue(EFareType.class, text(values, "fare_type")))
+                .pilot(text(values, "pilot"))
+                .planeModelNumber(text(values, "plane_model_number"))
+                .price(text(values, "price") == null ? null : Double.valueOf(text(values, "price")))
+                .departureDate(text(values, "departure_date") == null ? null : LocalDate.parse(text(values, "departure_date")))
+                .boardingGate(text(values, "boarding_gate") == null ? null : Integer.valueOf(text(values, "boarding_gate")))
+                .airlineName(text(values, "airline_name"))
+                .origin(airport(values, "origin_id"))
+                .destination(airport(values, "destination_id"));
+        } catch (NumberFormatException | DateTimeParseException e) {
+            throw new IllegalArgumentException("Malformed value: " + e.getMessage());
+        }
+    }
+
+    private String text(String[] values, String column) {
+        Integer index = columns.get(column);
+        if (index == null || index >= values.length) {
+            return null;
+        }
+        String value = values[index].trim();
+        return value.isEmpty() ? null : value;
+    }
+
+    private Airport airport(String[] values, String column) {
+        String id = text(values, column);
+        if (id == null) {
+            return null;
+        }
+        Airport airport = new Airport();
+        airport.setId(Long.valueOf(id));
+        return airport;
+    }
+
+    private static <E extends Enum<E>> E enumValue(Class<E> type, String value) {
+        if (value == null) {
+            return null;
+        }
+        try {
+            return Enum.valueOf(type, value.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unknown " + type.getSimpleName() + " '" + value + "'");
+        }
+    }
+}
@@ -0,0 +1,253 @@
+package flights.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import flights.config.ApplicationProperties;
+import flights.domain.Airport;
+import flights.domain.Flight;
+import flights.domain.enumeration.ETopicType;
+import flights.repository.AirportRepository;
+import org.hibernate.CacheMode;
+import org.hibernate.Session;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import javax.validation.ConstraintViolation;
+import javax.validation.Validator;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Imports flight schedules of hundreds of thousands of rows.
+ * <p>
+ * The uploaded file is spooled to disk and processed in the background, chunk by chunk: the rows
+ * of a chunk are parsed and validated in parallel, the valid ones are inserted in one transaction
+ * using JDBC batching, and their {@code flight_set} events are sent as one batch. Invalid rows are
+ * reported per line and never abort the rest of the file.
+ */
+@Service
+public class FlightImportService {
+
+    private final Logger log = LoggerFactory.getLogger(FlightImportService.class);
+
+    private static final Duration FINISHED_JOB_RETENTION = Duration.ofDays(1);
+
+    private final ConcurrentMap<String, FlightImportJob> jobs = new ConcurrentHashMap<>();
+
+    private final ApplicationProperties.FlightImport properties;
+    private final ObjectMapper objectMapper;
+    private final Validator validator;
+    private final AirportRepository airportRepository;
+    private final EntityManager entityManager;
+    private final TransactionTemplate transactionTemplate;
+    private final FlightKafkaProducer flightKafkaProducer;
+    private final Executor taskExecutor;
+
+    public FlightImportService(ApplicationProperties applicationProperties, ObjectMapper objectMapper, Validator validator,
+                               AirportRepository airportRepository, EntityManager entityManager,
+                               PlatformTransactionManager transactionManager, FlightKafkaProducer flightKafkaProducer,
+                               @Qualifier("taskExecutor") Executor taskExecutor) {
+        this.properties = applicationProperties.getFlightImport();
+        this.objectMapper = objectMapper;
+        this.validator = validator;
+        this.airportRepository = airportRepository;
+        this.entityManager = entityManager;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.flightKafkaProducer = flightKafkaProducer;
+        this.taskExecutor = taskExecutor;
+    }
+
+    /**
+     * Spools the schedule to a temporary file and starts importing it in the background.
+     *
+     * @param schedule the schedule file content.
+     * @param format the format of the schedule.
+     * @return the job tracking the import.
+     * @throws IOException if the schedule cannot be spooled.
+     */
+    public FlightImportJob submit(InputStream schedule, FlightImportJob.Format format) throws IOException {
+        Path spool = Files.createTempFile("flight-import-", format.getFileExtension());
+        Files.copy(schedule, spool, StandardCopyOption.REPLACE_EXISTING);
+
+        Instant expiry = Instant.now().minus(FINISHED_JOB_RETENTION);
+        jobs.values().removeIf(finished -> finished.getFinishedAt() != null && finished.getFinishedAt().isBefore(expiry));
+
+        FlightImportJob job = new FlightImportJob(UUID.randomUUID().toString(), format, properties.getMaxReportedErrors());
+        jobs.put(job.getId(), job);
+        taskExecutor.execute(() -> run(job, spool));
+        return job;
+    }
+
+    public Optional<FlightImportJob> findJob(String id) {
+        return Optional.ofNullable(jobs.get(id));
+    }
+
+    private void run(FlightImportJob job, Path spool) {
+        log.debug("Starting flight import {}", job.getId());
+        job.start();
+        try (BufferedReader reader = Files.newBufferedReader(spool, StandardCharsets.UTF_8)) {
+            FlightImportParser parser = new FlightImportParser(job.getFormat(), objectMapper);
+            Map<Long, Airport> airports = airportRepository.findAll().stream()
+                .collect(Collectors.toMap(Airport::getId, Function.identity()));
+
+            List<Row> chunk = new ArrayList<>(properties.getChunkSize());
+            long lineNumber = 0;
+            String line;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                if (line.trim().isEmpty()) {
+                    continue;
+                }
+                if (parser.expectsHeader()) {
+                    parser.readHeader(line);
+                    continue;
+                }
+                chunk.add(new Row(lineNumber, line));
+                if (chunk.size() == properties.getChunkSize()) {
+                    importChunk(job, parser, airports, chunk);
+                    chunk = new ArrayList<>(properties.getChunkSize());
+                }
+            }
+            if (!chunk.isEmpty()) {
+                importChunk(job, parser, airports, chunk);
+            }
+            job.complete();
+            log.debug("Flight import {} completed: {} imported, {} rejected", job.getId(), job.getRowsImported(), job.getRowsRejected());
+        } catch (Exception e) {
+            log.error("Flight import {} failed", job.getId(), e);
+            job.fail(e.getMessage());
+        } finally {
+            try {
+                Files.deleteIfExists(spool);
+            } catch (IOException e) {
+                log.warn("Could not delete flight import spool file {}", spool, e);
+            }
+        }
+    }
+
+    private void importChunk(FlightImportJob job, FlightImportParser parser, Map<Long, Airport> airports, List<Row> rows) {
+        rows.parallelStream().forEach(row -> validate(row, parser, airports));
+        job.rowsRead(rows.size());
+
+        List<Flight> flights = new ArrayList<>(rows.size());
+        for (Row row : rows) {
+            if (row.error != null) {
+                job.reject(row.line, row.error);
+            } else {
+                flights.add(row.flight);
+            }
+        }
+        if (flights.isEmpty()) {
+            return;
+        }
+
+        try {
+            transactionTemplate.execute(status -> {
+                persist(flights);
+                flightKafkaProducer.sendFlightEvents(flights, ETopicType.SET);
+                return flights;
+            });
+        } catch (RuntimeException e) {
+            log.warn("Flight import {} could not store a chunk of {} rows", job.getId(), flights.size(), e);
+            for (Row row : rows) {
+                if (row.error == null) {
+                    job.reject(row.line, "Not stored: " + e.getMessage());
+                }
+            }
+            return;
+        }
+        job.rowsImported(flights.size());
+    }
+
+    private List<Flight> persist(List<Flight> flights) {
+        Session session = entityManager.unwrap(Session.class);
+        session.setJdbcBatchSize(properties.getJdbcBatchSize());
+        session.setCacheMode(CacheMode.IGNORE);
+        for (Flight flight : flights) {
+            entityManager.persist(flight);
+        }
+        entityManager.flush();
+        entityManager.clear();
+        return flights;
+    }
+
+    private void validate(Row row, FlightImportParser parser, Map<Long, Airport> airports) {
+        Flight flight;
+        try {
+            flight = parser.parse(row.raw);
+        } catch (IllegalArgumentException e) {
+            row.error = e.getMessage();
+            return;
+        }
+        if (flight.getId() != null) {
+            row.error = "A new flight cannot already have an ID";
+            return;
+        }
+        if (isUnknown(flight.getOrigin(), airports)) {
+            row.error = "Unknown origin airport " + flight.getOrigin().getId();
+            return;
+        }
+        if (isUnknown(flight.getDestination(), airports)) {
+            row.error = "Unknown destination airport " + flight.getDestination().getId();
+            return;
+        }
+        flight.setOrigin(resolve(flight.getOrigin(), airports));
+        flight.setDestination(resolve(flight.getDestination(), airports));
+
+        Set<ConstraintViolation<Flight>> violations = validator.validate(flight);
+        if (!violations.isEmpty()) {
+            row.error = violations.stream()
+                .map(violation -> violation.getPropertyPath() + " " + violation.getMessage())
+                .sorted()
+                .collect(Collectors.joining(", "));
+            return;
+        }
+        row.flight = flight;
+    }
+
+    private static boolean isUnknown(Airport reference, Map<Long, Airport> airports) {
+        return reference != null && reference.getId() != null && !airports.containsKey(reference.getId());
+    }
+
+    private static Airport resolve(Airport reference, Map<Long, Airport> airports) {
+        return reference == null || reference.getId() == null ? null : airports.get(reference.getId());
+    }
+
+    /**
+     * A line of the schedule file, filled in by the parallel validation step.
+     */
+    private static final class Row {
+
+        private final long line;
+        private final String raw;
+        private Flight flight;
+        private String error;
+
+        private Row(long line, String raw) {
+            this.line = line;
+            this.raw = raw;
+        }
+    }
+}
@@ -0,0 +1,124 @@
+package flights.service;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import flights.service.dto.BookingDTO;
+import fms.common.config.KafkaProperties;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.ConsumerRecords;
+import org.apache.kafka.clients.consumer.KafkaConsumer;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.errors.WakeupException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Releases the seats held for the bookings announced on {@code booking_cancelled}, whether they were
+ * cancelled, deleted or expired unpaid, so every seat held by the booking service is given back with its booking.
+ * <p>
+ * Offsets are committed once a poll is handled, so a booking is released at least once; releasing a hold
+ * again has no effect.
+ */
+@Service
+public class FlightKafkaConsumer {
+
+    private static final Logger logger = LoggerFactory.getLogger(FlightKafkaConsumer.class);
+    public static final String TOPIC_BOOKING_CANCELLED = "booking_cancelled";
+
+    private final ObjectMapper objectMapper = new ObjectMapper().disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+    private final AtomicBoolean closed = new AtomicBoolean(false);
+    private final KafkaProperties kafkaProperties;
+    private final SeatInventoryEngine seatInventoryEngine;
+
+    private KafkaConsumer<String, String> consumer;
+    private ExecutorService executorService = Executors.newSingleThreadExecutor();
+
+    public FlightKafkaConsumer(KafkaProperties kafkaProperties, SeatInventoryEngine seatInventoryEngine) {
+        this.kafkaProperties = kafkaProperties;
+        this.seatInventoryEngine = seatInventoryEngine;
+    }
+
+    @PostConstruct
+    public void start() {
+        Map<String, Object> consumerProps = kafkaProperties.getConsumerProps();
+        // offsets are committed once their poll is handled
+        consumerProps.put("enable.auto.commit", "false");
+        this.consumer = new KafkaConsumer<>(consumerProps);
+        consumer.subscribe(Collections.singletonList(TOPIC_BOOKING_CANCELLED));
+        logger.debug("Flight kafka consumer started.");
+
+        executorService.execute(() -> {
+            try {
+                while (!closed.get()) {
+                    ConsumerRecords<String, String> records = consumer.poll(Duration.ofSeconds(3));
+                    if (records.isEmpty()) {
+                        continue;
+                    }
+                    try {
+                        handle(records);
+                        consumer.commitSync();
+                    } catch (WakeupException e) {
+                        throw e;
+                    } catch (RuntimeException e) {
+                        logger.error("Could not release the seats of cancelled bookings, retrying: {}", e.getMessage(), e);
+                        for (TopicPartition partition : records.partitions()) {
+                            consumer.seek(partition, records.records(partition).get(0).offset());
+                        }
+                    }
+                }
+            } catch (WakeupException e) {
+                // shutting down
+            } catch (Exception e) {
+                logger.error(e.getMessage(), e);
+            } finally {
+                logger.debug("Kafka consumer close");
+                consumer.close();
+            }
+        });
+    }
+
+    /**
+     * Releases the seat holds of the cancelled bookings of a poll.
+     *
+     * @param records the records polled.
+     * @return the number of holds released.
+     */
+    int handle(ConsumerRecords<String, String> records) {
+        int released = 0;
+        for (ConsumerRecord<String, String> record : records) {
+            logger.debug("Consumed message in {} : {}", record.topic(), record.value());
+            BookingDTO booking;
+            try {
+                booking = objectMapper.readValue(record.value(), BookingDTO.class);
+            } catch (IOException e) {
+                logger.warn("Skipped an unreadable event of {}: {}", record.topic(), e.getMessage());
+                continue;
+            }
+            if (booking.getSeatHoldId() != null && seatInventoryEngine.release(booking.getSeatHoldId())) {
+                released++;
+            }
+        }
+        return released;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        logger.debug("Shutdown Kafka consumer");
+        closed.set(true);
+        if (consumer != null) {
+            consumer.wakeup();
+        }
+        executorService.shutdown();
+    }
+}
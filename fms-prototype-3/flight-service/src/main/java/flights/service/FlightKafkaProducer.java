@@ -2,18 +2,16 @@ package flights.service;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
-import flights.config.KafkaProperties;
 import flights.domain.Flight;
 import flights.domain.enumeration.ETopicType;
 import flights.service.dto.FlightDTO;
-import org.apache.kafka.clients.producer.KafkaProducer;
-import org.apache.kafka.clients.producer.ProducerRecord;
+import fms.common.service.KafkaEventPublisher;
+import fms.common.service.OutboxService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
 
-import javax.annotation.PostConstruct;
-import javax.annotation.PreDestroy;
+import java.util.List;
 
 @Service
 public class FlightKafkaProducer {
@@ -24,51 +22,51 @@ public class FlightKafkaProducer {
     private static final String TOPIC_FLIGHT_CANCELLED = "flight_cancelled";
 
     private final ObjectMapper objectMapper = new ObjectMapper();
-    private final KafkaProperties kafkaProperties;
-    private KafkaProducer<String, String> producer;
+    private final OutboxService outboxService;
 
-    public FlightKafkaProducer(KafkaProperties kafkaProperties) {
-        this.kafkaProperties = kafkaProperties;
-    }
-
-    @PostConstruct
-    public void initialize() {
-        this.producer = new KafkaProducer<>(kafkaProperties.getProducerProps());
-        Runtime.getRuntime().addShutdownHook(new Thread(this::shutdown));
-        logger.debug("Flight kafka producer initialized.");
+    public FlightKafkaProducer(OutboxService outboxService, KafkaEventPublisher kafkaEventPublisher) {
+        this.outboxService = outboxService;
+        kafkaEventPublisher.declareTopics(TOPIC_FLIGHT_SET, TOPIC_FLIGHT_UPDATED, TOPIC_FLIGHT_CANCELLED);
     }
 
+    /**
+     * Publishes a flight event, keyed by flight number so the events of a flight stay in order, and carrying the
+     * id of the flight, which tells apart the dated flights of a schedule. The event is written to the outbox,
+     * and sent only if the current transaction commits.
+     *
+     * @param flight the flight.
+     * @param topicType the kind of event to send.
+     */
     public void sendFlightEvent(Flight flight, ETopicType topicType) {
         try{
             FlightDTO flightDTO = new FlightDTO(flight);
             String message = objectMapper.writeValueAsString(flightDTO);
-            ProducerRecord<String, String> event = null;
 
             switch (topicType) {
                 case SET:
-                    event = new ProducerRecord<>(TOPIC_FLIGHT_SET, message);
-                    logger.debug("Produced an event for topic {} : {}", TOPIC_FLIGHT_SET, event.value());
+                    outboxService.append(TOPIC_FLIGHT_SET, flight.getFlightNumber(), message);
                     break;
                 case UPDATED:
-                    event = new ProducerRecord<>(TOPIC_FLIGHT_UPDATED, message);
-                    logger.debug("Produced an event for topic {} : {}", TOPIC_FLIGHT_UPDATED, event.value());
+                    outboxService.append(TOPIC_FLIGHT_UPDATED, flight.getFlightNumber(), message);
                     break;
                 case CANCELLED:
-                    event = new ProducerRecord<>(TOPIC_FLIGHT_CANCELLED, message);
-                    logger.debug("Produced an event for topic {} : {}", TOPIC_FLIGHT_CANCELLED, event.value());
+                    outboxService.append(TOPIC_FLIGHT_CANCELLED, flight.getFlightNumber(), message);
                     break;
             }
-
-            producer.send(event);
         } catch (JsonProcessingException e) {
             logger.error(e.getMessage());
         }
     }
 
-    @PreDestroy
-    private void shutdown() {
-        logger.debug("Flight kafka producer shutting down");
-        producer.close();
+    /**
+     * Publishes one event per flight; the outbox relay batches them.
+     *
+     * @param flights the flights to announce.
+     * @param topicType the kind of event to send.
+     */
+    public void sendFlightEvents(List<Flight> flights, ETopicType topicType) {
+        for (Flight flight : flights) {
+            sendFlightEvent(flight, topicType);
+        }
     }
 }
-
@@ -0,0 +1,131 @@
+package flights.service;
+
+import flights.domain.Flight;
+import flights.domain.FlightSchedule;
+import flights.domain.enumeration.EFlightStatus;
+import flights.domain.enumeration.ETopicType;
+import flights.repository.FlightRepository;
+import flights.repository.FlightScheduleRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Expands {@link FlightSchedule}s into dated flights.
+ * <p>
+ * Searches return the stored flights of the searched dates, except cancelled ones, together with
+ * the flights the schedules would operate on those dates, the latter without an id. A scheduled flight is
+ * only inserted into the {@code flight} table when it is {@link #materialize(Long, LocalDate) materialized},
+ * i.e. on its first booking or edit.
+ */
+@Service
+public class FlightScheduleService {
+
+    private final Logger log = LoggerFactory.getLogger(FlightScheduleService.class);
+
+    private static final Comparator<Flight> BY_DEPARTURE = Comparator.comparing(Flight::getDepartureDate)
+        .thenComparing(Flight::getFlightNumber);
+
+    private final FlightScheduleRepository flightScheduleRepository;
+    private final FlightRepository flightRepository;
+    private final FlightKafkaProducer flightKafkaProducer;
+    private final TransactionTemplate newTransaction;
+
+    public FlightScheduleService(FlightScheduleRepository flightScheduleRepository, FlightRepository flightRepository,
+                                 FlightKafkaProducer flightKafkaProducer, PlatformTransactionManager transactionManager) {
+        this.flightScheduleRepository = flightScheduleRepository;
+        this.flightRepository = flightRepository;
+        this.flightKafkaProducer = flightKafkaProducer;
+        this.newTransaction = new TransactionTemplate(transactionManager);
+        this.newTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    /**
+     * Searches the flights departing between two dates, both stored and scheduled ones.
+     *
+     * @param originId the id of the origin airport, or {@code null} for any.
+     * @param destinationId the id of the destination airport, or {@code null} for any.
+     * @param from the first departure date.
+     * @param until the last departure date.
+     * @return the flights ordered by departure date and flight number.
+     */
+    @Transactional(readOnly = true)
+    public List<Flight> findFlights(Long originId, Long destinationId, LocalDate from, LocalDate until) {
+        List<Flight> flights = new ArrayList<>(flightRepository.findAllDepartingBetween(originId, destinationId, from, until));
+        Set<Map.Entry<Long, LocalDate>> materialized = new HashSet<>();
+        for (Flight flight : flights) {
+            if (flight.getSchedule() != null) {
+                materialized.add(new AbstractMap.SimpleImmutableEntry<>(flight.getSchedule().getId(), flight.getDepartureDate()));
+            }
+        }
+
+        for (FlightSchedule schedule : flightScheduleRepository.findAllValidBetween(originId, destinationId, from, until)) {
+            LocalDate first = from.isAfter(schedule.getValidFrom()) ? from : schedule.getValidFrom();
+            LocalDate last = until.isBefore(schedule.getValidUntil()) ? until : schedule.getValidUntil();
+            for (LocalDate date = first; !date.isAfter(last); date = date.plusDays(1)) {
+                if (schedule.operatesOn(date)
+                    && !materialized.contains(new AbstractMap.SimpleImmutableEntry<>(schedule.getId(), date))) {
+                    flights.add(schedule.toFlight(date));
+                }
+            }
+        }
+        // cancelled flights still mark their schedule's date as materialized, so they are not offered again
+        flights.removeIf(flight -> flight.getStatus() == EFlightStatus.CANCELLED);
+        flights.sort(BY_DEPARTURE);
+        return flights;
+    }
+
+    /**
+     * Stores the flight of a schedule on a date, unless it is stored already.
+     * <p>
+     * The flight is inserted in its own transaction, so that a concurrent materialization
+     * of the same flight, rejected by the unique constraint, can read the winner's row.
+     *
+     * @param scheduleId the id of the schedule.
+     * @param departureDate the departure date.
+     * @return the stored flight, or empty if the schedule does not exist or does not operate on that date.
+     */
+    public Optional<Flight> materialize(Long scheduleId, LocalDate departureDate) {
+        Optional<Flight> existing = newTransaction.execute(status ->
+            flightRepository.findOneByScheduleIdAndDepartureDate(scheduleId, departureDate));
+        if (existing.isPresent()) {
+            return existing;
+        }
+
+        Flight flight;
+        try {
+            flight = newTransaction.execute(status -> flightScheduleRepository.findById(scheduleId)
+                .filter(schedule -> schedule.operatesOn(departureDate))
+                .map(schedule -> {
+                    Flight materialized = flightRepository.saveAndFlush(schedule.toFlight(departureDate));
+                    flightKafkaProducer.sendFlightEvent(materialized, ETopicType.SET);
+                    return materialized;
+                })
+                .orElse(null));
+        } catch (DataIntegrityViolationException e) {
+            log.debug("Flight of schedule {} on {} was materialized concurrently", scheduleId, departureDate);
+            return newTransaction.execute(status ->
+                flightRepository.findOneByScheduleIdAndDepartureDate(scheduleId, departureDate));
+        }
+        if (flight == null) {
+            return Optional.empty();
+        }
+        log.debug("Materialized Flight of schedule {} on {} : {}", scheduleId, departureDate, flight);
+        return Optional.of(flight);
+    }
+}
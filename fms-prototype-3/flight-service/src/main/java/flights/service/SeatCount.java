@@ -0,0 +1,65 @@
+package flights.service;
+
+import java.io.Serializable;
+import java.util.Objects;
+
+/**
+ * Immutable capacity and seats held of a cabin, as kept by the {@link SeatInventoryEngine}.
+ * <p>
+ * Counts are updated with compare-and-set, which relies on {@link #equals(Object)} for local maps
+ * and on the serialized form for Hazelcast maps; both only depend on the two fields.
+ */
+public final class SeatCount implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private final int capacity;
+    private final int held;
+
+    public SeatCount(int capacity, int held) {
+        this.capacity = capacity;
+        this.held = held;
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public int getHeld() {
+        return held;
+    }
+
+    public int getAvailable() {
+        return Math.max(0, capacity - held);
+    }
+
+    SeatCount hold(int seats) {
+        return new SeatCount(capacity, held + seats);
+    }
+
+    SeatCount withCapacity(int capacity) {
+        return new SeatCount(capacity, held);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof SeatCount)) {
+            return false;
+        }
+        SeatCount other = (SeatCount) o;
+        return capacity == other.capacity && held == other.held;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(capacity, held);
+    }
+
+    @Override
+    public String toString() {
+        return "SeatCount{capacity=" + capacity + ", held=" + held + "}";
+    }
+}
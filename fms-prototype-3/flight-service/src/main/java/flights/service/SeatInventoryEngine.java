@@ -0,0 +1,198 @@
+package flights.service;
+
+import com.hazelcast.core.HazelcastInstance;
+import flights.config.ApplicationProperties;
+import flights.domain.SeatInventory;
+import flights.domain.SeatLedgerEntry;
+import flights.domain.enumeration.EFareType;
+import flights.domain.enumeration.ESeatLedgerEntryType;
+import flights.repository.SeatInventoryRepository;
+import flights.repository.SeatLedgerEntryRepository;
+import flights.service.dto.SeatHoldDTO;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Holds and releases seats without taking database locks.
+ * <p>
+ * The capacity and seats held of every cabin are kept as a {@link SeatCount} in a concurrent map
+ * and changed with compare-and-set ({@link ConcurrentMap#replace(Object, Object, Object)}), retried
+ * until it succeeds or the cabin is full. When distributed, the map is a Hazelcast map, so each
+ * count is owned by the member owning its partition and every instance sees the same count.
+ * <p>
+ * Every hold and release is also appended to the {@link SeatLedgerEntry seat ledger}, from which a
+ * count is rebuilt the first time its cabin is used, e.g. after the cluster restarted.
+ */
+@Service
+public class SeatInventoryEngine {
+
+    private final Logger log = LoggerFactory.getLogger(SeatInventoryEngine.class);
+
+    public static final String SEAT_COUNTS_MAP = "seat-counts";
+
+    private final ConcurrentMap<String, SeatCount> counts;
+    private final SeatInventoryRepository seatInventoryRepository;
+    private final SeatLedgerEntryRepository seatLedgerEntryRepository;
+
+    @Autowired
+    public SeatInventoryEngine(ApplicationProperties applicationProperties, HazelcastInstance hazelcastInstance,
+                               SeatInventoryRepository seatInventoryRepository, SeatLedgerEntryRepository seatLedgerEntryRepository) {
+        this(applicationProperties.getSeatInventory().isDistributed()
+                ? hazelcastInstance.<String, SeatCount>getMap(SEAT_COUNTS_MAP) : new ConcurrentHashMap<>(),
+            seatInventoryRepository, seatLedgerEntryRepository);
+    }
+
+    SeatInventoryEngine(ConcurrentMap<String, SeatCount> counts, SeatInventoryRepository seatInventoryRepository,
+                        SeatLedgerEntryRepository seatLedgerEntryRepository) {
+        this.counts = counts;
+        this.seatInventoryRepository = seatInventoryRepository;
+        this.seatLedgerEntryRepository = seatLedgerEntryRepository;
+    }
+
+    /**
+     * @param flightId the id of the flight.
+     * @param cabin the cabin.
+     * @return the capacity and seats held, or empty if the cabin has no seat inventory.
+     */
+    public Optional<SeatCount> getCount(Long flightId, EFareType cabin) {
+        return Optional.ofNullable(count(key(flightId, cabin), flightId, cabin));
+    }
+
+    /**
+     * Holds seats of a cabin, if enough of them are available.
+     *
+     * @param flightId the id of the flight.
+     * @param cabin the cabin.
+     * @param seats the number of seats to hold.
+     * @return the hold, or empty if the cabin has no seat inventory or not enough seats available.
+     */
+    public Optional<SeatHoldDTO> hold(Long flightId, EFareType cabin, int seats) {
+        if (seats < 1) {
+            throw new IllegalArgumentException("At least one seat must be held");
+        }
+        String key = key(flightId, cabin);
+        SeatCount current = count(key, flightId, cabin);
+        while (true) {
+            if (current == null || current.getAvailable() < seats) {
+                return Optional.empty();
+            }
+            if (counts.replace(key, current, current.hold(seats))) {
+                break;
+            }
+            current = count(key, flightId, cabin);
+        }
+
+        String holdId = UUID.randomUUID().toString();
+        try {
+            seatLedgerEntryRepository.save(ledgerEntry(flightId, cabin, holdId, ESeatLedgerEntryType.HOLD, seats));
+        } catch (RuntimeException e) {
+            adjust(key, -seats);
+            throw e;
+        }
+        log.debug("Held {} {} seats of flight {} : {}", seats, cabin, flightId, holdId);
+        return Optional.of(new SeatHoldDTO(holdId, flightId, cabin, seats));
+    }
+
+    /**
+     * Releases a hold. Releasing a hold twice has no effect.
+     *
+     * @param holdId the id of the hold.
+     * @return whether the hold existed and was released by this call.
+     */
+    public boolean release(String holdId) {
+        Optional<SeatLedgerEntry> hold = seatLedgerEntryRepository.findOneByHoldIdAndEntryType(holdId, ESeatLedgerEntryType.HOLD);
+        if (!hold.isPresent()) {
+            return false;
+        }
+        SeatLedgerEntry entry = hold.get();
+        try {
+            // the ledger's unique (hold_id, entry_type) lets only one release of a hold through
+            seatLedgerEntryRepository.saveAndFlush(
+                ledgerEntry(entry.getFlightId(), entry.getCabin(), holdId, ESeatLedgerEntryType.RELEASE, -entry.getSeats()));
+        } catch (DataIntegrityViolationException e) {
+            log.debug("Hold {} was already released", holdId);
+            return false;
+        }
+        adjust(key(entry.getFlightId(), entry.getCabin()), -entry.getSeats());
+        log.debug("Released {} {} seats of flight {} : {}", entry.getSeats(), entry.getCabin(), entry.getFlightId(), holdId);
+        return true;
+    }
+
+    /**
+     * Sets the capacity of a cabin. Lowering it below the seats held only prevents further holds.
+     *
+     * @param flightId the id of the flight.
+     * @param cabin the cabin.
+     * @param capacity the number of seats of the cabin.
+     * @return the new capacity and seats held.
+     */
+    public SeatCount setCapacity(Long flightId, EFareType cabin, int capacity) {
+        SeatInventory inventory = seatInventoryRepository.findOneByFlightIdAndCabin(flightId, cabin)
+            .orElseGet(() -> new SeatInventory().flightId(flightId).cabin(cabin));
+        seatInventoryRepository.save(inventory.capacity(capacity));
+
+        String key = key(flightId, cabin);
+        while (true) {
+            SeatCount current = count(key, flightId, cabin);
+            if (current.getCapacity() == capacity || counts.replace(key, current, current.withCapacity(capacity))) {
+                return counts.get(key);
+            }
+        }
+    }
+
+    /**
+     * Corrects a count to match the ledger. A count missing from the map needs no correction, it is rebuilt from the ledger.
+     */
+    private void adjust(String key, int seats) {
+        while (true) {
+            SeatCount current = counts.get(key);
+            if (current == null || counts.replace(key, current, current.hold(seats))) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Reads a count, rebuilding it from the inventory and the ledger if it is not in the map.
+     */
+    private SeatCount count(String key, Long flightId, EFareType cabin) {
+        SeatCount current = counts.get(key);
+        if (current != null) {
+            return current;
+        }
+        Optional<SeatInventory> inventory = seatInventoryRepository.findOneByFlightIdAndCabin(flightId, cabin);
+        if (!inventory.isPresent()) {
+            return null;
+        }
+        SeatCount rebuilt = new SeatCount(inventory.get().getCapacity(), (int) seatLedgerEntryRepository.sumSeats(flightId, cabin));
+        SeatCount existing = counts.putIfAbsent(key, rebuilt);
+        if (existing != null) {
+            return existing;
+        }
+        log.debug("Rebuilt seat count of {} : {}", key, rebuilt);
+        return rebuilt;
+    }
+
+    private static SeatLedgerEntry ledgerEntry(Long flightId, EFareType cabin, String holdId, ESeatLedgerEntryType entryType, int seats) {
+        return new SeatLedgerEntry()
+            .flightId(flightId)
+            .cabin(cabin)
+            .holdId(holdId)
+            .entryType(entryType)
+            .seats(seats)
+            .createdAt(Instant.now());
+    }
+
+    private static String key(Long flightId, EFareType cabin) {
+        return flightId + ":" + cabin;
+    }
+}
@@ -0,0 +1,35 @@
+package flights.service.dto;
+
+/**
+ * A booking of the booking service, as announced on its topics: only what the flight service needs of it.
+ */
+public class BookingDTO {
+
+    private String bookingNumber;
+    private Long flightId;
+    private String seatHoldId;
+
+    public String getBookingNumber() {
+        return bookingNumber;
+    }
+
+    public void setBookingNumber(String bookingNumber) {
+        this.bookingNumber = bookingNumber;
+    }
+
+    public Long getFlightId() {
+        return flightId;
+    }
+
+    public void setFlightId(Long flightId) {
+        this.flightId = flightId;
+    }
+
+    public String getSeatHoldId() {
+        return seatHoldId;
+    }
+
+    public void setSeatHoldId(String seatHoldId) {
+        this.seatHoldId = seatHoldId;
+    }
+}
@@ -0,0 +1,74 @@
+package flights.service.dto;
+
+import flights.domain.enumeration.EFareType;
+
+import javax.validation.constraints.DecimalMin;
+import javax.validation.constraints.NotNull;
+
+/**
+ * A bulk fare change: the prices of the matching route fares are multiplied by the factor, then the
+ * amount is added. Unset filters match every fare.
+ */
+public class FareAdjustmentDTO {
+
+    private Long originId;
+    private Long destinationId;
+    private EFareType fareType;
+
+    @NotNull
+    @DecimalMin(value = "0")
+    private Double factor = 1.0;
+
+    @NotNull
+    private Double amount = 0.0;
+
+    private Integer adjustedFares;
+
+    public Long getOriginId() {
+        return originId;
+    }
+
+    public void setOriginId(Long originId) {
+        this.originId = originId;
+    }
+
+    public Long getDestinationId() {
+        return destinationId;
+    }
+
+    public void setDestinationId(Long destinationId) {
+        this.destinationId = destinationId;
+    }
+
+    public EFareType getFareType() {
+        return fareType;
+    }
+
+    public void setFareType(EFareType fareType) {
+        this.fareType = fareType;
+    }
+
+    public Double getFactor() {
+        return factor;
+    }
+
+    public void setFactor(Double factor) {
+        this.factor = factor;
+    }
+
+    public Double getAmount() {
+        return amount;
+    }
+
+    public void setAmount(Double amount) {
+        this.amount = amount;
+    }
+
+    public Integer getAdjustedFares() {
+        return adjustedFares;
+    }
+
+    public void setAdjustedFares(Integer adjustedFares) {
+        this.adjustedFares = adjustedFares;
+    }
+}
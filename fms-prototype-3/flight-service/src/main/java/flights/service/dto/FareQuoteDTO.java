@@ -0,0 +1,65 @@
+package flights.service.dto;
+
+import flights.domain.enumeration.EFareType;
+
+import java.time.LocalDate;
+
+public class FareQuoteDTO {
+
+    private Long originId;
+    private Long destinationId;
+    private EFareType fareType;
+    private LocalDate departureDate;
+    private Double price;
+
+    public FareQuoteDTO() {
+    }
+
+    public FareQuoteDTO(Long originId, Long destinationId, EFareType fareType, LocalDate departureDate, Double price) {
+        this.originId = originId;
+        this.destinationId = destinationId;
+        this.fareType = fareType;
+        this.departureDate = departureDate;
+        this.price = price;
+    }
+
+    public Long getOriginId() {
+        return originId;
+    }
+
+    public void setOriginId(Long originId) {
+        this.originId = originId;
+    }
+
+    public Long getDestinationId() {
+        return destinationId;
+    }
+
+    public void setDestinationId(Long destinationId) {
+        this.destinationId = destinationId;
+    }
+
+    public EFareType getFareType() {
+        return fareType;
+    }
+
+    public void setFareType(EFareType fareType) {
+        this.fareType = fareType;
+    }
+
+    public LocalDate getDepartureDate() {
+        return departureDate;
+    }
+
+    public void setDepartureDate(LocalDate departureDate) {
+        this.departureDate = departureDate;
+    }
+
+    public Double getPrice() {
+        return price;
+    }
+
+    public void setPrice(Double price) {
+        this.price = price;
+    }
+}
@@ -4,18 +4,28 @@ import flights.domain.Flight;
 
 public class FlightDTO {
 
+    private Long id;
     private String flightNumber;
     private String departureDate;
     private String origin;
     private String destination;
 
     public FlightDTO(Flight flight) {
+        this.id = flight.getId();
         this.flightNumber = flight.getFlightNumber();
         this.departureDate = flight.getDepartureDate().toString();
         this.origin = flight.getOrigin().toString();
         this.destination = flight.getDestination().toString();
     }
 
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
     public String getFlightNumber() {
         return flightNumber;
     }
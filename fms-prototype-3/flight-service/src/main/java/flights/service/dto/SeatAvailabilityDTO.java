@@ -0,0 +1,62 @@
+package flights.service.dto;
+
+import flights.domain.enumeration.EFareType;
+import flights.service.SeatCount;
+
+import javax.validation.constraints.Min;
+import javax.validation.constraints.NotNull;
+
+public class SeatAvailabilityDTO {
+
+    @NotNull
+    private EFareType cabin;
+
+    @NotNull
+    @Min(value = 0)
+    private Integer capacity;
+
+    private Integer held;
+    private Integer available;
+
+    public SeatAvailabilityDTO() {
+    }
+
+    public SeatAvailabilityDTO(EFareType cabin, SeatCount count) {
+        this.cabin = cabin;
+        this.capacity = count.getCapacity();
+        this.held = count.getHeld();
+        this.available = count.getAvailable();
+    }
+
+    public EFareType getCabin() {
+        return cabin;
+    }
+
+    public void setCabin(EFareType cabin) {
+        this.cabin = cabin;
+    }
+
+    public Integer getCapacity() {
+        return capacity;
+    }
+
+    public void setCapacity(Integer capacity) {
+        this.capacity = capacity;
+    }
+
+    public Integer getHeld() {
+        return held;
+    }
+
+    public void setHeld(Integer held) {
+        this.held = held;
+    }
+
+    public Integer getAvailable() {
+        return available;
+    }
+
+    public void setAvailable(Integer available) {
+        this.available = available;
+    }
+}
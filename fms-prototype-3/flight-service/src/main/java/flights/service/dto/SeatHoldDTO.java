@@ -0,0 +1,71 @@
+package flights.service.dto;
+
+import flights.domain.enumeration.EFareType;
+
+import javax.validation.constraints.Min;
+import javax.validation.constraints.NotNull;
+
+public class SeatHoldDTO {
+
+    private String holdId;
+    private Long flightId;
+
+    @NotNull
+    private EFareType cabin;
+
+    @NotNull
+    @Min(value = 1)
+    private Integer seats;
+
+    private Double fare;
+
+    public SeatHoldDTO() {
+    }
+
+    public SeatHoldDTO(String holdId, Long flightId, EFareType cabin, Integer seats) {
+        this.holdId = holdId;
+        this.flightId = flightId;
+        this.cabin = cabin;
+        this.seats = seats;
+    }
+
+    public String getHoldId() {
+        return holdId;
+    }
+
+    public void setHoldId(String holdId) {
+        this.holdId = holdId;
+    }
+
+    public Long getFlightId() {
+        return flightId;
+    }
+
+    public void setFlightId(Long flightId) {
+        this.flightId = flightId;
+    }
+
+    public EFareType getCabin() {
+        return cabin;
+    }
+
+    public void setCabin(EFareType cabin) {
+        this.cabin = cabin;
+    }
+
+    public Integer getSeats() {
+        return seats;
+    }
+
+    public void setSeats(Integer seats) {
+        this.seats = seats;
+    }
+
+    public Double getFare() {
+        return fare;
+    }
+
+    public void setFare(Double fare) {
+        this.fare = fare;
+    }
+}
@@ -0,0 +1,82 @@
+package flights.web.rest;
+
+import flights.security.AuthoritiesConstants;
+import flights.service.FlightImportJob;
+import flights.service.FlightImportService;
+import flights.web.rest.errors.BadRequestAlertException;
+
+import io.github.jhipster.web.util.ResponseUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+import javax.servlet.http.HttpServletRequest;
+import java.io.IOException;
+import java.net.URI;
+import java.net.URISyntaxException;
+
+/**
+ * REST controller for bulk importing flight schedules.
+ */
+@RestController
+@RequestMapping("/api")
+public class FlightImportResource {
+
+    private final Logger log = LoggerFactory.getLogger(FlightImportResource.class);
+
+    private static final String ENTITY_NAME = "flightsFlight";
+
+    public static final String TEXT_CSV_VALUE = "text/csv";
+    public static final String APPLICATION_NDJSON_VALUE = "application/x-ndjson";
+
+    private final FlightImportService flightImportService;
+
+    public FlightImportResource(FlightImportService flightImportService) {
+        this.flightImportService = flightImportService;
+    }
+
+    /**
+     * {@code POST  /flights/import} : Import a flight schedule, as CSV or newline delimited JSON.
+     *
+     * @param request the request carrying the schedule as its body.
+     * @return the {@link ResponseEntity} with status {@code 202 (Accepted)} and with body the import job,
+     * or with status {@code 400 (Bad Request)} if the content type is not supported.
+     * @throws IOException if the schedule cannot be read.
+     * @throws URISyntaxException if the Location URI syntax is incorrect.
+     */
+    @PostMapping(value = "/flights/import", consumes = { TEXT_CSV_VALUE, APPLICATION_NDJSON_VALUE })
+    @PreAuthorize("hasAuthority(\"" + AuthoritiesConstants.ADMIN + "\")")
+    public ResponseEntity<FlightImportJob> importFlights(HttpServletRequest request) throws IOException, URISyntaxException {
+        log.debug("REST request to import Flights : {}", request.getContentType());
+        FlightImportJob job = flightImportService.submit(request.getInputStream(), formatOf(request.getContentType()));
+        return ResponseEntity.accepted()
+            .location(new URI("/api/flights/import/" + job.getId()))
+            .body(job);
+    }
+
+    /**
+     * {@code GET  /flights/import/:id} : get the progress of a flight schedule import.
+     *
+     * @param id the id of the import job.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the import job, or with status {@code 404 (Not Found)}.
+     */
+    @GetMapping("/flights/import/{id}")
+    public ResponseEntity<FlightImportJob> getFlightImport(@PathVariable String id) {
+        log.debug("REST request to get Flight import : {}", id);
+        return ResponseUtil.wrapOrNotFound(flightImportService.findJob(id));
+    }
+
+    private static FlightImportJob.Format formatOf(String contentType) {
+        MediaType mediaType = contentType == null ? null : MediaType.parseMediaType(contentType);
+        if (mediaType != null && mediaType.isCompatibleWith(MediaType.parseMediaType(TEXT_CSV_VALUE))) {
+            return FlightImportJob.Format.CSV;
+        }
+        if (mediaType != null && mediaType.isCompatibleWith(MediaType.parseMediaType(APPLICATION_NDJSON_VALUE))) {
+            return FlightImportJob.Format.NDJSON;
+        }
+        throw new BadRequestAlertException("Unsupported schedule format " + contentType, ENTITY_NAME, "importformat");
+    }
+}
@@ -1,9 +1,13 @@
 package flights.web.rest;
 
+import flights.config.ApplicationProperties;
 import flights.domain.Flight;
+import flights.domain.enumeration.EFlightStatus;
 import flights.domain.enumeration.ETopicType;
 import flights.repository.FlightRepository;
+import flights.service.FareEngine;
 import flights.service.FlightKafkaProducer;
+import flights.service.FlightScheduleService;
 import flights.web.rest.errors.BadRequestAlertException;
 
 import io.github.jhipster.web.util.HeaderUtil;
@@ -18,6 +22,8 @@ import org.springframework.web.bind.annotation.*;
 import javax.validation.Valid;
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
 import java.util.List;
 import java.util.Optional;
 
@@ -38,10 +44,18 @@ public class FlightResource {
 
     private final FlightRepository flightRepository;
     private final FlightKafkaProducer flightKafkaProducer;
+    private final FlightScheduleService flightScheduleService;
+    private final FareEngine fareEngine;
+    private final ApplicationProperties.FlightSearch flightSearchProperties;
 
-    public FlightResource(FlightRepository flightRepository, FlightKafkaProducer flightKafkaProducer) {
+    public FlightResource(FlightRepository flightRepository, FlightKafkaProducer flightKafkaProducer,
+                          FlightScheduleService flightScheduleService, FareEngine fareEngine,
+                          ApplicationProperties applicationProperties) {
         this.flightRepository = flightRepository;
         this.flightKafkaProducer = flightKafkaProducer;
+        this.flightScheduleService = flightScheduleService;
+        this.fareEngine = fareEngine;
+        this.flightSearchProperties = applicationProperties.getFlightSearch();
     }
 
     /**
@@ -68,19 +82,32 @@ public class FlightResource {
 
     /**
      * {@code PUT  /flights} : Updates an existing flight.
+     * <p>
+     * A scheduled flight without an id, as returned by {@code GET /flights/search}, is materialized first. The
+     * schedule and the status of the flight are kept as stored: {@code DELETE /flights/:id} cancels it.
      *
      * @param flight the flight to update.
      * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the updated flight,
-     * or with status {@code 400 (Bad Request)} if the flight is not valid,
+     * or with status {@code 400 (Bad Request)} if the flight is not valid or does not exist,
      * or with status {@code 500 (Internal Server Error)} if the flight couldn't be updated.
      * @throws URISyntaxException if the Location URI syntax is incorrect.
      */
     @PutMapping("/flights")
     public ResponseEntity<Flight> updateFlight(@Valid @RequestBody Flight flight) throws URISyntaxException {
         log.debug("REST request to update Flight : {}", flight);
+        if (flight.getId() == null && flight.getSchedule() != null && flight.getSchedule().getId() != null) {
+            flightScheduleService.materialize(flight.getSchedule().getId(), flight.getDepartureDate())
+                .ifPresent(materialized -> flight.setId(materialized.getId()));
+        }
         if (flight.getId() == null) {
             throw new BadRequestAlertException("Invalid id", ENTITY_NAME, "idnull");
         }
+        Flight stored = flightRepository.findById(flight.getId())
+            .orElseThrow(() -> new BadRequestAlertException("Invalid id", ENTITY_NAME, "idnotfound"));
+        // the schedule a flight was materialized from is not the clients' to change, and only a cancellation
+        // changes its status
+        flight.setSchedule(stored.getSchedule());
+        flight.setStatus(stored.getStatus());
 
         Flight result = flightRepository.save(flight);
         flightKafkaProducer.sendFlightEvent(result, ETopicType.UPDATED);
@@ -91,43 +118,79 @@ public class FlightResource {
     }
 
     /**
-     * {@code GET  /flights} : get all the flights.
+     * {@code GET  /flights} : get all the flights, priced by the {@link FareEngine}.
      *
      * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the list of flights in body.
      */
     @GetMapping("/flights")
+    @Transactional(readOnly = true)
     public List<Flight> getAllFlights() {
         log.debug("REST request to get all Flights");
-        return flightRepository.findAll();
+        // read-only: the quoted prices are never written back to the flights
+        return fareEngine.price(flightRepository.findAll());
     }
 
     /**
-     * {@code GET  /flights/:id} : get the "id" flight.
+     * {@code GET  /flights/search} : search the flights departing between two dates, including the
+     * flights of schedules that are not materialized yet. Flights are priced by the {@link FareEngine}.
+     *
+     * @param from the first departure date.
+     * @param until the last departure date.
+     * @param originId the id of the origin airport, if any.
+     * @param destinationId the id of the destination airport, if any.
+     * @return the list of flights, scheduled ones without an id.
+     */
+    @GetMapping("/flights/search")
+    @Transactional(readOnly = true)
+    public List<Flight> searchFlights(@RequestParam LocalDate from, @RequestParam LocalDate until,
+                                      @RequestParam(required = false) Long originId,
+                                      @RequestParam(required = false) Long destinationId) {
+        log.debug("REST request to search Flights from {} until {} between {} and {}", from, until, originId, destinationId);
+        if (until.isBefore(from) || ChronoUnit.DAYS.between(from, until) >= flightSearchProperties.getMaxDays()) {
+            throw new BadRequestAlertException("Invalid departure date range", ENTITY_NAME, "daterange");
+        }
+        // read-only: the quoted prices are never written back to the flights
+        return fareEngine.price(flightScheduleService.findFlights(originId, destinationId, from, until));
+    }
+
+    /**
+     * {@code GET  /flights/:id} : get the "id" flight, priced by the {@link FareEngine}. This is the price
+     * a checkout of the flight is charged.
      *
      * @param id the id of the flight to retrieve.
      * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the flight, or with status {@code 404 (Not Found)}.
      */
     @GetMapping("/flights/{id}")
+    @Transactional(readOnly = true)
     public ResponseEntity<Flight> getFlight(@PathVariable Long id) {
         log.debug("REST request to get Flight : {}", id);
-        Optional<Flight> flight = flightRepository.findById(id);
+        Optional<Flight> flight = flightRepository.findById(id)
+            .map(found -> {
+                found.setPrice(fareEngine.price(found, found.getFareType()));
+                return found;
+            });
         return ResponseUtil.wrapOrNotFound(flight);
     }
 
     /**
-     * {@code DELETE  /flights/:id} : delete the "id" flight.
+     * {@code DELETE  /flights/:id} : cancel the "id" flight.
+     * <p>
+     * The flight is kept with the {@link EFlightStatus#CANCELLED cancelled} status, and its cancellation
+     * announced on {@code flight_cancelled} so its passengers are told. Cancelling it again does nothing.
      *
-     * @param id the id of the flight to delete.
+     * @param id the id of the flight to cancel.
      * @return the {@link ResponseEntity} with status {@code 204 (NO_CONTENT)}.
      */
     @DeleteMapping("/flights/{id}")
     public ResponseEntity<Void> deleteFlight(@PathVariable Long id) {
-        log.debug("REST request to delete Flight : {}", id);
-
-        flightRepository.deleteById(id);
-        if(flightRepository.findById(id).isPresent()) {
-            flightKafkaProducer.sendFlightEvent(flightRepository.findById(id).get(), ETopicType.CANCELLED);
-        }
+        log.debug("REST request to cancel Flight : {}", id);
+
+        flightRepository.findById(id)
+            .filter(flight -> flight.getStatus() != EFlightStatus.CANCELLED)
+            .ifPresent(flight -> {
+                flight.setStatus(EFlightStatus.CANCELLED);
+                flightKafkaProducer.sendFlightEvent(flight, ETopicType.CANCELLED);
+            });
 
         return ResponseEntity.noContent().headers(HeaderUtil.createEntityDeletionAlert(applicationName, false, ENTITY_NAME, id.toString())).build();
     }
@@ -0,0 +1,156 @@
+package flights.web.rest;
+
+import flights.domain.Flight;
+import flights.domain.FlightSchedule;
+import flights.repository.FlightRepository;
+import flights.repository.FlightScheduleRepository;
+import flights.service.FlightScheduleService;
+import flights.web.rest.errors.BadRequestAlertException;
+
+import io.github.jhipster.web.util.HeaderUtil;
+import io.github.jhipster.web.util.ResponseUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.ResponseEntity;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.bind.annotation.*;
+
+import javax.validation.Valid;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * REST controller for managing {@link flights.domain.FlightSchedule}.
+ */
+@RestController
+@RequestMapping("/api")
+@Transactional
+public class FlightScheduleResource {
+
+    private final Logger log = LoggerFactory.getLogger(FlightScheduleResource.class);
+
+    private static final String ENTITY_NAME = "flightsFlightSchedule";
+
+    @Value("${jhipster.clientApp.name}")
+    private String applicationName;
+
+    private final FlightScheduleRepository flightScheduleRepository;
+    private final FlightRepository flightRepository;
+    private final FlightScheduleService flightScheduleService;
+
+    public FlightScheduleResource(FlightScheduleRepository flightScheduleRepository, FlightRepository flightRepository,
+                                  FlightScheduleService flightScheduleService) {
+        this.flightScheduleRepository = flightScheduleRepository;
+        this.flightRepository = flightRepository;
+        this.flightScheduleService = flightScheduleService;
+    }
+
+    /**
+     * {@code POST  /flight-schedules} : Create a new flightSchedule.
+     *
+     * @param flightSchedule the flightSchedule to create.
+     * @return the {@link ResponseEntity} with status {@code 201 (Created)} and with body the new flightSchedule, or with status {@code 400 (Bad Request)} if the flightSchedule has already an ID.
+     * @throws URISyntaxException if the Location URI syntax is incorrect.
+     */
+    @PostMapping("/flight-schedules")
+    public ResponseEntity<FlightSchedule> createFlightSchedule(@Valid @RequestBody FlightSchedule flightSchedule) throws URISyntaxException {
+        log.debug("REST request to save FlightSchedule : {}", flightSchedule);
+        if (flightSchedule.getId() != null) {
+            throw new BadRequestAlertException("A new flightSchedule cannot already have an ID", ENTITY_NAME, "idexists");
+        }
+        checkValidityPeriod(flightSchedule);
+        FlightSchedule result = flightScheduleRepository.save(flightSchedule);
+        return ResponseEntity.created(new URI("/api/flight-schedules/" + result.getId()))
+            .headers(HeaderUtil.createEntityCreationAlert(applicationName, false, ENTITY_NAME, result.getId().toString()))
+            .body(result);
+    }
+
+    /**
+     * {@code PUT  /flight-schedules} : Updates an existing flightSchedule.
+     * <p>
+     * Flights already materialized from the schedule are left unchanged.
+     *
+     * @param flightSchedule the flightSchedule to update.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the updated flightSchedule,
+     * or with status {@code 400 (Bad Request)} if the flightSchedule is not valid,
+     * or with status {@code 500 (Internal Server Error)} if the flightSchedule couldn't be updated.
+     * @throws URISyntaxException if the Location URI syntax is incorrect.
+     */
+    @PutMapping("/flight-schedules")
+    public ResponseEntity<FlightSchedule> updateFlightSchedule(@Valid @RequestBody FlightSchedule flightSchedule) throws URISyntaxException {
+        log.debug("REST request to update FlightSchedule : {}", flightSchedule);
+        if (flightSchedule.getId() == null) {
+            throw new BadRequestAlertException("Invalid id", ENTITY_NAME, "idnull");
+        }
+        checkValidityPeriod(flightSchedule);
+        FlightSchedule result = flightScheduleRepository.save(flightSchedule);
+        return ResponseEntity.ok()
+            .headers(HeaderUtil.createEntityUpdateAlert(applicationName, false, ENTITY_NAME, flightSchedule.getId().toString()))
+            .body(result);
+    }
+
+    /**
+     * {@code GET  /flight-schedules} : get all the flightSchedules.
+     *
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the list of flightSchedules in body.
+     */
+    @GetMapping("/flight-schedules")
+    public List<FlightSchedule> getAllFlightSchedules() {
+        log.debug("REST request to get all FlightSchedules");
+        return flightScheduleRepository.findAll();
+    }
+
+    /**
+     * {@code GET  /flight-schedules/:id} : get the "id" flightSchedule.
+     *
+     * @param id the id of the flightSchedule to retrieve.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the flightSchedule, or with status {@code 404 (Not Found)}.
+     */
+    @GetMapping("/flight-schedules/{id}")
+    public ResponseEntity<FlightSchedule> getFlightSchedule(@PathVariable Long id) {
+        log.debug("REST request to get FlightSchedule : {}", id);
+        Optional<FlightSchedule> flightSchedule = flightScheduleRepository.findById(id);
+        return ResponseUtil.wrapOrNotFound(flightSchedule);
+    }
+
+    /**
+     * {@code POST  /flight-schedules/:id/flights/:departureDate} : materialize the flight of the "id" flightSchedule
+     * departing on a date, typically on its first booking. Materializing a stored flight again returns it unchanged.
+     *
+     * @param id the id of the flightSchedule.
+     * @param departureDate the departure date of the flight.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the stored flight,
+     * or with status {@code 404 (Not Found)} if the flightSchedule does not operate on that date.
+     */
+    @PostMapping("/flight-schedules/{id}/flights/{departureDate}")
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public ResponseEntity<Flight> materializeFlight(@PathVariable Long id, @PathVariable LocalDate departureDate) {
+        log.debug("REST request to materialize Flight of FlightSchedule {} on {}", id, departureDate);
+        return ResponseUtil.wrapOrNotFound(flightScheduleService.materialize(id, departureDate));
+    }
+
+    /**
+     * {@code DELETE  /flight-schedules/:id} : delete the "id" flightSchedule. Its materialized flights are kept.
+     *
+     * @param id the id of the flightSchedule to delete.
+     * @return the {@link ResponseEntity} with status {@code 204 (NO_CONTENT)}.
+     */
+    @DeleteMapping("/flight-schedules/{id}")
+    public ResponseEntity<Void> deleteFlightSchedule(@PathVariable Long id) {
+        log.debug("REST request to delete FlightSchedule : {}", id);
+        flightRepository.detachFromSchedule(id);
+        flightScheduleRepository.deleteById(id);
+        return ResponseEntity.noContent().headers(HeaderUtil.createEntityDeletionAlert(applicationName, false, ENTITY_NAME, id.toString())).build();
+    }
+
+    private static void checkValidityPeriod(FlightSchedule flightSchedule) {
+        if (flightSchedule.getValidUntil().isBefore(flightSchedule.getValidFrom())) {
+            throw new BadRequestAlertException("The validity period ends before it starts", ENTITY_NAME, "validityperiod");
+        }
+    }
+}
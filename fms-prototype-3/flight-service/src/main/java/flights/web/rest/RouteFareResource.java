@@ -0,0 +1,199 @@
+package flights.web.rest;
+
+import flights.domain.RouteFare;
+import flights.domain.enumeration.EFareType;
+import flights.repository.RouteFareRepository;
+import flights.security.AuthoritiesConstants;
+import flights.service.FareEngine;
+import flights.service.dto.FareAdjustmentDTO;
+import flights.service.dto.FareQuoteDTO;
+import flights.web.rest.errors.BadRequestAlertException;
+
+import io.github.jhipster.web.util.HeaderUtil;
+import io.github.jhipster.web.util.ResponseUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.bind.annotation.*;
+
+import javax.validation.Valid;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.time.LocalDate;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.OptionalDouble;
+import java.util.Set;
+
+/**
+ * REST controller for managing {@link flights.domain.RouteFare} and quoting fares.
+ */
+@RestController
+@RequestMapping("/api")
+@Transactional
+public class RouteFareResource {
+
+    private final Logger log = LoggerFactory.getLogger(RouteFareResource.class);
+
+    private static final String ENTITY_NAME = "flightsRouteFare";
+
+    @Value("${jhipster.clientApp.name}")
+    private String applicationName;
+
+    private final RouteFareRepository routeFareRepository;
+    private final FareEngine fareEngine;
+
+    public RouteFareResource(RouteFareRepository routeFareRepository, FareEngine fareEngine) {
+        this.routeFareRepository = routeFareRepository;
+        this.fareEngine = fareEngine;
+    }
+
+    /**
+     * {@code POST  /route-fares} : Create a new routeFare.
+     *
+     * @param routeFare the routeFare to create.
+     * @return the {@link ResponseEntity} with status {@code 201 (Created)} and with body the new routeFare, or with status {@code 400 (Bad Request)} if the routeFare has already an ID.
+     * @throws URISyntaxException if the Location URI syntax is incorrect.
+     */
+    @PostMapping("/route-fares")
+    @PreAuthorize("hasAuthority(\"" + AuthoritiesConstants.ADMIN + "\")")
+    public ResponseEntity<RouteFare> createRouteFare(@Valid @RequestBody RouteFare routeFare) throws URISyntaxException {
+        log.debug("REST request to save RouteFare : {}", routeFare);
+        if (routeFare.getId() != null) {
+            throw new BadRequestAlertException("A new routeFare cannot already have an ID", ENTITY_NAME, "idexists");
+        }
+        checkValidityPeriod(routeFare);
+        RouteFare result = routeFareRepository.save(routeFare);
+        fareEngine.routesChanged(Collections.singletonList(FareEngine.Route.of(result)));
+        return ResponseEntity.created(new URI("/api/route-fares/" + result.getId()))
+            .headers(HeaderUtil.createEntityCreationAlert(applicationName, false, ENTITY_NAME, result.getId().toString()))
+            .body(result);
+    }
+
+    /**
+     * {@code PUT  /route-fares} : Updates an existing routeFare.
+     *
+     * @param routeFare the routeFare to update.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the updated routeFare,
+     * or with status {@code 400 (Bad Request)} if the routeFare is not valid,
+     * or with status {@code 500 (Internal Server Error)} if the routeFare couldn't be updated.
+     * @throws URISyntaxException if the Location URI syntax is incorrect.
+     */
+    @PutMapping("/route-fares")
+    @PreAuthorize("hasAuthority(\"" + AuthoritiesConstants.ADMIN + "\")")
+    public ResponseEntity<RouteFare> updateRouteFare(@Valid @RequestBody RouteFare routeFare) throws URISyntaxException {
+        log.debug("REST request to update RouteFare : {}", routeFare);
+        if (routeFare.getId() == null) {
+            throw new BadRequestAlertException("Invalid id", ENTITY_NAME, "idnull");
+        }
+        checkValidityPeriod(routeFare);
+        Set<FareEngine.Route> routes = new HashSet<>();
+        routeFareRepository.findById(routeFare.getId()).map(FareEngine.Route::of).ifPresent(routes::add);
+        RouteFare result = routeFareRepository.save(routeFare);
+        routes.add(FareEngine.Route.of(result));
+        fareEngine.routesChanged(routes);
+        return ResponseEntity.ok()
+            .headers(HeaderUtil.createEntityUpdateAlert(applicationName, false, ENTITY_NAME, routeFare.getId().toString()))
+            .body(result);
+    }
+
+    /**
+     * {@code POST  /route-fares/adjust} : change the prices of many route fares at once.
+     *
+     * @param fareAdjustmentDTO the route fares to change and how.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the adjustment,
+     * with the number of route fares changed.
+     */
+    @PostMapping("/route-fares/adjust")
+    @PreAuthorize("hasAuthority(\"" + AuthoritiesConstants.ADMIN + "\")")
+    public ResponseEntity<FareAdjustmentDTO> adjustRouteFares(@Valid @RequestBody FareAdjustmentDTO fareAdjustmentDTO) {
+        log.debug("REST request to adjust RouteFares of {} -> {} {} : x{} + {}", fareAdjustmentDTO.getOriginId(),
+            fareAdjustmentDTO.getDestinationId(), fareAdjustmentDTO.getFareType(), fareAdjustmentDTO.getFactor(), fareAdjustmentDTO.getAmount());
+        List<RouteFare> routeFares = routeFareRepository.findAllMatching(fareAdjustmentDTO.getOriginId(),
+            fareAdjustmentDTO.getDestinationId(), fareAdjustmentDTO.getFareType());
+        Set<FareEngine.Route> routes = new HashSet<>();
+        for (RouteFare routeFare : routeFares) {
+            routeFare.adjust(fareAdjustmentDTO.getFactor(), fareAdjustmentDTO.getAmount());
+            routes.add(FareEngine.Route.of(routeFare));
+        }
+        fareEngine.routesChanged(routes);
+        fareAdjustmentDTO.setAdjustedFares(routeFares.size());
+        return ResponseEntity.ok()
+            .headers(HeaderUtil.createAlert(applicationName, applicationName + "." + ENTITY_NAME + ".adjusted",
+                String.valueOf(routeFares.size())))
+            .body(fareAdjustmentDTO);
+    }
+
+    /**
+     * {@code GET  /route-fares} : get all the routeFares.
+     *
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the list of routeFares in body.
+     */
+    @GetMapping("/route-fares")
+    public List<RouteFare> getAllRouteFares() {
+        log.debug("REST request to get all RouteFares");
+        return routeFareRepository.findAll();
+    }
+
+    /**
+     * {@code GET  /route-fares/:id} : get the "id" routeFare.
+     *
+     * @param id the id of the routeFare to retrieve.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the routeFare, or with status {@code 404 (Not Found)}.
+     */
+    @GetMapping("/route-fares/{id}")
+    public ResponseEntity<RouteFare> getRouteFare(@PathVariable Long id) {
+        log.debug("REST request to get RouteFare : {}", id);
+        Optional<RouteFare> routeFare = routeFareRepository.findById(id);
+        return ResponseUtil.wrapOrNotFound(routeFare);
+    }
+
+    /**
+     * {@code DELETE  /route-fares/:id} : delete the "id" routeFare.
+     *
+     * @param id the id of the routeFare to delete.
+     * @return the {@link ResponseEntity} with status {@code 204 (NO_CONTENT)}.
+     */
+    @DeleteMapping("/route-fares/{id}")
+    @PreAuthorize("hasAuthority(\"" + AuthoritiesConstants.ADMIN + "\")")
+    public ResponseEntity<Void> deleteRouteFare(@PathVariable Long id) {
+        log.debug("REST request to delete RouteFare : {}", id);
+        routeFareRepository.findById(id).ifPresent(routeFare -> {
+            routeFareRepository.delete(routeFare);
+            fareEngine.routesChanged(Collections.singletonList(FareEngine.Route.of(routeFare)));
+        });
+        return ResponseEntity.noContent().headers(HeaderUtil.createEntityDeletionAlert(applicationName, false, ENTITY_NAME, id.toString())).build();
+    }
+
+    /**
+     * {@code GET  /fares/quote} : quote the fare of a route.
+     *
+     * @param originId the id of the origin airport.
+     * @param destinationId the id of the destination airport.
+     * @param fareType the fare type.
+     * @param departureDate the departure date.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the quote, or with status {@code 404 (Not Found)}
+     * if the route has no fare for that fare type and date.
+     */
+    @GetMapping("/fares/quote")
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public ResponseEntity<FareQuoteDTO> quoteFare(@RequestParam Long originId, @RequestParam Long destinationId,
+                                                  @RequestParam EFareType fareType, @RequestParam LocalDate departureDate) {
+        OptionalDouble fare = fareEngine.quote(originId, destinationId, fareType, departureDate);
+        return ResponseUtil.wrapOrNotFound(fare.isPresent()
+            ? Optional.of(new FareQuoteDTO(originId, destinationId, fareType, departureDate, fare.getAsDouble()))
+            : Optional.empty());
+    }
+
+    private static void checkValidityPeriod(RouteFare routeFare) {
+        if (routeFare.getValidUntil() != null && routeFare.getValidUntil().isBefore(routeFare.getValidFrom())) {
+            throw new BadRequestAlertException("The validity period ends before it starts", ENTITY_NAME, "validityperiod");
+        }
+    }
+}
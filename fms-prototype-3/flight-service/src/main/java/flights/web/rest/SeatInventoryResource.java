@@ -0,0 +1,141 @@
+package flights.web.rest;
+
+import flights.domain.Flight;
+import flights.domain.SeatInventory;
+import flights.repository.FlightRepository;
+import flights.repository.SeatInventoryRepository;
+import flights.security.AuthoritiesConstants;
+import flights.service.FareEngine;
+import flights.service.SeatCount;
+import flights.service.SeatInventoryEngine;
+import flights.service.dto.SeatAvailabilityDTO;
+import flights.service.dto.SeatHoldDTO;
+import flights.web.rest.errors.BadRequestAlertException;
+
+import io.github.jhipster.web.util.HeaderUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+import javax.validation.Valid;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+/**
+ * REST controller for managing the seat inventory of flights and holding seats.
+ * <p>
+ * Not transactional: the {@link SeatInventoryEngine} writes each ledger entry in its own short transaction.
+ */
+@RestController
+@RequestMapping("/api")
+public class SeatInventoryResource {
+
+    private final Logger log = LoggerFactory.getLogger(SeatInventoryResource.class);
+
+    private static final String ENTITY_NAME = "flightsSeatHold";
+
+    @Value("${jhipster.clientApp.name}")
+    private String applicationName;
+
+    private final SeatInventoryEngine seatInventoryEngine;
+    private final SeatInventoryRepository seatInventoryRepository;
+    private final FlightRepository flightRepository;
+    private final FareEngine fareEngine;
+
+    public SeatInventoryResource(SeatInventoryEngine seatInventoryEngine, SeatInventoryRepository seatInventoryRepository,
+                                 FlightRepository flightRepository, FareEngine fareEngine) {
+        this.seatInventoryEngine = seatInventoryEngine;
+        this.seatInventoryRepository = seatInventoryRepository;
+        this.flightRepository = flightRepository;
+        this.fareEngine = fareEngine;
+    }
+
+    /**
+     * {@code GET  /flights/:flightId/seat-inventory} : get the seats of every cabin of the "flightId" flight.
+     *
+     * @param flightId the id of the flight.
+     * @return the list of capacities and seats held per cabin.
+     */
+    @GetMapping("/flights/{flightId}/seat-inventory")
+    public List<SeatAvailabilityDTO> getSeatInventory(@PathVariable Long flightId) {
+        log.debug("REST request to get the seat inventory of Flight : {}", flightId);
+        return seatInventoryRepository.findAllByFlightId(flightId).stream()
+            .map(SeatInventory::getCabin)
+            .map(cabin -> seatInventoryEngine.getCount(flightId, cabin).map(count -> new SeatAvailabilityDTO(cabin, count)))
+            .filter(Optional::isPresent)
+            .map(Optional::get)
+            .collect(Collectors.toList());
+    }
+
+    /**
+     * {@code PUT  /flights/:flightId/seat-inventory} : set the capacity of a cabin of the "flightId" flight.
+     *
+     * @param flightId the id of the flight.
+     * @param seatAvailabilityDTO the cabin and its capacity.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the capacity and seats held of the cabin.
+     */
+    @PutMapping("/flights/{flightId}/seat-inventory")
+    @PreAuthorize("hasAuthority(\"" + AuthoritiesConstants.ADMIN + "\")")
+    public ResponseEntity<SeatAvailabilityDTO> updateSeatInventory(@PathVariable Long flightId,
+                                                                   @Valid @RequestBody SeatAvailabilityDTO seatAvailabilityDTO) {
+        log.debug("REST request to update the seat inventory of Flight {} : {} {}", flightId,
+            seatAvailabilityDTO.getCabin(), seatAvailabilityDTO.getCapacity());
+        SeatCount count = seatInventoryEngine.setCapacity(flightId, seatAvailabilityDTO.getCabin(), seatAvailabilityDTO.getCapacity());
+        return ResponseEntity.ok()
+            .headers(HeaderUtil.createEntityUpdateAlert(applicationName, false, "flightsSeatInventory", flightId.toString()))
+            .body(new SeatAvailabilityDTO(seatAvailabilityDTO.getCabin(), count));
+    }
+
+    /**
+     * {@code POST  /flights/:flightId/seat-holds} : hold seats of a cabin of the "flightId" flight, at the
+     * fare quoted for the cabin when they are held.
+     *
+     * @param flightId the id of the flight.
+     * @param seatHoldDTO the cabin and number of seats to hold.
+     * @return the {@link ResponseEntity} with status {@code 201 (Created)} and with body the hold,
+     * with status {@code 400 (Bad Request)} if the cabin has no seat inventory,
+     * or with status {@code 409 (Conflict)} if not enough seats are available.
+     * @throws URISyntaxException if the Location URI syntax is incorrect.
+     */
+    @PostMapping("/flights/{flightId}/seat-holds")
+    public ResponseEntity<SeatHoldDTO> createSeatHold(@PathVariable Long flightId, @Valid @RequestBody SeatHoldDTO seatHoldDTO) throws URISyntaxException {
+        log.debug("REST request to hold seats of Flight {} : {} {}", flightId, seatHoldDTO.getSeats(), seatHoldDTO.getCabin());
+        if (seatHoldDTO.getHoldId() != null) {
+            throw new BadRequestAlertException("A new seat hold cannot already have an ID", ENTITY_NAME, "idexists");
+        }
+        Optional<Flight> flight = flightRepository.findById(flightId);
+        if (!flight.isPresent() || !seatInventoryEngine.getCount(flightId, seatHoldDTO.getCabin()).isPresent()) {
+            throw new BadRequestAlertException("The cabin has no seat inventory", ENTITY_NAME, "noinventory");
+        }
+        Optional<SeatHoldDTO> hold = seatInventoryEngine.hold(flightId, seatHoldDTO.getCabin(), seatHoldDTO.getSeats());
+        if (!hold.isPresent()) {
+            return ResponseEntity.status(HttpStatus.CONFLICT)
+                .headers(HeaderUtil.createFailureAlert(applicationName, false, ENTITY_NAME, "seatsunavailable", "Not enough seats available"))
+                .build();
+        }
+        hold.get().setFare(fareEngine.price(flight.get(), seatHoldDTO.getCabin()));
+        return ResponseEntity.created(new URI("/api/seat-holds/" + hold.get().getHoldId()))
+            .headers(HeaderUtil.createEntityCreationAlert(applicationName, false, ENTITY_NAME, hold.get().getHoldId()))
+            .body(hold.get());
+    }
+
+    /**
+     * {@code DELETE  /seat-holds/:holdId} : release the "holdId" hold.
+     *
+     * @param holdId the id of the hold to release.
+     * @return the {@link ResponseEntity} with status {@code 204 (NO_CONTENT)}.
+     */
+    @DeleteMapping("/seat-holds/{holdId}")
+    public ResponseEntity<Void> deleteSeatHold(@PathVariable String holdId) {
+        log.debug("REST request to release seat hold : {}", holdId);
+        seatInventoryEngine.release(holdId);
+        return ResponseEntity.noContent().headers(HeaderUtil.createEntityDeletionAlert(applicationName, false, ENTITY_NAME, holdId)).build();
+    }
+}
@@ -0,0 +1,81 @@
+package flights.domain;
+
+import org.junit.jupiter.api.Test;
+import static org.assertj.core.api.Assertions.assertThat;
+import flights.web.rest.TestUtil;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+
+public class FlightScheduleTest {
+
+    @Test
+    public void equalsVerifier() throws Exception {
+        TestUtil.equalsVerifier(FlightSchedule.class);
+        FlightSchedule flightSchedule1 = new FlightSchedule();
+        flightSchedule1.setId(1L);
+        FlightSchedule flightSchedule2 = new FlightSchedule();
+        flightSchedule2.setId(flightSchedule1.getId());
+        assertThat(flightSchedule1).isEqualTo(flightSchedule2);
+        flightSchedule2.setId(2L);
+        assertThat(flightSchedule1).isNotEqualTo(flightSchedule2);
+        flightSchedule1.setId(null);
+        assertThat(flightSchedule1).isNotEqualTo(flightSchedule2);
+    }
+
+    @Test
+    public void operatesOnScheduledDaysWithinValidityPeriod() {
+        // 2020-10-05 is a Monday
+        FlightSchedule flightSchedule = new FlightSchedule()
+            .daysOfWeek(FlightSchedule.daysOfWeekMask(DayOfWeek.MONDAY, DayOfWeek.FRIDAY))
+            .validFrom(LocalDate.of(2020, 10, 5))
+            .validUntil(LocalDate.of(2020, 10, 16));
+
+        assertThat(flightSchedule.getDaysOfWeek()).isEqualTo(0b10001);
+        assertThat(flightSchedule.operatesOn(LocalDate.of(2020, 10, 5))).isTrue();
+        assertThat(flightSchedule.operatesOn(LocalDate.of(2020, 10, 6))).isFalse();
+        assertThat(flightSchedule.operatesOn(LocalDate.of(2020, 10, 9))).isTrue();
+        assertThat(flightSchedule.operatesOn(LocalDate.of(2020, 10, 16))).isTrue();
+        assertThat(flightSchedule.operatesOn(LocalDate.of(2020, 10, 2))).isFalse();
+        assertThat(flightSchedule.operatesOn(LocalDate.of(2020, 10, 19))).isFalse();
+    }
+
+    @Test
+    public void operatesOnSundays() {
+        FlightSchedule flightSchedule = new FlightSchedule()
+            .daysOfWeek(FlightSchedule.daysOfWeekMask(DayOfWeek.SUNDAY))
+            .validFrom(LocalDate.of(2020, 1, 1))
+            .validUntil(LocalDate.of(2020, 12, 31));
+
+        assertThat(flightSchedule.operatesOn(LocalDate.of(2020, 10, 4))).isTrue();
+        assertThat(flightSchedule.operatesOn(LocalDate.of(2020, 10, 3))).isFalse();
+    }
+
+    @Test
+    public void toFlightCopiesTheFareTemplate() {
+        Airport origin = new Airport();
+        origin.setId(1L);
+        Airport destination = new Airport();
+        destination.setId(2L);
+        FlightSchedule flightSchedule = new FlightSchedule()
+            .flightNumber("LH123")
+            .price(99D)
+            .boardingGate(4)
+            .airlineName("Lufthansa")
+            .origin(origin)
+            .destination(destination);
+        flightSchedule.setId(7L);
+
+        Flight flight = flightSchedule.toFlight(LocalDate.of(2020, 10, 5));
+
+        assertThat(flight.getId()).isNull();
+        assertThat(flight.getFlightNumber()).isEqualTo("LH123");
+        assertThat(flight.getPrice()).isEqualTo(99D);
+        assertThat(flight.getBoardingGate()).isEqualTo(4);
+        assertThat(flight.getAirlineName()).isEqualTo("Lufthansa");
+        assertThat(flight.getDepartureDate()).isEqualTo(LocalDate.of(2020, 10, 5));
+        assertThat(flight.getOrigin()).isSameAs(origin);
+        assertThat(flight.getDestination()).isSameAs(destination);
+        assertThat(flight.getSchedule()).isSameAs(flightSchedule);
+    }
+}
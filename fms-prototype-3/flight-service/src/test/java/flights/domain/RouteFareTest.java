@@ -0,0 +1,22 @@
+package flights.domain;
+
+import org.junit.jupiter.api.Test;
+import static org.assertj.core.api.Assertions.assertThat;
+import flights.web.rest.TestUtil;
+
+public class RouteFareTest {
+
+    @Test
+    public void equalsVerifier() throws Exception {
+        TestUtil.equalsVerifier(RouteFare.class);
+        RouteFare routeFare1 = new RouteFare();
+        routeFare1.setId(1L);
+        RouteFare routeFare2 = new RouteFare();
+        routeFare2.setId(routeFare1.getId());
+        assertThat(routeFare1).isEqualTo(routeFare2);
+        routeFare2.setId(2L);
+        assertThat(routeFare1).isNotEqualTo(routeFare2);
+        routeFare1.setId(null);
+        assertThat(routeFare1).isNotEqualTo(routeFare2);
+    }
+}
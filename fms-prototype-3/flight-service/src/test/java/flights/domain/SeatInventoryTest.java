@@ -0,0 +1,22 @@
+package flights.domain;
+
+import org.junit.jupiter.api.Test;
+import static org.assertj.core.api.Assertions.assertThat;
+import flights.web.rest.TestUtil;
+
+public class SeatInventoryTest {
+
+    @Test
+    public void equalsVerifier() throws Exception {
+        TestUtil.equalsVerifier(SeatInventory.class);
+        SeatInventory seatInventory1 = new SeatInventory();
+        seatInventory1.setId(1L);
+        SeatInventory seatInventory2 = new SeatInventory();
+        seatInventory2.setId(seatInventory1.getId());
+        assertThat(seatInventory1).isEqualTo(seatInventory2);
+        seatInventory2.setId(2L);
+        assertThat(seatInventory1).isNotEqualTo(seatInventory2);
+        seatInventory1.setId(null);
+        assertThat(seatInventory1).isNotEqualTo(seatInventory2);
+    }
+}
@@ -0,0 +1,22 @@
+package flights.domain;
+
+import org.junit.jupiter.api.Test;
+import static org.assertj.core.api.Assertions.assertThat;
+import flights.web.rest.TestUtil;
+
+public class SeatLedgerEntryTest {
+
+    @Test
+    public void equalsVerifier() throws Exception {
+        TestUtil.equalsVerifier(SeatLedgerEntry.class);
+        SeatLedgerEntry seatLedgerEntry1 = new SeatLedgerEntry();
+        seatLedgerEntry1.setId(1L);
+        SeatLedgerEntry seatLedgerEntry2 = new SeatLedgerEntry();
+        seatLedgerEntry2.setId(seatLedgerEntry1.getId());
+        assertThat(seatLedgerEntry1).isEqualTo(seatLedgerEntry2);
+        seatLedgerEntry2.setId(2L);
+        assertThat(seatLedgerEntry1).isNotEqualTo(seatLedgerEntry2);
+        seatLedgerEntry1.setId(null);
+        assertThat(seatLedgerEntry1).isNotEqualTo(seatLedgerEntry2);
+    }
+}
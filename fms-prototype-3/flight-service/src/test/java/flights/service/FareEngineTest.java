@@ -0,0 +1,130 @@
+package flights.service;
+
+import flights.domain.Airport;
+import flights.domain.Flight;
+import flights.domain.RouteFare;
+import flights.domain.enumeration.EFareType;
+import flights.repository.RouteFareRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.OptionalDouble;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Test class for the {@link FareEngine} and its {@link FareTable fare tables}.
+ */
+public class FareEngineTest {
+
+    private static final LocalDate TODAY = LocalDate.now(ZoneOffset.UTC);
+
+    private RouteFareRepository routeFareRepository;
+    private final List<RouteFare> rules = new ArrayList<>();
+    private FareEngine fareEngine;
+
+    @BeforeEach
+    public void setUp() {
+        routeFareRepository = mock(RouteFareRepository.class);
+        when(routeFareRepository.findAll()).thenReturn(rules);
+        when(routeFareRepository.findAllByOriginIdInAndDestinationIdIn(anyCollection(), anyCollection())).thenReturn(rules);
+        fareEngine = new FareEngine(routeFareRepository, 30, 4, null);
+    }
+
+    private RouteFare rule(long id, long originId, long destinationId, EFareType fareType, LocalDate from, LocalDate until, double price) {
+        RouteFare rule = new RouteFare().originId(originId).destinationId(destinationId).fareType(fareType)
+            .validFrom(from).validUntil(until).price(price);
+        rule.setId(id);
+        rules.add(rule);
+        return rule;
+    }
+
+    @Test
+    public void laterRulesOverrideEarlierOnes() {
+        rule(1, 1, 2, EFareType.ECONOMY, TODAY.minusYears(1), null, 100);
+        rule(2, 1, 2, EFareType.ECONOMY, TODAY.plusDays(10), TODAY.plusDays(12), 150);
+        rule(3, 1, 2, EFareType.BUSINESS, TODAY, TODAY.plusDays(5), 400);
+        fareEngine.recomputeAll();
+
+        assertThat(fareEngine.quote(1L, 2L, EFareType.ECONOMY, TODAY)).isEqualTo(OptionalDouble.of(100));
+        assertThat(fareEngine.quote(1L, 2L, EFareType.ECONOMY, TODAY.plusDays(10))).isEqualTo(OptionalDouble.of(150));
+        assertThat(fareEngine.quote(1L, 2L, EFareType.ECONOMY, TODAY.plusDays(13))).isEqualTo(OptionalDouble.of(100));
+        assertThat(fareEngine.quote(1L, 2L, EFareType.BUSINESS, TODAY.plusDays(5))).isEqualTo(OptionalDouble.of(400));
+        assertThat(fareEngine.quote(1L, 2L, EFareType.BUSINESS, TODAY.plusDays(6))).isEmpty();
+        assertThat(fareEngine.quote(2L, 1L, EFareType.ECONOMY, TODAY)).isEmpty();
+    }
+
+    @Test
+    public void departuresOutsideTheHorizonArePricedFromTheRules() {
+        rule(1, 1, 2, EFareType.ECONOMY, TODAY.minusYears(1), null, 100);
+        rule(2, 1, 2, EFareType.ECONOMY, TODAY.plusDays(200), TODAY.plusDays(210), 80);
+        fareEngine.recomputeAll();
+
+        assertThat(fareEngine.quote(1L, 2L, EFareType.ECONOMY, TODAY.minusDays(3))).isEqualTo(OptionalDouble.of(100));
+        assertThat(fareEngine.quote(1L, 2L, EFareType.ECONOMY, TODAY.plusDays(205))).isEqualTo(OptionalDouble.of(80));
+        assertThat(fareEngine.quote(1L, 2L, EFareType.ECONOMY, TODAY.plusDays(211))).isEqualTo(OptionalDouble.of(100));
+        assertThat(fareEngine.quote(1L, 2L, EFareType.ECONOMY, TODAY.minusYears(2))).isEmpty();
+    }
+
+    @Test
+    public void bulkChangesRecomputeEveryRoute() {
+        List<FareEngine.Route> routes = new ArrayList<>();
+        for (long origin = 1; origin <= 20; origin++) {
+            for (long destination = 21; destination <= 40; destination++) {
+                rule(origin * 100 + destination, origin, destination, EFareType.ECONOMY, TODAY, null, 100);
+                routes.add(new FareEngine.Route(origin, destination));
+            }
+        }
+        fareEngine.recomputeAll();
+        assertThat(fareEngine.quote(20L, 40L, EFareType.ECONOMY, TODAY)).isEqualTo(OptionalDouble.of(100));
+
+        rules.forEach(rule -> rule.adjust(1.1, -0.5));
+        fareEngine.recompute(routes);
+
+        for (long origin = 1; origin <= 20; origin++) {
+            for (long destination = 21; destination <= 40; destination++) {
+                assertThat(fareEngine.quote(origin, destination, EFareType.ECONOMY, TODAY.plusDays(3))).isEqualTo(OptionalDouble.of(109.5));
+            }
+        }
+    }
+
+    @Test
+    public void routesWithoutRulesAreDropped() {
+        rule(1, 1, 2, EFareType.ECONOMY, TODAY, null, 100);
+        fareEngine.recomputeAll();
+
+        rules.clear();
+        fareEngine.recompute(Collections.singletonList(new FareEngine.Route(1, 2)));
+
+        assertThat(fareEngine.quote(1L, 2L, EFareType.ECONOMY, TODAY)).isEmpty();
+    }
+
+    @Test
+    public void flightsWithoutFaresKeepTheirPrice() {
+        rule(1, 1, 2, EFareType.ECONOMY, TODAY, null, 100);
+        fareEngine.recomputeAll();
+        Airport origin = new Airport();
+        origin.setId(1L);
+        Airport destination = new Airport();
+        destination.setId(2L);
+        Flight priced = new Flight().origin(origin).destination(destination).fareType(EFareType.ECONOMY)
+            .departureDate(TODAY).price(60.0);
+        Flight unpriced = new Flight().origin(destination).destination(origin).fareType(EFareType.ECONOMY)
+            .departureDate(TODAY).price(60.0);
+
+        fareEngine.price(Arrays.asList(priced, unpriced));
+
+        assertThat(priced.getPrice()).isEqualTo(100.0);
+        assertThat(unpriced.getPrice()).isEqualTo(60.0);
+        assertThat(fareEngine.price(priced, EFareType.BUSINESS)).isEqualTo(100.0);
+    }
+}
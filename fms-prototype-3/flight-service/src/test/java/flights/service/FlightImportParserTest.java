@@ -0,0 +1,88 @@
+package flights.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import flights.domain.Flight;
+import flights.domain.enumeration.EFareType;
+import flights.domain.enumeration.EFlightType;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class FlightImportParserTest {
+
+    private static final String CSV_HEADER = "flight_number;flight_type;fare_type;pilot;plane_model_number;price;departure_date;boarding_gate;airline_name;origin_id;destination_id";
+
+    private final ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+
+    @Test
+    public void parsesCsvLinesByHeaderName() {
+        FlightImportParser parser = new FlightImportParser(FlightImportJob.Format.CSV, objectMapper);
+        assertThat(parser.expectsHeader()).isTrue();
+        parser.readHeader(CSV_HEADER);
+        assertThat(parser.expectsHeader()).isFalse();
+
+        Flight flight = parser.parse("LH123;one_way;business;Jane Doe;A320;499.5;2020-10-01;12;Lufthansa;1;2");
+
+        assertThat(flight.getId()).isNull();
+        assertThat(flight.getFlightNumber()).isEqualTo("LH123");
+        assertThat(flight.getFlightType()).isEqualTo(EFlightType.ONE_WAY);
+        assertThat(flight.getFareType()).isEqualTo(EFareType.BUSINESS);
+        assertThat(flight.getPrice()).isEqualTo(499.5);
+        assertThat(flight.getDepartureDate()).isEqualTo(LocalDate.of(2020, 10, 1));
+        assertThat(flight.getBoardingGate()).isEqualTo(12);
+        assertThat(flight.getOrigin().getId()).isEqualTo(1L);
+        assertThat(flight.getDestination().getId()).isEqualTo(2L);
+    }
+
+    @Test
+    public void leavesMissingCsvValuesEmpty() {
+        FlightImportParser parser = new FlightImportParser(FlightImportJob.Format.CSV, objectMapper);
+        parser.readHeader("flight_number;origin_id");
+
+        Flight flight = parser.parse("LH123;");
+
+        assertThat(flight.getFlightNumber()).isEqualTo("LH123");
+        assertThat(flight.getOrigin()).isNull();
+        assertThat(flight.getPrice()).isNull();
+    }
+
+    @Test
+    public void rejectsMalformedCsvValues() {
+        FlightImportParser parser = new FlightImportParser(FlightImportJob.Format.CSV, objectMapper);
+        parser.readHeader(CSV_HEADER);
+
+        assertThatThrownBy(() -> parser.parse("LH123;one_way;business;Jane Doe;A320;cheap;2020-10-01;12;Lufthansa;1;2"))
+            .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> parser.parse("LH123;orbital;business;Jane Doe;A320;10;2020-10-01;12;Lufthansa;1;2"))
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessageContaining("EFlightType");
+        assertThatThrownBy(() -> parser.parse("LH123;one_way;business;Jane Doe;A320;10;01.10.2020;12;Lufthansa;1;2"))
+            .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    public void parsesNdjsonLines() {
+        FlightImportParser parser = new FlightImportParser(FlightImportJob.Format.NDJSON, objectMapper);
+        assertThat(parser.expectsHeader()).isFalse();
+
+        Flight flight = parser.parse("{\"flightNumber\":\"LH123\",\"fareType\":\"ECONOMY\",\"departureDate\":\"2020-10-01\",\"origin\":{\"id\":3}}");
+
+        assertThat(flight.getFlightNumber()).isEqualTo("LH123");
+        assertThat(flight.getFareType()).isEqualTo(EFareType.ECONOMY);
+        assertThat(flight.getDepartureDate()).isEqualTo(LocalDate.of(2020, 10, 1));
+        assertThat(flight.getOrigin().getId()).isEqualTo(3L);
+    }
+
+    @Test
+    public void rejectsMalformedNdjsonLines() {
+        FlightImportParser parser = new FlightImportParser(FlightImportJob.Format.NDJSON, objectMapper);
+
+        assertThatThrownBy(() -> parser.parse("{\"flightNumber\":"))
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessageStartingWith("Malformed JSON");
+    }
+}
@@ -0,0 +1,65 @@
+package flights.service;
+
+import fms.common.config.KafkaProperties;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.ConsumerRecords;
+import org.apache.kafka.common.TopicPartition;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Test class for the {@link FlightKafkaConsumer}.
+ */
+public class FlightKafkaConsumerTest {
+
+    private static final TopicPartition CANCELLED_0 = new TopicPartition(FlightKafkaConsumer.TOPIC_BOOKING_CANCELLED, 0);
+
+    private SeatInventoryEngine seatInventoryEngine;
+    private FlightKafkaConsumer flightKafkaConsumer;
+
+    @BeforeEach
+    public void setUp() {
+        seatInventoryEngine = mock(SeatInventoryEngine.class);
+        flightKafkaConsumer = new FlightKafkaConsumer(new KafkaProperties(), seatInventoryEngine);
+    }
+
+    private ConsumerRecords<String, String> records(String... values) {
+        List<ConsumerRecord<String, String>> records = new ArrayList<>();
+        for (int offset = 0; offset < values.length; offset++) {
+            records.add(new ConsumerRecord<>(CANCELLED_0.topic(), 0, offset, null, values[offset]));
+        }
+        return new ConsumerRecords<>(Collections.singletonMap(CANCELLED_0, records));
+    }
+
+    @Test
+    public void theSeatHoldOfACancelledBookingIsReleased() {
+        when(seatInventoryEngine.release("hold-1")).thenReturn(true);
+
+        int released = flightKafkaConsumer.handle(records(
+            "{\"bookingNumber\":\"B1\",\"flightId\":7,\"seatHoldId\":\"hold-1\",\"passengerId\":\"user\"}"));
+
+        assertThat(released).isEqualTo(1);
+        verify(seatInventoryEngine).release("hold-1");
+    }
+
+    @Test
+    public void bookingsWithoutAHoldAndUnreadableEventsAreSkipped() {
+        int released = flightKafkaConsumer.handle(records(
+            "{\"bookingNumber\":\"B2\",\"flightId\":7}",
+            "not a booking"));
+
+        assertThat(released).isZero();
+        verify(seatInventoryEngine, never()).release(anyString());
+    }
+}
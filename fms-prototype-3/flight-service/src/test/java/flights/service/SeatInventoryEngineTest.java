@@ -0,0 +1,213 @@
+package flights.service;
+
+import com.hazelcast.config.Config;
+import com.hazelcast.core.Hazelcast;
+import com.hazelcast.core.HazelcastInstance;
+import flights.domain.SeatInventory;
+import flights.domain.SeatLedgerEntry;
+import flights.domain.enumeration.EFareType;
+import flights.domain.enumeration.ESeatLedgerEntryType;
+import flights.repository.SeatInventoryRepository;
+import flights.repository.SeatLedgerEntryRepository;
+import flights.service.dto.SeatHoldDTO;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataIntegrityViolationException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.withSettings;
+
+/**
+ * Tests and stresses the {@link SeatInventoryEngine} on a single hot cabin.
+ */
+public class SeatInventoryEngineTest {
+
+    private static final Long FLIGHT_ID = 1L;
+
+    private SeatInventoryRepository seatInventoryRepository;
+    private SeatLedgerEntryRepository seatLedgerEntryRepository;
+
+    private final AtomicInteger ledgerSeats = new AtomicInteger();
+    private final Map<String, SeatLedgerEntry> holds = new ConcurrentHashMap<>();
+    private final Set<String> releases = ConcurrentHashMap.newKeySet();
+
+    @BeforeEach
+    public void setUp() {
+        // stub only: the mocks are called from many threads and must not record every invocation
+        seatInventoryRepository = mock(SeatInventoryRepository.class, withSettings().stubOnly());
+        seatLedgerEntryRepository = mock(SeatLedgerEntryRepository.class, withSettings().stubOnly());
+
+        when(seatLedgerEntryRepository.save(any(SeatLedgerEntry.class))).thenAnswer(invocation -> {
+            SeatLedgerEntry entry = invocation.getArgument(0);
+            holds.put(entry.getHoldId(), entry);
+            ledgerSeats.addAndGet(entry.getSeats());
+            return entry;
+        });
+        when(seatLedgerEntryRepository.saveAndFlush(any(SeatLedgerEntry.class))).thenAnswer(invocation -> {
+            SeatLedgerEntry entry = invocation.getArgument(0);
+            if (!releases.add(entry.getHoldId())) {
+                throw new DataIntegrityViolationException("ux_seat_ledger_hold_entry_type");
+            }
+            ledgerSeats.addAndGet(entry.getSeats());
+            return entry;
+        });
+        when(seatLedgerEntryRepository.findOneByHoldIdAndEntryType(anyString(), eq(ESeatLedgerEntryType.HOLD)))
+            .thenAnswer(invocation -> Optional.ofNullable(holds.get(invocation.<String>getArgument(0))));
+        when(seatLedgerEntryRepository.sumSeats(anyLong(), any(EFareType.class))).thenAnswer(invocation -> (long) ledgerSeats.get());
+    }
+
+    private void givenCapacity(int capacity) {
+        when(seatInventoryRepository.findOneByFlightIdAndCabin(FLIGHT_ID, EFareType.ECONOMY))
+            .thenReturn(Optional.of(new SeatInventory().flightId(FLIGHT_ID).cabin(EFareType.ECONOMY).capacity(capacity)));
+    }
+
+    @Test
+    public void concurrentHoldsNeverOverbookLocalCounts() throws Exception {
+        givenCapacity(100);
+        SeatInventoryEngine engine = new SeatInventoryEngine(new ConcurrentHashMap<>(), seatInventoryRepository, seatLedgerEntryRepository);
+
+        List<SeatHoldDTO> held = holdConcurrently(engine, 32, 200);
+
+        assertThat(held).hasSize(100);
+        assertThat(held.stream().map(SeatHoldDTO::getHoldId).distinct()).hasSize(100);
+        assertThat(engine.getCount(FLIGHT_ID, EFareType.ECONOMY).get().getHeld()).isEqualTo(100);
+        assertThat(ledgerSeats.get()).isEqualTo(100);
+    }
+
+    @Test
+    public void concurrentHoldsNeverOverbookHazelcastCounts() throws Exception {
+        Config config = new Config();
+        config.setInstanceName("seat-inventory-engine-test");
+        config.getNetworkConfig().getJoin().getMulticastConfig().setEnabled(false);
+        config.getNetworkConfig().getJoin().getTcpIpConfig().setEnabled(false);
+        HazelcastInstance hazelcastInstance = Hazelcast.newHazelcastInstance(config);
+        try {
+            givenCapacity(50);
+            ConcurrentMap<String, SeatCount> counts = hazelcastInstance.getMap(SeatInventoryEngine.SEAT_COUNTS_MAP);
+            // two engines sharing the map, as two instances of the service would
+            SeatInventoryEngine first = new SeatInventoryEngine(counts, seatInventoryRepository, seatLedgerEntryRepository);
+            SeatInventoryEngine second = new SeatInventoryEngine(counts, seatInventoryRepository, seatLedgerEntryRepository);
+
+            List<SeatHoldDTO> held = new ArrayList<>();
+            ExecutorService executor = Executors.newFixedThreadPool(2);
+            Future<List<SeatHoldDTO>> firstHeld = executor.submit(() -> holdConcurrently(first, 8, 20));
+            Future<List<SeatHoldDTO>> secondHeld = executor.submit(() -> holdConcurrently(second, 8, 20));
+            held.addAll(firstHeld.get());
+            held.addAll(secondHeld.get());
+            executor.shutdown();
+
+            assertThat(held).hasSize(50);
+            assertThat(first.getCount(FLIGHT_ID, EFareType.ECONOMY).get().getHeld()).isEqualTo(50);
+            assertThat(ledgerSeats.get()).isEqualTo(50);
+        } finally {
+            hazelcastInstance.shutdown();
+        }
+    }
+
+    @Test
+    public void releasedSeatsCanBeHeldAgain() throws Exception {
+        givenCapacity(100);
+        SeatInventoryEngine engine = new SeatInventoryEngine(new ConcurrentHashMap<>(), seatInventoryRepository, seatLedgerEntryRepository);
+        List<SeatHoldDTO> held = holdConcurrently(engine, 16, 50);
+        assertThat(engine.hold(FLIGHT_ID, EFareType.ECONOMY, 1)).isEmpty();
+
+        // every hold is released twice, concurrently: only one release of each counts
+        ExecutorService executor = Executors.newFixedThreadPool(16);
+        AtomicInteger released = new AtomicInteger();
+        for (SeatHoldDTO hold : held) {
+            for (int i = 0; i < 2; i++) {
+                executor.execute(() -> {
+                    if (engine.release(hold.getHoldId())) {
+                        released.incrementAndGet();
+                    }
+                });
+            }
+        }
+        executor.shutdown();
+        assertThat(executor.awaitTermination(30, TimeUnit.SECONDS)).isTrue();
+
+        assertThat(released.get()).isEqualTo(100);
+        assertThat(engine.getCount(FLIGHT_ID, EFareType.ECONOMY).get().getHeld()).isEqualTo(0);
+        assertThat(ledgerSeats.get()).isEqualTo(0);
+        assertThat(engine.hold(FLIGHT_ID, EFareType.ECONOMY, 100)).isPresent();
+        assertThat(engine.hold(FLIGHT_ID, EFareType.ECONOMY, 1)).isEmpty();
+    }
+
+    @Test
+    public void countIsRebuiltFromTheLedger() {
+        givenCapacity(10);
+        ledgerSeats.set(7);
+        SeatInventoryEngine engine = new SeatInventoryEngine(new ConcurrentHashMap<>(), seatInventoryRepository, seatLedgerEntryRepository);
+
+        assertThat(engine.getCount(FLIGHT_ID, EFareType.ECONOMY).get().getAvailable()).isEqualTo(3);
+        assertThat(engine.hold(FLIGHT_ID, EFareType.ECONOMY, 4)).isEmpty();
+        assertThat(engine.hold(FLIGHT_ID, EFareType.ECONOMY, 3)).isPresent();
+    }
+
+    @Test
+    public void cabinWithoutInventoryCannotBeHeld() {
+        when(seatInventoryRepository.findOneByFlightIdAndCabin(FLIGHT_ID, EFareType.BUSINESS)).thenReturn(Optional.empty());
+        SeatInventoryEngine engine = new SeatInventoryEngine(new ConcurrentHashMap<>(), seatInventoryRepository, seatLedgerEntryRepository);
+
+        assertThat(engine.getCount(FLIGHT_ID, EFareType.BUSINESS)).isEmpty();
+        assertThat(engine.hold(FLIGHT_ID, EFareType.BUSINESS, 1)).isEmpty();
+    }
+
+    @Test
+    public void capacityChangesApplyToFurtherHolds() {
+        givenCapacity(2);
+        when(seatInventoryRepository.save(any(SeatInventory.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        SeatInventoryEngine engine = new SeatInventoryEngine(new ConcurrentHashMap<>(), seatInventoryRepository, seatLedgerEntryRepository);
+        assertThat(engine.hold(FLIGHT_ID, EFareType.ECONOMY, 2)).isPresent();
+
+        assertThat(engine.setCapacity(FLIGHT_ID, EFareType.ECONOMY, 1).getAvailable()).isEqualTo(0);
+        assertThat(engine.hold(FLIGHT_ID, EFareType.ECONOMY, 1)).isEmpty();
+
+        SeatCount count = engine.setCapacity(FLIGHT_ID, EFareType.ECONOMY, 3);
+        assertThat(count.getHeld()).isEqualTo(2);
+        assertThat(engine.hold(FLIGHT_ID, EFareType.ECONOMY, 1)).isPresent();
+    }
+
+    private static List<SeatHoldDTO> holdConcurrently(SeatInventoryEngine engine, int threads, int attemptsPerThread) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<List<SeatHoldDTO>>> results = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            results.add(executor.submit(() -> {
+                start.await();
+                List<SeatHoldDTO> held = new ArrayList<>();
+                for (int i = 0; i < attemptsPerThread; i++) {
+                    engine.hold(FLIGHT_ID, EFareType.ECONOMY, 1).ifPresent(held::add);
+                }
+                return held;
+            }));
+        }
+        start.countDown();
+        List<SeatHoldDTO> held = new ArrayList<>();
+        for (Future<List<SeatHoldDTO>> result : results) {
+            held.addAll(result.get(60, TimeUnit.SECONDS));
+        }
+        executor.shutdown();
+        return held;
+    }
+}
@@ -0,0 +1,197 @@
+package flights.web.rest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import flights.FlightsApp;
+import flights.config.ApplicationProperties;
+import flights.domain.Airport;
+import flights.domain.Flight;
+import flights.repository.AirportRepository;
+import flights.repository.FlightRepository;
+import flights.security.AuthoritiesConstants;
+import flights.service.FlightImportJob;
+import flights.service.FlightImportService;
+import fms.common.repository.OutboxEventRepository;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MockMvc;
+
+import javax.persistence.EntityManagerFactory;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * Integration tests for the {@link FlightImportResource} REST controller and the {@link FlightImportService}.
+ * <p>
+ * Imports commit from a background thread, so these tests are not transactional and remove what they imported.
+ */
+@SpringBootTest(classes = FlightsApp.class)
+@AutoConfigureMockMvc
+@WithMockUser(authorities = AuthoritiesConstants.ADMIN)
+public class FlightImportResourceIT {
+
+    private static final String FLIGHT_NUMBER_PREFIX = "IMP";
+
+    private static final String CSV_HEADER = "flight_number;flight_type;fare_type;pilot;plane_model_number;price;departure_date;boarding_gate;airline_name;origin_id;destination_id";
+
+    @Autowired
+    private ApplicationProperties applicationProperties;
+
+    @Autowired
+    private FlightImportService flightImportService;
+
+    @Autowired
+    private AirportRepository airportRepository;
+
+    @Autowired
+    private FlightRepository flightRepository;
+
+    @Autowired
+    private OutboxEventRepository outboxEventRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private MockMvc restFlightImportMockMvc;
+
+    private Airport airport;
+
+    private int chunkSize;
+
+    @BeforeEach
+    public void initTest() {
+        airport = airportRepository.saveAndFlush(AirportResourceIT.createEntity(null));
+        chunkSize = applicationProperties.getFlightImport().getChunkSize();
+    }
+
+    @AfterEach
+    public void cleanUp() {
+        applicationProperties.getFlightImport().setChunkSize(chunkSize);
+        flightRepository.deleteAll(importedFlights());
+        outboxEventRepository.deleteAll(outboxEventRepository.findAll().stream()
+            .filter(event -> event.getEventKey().startsWith(FLIGHT_NUMBER_PREFIX))
+            .collect(Collectors.toList()));
+        airportRepository.delete(airport);
+    }
+
+    private List<Flight> importedFlights() {
+        return flightRepository.findAll().stream()
+            .filter(flight -> flight.getFlightNumber().startsWith(FLIGHT_NUMBER_PREFIX))
+            .collect(Collectors.toList());
+    }
+
+    private String row(int number, String pilot, long originId) {
+        return FLIGHT_NUMBER_PREFIX + number + ";one_way;economy;" + pilot + ";A320;99.5;2020-10-01;12;Lufthansa;"
+            + originId + ";" + airport.getId() + "\n";
+    }
+
+    private FlightImportJob importCsv(String schedule) throws Exception {
+        String content = restFlightImportMockMvc.perform(post("/api/flights/import")
+            .contentType(FlightImportResource.TEXT_CSV_VALUE)
+            .content(schedule))
+            .andExpect(status().isAccepted())
+            .andExpect(header().exists("Location"))
+            .andReturn().getResponse().getContentAsString();
+        String id = objectMapper.readTree(content).get("id").asText();
+
+        long deadline = System.currentTimeMillis() + 30000;
+        FlightImportJob job = flightImportService.findJob(id).get();
+        while (job.getFinishedAt() == null && System.currentTimeMillis() < deadline) {
+            Thread.sleep(50);
+        }
+        assertThat(job.getFinishedAt()).as("import finished").isNotNull();
+        return job;
+    }
+
+    @Test
+    public void invalidRowsAreReportedByLineWithoutStoppingTheImport() throws Exception {
+        applicationProperties.getFlightImport().setChunkSize(2);
+        String schedule = CSV_HEADER + "\n"
+            + row(1, "Jane Doe", airport.getId())
+            + FLIGHT_NUMBER_PREFIX + "2;orbital;economy;Jane Doe;A320;99.5;2020-10-01;12;Lufthansa;1;1\n"
+            + "\n"
+            + row(3, "Jane Doe", Long.MAX_VALUE)
+            + row(4, "Jane Doe", airport.getId())
+            + row(5, "Jane Doe", airport.getId());
+
+        FlightImportJob job = importCsv(schedule);
+
+        assertThat(job.getStatus()).isEqualTo(FlightImportJob.Status.COMPLETED);
+        assertThat(job.getRowsRead()).isEqualTo(5);
+        assertThat(job.getRowsImported()).isEqualTo(3);
+        assertThat(job.getRowsRejected()).isEqualTo(2);
+        assertThat(job.getErrors()).extracting(FlightImportJob.RowError::getLine).containsExactly(3L, 5L);
+        assertThat(job.getErrors().get(1).getMessage()).isEqualTo("Unknown origin airport " + Long.MAX_VALUE);
+        assertThat(importedFlights()).extracting(Flight::getFlightNumber)
+            .containsExactlyInAnyOrder("IMP1", "IMP4", "IMP5");
+
+        restFlightImportMockMvc.perform(get("/api/flights/import/{id}", job.getId()))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.status").value("COMPLETED"))
+            .andExpect(jsonPath("$.rowsImported").value(3));
+    }
+
+    @Test
+    public void aChunkThatCannotBeStoredIsRejectedAloneAndTheOthersAreKept() throws Exception {
+        applicationProperties.getFlightImport().setChunkSize(2);
+        // valid, but longer than the pilot column: the whole second chunk fails to insert
+        String tooLong = String.join("", Collections.nCopies(300, "x"));
+        String schedule = CSV_HEADER + "\n"
+            + row(1, "Jane Doe", airport.getId())
+            + row(2, "Jane Doe", airport.getId())
+            + row(3, "Jane Doe", airport.getId())
+            + row(4, tooLong, airport.getId())
+            + row(5, "Jane Doe", airport.getId());
+
+        FlightImportJob job = importCsv(schedule);
+
+        assertThat(job.getStatus()).isEqualTo(FlightImportJob.Status.COMPLETED);
+        assertThat(job.getRowsImported()).isEqualTo(3);
+        assertThat(job.getErrors()).extracting(FlightImportJob.RowError::getLine).containsExactlyInAnyOrder(4L, 5L);
+        assertThat(job.getErrors()).allSatisfy(error -> assertThat(error.getMessage()).startsWith("Not stored: "));
+        assertThat(importedFlights()).extracting(Flight::getFlightNumber)
+            .containsExactlyInAnyOrder("IMP1", "IMP2", "IMP5");
+        assertThat(outboxEventRepository.findAll()).filteredOn(event -> event.getEventKey().startsWith(FLIGHT_NUMBER_PREFIX))
+            .hasSize(3);
+    }
+
+    @Test
+    public void theFlightsOfAChunkAreInsertedInJdbcBatches() throws Exception {
+        int rows = 100;
+        applicationProperties.getFlightImport().setChunkSize(rows);
+        StringBuilder schedule = new StringBuilder(CSV_HEADER).append('\n');
+        for (int i = 0; i < rows; i++) {
+            schedule.append(row(i, "Jane Doe", airport.getId()));
+        }
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        statistics.setStatisticsEnabled(true);
+        FlightImportJob job;
+        try {
+            job = importCsv(schedule.toString());
+        } finally {
+            statistics.setStatisticsEnabled(false);
+        }
+
+        assertThat(job.getRowsImported()).isEqualTo(rows);
+        assertThat(statistics.getEntityInsertCount()).isEqualTo(2L * rows);
+        // one statement an outbox event, whose ids come from the database, but a few for all the flights
+        assertThat(statistics.getPrepareStatementCount()).isLessThan(rows + rows / 4);
+    }
+}
@@ -3,7 +3,12 @@ package flights.web.rest;
 import flights.FlightsApp;
 import flights.domain.Flight;
 import flights.domain.Airport;
+import flights.domain.RouteFare;
 import flights.repository.FlightRepository;
+import flights.repository.RouteFareRepository;
+import flights.service.FareEngine;
+import fms.common.domain.OutboxEvent;
+import fms.common.repository.OutboxEventRepository;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -17,6 +22,8 @@ import org.springframework.transaction.annotation.Transactional;
 import javax.persistence.EntityManager;
 import java.time.LocalDate;
 import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.Collections;
 import java.util.List;
 
 import static org.assertj.core.api.Assertions.assertThat;
@@ -24,6 +31,7 @@ import static org.hamcrest.Matchers.hasItem;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
+import flights.domain.enumeration.EFlightStatus;
 import flights.domain.enumeration.EFlightType;
 import flights.domain.enumeration.EFareType;
 /**
@@ -64,6 +72,15 @@ public class FlightResourceIT {
     @Autowired
     private FlightRepository flightRepository;
 
+    @Autowired
+    private OutboxEventRepository outboxEventRepository;
+
+    @Autowired
+    private RouteFareRepository routeFareRepository;
+
+    @Autowired
+    private FareEngine fareEngine;
+
     @Autowired
     private EntityManager em;
 
@@ -144,6 +161,7 @@ public class FlightResourceIT {
     @Transactional
     public void createFlight() throws Exception {
         int databaseSizeBeforeCreate = flightRepository.findAll().size();
+        int outboxSizeBeforeCreate = outboxEventRepository.findAll().size();
         // Create the Flight
         restFlightMockMvc.perform(post("/api/flights")
             .contentType(MediaType.APPLICATION_JSON)
@@ -163,6 +181,14 @@ public class FlightResourceIT {
         assertThat(testFlight.getDepartureDate()).isEqualTo(DEFAULT_DEPARTURE_DATE);
         assertThat(testFlight.getBoardingGate()).isEqualTo(DEFAULT_BOARDING_GATE);
         assertThat(testFlight.getAirlineName()).isEqualTo(DEFAULT_AIRLINE_NAME);
+        assertThat(testFlight.getStatus()).isEqualTo(EFlightStatus.SCHEDULED);
+
+        // Validate the Flight event in the outbox
+        List<OutboxEvent> outboxEventList = outboxEventRepository.findAll();
+        assertThat(outboxEventList).hasSize(outboxSizeBeforeCreate + 1);
+        OutboxEvent testOutboxEvent = outboxEventList.get(outboxEventList.size() - 1);
+        assertThat(testOutboxEvent.getTopic()).isEqualTo("flight_set");
+        assertThat(testOutboxEvent.getEventKey()).isEqualTo(DEFAULT_FLIGHT_NUMBER);
     }
 
     @Test
@@ -320,7 +346,7 @@ public class FlightResourceIT {
             .andExpect(jsonPath("$.[*].boardingGate").value(hasItem(DEFAULT_BOARDING_GATE)))
             .andExpect(jsonPath("$.[*].airlineName").value(hasItem(DEFAULT_AIRLINE_NAME)));
     }
-    
+
     @Test
     @Transactional
     public void getFlight() throws Exception {
@@ -342,6 +368,34 @@ public class FlightResourceIT {
             .andExpect(jsonPath("$.boardingGate").value(DEFAULT_BOARDING_GATE))
             .andExpect(jsonPath("$.airlineName").value(DEFAULT_AIRLINE_NAME));
     }
+    @Test
+    @Transactional
+    public void flightsArePricedByTheFareOfTheirRoute() throws Exception {
+        // Initialize the database
+        flight.departureDate(LocalDate.now(ZoneOffset.UTC).plusDays(30));
+        flightRepository.saveAndFlush(flight);
+        RouteFare routeFare = routeFareRepository.saveAndFlush(new RouteFare()
+            .originId(flight.getOrigin().getId())
+            .destinationId(flight.getDestination().getId())
+            .fareType(DEFAULT_FARE_TYPE)
+            .validFrom(LocalDate.now(ZoneOffset.UTC))
+            .price(250D));
+        FareEngine.Route route = FareEngine.Route.of(routeFare);
+        fareEngine.recompute(Collections.singleton(route));
+
+        try {
+            restFlightMockMvc.perform(get("/api/flights/{id}", flight.getId()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.price").value(250D));
+            restFlightMockMvc.perform(get("/api/flights"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.[?(@.id == " + flight.getId() + ")].price").value(hasItem(250D)));
+        } finally {
+            routeFareRepository.delete(routeFare);
+            fareEngine.recompute(Collections.singleton(route));
+        }
+    }
+
     @Test
     @Transactional
     public void getNonExistingFlight() throws Exception {
@@ -393,6 +447,28 @@ public class FlightResourceIT {
         assertThat(testFlight.getAirlineName()).isEqualTo(UPDATED_AIRLINE_NAME);
     }
 
+    @Test
+    @Transactional
+    public void updateKeepsACancelledFlightCancelled() throws Exception {
+        flightRepository.saveAndFlush(flight.status(EFlightStatus.CANCELLED));
+
+        Flight updatedFlight = flightRepository.findById(flight.getId()).get();
+        em.detach(updatedFlight);
+        // as edited from the gateway, which sends no status: the entity default applies
+        updatedFlight.status(EFlightStatus.SCHEDULED).pilot(UPDATED_PILOT);
+
+        restFlightMockMvc.perform(put("/api/flights")
+            .contentType(MediaType.APPLICATION_JSON)
+            .content(TestUtil.convertObjectToJsonBytes(updatedFlight)))
+            .andExpect(status().isOk());
+
+        em.flush();
+        em.clear();
+        Flight testFlight = flightRepository.findById(flight.getId()).get();
+        assertThat(testFlight.getPilot()).isEqualTo(UPDATED_PILOT);
+        assertThat(testFlight.getStatus()).isEqualTo(EFlightStatus.CANCELLED);
+    }
+
     @Test
     @Transactional
     public void updateNonExistingFlight() throws Exception {
@@ -416,14 +492,24 @@ public class FlightResourceIT {
         flightRepository.saveAndFlush(flight);
 
         int databaseSizeBeforeDelete = flightRepository.findAll().size();
+        int outboxSizeBeforeDelete = outboxEventRepository.findAll().size();
 
-        // Delete the flight
+        // Cancel the flight
         restFlightMockMvc.perform(delete("/api/flights/{id}", flight.getId())
             .accept(MediaType.APPLICATION_JSON))
             .andExpect(status().isNoContent());
 
-        // Validate the database contains one less item
+        // Validate the flight is kept, cancelled
         List<Flight> flightList = flightRepository.findAll();
-        assertThat(flightList).hasSize(databaseSizeBeforeDelete - 1);
+        assertThat(flightList).hasSize(databaseSizeBeforeDelete);
+        assertThat(flightRepository.findById(flight.getId()).get().getStatus()).isEqualTo(EFlightStatus.CANCELLED);
+
+        // Validate the cancellation is announced once
+        restFlightMockMvc.perform(delete("/api/flights/{id}", flight.getId())
+            .accept(MediaType.APPLICATION_JSON))
+            .andExpect(status().isNoContent());
+        List<OutboxEvent> outboxEventList = outboxEventRepository.findAll();
+        assertThat(outboxEventList).hasSize(outboxSizeBeforeDelete + 1);
+        assertThat(outboxEventList.get(outboxEventList.size() - 1).getTopic()).isEqualTo("flight_cancelled");
     }
 }
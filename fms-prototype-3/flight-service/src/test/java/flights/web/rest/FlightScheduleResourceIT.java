@@ -0,0 +1,195 @@
+package flights.web.rest;
+
+import flights.FlightsApp;
+import flights.domain.Airport;
+import flights.domain.Flight;
+import flights.domain.FlightSchedule;
+import flights.repository.FlightScheduleRepository;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.annotation.Transactional;
+import javax.persistence.EntityManager;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.hasSize;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+import flights.domain.enumeration.EFlightType;
+import flights.domain.enumeration.EFareType;
+/**
+ * Integration tests for the {@link FlightScheduleResource} REST controller.
+ */
+@SpringBootTest(classes = FlightsApp.class)
+@AutoConfigureMockMvc
+@WithMockUser
+public class FlightScheduleResourceIT {
+
+    private static final String DEFAULT_FLIGHT_NUMBER = "SCHEDULED";
+
+    private static final Integer DEFAULT_DAYS_OF_WEEK = FlightSchedule.daysOfWeekMask(DayOfWeek.MONDAY, DayOfWeek.WEDNESDAY);
+
+    // 2020-10-05 is a Monday
+    private static final LocalDate DEFAULT_VALID_FROM = LocalDate.of(2020, 10, 5);
+    private static final LocalDate DEFAULT_VALID_UNTIL = LocalDate.of(2020, 10, 18);
+
+    @Autowired
+    private FlightScheduleRepository flightScheduleRepository;
+
+    @Autowired
+    private EntityManager em;
+
+    @Autowired
+    private MockMvc restFlightScheduleMockMvc;
+
+    private FlightSchedule flightSchedule;
+
+    /**
+     * Create an entity for this test.
+     *
+     * This is a static method, as tests for other entities might also need it,
+     * if they test an entity which requires the current entity.
+     */
+    public static FlightSchedule createEntity(EntityManager em) {
+        FlightSchedule flightSchedule = new FlightSchedule()
+            .flightNumber(DEFAULT_FLIGHT_NUMBER)
+            .daysOfWeek(DEFAULT_DAYS_OF_WEEK)
+            .validFrom(DEFAULT_VALID_FROM)
+            .validUntil(DEFAULT_VALID_UNTIL)
+            .flightType(EFlightType.ONE_WAY)
+            .fareType(EFareType.ECONOMY)
+            .price(1D)
+            .boardingGate(1);
+        // Add required entity
+        Airport airport;
+        if (TestUtil.findAll(em, Airport.class).isEmpty()) {
+            airport = AirportResourceIT.createEntity(em);
+            em.persist(airport);
+            em.flush();
+        } else {
+            airport = TestUtil.findAll(em, Airport.class).get(0);
+        }
+        flightSchedule.setOrigin(airport);
+        // Add required entity
+        flightSchedule.setDestination(airport);
+        return flightSchedule;
+    }
+
+    @BeforeEach
+    public void initTest() {
+        flightSchedule = createEntity(em);
+    }
+
+    @Test
+    @Transactional
+    public void createFlightSchedule() throws Exception {
+        int databaseSizeBeforeCreate = flightScheduleRepository.findAll().size();
+        restFlightScheduleMockMvc.perform(post("/api/flight-schedules")
+            .contentType(MediaType.APPLICATION_JSON)
+            .content(TestUtil.convertObjectToJsonBytes(flightSchedule)))
+            .andExpect(status().isCreated());
+
+        List<FlightSchedule> flightScheduleList = flightScheduleRepository.findAll();
+        assertThat(flightScheduleList).hasSize(databaseSizeBeforeCreate + 1);
+        FlightSchedule testFlightSchedule = flightScheduleList.get(flightScheduleList.size() - 1);
+        assertThat(testFlightSchedule.getDaysOfWeek()).isEqualTo(DEFAULT_DAYS_OF_WEEK);
+        assertThat(testFlightSchedule.getValidFrom()).isEqualTo(DEFAULT_VALID_FROM);
+        assertThat(testFlightSchedule.getValidUntil()).isEqualTo(DEFAULT_VALID_UNTIL);
+    }
+
+    @Test
+    @Transactional
+    public void createFlightScheduleWithInvalidValidityPeriod() throws Exception {
+        int databaseSizeBeforeCreate = flightScheduleRepository.findAll().size();
+        flightSchedule.validFrom(DEFAULT_VALID_UNTIL).validUntil(DEFAULT_VALID_FROM);
+
+        restFlightScheduleMockMvc.perform(post("/api/flight-schedules")
+            .contentType(MediaType.APPLICATION_JSON)
+            .content(TestUtil.convertObjectToJsonBytes(flightSchedule)))
+            .andExpect(status().isBadRequest());
+
+        assertThat(flightScheduleRepository.findAll()).hasSize(databaseSizeBeforeCreate);
+    }
+
+    @Test
+    @Transactional
+    public void searchExpandsSchedulesIntoDatedFlights() throws Exception {
+        flightScheduleRepository.saveAndFlush(flightSchedule);
+        Flight materialized = flightSchedule.toFlight(LocalDate.of(2020, 10, 7)).pilot("MATERIALIZED");
+        em.persist(materialized);
+        em.flush();
+
+        restFlightScheduleMockMvc.perform(get("/api/flights/search?from=2020-10-06&until=2020-10-31"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.[?(@.flightNumber == '" + DEFAULT_FLIGHT_NUMBER + "')]", hasSize(3)))
+            .andExpect(jsonPath("$.[?(@.flightNumber == '" + DEFAULT_FLIGHT_NUMBER + "')].departureDate",
+                contains("2020-10-07", "2020-10-12", "2020-10-14")))
+            .andExpect(jsonPath("$.[?(@.flightNumber == '" + DEFAULT_FLIGHT_NUMBER + "')].pilot",
+                contains("MATERIALIZED", null, null)));
+    }
+
+    @Test
+    @Transactional
+    public void updateKeepsTheScheduleOfAMaterializedFlight() throws Exception {
+        flightScheduleRepository.saveAndFlush(flightSchedule);
+        Flight materialized = flightSchedule.toFlight(LocalDate.of(2020, 10, 7));
+        em.persist(materialized);
+        em.flush();
+        em.detach(materialized);
+        // as edited from the gateway, which knows nothing of schedules
+        materialized.setSchedule(null);
+        materialized.pilot("EDITED");
+
+        restFlightScheduleMockMvc.perform(put("/api/flights")
+            .contentType(MediaType.APPLICATION_JSON)
+            .content(TestUtil.convertObjectToJsonBytes(materialized)))
+            .andExpect(status().isOk());
+
+        em.flush();
+        em.clear();
+        assertThat(em.find(Flight.class, materialized.getId()).getSchedule().getId()).isEqualTo(flightSchedule.getId());
+        restFlightScheduleMockMvc.perform(get("/api/flights/search?from=2020-10-06&until=2020-10-08"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.[?(@.flightNumber == '" + DEFAULT_FLIGHT_NUMBER + "')].pilot", contains("EDITED")));
+    }
+
+    @Test
+    @Transactional
+    public void searchRejectsInvalidDateRange() throws Exception {
+        restFlightScheduleMockMvc.perform(get("/api/flights/search?from=2020-10-06&until=2020-10-05"))
+            .andExpect(status().isBadRequest());
+        restFlightScheduleMockMvc.perform(get("/api/flights/search?from=2020-01-01&until=2020-12-31"))
+            .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @Transactional
+    public void deleteFlightScheduleKeepsMaterializedFlights() throws Exception {
+        flightScheduleRepository.saveAndFlush(flightSchedule);
+        Flight materialized = flightSchedule.toFlight(LocalDate.of(2020, 10, 7));
+        em.persist(materialized);
+        em.flush();
+        int databaseSizeBeforeDelete = flightScheduleRepository.findAll().size();
+
+        restFlightScheduleMockMvc.perform(delete("/api/flight-schedules/{id}", flightSchedule.getId())
+            .accept(MediaType.APPLICATION_JSON))
+            .andExpect(status().isNoContent());
+
+        assertThat(flightScheduleRepository.findAll()).hasSize(databaseSizeBeforeDelete - 1);
+        em.clear();
+        Flight kept = em.find(Flight.class, materialized.getId());
+        assertThat(kept).isNotNull();
+        assertThat(kept.getSchedule()).isNull();
+    }
+}
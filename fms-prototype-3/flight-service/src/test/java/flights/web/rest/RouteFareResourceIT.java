@@ -0,0 +1,167 @@
+package flights.web.rest;
+
+import flights.FlightsApp;
+import flights.domain.Airport;
+import flights.domain.RouteFare;
+import flights.domain.enumeration.EFareType;
+import flights.repository.AirportRepository;
+import flights.repository.RouteFareRepository;
+import flights.security.AuthoritiesConstants;
+import flights.service.dto.FareAdjustmentDTO;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.annotation.Transactional;
+import javax.persistence.EntityManager;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * Integration tests for the {@link RouteFareResource} REST controller.
+ */
+@SpringBootTest(classes = FlightsApp.class)
+@AutoConfigureMockMvc
+@WithMockUser(authorities = AuthoritiesConstants.ADMIN)
+public class RouteFareResourceIT {
+
+    private static final EFareType DEFAULT_FARE_TYPE = EFareType.ECONOMY;
+    private static final LocalDate DEFAULT_VALID_FROM = LocalDate.now(ZoneOffset.UTC).minusDays(1);
+    private static final Double DEFAULT_PRICE = 120D;
+
+    @Autowired
+    private RouteFareRepository routeFareRepository;
+
+    @Autowired
+    private AirportRepository airportRepository;
+
+    @Autowired
+    private EntityManager em;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private MockMvc restRouteFareMockMvc;
+
+    private Airport origin;
+    private Airport destination;
+
+    @BeforeEach
+    public void initTest() {
+        origin = airportRepository.save(AirportResourceIT.createEntity(em));
+        destination = airportRepository.save(AirportResourceIT.createEntity(em));
+    }
+
+    @AfterEach
+    public void cleanUp() {
+        routeFareRepository.deleteAll(routeFareRepository.findAllByOriginIdAndDestinationId(origin.getId(), destination.getId()));
+        airportRepository.delete(origin);
+        airportRepository.delete(destination);
+    }
+
+    private RouteFare createEntity() {
+        return new RouteFare()
+            .originId(origin.getId())
+            .destinationId(destination.getId())
+            .fareType(DEFAULT_FARE_TYPE)
+            .validFrom(DEFAULT_VALID_FROM)
+            .price(DEFAULT_PRICE);
+    }
+
+    @Test
+    public void createdAndAdjustedFaresAreQuoted() throws Exception {
+        LocalDate departureDate = DEFAULT_VALID_FROM.plusDays(30);
+        restRouteFareMockMvc.perform(get("/api/fares/quote")
+            .param("originId", origin.getId().toString())
+            .param("destinationId", destination.getId().toString())
+            .param("fareType", DEFAULT_FARE_TYPE.toString())
+            .param("departureDate", departureDate.toString()))
+            .andExpect(status().isNotFound());
+
+        String body = restRouteFareMockMvc.perform(post("/api/route-fares")
+            .contentType(MediaType.APPLICATION_JSON)
+            .content(TestUtil.convertObjectToJsonBytes(createEntity())))
+            .andExpect(status().isCreated())
+            .andReturn().getResponse().getContentAsString();
+        RouteFare routeFare = objectMapper.readValue(body, RouteFare.class);
+
+        restRouteFareMockMvc.perform(get("/api/fares/quote")
+            .param("originId", origin.getId().toString())
+            .param("destinationId", destination.getId().toString())
+            .param("fareType", DEFAULT_FARE_TYPE.toString())
+            .param("departureDate", departureDate.toString()))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.price").value(DEFAULT_PRICE));
+
+        FareAdjustmentDTO adjustment = new FareAdjustmentDTO();
+        adjustment.setOriginId(origin.getId());
+        adjustment.setFactor(1.5);
+        adjustment.setAmount(-10.0);
+        restRouteFareMockMvc.perform(post("/api/route-fares/adjust")
+            .contentType(MediaType.APPLICATION_JSON)
+            .content(TestUtil.convertObjectToJsonBytes(adjustment)))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.adjustedFares").value(1));
+
+        restRouteFareMockMvc.perform(get("/api/fares/quote")
+            .param("originId", origin.getId().toString())
+            .param("destinationId", destination.getId().toString())
+            .param("fareType", DEFAULT_FARE_TYPE.toString())
+            .param("departureDate", departureDate.toString()))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.price").value(170D));
+
+        restRouteFareMockMvc.perform(delete("/api/route-fares/{id}", routeFare.getId()))
+            .andExpect(status().isNoContent());
+
+        restRouteFareMockMvc.perform(get("/api/fares/quote")
+            .param("originId", origin.getId().toString())
+            .param("destinationId", destination.getId().toString())
+            .param("fareType", DEFAULT_FARE_TYPE.toString())
+            .param("departureDate", departureDate.toString()))
+            .andExpect(status().isNotFound());
+    }
+
+    @Test
+    @Transactional
+    public void createRouteFareWithInvalidValidityPeriod() throws Exception {
+        int databaseSizeBeforeCreate = routeFareRepository.findAll().size();
+        RouteFare routeFare = createEntity().validUntil(DEFAULT_VALID_FROM.minusDays(1));
+
+        restRouteFareMockMvc.perform(post("/api/route-fares")
+            .contentType(MediaType.APPLICATION_JSON)
+            .content(TestUtil.convertObjectToJsonBytes(routeFare)))
+            .andExpect(status().isBadRequest());
+
+        List<RouteFare> routeFareList = routeFareRepository.findAll();
+        assertThat(routeFareList).hasSize(databaseSizeBeforeCreate);
+    }
+
+    @Test
+    @Transactional
+    public void checkPriceIsRequired() throws Exception {
+        int databaseSizeBeforeTest = routeFareRepository.findAll().size();
+        RouteFare routeFare = createEntity().price(null);
+
+        restRouteFareMockMvc.perform(post("/api/route-fares")
+            .contentType(MediaType.APPLICATION_JSON)
+            .content(TestUtil.convertObjectToJsonBytes(routeFare)))
+            .andExpect(status().isBadRequest());
+
+        List<RouteFare> routeFareList = routeFareRepository.findAll();
+        assertThat(routeFareList).hasSize(databaseSizeBeforeTest);
+    }
+}
@@ -0,0 +1,104 @@
+package flights.web.rest;
+
+import flights.FlightsApp;
+import flights.domain.Flight;
+import flights.domain.enumeration.EFareType;
+import flights.security.AuthoritiesConstants;
+import flights.service.dto.SeatAvailabilityDTO;
+import flights.service.dto.SeatHoldDTO;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.annotation.Transactional;
+import javax.persistence.EntityManager;
+
+import static org.hamcrest.Matchers.hasItem;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * Integration tests for the {@link SeatInventoryResource} REST controller.
+ */
+@SpringBootTest(classes = FlightsApp.class)
+@AutoConfigureMockMvc
+@WithMockUser(authorities = AuthoritiesConstants.ADMIN)
+public class SeatInventoryResourceIT {
+
+    @Autowired
+    private EntityManager em;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private MockMvc restSeatInventoryMockMvc;
+
+    private Flight flight;
+
+    @BeforeEach
+    public void initTest() {
+        flight = FlightResourceIT.createEntity(em);
+    }
+
+    @Test
+    @Transactional
+    public void holdSeatsUntilTheCabinIsFull() throws Exception {
+        em.persist(flight);
+        em.flush();
+
+        SeatAvailabilityDTO inventory = new SeatAvailabilityDTO();
+        inventory.setCabin(EFareType.BUSINESS);
+        inventory.setCapacity(3);
+        restSeatInventoryMockMvc.perform(put("/api/flights/{flightId}/seat-inventory", flight.getId())
+            .contentType(MediaType.APPLICATION_JSON)
+            .content(TestUtil.convertObjectToJsonBytes(inventory)))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.available").value(3));
+
+        SeatHoldDTO request = new SeatHoldDTO(null, null, EFareType.BUSINESS, 2);
+        String body = restSeatInventoryMockMvc.perform(post("/api/flights/{flightId}/seat-holds", flight.getId())
+            .contentType(MediaType.APPLICATION_JSON)
+            .content(TestUtil.convertObjectToJsonBytes(request)))
+            .andExpect(status().isCreated())
+            .andExpect(jsonPath("$.holdId").isNotEmpty())
+            .andReturn().getResponse().getContentAsString();
+        SeatHoldDTO hold = objectMapper.readValue(body, SeatHoldDTO.class);
+
+        restSeatInventoryMockMvc.perform(post("/api/flights/{flightId}/seat-holds", flight.getId())
+            .contentType(MediaType.APPLICATION_JSON)
+            .content(TestUtil.convertObjectToJsonBytes(request)))
+            .andExpect(status().isConflict());
+
+        restSeatInventoryMockMvc.perform(get("/api/flights/{flightId}/seat-inventory", flight.getId()))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.[*].held").value(hasItem(2)))
+            .andExpect(jsonPath("$.[*].available").value(hasItem(1)));
+
+        restSeatInventoryMockMvc.perform(delete("/api/seat-holds/{holdId}", hold.getHoldId()))
+            .andExpect(status().isNoContent());
+
+        restSeatInventoryMockMvc.perform(post("/api/flights/{flightId}/seat-holds", flight.getId())
+            .contentType(MediaType.APPLICATION_JSON)
+            .content(TestUtil.convertObjectToJsonBytes(request)))
+            .andExpect(status().isCreated());
+    }
+
+    @Test
+    @Transactional
+    public void holdSeatsOfCabinWithoutInventory() throws Exception {
+        em.persist(flight);
+        em.flush();
+
+        restSeatInventoryMockMvc.perform(post("/api/flights/{flightId}/seat-holds", flight.getId())
+            .contentType(MediaType.APPLICATION_JSON)
+            .content(TestUtil.convertObjectToJsonBytes(new SeatHoldDTO(null, null, EFareType.ECONOMY, 1))))
+            .andExpect(status().isBadRequest());
+    }
+}
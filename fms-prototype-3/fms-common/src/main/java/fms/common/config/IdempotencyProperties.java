@@ -0,0 +1,53 @@
+package fms.common.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Settings of the {@link fms.common.web.filter.IdempotencyFilter}.
+ * <p>
+ * Properties are configured in the {@code application.yml} file of each service, under {@code idempotency}.
+ */
+@ConfigurationProperties(prefix = "idempotency")
+public class IdempotencyProperties {
+
+    /**
+     * How long the response to a request with an idempotency key is replayed to its retries.
+     */
+    private Duration ttl = Duration.ofHours(24);
+
+    /**
+     * Longest time a retry waits for the request with the same key it overlaps.
+     */
+    private long waitMillis = 10000;
+
+    /**
+     * Longest time a request holds the lock on its key, should its instance never release it.
+     */
+    private long leaseMillis = 60000;
+
+    public Duration getTtl() {
+        return ttl;
+    }
+
+    public void setTtl(Duration ttl) {
+        this.ttl = ttl;
+    }
+
+    public long getWaitMillis() {
+        return waitMillis;
+    }
+
+    public void setWaitMillis(long waitMillis) {
+        this.waitMillis = waitMillis;
+    }
+
+    public long getLeaseMillis() {
+        return leaseMillis;
+    }
+
+    public void setLeaseMillis(long leaseMillis) {
+        this.leaseMillis = leaseMillis;
+    }
+}
@@ -0,0 +1,291 @@
+package fms.common.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Settings of the Kafka clients of a service, and of the {@link fms.common.service.KafkaEventPublisher} and
+ * {@link fms.common.service.KafkaSseBroadcaster} it runs.
+ * <p>
+ * Properties are configured in the {@code application.yml} file of each service, under {@code kafka}.
+ */
+@ConfigurationProperties(prefix = "kafka")
+public class KafkaProperties {
+
+    private String bootStrapServers = "localhost:9092";
+
+    private Map<String, String> consumer = new HashMap<>();
+
+    private Map<String, String> producer = new HashMap<>();
+
+    private final Publisher publisher = new Publisher();
+
+    private final Broadcaster broadcaster = new Broadcaster();
+
+    public String getBootStrapServers() {
+        return bootStrapServers;
+    }
+
+    public void setBootStrapServers(String bootStrapServers) {
+        this.bootStrapServers = bootStrapServers;
+    }
+
+    public Map<String, Object> getConsumerProps() {
+        Map<String, Object> properties = new HashMap<>(this.consumer);
+        if (!properties.containsKey("bootstrap.servers")) {
+            properties.put("bootstrap.servers", this.bootStrapServers);
+        }
+        return properties;
+    }
+
+    public void setConsumer(Map<String, String> consumer) {
+        this.consumer = consumer;
+    }
+
+    public Map<String, Object> getProducerProps() {
+        Map<String, Object> properties = new HashMap<>(this.producer);
+        if (!properties.containsKey("bootstrap.servers")) {
+            properties.put("bootstrap.servers", this.bootStrapServers);
+        }
+        return properties;
+    }
+
+    public void setProducer(Map<String, String> producer) {
+        this.producer = producer;
+    }
+
+    public Publisher getPublisher() {
+        return publisher;
+    }
+
+    public Broadcaster getBroadcaster() {
+        return broadcaster;
+    }
+
+    /**
+     * Settings of the {@link fms.common.service.KafkaEventPublisher}.
+     */
+    public static class Publisher {
+
+        /**
+         * Batching and compression settings of the producer. Explicit producer properties override them.
+         */
+        private Profile profile = Profile.BALANCED;
+
+        /**
+         * Number of events waiting to be handed to the producer, beyond which events are dropped.
+         */
+        private int queueCapacity = 10000;
+
+        /**
+         * How long publishing waits for room in a full queue before dropping the event; 0 never waits.
+         */
+        private long handoffTimeoutMs = 0;
+
+        /**
+         * Whether missing topics are created on startup.
+         */
+        private boolean provisionTopics = true;
+
+        /**
+         * Partitions of the created topics, which bounds the number of consumers of a group reading in parallel.
+         */
+        private int partitions = 12;
+
+        private short replicationFactor = 1;
+
+        private long provisionTimeoutMs = 10000;
+
+        public Profile getProfile() {
+            return profile;
+        }
+
+        public void setProfile(Profile profile) {
+            this.profile = profile;
+        }
+
+        public int getQueueCapacity() {
+            return queueCapacity;
+        }
+
+        public void setQueueCapacity(int queueCapacity) {
+            this.queueCapacity = queueCapacity;
+        }
+
+        public long getHandoffTimeoutMs() {
+            return handoffTimeoutMs;
+        }
+
+        public void setHandoffTimeoutMs(long handoffTimeoutMs) {
+            this.handoffTimeoutMs = handoffTimeoutMs;
+        }
+
+        public boolean isProvisionTopics() {
+            return provisionTopics;
+        }
+
+        public void setProvisionTopics(boolean provisionTopics) {
+            this.provisionTopics = provisionTopics;
+        }
+
+        public int getPartitions() {
+            return partitions;
+        }
+
+        public void setPartitions(int partitions) {
+            this.partitions = partitions;
+        }
+
+        public short getReplicationFactor() {
+            return replicationFactor;
+        }
+
+        public void setReplicationFactor(short replicationFactor) {
+            this.replicationFactor = replicationFactor;
+        }
+
+        public long getProvisionTimeoutMs() {
+            return provisionTimeoutMs;
+        }
+
+        public void setProvisionTimeoutMs(long provisionTimeoutMs) {
+            this.provisionTimeoutMs = provisionTimeoutMs;
+        }
+    }
+
+    /**
+     * Producer settings trading latency for throughput.
+     */
+    public enum Profile {
+        /** Sends every event at once, uncompressed. */
+        LOW_LATENCY(0, 16384, "none"),
+        /** Waits a few milliseconds to fill compressed batches. */
+        BALANCED(5, 65536, "lz4"),
+        /** Fills large compressed batches, for bulk imports and replays. */
+        HIGH_THROUGHPUT(25, 262144, "lz4");
+
+        private final int lingerMs;
+        private final int batchSize;
+        private final String compressionType;
+
+        Profile(int lingerMs, int batchSize, String compressionType) {
+            this.lingerMs = lingerMs;
+            this.batchSize = batchSize;
+            this.compressionType = compressionType;
+        }
+
+        public Map<String, Object> getProducerProps() {
+            Map<String, Object> properties = new HashMap<>();
+            properties.put("linger.ms", lingerMs);
+            properties.put("batch.size", batchSize);
+            properties.put("compression.type", compressionType);
+            // idempotence keeps the events of a key in order across retries
+            properties.put("acks", "all");
+            properties.put("enable.idempotence", true);
+            return properties;
+        }
+    }
+
+    /**
+     * Settings of the {@link fms.common.service.KafkaSseBroadcaster}.
+     */
+    public static class Broadcaster {
+
+        /**
+         * Records waiting to be sent to a subscriber, beyond which it is a slow subscriber.
+         */
+        private int bufferCapacity = 256;
+
+        private SlowSubscriberPolicy slowSubscriberPolicy = SlowSubscriberPolicy.DISCONNECT;
+
+        /**
+         * Threads sending records to all the subscribers.
+         */
+        private int senderThreads = 4;
+
+        private long pollMillis = 1000;
+
+        /**
+         * How often subscribers get a comment, keeping idle streams open and detecting the clients gone.
+         */
+        private long heartbeatMillis = 5000;
+
+        /**
+         * How often the lag of the topic consumers is checked.
+         */
+        private long lagIntervalMillis = 5000;
+
+        /**
+         * Longest time a subscriber stays connected; 0 never times out.
+         */
+        private long timeoutMillis = 0;
+
+        public int getBufferCapacity() {
+            return bufferCapacity;
+        }
+
+        public void setBufferCapacity(int bufferCapacity) {
+            this.bufferCapacity = bufferCapacity;
+        }
+
+        public SlowSubscriberPolicy getSlowSubscriberPolicy() {
+            return slowSubscriberPolicy;
+        }
+
+        public void setSlowSubscriberPolicy(SlowSubscriberPolicy slowSubscriberPolicy) {
+            this.slowSubscriberPolicy = slowSubscriberPolicy;
+        }
+
+        public int getSenderThreads() {
+            return senderThreads;
+        }
+
+        public void setSenderThreads(int senderThreads) {
+            this.senderThreads = senderThreads;
+        }
+
+        public long getPollMillis() {
+            return pollMillis;
+        }
+
+        public void setPollMillis(long pollMillis) {
+            this.pollMillis = pollMillis;
+        }
+
+        public long getHeartbeatMillis() {
+            return heartbeatMillis;
+        }
+
+        public void setHeartbeatMillis(long heartbeatMillis) {
+            this.heartbeatMillis = heartbeatMillis;
+        }
+
+        public long getLagIntervalMillis() {
+            return lagIntervalMillis;
+        }
+
+        public void setLagIntervalMillis(long lagIntervalMillis) {
+            this.lagIntervalMillis = lagIntervalMillis;
+        }
+
+        public long getTimeoutMillis() {
+            return timeoutMillis;
+        }
+
+        public void setTimeoutMillis(long timeoutMillis) {
+            this.timeoutMillis = timeoutMillis;
+        }
+    }
+
+    /**
+     * What happens to a subscriber whose buffer is full.
+     */
+    public enum SlowSubscriberPolicy {
+        /** Drops the records that do not fit, keeping the subscriber. */
+        DROP,
+        /** Disconnects the subscriber, which may reconnect and resume from the latest records. */
+        DISCONNECT
+    }
+}
@@ -0,0 +1,64 @@
+package fms.common.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Settings of the {@link fms.common.service.OutboxRelay}.
+ * <p>
+ * Properties are configured in the {@code application.yml} file of each service, under {@code outbox}.
+ */
+@ConfigurationProperties(prefix = "outbox")
+public class OutboxProperties {
+
+    /**
+     * Whether this instance relays the outbox to Kafka. One instance at a time does, under a Hazelcast lock.
+     */
+    private boolean relayEnabled = true;
+
+    /**
+     * Delay between two relays of the outbox, when it was found empty.
+     */
+    private long pollMillis = 200;
+
+    /**
+     * Number of events relayed, and then deleted, at a time.
+     */
+    private int batchSize = 500;
+
+    /**
+     * How long the relay waits for Kafka to acknowledge an event before retrying it.
+     */
+    private long sendTimeoutMs = 30000;
+
+    public boolean isRelayEnabled() {
+        return relayEnabled;
+    }
+
+    public void setRelayEnabled(boolean relayEnabled) {
+        this.relayEnabled = relayEnabled;
+    }
+
+    public long getPollMillis() {
+        return pollMillis;
+    }
+
+    public void setPollMillis(long pollMillis) {
+        this.pollMillis = pollMillis;
+    }
+
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    public void setBatchSize(int batchSize) {
+        this.batchSize = batchSize;
+    }
+
+    public long getSendTimeoutMs() {
+        return sendTimeoutMs;
+    }
+
+    public void setSendTimeoutMs(long sendTimeoutMs) {
+        this.sendTimeoutMs = sendTimeoutMs;
+    }
+}
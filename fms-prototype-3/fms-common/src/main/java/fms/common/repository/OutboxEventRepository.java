@@ -0,0 +1,25 @@
+package fms.common.repository;
+
+import fms.common.domain.OutboxEvent;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.*;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Spring Data  repository for the OutboxEvent entity.
+ */
+@SuppressWarnings("unused")
+@Repository
+public interface OutboxEventRepository extends JpaRepository<OutboxEvent, Long> {
+
+    List<OutboxEvent> findAllByOrderByIdAsc(Pageable pageable);
+
+    @Modifying
+    @Query("delete from OutboxEvent outboxEvent where outboxEvent.id in :ids")
+    int deleteByIdIn(@Param("ids") Collection<Long> ids);
+}
@@ -0,0 +1,255 @@
+package fms.common.service;
+
+import fms.common.config.KafkaProperties;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import org.apache.kafka.clients.admin.AdminClient;
+import org.apache.kafka.clients.admin.NewTopic;
+import org.apache.kafka.clients.producer.KafkaProducer;
+import org.apache.kafka.clients.producer.Callback;
+import org.apache.kafka.clients.producer.Producer;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.clients.producer.RecordMetadata;
+import org.apache.kafka.common.KafkaException;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Publishes events to Kafka for the {@code *KafkaProducer} services, without blocking their callers.
+ * <p>
+ * Events are keyed, so that the events of an entity land on one partition and stay in order. They are
+ * handed to a bounded queue, drained by a single sender thread into one producer configured by a
+ * {@link KafkaProperties.Profile batching and compression profile}. A full queue drops the event
+ * rather than blocking the caller. Callers that must know an event was delivered, like the outbox
+ * relay, {@link #send send} it to the producer directly instead. Every outcome is counted in
+ * {@code kafka.publisher.events}, tagged by topic and result (sent, failed or dropped).
+ * <p>
+ * The topics declared by the producers are created on startup, if missing, with enough partitions
+ * for their consumers to scale out.
+ */
+@Service
+public class KafkaEventPublisher {
+
+    private static final Logger logger = LoggerFactory.getLogger(KafkaEventPublisher.class);
+
+    private static final String EVENTS_METRIC = "kafka.publisher.events";
+    private static final int MAX_DRAIN = 512;
+
+    private final KafkaProperties kafkaProperties;
+    private final KafkaProperties.Publisher config;
+    private final MeterRegistry meterRegistry;
+    private final BlockingQueue<ProducerRecord<String, String>> queue;
+    private final Set<String> topics = ConcurrentHashMap.newKeySet();
+    private Producer<String, String> producer;
+    private Thread sender;
+    private volatile boolean running = true;
+
+    @Autowired
+    public KafkaEventPublisher(KafkaProperties kafkaProperties, MeterRegistry meterRegistry) {
+        this(kafkaProperties, meterRegistry, null);
+    }
+
+    /**
+     * Publishes through the given producer rather than one created on startup, as the tests of the services do.
+     */
+    public KafkaEventPublisher(KafkaProperties kafkaProperties, MeterRegistry meterRegistry, Producer<String, String> producer) {
+        this.kafkaProperties = kafkaProperties;
+        this.config = kafkaProperties.getPublisher();
+        this.meterRegistry = meterRegistry;
+        this.queue = new ArrayBlockingQueue<>(config.getQueueCapacity());
+        this.producer = producer;
+    }
+
+    @PostConstruct
+    public void initialize() {
+        if (producer == null) {
+            producer = new KafkaProducer<>(getProducerProps());
+        }
+        meterRegistry.gaugeCollectionSize("kafka.publisher.queued", Tags.empty(), queue);
+        sender = new Thread(this::sendQueued, "kafka-event-publisher");
+        sender.setDaemon(true);
+        sender.start();
+        logger.debug("Kafka event publisher initialized with the {} profile.", config.getProfile());
+    }
+
+    Map<String, Object> getProducerProps() {
+        Map<String, Object> properties = new HashMap<>(config.getProfile().getProducerProps());
+        properties.put("key.serializer", StringSerializer.class.getName());
+        properties.put("value.serializer", StringSerializer.class.getName());
+        properties.putAll(kafkaProperties.getProducerProps());
+        return properties;
+    }
+
+    /**
+     * Declares topics events are published to, to be created on startup if missing.
+     *
+     * @param names the names of the topics.
+     */
+    public void declareTopics(String... names) {
+        for (String name : names) {
+            topics.add(name);
+        }
+    }
+
+    /**
+     * Queues an event for publication.
+     *
+     * @param topic the topic.
+     * @param key the key of the entity the event is about, which orders its events.
+     * @param value the event.
+     * @return {@code false} if the queue was full and the event was dropped.
+     */
+    public boolean publish(String topic, String key, String value) {
+        ProducerRecord<String, String> record = new ProducerRecord<>(topic, key, value);
+        boolean queued;
+        try {
+            queued = config.getHandoffTimeoutMs() > 0
+                ? queue.offer(record, config.getHandoffTimeoutMs(), TimeUnit.MILLISECONDS)
+                : queue.offer(record);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            queued = false;
+        }
+        if (!queued) {
+            count(topic, "dropped");
+            logger.error("Dropped an event for topic {} with key {}: the publisher queue is full", topic, key);
+        }
+        return queued;
+    }
+
+    /**
+     * Sends an event to the producer now, bypassing the queue.
+     *
+     * @param topic the topic.
+     * @param key the key of the entity the event is about, which orders its events.
+     * @param value the event.
+     * @return the future acknowledgement of the event, failed if it could not be sent.
+     */
+    public Future<RecordMetadata> send(String topic, String key, String value) {
+        ProducerRecord<String, String> record = new ProducerRecord<>(topic, key, value);
+        try {
+            return producer.send(record, acknowledgement(record));
+        } catch (KafkaException e) {
+            count(topic, "failed");
+            logger.error("Could not publish an event for topic {} with key {}: {}", topic, key, e.getMessage());
+            CompletableFuture<RecordMetadata> failed = new CompletableFuture<>();
+            failed.completeExceptionally(e);
+            return failed;
+        }
+    }
+
+    /**
+     * @return the number of events waiting to be handed to the producer.
+     */
+    public int getQueued() {
+        return queue.size();
+    }
+
+    private void sendQueued() {
+        List<ProducerRecord<String, String>> batch = new ArrayList<>();
+        while (running || !queue.isEmpty()) {
+            try {
+                ProducerRecord<String, String> record = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (record == null) {
+                    continue;
+                }
+                batch.add(record);
+            } catch (InterruptedException e) {
+                continue;
+            }
+            queue.drainTo(batch, MAX_DRAIN);
+            for (ProducerRecord<String, String> record : batch) {
+                send(record);
+            }
+            batch.clear();
+        }
+    }
+
+    private void send(ProducerRecord<String, String> record) {
+        try {
+            producer.send(record, acknowledgement(record));
+            logger.debug("Produced an event for topic {} : {}", record.topic(), record.value());
+        } catch (KafkaException e) {
+            count(record.topic(), "failed");
+            logger.error("Could not publish an event for topic {} with key {}: {}", record.topic(), record.key(), e.getMessage());
+        }
+    }
+
+    private Callback acknowledgement(ProducerRecord<String, String> record) {
+        return (metadata, exception) -> {
+            if (exception == null) {
+                count(record.topic(), "sent");
+            } else {
+                count(record.topic(), "failed");
+                logger.error("Could not publish an event for topic {} with key {}: {}", record.topic(), record.key(), exception.getMessage());
+            }
+        };
+    }
+
+    private void count(String topic, String result) {
+        meterRegistry.counter(EVENTS_METRIC, "topic", topic, "result", result).increment();
+    }
+
+    /**
+     * Creates the declared topics that do not exist yet. Existing topics are left as they are, as
+     * adding partitions would move keys to other partitions.
+     */
+    @Async
+    @EventListener(ApplicationReadyEvent.class)
+    public void provisionTopics() {
+        if (!config.isProvisionTopics() || topics.isEmpty()) {
+            return;
+        }
+        Map<String, Object> properties = new HashMap<>();
+        properties.put("bootstrap.servers", kafkaProperties.getProducerProps().get("bootstrap.servers"));
+        properties.put("request.timeout.ms", (int) config.getProvisionTimeoutMs());
+        try (AdminClient adminClient = AdminClient.create(properties)) {
+            Set<String> existing = adminClient.listTopics().names().get(config.getProvisionTimeoutMs(), TimeUnit.MILLISECONDS);
+            List<NewTopic> missing = new ArrayList<>();
+            for (String topic : topics) {
+                if (!existing.contains(topic)) {
+                    missing.add(new NewTopic(topic, config.getPartitions(), config.getReplicationFactor()));
+                }
+            }
+            if (!missing.isEmpty()) {
+                adminClient.createTopics(missing).all().get(config.getProvisionTimeoutMs(), TimeUnit.MILLISECONDS);
+                logger.info("Created Kafka topics {} with {} partitions", missing, config.getPartitions());
+            }
+        } catch (Exception e) {
+            logger.warn("Could not provision Kafka topics {}: {}", topics, e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        logger.debug("Kafka event publisher shutting down");
+        running = false;
+        try {
+            sender.join(Duration.ofSeconds(10).toMillis());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        producer.close(Duration.ofSeconds(10));
+    }
+}
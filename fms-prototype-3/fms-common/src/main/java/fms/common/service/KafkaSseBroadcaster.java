@@ -0,0 +1,366 @@
+package fms.common.service;
+
+import fms.common.config.KafkaProperties;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.ConsumerRecords;
+import org.apache.kafka.clients.consumer.KafkaConsumer;
+import org.apache.kafka.common.KafkaException;
+import org.apache.kafka.common.PartitionInfo;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.errors.WakeupException;
+import org.apache.kafka.common.serialization.StringDeserializer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Streams Kafka topics to server-sent event subscribers, with one consumer per topic per instance.
+ * <p>
+ * The first subscriber of a topic starts a consumer, on a thread of its own, reading all the partitions of
+ * the topic from their end; the last one to leave stops it. Consumers are assigned their partitions rather
+ * than joining a group, so every instance sees every record and no offsets are committed. Each record is
+ * offered to the bounded buffer of every subscriber of its topic, and buffers are drained by a small shared
+ * pool of sender threads, so a slow client holds up neither the consumer nor the other clients: once its
+ * buffer is full, its records are dropped, or it is disconnected, as configured.
+ * <p>
+ * {@code kafka.broadcaster.subscribers} and {@code kafka.broadcaster.lag} report the subscribers and the
+ * records left to read of each topic, {@code kafka.broadcaster.dropped} and
+ * {@code kafka.broadcaster.disconnected} the slow clients.
+ */
+@Service
+public class KafkaSseBroadcaster {
+
+    private static final Logger logger = LoggerFactory.getLogger(KafkaSseBroadcaster.class);
+
+    private static final Object HEARTBEAT = new Object();
+
+    private final KafkaProperties.Broadcaster config;
+    private final MeterRegistry meterRegistry;
+    private final Supplier<Consumer<String, String>> consumerFactory;
+    private final ExecutorService senders;
+    private final Map<String, TopicChannel> channels = new ConcurrentHashMap<>();
+    private final Set<String> meteredTopics = ConcurrentHashMap.newKeySet();
+
+    @Autowired
+    public KafkaSseBroadcaster(KafkaProperties kafkaProperties, MeterRegistry meterRegistry) {
+        this(kafkaProperties.getBroadcaster(), meterRegistry, () -> new KafkaConsumer<>(consumerProps(kafkaProperties)),
+            senders(kafkaProperties.getBroadcaster().getSenderThreads()));
+    }
+
+    KafkaSseBroadcaster(KafkaProperties.Broadcaster config, MeterRegistry meterRegistry,
+                        Supplier<Consumer<String, String>> consumerFactory, ExecutorService senders) {
+        this.config = config;
+        this.meterRegistry = meterRegistry;
+        this.consumerFactory = consumerFactory;
+        this.senders = senders;
+    }
+
+    private static Map<String, Object> consumerProps(KafkaProperties kafkaProperties) {
+        Map<String, Object> consumerProps = kafkaProperties.getConsumerProps();
+        // broadcast consumers read on their own, without committing offsets for the consumer group of the service
+        consumerProps.remove("group.id");
+        consumerProps.put("enable.auto.commit", "false");
+        consumerProps.put("key.deserializer", StringDeserializer.class.getName());
+        consumerProps.put("value.deserializer", StringDeserializer.class.getName());
+        return consumerProps;
+    }
+
+    private static ExecutorService senders(int threads) {
+        AtomicInteger count = new AtomicInteger();
+        return Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "kafka-sse-sender-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Subscribes a new client to the records of some topics, from now on.
+     *
+     * @param topics the topics.
+     * @return the stream of the values of their records.
+     */
+    public SseEmitter subscribe(Collection<String> topics) {
+        Subscriber subscriber = new Subscriber(new SseEmitter(config.getTimeoutMillis()), new LinkedHashSet<>(topics),
+            config.getBufferCapacity());
+        subscriber.emitter.onCompletion(() -> unsubscribe(subscriber));
+        subscriber.emitter.onTimeout(() -> unsubscribe(subscriber));
+        subscriber.emitter.onError(e -> unsubscribe(subscriber));
+        synchronized (this) {
+            for (String topic : subscriber.topics) {
+                channels.computeIfAbsent(topic, this::open).subscribers.add(subscriber);
+                meter(topic);
+            }
+        }
+        return subscriber.emitter;
+    }
+
+    /**
+     * @param topic the topic.
+     * @return the number of clients subscribed to the topic on this instance.
+     */
+    public int getSubscribers(String topic) {
+        TopicChannel channel = channels.get(topic);
+        return channel == null ? 0 : channel.subscribers.size();
+    }
+
+    /**
+     * @param topic the topic.
+     * @return the number of records of the topic its consumer has yet to read, as of its last check.
+     */
+    public long getLag(String topic) {
+        TopicChannel channel = channels.get(topic);
+        return channel == null ? 0 : channel.lag;
+    }
+
+    private TopicChannel open(String topic) {
+        TopicChannel channel = new TopicChannel(topic, consumerFactory.get());
+        Thread thread = new Thread(channel, "kafka-sse-" + topic);
+        thread.setDaemon(true);
+        thread.start();
+        logger.debug("Started broadcasting topic {}", topic);
+        return channel;
+    }
+
+    private void meter(String topic) {
+        if (meteredTopics.add(topic)) {
+            Gauge.builder("kafka.broadcaster.subscribers", this, broadcaster -> broadcaster.getSubscribers(topic))
+                .tag("topic", topic).register(meterRegistry);
+            Gauge.builder("kafka.broadcaster.lag", this, broadcaster -> broadcaster.getLag(topic))
+                .tag("topic", topic).register(meterRegistry);
+        }
+    }
+
+    private synchronized void unsubscribe(Subscriber subscriber) {
+        if (!subscriber.closed.compareAndSet(false, true)) {
+            return;
+        }
+        for (String topic : subscriber.topics) {
+            TopicChannel channel = channels.get(topic);
+            if (channel != null && channel.subscribers.remove(subscriber) && channel.subscribers.isEmpty()) {
+                channels.remove(topic);
+                channel.close();
+                logger.debug("Stopped broadcasting topic {}", topic);
+            }
+        }
+    }
+
+    private void disconnect(Subscriber subscriber, String topic) {
+        unsubscribe(subscriber);
+        subscriber.emitter.complete();
+        meterRegistry.counter("kafka.broadcaster.disconnected", "topic", topic).increment();
+        logger.debug("Disconnected a slow subscriber of {}", topic);
+    }
+
+    private void schedule(Subscriber subscriber) {
+        if (!subscriber.closed.get() && subscriber.scheduled.compareAndSet(false, true)) {
+            senders.execute(() -> drain(subscriber));
+        }
+    }
+
+    private void drain(Subscriber subscriber) {
+        try {
+            Object item;
+            while (!subscriber.closed.get() && (item = subscriber.buffer.poll()) != null) {
+                if (item == HEARTBEAT) {
+                    subscriber.emitter.send(SseEmitter.event().comment(""));
+                } else {
+                    subscriber.emitter.send(item);
+                }
+            }
+        } catch (IOException | IllegalStateException e) {
+            // the client is gone, or its stream already completed
+            logger.trace("Complete with error {}", e.getMessage(), e);
+            unsubscribe(subscriber);
+            subscriber.emitter.completeWithError(e);
+        } finally {
+            subscriber.scheduled.set(false);
+        }
+        if (!subscriber.buffer.isEmpty()) {
+            schedule(subscriber);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        List<TopicChannel> open;
+        synchronized (this) {
+            open = new ArrayList<>(channels.values());
+            channels.clear();
+        }
+        for (TopicChannel channel : open) {
+            channel.close();
+            for (Subscriber subscriber : channel.subscribers) {
+                subscriber.closed.set(true);
+                subscriber.emitter.complete();
+            }
+        }
+        senders.shutdownNow();
+    }
+
+    /**
+     * A client, with the records waiting to be sent to it.
+     */
+    private static final class Subscriber {
+
+        private final SseEmitter emitter;
+        private final Set<String> topics;
+        private final BlockingQueue<Object> buffer;
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+        private final AtomicBoolean closed = new AtomicBoolean();
+
+        private Subscriber(SseEmitter emitter, Set<String> topics, int bufferCapacity) {
+            this.emitter = emitter;
+            this.topics = topics;
+            this.buffer = new ArrayBlockingQueue<>(bufferCapacity);
+        }
+    }
+
+    /**
+     * The consumer of a topic, and its subscribers.
+     */
+    private final class TopicChannel implements Runnable {
+
+        private final String topic;
+        private final Consumer<String, String> consumer;
+        private final Set<Subscriber> subscribers = new CopyOnWriteArraySet<>();
+        private volatile boolean closed;
+        private volatile long lag;
+        private List<TopicPartition> partitions = Collections.emptyList();
+        private long nextHeartbeat;
+        private long nextLagCheck;
+
+        private TopicChannel(String topic, Consumer<String, String> consumer) {
+            this.topic = topic;
+            this.consumer = consumer;
+        }
+
+        @Override
+        public void run() {
+            try {
+                while (!closed) {
+                    try {
+                        if (partitions.isEmpty()) {
+                            assign();
+                        }
+                        ConsumerRecords<String, String> records = consumer.poll(Duration.ofMillis(config.getPollMillis()));
+                        fanOut(records);
+                        long now = System.currentTimeMillis();
+                        if (now >= nextHeartbeat) {
+                            nextHeartbeat = now + config.getHeartbeatMillis();
+                            fanOut(HEARTBEAT);
+                        }
+                        if (now >= nextLagCheck && !partitions.isEmpty()) {
+                            nextLagCheck = now + config.getLagIntervalMillis();
+                            lag = lag();
+                        }
+                    } catch (WakeupException e) {
+                        // closing
+                    } catch (KafkaException e) {
+                        logger.warn("Could not read topic {} for its subscribers: {}", topic, e.getMessage());
+                        Thread.sleep(config.getPollMillis());
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                consumer.close();
+            }
+        }
+
+        private void assign() throws InterruptedException {
+            List<PartitionInfo> infos = consumer.partitionsFor(topic);
+            if (infos == null || infos.isEmpty()) {
+                // the topic does not exist yet
+                Thread.sleep(config.getPollMillis());
+                return;
+            }
+            List<TopicPartition> assigned = new ArrayList<>(infos.size());
+            for (PartitionInfo info : infos) {
+                assigned.add(new TopicPartition(topic, info.partition()));
+            }
+            consumer.assign(assigned);
+            consumer.seekToEnd(assigned);
+            partitions = assigned;
+        }
+
+        private long lag() {
+            long total = 0;
+            for (Map.Entry<TopicPartition, Long> end : consumer.endOffsets(partitions).entrySet()) {
+                total += Math.max(0, end.getValue() - consumer.position(end.getKey()));
+            }
+            return total;
+        }
+
+        private void fanOut(ConsumerRecords<String, String> records) {
+            if (records.isEmpty()) {
+                return;
+            }
+            for (Subscriber subscriber : subscribers) {
+                for (ConsumerRecord<String, String> record : records) {
+                    if (!offer(subscriber, record.value())) {
+                        break;
+                    }
+                }
+                schedule(subscriber);
+            }
+        }
+
+        private void fanOut(Object item) {
+            for (Subscriber subscriber : subscribers) {
+                if (offer(subscriber, item)) {
+                    schedule(subscriber);
+                }
+            }
+        }
+
+        /**
+         * @return {@code false} if the subscriber was disconnected.
+         */
+        private boolean offer(Subscriber subscriber, Object item) {
+            if (subscriber.buffer.offer(item)) {
+                return true;
+            }
+            if (item == HEARTBEAT) {
+                // a full buffer keeps the stream alive anyway
+                return true;
+            }
+            if (config.getSlowSubscriberPolicy() == KafkaProperties.SlowSubscriberPolicy.DISCONNECT) {
+                disconnect(subscriber, topic);
+                return false;
+            }
+            meterRegistry.counter("kafka.broadcaster.dropped", "topic", topic).increment();
+            return true;
+        }
+
+        private void close() {
+            closed = true;
+            consumer.wakeup();
+        }
+    }
+}
@@ -0,0 +1,170 @@
+package fms.common.service;
+
+import com.hazelcast.core.HazelcastInstance;
+import fms.common.config.OutboxProperties;
+import fms.common.domain.OutboxEvent;
+import fms.common.repository.OutboxEventRepository;
+import org.apache.kafka.clients.producer.RecordMetadata;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.locks.Lock;
+
+/**
+ * Relays the outbox to Kafka, with at-least-once delivery.
+ * <p>
+ * A dedicated thread reads the oldest events in batches, sends a whole batch to the producer, which
+ * batches it further, then waits for the acknowledgements in order. Delivered events are deleted in
+ * one statement, so the outbox only ever holds the events still to send. An event Kafka did not
+ * acknowledge stops the batch: it and the ones after it stay in the outbox and are sent again on the
+ * next relay, so an event may be delivered twice but is never lost.
+ * <p>
+ * One instance at a time relays, under a Hazelcast lock, in id order. Ids are taken when an event is
+ * written, not when its transaction commits, so an event may be sent after one written later. Only the
+ * events of one key are sent in the order they were written, as the changes of one entity update its row
+ * and so commit one after the other.
+ */
+@Service
+public class OutboxRelay {
+
+    private final Logger log = LoggerFactory.getLogger(OutboxRelay.class);
+
+    public static final String RELAY_LOCK = "outbox-relay";
+
+    private final OutboxProperties properties;
+    private final OutboxEventRepository outboxEventRepository;
+    private final KafkaEventPublisher kafkaEventPublisher;
+    private final TransactionTemplate transactionTemplate;
+    private final Lock relayLock;
+    private ScheduledExecutorService executor;
+
+    @Autowired
+    @SuppressWarnings("deprecation") // the CP subsystem, which replaces ILock, is not enabled in this cluster
+    public OutboxRelay(OutboxProperties properties, OutboxEventRepository outboxEventRepository,
+                       KafkaEventPublisher kafkaEventPublisher, PlatformTransactionManager transactionManager,
+                       HazelcastInstance hazelcastInstance) {
+        this(properties, outboxEventRepository, kafkaEventPublisher,
+            new TransactionTemplate(transactionManager), hazelcastInstance.getLock(RELAY_LOCK));
+    }
+
+    OutboxRelay(OutboxProperties properties, OutboxEventRepository outboxEventRepository,
+                KafkaEventPublisher kafkaEventPublisher, TransactionTemplate transactionTemplate, Lock relayLock) {
+        this.properties = properties;
+        this.outboxEventRepository = outboxEventRepository;
+        this.kafkaEventPublisher = kafkaEventPublisher;
+        this.transactionTemplate = transactionTemplate;
+        this.relayLock = relayLock;
+    }
+
+    /**
+     * Starts relaying, once the schema is up to date.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!properties.isRelayEnabled()) {
+            return;
+        }
+        executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "outbox-relay");
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.scheduleWithFixedDelay(this::relay, properties.getPollMillis(), properties.getPollMillis(), TimeUnit.MILLISECONDS);
+        log.debug("Outbox relay started");
+    }
+
+    /**
+     * Relays the outbox until it is empty or an event is not acknowledged, unless another instance is relaying it.
+     *
+     * @return the number of events delivered.
+     */
+    public int relay() {
+        if (!relayLock.tryLock()) {
+            return 0;
+        }
+        int delivered = 0;
+        try {
+            int relayed;
+            do {
+                relayed = relayBatch();
+                delivered += relayed;
+            } while (relayed == properties.getBatchSize() && !Thread.currentThread().isInterrupted());
+        } catch (RuntimeException e) {
+            log.warn("Could not relay the outbox: {}", e.getMessage());
+        } finally {
+            relayLock.unlock();
+        }
+        if (delivered > 0) {
+            log.debug("Relayed {} outbox events", delivered);
+        }
+        return delivered;
+    }
+
+    /**
+     * @return the number of events delivered, less than a batch if the outbox is empty or an event was not acknowledged.
+     */
+    private int relayBatch() {
+        List<OutboxEvent> events = transactionTemplate.execute(status ->
+            outboxEventRepository.findAllByOrderByIdAsc(PageRequest.of(0, properties.getBatchSize())));
+        if (events == null || events.isEmpty()) {
+            return 0;
+        }
+        List<Future<RecordMetadata>> acknowledgements = new ArrayList<>(events.size());
+        for (OutboxEvent event : events) {
+            acknowledgements.add(kafkaEventPublisher.send(event.getTopic(), event.getEventKey(), event.getPayload()));
+        }
+        List<Long> delivered = new ArrayList<>(events.size());
+        for (int i = 0; i < events.size(); i++) {
+            if (!acknowledged(events.get(i), acknowledgements.get(i))) {
+                break;
+            }
+            delivered.add(events.get(i).getId());
+        }
+        if (!delivered.isEmpty()) {
+            transactionTemplate.execute(status -> outboxEventRepository.deleteByIdIn(delivered));
+        }
+        return delivered.size();
+    }
+
+    private boolean acknowledged(OutboxEvent event, Future<RecordMetadata> acknowledgement) {
+        try {
+            acknowledgement.get(properties.getSendTimeoutMs(), TimeUnit.MILLISECONDS);
+            return true;
+        } catch (ExecutionException | TimeoutException e) {
+            log.warn("Outbox event {} for topic {} was not acknowledged, retrying on the next relay", event.getId(), event.getTopic());
+            return false;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (executor == null) {
+            return;
+        }
+        executor.shutdownNow();
+        try {
+            executor.awaitTermination(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
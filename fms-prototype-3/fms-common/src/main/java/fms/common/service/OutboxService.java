@@ -0,0 +1,34 @@
+package fms.common.service;
+
+import fms.common.domain.OutboxEvent;
+import fms.common.repository.OutboxEventRepository;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+
+/**
+ * Writes events to the outbox, in the transaction of the change they announce, for the
+ * {@link OutboxRelay} to send once it commits. An event of a rolled back change is never sent.
+ */
+@Service
+@Transactional
+public class OutboxService {
+
+    private final OutboxEventRepository outboxEventRepository;
+
+    public OutboxService(OutboxEventRepository outboxEventRepository) {
+        this.outboxEventRepository = outboxEventRepository;
+    }
+
+    /**
+     * Appends an event to the outbox, joining the current transaction if any.
+     *
+     * @param topic the topic.
+     * @param key the key of the entity the event is about, which orders its events.
+     * @param payload the event.
+     */
+    public void append(String topic, String key, String payload) {
+        outboxEventRepository.save(new OutboxEvent().topic(topic).eventKey(key).payload(payload).createdAt(Instant.now()));
+    }
+}
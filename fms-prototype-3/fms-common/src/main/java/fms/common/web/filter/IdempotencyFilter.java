@@ -0,0 +1,173 @@
+package fms.common.web.filter;
+
+import fms.common.config.IdempotencyProperties;
+import com.hazelcast.core.HazelcastInstance;
+import com.hazelcast.core.IMap;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Makes the {@code POST} requests carrying an {@code Idempotency-Key} header safe to retry.
+ * <p>
+ * The response to the first request with a key is kept in a Hazelcast map for the configured time to live,
+ * and replayed to the later requests of the same user to the same URI with the same key, so a retried
+ * creation neither creates a duplicate nor sends its events twice. Requests with the same key are run
+ * one at a time under a lock on the key: a retry arriving while the original still runs waits for it and
+ * replays its response, or gets {@code 409 (Conflict)} if the original outlasts the wait. Server errors
+ * are not kept, so the request can be retried.
+ */
+@Component
+public class IdempotencyFilter extends OncePerRequestFilter {
+
+    private final Logger log = LoggerFactory.getLogger(IdempotencyFilter.class);
+
+    public static final String IDEMPOTENCY_KEY_HEADER = "Idempotency-Key";
+    public static final String IDEMPOTENT_REPLAYED_HEADER = "Idempotent-Replayed";
+    public static final String RESPONSES_MAP = "idempotent-responses";
+
+    private static final int MAX_KEY_LENGTH = 255;
+
+    private final IdempotencyProperties properties;
+    private final IMap<String, KeptResponse> responses;
+
+    @Autowired
+    public IdempotencyFilter(IdempotencyProperties properties, HazelcastInstance hazelcastInstance) {
+        this(properties, hazelcastInstance.getMap(RESPONSES_MAP));
+    }
+
+    IdempotencyFilter(IdempotencyProperties properties, IMap<String, KeptResponse> responses) {
+        this.properties = properties;
+        this.responses = responses;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !HttpMethod.POST.matches(request.getMethod()) || request.getHeader(IDEMPOTENCY_KEY_HEADER) == null;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+        throws ServletException, IOException {
+        String idempotencyKey = request.getHeader(IDEMPOTENCY_KEY_HEADER);
+        if (idempotencyKey.isEmpty() || idempotencyKey.length() > MAX_KEY_LENGTH) {
+            response.sendError(HttpServletResponse.SC_BAD_REQUEST, "The " + IDEMPOTENCY_KEY_HEADER + " header is invalid");
+            return;
+        }
+        String key = currentUserLogin() + ' ' + request.getRequestURI() + ' ' + idempotencyKey;
+        KeptResponse kept = responses.get(key);
+        if (kept != null) {
+            kept.replay(response);
+            return;
+        }
+        if (!lock(key)) {
+            response.sendError(HttpServletResponse.SC_CONFLICT, "A request with the same " + IDEMPOTENCY_KEY_HEADER + " is in progress");
+            return;
+        }
+        try {
+            kept = responses.get(key);
+            if (kept != null) {
+                kept.replay(response);
+                return;
+            }
+            ContentCachingResponseWrapper wrapper = new ContentCachingResponseWrapper(response);
+            filterChain.doFilter(request, wrapper);
+            if (wrapper.getStatus() < HttpServletResponse.SC_INTERNAL_SERVER_ERROR) {
+                responses.set(key, new KeptResponse(wrapper), properties.getTtl().toMillis(), TimeUnit.MILLISECONDS);
+            }
+            wrapper.copyBodyToResponse();
+        } finally {
+            unlock(key);
+        }
+    }
+
+    /**
+     * @return the login of the user the request is authenticated as, or an empty string.
+     */
+    private static String currentUserLogin() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        return authentication == null ? "" : authentication.getName();
+    }
+
+    private boolean lock(String key) {
+        try {
+            return responses.tryLock(key, properties.getWaitMillis(), TimeUnit.MILLISECONDS,
+                properties.getLeaseMillis(), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private void unlock(String key) {
+        try {
+            responses.unlock(key);
+        } catch (IllegalMonitorStateException e) {
+            log.warn("The idempotency lock of a request expired before it completed: {}", key);
+        }
+    }
+
+    /**
+     * A response kept to be replayed, without the headers the container sets.
+     */
+    static class KeptResponse implements Serializable {
+
+        private static final long serialVersionUID = 1L;
+
+        private final int status;
+        private final String contentType;
+        private final LinkedHashMap<String, ArrayList<String>> headers = new LinkedHashMap<>();
+        private final byte[] body;
+
+        KeptResponse(ContentCachingResponseWrapper response) {
+            this.status = response.getStatus();
+            this.contentType = response.getContentType();
+            for (String name : response.getHeaderNames()) {
+                if (!HttpHeaders.CONTENT_TYPE.equalsIgnoreCase(name) && !HttpHeaders.CONTENT_LENGTH.equalsIgnoreCase(name)) {
+                    headers.put(name, new ArrayList<>(response.getHeaders(name)));
+                }
+            }
+            this.body = response.getContentAsByteArray();
+        }
+
+        void replay(HttpServletResponse response) throws IOException {
+            response.setStatus(status);
+            if (contentType != null) {
+                response.setContentType(contentType);
+            }
+            // headers set again by the filters before this one are replaced rather than repeated
+            for (Map.Entry<String, ArrayList<String>> header : headers.entrySet()) {
+                List<String> values = header.getValue();
+                for (int i = 0; i < values.size(); i++) {
+                    if (i == 0) {
+                        response.setHeader(header.getKey(), values.get(i));
+                    } else {
+                        response.addHeader(header.getKey(), values.get(i));
+                    }
+                }
+            }
+            response.setHeader(IDEMPOTENT_REPLAYED_HEADER, "true");
+            response.setContentLength(body.length);
+            response.getOutputStream().write(body);
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package fms.common.domain;
+
+import org.junit.jupiter.api.Test;
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class OutboxEventTest {
+
+    @Test
+    public void equalsVerifier() throws Exception {
+        OutboxEvent outboxEvent1 = new OutboxEvent();
+        assertThat(outboxEvent1.toString()).isNotNull();
+        assertThat(outboxEvent1).isEqualTo(outboxEvent1);
+        assertThat(outboxEvent1).isNotEqualTo(new Object());
+        assertThat(outboxEvent1).isNotEqualTo(null);
+        OutboxEvent outboxEvent2 = new OutboxEvent();
+        // not persisted yet: distinct, with the same hash code
+        assertThat(outboxEvent1).isNotEqualTo(outboxEvent2);
+        assertThat(outboxEvent1.hashCode()).isEqualTo(outboxEvent2.hashCode());
+        outboxEvent1.setId(1L);
+        outboxEvent2.setId(outboxEvent1.getId());
+        assertThat(outboxEvent1).isEqualTo(outboxEvent2);
+        outboxEvent2.setId(2L);
+        assertThat(outboxEvent1).isNotEqualTo(outboxEvent2);
+        outboxEvent1.setId(null);
+        assertThat(outboxEvent1).isNotEqualTo(outboxEvent2);
+    }
+}
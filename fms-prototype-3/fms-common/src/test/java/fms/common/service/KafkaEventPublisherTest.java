@@ -0,0 +1,140 @@
+package fms.common.service;
+
+import fms.common.config.KafkaProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.clients.producer.MockProducer;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.clients.producer.RecordMetadata;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.function.BooleanSupplier;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Test class for the {@link KafkaEventPublisher}.
+ */
+public class KafkaEventPublisherTest {
+
+    private static final String TOPIC = "test_topic";
+
+    private final KafkaProperties kafkaProperties = new KafkaProperties();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private MockProducer<String, String> producer;
+    private KafkaEventPublisher publisher;
+
+    @BeforeEach
+    public void setUp() {
+        kafkaProperties.getPublisher().setQueueCapacity(4);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        if (publisher != null) {
+            publisher.shutdown();
+        }
+    }
+
+    private double count(String result) {
+        return meterRegistry.counter("kafka.publisher.events", "topic", TOPIC, "result", result).count();
+    }
+
+    private static void awaitUntil(BooleanSupplier condition) {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!condition.getAsBoolean()) {
+            assertThat(System.currentTimeMillis()).as("condition met in time").isLessThan(deadline);
+            Thread.yield();
+        }
+    }
+
+    @Test
+    public void eventsAreSentKeyedAndInOrder() {
+        producer = new MockProducer<>(true, new StringSerializer(), new StringSerializer());
+        publisher = new KafkaEventPublisher(kafkaProperties, meterRegistry, producer);
+        publisher.initialize();
+
+        assertThat(publisher.publish(TOPIC, "LH100", "first")).isTrue();
+        assertThat(publisher.publish(TOPIC, "LH100", "second")).isTrue();
+        assertThat(publisher.publish(TOPIC, "LH200", "third")).isTrue();
+
+        awaitUntil(() -> producer.history().size() == 3);
+        List<String> keys = producer.history().stream().map(ProducerRecord::key).collect(Collectors.toList());
+        List<String> values = producer.history().stream().map(ProducerRecord::value).collect(Collectors.toList());
+        assertThat(keys).containsExactly("LH100", "LH100", "LH200");
+        assertThat(values).containsExactly("first", "second", "third");
+        assertThat(count("sent")).isEqualTo(3);
+    }
+
+    @Test
+    public void failedSendsAreCounted() {
+        producer = new MockProducer<>(false, new StringSerializer(), new StringSerializer());
+        publisher = new KafkaEventPublisher(kafkaProperties, meterRegistry, producer);
+        publisher.initialize();
+
+        publisher.publish(TOPIC, "LH100", "event");
+        awaitUntil(() -> producer.history().size() == 1);
+        assertThat(producer.errorNext(new RuntimeException("broker down"))).isTrue();
+
+        assertThat(count("failed")).isEqualTo(1);
+        assertThat(count("sent")).isZero();
+    }
+
+    @Test
+    public void sendBypassesTheQueueAndReportsTheAcknowledgement() {
+        producer = new MockProducer<>(false, new StringSerializer(), new StringSerializer());
+        // not initialized: only sends reach the producer
+        publisher = new KafkaEventPublisher(kafkaProperties, meterRegistry, producer);
+
+        Future<RecordMetadata> delivered = publisher.send(TOPIC, "LH100", "delivered");
+        Future<RecordMetadata> lost = publisher.send(TOPIC, "LH100", "lost");
+        assertThat(producer.history()).hasSize(2);
+        producer.completeNext();
+        producer.errorNext(new RuntimeException("broker down"));
+
+        assertThat(delivered.isDone()).isTrue();
+        assertThat(lost.isDone()).isTrue();
+        assertThat(count("sent")).isEqualTo(1);
+        assertThat(count("failed")).isEqualTo(1);
+        assertThat(publisher.getQueued()).isZero();
+        assertThatThrownBy(lost::get).isInstanceOf(ExecutionException.class).hasMessageContaining("broker down");
+        publisher = null;
+    }
+
+    @Test
+    public void fullQueueDropsEventsWithoutBlocking() {
+        producer = new MockProducer<>(true, new StringSerializer(), new StringSerializer());
+        // not initialized: nothing drains the queue
+        publisher = new KafkaEventPublisher(kafkaProperties, meterRegistry, producer);
+
+        for (int i = 0; i < 4; i++) {
+            assertThat(publisher.publish(TOPIC, "LH100", "event " + i)).isTrue();
+        }
+        assertThat(publisher.publish(TOPIC, "LH100", "one too many")).isFalse();
+
+        assertThat(publisher.getQueued()).isEqualTo(4);
+        assertThat(count("dropped")).isEqualTo(1);
+        publisher = null;
+    }
+
+    @Test
+    public void explicitProducerPropertiesOverrideTheProfile() {
+        kafkaProperties.getPublisher().setProfile(KafkaProperties.Profile.HIGH_THROUGHPUT);
+        kafkaProperties.setProducer(Collections.singletonMap("linger.ms", "1"));
+        publisher = new KafkaEventPublisher(kafkaProperties, meterRegistry, null);
+
+        assertThat(publisher.getProducerProps())
+            .containsEntry("linger.ms", "1")
+            .containsEntry("compression.type", "lz4")
+            .containsEntry("enable.idempotence", true);
+        publisher = null;
+    }
+}
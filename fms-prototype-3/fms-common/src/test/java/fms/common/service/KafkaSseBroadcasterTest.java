@@ -0,0 +1,110 @@
+package fms.common.service;
+
+import fms.common.config.KafkaProperties;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.MockConsumer;
+import org.apache.kafka.clients.consumer.OffsetResetStrategy;
+import org.apache.kafka.common.PartitionInfo;
+import org.apache.kafka.common.TopicPartition;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Collections;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Test class for the {@link KafkaSseBroadcaster}.
+ */
+public class KafkaSseBroadcasterTest {
+
+    private static final String TOPIC = "topic";
+    private static final TopicPartition PARTITION = new TopicPartition(TOPIC, 0);
+
+    private final AtomicInteger consumers = new AtomicInteger();
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private KafkaProperties.Broadcaster config;
+    private MockConsumer<String, String> consumer;
+    private KafkaSseBroadcaster broadcaster;
+
+    @BeforeEach
+    public void setUp() {
+        config = new KafkaProperties.Broadcaster();
+        config.setBufferCapacity(2);
+        config.setPollMillis(10);
+        consumer = new MockConsumer<>(OffsetResetStrategy.LATEST);
+        consumer.updatePartitions(TOPIC, Collections.singletonList(new PartitionInfo(TOPIC, 0, null, null, null)));
+        consumer.updateEndOffsets(Collections.singletonMap(PARTITION, 0L));
+        // senders that never send, so that every subscriber is a slow one
+        broadcaster = new KafkaSseBroadcaster(config, meterRegistry, () -> {
+            consumers.incrementAndGet();
+            return consumer;
+        }, mock(ExecutorService.class));
+    }
+
+    @AfterEach
+    public void tearDown() {
+        broadcaster.shutdown();
+    }
+
+    private void waitUntil(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!condition.getAsBoolean()) {
+            assertThat(System.currentTimeMillis()).as("condition met in time").isLessThan(deadline);
+            Thread.sleep(10);
+        }
+    }
+
+    private void produce(int count) throws InterruptedException {
+        waitUntil(() -> !consumer.assignment().isEmpty());
+        for (int offset = 0; offset < count; offset++) {
+            consumer.addRecord(new ConsumerRecord<>(TOPIC, 0, offset, null, "value " + offset));
+        }
+    }
+
+    private double count(String name) {
+        return meterRegistry.counter(name, "topic", TOPIC).count();
+    }
+
+    @Test
+    public void subscribersOfATopicShareOneConsumer() {
+        broadcaster.subscribe(Collections.singletonList(TOPIC));
+        broadcaster.subscribe(Collections.singletonList(TOPIC));
+
+        assertThat(consumers.get()).isEqualTo(1);
+        assertThat(broadcaster.getSubscribers(TOPIC)).isEqualTo(2);
+        assertThat(meterRegistry.get("kafka.broadcaster.subscribers").tag("topic", TOPIC).gauge().value()).isEqualTo(2);
+    }
+
+    @Test
+    public void slowSubscribersMissTheRecordsTheirBufferCannotHold() throws InterruptedException {
+        config.setSlowSubscriberPolicy(KafkaProperties.SlowSubscriberPolicy.DROP);
+        broadcaster.subscribe(Collections.singletonList(TOPIC));
+
+        produce(5);
+
+        waitUntil(() -> count("kafka.broadcaster.dropped") >= 3);
+        assertThat(broadcaster.getSubscribers(TOPIC)).isEqualTo(1);
+        assertThat(count("kafka.broadcaster.disconnected")).isZero();
+    }
+
+    @Test
+    public void slowSubscribersAreDisconnectedAndTheirLastConsumerClosed() throws InterruptedException {
+        config.setSlowSubscriberPolicy(KafkaProperties.SlowSubscriberPolicy.DISCONNECT);
+        broadcaster.subscribe(Collections.singletonList(TOPIC));
+
+        produce(5);
+
+        waitUntil(consumer::closed);
+        assertThat(count("kafka.broadcaster.disconnected")).isEqualTo(1);
+        assertThat(count("kafka.broadcaster.dropped")).isZero();
+        assertThat(broadcaster.getSubscribers(TOPIC)).isZero();
+    }
+}
@@ -0,0 +1,114 @@
+package fms.common.service;
+
+import fms.common.config.KafkaProperties;
+import fms.common.config.OutboxProperties;
+import fms.common.domain.OutboxEvent;
+import fms.common.repository.OutboxEventRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.clients.producer.MockProducer;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BooleanSupplier;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+/**
+ * Test class for the {@link OutboxRelay}.
+ */
+public class OutboxRelayTest {
+
+    private final OutboxProperties properties = new OutboxProperties();
+    private final TransactionTemplate transactionTemplate = new TransactionTemplate(mock(PlatformTransactionManager.class));
+    private OutboxEventRepository outboxEventRepository;
+
+    @BeforeEach
+    public void setUp() {
+        properties.setBatchSize(3);
+        properties.setSendTimeoutMs(5000);
+        outboxEventRepository = mock(OutboxEventRepository.class);
+    }
+
+    private OutboxRelay relay(MockProducer<String, String> producer, Lock lock) {
+        KafkaEventPublisher publisher = new KafkaEventPublisher(new KafkaProperties(), new SimpleMeterRegistry(), producer);
+        return new OutboxRelay(properties, outboxEventRepository, publisher, transactionTemplate, lock);
+    }
+
+    private static OutboxEvent event(long id, String key) {
+        OutboxEvent event = new OutboxEvent().topic("booking_updated").eventKey(key).payload("event " + id).createdAt(Instant.now());
+        event.setId(id);
+        return event;
+    }
+
+    private static void awaitUntil(BooleanSupplier condition) {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!condition.getAsBoolean()) {
+            assertThat(System.currentTimeMillis()).as("condition met in time").isLessThan(deadline);
+            Thread.yield();
+        }
+    }
+
+    @Test
+    public void deliveredEventsAreSentInOrderAndDeleted() {
+        when(outboxEventRepository.findAllByOrderByIdAsc(any()))
+            .thenReturn(Arrays.asList(event(1, "LH100"), event(2, "LH200"), event(3, "LH100")))
+            .thenReturn(Collections.emptyList());
+        MockProducer<String, String> producer = new MockProducer<>(true, new StringSerializer(), new StringSerializer());
+
+        assertThat(relay(producer, new ReentrantLock()).relay()).isEqualTo(3);
+
+        assertThat(producer.history().stream().map(ProducerRecord::value).collect(Collectors.toList()))
+            .containsExactly("event 1", "event 2", "event 3");
+        assertThat(producer.history().stream().map(ProducerRecord::key).collect(Collectors.toList()))
+            .containsExactly("LH100", "LH200", "LH100");
+        verify(outboxEventRepository).deleteByIdIn(Arrays.asList(1L, 2L, 3L));
+        verify(outboxEventRepository, times(2)).findAllByOrderByIdAsc(any());
+    }
+
+    @Test
+    public void unacknowledgedEventsStayInTheOutbox() throws Exception {
+        when(outboxEventRepository.findAllByOrderByIdAsc(any()))
+            .thenReturn(Arrays.asList(event(1, "LH100"), event(2, "LH100"), event(3, "LH100")));
+        MockProducer<String, String> producer = new MockProducer<>(false, new StringSerializer(), new StringSerializer());
+        OutboxRelay relay = relay(producer, new ReentrantLock());
+
+        CompletableFuture<Integer> relayed = CompletableFuture.supplyAsync(relay::relay);
+        awaitUntil(() -> producer.history().size() == 3);
+        producer.completeNext();
+        producer.errorNext(new RuntimeException("broker down"));
+        producer.completeNext();
+
+        assertThat(relayed.get()).isEqualTo(1);
+        verify(outboxEventRepository).deleteByIdIn(Collections.singletonList(1L));
+        verify(outboxEventRepository, times(1)).findAllByOrderByIdAsc(any());
+    }
+
+    @Test
+    public void onlyOneInstanceRelays() {
+        Lock lock = mock(Lock.class);
+        when(lock.tryLock()).thenReturn(false);
+        MockProducer<String, String> producer = new MockProducer<>(true, new StringSerializer(), new StringSerializer());
+
+        assertThat(relay(producer, lock).relay()).isZero();
+
+        verifyNoInteractions(outboxEventRepository);
+        assertThat(producer.history()).isEmpty();
+    }
+}
@@ -0,0 +1,176 @@
+package fms.common.web.filter;
+
+import fms.common.config.IdempotencyProperties;
+import com.hazelcast.config.Config;
+import com.hazelcast.core.Hazelcast;
+import com.hazelcast.core.HazelcastInstance;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import javax.servlet.FilterChain;
+import javax.servlet.http.HttpServletResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Test class for the {@link IdempotencyFilter}.
+ */
+public class IdempotencyFilterTest {
+
+    private static HazelcastInstance hazelcastInstance;
+
+    private final IdempotencyProperties properties = new IdempotencyProperties();
+    private final AtomicInteger created = new AtomicInteger();
+    private IdempotencyFilter filter;
+
+    @BeforeAll
+    public static void startHazelcast() {
+        Config config = new Config();
+        config.setInstanceName("idempotency-filter-test");
+        config.getNetworkConfig().getJoin().getMulticastConfig().setEnabled(false);
+        config.getNetworkConfig().getJoin().getTcpIpConfig().setEnabled(false);
+        hazelcastInstance = Hazelcast.newHazelcastInstance(config);
+    }
+
+    @AfterAll
+    public static void stopHazelcast() {
+        hazelcastInstance.shutdown();
+    }
+
+    @BeforeEach
+    public void setUp() {
+        hazelcastInstance.getMap(IdempotencyFilter.RESPONSES_MAP).clear();
+        filter = new IdempotencyFilter(properties, hazelcastInstance.getMap(IdempotencyFilter.RESPONSES_MAP));
+    }
+
+    private static MockHttpServletRequest post(String idempotencyKey) {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/api/bookings");
+        if (idempotencyKey != null) {
+            request.addHeader(IdempotencyFilter.IDEMPOTENCY_KEY_HEADER, idempotencyKey);
+        }
+        return request;
+    }
+
+    private FilterChain create(int status) {
+        return (request, response) -> {
+            int id = created.incrementAndGet();
+            HttpServletResponse httpResponse = (HttpServletResponse) response;
+            httpResponse.setStatus(status);
+            httpResponse.setContentType("application/json");
+            httpResponse.setHeader(HttpHeaders.LOCATION, "/api/bookings/" + id);
+            response.getOutputStream().write(("{\"id\":" + id + "}").getBytes(StandardCharsets.UTF_8));
+        };
+    }
+
+    @Test
+    public void retriesReplayTheFirstResponse() throws Exception {
+        MockHttpServletResponse first = new MockHttpServletResponse();
+        MockHttpServletResponse retry = new MockHttpServletResponse();
+
+        filter.doFilter(post("key-1"), first, create(201));
+        filter.doFilter(post("key-1"), retry, create(201));
+
+        assertThat(created).hasValue(1);
+        assertThat(first.getContentAsString()).isEqualTo("{\"id\":1}");
+        assertThat(retry.getStatus()).isEqualTo(201);
+        assertThat(retry.getContentAsString()).isEqualTo("{\"id\":1}");
+        assertThat(retry.getContentType()).isEqualTo("application/json");
+        assertThat(retry.getHeader(HttpHeaders.LOCATION)).isEqualTo("/api/bookings/1");
+        assertThat(retry.getHeader(IdempotencyFilter.IDEMPOTENT_REPLAYED_HEADER)).isEqualTo("true");
+        assertThat(first.getHeader(IdempotencyFilter.IDEMPOTENT_REPLAYED_HEADER)).isNull();
+    }
+
+    @Test
+    public void requestsWithoutKeyOrWithAnotherKeyRunAgain() throws Exception {
+        filter.doFilter(post(null), new MockHttpServletResponse(), create(201));
+        filter.doFilter(post(null), new MockHttpServletResponse(), create(201));
+        filter.doFilter(post("key-1"), new MockHttpServletResponse(), create(201));
+        filter.doFilter(post("key-2"), new MockHttpServletResponse(), create(201));
+
+        assertThat(created).hasValue(4);
+    }
+
+    @Test
+    public void serverErrorsAreNotReplayed() throws Exception {
+        MockHttpServletResponse retry = new MockHttpServletResponse();
+
+        filter.doFilter(post("key-1"), new MockHttpServletResponse(), create(500));
+        filter.doFilter(post("key-1"), retry, create(201));
+
+        assertThat(created).hasValue(2);
+        assertThat(retry.getStatus()).isEqualTo(201);
+    }
+
+    @Test
+    public void aConcurrentRetryWaitsForTheOriginal() throws Exception {
+        CountDownLatch running = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        FilterChain slowCreate = (request, response) -> {
+            running.countDown();
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            create(201).doFilter(request, response);
+        };
+        MockHttpServletResponse first = new MockHttpServletResponse();
+        MockHttpServletResponse retry = new MockHttpServletResponse();
+
+        CompletableFuture<Void> original = CompletableFuture.runAsync(() -> doFilter(post("key-1"), first, slowCreate));
+        assertThat(running.await(5, TimeUnit.SECONDS)).isTrue();
+        CompletableFuture<Void> retried = CompletableFuture.runAsync(() -> doFilter(post("key-1"), retry, create(201)));
+        Thread.sleep(200);
+        assertThat(retried).isNotDone();
+        release.countDown();
+        original.get(5, TimeUnit.SECONDS);
+        retried.get(5, TimeUnit.SECONDS);
+
+        assertThat(created).hasValue(1);
+        assertThat(retry.getContentAsString()).isEqualTo(first.getContentAsString());
+    }
+
+    @Test
+    public void aRetryOutlastedByTheOriginalIsAConflict() throws Exception {
+        properties.setWaitMillis(100);
+        CountDownLatch running = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        FilterChain slowCreate = (request, response) -> {
+            running.countDown();
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            create(201).doFilter(request, response);
+        };
+        MockHttpServletResponse retry = new MockHttpServletResponse();
+
+        CompletableFuture<Void> original = CompletableFuture.runAsync(() -> doFilter(post("key-1"), new MockHttpServletResponse(), slowCreate));
+        assertThat(running.await(5, TimeUnit.SECONDS)).isTrue();
+        filter.doFilter(post("key-1"), retry, create(201));
+        release.countDown();
+        original.get(5, TimeUnit.SECONDS);
+
+        assertThat(retry.getStatus()).isEqualTo(409);
+        assertThat(created).hasValue(1);
+    }
+
+    private void doFilter(MockHttpServletRequest request, MockHttpServletResponse response, FilterChain chain) {
+        try {
+            filter.doFilter(request, response, chain);
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
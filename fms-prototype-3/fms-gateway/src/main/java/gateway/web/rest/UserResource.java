@@ -164,7 +164,7 @@ public class UserResource {
             ResponseEntity.class
         );
 
-        if(!resultCode.getStatusCode().equals(HttpStatus.valueOf(200))) {
+        if(resultCode != null && !resultCode.getStatusCode().equals(HttpStatus.valueOf(200))) {
             log.error("Could not update the provided passenger. Please try again.");
         }
 
@@ -199,8 +199,8 @@ public class UserResource {
      * {@code GET /users/:login} : get the "login" user.
      *
      * Since the user login is predefined by JHipster use it to create a passenger with same login information (and same User object
-     * information) upon this login. I.e. If the login is requested for user with username 'user' and the same user does not already
-     * exist in passenger microservice database, register him. Otherwise upon login check if the equivalent object exists in the
+     * information) upon this login. I.e. If the login is requested for user with username 'user', register its passenger, which the
+     * passenger microservice creates if it does not already exist. Otherwise upon login check if the equivalent object exists in the
      * passenger microservice. It cannot happen that it doesn't, in that case the attempted login must be registered first.
      *
      * @param login the login of the user to find.
@@ -218,29 +218,30 @@ public class UserResource {
         // if user with provided login info found check for user login case and passenger database
         if(requestedUser.getStatusCode().equals(HttpStatus.valueOf(200))) {
 
-            // try to retrieve same object from the passenger database
-            ResponseEntity result = restTemplate.getForObject(
-                passengerMicroserviceBaseURL+"/api//passengers/"+login,
-                ResponseEntity.class
-            );
-
-            // if the user is logged in for the first time with username 'user' register a passenger at the passenger microservice
-            if(login.equals("user") && result == null) {
-
+            // if the user is logged in with username 'user' register its passenger at the passenger microservice,
+            // which creates it the first time and updates it afterwards, in one request
+            if(login.equals("user")) {
                 ResponseEntity resultCode = restTemplate.postForObject(
-                    passengerMicroserviceBaseURL+"/api/passengers/",
-                    userService.getUserWithAuthoritiesByLogin(login).map(UserDTO::new),
+                    passengerMicroserviceBaseURL+"/api/registerpassenger/",
+                    new PassengerDTO(requestedUser.getBody()),
                     ResponseEntity.class
                 );
 
                 if(resultCode != null && !resultCode.getStatusCode().equals(HttpStatus.valueOf(200))) {
                     log.error("Could not create a passenger with 'user' username. Please try again.");
                 }
-            }
+            } else {
 
-            // else check for errors in received response
-            if(result != null && !result.getStatusCode().equals(HttpStatus.valueOf(200))) {
-                log.error("Passenger not found in the database. Passenger must be registered first.");
+                // otherwise retrieve the same object from the passenger database, by username
+                ResponseEntity result = restTemplate.getForObject(
+                    passengerMicroserviceBaseURL+"/api/passengers/by-username/"+login,
+                    ResponseEntity.class
+                );
+
+                // check for errors in received response
+                if(result != null && !result.getStatusCode().equals(HttpStatus.valueOf(200))) {
+                    log.error("Passenger not found in the database. Passenger must be registered first.");
+                }
             }
         }
 
@@ -2,7 +2,7 @@ import { Component, OnInit } from '@angular/core';
 import { HttpResponse } from '@angular/common/http';
 // eslint-disable-next-line @typescript-eslint/no-unused-vars
 import { FormBuilder, Validators } from '@angular/forms';
-import { ActivatedRoute } from '@angular/router';
+import { ActivatedRoute, Router } from '@angular/router';
 import { Observable } from 'rxjs';
 
 import { IBooking, Booking } from 'app/shared/model/bookings/booking.model';
@@ -17,12 +17,18 @@ export class BookingUpdateComponent implements OnInit {
 
   editForm = this.fb.group({
     id: [],
-    bookingNumber: [null, [Validators.required]],
+    bookingNumber: [],
     flightNumber: [null, [Validators.required]],
+    flightId: [],
     passengerId: [null, [Validators.required]],
   });
 
-  constructor(protected bookingService: BookingService, protected activatedRoute: ActivatedRoute, private fb: FormBuilder) {}
+  constructor(
+    protected bookingService: BookingService,
+    protected activatedRoute: ActivatedRoute,
+    private fb: FormBuilder,
+    private router: Router
+  ) {}
 
   ngOnInit(): void {
     this.activatedRoute.data.subscribe(({ booking }) => {
@@ -33,8 +39,10 @@ export class BookingUpdateComponent implements OnInit {
   updateForm(booking: IBooking): void {
     this.editForm.patchValue({
       id: booking.id,
-      bookingNumber:  Math.floor(Math.random() * (9999 - 1000)) + 1000,
+      bookingNumber: booking.bookingNumber,
       flightNumber: this.activatedRoute.snapshot.paramMap.get('flightNumber'),
+      // the dated flight booked, the flights of a schedule sharing their number
+      flightId: this.getFlightId() || booking.flightId,
       passengerId: booking.passengerId,
     });
   }
@@ -59,19 +67,24 @@ export class BookingUpdateComponent implements OnInit {
       id: this.editForm.get(['id'])!.value,
       bookingNumber: this.editForm.get(['bookingNumber'])!.value,
       flightNumber: this.editForm.get(['flightNumber'])!.value,
+      flightId: this.editForm.get(['flightId'])!.value,
       passengerId: this.editForm.get(['passengerId'])!.value,
     };
   }
 
   protected subscribeToSaveResponse(result: Observable<HttpResponse<IBooking>>): void {
     result.subscribe(
-      () => this.onSaveSuccess(),
+      res => this.onSaveSuccess(res.body),
       () => this.onSaveError()
     );
   }
 
-  public onSaveSuccess(): void {
+  // the booking number is generated by the booking service, so luggage is added once it is known
+  public onSaveSuccess(booking?: IBooking | null): void {
     this.isSaving = false;
+    if (booking && booking.bookingNumber) {
+      this.router.navigate(['/luggage/new/flight', this.getFlightNumber(), 'booking', booking.bookingNumber, 'price', this.getFlightPrice()]);
+    }
   }
 
   protected onSaveError(): void {
@@ -86,8 +99,9 @@ export class BookingUpdateComponent implements OnInit {
     return "null";
   }
 
-  public getBookingNumber(): number {
-    return this.editForm.get(['bookingNumber'])!.value;
+  public getFlightId(): number | undefined {
+    const result = this.activatedRoute.snapshot.paramMap.get('flightId');
+    return result !== null ? Number(result) : undefined;
   }
 
   public getFlightNumber(): string {
@@ -1,9 +1,11 @@
 import { Component, OnInit, OnDestroy } from '@angular/core';
-import { HttpResponse } from '@angular/common/http';
+import { HttpHeaders, HttpResponse } from '@angular/common/http';
+import { ActivatedRoute, Router } from '@angular/router';
 import { Subscription } from 'rxjs';
 import { JhiEventManager } from 'ng-jhipster';
 import { NgbModal } from '@ng-bootstrap/ng-bootstrap';
 
+import { ITEMS_PER_PAGE } from 'app/shared/constants/pagination.constants';
 import { IBooking } from 'app/shared/model/bookings/booking.model';
 import { BookingService } from './booking.service';
 import { BookingDeleteDialogComponent } from './booking-delete-dialog.component';
@@ -15,15 +17,44 @@ import { BookingDeleteDialogComponent } from './booking-delete-dialog.component'
 export class BookingComponent implements OnInit, OnDestroy {
   bookings?: IBooking[];
   eventSubscriber?: Subscription;
+  totalItems = 0;
+  itemsPerPage = ITEMS_PER_PAGE;
+  page!: number;
+  predicate!: string;
+  ascending!: boolean;
+  ngbPaginationPage = 1;
 
-  constructor(protected bookingService: BookingService, protected eventManager: JhiEventManager, protected modalService: NgbModal) {}
+  constructor(
+    protected bookingService: BookingService,
+    protected activatedRoute: ActivatedRoute,
+    protected router: Router,
+    protected eventManager: JhiEventManager,
+    protected modalService: NgbModal
+  ) {}
 
-  loadAll(): void {
-    this.bookingService.query().subscribe((res: HttpResponse<IBooking[]>) => (this.bookings = res.body || []));
+  loadPage(page?: number): void {
+    const pageToLoad: number = page || this.page;
+
+    this.bookingService
+      .query({
+        page: pageToLoad - 1,
+        size: this.itemsPerPage,
+        sort: this.sort(),
+      })
+      .subscribe(
+        (res: HttpResponse<IBooking[]>) => this.onSuccess(res.body, res.headers, pageToLoad),
+        () => this.onError()
+      );
   }
 
   ngOnInit(): void {
-    this.loadAll();
+    this.activatedRoute.data.subscribe(data => {
+      this.page = data.pagingParams.page;
+      this.ascending = data.pagingParams.ascending;
+      this.predicate = data.pagingParams.predicate;
+      this.ngbPaginationPage = data.pagingParams.page;
+      this.loadPage();
+    });
     this.registerChangeInBookings();
   }
 
@@ -39,11 +70,37 @@ export class BookingComponent implements OnInit, OnDestroy {
   }
 
   registerChangeInBookings(): void {
-    this.eventSubscriber = this.eventManager.subscribe('bookingListModification', () => this.loadAll());
+    this.eventSubscriber = this.eventManager.subscribe('bookingListModification', () => this.loadPage());
   }
 
   delete(booking: IBooking): void {
     const modalRef = this.modalService.open(BookingDeleteDialogComponent, { size: 'lg', backdrop: 'static' });
     modalRef.componentInstance.booking = booking;
   }
+
+  sort(): string[] {
+    const result = [this.predicate + ',' + (this.ascending ? 'asc' : 'desc')];
+    if (this.predicate !== 'id') {
+      result.push('id');
+    }
+    return result;
+  }
+
+  protected onSuccess(data: IBooking[] | null, headers: HttpHeaders, page: number): void {
+    this.totalItems = Number(headers.get('X-Total-Count'));
+    this.page = page;
+    this.router.navigate(['/booking'], {
+      queryParams: {
+        page: this.page,
+        size: this.itemsPerPage,
+        sort: this.predicate + ',' + (this.ascending ? 'asc' : 'desc'),
+      },
+    });
+    this.bookings = data || [];
+    this.ngbPaginationPage = this.page;
+  }
+
+  protected onError(): void {
+    this.ngbPaginationPage = this.page;
+  }
 }
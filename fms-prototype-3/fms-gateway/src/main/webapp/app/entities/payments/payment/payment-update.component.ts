@@ -50,10 +50,15 @@ export class PaymentUpdateComponent implements OnInit {
     this.editForm.patchValue({
       id: payment.id,
       passengerId: payment.passengerId,
-      toPay: this.activatedRoute.snapshot.paramMap.get('fprice'),
-      bookingNumber: this.activatedRoute.snapshot.paramMap.get('bookingNumber'),
+      toPay: payment.id ? payment.toPay : this.activatedRoute.snapshot.paramMap.get('fprice'),
+      bookingNumber: payment.id ? payment.bookingNumber : this.activatedRoute.snapshot.paramMap.get('bookingNumber'),
       creditCard: payment.creditCard,
     });
+    // a payment is submitted for authorization once created: its amount and credit card are kept
+    if (payment.id) {
+      this.editForm.get('toPay')!.disable();
+      this.editForm.get('creditCard')!.disable();
+    }
   }
 
   previousState(): void {
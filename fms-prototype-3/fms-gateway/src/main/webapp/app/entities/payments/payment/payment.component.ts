@@ -1,9 +1,11 @@
 import { Component, OnInit, OnDestroy } from '@angular/core';
-import { HttpResponse } from '@angular/common/http';
+import { HttpHeaders, HttpResponse } from '@angular/common/http';
+import { ActivatedRoute, Router } from '@angular/router';
 import { Subscription } from 'rxjs';
 import { JhiEventManager } from 'ng-jhipster';
 import { NgbModal } from '@ng-bootstrap/ng-bootstrap';
 
+import { ITEMS_PER_PAGE } from 'app/shared/constants/pagination.constants';
 import { IPayment } from 'app/shared/model/payments/payment.model';
 import { PaymentService } from './payment.service';
 import { PaymentDeleteDialogComponent } from './payment-delete-dialog.component';
@@ -15,15 +17,44 @@ import { PaymentDeleteDialogComponent } from './payment-delete-dialog.component'
 export class PaymentComponent implements OnInit, OnDestroy {
   payments?: IPayment[];
   eventSubscriber?: Subscription;
+  totalItems = 0;
+  itemsPerPage = ITEMS_PER_PAGE;
+  page!: number;
+  predicate!: string;
+  ascending!: boolean;
+  ngbPaginationPage = 1;
 
-  constructor(protected paymentService: PaymentService, protected eventManager: JhiEventManager, protected modalService: NgbModal) {}
+  constructor(
+    protected paymentService: PaymentService,
+    protected activatedRoute: ActivatedRoute,
+    protected router: Router,
+    protected eventManager: JhiEventManager,
+    protected modalService: NgbModal
+  ) {}
 
-  loadAll(): void {
-    this.paymentService.query().subscribe((res: HttpResponse<IPayment[]>) => (this.payments = res.body || []));
+  loadPage(page?: number): void {
+    const pageToLoad: number = page || this.page;
+
+    this.paymentService
+      .query({
+        page: pageToLoad - 1,
+        size: this.itemsPerPage,
+        sort: this.sort(),
+      })
+      .subscribe(
+        (res: HttpResponse<IPayment[]>) => this.onSuccess(res.body, res.headers, pageToLoad),
+        () => this.onError()
+      );
   }
 
   ngOnInit(): void {
-    this.loadAll();
+    this.activatedRoute.data.subscribe(data => {
+      this.page = data.pagingParams.page;
+      this.ascending = data.pagingParams.ascending;
+      this.predicate = data.pagingParams.predicate;
+      this.ngbPaginationPage = data.pagingParams.page;
+      this.loadPage();
+    });
     this.registerChangeInPayments();
   }
 
@@ -39,11 +70,37 @@ export class PaymentComponent implements OnInit, OnDestroy {
   }
 
   registerChangeInPayments(): void {
-    this.eventSubscriber = this.eventManager.subscribe('paymentListModification', () => this.loadAll());
+    this.eventSubscriber = this.eventManager.subscribe('paymentListModification', () => this.loadPage());
   }
 
   delete(payment: IPayment): void {
     const modalRef = this.modalService.open(PaymentDeleteDialogComponent, { size: 'lg', backdrop: 'static' });
     modalRef.componentInstance.payment = payment;
   }
+
+  sort(): string[] {
+    const result = [this.predicate + ',' + (this.ascending ? 'asc' : 'desc')];
+    if (this.predicate !== 'id') {
+      result.push('id');
+    }
+    return result;
+  }
+
+  protected onSuccess(data: IPayment[] | null, headers: HttpHeaders, page: number): void {
+    this.totalItems = Number(headers.get('X-Total-Count'));
+    this.page = page;
+    this.router.navigate(['/payment'], {
+      queryParams: {
+        page: this.page,
+        size: this.itemsPerPage,
+        sort: this.predicate + ',' + (this.ascending ? 'asc' : 'desc'),
+      },
+    });
+    this.payments = data || [];
+    this.ngbPaginationPage = this.page;
+  }
+
+  protected onError(): void {
+    this.ngbPaginationPage = this.page;
+  }
 }
@@ -3,6 +3,7 @@ import { HttpResponse } from '@angular/common/http';
 import { Resolve, ActivatedRouteSnapshot, Routes, Router } from '@angular/router';
 import { Observable, of, EMPTY } from 'rxjs';
 import { flatMap } from 'rxjs/operators';
+import { JhiResolvePagingParams } from 'ng-jhipster';
 
 import { Authority } from 'app/shared/constants/authority.constants';
 import { UserRouteAccessService } from 'app/core/auth/user-route-access-service';
@@ -38,8 +39,12 @@ export const paymentRoute: Routes = [
   {
     path: '',
     component: PaymentComponent,
+    resolve: {
+      pagingParams: JhiResolvePagingParams,
+    },
     data: {
       authorities: [Authority.USER],
+      defaultSort: 'id,asc',
       pageTitle: 'Payments',
     },
     canActivate: [UserRouteAccessService],
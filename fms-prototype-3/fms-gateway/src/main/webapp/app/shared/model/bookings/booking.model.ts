@@ -3,9 +3,16 @@ export interface IBooking {
   id?: number;
   bookingNumber?: number;
   flightNumber?: string;
+  flightId?: number;
   passengerId?: string;
 }
 
 export class Booking implements IBooking {
-  constructor(public id?: number, public bookingNumber?: number, public flightNumber?: string, public passengerId?: string) {}
+  constructor(
+    public id?: number,
+    public bookingNumber?: number,
+    public flightNumber?: string,
+    public passengerId?: string,
+    public flightId?: number
+  ) {}
 }
@@ -0,0 +1,81 @@
+import _root_.io.gatling.core.scenario.Simulation
+import ch.qos.logback.classic.{Level, LoggerContext}
+import io.gatling.core.Predef._
+import io.gatling.http.Predef._
+import org.slf4j.LoggerFactory
+
+import scala.concurrent.duration._
+
+/**
+ * Performance test for the bookings, payments and luggage a passenger lists.
+ *
+ * Those are read page by page through the (passenger_id, id) indexes, so their latency must not
+ * depend on the size of the tables. Run it against databases seeded with 1k rows, then with 10M
+ * rows, and compare the percentiles, e.g. for MySQL:
+ *
+ *   insert into booking (booking_number, flight_number, passenger_id)
+ *   select n, concat('LH', n % 1000), concat('passenger-', n % 100000) from numbers where n < 10000000;
+ *
+ * where numbers holds consecutive integers, with the user logging in (-Dusername, "user" by default) owning a few of the rows. The run fails
+ * if the 95th percentile exceeds -Dp95 milliseconds (200 by default).
+ */
+class PassengerListingsGatlingTest extends Simulation {
+
+    val context: LoggerContext = LoggerFactory.getILoggerFactory.asInstanceOf[LoggerContext]
+    // Log all HTTP requests
+    //context.getLogger("io.gatling.http").setLevel(Level.valueOf("TRACE"))
+    // Log failed HTTP requests
+    //context.getLogger("io.gatling.http").setLevel(Level.valueOf("DEBUG"))
+
+    val baseURL = Option(System.getProperty("baseURL")) getOrElse """http://localhost:8080"""
+    val username = Option(System.getProperty("username")) getOrElse "user"
+    val password = Option(System.getProperty("password")) getOrElse "user"
+
+    val httpConf = http
+        .baseUrl(baseURL)
+        .inferHtmlResources()
+        .acceptHeader("*/*")
+        .acceptEncodingHeader("gzip, deflate")
+        .connectionHeader("keep-alive")
+        .silentResources // Silence all resources like css or css so they don't clutter the results
+
+    val headers_http_authentication = Map(
+        "Content-Type" -> """application/json""",
+        "Accept" -> """application/json"""
+    )
+
+    val headers_http_authenticated = Map(
+        "Accept" -> """application/json""",
+        "Authorization" -> "${access_token}"
+    )
+
+    val scn = scenario("List the entities of a passenger")
+        .exec(http("Authentication")
+        .post("/api/authenticate")
+        .headers(headers_http_authentication)
+        .body(StringBody(s"""{"username":"$username", "password":"$password"}""")).asJson
+        .check(header("Authorization").saveAs("access_token"))).exitHereIfFailed
+        .pause(1)
+        .repeat(20) {
+            exec(http("Get the bookings of the passenger")
+            .get("/services/bookings/api/bookings?page=0&size=20&sort=id,desc")
+            .headers(headers_http_authenticated)
+            .check(status.is(200)))
+            .exec(http("Get the payments of the passenger")
+            .get("/services/payments/api/payments?page=0&size=20&sort=id,desc")
+            .headers(headers_http_authenticated)
+            .check(status.is(200)))
+            .exec(http("Get the luggage of the passenger")
+            .get("/services/luggage/api/luggages?page=0&size=20&sort=id,desc")
+            .headers(headers_http_authenticated)
+            .check(status.is(200)))
+            .pause(100 milliseconds, 500 milliseconds)
+        }
+
+    val users = scenario("Users").exec(scn)
+
+    setUp(
+        users.inject(rampUsers(Integer.getInteger("users", 100)) during (Integer.getInteger("ramp", 1) minutes))
+    ).protocols(httpConf)
+        .assertions(global.responseTime.percentile3.lt(Integer.getInteger("p95", 200)))
+}
@@ -45,5 +45,48 @@ describe('Component Tests', () => {
       expect(service.query).toHaveBeenCalled();
       expect(comp.bookings && comp.bookings[0]).toEqual(jasmine.objectContaining({ id: 123 }));
     });
+
+    it('should load a page', () => {
+      // GIVEN
+      const headers = new HttpHeaders().append('link', 'link;link');
+      spyOn(service, 'query').and.returnValue(
+        of(
+          new HttpResponse({
+            body: [new Booking(123)],
+            headers,
+          })
+        )
+      );
+
+      // WHEN
+      comp.loadPage(1);
+
+      // THEN
+      expect(service.query).toHaveBeenCalled();
+      expect(comp.bookings && comp.bookings[0]).toEqual(jasmine.objectContaining({ id: 123 }));
+    });
+
+    it('should calculate the sort attribute for an id', () => {
+      // WHEN
+      comp.ngOnInit();
+      const result = comp.sort();
+
+      // THEN
+      expect(result).toEqual(['id,desc']);
+    });
+
+    it('should calculate the sort attribute for a non-id attribute', () => {
+      // INIT
+      comp.ngOnInit();
+
+      // GIVEN
+      comp.predicate = 'name';
+
+      // WHEN
+      const result = comp.sort();
+
+      // THEN
+      expect(result).toEqual(['name,desc', 'id']);
+    });
   });
 });
@@ -0,0 +1,24 @@
+package luggage.config;
+
+import fms.common.config.IdempotencyProperties;
+import fms.common.config.KafkaProperties;
+import fms.common.config.OutboxProperties;
+import fms.common.service.KafkaEventPublisher;
+import fms.common.service.KafkaSseBroadcaster;
+import fms.common.service.OutboxRelay;
+import fms.common.service.OutboxService;
+import fms.common.web.filter.IdempotencyFilter;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+
+/**
+ * Registers the components of fms-common this service runs, and binds their settings:
+ * the Kafka event publisher, the SSE broadcaster, the outbox and its relay and the idempotency filter.
+ * The outbox events are mapped and stored through the {@link DatabaseConfiguration}.
+ */
+@Configuration
+@EnableConfigurationProperties({KafkaProperties.class, OutboxProperties.class, IdempotencyProperties.class})
+@Import({KafkaEventPublisher.class, KafkaSseBroadcaster.class, OutboxService.class, OutboxRelay.class, IdempotencyFilter.class})
+public class CommonConfiguration {
+}
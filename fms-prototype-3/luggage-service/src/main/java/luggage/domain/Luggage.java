@@ -39,7 +39,7 @@ public class Luggage implements Serializable {
 
     @NotNull
     @Column(name = "booking_number", nullable = false)
-    private Integer bookingNumber;
+    private Long bookingNumber;
 
     @NotNull
     @Column(name = "passenger_id", nullable = false)
@@ -100,16 +100,16 @@ public class Luggage implements Serializable {
         this.flightNumber = flightNumber;
     }
 
-    public Integer getBookingNumber() {
+    public Long getBookingNumber() {
         return bookingNumber;
     }
 
-    public Luggage bookingNumber(Integer bookingNumber) {
+    public Luggage bookingNumber(Long bookingNumber) {
         this.bookingNumber = bookingNumber;
         return this;
     }
 
-    public void setBookingNumber(Integer bookingNumber) {
+    public void setBookingNumber(Long bookingNumber) {
         this.bookingNumber = bookingNumber;
     }
 
@@ -2,13 +2,31 @@ package luggage.repository;
 
 import luggage.domain.Luggage;
 
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.*;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
 /**
  * Spring Data  repository for the Luggage entity.
  */
 @SuppressWarnings("unused")
 @Repository
 public interface LuggageRepository extends JpaRepository<Luggage, Long> {
+
+    Page<Luggage> findAllByPassengerId(String passengerId, Pageable pageable);
+
+    Optional<Luggage> findOneByIdAndPassengerId(Long id, String passengerId);
+
+    @Modifying
+    @Query("delete from Luggage luggage where luggage.id = :id and luggage.passengerId = :passengerId")
+    int deleteByIdAndPassengerId(@Param("id") Long id, @Param("passengerId") String passengerId);
+
+    @Query("select distinct luggage.bookingNumber from Luggage luggage where luggage.bookingNumber in :bookingNumbers")
+    List<Long> findBookingNumbersIn(@Param("bookingNumbers") Collection<Long> bookingNumbers);
 }
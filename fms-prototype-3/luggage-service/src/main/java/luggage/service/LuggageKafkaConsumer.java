@@ -0,0 +1,207 @@
+package luggage.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import fms.common.config.KafkaProperties;
+import luggage.domain.Luggage;
+import luggage.domain.enumeration.ELuggageType;
+import luggage.repository.LuggageRepository;
+import luggage.service.dto.LuggageRequestDTO;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.ConsumerRecords;
+import org.apache.kafka.clients.consumer.KafkaConsumer;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.errors.WakeupException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Adds the luggage requested on {@code luggage_requested}, for the checkouts of the booking service.
+ * <p>
+ * The requests of a poll are handled together: the booking numbers that already have luggage are looked
+ * up in one query, and the luggage saved in one transaction with its events, on {@code luggage_set}, or
+ * its failures, on {@code luggage_failed}. Offsets are committed once a poll is handled, so a request is
+ * handled at least once; a booking that has luggage gets no more.
+ */
+@Service
+public class LuggageKafkaConsumer {
+
+    private static final Logger logger = LoggerFactory.getLogger(LuggageKafkaConsumer.class);
+    public static final String TOPIC_LUGGAGE_REQUESTED = "luggage_requested";
+
+    private static final String RFID_TAG_CHARACTERS = "ABCDEFGHIJKLMNOPQRSTUVWXYZ1234567890";
+    private static final int RFID_TAG_LENGTH = 12;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final AtomicBoolean closed = new AtomicBoolean(false);
+    private final KafkaProperties kafkaProperties;
+    private final LuggageRepository luggageRepository;
+    private final LuggageKafkaProducer luggageKafkaProducer;
+    private final TransactionTemplate transactionTemplate;
+
+    private KafkaConsumer<String, String> consumer;
+    private ExecutorService executorService = Executors.newSingleThreadExecutor();
+
+    @Autowired
+    public LuggageKafkaConsumer(KafkaProperties kafkaProperties, LuggageRepository luggageRepository,
+                                LuggageKafkaProducer luggageKafkaProducer, PlatformTransactionManager transactionManager) {
+        this(kafkaProperties, luggageRepository, luggageKafkaProducer, new TransactionTemplate(transactionManager));
+    }
+
+    LuggageKafkaConsumer(KafkaProperties kafkaProperties, LuggageRepository luggageRepository,
+                         LuggageKafkaProducer luggageKafkaProducer, TransactionTemplate transactionTemplate) {
+        this.kafkaProperties = kafkaProperties;
+        this.luggageRepository = luggageRepository;
+        this.luggageKafkaProducer = luggageKafkaProducer;
+        this.transactionTemplate = transactionTemplate;
+    }
+
+    @PostConstruct
+    public void start() {
+        Map<String, Object> consumerProps = kafkaProperties.getConsumerProps();
+        // offsets are committed once their poll is handled
+        consumerProps.put("enable.auto.commit", "false");
+        this.consumer = new KafkaConsumer<>(consumerProps);
+        consumer.subscribe(Collections.singletonList(TOPIC_LUGGAGE_REQUESTED));
+        logger.debug("Luggage kafka consumer started.");
+
+        executorService.execute(() -> {
+            try {
+                while (!closed.get()) {
+                    ConsumerRecords<String, String> records = consumer.poll(Duration.ofSeconds(3));
+                    if (records.isEmpty()) {
+                        continue;
+                    }
+                    try {
+                        add(read(records));
+                        consumer.commitSync();
+                    } catch (WakeupException e) {
+                        throw e;
+                    } catch (RuntimeException e) {
+                        logger.error("Could not handle luggage requests, retrying: {}", e.getMessage(), e);
+                        for (TopicPartition partition : records.partitions()) {
+                            consumer.seek(partition, records.records(partition).get(0).offset());
+                        }
+                    }
+                }
+            } catch (WakeupException e) {
+                // shutting down
+            } catch (Exception e) {
+                logger.error(e.getMessage(), e);
+            } finally {
+                logger.debug("Kafka consumer close");
+                consumer.close();
+            }
+        });
+    }
+
+    private List<LuggageRequestDTO> read(ConsumerRecords<String, String> records) {
+        List<LuggageRequestDTO> requests = new ArrayList<>(records.count());
+        for (ConsumerRecord<String, String> record : records) {
+            logger.debug("Consumed message in {} : {}", TOPIC_LUGGAGE_REQUESTED, record.value());
+            try {
+                requests.add(objectMapper.readValue(record.value(), LuggageRequestDTO.class));
+            } catch (IOException e) {
+                logger.warn("Skipped an unreadable event of {}: {}", TOPIC_LUGGAGE_REQUESTED, e.getMessage());
+            }
+        }
+        return requests;
+    }
+
+    /**
+     * Adds luggage to bookings, in one transaction, unless they already have some.
+     *
+     * @param requests the luggage requests consumed.
+     * @return the luggage saved.
+     */
+    public List<Luggage> add(List<LuggageRequestDTO> requests) {
+        if (requests.isEmpty()) {
+            return new ArrayList<>();
+        }
+        return transactionTemplate.execute(status -> {
+            Set<Long> bookingNumbers = new LinkedHashSet<>();
+            for (LuggageRequestDTO request : requests) {
+                bookingNumbers.add(parse(request.getBookingNumber()));
+            }
+            bookingNumbers.remove(null);
+            Set<Long> added = bookingNumbers.isEmpty() ? new HashSet<>() : new HashSet<>(luggageRepository.findBookingNumbersIn(bookingNumbers));
+
+            List<Luggage> luggages = new ArrayList<>(requests.size());
+            for (LuggageRequestDTO request : requests) {
+                Long bookingNumber = parse(request.getBookingNumber());
+                if (bookingNumber == null || !added.add(bookingNumber)) {
+                    continue;
+                }
+                ELuggageType luggageType = luggageType(request.getLuggageType());
+                Long weightCategory = parse(request.getWeightCategory());
+                String failure = request.getFlightNumber() == null || request.getPassengerId() == null ? "Unknown flight or passenger"
+                    : luggageType == null ? "Unknown luggage type " + request.getLuggageType()
+                    : weightCategory == null || weightCategory < 0 || weightCategory > Integer.MAX_VALUE ? "Invalid weight category"
+                    : null;
+                if (failure != null) {
+                    luggageKafkaProducer.sendLuggageFailure(bookingNumber, failure);
+                    continue;
+                }
+                luggages.add(new Luggage().bookingNumber(bookingNumber).flightNumber(request.getFlightNumber())
+                    .passengerId(request.getPassengerId()).luggageType(luggageType).weightCategory(weightCategory.intValue())
+                    .luggageNumber(ThreadLocalRandom.current().nextInt(1000, 10000)).rfidTag(rfidTag()));
+            }
+            List<Luggage> saved = luggageRepository.saveAll(luggages);
+            saved.forEach(luggageKafkaProducer::sendLuggageEvent);
+            return saved;
+        });
+    }
+
+    private static ELuggageType luggageType(String value) {
+        try {
+            return value == null ? null : ELuggageType.valueOf(value);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private static Long parse(String value) {
+        try {
+            return value == null ? null : Long.valueOf(value);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private static String rfidTag() {
+        StringBuilder rfidTag = new StringBuilder(RFID_TAG_LENGTH);
+        for (int i = 0; i < RFID_TAG_LENGTH; i++) {
+            rfidTag.append(RFID_TAG_CHARACTERS.charAt(ThreadLocalRandom.current().nextInt(RFID_TAG_CHARACTERS.length())));
+        }
+        return rfidTag.toString();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        logger.debug("Shutdown Kafka consumer");
+        closed.set(true);
+        if (consumer != null) {
+            consumer.wakeup();
+        }
+        executorService.shutdown();
+    }
+}
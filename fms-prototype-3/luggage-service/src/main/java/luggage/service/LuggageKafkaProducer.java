@@ -2,54 +2,61 @@ package luggage.service;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
-import luggage.config.KafkaProperties;
+import fms.common.service.KafkaEventPublisher;
+import fms.common.service.OutboxService;
 import luggage.domain.Luggage;
+import luggage.service.dto.CheckoutFailureDTO;
 import luggage.service.dto.LuggageDTO;
-import org.apache.kafka.clients.producer.KafkaProducer;
-import org.apache.kafka.clients.producer.ProducerRecord;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
 
-import javax.annotation.PostConstruct;
-import javax.annotation.PreDestroy;
-
 @Service
 public class LuggageKafkaProducer {
 
     private static Logger logger = LoggerFactory.getLogger(LuggageKafkaProducer.class);
     private static final String TOPIC_LUGGAGE_SET = "luggage_set";
+    private static final String TOPIC_LUGGAGE_FAILED = "luggage_failed";
 
     private final ObjectMapper objectMapper = new ObjectMapper();
-    private final KafkaProperties kafkaProperties;
-    private KafkaProducer<String, String> producer;
-
-    public LuggageKafkaProducer(KafkaProperties kafkaProperties) {
-        this.kafkaProperties = kafkaProperties;
-    }
+    private final OutboxService outboxService;
 
-    @PostConstruct
-    public void initialize() {
-        this.producer = new KafkaProducer<>(kafkaProperties.getProducerProps());
-        Runtime.getRuntime().addShutdownHook(new Thread(this::shutdown));
-        logger.debug("Luggage kafka producer initialized.");
+    public LuggageKafkaProducer(OutboxService outboxService, KafkaEventPublisher kafkaEventPublisher) {
+        this.outboxService = outboxService;
+        kafkaEventPublisher.declareTopics(TOPIC_LUGGAGE_SET, TOPIC_LUGGAGE_FAILED);
     }
 
+    /**
+     * Publishes a luggage event, keyed by booking number so the events of a booking stay in order.
+     * The event is written to the outbox, and sent only if the current transaction commits.
+     *
+     * @param luggage the luggage.
+     */
     public void sendLuggageEvent(Luggage luggage) {
         try{
             LuggageDTO luggageDTO = new LuggageDTO(luggage);
             String message = objectMapper.writeValueAsString(luggageDTO);
-            ProducerRecord<String, String> event = new ProducerRecord<>(TOPIC_LUGGAGE_SET, message);
-            logger.debug("Produced an event for topic {} : {}", TOPIC_LUGGAGE_SET, event.value());
-            producer.send(event);
+            outboxService.append(TOPIC_LUGGAGE_SET, String.valueOf(luggage.getBookingNumber()), message);
         } catch (JsonProcessingException e) {
             logger.error(e.getMessage());
         }
     }
 
-    @PreDestroy
-    private void shutdown() {
-        logger.debug("Luggage kafka producer shutting down");
-        producer.close();
+    /**
+     * Publishes the failure of requested luggage, keyed and written to the outbox as the luggage events.
+     *
+     * @param bookingNumber the booking the luggage could not be added to.
+     * @param reason why.
+     */
+    public void sendLuggageFailure(Long bookingNumber, String reason) {
+        try{
+            CheckoutFailureDTO checkoutFailureDTO = new CheckoutFailureDTO();
+            checkoutFailureDTO.setBookingNumber(String.valueOf(bookingNumber));
+            checkoutFailureDTO.setReason(reason);
+            String message = objectMapper.writeValueAsString(checkoutFailureDTO);
+            outboxService.append(TOPIC_LUGGAGE_FAILED, String.valueOf(bookingNumber), message);
+        } catch (JsonProcessingException e) {
+            logger.error(e.getMessage());
+        }
     }
 }
@@ -0,0 +1,26 @@
+package luggage.service.dto;
+
+/**
+ * Luggage that could not be added, on {@code luggage_failed}.
+ */
+public class CheckoutFailureDTO {
+
+    private String bookingNumber;
+    private String reason;
+
+    public String getBookingNumber() {
+        return bookingNumber;
+    }
+
+    public void setBookingNumber(String bookingNumber) {
+        this.bookingNumber = bookingNumber;
+    }
+
+    public String getReason() {
+        return reason;
+    }
+
+    public void setReason(String reason) {
+        this.reason = reason;
+    }
+}
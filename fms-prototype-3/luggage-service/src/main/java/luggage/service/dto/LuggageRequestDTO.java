@@ -0,0 +1,53 @@
+package luggage.service.dto;
+
+/**
+ * Asks to add luggage to a booking, on {@code luggage_requested}.
+ */
+public class LuggageRequestDTO {
+
+    private String bookingNumber;
+    private String flightNumber;
+    private String passengerId;
+    private String luggageType;
+    private String weightCategory;
+
+    public String getBookingNumber() {
+        return bookingNumber;
+    }
+
+    public void setBookingNumber(String bookingNumber) {
+        this.bookingNumber = bookingNumber;
+    }
+
+    public String getFlightNumber() {
+        return flightNumber;
+    }
+
+    public void setFlightNumber(String flightNumber) {
+        this.flightNumber = flightNumber;
+    }
+
+    public String getPassengerId() {
+        return passengerId;
+    }
+
+    public void setPassengerId(String passengerId) {
+        this.passengerId = passengerId;
+    }
+
+    public String getLuggageType() {
+        return luggageType;
+    }
+
+    public void setLuggageType(String luggageType) {
+        this.luggageType = luggageType;
+    }
+
+    public String getWeightCategory() {
+        return weightCategory;
+    }
+
+    public void setWeightCategory(String weightCategory) {
+        this.weightCategory = weightCategory;
+    }
+}
@@ -0,0 +1,4 @@
+/**
+ * Servlet filters.
+ */
+package luggage.web.filter;
@@ -1,9 +1,7 @@
 package luggage.web.rest;
 
-import luggage.config.KafkaProperties;
-import org.apache.kafka.clients.consumer.ConsumerRecord;
-import org.apache.kafka.clients.consumer.ConsumerRecords;
-import org.apache.kafka.clients.consumer.KafkaConsumer;
+import fms.common.config.KafkaProperties;
+import fms.common.service.KafkaSseBroadcaster;
 import org.apache.kafka.clients.producer.KafkaProducer;
 import org.apache.kafka.clients.producer.ProducerRecord;
 import org.apache.kafka.clients.producer.RecordMetadata;
@@ -12,13 +10,9 @@ import org.slf4j.LoggerFactory;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
-import java.time.Duration;
 import java.time.Instant;
 import java.util.List;
-import java.util.Map;
 import java.util.concurrent.ExecutionException;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
 
 @RestController
 @RequestMapping("/api/luggage-kafka")
@@ -26,12 +20,11 @@ public class LuggageKafkaResource {
 
     private final Logger log = LoggerFactory.getLogger(LuggageKafkaResource.class);
 
-    private final KafkaProperties kafkaProperties;
+    private final KafkaSseBroadcaster kafkaSseBroadcaster;
     private KafkaProducer<String, String> producer;
-    private ExecutorService sseExecutorService = Executors.newCachedThreadPool();
 
-    public LuggageKafkaResource(KafkaProperties kafkaProperties) {
-        this.kafkaProperties = kafkaProperties;
+    public LuggageKafkaResource(KafkaProperties kafkaProperties, KafkaSseBroadcaster kafkaSseBroadcaster) {
+        this.kafkaSseBroadcaster = kafkaSseBroadcaster;
         this.producer = new KafkaProducer<>(kafkaProperties.getProducerProps());
     }
 
@@ -42,36 +35,17 @@ public class LuggageKafkaResource {
         return new PublishResult(metadata.topic(), metadata.partition(), metadata.offset(), Instant.ofEpochMilli(metadata.timestamp()));
     }
 
+    /**
+     * {@code GET  /consume} : follow the records of some topics from now on, shared with the other clients
+     * of the same topics, see {@link KafkaSseBroadcaster}.
+     *
+     * @param topics the topics to follow.
+     * @return the stream of the values of their records.
+     */
     @GetMapping("/consume")
-    public SseEmitter consume(@RequestParam("topic") List<String> topics, @RequestParam Map<String, String> consumerParams) {
+    public SseEmitter consume(@RequestParam("topic") List<String> topics) {
         log.debug("REST request to consume records from Kafka topics {}", topics);
-        Map<String, Object> consumerProps = kafkaProperties.getConsumerProps();
-        consumerProps.putAll(consumerParams);
-        consumerProps.remove("topic");
-
-        SseEmitter emitter = new SseEmitter(0L);
-        sseExecutorService.execute(() -> {
-            KafkaConsumer<String, String> consumer = new KafkaConsumer<>(consumerProps);
-            emitter.onCompletion(consumer::close);
-            consumer.subscribe(topics);
-            boolean exitLoop = false;
-            while(!exitLoop) {
-                try {
-                    ConsumerRecords<String, String> records = consumer.poll(Duration.ofSeconds(5));
-                    for (ConsumerRecord<String, String> record : records) {
-                        emitter.send(record.value());
-                    }
-                    emitter.send(SseEmitter.event().comment(""));
-                } catch (Exception ex) {
-                    log.trace("Complete with error {}", ex.getMessage(), ex);
-                    emitter.completeWithError(ex);
-                    exitLoop = true;
-                }
-            }
-            consumer.close();
-            emitter.complete();
-        });
-        return emitter;
+        return kafkaSseBroadcaster.subscribe(topics);
     }
 
     private static class PublishResult {
@@ -7,18 +7,22 @@ import luggage.service.LuggageKafkaProducer;
 import luggage.web.rest.errors.BadRequestAlertException;
 
 import io.github.jhipster.web.util.HeaderUtil;
+import io.github.jhipster.web.util.PaginationUtil;
 import io.github.jhipster.web.util.ResponseUtil;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
 import javax.validation.Valid;
 import java.net.URI;
 import java.net.URISyntaxException;
-import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
 
@@ -92,28 +96,21 @@ public class LuggageResource {
     }
 
     /**
-     * {@code GET  /luggages} : get all the luggages.
+     * {@code GET  /luggages} : get the luggages of the connected user.
      *
+     * @param pageable the pagination information.
      * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the list of luggages in body.
      */
     @GetMapping("/luggages")
-    public List<Luggage> getAllLuggages() {
-        log.debug("REST request to get all Luggages");
-
-        List<Luggage> resultingLuggage = new ArrayList<>();
-
-        // Return 404 if the entity is not owned by the connected user
-        Optional<String> userLogin = SecurityUtils.getCurrentUserLogin();
-
-        for (Luggage l : luggageRepository.findAll()) {
-            if (userLogin.isPresent() && userLogin.get().equals(l.getPassengerId())) {
-                resultingLuggage.add(l);
-            }
-        }
-        return resultingLuggage;
+    public ResponseEntity<List<Luggage>> getAllLuggages(Pageable pageable) {
+        log.debug("REST request to get a page of Luggages");
+        Page<Luggage> page = SecurityUtils.getCurrentUserLogin()
+            .map(login -> luggageRepository.findAllByPassengerId(login, pageable))
+            .orElseGet(() -> Page.empty(pageable));
+        HttpHeaders headers = PaginationUtil.generatePaginationHttpHeaders(ServletUriComponentsBuilder.fromCurrentRequest(), page);
+        return ResponseEntity.ok().headers(headers).body(page.getContent());
     }
 
-
     /**
      * {@code GET  /luggages/:id} : get the "id" luggage.
      *
@@ -123,17 +120,10 @@ public class LuggageResource {
     @GetMapping("/luggages/{id}")
     public ResponseEntity<Luggage> getLuggage(@PathVariable Long id) {
         log.debug("REST request to get Luggage : {}", id);
-        Optional<Luggage> luggage = luggageRepository.findById(id);
-
         // Return 404 if the entity is not owned by the connected user
-        Optional<String> userLogin = SecurityUtils.getCurrentUserLogin();
-        if(luggage.isPresent() &&
-            userLogin.isPresent() &&
-            userLogin.get().equals(luggage.get().getPassengerId())) {
-            return ResponseUtil.wrapOrNotFound(luggage);
-        } else {
-            return ResponseEntity.notFound().build();
-        }
+        Optional<Luggage> luggage = SecurityUtils.getCurrentUserLogin()
+            .flatMap(login -> luggageRepository.findOneByIdAndPassengerId(id, login));
+        return ResponseUtil.wrapOrNotFound(luggage);
     }
 
     /**
@@ -145,15 +135,11 @@ public class LuggageResource {
     @DeleteMapping("/luggages/{id}")
     public ResponseEntity<Void> deleteLuggage(@PathVariable Long id) {
         log.debug("REST request to delete Luggage : {}", id);
-        Optional<Luggage> luggage = luggageRepository.findById(id);
-
+        int deleted = SecurityUtils.getCurrentUserLogin()
+            .map(login -> luggageRepository.deleteByIdAndPassengerId(id, login))
+            .orElse(0);
         // Return 404 if the entity is not owned by the connected user
-        Optional<String> userLogin = SecurityUtils.getCurrentUserLogin();
-        if(luggage.isPresent() &&
-            userLogin.isPresent() &&
-            userLogin.get().equals(luggage.get().getPassengerId())) {
-            luggageRepository.deleteById(id);
-        } else {
+        if (deleted == 0) {
             return ResponseEntity.notFound().build();
         }
         return ResponseEntity.noContent().headers(HeaderUtil.createEntityDeletionAlert(applicationName, false, ENTITY_NAME, id.toString())).build();
@@ -0,0 +1,82 @@
+package luggage.service;
+
+import fms.common.config.KafkaProperties;
+import luggage.domain.Luggage;
+import luggage.domain.enumeration.ELuggageType;
+import luggage.repository.LuggageRepository;
+import luggage.service.dto.LuggageRequestDTO;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Test class for the {@link LuggageKafkaConsumer}.
+ */
+public class LuggageKafkaConsumerTest {
+
+    private LuggageRepository luggageRepository;
+    private LuggageKafkaProducer luggageKafkaProducer;
+    private LuggageKafkaConsumer consumer;
+
+    @BeforeEach
+    public void setUp() {
+        luggageRepository = mock(LuggageRepository.class);
+        luggageKafkaProducer = mock(LuggageKafkaProducer.class);
+        consumer = new LuggageKafkaConsumer(new KafkaProperties(), luggageRepository, luggageKafkaProducer,
+            new TransactionTemplate(mock(PlatformTransactionManager.class)));
+        when(luggageRepository.saveAll(any())).thenAnswer(invocation -> invocation.getArgument(0));
+    }
+
+    private static LuggageRequestDTO request(String bookingNumber, String luggageType, String weightCategory) {
+        LuggageRequestDTO request = new LuggageRequestDTO();
+        request.setBookingNumber(bookingNumber);
+        request.setFlightNumber("LH100");
+        request.setPassengerId("user");
+        request.setLuggageType(luggageType);
+        request.setWeightCategory(weightCategory);
+        return request;
+    }
+
+    @Test
+    public void requestsAreAddedOnce() {
+        when(luggageRepository.findBookingNumbersIn(any())).thenReturn(Collections.singletonList(2L));
+
+        List<Luggage> luggages = consumer.add(Arrays.asList(request("1", "CARGO_BAG_20KG", "2"),
+            request("1", "CARGO_BAG_20KG", "2"), request("2", "CARRY_ON", "1")));
+
+        assertThat(luggages).hasSize(1);
+        Luggage luggage = luggages.get(0);
+        assertThat(luggage.getBookingNumber()).isEqualTo(1L);
+        assertThat(luggage.getLuggageType()).isEqualTo(ELuggageType.CARGO_BAG_20KG);
+        assertThat(luggage.getWeightCategory()).isEqualTo(2);
+        assertThat(luggage.getLuggageNumber()).isBetween(1000, 9999);
+        assertThat(luggage.getRfidTag()).hasSize(12);
+        verify(luggageKafkaProducer).sendLuggageEvent(luggage);
+        verify(luggageKafkaProducer, never()).sendLuggageFailure(anyLong(), anyString());
+    }
+
+    @Test
+    public void invalidRequestsFail() {
+        when(luggageRepository.findBookingNumbersIn(any())).thenReturn(Collections.emptyList());
+
+        List<Luggage> luggages = consumer.add(Arrays.asList(request("3", "TRUNK", "2"), request("4", "CARRY_ON", "-1")));
+
+        assertThat(luggages).isEmpty();
+        verify(luggageKafkaProducer).sendLuggageFailure(3L, "Unknown luggage type TRUNK");
+        verify(luggageKafkaProducer).sendLuggageFailure(4L, "Invalid weight category");
+    }
+}
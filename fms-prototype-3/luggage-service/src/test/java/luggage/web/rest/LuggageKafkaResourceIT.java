@@ -1,11 +1,14 @@
 package luggage.web.rest;
 
-import luggage.config.KafkaProperties;
+import fms.common.config.KafkaProperties;
+import fms.common.service.KafkaSseBroadcaster;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.apache.kafka.clients.consumer.ConsumerRecord;
 import org.apache.kafka.clients.consumer.ConsumerRecords;
 import org.apache.kafka.clients.consumer.KafkaConsumer;
 import org.apache.kafka.clients.producer.KafkaProducer;
 import org.apache.kafka.clients.producer.ProducerRecord;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -31,6 +34,7 @@ class LuggageKafkaResourceIT {
     private static boolean started = false;
     private static KafkaContainer kafkaContainer;
 
+    private KafkaSseBroadcaster kafkaSseBroadcaster;
     private MockMvc restMockMvc;
 
     @BeforeAll
@@ -58,11 +62,17 @@ class LuggageKafkaResourceIT {
         consumerProps.put("client.id", "default-client");
         kafkaProperties.setConsumer(consumerProps);
 
-        LuggageKafkaResource kafkaResource = new LuggageKafkaResource(kafkaProperties);
+        kafkaSseBroadcaster = new KafkaSseBroadcaster(kafkaProperties, new SimpleMeterRegistry());
+        LuggageKafkaResource kafkaResource = new LuggageKafkaResource(kafkaProperties, kafkaSseBroadcaster);
 
         restMockMvc = MockMvcBuilders.standaloneSetup(kafkaResource).build();
     }
 
+    @AfterEach
+    void tearDown() {
+        kafkaSseBroadcaster.shutdown();
+    }
+
     @Test
     void producesMessages() throws Exception {
         restMockMvc.perform(post("/api/luggage-kafka/publish/topic-produce?message=value-produce"))
@@ -84,14 +94,14 @@ class LuggageKafkaResourceIT {
         Map<String, Object> producerProps = new HashMap<>(getProducerProps());
         KafkaProducer<String, String> producer = new KafkaProducer<>(producerProps);
 
-        producer.send(new ProducerRecord<>("topic-consume", "value-consume"));
-
         MvcResult mvcResult = restMockMvc.perform(get("/api/luggage-kafka/consume?topic=topic-consume"))
             .andExpect(status().isOk())
             .andExpect(request().asyncStarted())
             .andReturn();
 
+        // the stream follows the topic from the moment its consumer is assigned, so keep producing until then
         for (int i = 0; i < 100; i++) {
+            producer.send(new ProducerRecord<>("topic-consume", "value-consume"));
             Thread.sleep(100);
             String content = mvcResult.getResponse().getContentAsString();
             if (content.contains("data:value-consume")) {
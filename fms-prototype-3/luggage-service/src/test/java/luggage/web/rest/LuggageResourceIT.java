@@ -1,5 +1,8 @@
 package luggage.web.rest;
 
+import fms.common.domain.OutboxEvent;
+import fms.common.repository.OutboxEventRepository;
+import fms.common.web.filter.IdempotencyFilter;
 import luggage.LuggageApp;
 import luggage.domain.Luggage;
 import luggage.repository.LuggageRepository;
@@ -15,8 +18,10 @@ import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.transaction.annotation.Transactional;
 import javax.persistence.EntityManager;
 import java.util.List;
+import java.util.UUID;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.contains;
 import static org.hamcrest.Matchers.hasItem;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
@@ -39,10 +44,11 @@ public class LuggageResourceIT {
     private static final String DEFAULT_FLIGHT_NUMBER = "AAAAAAAAAA";
     private static final String UPDATED_FLIGHT_NUMBER = "BBBBBBBBBB";
 
-    private static final Integer DEFAULT_BOOKING_NUMBER = 1;
-    private static final Integer UPDATED_BOOKING_NUMBER = 2;
+    private static final Long DEFAULT_BOOKING_NUMBER = 1L;
+    private static final Long UPDATED_BOOKING_NUMBER = 2L;
 
-    private static final String DEFAULT_PASSENGER_ID = "AAAAAAAAAA";
+    // the user the tests run as, who owns the entity of each test
+    private static final String DEFAULT_PASSENGER_ID = "user";
     private static final String UPDATED_PASSENGER_ID = "BBBBBBBBBB";
 
     private static final Integer DEFAULT_WEIGHT_CATEGORY = 1;
@@ -54,6 +60,9 @@ public class LuggageResourceIT {
     @Autowired
     private LuggageRepository luggageRepository;
 
+    @Autowired
+    private OutboxEventRepository outboxEventRepository;
+
     @Autowired
     private EntityManager em;
 
@@ -106,6 +115,7 @@ public class LuggageResourceIT {
     @Transactional
     public void createLuggage() throws Exception {
         int databaseSizeBeforeCreate = luggageRepository.findAll().size();
+        int outboxSizeBeforeCreate = outboxEventRepository.findAll().size();
         // Create the Luggage
         restLuggageMockMvc.perform(post("/api/luggages")
             .contentType(MediaType.APPLICATION_JSON)
@@ -123,6 +133,40 @@ public class LuggageResourceIT {
         assertThat(testLuggage.getPassengerId()).isEqualTo(DEFAULT_PASSENGER_ID);
         assertThat(testLuggage.getWeightCategory()).isEqualTo(DEFAULT_WEIGHT_CATEGORY);
         assertThat(testLuggage.getRfidTag()).isEqualTo(DEFAULT_RFID_TAG);
+
+        // Validate the Luggage event in the outbox
+        List<OutboxEvent> outboxEventList = outboxEventRepository.findAll();
+        assertThat(outboxEventList).hasSize(outboxSizeBeforeCreate + 1);
+        OutboxEvent testOutboxEvent = outboxEventList.get(outboxEventList.size() - 1);
+        assertThat(testOutboxEvent.getTopic()).isEqualTo("luggage_set");
+        assertThat(testOutboxEvent.getEventKey()).isEqualTo(String.valueOf(DEFAULT_BOOKING_NUMBER));
+    }
+
+    @Test
+    @Transactional
+    public void retriedCreateLuggageIsNotDuplicated() throws Exception {
+        int databaseSizeBeforeCreate = luggageRepository.findAll().size();
+        int outboxSizeBeforeCreate = outboxEventRepository.findAll().size();
+        String idempotencyKey = UUID.randomUUID().toString();
+
+        // Create the Luggage, then retry
+        String created = restLuggageMockMvc.perform(post("/api/luggages")
+            .header(IdempotencyFilter.IDEMPOTENCY_KEY_HEADER, idempotencyKey)
+            .contentType(MediaType.APPLICATION_JSON)
+            .content(TestUtil.convertObjectToJsonBytes(luggage)))
+            .andExpect(status().isCreated())
+            .andReturn().getResponse().getContentAsString();
+        restLuggageMockMvc.perform(post("/api/luggages")
+            .header(IdempotencyFilter.IDEMPOTENCY_KEY_HEADER, idempotencyKey)
+            .contentType(MediaType.APPLICATION_JSON)
+            .content(TestUtil.convertObjectToJsonBytes(luggage)))
+            .andExpect(status().isCreated())
+            .andExpect(header().string(IdempotencyFilter.IDEMPOTENT_REPLAYED_HEADER, "true"))
+            .andExpect(content().string(created));
+
+        // Validate a single Luggage and event
+        assertThat(luggageRepository.findAll()).hasSize(databaseSizeBeforeCreate + 1);
+        assertThat(outboxEventRepository.findAll()).hasSize(outboxSizeBeforeCreate + 1);
     }
 
     @Test
@@ -273,7 +317,7 @@ public class LuggageResourceIT {
             .andExpect(jsonPath("$.[*].luggageType").value(hasItem(DEFAULT_LUGGAGE_TYPE.toString())))
             .andExpect(jsonPath("$.[*].luggageNumber").value(hasItem(DEFAULT_LUGGAGE_NUMBER)))
             .andExpect(jsonPath("$.[*].flightNumber").value(hasItem(DEFAULT_FLIGHT_NUMBER)))
-            .andExpect(jsonPath("$.[*].bookingNumber").value(hasItem(DEFAULT_BOOKING_NUMBER)))
+            .andExpect(jsonPath("$.[*].bookingNumber").value(hasItem(DEFAULT_BOOKING_NUMBER.intValue())))
             .andExpect(jsonPath("$.[*].passengerId").value(hasItem(DEFAULT_PASSENGER_ID)))
             .andExpect(jsonPath("$.[*].weightCategory").value(hasItem(DEFAULT_WEIGHT_CATEGORY)))
             .andExpect(jsonPath("$.[*].rfidTag").value(hasItem(DEFAULT_RFID_TAG)));
@@ -293,7 +337,7 @@ public class LuggageResourceIT {
             .andExpect(jsonPath("$.luggageType").value(DEFAULT_LUGGAGE_TYPE.toString()))
             .andExpect(jsonPath("$.luggageNumber").value(DEFAULT_LUGGAGE_NUMBER))
             .andExpect(jsonPath("$.flightNumber").value(DEFAULT_FLIGHT_NUMBER))
-            .andExpect(jsonPath("$.bookingNumber").value(DEFAULT_BOOKING_NUMBER))
+            .andExpect(jsonPath("$.bookingNumber").value(DEFAULT_BOOKING_NUMBER.intValue()))
             .andExpect(jsonPath("$.passengerId").value(DEFAULT_PASSENGER_ID))
             .andExpect(jsonPath("$.weightCategory").value(DEFAULT_WEIGHT_CATEGORY))
             .andExpect(jsonPath("$.rfidTag").value(DEFAULT_RFID_TAG));
@@ -378,4 +422,49 @@ public class LuggageResourceIT {
         List<Luggage> luggageList = luggageRepository.findAll();
         assertThat(luggageList).hasSize(databaseSizeBeforeDelete - 1);
     }
+
+    @Test
+    @Transactional
+    @WithMockUser(username = DEFAULT_PASSENGER_ID)
+    public void getAllLuggagesOfTheConnectedPassengerOnly() throws Exception {
+        // Initialize the database
+        luggageRepository.saveAndFlush(luggage);
+        luggageRepository.saveAndFlush(createEntity(em).passengerId(UPDATED_PASSENGER_ID));
+
+        // Get the first page of the connected passenger's luggages
+        restLuggageMockMvc.perform(get("/api/luggages?page=0&size=20&sort=id,desc"))
+            .andExpect(status().isOk())
+            .andExpect(header().string("X-Total-Count", "1"))
+            .andExpect(jsonPath("$.[*].id").value(contains(luggage.getId().intValue())));
+    }
+
+    @Test
+    @Transactional
+    @WithMockUser(username = UPDATED_PASSENGER_ID)
+    public void getLuggageOfAnotherPassenger() throws Exception {
+        // Initialize the database
+        luggageRepository.saveAndFlush(luggage);
+
+        // Get the luggage of another passenger
+        restLuggageMockMvc.perform(get("/api/luggages/{id}", luggage.getId()))
+            .andExpect(status().isNotFound());
+    }
+
+    @Test
+    @Transactional
+    @WithMockUser(username = UPDATED_PASSENGER_ID)
+    public void deleteLuggageOfAnotherPassenger() throws Exception {
+        // Initialize the database
+        luggageRepository.saveAndFlush(luggage);
+
+        int databaseSizeBeforeDelete = luggageRepository.findAll().size();
+
+        // Delete the luggage of another passenger
+        restLuggageMockMvc.perform(delete("/api/luggages/{id}", luggage.getId())
+            .accept(MediaType.APPLICATION_JSON))
+            .andExpect(status().isNotFound());
+
+        // Validate the database still contains it
+        assertThat(luggageRepository.findAll()).hasSize(databaseSizeBeforeDelete);
+    }
 }
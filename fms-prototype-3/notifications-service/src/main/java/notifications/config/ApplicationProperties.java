@@ -10,4 +10,65 @@ import org.springframework.boot.context.properties.ConfigurationProperties;
  */
 @ConfigurationProperties(prefix = "application", ignoreUnknownFields = false)
 public class ApplicationProperties {
+
+    private final FanOut fanOut = new FanOut();
+
+    public FanOut getFanOut() {
+        return fanOut;
+    }
+
+    public static class FanOut {
+
+        /**
+         * Whether the passengers of each flight are indexed in Hazelcast, shared by all instances, or per instance.
+         */
+        private boolean distributed = true;
+
+        /**
+         * Number of notifications of a flight disruption queued for publication at once.
+         */
+        private int batchSize = 100;
+
+        /**
+         * Longest time to wait, in milliseconds, for the publisher queue to have room for the next batch.
+         */
+        private long batchWaitMs = 5000;
+
+        /**
+         * Longest time, in milliseconds, the index of the passengers of each flight waits for booking events.
+         */
+        private long indexPollMillis = 1000;
+
+        public boolean isDistributed() {
+            return distributed;
+        }
+
+        public void setDistributed(boolean distributed) {
+            this.distributed = distributed;
+        }
+
+        public int getBatchSize() {
+            return batchSize;
+        }
+
+        public void setBatchSize(int batchSize) {
+            this.batchSize = batchSize;
+        }
+
+        public long getBatchWaitMs() {
+            return batchWaitMs;
+        }
+
+        public void setBatchWaitMs(long batchWaitMs) {
+            this.batchWaitMs = batchWaitMs;
+        }
+
+        public long getIndexPollMillis() {
+            return indexPollMillis;
+        }
+
+        public void setIndexPollMillis(long indexPollMillis) {
+            this.indexPollMillis = indexPollMillis;
+        }
+    }
 }
@@ -0,0 +1,18 @@
+package notifications.config;
+
+import fms.common.config.KafkaProperties;
+import fms.common.service.KafkaEventPublisher;
+import fms.common.service.KafkaSseBroadcaster;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+
+/**
+ * Registers the components of fms-common this service runs, and binds their settings:
+ * the Kafka event publisher and the SSE broadcaster.
+ */
+@Configuration
+@EnableConfigurationProperties({KafkaProperties.class})
+@Import({KafkaEventPublisher.class, KafkaSseBroadcaster.class})
+public class CommonConfiguration {
+}
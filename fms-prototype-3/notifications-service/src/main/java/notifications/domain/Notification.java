@@ -2,16 +2,44 @@ package notifications.domain;
 
 import notifications.domain.enumeration.ENotificationType;
 
+import java.util.Map;
+
+/**
+ * A notification, either described in full or as a template with its parameters, which the passenger
+ * service stores as they are and renders only when read.
+ */
 public class Notification {
 
     private ENotificationType notificationType;
     private String description;
+    private String template;
+    private Map<String, String> params;
+    private String passengerId;
 
     public Notification(ENotificationType notificationType, String description) {
         this.notificationType = notificationType;
         this.description = description;
     }
 
+    public Notification(ENotificationType notificationType, String description, String passengerId) {
+        this(notificationType, description);
+        this.passengerId = passengerId;
+    }
+
+    /**
+     * A notification rendered from the template of its type.
+     *
+     * @param notificationType the type of notification, which names its template.
+     * @param params the parameters of the template.
+     * @param passengerId the passenger the notification is for.
+     */
+    public Notification(ENotificationType notificationType, Map<String, String> params, String passengerId) {
+        this.notificationType = notificationType;
+        this.template = notificationType.name();
+        this.params = params;
+        this.passengerId = passengerId;
+    }
+
     public ENotificationType getNotificationType() {
         return notificationType;
     }
@@ -28,4 +56,34 @@ public class Notification {
         this.description = description;
     }
 
+    /**
+     * @return the id of the template of the notification, or {@code null} if it is described in full.
+     */
+    public String getTemplate() {
+        return template;
+    }
+
+    public void setTemplate(String template) {
+        this.template = template;
+    }
+
+    public Map<String, String> getParams() {
+        return params;
+    }
+
+    public void setParams(Map<String, String> params) {
+        this.params = params;
+    }
+
+    /**
+     * @return the passenger the notification is for, or {@code null} if it is for everyone.
+     */
+    public String getPassengerId() {
+        return passengerId;
+    }
+
+    public void setPassengerId(String passengerId) {
+        this.passengerId = passengerId;
+    }
+
 }
@@ -0,0 +1,90 @@
+package notifications.service;
+
+import fms.common.config.KafkaProperties;
+import fms.common.service.KafkaEventPublisher;
+import notifications.config.ApplicationProperties;
+import notifications.domain.Notification;
+import notifications.domain.enumeration.ENotificationType;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Tells the passengers of a flight that it was updated or cancelled, one notification each, keyed by
+ * passenger id so it reaches only them.
+ * <p>
+ * The passengers are looked up in the {@link FlightPassengerIndex}. Their notifications are queued in
+ * batches, each waiting for the publisher queue to have room for it, so that a full flight does not
+ * overflow the queue and drop the notifications of other flights.
+ */
+@Service
+public class FlightDisruptionFanOut {
+
+    private final Logger log = LoggerFactory.getLogger(FlightDisruptionFanOut.class);
+
+    private final ApplicationProperties.FanOut properties;
+    private final int queueCapacity;
+    private final FlightPassengerIndex flightPassengerIndex;
+    private final NotificationKafkaProducer notificationKafkaProducer;
+    private final KafkaEventPublisher kafkaEventPublisher;
+
+    @Autowired
+    public FlightDisruptionFanOut(ApplicationProperties applicationProperties, KafkaProperties kafkaProperties,
+                                  FlightPassengerIndex flightPassengerIndex, NotificationKafkaProducer notificationKafkaProducer,
+                                  KafkaEventPublisher kafkaEventPublisher) {
+        this(applicationProperties.getFanOut(), kafkaProperties.getPublisher().getQueueCapacity(), flightPassengerIndex,
+            notificationKafkaProducer, kafkaEventPublisher);
+    }
+
+    FlightDisruptionFanOut(ApplicationProperties.FanOut properties, int queueCapacity, FlightPassengerIndex flightPassengerIndex,
+                           NotificationKafkaProducer notificationKafkaProducer, KafkaEventPublisher kafkaEventPublisher) {
+        this.properties = properties;
+        this.queueCapacity = queueCapacity;
+        this.flightPassengerIndex = flightPassengerIndex;
+        this.notificationKafkaProducer = notificationKafkaProducer;
+        this.kafkaEventPublisher = kafkaEventPublisher;
+    }
+
+    /**
+     * Notifies the passengers of a flight.
+     *
+     * @param notificationType the type of notification.
+     * @param flightId the id of the flight, which tells it apart from the other dates of its flight number.
+     * @param params the parameters of the template of the notification.
+     * @return the number of passengers notified.
+     */
+    public int notifyPassengers(ENotificationType notificationType, Long flightId, Map<String, String> params) {
+        List<String> passengerIds = new ArrayList<>(flightPassengerIndex.passengers(flightId));
+        int batchSize = Math.max(1, Math.min(properties.getBatchSize(), queueCapacity));
+        for (int from = 0; from < passengerIds.size(); from += batchSize) {
+            List<String> batch = passengerIds.subList(from, Math.min(from + batchSize, passengerIds.size()));
+            awaitRoomFor(batch.size());
+            for (String passengerId : batch) {
+                notificationKafkaProducer.sendNotificationEvent(new Notification(notificationType, params, passengerId), passengerId);
+            }
+        }
+        log.debug("Notified {} passengers of flight {}: {}", passengerIds.size(), flightId, notificationType);
+        return passengerIds.size();
+    }
+
+    private void awaitRoomFor(int notifications) {
+        long deadline = System.currentTimeMillis() + properties.getBatchWaitMs();
+        while (kafkaEventPublisher.getQueued() > queueCapacity - notifications) {
+            if (System.currentTimeMillis() >= deadline) {
+                log.warn("The publisher queue has no room for the next {} notifications, queueing them anyway", notifications);
+                return;
+            }
+            try {
+                Thread.sleep(10);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+}
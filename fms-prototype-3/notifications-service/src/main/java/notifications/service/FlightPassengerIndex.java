@@ -0,0 +1,157 @@
+package notifications.service;
+
+import com.hazelcast.core.HazelcastInstance;
+import notifications.config.ApplicationProperties;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.io.Serializable;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Indexes the passengers booked on each flight, from the {@code booking_updated} and {@code booking_cancelled}
+ * events, so that a flight disruption is only told to its passengers.
+ * <p>
+ * The bookings of a flight are kept by flight id as an immutable {@link FlightBookings}, replaced with
+ * compare-and-set, and the flight of each booking by booking number, so a booking moved to another flight or
+ * cancelled leaves the flight it was on. A cancelled booking stays in the latter as {@link #CANCELLED}, so that the
+ * {@link FlightPassengerIndexer}, which replays the booking topics each in its own order, does not index it again
+ * from an earlier update. When distributed, both maps are Hazelcast maps, so every instance sees the bookings
+ * consumed by any of them. Flights are known by their id in the flight service, the dated flights of a schedule
+ * sharing their flight number; the bookings made before flights were dated carry no flight id and are not indexed.
+ */
+@Service
+public class FlightPassengerIndex {
+
+    public static final String FLIGHT_BOOKINGS_MAP = "dated-flight-bookings";
+    public static final String BOOKING_FLIGHTS_MAP = "booking-dated-flights";
+
+    /**
+     * The flight of a cancelled booking, flight ids being positive.
+     */
+    static final Long CANCELLED = -1L;
+
+    private final ConcurrentMap<Long, FlightBookings> flightBookings;
+    private final ConcurrentMap<String, Long> bookingFlights;
+
+    @Autowired
+    public FlightPassengerIndex(ApplicationProperties applicationProperties, HazelcastInstance hazelcastInstance) {
+        this(applicationProperties.getFanOut().isDistributed()
+                ? hazelcastInstance.<Long, FlightBookings>getMap(FLIGHT_BOOKINGS_MAP) : new ConcurrentHashMap<>(),
+            applicationProperties.getFanOut().isDistributed()
+                ? hazelcastInstance.<String, Long>getMap(BOOKING_FLIGHTS_MAP) : new ConcurrentHashMap<>());
+    }
+
+    FlightPassengerIndex(ConcurrentMap<Long, FlightBookings> flightBookings, ConcurrentMap<String, Long> bookingFlights) {
+        this.flightBookings = flightBookings;
+        this.bookingFlights = bookingFlights;
+    }
+
+    /**
+     * Indexes a booked or updated booking. Indexing the same booking again, or a cancelled one, changes nothing.
+     *
+     * @param bookingNumber the booking number.
+     * @param flightId the id of the flight booked.
+     * @param passengerId the passenger who booked it.
+     */
+    public void booked(String bookingNumber, Long flightId, String passengerId) {
+        if (bookingNumber == null || flightId == null || flightId.equals(CANCELLED) || passengerId == null) {
+            return;
+        }
+        Long previousFlightId;
+        do {
+            previousFlightId = bookingFlights.putIfAbsent(bookingNumber, flightId);
+            if (CANCELLED.equals(previousFlightId)) {
+                return;
+            }
+        } while (previousFlightId != null && !previousFlightId.equals(flightId)
+            && !bookingFlights.replace(bookingNumber, previousFlightId, flightId));
+        if (previousFlightId != null && !previousFlightId.equals(flightId)) {
+            remove(previousFlightId, bookingNumber);
+        }
+        flightBookings.compute(flightId, (flight, bookings) ->
+            (bookings == null ? FlightBookings.EMPTY : bookings).with(bookingNumber, passengerId));
+        if (!flightId.equals(bookingFlights.get(bookingNumber))) {
+            // cancelled or moved meanwhile, by an event of the other topic
+            remove(flightId, bookingNumber);
+        }
+    }
+
+    /**
+     * Removes a cancelled booking from the flight it was on, for good.
+     *
+     * @param bookingNumber the booking number.
+     * @param flightId the id of the flight booked, if the booking was not indexed.
+     */
+    public void cancelled(String bookingNumber, Long flightId) {
+        if (bookingNumber == null) {
+            return;
+        }
+        Long indexedFlightId = bookingFlights.put(bookingNumber, CANCELLED);
+        if (indexedFlightId != null && !indexedFlightId.equals(CANCELLED)) {
+            remove(indexedFlightId, bookingNumber);
+        } else if (flightId != null) {
+            remove(flightId, bookingNumber);
+        }
+    }
+
+    /**
+     * @param flightId the id of the flight.
+     * @return the passengers booked on the flight, once each, in booking number order.
+     */
+    public Set<String> passengers(Long flightId) {
+        FlightBookings bookings = flightId == null ? null : flightBookings.get(flightId);
+        return bookings == null ? Collections.emptySet() : bookings.passengers();
+    }
+
+    private void remove(Long flightId, String bookingNumber) {
+        flightBookings.computeIfPresent(flightId, (flight, bookings) -> bookings.without(bookingNumber));
+    }
+
+    /**
+     * The passenger of each booking of a flight, by booking number. Sorted, so that equal bookings are
+     * serialized the same, which the compare-and-set of a Hazelcast map relies on.
+     */
+    static final class FlightBookings implements Serializable {
+
+        private static final long serialVersionUID = 1L;
+
+        static final FlightBookings EMPTY = new FlightBookings(new TreeMap<>());
+
+        private final TreeMap<String, String> passengerByBooking;
+
+        private FlightBookings(TreeMap<String, String> passengerByBooking) {
+            this.passengerByBooking = passengerByBooking;
+        }
+
+        FlightBookings with(String bookingNumber, String passengerId) {
+            if (passengerId.equals(passengerByBooking.get(bookingNumber))) {
+                return this;
+            }
+            TreeMap<String, String> updated = new TreeMap<>(passengerByBooking);
+            updated.put(bookingNumber, passengerId);
+            return new FlightBookings(updated);
+        }
+
+        /**
+         * @return the bookings without this one, or {@code null} if none is left, removing the flight.
+         */
+        FlightBookings without(String bookingNumber) {
+            if (!passengerByBooking.containsKey(bookingNumber)) {
+                return this;
+            }
+            TreeMap<String, String> updated = new TreeMap<>(passengerByBooking);
+            updated.remove(bookingNumber);
+            return updated.isEmpty() ? null : new FlightBookings(updated);
+        }
+
+        Set<String> passengers() {
+            return Collections.unmodifiableSet(new LinkedHashSet<>(passengerByBooking.values()));
+        }
+    }
+}
@@ -0,0 +1,153 @@
+package notifications.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import fms.common.config.KafkaProperties;
+import notifications.config.ApplicationProperties;
+import notifications.service.dto.BookingDTO;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.ConsumerRecords;
+import org.apache.kafka.clients.consumer.KafkaConsumer;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.errors.WakeupException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Keeps the {@link FlightPassengerIndex} up to date from the {@link #TOPICS}, replaying them from their first offset
+ * on startup, so that the index is rebuilt whether it was lost with the last instance of the cluster, or with the
+ * only instance when not distributed.
+ * <p>
+ * The indexer has a consumer group of its own, the one of the service suffixed with {@code -flight-passengers}, and
+ * a group per instance when the index is not distributed, since each instance then needs every booking. It never
+ * commits: each partition it is assigned is sought back to its first offset, and indexing the same events again
+ * changes nothing. The booking topics must therefore be kept at least as long as the flights they book.
+ */
+@Service
+public class FlightPassengerIndexer {
+
+    public static final String TOPIC_BOOKING_UPDATED = "booking_updated";
+    public static final String TOPIC_BOOKING_CANCELLED = "booking_cancelled";
+    public static final List<String> TOPICS = Arrays.asList(TOPIC_BOOKING_UPDATED, TOPIC_BOOKING_CANCELLED);
+
+    private final Logger log = LoggerFactory.getLogger(FlightPassengerIndexer.class);
+
+    private final ObjectMapper objectMapper = new ObjectMapper()
+        .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+    private final ApplicationProperties.FanOut properties;
+    private final FlightPassengerIndex flightPassengerIndex;
+    private final Consumer<String, String> consumer;
+    private final AtomicBoolean closed = new AtomicBoolean(false);
+    private final Set<TopicPartition> replayed = new HashSet<>();
+    private Thread poller;
+
+    @Autowired
+    public FlightPassengerIndexer(ApplicationProperties applicationProperties, KafkaProperties kafkaProperties,
+                                  FlightPassengerIndex flightPassengerIndex) {
+        this(applicationProperties.getFanOut(), flightPassengerIndex,
+            new KafkaConsumer<>(consumerProps(kafkaProperties, applicationProperties.getFanOut().isDistributed())));
+    }
+
+    FlightPassengerIndexer(ApplicationProperties.FanOut properties, FlightPassengerIndex flightPassengerIndex,
+                           Consumer<String, String> consumer) {
+        this.properties = properties;
+        this.flightPassengerIndex = flightPassengerIndex;
+        this.consumer = consumer;
+    }
+
+    private static Map<String, Object> consumerProps(KafkaProperties kafkaProperties, boolean distributed) {
+        Map<String, Object> consumerProps = kafkaProperties.getConsumerProps();
+        String group = consumerProps.get("group.id") + "-flight-passengers";
+        consumerProps.put("group.id", distributed ? group : group + "-" + UUID.randomUUID());
+        // every partition is replayed from its first offset, whatever was read before
+        consumerProps.put("enable.auto.commit", "false");
+        consumerProps.put("auto.offset.reset", "earliest");
+        return consumerProps;
+    }
+
+    @PostConstruct
+    public void start() {
+        consumer.subscribe(TOPICS);
+        poller = new Thread(this::run, "flight-passenger-index");
+        poller.setDaemon(true);
+        poller.start();
+        log.debug("Flight passenger indexer started.");
+    }
+
+    private void run() {
+        try {
+            while (!closed.get()) {
+                try {
+                    poll();
+                } catch (WakeupException e) {
+                    // shutting down
+                } catch (RuntimeException e) {
+                    log.error("Could not poll booking events: {}", e.getMessage(), e);
+                }
+            }
+        } finally {
+            consumer.close();
+        }
+    }
+
+    /**
+     * Indexes the bookings of a poll, once the partitions newly assigned to this instance are sought back to their
+     * first offset.
+     */
+    void poll() {
+        Set<TopicPartition> assignment = consumer.assignment();
+        replayed.retainAll(assignment);
+        Set<TopicPartition> assigned = new HashSet<>(assignment);
+        assigned.removeAll(replayed);
+        if (!assigned.isEmpty()) {
+            consumer.seekToBeginning(assigned);
+            replayed.addAll(assigned);
+            log.info("Rebuilding the flight passenger index from {}", assigned);
+        }
+        ConsumerRecords<String, String> records = consumer.poll(Duration.ofMillis(properties.getIndexPollMillis()));
+        for (ConsumerRecord<String, String> record : records) {
+            BookingDTO bookingDTO;
+            try {
+                bookingDTO = objectMapper.readValue(record.value(), BookingDTO.class);
+            } catch (JsonProcessingException e) {
+                log.warn("Skipping unreadable booking event at {}-{}@{}: {}", record.topic(), record.partition(),
+                    record.offset(), e.getMessage());
+                continue;
+            }
+            if (TOPIC_BOOKING_CANCELLED.equals(record.topic())) {
+                flightPassengerIndex.cancelled(bookingDTO.getBookingNumber(), bookingDTO.getFlightId());
+            } else {
+                flightPassengerIndex.booked(bookingDTO.getBookingNumber(), bookingDTO.getFlightId(), bookingDTO.getPassengerId());
+            }
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        log.debug("Shutdown flight passenger indexer");
+        closed.set(true);
+        consumer.wakeup();
+        if (poller != null) {
+            try {
+                poller.join(10000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+}
@@ -1,6 +1,6 @@
 package notifications.service;
 
-import notifications.config.KafkaProperties;
+import fms.common.config.KafkaProperties;
 import notifications.domain.Notification;
 import notifications.domain.enumeration.ENotificationType;
 import notifications.service.dto.BookingDTO;
@@ -16,6 +16,8 @@ import org.springframework.stereotype.Service;
 import javax.annotation.PostConstruct;
 import java.time.Duration;
 import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.atomic.AtomicBoolean;
@@ -29,6 +31,12 @@ import java.util.concurrent.atomic.AtomicBoolean;
  * cancellation can be consumed in a wrong order, which would mean the service would proceed to informing the
  * passenger in the wrong order as well, leading to a faulty functionality. To avoid this a consumer per topic
  * approach is used.
+ * <p>
+ * Flight events are only told to the passengers of the flight, by the {@link FlightDisruptionFanOut}, from the
+ * {@link FlightPassengerIndex} the {@link FlightPassengerIndexer} keeps up to date with the booking events.
+ * <p>
+ * Notifications are sent as the template of their type with its parameters, rather than as sentences, which the
+ * passenger service renders when they are read.
  */
 @Service
 public class NotificationKafkaConsumer {
@@ -42,17 +50,19 @@ public class NotificationKafkaConsumer {
     private final AtomicBoolean closed = new AtomicBoolean(false);
     private final KafkaProperties kafkaProperties;
     private final NotificationKafkaProducer notificationKafkaProducer;
+    private final FlightDisruptionFanOut flightDisruptionFanOut;
 
     private KafkaConsumer<String, String> bookingUpdateConsumer;
     private KafkaConsumer<String, String> bookingCancellationConsumer;
     private KafkaConsumer<String, String> flightUpdateConsumer;
     private KafkaConsumer<String, String> flightCancellationConsumer;
     private ExecutorService executorService = Executors.newCachedThreadPool();
-    private String notificationMessage = "";
 
-    public NotificationKafkaConsumer(KafkaProperties kafkaProperties, NotificationKafkaProducer notificationKafkaProducer) {
+    public NotificationKafkaConsumer(KafkaProperties kafkaProperties, NotificationKafkaProducer notificationKafkaProducer,
+                                     FlightDisruptionFanOut flightDisruptionFanOut) {
         this.kafkaProperties = kafkaProperties;
         this.notificationKafkaProducer = notificationKafkaProducer;
+        this.flightDisruptionFanOut = flightDisruptionFanOut;
     }
 
     @PostConstruct
@@ -82,30 +92,21 @@ public class NotificationKafkaConsumer {
 
                         ObjectMapper objectMapper = new ObjectMapper();
                         BookingDTO bookingDTO = objectMapper.readValue(record.value(), BookingDTO.class);
-                        // send the notification for the passenger to subscribe for
-                        this.notificationMessage = "This information is for a passenger with passenger id: " + bookingDTO.getPassengerId() + "" +
-                            ". If this concerns you, please read on. " +
-                            "Dear Sir/Madam, the booking with booking number: " + bookingDTO.getBookingNumber() +
-                            " for flight with flight number: " + bookingDTO.getFlightNumber() +
-                            " has been confirmed. Safe travels and best regards!";
+                        // send the notification to the passenger who booked
                         notificationKafkaProducer.sendNotificationEvent(
-                            new Notification(ENotificationType.BOOKING_CONFIRMED, notificationMessage)
+                            new Notification(ENotificationType.BOOKING_CONFIRMED, bookingParams(bookingDTO), bookingDTO.getPassengerId()),
+                            bookingDTO.getPassengerId()
                         );
-
                     }
                     for (ConsumerRecord<String, String> record : bookingCancellationRecords) {
                         logger.debug("Consumed message in {} : {}", TOPIC_BOOKING_CANCELLED, record.value());
 
                         ObjectMapper objectMapper = new ObjectMapper();
                         BookingDTO bookingDTO = objectMapper.readValue(record.value(), BookingDTO.class);
-                        // send the notification for the passenger to subscribe for
-                        this.notificationMessage = "This information is for a passenger with passenger id: " + bookingDTO.getPassengerId() + "" +
-                            ". If this concerns you, please read on. " +
-                            "Dear Sir/Madam, the booking with booking number: " + bookingDTO.getBookingNumber() +
-                            " for flight with flight number: " + bookingDTO.getFlightNumber() + " has been cancelled. Best regards!";
-
+                        // send the notification to the passenger who booked
                         notificationKafkaProducer.sendNotificationEvent(
-                            new Notification(ENotificationType.BOOKING_CANCELLED, notificationMessage)
+                            new Notification(ENotificationType.BOOKING_CANCELLED, bookingParams(bookingDTO), bookingDTO.getPassengerId()),
+                            bookingDTO.getPassengerId()
                         );
                     }
                     for (ConsumerRecord<String, String> record : flightUpdateRecords) {
@@ -113,29 +114,16 @@ public class NotificationKafkaConsumer {
 
                         ObjectMapper objectMapper = new ObjectMapper();
                         FlightDTO flightDTO = objectMapper.readValue(record.value(), FlightDTO.class);
-                        // send the notification for the passenger to subscribe for
-                        this.notificationMessage = "Dear Sir/Madam, the flight with flight number: " + flightDTO.getFlightNumber() +
-                            " for origin: " + flightDTO.getOrigin() + " and destination: " + flightDTO.getDestination() +
-                            " with departure date on: " + flightDTO.getDepartureDate() +
-                            " has been updated. Safe travels and best regards!";
-
-                        notificationKafkaProducer.sendNotificationEvent(
-                            new Notification(ENotificationType.FLIGHT_UPDATED, notificationMessage)
-                        );
+                        // send the notification to the passengers of the flight
+                        flightDisruptionFanOut.notifyPassengers(ENotificationType.FLIGHT_UPDATED, flightDTO.getId(), flightParams(flightDTO));
                     }
                     for (ConsumerRecord<String, String> record : flightCancellationRecords) {
                         logger.debug("Consumed message in {} : {}", TOPIC_FLIGHT_CANCELLED, record.value());
 
                         ObjectMapper objectMapper = new ObjectMapper();
                         FlightDTO flightDTO = objectMapper.readValue(record.value(), FlightDTO.class);
-                       // send the notification for the passenger to subscribe for
-                        this.notificationMessage = "Dear Sir/Madam, the flight with flight number: " + flightDTO.getFlightNumber() +
-                            " for origin: " + flightDTO.getOrigin() + " and destination: " + flightDTO.getDestination() +
-                            " with departure date on: " + flightDTO.getDepartureDate() + " has been cancelled. Best regards!";
-
-                        notificationKafkaProducer.sendNotificationEvent(
-                            new Notification(ENotificationType.FLIGHT_CANCELLED, notificationMessage)
-                        );
+                        // send the notification to the passengers of the flight
+                        flightDisruptionFanOut.notifyPassengers(ENotificationType.FLIGHT_CANCELLED, flightDTO.getId(), flightParams(flightDTO));
                     }
                 }
                 bookingUpdateConsumer.commitSync();
@@ -154,6 +142,22 @@ public class NotificationKafkaConsumer {
         });
     }
 
+    private static Map<String, String> bookingParams(BookingDTO bookingDTO) {
+        Map<String, String> params = new LinkedHashMap<>();
+        params.put("bookingNumber", bookingDTO.getBookingNumber());
+        params.put("flightNumber", bookingDTO.getFlightNumber());
+        return params;
+    }
+
+    private static Map<String, String> flightParams(FlightDTO flightDTO) {
+        Map<String, String> params = new LinkedHashMap<>();
+        params.put("flightNumber", flightDTO.getFlightNumber());
+        params.put("origin", flightDTO.getOrigin());
+        params.put("destination", flightDTO.getDestination());
+        params.put("departureDate", flightDTO.getDepartureDate());
+        return params;
+    }
+
     public void shutdown() {
         logger.debug("Shutdown Kafka consumer");
         closed.set(true);
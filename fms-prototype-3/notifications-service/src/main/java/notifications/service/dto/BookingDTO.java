@@ -4,7 +4,9 @@ public class BookingDTO {
 
     private String bookingNumber;
     private String flightNumber;
+    private Long flightId;
     private String passengerId;
+    private String seatHoldId;
 
     public String getBookingNumber() {
         return bookingNumber;
@@ -22,6 +24,14 @@ public class BookingDTO {
         this.flightNumber = flightNumber;
     }
 
+    public Long getFlightId() {
+        return flightId;
+    }
+
+    public void setFlightId(Long flightId) {
+        this.flightId = flightId;
+    }
+
     public String getPassengerId() {
         return passengerId;
     }
@@ -29,4 +39,12 @@ public class BookingDTO {
     public void setPassengerId(String passengerId) {
         this.passengerId = passengerId;
     }
+
+    public String getSeatHoldId() {
+        return seatHoldId;
+    }
+
+    public void setSeatHoldId(String seatHoldId) {
+        this.seatHoldId = seatHoldId;
+    }
 }
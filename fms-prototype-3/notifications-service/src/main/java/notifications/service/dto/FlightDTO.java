@@ -2,11 +2,20 @@ package notifications.service.dto;
 
 public class FlightDTO {
 
+    private Long id;
     private String flightNumber;
     private String departureDate;
     private String origin;
     private String destination;
 
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
     public String getFlightNumber() {
         return flightNumber;
     }
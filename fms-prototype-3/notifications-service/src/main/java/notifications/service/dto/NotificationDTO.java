@@ -1,15 +1,29 @@
 package notifications.service.dto;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import notifications.domain.Notification;
 
+import java.util.Map;
+
+/**
+ * A notification as published on {@code notification_set}: a templated one carries its template and parameters
+ * but no message.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
 public class NotificationDTO {
 
     private String name;
     private String message;
+    private String template;
+    private Map<String, String> params;
+    private String passengerId;
 
     public NotificationDTO(Notification notification) {
         this.name = notification.getNotificationType().name();
         this.message = notification.getDescription();
+        this.template = notification.getTemplate();
+        this.params = notification.getParams();
+        this.passengerId = notification.getPassengerId();
     }
 
     public String getName() {
@@ -27,4 +41,28 @@ public class NotificationDTO {
     public void setMessage(String message) {
         this.message = message;
     }
+
+    public String getTemplate() {
+        return template;
+    }
+
+    public void setTemplate(String template) {
+        this.template = template;
+    }
+
+    public Map<String, String> getParams() {
+        return params;
+    }
+
+    public void setParams(Map<String, String> params) {
+        this.params = params;
+    }
+
+    public String getPassengerId() {
+        return passengerId;
+    }
+
+    public void setPassengerId(String passengerId) {
+        this.passengerId = passengerId;
+    }
 }
@@ -0,0 +1,109 @@
+package notifications.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import fms.common.config.KafkaProperties;
+import fms.common.service.KafkaEventPublisher;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import notifications.config.ApplicationProperties;
+import notifications.domain.enumeration.ENotificationType;
+import org.apache.kafka.clients.producer.MockProducer;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BooleanSupplier;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Test class for the {@link FlightDisruptionFanOut}.
+ */
+public class FlightDisruptionFanOutTest {
+
+    private static final int QUEUE_CAPACITY = 4;
+
+    private final ApplicationProperties.FanOut properties = new ApplicationProperties.FanOut();
+    private final KafkaProperties kafkaProperties = new KafkaProperties();
+    private final FlightPassengerIndex index = new FlightPassengerIndex(new ConcurrentHashMap<>(), new ConcurrentHashMap<>());
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private MockProducer<String, String> producer;
+    private KafkaEventPublisher publisher;
+    private FlightDisruptionFanOut fanOut;
+
+    @BeforeEach
+    public void setUp() {
+        properties.setBatchSize(3);
+        kafkaProperties.getPublisher().setQueueCapacity(QUEUE_CAPACITY);
+        producer = new MockProducer<>(true, new StringSerializer(), new StringSerializer());
+        publisher = new KafkaEventPublisher(kafkaProperties, new SimpleMeterRegistry(), producer);
+        publisher.initialize();
+        fanOut = new FlightDisruptionFanOut(properties, QUEUE_CAPACITY, index, new NotificationKafkaProducer(publisher), publisher);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        publisher.shutdown();
+    }
+
+    private static void awaitUntil(BooleanSupplier condition) {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!condition.getAsBoolean()) {
+            assertThat(System.currentTimeMillis()).as("condition met in time").isLessThan(deadline);
+            Thread.yield();
+        }
+    }
+
+    private JsonNode json(ProducerRecord<String, String> record) {
+        try {
+            return objectMapper.readTree(record.value());
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @Test
+    public void onlyThePassengersOfTheFlightAreNotified() {
+        index.booked("1", 100L, "alice");
+        index.booked("2", 100L, "bob");
+        index.booked("3", 200L, "carol");
+
+        assertThat(fanOut.notifyPassengers(ENotificationType.FLIGHT_CANCELLED, 100L, Collections.singletonMap("flightNumber", "LH100"))).isEqualTo(2);
+
+        awaitUntil(() -> producer.history().size() == 2);
+        assertThat(producer.history().stream().map(ProducerRecord::key).collect(Collectors.toList()))
+            .containsExactly("alice", "bob");
+        assertThat(producer.history().stream().map(record -> json(record).get("passengerId").asText()).collect(Collectors.toList()))
+            .containsExactly("alice", "bob");
+        assertThat(json(producer.history().get(0)).get("name").asText()).isEqualTo("FLIGHT_CANCELLED");
+        assertThat(json(producer.history().get(0)).get("template").asText()).isEqualTo("FLIGHT_CANCELLED");
+        assertThat(json(producer.history().get(0)).get("params").get("flightNumber").asText()).isEqualTo("LH100");
+        assertThat(json(producer.history().get(0)).has("message")).isFalse();
+    }
+
+    @Test
+    public void moreNotificationsThanTheQueueHoldsAreAllSent() {
+        for (int booking = 0; booking < 10; booking++) {
+            index.booked(String.valueOf(booking), 100L, "passenger-" + booking);
+        }
+
+        assertThat(fanOut.notifyPassengers(ENotificationType.FLIGHT_UPDATED, 100L, Collections.singletonMap("flightNumber", "LH100"))).isEqualTo(10);
+
+        awaitUntil(() -> producer.history().size() == 10);
+        assertThat(producer.history().stream().map(ProducerRecord::key).distinct().count()).isEqualTo(10);
+    }
+
+    @Test
+    public void aFlightWithoutPassengersNotifiesNobody() {
+        assertThat(fanOut.notifyPassengers(ENotificationType.FLIGHT_UPDATED, 100L, Collections.singletonMap("flightNumber", "LH100"))).isZero();
+
+        assertThat(publisher.getQueued()).isZero();
+        assertThat(producer.history()).isEmpty();
+    }
+}
@@ -0,0 +1,106 @@
+package notifications.service;
+
+import com.hazelcast.config.Config;
+import com.hazelcast.core.Hazelcast;
+import com.hazelcast.core.HazelcastInstance;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Test class for the {@link FlightPassengerIndex}.
+ */
+public class FlightPassengerIndexTest {
+
+    private FlightPassengerIndex index;
+
+    @BeforeEach
+    public void setUp() {
+        index = new FlightPassengerIndex(new ConcurrentHashMap<>(), new ConcurrentHashMap<>());
+    }
+
+    @Test
+    public void passengersAreIndexedByFlight() {
+        index.booked("1", 100L, "alice");
+        index.booked("2", 100L, "bob");
+        index.booked("3", 200L, "carol");
+
+        assertThat(index.passengers(100L)).containsExactly("alice", "bob");
+        assertThat(index.passengers(200L)).containsExactly("carol");
+        assertThat(index.passengers(300L)).isEmpty();
+    }
+
+    @Test
+    public void repeatedEventsIndexAPassengerOnce() {
+        index.booked("1", 100L, "alice");
+        index.booked("1", 100L, "alice");
+        index.booked("2", 100L, "alice");
+
+        assertThat(index.passengers(100L)).containsExactly("alice");
+
+        index.cancelled("1", 100L);
+        assertThat(index.passengers(100L)).as("alice still has a booking").containsExactly("alice");
+        index.cancelled("2", 100L);
+        assertThat(index.passengers(100L)).isEmpty();
+    }
+
+    @Test
+    public void aMovedBookingLeavesItsPreviousFlight() {
+        index.booked("1", 100L, "alice");
+        index.booked("1", 200L, "alice");
+
+        assertThat(index.passengers(100L)).isEmpty();
+        assertThat(index.passengers(200L)).containsExactly("alice");
+    }
+
+    @Test
+    public void cancellingAnUnknownBookingChangesNothing() {
+        index.booked("1", 100L, "alice");
+
+        index.cancelled("2", 100L);
+
+        assertThat(index.passengers(100L)).containsExactly("alice");
+    }
+
+    @Test
+    public void aCancelledBookingIsNotIndexedAgainByAnEarlierUpdate() {
+        index.booked("1", 100L, "alice");
+        index.cancelled("1", 100L);
+        // replayed after the cancellation, the booking topics being replayed each in its own order
+        index.booked("1", 100L, "alice");
+        index.cancelled("2", 200L);
+        index.booked("2", 200L, "bob");
+
+        assertThat(index.passengers(100L)).isEmpty();
+        assertThat(index.passengers(200L)).isEmpty();
+    }
+
+    @Test
+    public void hazelcastIndexesAreSharedByInstances() {
+        Config config = new Config();
+        config.setInstanceName("flight-passenger-index-test");
+        config.getNetworkConfig().getJoin().getMulticastConfig().setEnabled(false);
+        config.getNetworkConfig().getJoin().getTcpIpConfig().setEnabled(false);
+        HazelcastInstance hazelcastInstance = Hazelcast.newHazelcastInstance(config);
+        try {
+            // two indexes sharing the maps, as two instances of the service would
+            FlightPassengerIndex first = new FlightPassengerIndex(
+                hazelcastInstance.getMap(FlightPassengerIndex.FLIGHT_BOOKINGS_MAP), hazelcastInstance.getMap(FlightPassengerIndex.BOOKING_FLIGHTS_MAP));
+            FlightPassengerIndex second = new FlightPassengerIndex(
+                hazelcastInstance.getMap(FlightPassengerIndex.FLIGHT_BOOKINGS_MAP), hazelcastInstance.getMap(FlightPassengerIndex.BOOKING_FLIGHTS_MAP));
+
+            first.booked("1", 100L, "alice");
+            second.booked("2", 100L, "bob");
+            first.booked("2", 100L, "bob");
+            second.cancelled("1", null);
+
+            assertThat(first.passengers(100L)).containsExactly("bob");
+            assertThat(second.passengers(100L)).containsExactly("bob");
+        } finally {
+            hazelcastInstance.shutdown();
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package notifications.service;
+
+import notifications.config.ApplicationProperties;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.MockConsumer;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.clients.consumer.OffsetResetStrategy;
+import org.apache.kafka.common.TopicPartition;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Test class for the {@link FlightPassengerIndexer}.
+ */
+public class FlightPassengerIndexerTest {
+
+    private static final TopicPartition UPDATED_0 = new TopicPartition(FlightPassengerIndexer.TOPIC_BOOKING_UPDATED, 0);
+    private static final TopicPartition CANCELLED_0 = new TopicPartition(FlightPassengerIndexer.TOPIC_BOOKING_CANCELLED, 0);
+
+    private MockConsumer<String, String> consumer;
+    private FlightPassengerIndex index;
+    private FlightPassengerIndexer indexer;
+
+    @BeforeEach
+    public void setUp() {
+        consumer = new MockConsumer<>(OffsetResetStrategy.EARLIEST);
+        index = new FlightPassengerIndex(new ConcurrentHashMap<>(), new ConcurrentHashMap<>());
+        ApplicationProperties.FanOut properties = new ApplicationProperties.FanOut();
+        properties.setIndexPollMillis(0);
+        indexer = new FlightPassengerIndexer(properties, index, consumer);
+        consumer.subscribe(FlightPassengerIndexer.TOPICS);
+        consumer.rebalance(Arrays.asList(UPDATED_0, CANCELLED_0));
+        Map<TopicPartition, Long> beginningOffsets = new HashMap<>();
+        beginningOffsets.put(UPDATED_0, 0L);
+        beginningOffsets.put(CANCELLED_0, 0L);
+        consumer.updateBeginningOffsets(beginningOffsets);
+    }
+
+    private void add(TopicPartition partition, long offset, String bookingNumber, long flightId, String passengerId) {
+        consumer.addRecord(new ConsumerRecord<>(partition.topic(), partition.partition(), offset, bookingNumber,
+            "{\"bookingNumber\":\"" + bookingNumber + "\",\"flightNumber\":\"LH100\",\"flightId\":" + flightId
+                + ",\"passengerId\":\"" + passengerId + "\",\"status\":\"HELD\"}"));
+    }
+
+    @Test
+    public void bookingsAreIndexedAndCancellationsRemoved() {
+        add(UPDATED_0, 0, "1", 100L, "alice");
+        add(UPDATED_0, 1, "2", 100L, "bob");
+        add(CANCELLED_0, 0, "1", 100L, "alice");
+
+        indexer.poll();
+
+        assertThat(index.passengers(100L)).containsExactly("bob");
+    }
+
+    @Test
+    public void theDatesOfAFlightNumberAreIndexedApart() {
+        // every booking is on LH100, on two dates
+        add(UPDATED_0, 0, "1", 100L, "alice");
+        add(UPDATED_0, 1, "2", 101L, "bob");
+
+        indexer.poll();
+
+        assertThat(index.passengers(100L)).containsExactly("alice");
+        assertThat(index.passengers(101L)).containsExactly("bob");
+    }
+
+    @Test
+    public void assignedPartitionsAreReplayedFromTheirFirstOffset() {
+        consumer.seek(UPDATED_0, 1);
+        consumer.seek(CANCELLED_0, 1);
+        add(UPDATED_0, 0, "1", 100L, "alice");
+        add(UPDATED_0, 1, "2", 200L, "bob");
+
+        indexer.poll();
+
+        assertThat(index.passengers(100L)).containsExactly("alice");
+        assertThat(index.passengers(200L)).containsExactly("bob");
+        Map<TopicPartition, OffsetAndMetadata> committed = consumer.committed(new HashSet<>(Arrays.asList(UPDATED_0, CANCELLED_0)));
+        assertThat(committed.get(UPDATED_0)).as("the indexer never commits").isNull();
+        assertThat(committed.get(CANCELLED_0)).isNull();
+    }
+
+    @Test
+    public void anUnreadableEventIsSkipped() {
+        consumer.addRecord(new ConsumerRecord<>(UPDATED_0.topic(), 0, 0, "1", "not a booking"));
+        add(UPDATED_0, 1, "2", 100L, "bob");
+
+        indexer.poll();
+
+        assertThat(index.passengers(100L)).containsExactly("bob");
+    }
+}
@@ -2,6 +2,8 @@ package passengers.config;
 
 import org.springframework.boot.context.properties.ConfigurationProperties;
 
+import java.time.Duration;
+
 /**
  * Properties specific to Passengers.
  * <p>
@@ -10,4 +12,80 @@ import org.springframework.boot.context.properties.ConfigurationProperties;
  */
 @ConfigurationProperties(prefix = "application", ignoreUnknownFields = false)
 public class ApplicationProperties {
+
+    private final InboxPush inboxPush = new InboxPush();
+
+    public InboxPush getInboxPush() {
+        return inboxPush;
+    }
+
+    public static class InboxPush {
+
+        /**
+         * Most inbox entries waiting to be sent to one connection; a connection that falls further behind is
+         * closed, and resumes from its last event once reconnected.
+         */
+        private int bufferCapacity = 256;
+
+        /**
+         * Threads sending the inbox entries to the connections of this instance.
+         */
+        private int senderThreads = 4;
+
+        /**
+         * How often an idle connection is sent a comment, so proxies keep it open.
+         */
+        private long heartbeatMillis = 15000;
+
+        /**
+         * Longest time a connection stays open, before the client reconnects.
+         */
+        private Duration streamTimeout = Duration.ofMinutes(30);
+
+        /**
+         * Most inbox entries sent again to a connection resuming from its last event; one further behind is closed
+         * after them, and resumes from the last one once reconnected.
+         */
+        private int replayLimit = 100;
+
+        public int getBufferCapacity() {
+            return bufferCapacity;
+        }
+
+        public void setBufferCapacity(int bufferCapacity) {
+            this.bufferCapacity = bufferCapacity;
+        }
+
+        public int getSenderThreads() {
+            return senderThreads;
+        }
+
+        public void setSenderThreads(int senderThreads) {
+            this.senderThreads = senderThreads;
+        }
+
+        public long getHeartbeatMillis() {
+            return heartbeatMillis;
+        }
+
+        public void setHeartbeatMillis(long heartbeatMillis) {
+            this.heartbeatMillis = heartbeatMillis;
+        }
+
+        public Duration getStreamTimeout() {
+            return streamTimeout;
+        }
+
+        public void setStreamTimeout(Duration streamTimeout) {
+            this.streamTimeout = streamTimeout;
+        }
+
+        public int getReplayLimit() {
+            return replayLimit;
+        }
+
+        public void setReplayLimit(int replayLimit) {
+            this.replayLimit = replayLimit;
+        }
+    }
 }
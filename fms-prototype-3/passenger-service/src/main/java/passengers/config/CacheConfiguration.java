@@ -2,6 +2,7 @@ package passengers.config;
 
 import io.github.jhipster.config.JHipsterConstants;
 import io.github.jhipster.config.JHipsterProperties;
+import passengers.repository.PassengerRepository;
 
 import com.hazelcast.config.*;
 import com.hazelcast.core.HazelcastInstance;
@@ -114,6 +115,7 @@ public class CacheConfiguration {
         // Full reference is available at: https://docs.hazelcast.org/docs/management-center/3.9/manual/html/Deploying_and_Starting.html
         config.setManagementCenterConfig(initializeDefaultManagementCenterConfig(jHipsterProperties));
         config.getMapConfigs().put("passengers.domain.*", initializeDomainMapConfig(jHipsterProperties));
+        config.getMapConfigs().put(PassengerRepository.PASSENGERS_BY_USERNAME_CACHE, initializeNearCachedMapConfig(jHipsterProperties));
         return Hazelcast.newHazelcastInstance(config);
     }
 
@@ -161,6 +163,20 @@ public class CacheConfiguration {
         return mapConfig;
     }
 
+    /*
+    Lookups by key, read on every request of a user and seldom written, are kept in a near cache on each
+    instance. Entries are invalidated on every instance when they change or are evicted in the map.
+    */
+    private MapConfig initializeNearCachedMapConfig(JHipsterProperties jHipsterProperties) {
+        MapConfig mapConfig = initializeDomainMapConfig(jHipsterProperties);
+        NearCacheConfig nearCacheConfig = new NearCacheConfig()
+            .setInvalidateOnChange(true)
+            .setCacheLocalEntries(true)
+            .setTimeToLiveSeconds(jHipsterProperties.getCache().getHazelcast().getTimeToLiveSeconds());
+        mapConfig.setNearCacheConfig(nearCacheConfig);
+        return mapConfig;
+    }
+
     @Autowired(required = false)
     public void setGitProperties(GitProperties gitProperties) {
         this.gitProperties = gitProperties;
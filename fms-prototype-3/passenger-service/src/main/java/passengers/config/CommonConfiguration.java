@@ -0,0 +1,17 @@
+package passengers.config;
+
+import fms.common.config.KafkaProperties;
+import fms.common.service.KafkaSseBroadcaster;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+
+/**
+ * Registers the components of fms-common this service runs, and binds their settings:
+ * the SSE broadcaster.
+ */
+@Configuration
+@EnableConfigurationProperties({KafkaProperties.class})
+@Import({KafkaSseBroadcaster.class})
+public class CommonConfiguration {
+}
@@ -0,0 +1,93 @@
+package passengers.domain;
+
+import javax.persistence.*;
+import javax.validation.constraints.*;
+
+import java.io.Serializable;
+
+/**
+ * An InboxCounter: the number of unread {@link InboxEntry inbox entries} of a passenger, kept with the entries
+ * so it is read without counting them.
+ */
+@Entity
+@Table(name = "inbox_counter")
+public class InboxCounter implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    /**
+     * The username of the passenger.
+     */
+    @NotNull
+    @Column(name = "passenger_id", nullable = false, unique = true)
+    private String passengerId;
+
+    @Column(name = "unread", nullable = false)
+    private long unread;
+
+    // jhipster-needle-entity-add-field - JHipster will add fields here
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getPassengerId() {
+        return passengerId;
+    }
+
+    public InboxCounter passengerId(String passengerId) {
+        this.passengerId = passengerId;
+        return this;
+    }
+
+    public void setPassengerId(String passengerId) {
+        this.passengerId = passengerId;
+    }
+
+    public long getUnread() {
+        return unread;
+    }
+
+    public InboxCounter unread(long unread) {
+        this.unread = unread;
+        return this;
+    }
+
+    public void setUnread(long unread) {
+        this.unread = unread;
+    }
+    // jhipster-needle-entity-add-getters-setters - JHipster will add getters and setters here
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof InboxCounter)) {
+            return false;
+        }
+        return id != null && id.equals(((InboxCounter) o).id);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31;
+    }
+
+    // prettier-ignore
+    @Override
+    public String toString() {
+        return "InboxCounter{" +
+            "id=" + getId() +
+            ", passengerId='" + getPassengerId() + "'" +
+            ", unread=" + getUnread() +
+            "}";
+    }
+}
@@ -0,0 +1,223 @@
+package passengers.domain;
+
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
+
+import javax.persistence.*;
+import javax.validation.constraints.*;
+
+import java.io.Serializable;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * An InboxEntry: a notification delivered to one passenger, see {@link passengers.service.InboxService}.
+ * <p>
+ * Entries hold their notification, rather than join it, so a page of an inbox is read from one index.
+ * They are not cached: each passenger reads their own, a page at a time. Like their notification, they hold its
+ * template and parameters, rendered when read.
+ */
+@Entity
+@Table(name = "inbox_entry")
+public class InboxEntry implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "inboxEntryIdGenerator")
+    @GenericGenerator(
+        name = "inboxEntryIdGenerator",
+        strategy = "org.hibernate.id.enhanced.TableGenerator",
+        parameters = {
+            @Parameter(name = "table_name", value = "id_generator"),
+            @Parameter(name = "segment_value", value = "inbox_entry"),
+            @Parameter(name = "increment_size", value = "50"),
+            @Parameter(name = "optimizer", value = "pooled-lo")
+        })
+    private Long id;
+
+    /**
+     * The username of the passenger.
+     */
+    @NotNull
+    @Column(name = "passenger_id", nullable = false)
+    private String passengerId;
+
+    @NotNull
+    @Column(name = "name", nullable = false)
+    private String name;
+
+    /**
+     * The full message, {@code null} for a templated entry.
+     */
+    @Column(name = "message")
+    private String message;
+
+    /**
+     * The id of the template the message is rendered from.
+     */
+    @Size(max = 50)
+    @Column(name = "template", length = 50)
+    private String template;
+
+    @Convert(converter = NotificationParamsConverter.class)
+    @Column(name = "params")
+    private Map<String, String> params = new LinkedHashMap<>();
+
+    /**
+     * The message rendered from the template, when read.
+     */
+    @Transient
+    private String rendered;
+
+    @NotNull
+    @Column(name = "created_at", nullable = false)
+    private Instant createdAt;
+
+    /**
+     * When the passenger read the entry, {@code null} while unread.
+     */
+    @Column(name = "read_at")
+    private Instant readAt;
+
+    // jhipster-needle-entity-add-field - JHipster will add fields here
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getPassengerId() {
+        return passengerId;
+    }
+
+    public InboxEntry passengerId(String passengerId) {
+        this.passengerId = passengerId;
+        return this;
+    }
+
+    public void setPassengerId(String passengerId) {
+        this.passengerId = passengerId;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public InboxEntry name(String name) {
+        this.name = name;
+        return this;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    /**
+     * @return the full message, or the one rendered from the template.
+     */
+    public String getMessage() {
+        return message != null ? message : rendered;
+    }
+
+    public InboxEntry message(String message) {
+        this.message = message;
+        return this;
+    }
+
+    public void setMessage(String message) {
+        this.message = message;
+    }
+
+    public String getTemplate() {
+        return template;
+    }
+
+    public InboxEntry template(String template) {
+        this.template = template;
+        return this;
+    }
+
+    public void setTemplate(String template) {
+        this.template = template;
+    }
+
+    public Map<String, String> getParams() {
+        return params;
+    }
+
+    public InboxEntry params(Map<String, String> params) {
+        this.params = params;
+        return this;
+    }
+
+    public void setParams(Map<String, String> params) {
+        this.params = params;
+    }
+
+    public InboxEntry rendered(String rendered) {
+        this.rendered = rendered;
+        return this;
+    }
+
+    public Instant getCreatedAt() {
+        return createdAt;
+    }
+
+    public InboxEntry createdAt(Instant createdAt) {
+        this.createdAt = createdAt;
+        return this;
+    }
+
+    public void setCreatedAt(Instant createdAt) {
+        this.createdAt = createdAt;
+    }
+
+    public Instant getReadAt() {
+        return readAt;
+    }
+
+    public InboxEntry readAt(Instant readAt) {
+        this.readAt = readAt;
+        return this;
+    }
+
+    public void setReadAt(Instant readAt) {
+        this.readAt = readAt;
+    }
+    // jhipster-needle-entity-add-getters-setters - JHipster will add getters and setters here
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof InboxEntry)) {
+            return false;
+        }
+        return id != null && id.equals(((InboxEntry) o).id);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31;
+    }
+
+    // prettier-ignore
+    @Override
+    public String toString() {
+        return "InboxEntry{" +
+            "id=" + getId() +
+            ", passengerId='" + getPassengerId() + "'" +
+            ", name='" + getName() + "'" +
+            ", message='" + getMessage() + "'" +
+            ", template='" + getTemplate() + "'" +
+            ", params='" + getParams() + "'" +
+            ", createdAt='" + getCreatedAt() + "'" +
+            ", readAt='" + getReadAt() + "'" +
+            "}";
+    }
+}
@@ -0,0 +1,46 @@
+package passengers.domain;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import javax.persistence.AttributeConverter;
+import javax.persistence.Converter;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Stores the parameters of a templated notification as one compact JSON object, e.g.
+ * {@code {"bookingNumber":"1001","flightNumber":"LH300"}}.
+ */
+@Converter
+public class NotificationParamsConverter implements AttributeConverter<Map<String, String>, String> {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    private static final TypeReference<LinkedHashMap<String, String>> PARAMS = new TypeReference<LinkedHashMap<String, String>>() {
+    };
+
+    @Override
+    public String convertToDatabaseColumn(Map<String, String> params) {
+        if (params == null || params.isEmpty()) {
+            return null;
+        }
+        try {
+            return MAPPER.writeValueAsString(params);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Could not store the notification parameters " + params, e);
+        }
+    }
+
+    @Override
+    public Map<String, String> convertToEntityAttribute(String column) {
+        if (column == null) {
+            return new LinkedHashMap<>();
+        }
+        try {
+            return MAPPER.readValue(column, PARAMS);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Could not read the notification parameters " + column, e);
+        }
+    }
+}
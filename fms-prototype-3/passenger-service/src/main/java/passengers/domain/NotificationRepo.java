@@ -2,16 +2,25 @@ package passengers.domain;
 
 import org.hibernate.annotations.Cache;
 import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
 
 import javax.persistence.*;
 import javax.validation.constraints.*;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
 import java.io.Serializable;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.Set;
 
 /**
  * A NotificationRepo.
+ * <p>
+ * A notification is stored as the id of its template and the parameters of it, rendered by
+ * {@link passengers.service.NotificationTemplates} when read. Ones stored before templates keep their full description.
  */
 @Entity
 @Table(name = "notification_repo")
@@ -21,17 +30,51 @@ public class NotificationRepo implements Serializable {
     private static final long serialVersionUID = 1L;
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "notificationRepoIdGenerator")
+    @GenericGenerator(
+        name = "notificationRepoIdGenerator",
+        strategy = "org.hibernate.id.enhanced.TableGenerator",
+        parameters = {
+            @Parameter(name = "table_name", value = "id_generator"),
+            @Parameter(name = "segment_value", value = "notification_repo"),
+            @Parameter(name = "increment_size", value = "50"),
+            @Parameter(name = "optimizer", value = "pooled-lo")
+        })
     private Long id;
 
     @NotNull
     @Column(name = "name", nullable = false)
     private String name;
 
-    @NotNull
-    @Column(name = "description", nullable = false)
+    /**
+     * The full description, {@code null} for a templated notification.
+     */
+    @Column(name = "description")
     private String description;
 
+    /**
+     * The id of the template the description is rendered from.
+     */
+    @Size(max = 50)
+    @Column(name = "template", length = 50)
+    private String template;
+
+    @Convert(converter = NotificationParamsConverter.class)
+    @Column(name = "params")
+    private Map<String, String> params = new LinkedHashMap<>();
+
+    /**
+     * The description rendered from the template, when read.
+     */
+    @Transient
+    private String rendered;
+
+    /**
+     * The key of the event the notification was consumed from, so it is stored once however often it is consumed.
+     */
+    @Column(name = "event_key", unique = true)
+    private String eventKey;
+
     @ManyToMany
     @Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
     @JoinTable(name = "notification_repo_passenger",
@@ -42,7 +85,7 @@ public class NotificationRepo implements Serializable {
     public NotificationRepo() {
     }
 
-    public NotificationRepo(@NotNull String name, @NotNull String description) {
+    public NotificationRepo(@NotNull String name, String description) {
         this.name = name;
         this.description = description;
     }
@@ -69,8 +112,11 @@ public class NotificationRepo implements Serializable {
         this.name = name;
     }
 
+    /**
+     * @return the full description, or the one rendered from the template.
+     */
     public String getDescription() {
-        return description;
+        return description != null ? description : rendered;
     }
 
     public NotificationRepo description(String description) {
@@ -82,6 +128,59 @@ public class NotificationRepo implements Serializable {
         this.description = description;
     }
 
+    public String getTemplate() {
+        return template;
+    }
+
+    public NotificationRepo template(String template) {
+        this.template = template;
+        return this;
+    }
+
+    public void setTemplate(String template) {
+        this.template = template;
+    }
+
+    public Map<String, String> getParams() {
+        return params;
+    }
+
+    public NotificationRepo params(Map<String, String> params) {
+        this.params = params;
+        return this;
+    }
+
+    public void setParams(Map<String, String> params) {
+        this.params = params;
+    }
+
+    public NotificationRepo rendered(String rendered) {
+        this.rendered = rendered;
+        return this;
+    }
+
+    /**
+     * @return whether the notification has either a description or a template to render it from.
+     */
+    @JsonIgnore
+    @AssertTrue(message = "a description or a template is required")
+    public boolean isDescribed() {
+        return description != null || template != null;
+    }
+
+    public String getEventKey() {
+        return eventKey;
+    }
+
+    public NotificationRepo eventKey(String eventKey) {
+        this.eventKey = eventKey;
+        return this;
+    }
+
+    public void setEventKey(String eventKey) {
+        this.eventKey = eventKey;
+    }
+
     public Set<Passenger> getPassengers() {
         return passengers;
     }
@@ -131,6 +230,9 @@ public class NotificationRepo implements Serializable {
             "id=" + getId() +
             ", name='" + getName() + "'" +
             ", description='" + getDescription() + "'" +
+            ", template='" + getTemplate() + "'" +
+            ", params='" + getParams() + "'" +
+            ", eventKey='" + getEventKey() + "'" +
             "}";
     }
 }
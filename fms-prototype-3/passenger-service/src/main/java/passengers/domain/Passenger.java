@@ -26,7 +26,7 @@ public class Passenger implements Serializable {
     private Long id;
 
     @NotNull
-    @Column(name = "username", nullable = false)
+    @Column(name = "username", nullable = false, unique = true)
     private String username;
 
     @NotNull
@@ -42,7 +42,7 @@ public class Passenger implements Serializable {
     private String surname;
 
     @NotNull
-    @Column(name = "email", nullable = false)
+    @Column(name = "email", nullable = false, unique = true)
     private String email;
 
     @ManyToMany(mappedBy = "passengers")
@@ -0,0 +1,32 @@
+package passengers.repository;
+
+import passengers.domain.InboxCounter;
+
+import org.springframework.data.jpa.repository.*;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import javax.persistence.LockModeType;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Spring Data  repository for the InboxCounter entity.
+ */
+@SuppressWarnings("unused")
+@Repository
+public interface InboxCounterRepository extends JpaRepository<InboxCounter, Long> {
+
+    Optional<InboxCounter> findOneByPassengerId(String passengerId);
+
+    /**
+     * Locks the counters of some passengers, so entries delivered together count once each.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    List<InboxCounter> findAllByPassengerIdIn(Collection<String> passengerIds);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select counter from InboxCounter counter where counter.passengerId = :passengerId")
+    Optional<InboxCounter> findOneByPassengerIdForUpdate(@Param("passengerId") String passengerId);
+}
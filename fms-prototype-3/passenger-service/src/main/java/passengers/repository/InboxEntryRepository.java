@@ -0,0 +1,49 @@
+package passengers.repository;
+
+import passengers.domain.InboxEntry;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.*;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Spring Data  repository for the InboxEntry entity.
+ * <p>
+ * Inboxes are read newest first, by keyset: each page starts after the last entry of the previous one, so every
+ * page is a range scan of {@code idx_inbox_entry_passenger_id_created_at}, however deep. Pushed inboxes resume the
+ * same way, oldest first, after the last entry their client received.
+ */
+@SuppressWarnings("unused")
+@Repository
+public interface InboxEntryRepository extends JpaRepository<InboxEntry, Long> {
+
+    @Query("select entry from InboxEntry entry where entry.passengerId = :passengerId " +
+        "order by entry.createdAt desc, entry.id desc")
+    List<InboxEntry> findFirstPage(@Param("passengerId") String passengerId, Pageable pageable);
+
+    @Query("select entry from InboxEntry entry where entry.passengerId = :passengerId " +
+        "and (entry.createdAt < :createdAt or (entry.createdAt = :createdAt and entry.id < :id)) " +
+        "order by entry.createdAt desc, entry.id desc")
+    List<InboxEntry> findPageAfter(@Param("passengerId") String passengerId, @Param("createdAt") Instant createdAt,
+                                   @Param("id") Long id, Pageable pageable);
+
+    @Query("select entry from InboxEntry entry where entry.passengerId = :passengerId " +
+        "and (entry.createdAt > :createdAt or (entry.createdAt = :createdAt and entry.id > :id)) " +
+        "order by entry.createdAt asc, entry.id asc")
+    List<InboxEntry> findPageSince(@Param("passengerId") String passengerId, @Param("createdAt") Instant createdAt,
+                                   @Param("id") Long id, Pageable pageable);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("update InboxEntry entry set entry.readAt = :readAt " +
+        "where entry.passengerId = :passengerId and entry.id in :ids and entry.readAt is null")
+    int markReadByIdIn(@Param("passengerId") String passengerId, @Param("ids") Collection<Long> ids, @Param("readAt") Instant readAt);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("update InboxEntry entry set entry.readAt = :readAt where entry.passengerId = :passengerId and entry.readAt is null")
+    int markAllRead(@Param("passengerId") String passengerId, @Param("readAt") Instant readAt);
+}
@@ -8,8 +8,10 @@ import org.springframework.data.jpa.repository.*;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 /**
  * Spring Data  repository for the NotificationRepo entity.
@@ -26,4 +28,7 @@ public interface NotificationRepoRepository extends JpaRepository<NotificationRe
 
     @Query("select notificationRepo from NotificationRepo notificationRepo left join fetch notificationRepo.passengers where notificationRepo.id =:id")
     Optional<NotificationRepo> findOneWithEagerRelationships(@Param("id") Long id);
+
+    @Query("select notificationRepo.eventKey from NotificationRepo notificationRepo where notificationRepo.eventKey in :eventKeys")
+    Set<String> findEventKeysIn(@Param("eventKeys") Collection<String> eventKeys);
 }
@@ -2,13 +2,31 @@ package passengers.repository;
 
 import passengers.domain.Passenger;
 
+import org.springframework.cache.annotation.Cacheable;
 import org.springframework.data.jpa.repository.*;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
 /**
  * Spring Data  repository for the Passenger entity.
  */
 @SuppressWarnings("unused")
 @Repository
 public interface PassengerRepository extends JpaRepository<Passenger, Long> {
+
+    /**
+     * Passengers by username, near cached on each instance, see {@link passengers.config.CacheConfiguration}.
+     * Writers of passengers evict their usernames once committed.
+     */
+    String PASSENGERS_BY_USERNAME_CACHE = "passengersByUsername";
+
+    List<Passenger> findAllByUsernameIn(Collection<String> usernames);
+
+    @Cacheable(cacheNames = PASSENGERS_BY_USERNAME_CACHE, unless = "#result == null")
+    Optional<Passenger> findOneByUsername(String username);
+
+    Optional<Passenger> findOneByEmail(String email);
 }
@@ -0,0 +1,383 @@
+package passengers.service;
+
+import com.hazelcast.core.HazelcastInstance;
+import com.hazelcast.core.ITopic;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import passengers.config.ApplicationProperties;
+import passengers.domain.InboxEntry;
+import passengers.repository.InboxEntryRepository;
+
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * Pushes new {@link InboxEntry inbox entries} to the passengers connected, as server-sent events.
+ * <p>
+ * Entries are stored by the instance consuming their notifications, while their passenger is connected to any
+ * instance: they are published on a Hazelcast topic once committed, and each instance sends them to the
+ * connections it holds, found by passenger. Each connection has a bounded buffer, drained by a small shared pool
+ * of sender threads; one that falls behind is closed rather than slowing the others down, and idle ones are sent a
+ * heartbeat.
+ * <p>
+ * Each entry is sent with its creation time and id as event id. A client reconnecting with the last one it
+ * received, as {@code Last-Event-ID}, is first sent the entries stored since, so none are missed across
+ * reconnections: the notifications of a passenger are consumed in order, on one instance at a time. The entries
+ * pushed while those are read are held until they are queued, and only the ones after them are sent. A client
+ * further behind than {@code replay-limit} is sent that many, then a {@value #TRUNCATED_EVENT} event, and the stream
+ * is closed, so that it reconnects from the last one and is sent the next ones.
+ * {@code inbox.push.connections} reports the connections of this instance, and {@code inbox.push.disconnected} the
+ * ones closed for falling behind.
+ */
+@Service
+public class InboxPushService {
+
+    private static final Logger logger = LoggerFactory.getLogger(InboxPushService.class);
+
+    public static final String INBOX_TOPIC = "inbox-entries";
+    public static final String ENTRY_EVENT = "inbox-entry";
+    public static final String TRUNCATED_EVENT = "inbox-truncated";
+
+    private static final Object HEARTBEAT = new Object();
+    private static final Object TRUNCATED = new Object();
+
+    private final ApplicationProperties.InboxPush properties;
+    private final InboxEntryRepository inboxEntryRepository;
+    private final NotificationTemplates notificationTemplates;
+    private final MeterRegistry meterRegistry;
+    private final ITopic<ArrayList<InboxEntry>> inboxTopic;
+    private final ConcurrentMap<String, Set<Connection>> connections = new ConcurrentHashMap<>();
+    private final AtomicInteger connected = new AtomicInteger();
+    private final ExecutorService senders;
+    private final ScheduledExecutorService heartbeats;
+    private final Supplier<SseEmitter> emitters;
+
+    @Autowired
+    public InboxPushService(ApplicationProperties applicationProperties, InboxEntryRepository inboxEntryRepository,
+                            NotificationTemplates notificationTemplates, MeterRegistry meterRegistry,
+                            HazelcastInstance hazelcastInstance) {
+        this(applicationProperties.getInboxPush(), inboxEntryRepository, notificationTemplates, meterRegistry,
+            hazelcastInstance.getTopic(INBOX_TOPIC), senders(applicationProperties.getInboxPush().getSenderThreads()),
+            () -> new SseEmitter(applicationProperties.getInboxPush().getStreamTimeout().toMillis()));
+    }
+
+    InboxPushService(ApplicationProperties.InboxPush properties, InboxEntryRepository inboxEntryRepository,
+                     NotificationTemplates notificationTemplates, MeterRegistry meterRegistry,
+                     ITopic<ArrayList<InboxEntry>> inboxTopic, ExecutorService senders, Supplier<SseEmitter> emitters) {
+        this.properties = properties;
+        this.emitters = emitters;
+        this.inboxEntryRepository = inboxEntryRepository;
+        this.notificationTemplates = notificationTemplates;
+        this.meterRegistry = meterRegistry;
+        this.inboxTopic = inboxTopic;
+        this.senders = senders;
+        this.heartbeats = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "inbox-push-heartbeat");
+            thread.setDaemon(true);
+            return thread;
+        });
+        heartbeats.scheduleWithFixedDelay(this::heartbeat, properties.getHeartbeatMillis(), properties.getHeartbeatMillis(),
+            TimeUnit.MILLISECONDS);
+        inboxTopic.addMessageListener(message -> push(message.getMessageObject()));
+        Gauge.builder("inbox.push.connections", connected, AtomicInteger::get).register(meterRegistry);
+    }
+
+    private static ExecutorService senders(int senderThreads) {
+        AtomicInteger count = new AtomicInteger();
+        return Executors.newFixedThreadPool(senderThreads, runnable -> {
+            Thread thread = new Thread(runnable, "inbox-push-sender-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Connects a passenger to their inbox.
+     *
+     * @param passengerId the username of the passenger.
+     * @param lastEventId the id of the last event the passenger received, to resume from, or {@code null}.
+     * @return the stream of the new entries of the inbox.
+     */
+    public SseEmitter connect(String passengerId, String lastEventId) {
+        Connection connection = new Connection(passengerId, emitters.get(), properties.getBufferCapacity());
+        connection.emitter.onCompletion(() -> remove(connection));
+        connection.emitter.onTimeout(() -> remove(connection));
+        connection.emitter.onError(e -> remove(connection));
+        resumeFrom(connection, lastEventId);
+        connections.computeIfAbsent(passengerId, key -> new CopyOnWriteArraySet<>()).add(connection);
+        connected.incrementAndGet();
+
+        // connected before reading the entries to resume from, so none stored meanwhile is missed: the ones pushed
+        // meanwhile are held, and sent after them unless they were read too
+        List<InboxEntry> replayed = since(connection);
+        boolean truncated = replayed.size() > properties.getReplayLimit();
+        if (truncated) {
+            replayed = replayed.subList(0, properties.getReplayLimit());
+        }
+        notificationTemplates.renderEntries(replayed);
+        synchronized (connection) {
+            boolean open = true;
+            for (InboxEntry entry : replayed) {
+                if (!(open = offer(connection, entry))) {
+                    break;
+                }
+            }
+            if (open && truncated) {
+                connection.truncated = true;
+                logger.debug("Resuming the inbox of {} with the first {} entries only", passengerId, replayed.size());
+                offer(connection, TRUNCATED);
+            } else if (open) {
+                for (InboxEntry entry : connection.held) {
+                    if (isAfterLast(connection, entry) && !offer(connection, entry)) {
+                        break;
+                    }
+                }
+            }
+            connection.held.clear();
+            connection.replaying = false;
+        }
+        schedule(connection);
+        return connection.emitter;
+    }
+
+    private void resumeFrom(Connection connection, String lastEventId) {
+        if (lastEventId == null) {
+            return;
+        }
+        int separator = lastEventId.lastIndexOf('/');
+        try {
+            Instant createdAt = Instant.parse(lastEventId.substring(0, Math.max(separator, 0)));
+            connection.lastId = Long.valueOf(lastEventId.substring(separator + 1));
+            connection.lastCreatedAt = createdAt;
+        } catch (DateTimeParseException | NumberFormatException e) {
+            logger.debug("Not resuming the inbox of {} from unknown event {}", connection.passengerId, lastEventId);
+        }
+    }
+
+    /**
+     * @return the entries after the last one the connection received, one more than the replay limit at most.
+     */
+    private List<InboxEntry> since(Connection connection) {
+        if (connection.lastCreatedAt == null) {
+            return Collections.emptyList();
+        }
+        return inboxEntryRepository.findPageSince(connection.passengerId, connection.lastCreatedAt, connection.lastId,
+            PageRequest.of(0, properties.getReplayLimit() + 1));
+    }
+
+    private static boolean isAfterLast(Connection connection, InboxEntry entry) {
+        if (connection.lastCreatedAt == null) {
+            return true;
+        }
+        int order = entry.getCreatedAt().compareTo(connection.lastCreatedAt);
+        return order > 0 || (order == 0 && entry.getId() > connection.lastId);
+    }
+
+    /**
+     * Publishes inbox entries to their connected passengers, once the current transaction, if any, commits.
+     *
+     * @param entries the entries stored.
+     */
+    public void publish(List<InboxEntry> entries) {
+        if (entries.isEmpty()) {
+            return;
+        }
+        ArrayList<InboxEntry> published = new ArrayList<>(entries);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    inboxTopic.publish(published);
+                }
+            });
+        } else {
+            inboxTopic.publish(published);
+        }
+    }
+
+    /**
+     * @return the number of passenger connections of this instance.
+     */
+    public int getConnections() {
+        return connected.get();
+    }
+
+    /**
+     * Sends inbox entries to the connections of their passengers on this instance.
+     */
+    void push(List<InboxEntry> entries) {
+        Map<String, List<InboxEntry>> byPassenger = entries.stream()
+            .filter(entry -> connections.containsKey(entry.getPassengerId()))
+            .collect(Collectors.groupingBy(InboxEntry::getPassengerId));
+        byPassenger.forEach((passengerId, passengerEntries) -> {
+            notificationTemplates.renderEntries(passengerEntries);
+            for (Connection connection : connections.getOrDefault(passengerId, Collections.emptySet())) {
+                boolean open = true;
+                synchronized (connection) {
+                    if (connection.replaying) {
+                        connection.held.addAll(passengerEntries);
+                        continue;
+                    }
+                    if (connection.truncated) {
+                        // closing, to resume from the last entry it was sent
+                        continue;
+                    }
+                    for (InboxEntry entry : passengerEntries) {
+                        if (isAfterLast(connection, entry) && !(open = offer(connection, entry))) {
+                            break;
+                        }
+                    }
+                }
+                if (open) {
+                    schedule(connection);
+                }
+            }
+        });
+    }
+
+    private void heartbeat() {
+        for (Set<Connection> passengerConnections : connections.values()) {
+            for (Connection connection : passengerConnections) {
+                // a connection with entries waiting is kept alive by them
+                if (connection.buffer.isEmpty() && connection.buffer.offer(HEARTBEAT)) {
+                    schedule(connection);
+                }
+            }
+        }
+    }
+
+    /**
+     * @return {@code false} if the connection was closed, having fallen behind.
+     */
+    private boolean offer(Connection connection, Object item) {
+        if (connection.buffer.offer(item)) {
+            if (item instanceof InboxEntry) {
+                connection.lastCreatedAt = ((InboxEntry) item).getCreatedAt();
+                connection.lastId = ((InboxEntry) item).getId();
+            }
+            return true;
+        }
+        remove(connection);
+        connection.emitter.complete();
+        meterRegistry.counter("inbox.push.disconnected").increment();
+        logger.debug("Disconnected a slow inbox connection of {}", connection.passengerId);
+        return false;
+    }
+
+    private void schedule(Connection connection) {
+        if (!connection.closed.get() && connection.scheduled.compareAndSet(false, true)) {
+            senders.execute(() -> drain(connection));
+        }
+    }
+
+    private void drain(Connection connection) {
+        try {
+            Object item;
+            while (!connection.closed.get() && (item = connection.buffer.poll()) != null) {
+                if (item == HEARTBEAT) {
+                    connection.emitter.send(SseEmitter.event().comment(""));
+                } else if (item == TRUNCATED) {
+                    connection.emitter.send(SseEmitter.event().name(TRUNCATED_EVENT).data(""));
+                    remove(connection);
+                    connection.emitter.complete();
+                } else {
+                    InboxEntry entry = (InboxEntry) item;
+                    connection.emitter.send(SseEmitter.event().name(ENTRY_EVENT).id(eventId(entry)).data(entry));
+                }
+            }
+        } catch (IOException | IllegalStateException e) {
+            // the client is gone, or its stream already completed
+            logger.trace("Complete with error {}", e.getMessage(), e);
+            remove(connection);
+            connection.emitter.completeWithError(e);
+        } finally {
+            connection.scheduled.set(false);
+        }
+        if (!connection.buffer.isEmpty()) {
+            schedule(connection);
+        }
+    }
+
+    /**
+     * @param entry an inbox entry.
+     * @return the id of the event of the entry, which a connection resumes from.
+     */
+    public static String eventId(InboxEntry entry) {
+        return entry.getCreatedAt() + "/" + entry.getId();
+    }
+
+    private void remove(Connection connection) {
+        if (!connection.closed.compareAndSet(false, true)) {
+            return;
+        }
+        connected.decrementAndGet();
+        connections.computeIfPresent(connection.passengerId, (key, passengerConnections) -> {
+            passengerConnections.remove(connection);
+            return passengerConnections.isEmpty() ? null : passengerConnections;
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        heartbeats.shutdownNow();
+        for (Set<Connection> passengerConnections : connections.values()) {
+            for (Connection connection : passengerConnections) {
+                remove(connection);
+                connection.emitter.complete();
+            }
+        }
+        senders.shutdownNow();
+    }
+
+    /**
+     * A passenger connected, with the entries waiting to be sent to them, and the last one queued. The fields that
+     * are not final are guarded by the connection.
+     */
+    private static final class Connection {
+
+        private final String passengerId;
+        private final SseEmitter emitter;
+        private final BlockingQueue<Object> buffer;
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+        private final AtomicBoolean closed = new AtomicBoolean();
+        private final List<InboxEntry> held = new ArrayList<>();
+        private boolean replaying = true;
+        private boolean truncated;
+        private Instant lastCreatedAt;
+        private Long lastId;
+
+        private Connection(String passengerId, SseEmitter emitter, int bufferCapacity) {
+            this.passengerId = passengerId;
+            this.emitter = emitter;
+            this.buffer = new ArrayBlockingQueue<>(bufferCapacity);
+        }
+    }
+}
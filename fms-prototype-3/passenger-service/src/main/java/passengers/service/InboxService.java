@@ -0,0 +1,139 @@
+package passengers.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import passengers.domain.InboxCounter;
+import passengers.domain.InboxEntry;
+import passengers.repository.InboxCounterRepository;
+import passengers.repository.InboxEntryRepository;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Keeps the inbox of each passenger: one {@link InboxEntry} per notification delivered to them, read newest first
+ * a page at a time, and an {@link InboxCounter} of the entries still unread.
+ * <p>
+ * Counters change with the entries, in the same transaction, so the unread count of a passenger is read from one
+ * row however large their inbox grows. New entries are pushed to their passengers once committed, see
+ * {@link InboxPushService}.
+ */
+@Service
+@Transactional
+public class InboxService {
+
+    private final Logger log = LoggerFactory.getLogger(InboxService.class);
+
+    private final InboxEntryRepository inboxEntryRepository;
+    private final InboxCounterRepository inboxCounterRepository;
+    private final InboxPushService inboxPushService;
+    private final NotificationTemplates notificationTemplates;
+
+    public InboxService(InboxEntryRepository inboxEntryRepository, InboxCounterRepository inboxCounterRepository,
+                        InboxPushService inboxPushService, NotificationTemplates notificationTemplates) {
+        this.inboxEntryRepository = inboxEntryRepository;
+        this.inboxCounterRepository = inboxCounterRepository;
+        this.inboxPushService = inboxPushService;
+        this.notificationTemplates = notificationTemplates;
+    }
+
+    /**
+     * Adds unread entries to the inboxes of their passengers, counts them, and pushes them once committed.
+     *
+     * @param entries the entries to deliver.
+     * @return the entries saved.
+     */
+    public List<InboxEntry> deliver(List<InboxEntry> entries) {
+        if (entries.isEmpty()) {
+            return Collections.emptyList();
+        }
+        log.debug("Request to deliver {} InboxEntries", entries.size());
+        List<InboxEntry> delivered = inboxEntryRepository.saveAll(entries);
+
+        Map<String, Long> unread = delivered.stream()
+            .filter(entry -> entry.getReadAt() == null)
+            .collect(Collectors.groupingBy(InboxEntry::getPassengerId, Collectors.counting()));
+        Map<String, InboxCounter> counters = inboxCounterRepository.findAllByPassengerIdIn(unread.keySet()).stream()
+            .collect(Collectors.toMap(InboxCounter::getPassengerId, Function.identity()));
+        unread.forEach((passengerId, count) -> {
+            InboxCounter counter = counters.computeIfAbsent(passengerId, id -> new InboxCounter().passengerId(id));
+            counter.setUnread(counter.getUnread() + count);
+        });
+        inboxCounterRepository.saveAll(counters.values());
+        inboxPushService.publish(delivered);
+        return delivered;
+    }
+
+    /**
+     * Gets a page of the inbox of a passenger, newest first, with their messages rendered.
+     *
+     * @param passengerId the username of the passenger.
+     * @param beforeCreatedAt the creation time of the last entry of the previous page, {@code null} for the first page.
+     * @param beforeId the id of the last entry of the previous page, {@code null} for the first page.
+     * @param size the number of entries of the page.
+     * @return the entries of the page.
+     */
+    @Transactional(readOnly = true)
+    public List<InboxEntry> page(String passengerId, Instant beforeCreatedAt, Long beforeId, int size) {
+        log.debug("Request to get {} InboxEntries of {} before {}/{}", size, passengerId, beforeCreatedAt, beforeId);
+        PageRequest limit = PageRequest.of(0, size);
+        if (beforeCreatedAt == null || beforeId == null) {
+            return notificationTemplates.renderEntries(inboxEntryRepository.findFirstPage(passengerId, limit));
+        }
+        return notificationTemplates.renderEntries(inboxEntryRepository.findPageAfter(passengerId, beforeCreatedAt, beforeId, limit));
+    }
+
+    /**
+     * Gets the number of unread entries in the inbox of a passenger.
+     *
+     * @param passengerId the username of the passenger.
+     * @return the number of unread entries.
+     */
+    @Transactional(readOnly = true)
+    public long unread(String passengerId) {
+        return inboxCounterRepository.findOneByPassengerId(passengerId).map(InboxCounter::getUnread).orElse(0L);
+    }
+
+    /**
+     * Marks entries of the inbox of a passenger as read. Entries of other passengers, or already read, are left as
+     * they are.
+     *
+     * @param passengerId the username of the passenger.
+     * @param ids the ids of the entries.
+     * @return the number of entries marked.
+     */
+    public int markRead(String passengerId, Collection<Long> ids) {
+        if (ids.isEmpty()) {
+            return 0;
+        }
+        log.debug("Request to mark {} InboxEntries of {} as read", ids.size(), passengerId);
+        return decrement(passengerId, inboxEntryRepository.markReadByIdIn(passengerId, ids, Instant.now()));
+    }
+
+    /**
+     * Marks all the entries of the inbox of a passenger as read.
+     *
+     * @param passengerId the username of the passenger.
+     * @return the number of entries marked.
+     */
+    public int markAllRead(String passengerId) {
+        log.debug("Request to mark all InboxEntries of {} as read", passengerId);
+        return decrement(passengerId, inboxEntryRepository.markAllRead(passengerId, Instant.now()));
+    }
+
+    private int decrement(String passengerId, int read) {
+        if (read > 0) {
+            inboxCounterRepository.findOneByPassengerIdForUpdate(passengerId)
+                .ifPresent(counter -> counter.setUnread(Math.max(0, counter.getUnread() - read)));
+        }
+        return read;
+    }
+}
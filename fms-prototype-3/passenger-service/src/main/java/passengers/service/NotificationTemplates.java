@@ -0,0 +1,126 @@
+package passengers.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.MessageSource;
+import org.springframework.stereotype.Service;
+import passengers.domain.InboxEntry;
+import passengers.domain.NotificationRepo;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Renders the notifications stored as a template and its parameters, when they are read.
+ * <p>
+ * Templates are the {@code notification.template.<id>} messages, with their parameters named between braces, e.g.
+ * {@code {flightNumber}}. Each is compiled once, into its literal parts and parameters, and kept for every render
+ * after that.
+ */
+@Service
+public class NotificationTemplates {
+
+    private static final Logger log = LoggerFactory.getLogger(NotificationTemplates.class);
+
+    private static final String TEMPLATE_KEY = "notification.template.";
+
+    private final MessageSource messageSource;
+    private final ConcurrentMap<String, CompiledTemplate> compiled = new ConcurrentHashMap<>();
+
+    public NotificationTemplates(MessageSource messageSource) {
+        this.messageSource = messageSource;
+    }
+
+    /**
+     * Renders a template.
+     *
+     * @param template the id of the template, or {@code null}.
+     * @param params the parameters of the template.
+     * @return the rendered text, or {@code null} for no template.
+     */
+    public String render(String template, Map<String, String> params) {
+        if (template == null) {
+            return null;
+        }
+        return compiled.computeIfAbsent(template, this::compile)
+            .render(params == null ? Collections.emptyMap() : params);
+    }
+
+    /**
+     * Renders the messages of templated inbox entries.
+     *
+     * @param entries the entries.
+     * @return the entries.
+     */
+    public <T extends Collection<InboxEntry>> T renderEntries(T entries) {
+        entries.forEach(entry -> entry.rendered(render(entry.getTemplate(), entry.getParams())));
+        return entries;
+    }
+
+    /**
+     * Renders the descriptions of templated notifications.
+     *
+     * @param notifications the notifications.
+     * @return the notifications.
+     */
+    public <T extends Collection<NotificationRepo>> T renderNotifications(T notifications) {
+        notifications.forEach(notification -> notification.rendered(render(notification.getTemplate(), notification.getParams())));
+        return notifications;
+    }
+
+    private CompiledTemplate compile(String template) {
+        String text = messageSource.getMessage(TEMPLATE_KEY + template, null, null, Locale.ENGLISH);
+        if (text == null) {
+            log.warn("No notification template {}, rendering its parameters only", template);
+            return new CompiledTemplate(Collections.singletonList(template + ": "), Collections.singletonList(null));
+        }
+        List<String> literals = new ArrayList<>();
+        List<String> names = new ArrayList<>();
+        int from = 0;
+        int open;
+        while ((open = text.indexOf('{', from)) >= 0) {
+            int close = text.indexOf('}', open);
+            if (close < 0) {
+                break;
+            }
+            literals.add(text.substring(from, open));
+            names.add(text.substring(open + 1, close));
+            from = close + 1;
+        }
+        literals.add(text.substring(from));
+        return new CompiledTemplate(literals, names);
+    }
+
+    /**
+     * A template split into the literal parts around its parameters: a {@code null} parameter name stands for all
+     * the parameters.
+     */
+    private static final class CompiledTemplate {
+
+        private final String[] literals;
+        private final String[] names;
+
+        private CompiledTemplate(List<String> literals, List<String> names) {
+            this.literals = literals.toArray(new String[0]);
+            this.names = names.toArray(new String[0]);
+        }
+
+        private String render(Map<String, String> params) {
+            StringBuilder text = new StringBuilder(128);
+            for (int i = 0; i < names.length; i++) {
+                text.append(literals[i]);
+                text.append(names[i] == null ? params : params.getOrDefault(names[i], ""));
+            }
+            if (literals.length > names.length) {
+                text.append(literals[names.length]);
+            }
+            return text.toString();
+        }
+    }
+}
@@ -1,77 +1,243 @@
 package passengers.service;
 
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import fms.common.config.KafkaProperties;
+import org.apache.kafka.clients.consumer.Consumer;
 import org.apache.kafka.clients.consumer.ConsumerRecord;
 import org.apache.kafka.clients.consumer.ConsumerRecords;
 import org.apache.kafka.clients.consumer.KafkaConsumer;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.errors.WakeupException;
+import org.hibernate.Session;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.cloud.cloudfoundry.com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
-import passengers.config.KafkaProperties;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import passengers.domain.InboxEntry;
 import passengers.domain.NotificationRepo;
+import passengers.domain.Passenger;
 import passengers.repository.NotificationRepoRepository;
+import passengers.repository.PassengerRepository;
 import passengers.service.dto.NotificationDTO;
 
 import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.persistence.EntityManager;
+import java.io.IOException;
 import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
 import java.util.Collections;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 import java.util.concurrent.atomic.AtomicBoolean;
 
+/**
+ * Stores the notifications published on {@code notification_set} for the passengers to view.
+ * <p>
+ * The notifications of a poll are stored together: their passengers are looked up by username in one
+ * query, and the notifications saved in one transaction, as JDBC batches, each attached to the passenger
+ * it is for and delivered to their {@link InboxService inbox}. Offsets are committed once their poll is
+ * stored; a poll that fails is sought back to and stored again. Each notification keeps the key of the
+ * event it was consumed from, so one consumed again, after a failed commit or a rebalance, is skipped.
+ * <p>
+ * Templated notifications are stored as their template and parameters only, rendered by
+ * {@link NotificationTemplates} when read.
+ */
 @Service
 public class PassengerKafkaConsumer {
 
     private static final Logger logger = LoggerFactory.getLogger(PassengerKafkaConsumer.class);
     private static final String TOPIC_NOTIFICATION_SET = "notification_set";
+    private static final ObjectReader NOTIFICATION_READER = new ObjectMapper()
+        .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES)
+        .readerFor(NotificationDTO.class);
 
     private final AtomicBoolean closed = new AtomicBoolean(false);
-    private final KafkaProperties kafkaProperties;
+    private final Consumer<String, String> consumer;
     private final NotificationRepoRepository notificationRepoRepository;
+    private final PassengerRepository passengerRepository;
+    private final InboxService inboxService;
+    private final EntityManager entityManager;
+    private final TransactionTemplate transactionTemplate;
+    private Thread poller;
 
-    private KafkaConsumer<String, String> consumer;
-    private ExecutorService executorService = Executors.newCachedThreadPool();
+    @Autowired
+    public PassengerKafkaConsumer(KafkaProperties kafkaProperties, NotificationRepoRepository notificationRepoRepository,
+                                  PassengerRepository passengerRepository, InboxService inboxService,
+                                  EntityManager entityManager, PlatformTransactionManager transactionManager) {
+        this(new KafkaConsumer<>(consumerProps(kafkaProperties)), notificationRepoRepository, passengerRepository,
+            inboxService, entityManager, new TransactionTemplate(transactionManager));
+    }
 
-    public PassengerKafkaConsumer(KafkaProperties kafkaProperties, NotificationRepoRepository notificationRepoRepository) {
-        this.kafkaProperties = kafkaProperties;
+    PassengerKafkaConsumer(Consumer<String, String> consumer, NotificationRepoRepository notificationRepoRepository,
+                           PassengerRepository passengerRepository, InboxService inboxService,
+                           EntityManager entityManager, TransactionTemplate transactionTemplate) {
+        this.consumer = consumer;
         this.notificationRepoRepository = notificationRepoRepository;
+        this.passengerRepository = passengerRepository;
+        this.inboxService = inboxService;
+        this.entityManager = entityManager;
+        this.transactionTemplate = transactionTemplate;
+    }
+
+    private static Map<String, Object> consumerProps(KafkaProperties kafkaProperties) {
+        Map<String, Object> consumerProps = kafkaProperties.getConsumerProps();
+        // offsets are committed once their poll is stored
+        consumerProps.put("enable.auto.commit", "false");
+        return consumerProps;
     }
 
     @PostConstruct
     public void start() {
-        this.consumer = new KafkaConsumer<>(kafkaProperties.getConsumerProps());
-        Runtime.getRuntime().addShutdownHook(new Thread(this::shutdown));
         consumer.subscribe(Collections.singletonList(TOPIC_NOTIFICATION_SET));
+        poller = new Thread(this::run, "passenger-notification-consumer");
+        poller.setDaemon(true);
+        poller.start();
         logger.debug("Passenger kafka consumer started.");
+    }
+
+    private void run() {
+        try {
+            while (!closed.get()) {
+                try {
+                    poll();
+                } catch (WakeupException e) {
+                    // shutting down
+                } catch (RuntimeException e) {
+                    logger.error("Could not poll {}: {}", TOPIC_NOTIFICATION_SET, e.getMessage(), e);
+                }
+            }
+        } finally {
+            logger.debug("Kafka consumer close");
+            consumer.close();
+        }
+    }
 
-        executorService.execute(() -> {
+    /**
+     * Stores the notifications of a poll and commits them.
+     */
+    void poll() {
+        ConsumerRecords<String, String> records = consumer.poll(Duration.ofSeconds(3));
+        if (records.isEmpty()) {
+            return;
+        }
+        List<NotificationDTO> notifications = new ArrayList<>(records.count());
+        for (ConsumerRecord<String, String> record : records) {
+            logger.debug("Consumed message in {} : {}", TOPIC_NOTIFICATION_SET, record.value());
             try {
-                while (!closed.get()) {
-                    ConsumerRecords<String, String> records = consumer.poll(Duration.ofSeconds(3));
-                    for (ConsumerRecord<String, String> record : records) {
-                        logger.debug("Consumed message in {} : {}", TOPIC_NOTIFICATION_SET, record.value());
-
-                        ObjectMapper objectMapper = new ObjectMapper();
-                        NotificationDTO notificationDTO = objectMapper.readValue(record.value(), NotificationDTO.class);
-                        // save notification in database for passengers to view
-                        NotificationRepo notification = new NotificationRepo(notificationDTO.getName(), notificationDTO.getMessage());
-                        notificationRepoRepository.save(notification);
+                NotificationDTO notificationDTO = NOTIFICATION_READER.readValue(record.value());
+                notificationDTO.setEventKey(eventKey(record));
+                notifications.add(notificationDTO);
+            } catch (IOException e) {
+                logger.warn("Skipped an unreadable {} event at {}: {}", TOPIC_NOTIFICATION_SET, eventKey(record), e.getMessage());
+            }
+        }
+        try {
+            store(notifications);
+            consumer.commitSync();
+        } catch (WakeupException e) {
+            throw e;
+        } catch (RuntimeException e) {
+            logger.error("Could not store {} notifications, retrying: {}", notifications.size(), e.getMessage(), e);
+            for (TopicPartition partition : records.partitions()) {
+                consumer.seek(partition, records.records(partition).get(0).offset());
+            }
+        }
+    }
+
+    /**
+     * The events of {@code notification_set} are keyed by passenger, so an event is told apart by where it
+     * was read from instead.
+     */
+    private static String eventKey(ConsumerRecord<String, String> record) {
+        return record.topic() + "-" + record.partition() + "-" + record.offset();
+    }
+
+    /**
+     * Saves notifications, in one transaction, each attached to the passenger it is for and delivered to
+     * their inbox. A notification for no passenger in particular is saved unattached, in no inbox, one
+     * for an unknown passenger is skipped, and so is one whose event key was already stored.
+     *
+     * @param notifications the notifications consumed.
+     * @return the notifications saved.
+     */
+    public List<NotificationRepo> store(List<NotificationDTO> notifications) {
+        if (notifications.isEmpty()) {
+            return Collections.emptyList();
+        }
+        return transactionTemplate.execute(status -> {
+            // one batch per table for the whole poll, rather than hibernate.jdbc.batch_size
+            entityManager.unwrap(Session.class).setJdbcBatchSize(notifications.size());
+
+            Set<String> eventKeys = notifications.stream()
+                .map(NotificationDTO::getEventKey)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet());
+            Set<String> stored = eventKeys.isEmpty() ? new HashSet<>()
+                : new HashSet<>(notificationRepoRepository.findEventKeysIn(eventKeys));
+            Set<String> usernames = notifications.stream()
+                .map(NotificationDTO::getPassengerId)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet());
+            Map<String, Passenger> passengers = usernames.isEmpty() ? Collections.emptyMap()
+                : passengerRepository.findAllByUsernameIn(usernames).stream()
+                    .collect(Collectors.toMap(Passenger::getUsername, Function.identity(), (first, second) -> first));
+
+            List<NotificationRepo> saved = new ArrayList<>(notifications.size());
+            List<InboxEntry> entries = new ArrayList<>(notifications.size());
+            Instant now = Instant.now();
+            for (NotificationDTO notificationDTO : notifications) {
+                if (notificationDTO.getEventKey() != null && !stored.add(notificationDTO.getEventKey())) {
+                    logger.debug("Skipped the {} notification of event {}, already stored", notificationDTO.getName(), notificationDTO.getEventKey());
+                    continue;
+                }
+                String message = notificationDTO.getTemplate() == null ? notificationDTO.getMessage() : null;
+                Map<String, String> params = params(notificationDTO);
+                NotificationRepo notification = new NotificationRepo(notificationDTO.getName(), message)
+                    .template(notificationDTO.getTemplate()).params(params).eventKey(notificationDTO.getEventKey());
+                if (notificationDTO.getPassengerId() != null) {
+                    Passenger passenger = passengers.get(notificationDTO.getPassengerId());
+                    if (passenger == null) {
+                        logger.warn("Skipped a {} notification for unknown passenger {}", notificationDTO.getName(), notificationDTO.getPassengerId());
+                        continue;
                     }
+                    notification.getPassengers().add(passenger);
+                    entries.add(new InboxEntry().passengerId(passenger.getUsername()).name(notificationDTO.getName())
+                        .message(message).template(notificationDTO.getTemplate()).params(new LinkedHashMap<>(params)).createdAt(now));
                 }
-                consumer.commitSync();
-            } catch (Exception e) {
-                logger.error(e.getMessage(), e);
-            } finally {
-                logger.debug("Kafka consumer close");
-                consumer.close();
+                saved.add(notification);
             }
+            inboxService.deliver(entries);
+            return notificationRepoRepository.saveAll(saved);
         });
     }
 
+    private static Map<String, String> params(NotificationDTO notificationDTO) {
+        return notificationDTO.getParams() == null ? new LinkedHashMap<>() : new LinkedHashMap<>(notificationDTO.getParams());
+    }
 
+    @PreDestroy
     public void shutdown() {
         logger.debug("Shutdown Kafka consumer");
         closed.set(true);
         consumer.wakeup();
+        if (poller != null) {
+            try {
+                poller.join(10000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
     }
 }
@@ -1,9 +1,18 @@
 package passengers.service.dto;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+import java.util.Map;
+
 public class NotificationDTO {
 
     private String name;
     private String message;
+    private String template;
+    private Map<String, String> params;
+    private String passengerId;
+    @JsonIgnore
+    private String eventKey;
 
     public String getName() {
         return name;
@@ -20,4 +29,45 @@ public class NotificationDTO {
     public void setMessage(String message) {
         this.message = message;
     }
+
+    /**
+     * @return the id of the template of the message, {@code null} for a notification sent with its full message.
+     */
+    public String getTemplate() {
+        return template;
+    }
+
+    public void setTemplate(String template) {
+        this.template = template;
+    }
+
+    public Map<String, String> getParams() {
+        return params;
+    }
+
+    public void setParams(Map<String, String> params) {
+        this.params = params;
+    }
+
+    /**
+     * @return the username of the passenger the notification is for, or {@code null} if it is for everyone.
+     */
+    public String getPassengerId() {
+        return passengerId;
+    }
+
+    public void setPassengerId(String passengerId) {
+        this.passengerId = passengerId;
+    }
+
+    /**
+     * @return the key of the event the notification was consumed from, not part of the event itself.
+     */
+    public String getEventKey() {
+        return eventKey;
+    }
+
+    public void setEventKey(String eventKey) {
+        this.eventKey = eventKey;
+    }
 }
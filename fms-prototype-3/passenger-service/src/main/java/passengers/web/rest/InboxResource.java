@@ -0,0 +1,124 @@
+package passengers.web.rest;
+
+import passengers.domain.InboxEntry;
+import passengers.security.SecurityUtils;
+import passengers.service.InboxPushService;
+import passengers.service.InboxService;
+import passengers.web.rest.errors.BadRequestAlertException;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
+
+import java.time.Instant;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * REST controller for the inbox of the connected passenger, see {@link InboxService}, pushed by {@link InboxPushService}.
+ */
+@RestController
+@RequestMapping("/api")
+public class InboxResource {
+
+    private static final int MAX_PAGE_SIZE = 100;
+
+    private final Logger log = LoggerFactory.getLogger(InboxResource.class);
+
+    private final InboxService inboxService;
+
+    private final InboxPushService inboxPushService;
+
+    public InboxResource(InboxService inboxService, InboxPushService inboxPushService) {
+        this.inboxService = inboxService;
+        this.inboxPushService = inboxPushService;
+    }
+
+    /**
+     * {@code GET  /inbox} : get a page of the inbox of the connected user, newest first.
+     * <p>
+     * A full page links the next one in its {@code Link} header, with the creation time and id of its last entry.
+     *
+     * @param size the number of entries of the page, at most {@value #MAX_PAGE_SIZE}.
+     * @param beforeCreatedAt the creation time of the last entry of the previous page.
+     * @param beforeId the id of the last entry of the previous page.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the entries of the page in body.
+     */
+    @GetMapping("/inbox")
+    public ResponseEntity<List<InboxEntry>> getInbox(@RequestParam(defaultValue = "20") int size,
+                                                     @RequestParam(required = false) Instant beforeCreatedAt,
+                                                     @RequestParam(required = false) Long beforeId) {
+        log.debug("REST request to get a page of the inbox before {}/{}", beforeCreatedAt, beforeId);
+        int pageSize = Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+        List<InboxEntry> page = SecurityUtils.getCurrentUserLogin()
+            .map(login -> inboxService.page(login, beforeCreatedAt, beforeId, pageSize))
+            .orElseGet(Collections::emptyList);
+        HttpHeaders headers = new HttpHeaders();
+        if (page.size() == pageSize) {
+            InboxEntry last = page.get(page.size() - 1);
+            String next = ServletUriComponentsBuilder.fromCurrentRequest()
+                .replaceQueryParam("size", pageSize)
+                .replaceQueryParam("beforeCreatedAt", last.getCreatedAt())
+                .replaceQueryParam("beforeId", last.getId())
+                .toUriString();
+            headers.add(HttpHeaders.LINK, "<" + next + ">; rel=\"next\"");
+        }
+        return ResponseEntity.ok().headers(headers).body(page);
+    }
+
+    /**
+     * {@code GET  /inbox/stream} : stream the new entries of the inbox of the connected user, as server-sent events.
+     * <p>
+     * A client reconnecting with the {@code Last-Event-ID} it last received is first sent the entries stored since.
+     * When there are more than the replay limit, the stream ends on an {@value InboxPushService#TRUNCATED_EVENT} event
+     * after the first ones, and the client is sent the next ones once it reconnects.
+     *
+     * @param lastEventId the id of the last event received, to resume from.
+     * @return the stream of the new entries.
+     */
+    @GetMapping(path = "/inbox/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamInbox(@RequestHeader(name = "Last-Event-ID", required = false) String lastEventId) {
+        log.debug("REST request to stream the inbox from {}", lastEventId);
+        String login = SecurityUtils.getCurrentUserLogin()
+            .orElseThrow(() -> new BadRequestAlertException("Streaming an inbox needs a connected user", "inbox", "nouser"));
+        return inboxPushService.connect(login, lastEventId);
+    }
+
+    /**
+     * {@code GET  /inbox/unread} : get the number of unread entries in the inbox of the connected user.
+     *
+     * @return the number of unread entries.
+     */
+    @GetMapping("/inbox/unread")
+    public long getUnread() {
+        return SecurityUtils.getCurrentUserLogin().map(inboxService::unread).orElse(0L);
+    }
+
+    /**
+     * {@code POST  /inbox/read} : mark entries of the inbox of the connected user as read.
+     *
+     * @param ids the ids of the entries.
+     * @return the number of entries marked.
+     */
+    @PostMapping("/inbox/read")
+    public int markRead(@RequestBody List<Long> ids) {
+        log.debug("REST request to mark {} inbox entries as read", ids.size());
+        return SecurityUtils.getCurrentUserLogin().map(login -> inboxService.markRead(login, ids)).orElse(0);
+    }
+
+    /**
+     * {@code POST  /inbox/read-all} : mark all the entries of the inbox of the connected user as read.
+     *
+     * @return the number of entries marked.
+     */
+    @PostMapping("/inbox/read-all")
+    public int markAllRead() {
+        log.debug("REST request to mark all inbox entries as read");
+        return SecurityUtils.getCurrentUserLogin().map(inboxService::markAllRead).orElse(0);
+    }
+}
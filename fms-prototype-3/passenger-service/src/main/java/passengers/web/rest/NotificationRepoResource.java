@@ -2,6 +2,7 @@ package passengers.web.rest;
 
 import passengers.domain.NotificationRepo;
 import passengers.repository.NotificationRepoRepository;
+import passengers.service.NotificationTemplates;
 import passengers.web.rest.errors.BadRequestAlertException;
 
 import io.github.jhipster.web.util.HeaderUtil;
@@ -36,8 +37,11 @@ public class NotificationRepoResource {
 
     private final NotificationRepoRepository notificationRepoRepository;
 
-    public NotificationRepoResource(NotificationRepoRepository notificationRepoRepository) {
+    private final NotificationTemplates notificationTemplates;
+
+    public NotificationRepoResource(NotificationRepoRepository notificationRepoRepository, NotificationTemplates notificationTemplates) {
         this.notificationRepoRepository = notificationRepoRepository;
+        this.notificationTemplates = notificationTemplates;
     }
 
     /**
@@ -89,7 +93,10 @@ public class NotificationRepoResource {
     @GetMapping("/notification-repos")
     public List<NotificationRepo> getAllNotificationRepos(@RequestParam(required = false, defaultValue = "false") boolean eagerload) {
         log.debug("REST request to get all NotificationRepos");
-        return notificationRepoRepository.findAllWithEagerRelationships();
+        if (eagerload) {
+            return notificationTemplates.renderNotifications(notificationRepoRepository.findAllWithEagerRelationships());
+        }
+        return notificationTemplates.renderNotifications(notificationRepoRepository.findAll());
     }
 
     /**
@@ -101,7 +108,8 @@ public class NotificationRepoResource {
     @GetMapping("/notification-repos/{id}")
     public ResponseEntity<NotificationRepo> getNotificationRepo(@PathVariable Long id) {
         log.debug("REST request to get NotificationRepo : {}", id);
-        Optional<NotificationRepo> notificationRepo = notificationRepoRepository.findOneWithEagerRelationships(id);
+        Optional<NotificationRepo> notificationRepo = notificationRepoRepository.findOneWithEagerRelationships(id)
+            .map(found -> found.rendered(notificationTemplates.render(found.getTemplate(), found.getParams())));
         return ResponseUtil.wrapOrNotFound(notificationRepo);
     }
 
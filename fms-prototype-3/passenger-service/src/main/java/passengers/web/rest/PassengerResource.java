@@ -1,6 +1,5 @@
 package passengers.web.rest;
 
-import org.springframework.http.HttpHeaders;
 import org.springframework.validation.annotation.Validated;
 import passengers.domain.Passenger;
 import passengers.repository.PassengerRepository;
@@ -12,14 +11,19 @@ import io.github.jhipster.web.util.ResponseUtil;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
 import org.springframework.http.ResponseEntity;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 import org.springframework.web.bind.annotation.*;
 
 import javax.validation.Valid;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.util.List;
+import java.util.Objects;
 import java.util.Optional;
 
 /**
@@ -39,13 +43,16 @@ public class PassengerResource {
 
     private final PassengerRepository passengerRepository;
 
-    public PassengerResource(PassengerRepository passengerRepository) {
+    private final CacheManager cacheManager;
+
+    public PassengerResource(PassengerRepository passengerRepository, CacheManager cacheManager) {
         this.passengerRepository = passengerRepository;
+        this.cacheManager = cacheManager;
     }
 
     /*
-     * Endpoint specifically for the case when a new JHI user registers and
-     * a corresponding passenger is supposed to be created.
+     * Endpoint specifically for the case when a JHI user registers or is updated and
+     * the corresponding passenger is supposed to be created, or updated if it exists.
      */
     @PostMapping("/registerpassenger")
     public ResponseEntity<Void> registerPassenger(@Validated @RequestBody PassengerDTO passengerDTO) throws URISyntaxException {
@@ -53,12 +60,42 @@ public class PassengerResource {
         if (passengerDTO == null) {
             throw new BadRequestAlertException("A new passenger cannot be null", ENTITY_NAME, "");
         }
-        Passenger passenger = PassengerDTO.convertToPassenger(passengerDTO);
-        ResponseEntity<Passenger> result = this.createPassenger(passenger);
-        if(result.getBody() != null) {
-            return ResponseEntity.noContent().headers(HeaderUtil.createEntityUpdateAlert(applicationName, false, ENTITY_NAME, passenger.getId().toString())).build();
+        Passenger passenger = passengerRepository.findOneByUsername(passengerDTO.getUsername())
+            .map(existing -> existing.name(passengerDTO.getName()).surname(passengerDTO.getSurname()).email(passengerDTO.getEmail()))
+            .orElseGet(() -> PassengerDTO.convertToPassenger(passengerDTO));
+        Passenger result = save(passenger);
+        return ResponseEntity.noContent().headers(HeaderUtil.createEntityUpdateAlert(applicationName, false, ENTITY_NAME, result.getId().toString())).build();
+    }
+
+    /**
+     * {@code PUT  /passengers/by-username/:username} : Creates the passenger of a username, or updates it if it exists.
+     *
+     * @param username the username of the passenger.
+     * @param passenger the passenger to create or update.
+     * @return the {@link ResponseEntity} with status {@code 201 (Created)} and with body the new passenger,
+     * or with status {@code 200 (OK)} and with body the updated passenger,
+     * or with status {@code 400 (Bad Request)} if the passenger is not valid.
+     * @throws URISyntaxException if the Location URI syntax is incorrect.
+     */
+    @PutMapping("/passengers/by-username/{username}")
+    public ResponseEntity<Passenger> upsertPassenger(@PathVariable String username, @Valid @RequestBody Passenger passenger) throws URISyntaxException {
+        log.debug("REST request to upsert Passenger {} : {}", username, passenger);
+        if (!username.equals(passenger.getUsername())) {
+            throw new BadRequestAlertException("The username of the passenger does not match", ENTITY_NAME, "usernamemismatch");
         }
-        return ResponseEntity.noContent().headers(HttpHeaders.EMPTY).build();
+        Optional<Passenger> existing = passengerRepository.findOneByUsername(username);
+        if (!existing.isPresent()) {
+            passenger.setId(null);
+            return createPassenger(passenger);
+        }
+        Passenger result = save(existing.get()
+            .password(passenger.getPassword())
+            .name(passenger.getName())
+            .surname(passenger.getSurname())
+            .email(passenger.getEmail()));
+        return ResponseEntity.ok()
+            .headers(HeaderUtil.createEntityUpdateAlert(applicationName, false, ENTITY_NAME, result.getId().toString()))
+            .body(result);
     }
 
     /**
@@ -74,7 +111,7 @@ public class PassengerResource {
         if (passenger.getId() != null) {
             throw new BadRequestAlertException("A new passenger cannot already have an ID", ENTITY_NAME, "idexists");
         }
-        Passenger result = passengerRepository.save(passenger);
+        Passenger result = save(passenger);
         return ResponseEntity.created(new URI("/api/passengers/" + result.getId()))
             .headers(HeaderUtil.createEntityCreationAlert(applicationName, false, ENTITY_NAME, result.getId().toString()))
             .body(result);
@@ -95,7 +132,8 @@ public class PassengerResource {
         if (passenger.getId() == null) {
             throw new BadRequestAlertException("Invalid id", ENTITY_NAME, "idnull");
         }
-        Passenger result = passengerRepository.save(passenger);
+        passengerRepository.findById(passenger.getId()).ifPresent(this::clearPassengerCaches);
+        Passenger result = save(passenger);
         return ResponseEntity.ok()
             .headers(HeaderUtil.createEntityUpdateAlert(applicationName, false, ENTITY_NAME, passenger.getId().toString()))
             .body(result);
@@ -125,6 +163,18 @@ public class PassengerResource {
         return ResponseUtil.wrapOrNotFound(passenger);
     }
 
+    /**
+     * {@code GET  /passengers/by-username/:username} : get the passenger of a username.
+     *
+     * @param username the username of the passenger to retrieve.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the passenger, or with status {@code 404 (Not Found)}.
+     */
+    @GetMapping("/passengers/by-username/{username}")
+    public ResponseEntity<Passenger> getPassengerByUsername(@PathVariable String username) {
+        log.debug("REST request to get Passenger by username : {}", username);
+        return ResponseUtil.wrapOrNotFound(passengerRepository.findOneByUsername(username));
+    }
+
     /**
      * {@code DELETE  /passengers/:id} : delete the "id" passenger.
      *
@@ -135,7 +185,32 @@ public class PassengerResource {
     public ResponseEntity<Void> deletePassenger(@PathVariable Long id) {
         log.debug("REST request to delete Passenger : {}", id);
 
+        passengerRepository.findById(id).ifPresent(this::clearPassengerCaches);
         passengerRepository.deleteById(id);
         return ResponseEntity.noContent().headers(HeaderUtil.createEntityDeletionAlert(applicationName, false, ENTITY_NAME, id.toString())).build();
     }
+
+    private Passenger save(Passenger passenger) {
+        Passenger result = passengerRepository.save(passenger);
+        clearPassengerCaches(result);
+        return result;
+    }
+
+    /**
+     * Evicts a passenger from the caches now, and again once the transaction writing it completes, so a lookup
+     * meanwhile does not cache it as it was.
+     */
+    private void clearPassengerCaches(Passenger passenger) {
+        String username = passenger.getUsername();
+        Cache passengersByUsername = Objects.requireNonNull(cacheManager.getCache(PassengerRepository.PASSENGERS_BY_USERNAME_CACHE));
+        passengersByUsername.evict(username);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    passengersByUsername.evict(username);
+                }
+            });
+        }
+    }
 }
@@ -0,0 +1,184 @@
+package passengers.service;
+
+import com.hazelcast.core.ITopic;
+import com.hazelcast.core.Message;
+import com.hazelcast.core.MessageListener;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.context.support.StaticMessageSource;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import passengers.config.ApplicationProperties;
+import passengers.domain.InboxEntry;
+import passengers.repository.InboxEntryRepository;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Test class for the {@link InboxPushService}.
+ */
+public class InboxPushServiceTest {
+
+    private static final Instant NOW = Instant.parse("2020-10-16T12:00:00Z");
+
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final InboxEntryRepository inboxEntryRepository = mock(InboxEntryRepository.class);
+    private ITopic<ArrayList<InboxEntry>> inboxTopic;
+    private MessageListener<ArrayList<InboxEntry>> listener;
+    private ApplicationProperties.InboxPush properties;
+    private InboxPushService inboxPushService;
+    private final List<String> sent = new CopyOnWriteArrayList<>();
+    private boolean sending;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    public void setUp() {
+        properties = new ApplicationProperties.InboxPush();
+        properties.setBufferCapacity(2);
+        inboxTopic = mock(ITopic.class);
+        ArgumentCaptor<MessageListener<ArrayList<InboxEntry>>> listenerCaptor = ArgumentCaptor.forClass(MessageListener.class);
+        // senders that never send unless told to, so that every connection is a slow one
+        ExecutorService senders = mock(ExecutorService.class);
+        doAnswer(invocation -> {
+            if (sending) {
+                invocation.<Runnable>getArgument(0).run();
+            }
+            return null;
+        }).when(senders).execute(any());
+        inboxPushService = new InboxPushService(properties, inboxEntryRepository, new NotificationTemplates(new StaticMessageSource()),
+            meterRegistry, inboxTopic, senders, RecordingEmitter::new);
+        verify(inboxTopic).addMessageListener(listenerCaptor.capture());
+        listener = listenerCaptor.getValue();
+    }
+
+    @AfterEach
+    public void tearDown() {
+        inboxPushService.shutdown();
+    }
+
+    private InboxEntry entry(long id, String passengerId) {
+        InboxEntry entry = new InboxEntry().passengerId(passengerId).name("FLIGHT_UPDATED").message("LH300 updated")
+            .createdAt(NOW);
+        entry.setId(id);
+        return entry;
+    }
+
+    /**
+     * An emitter recording the names and ids of the events sent to it.
+     */
+    private class RecordingEmitter extends SseEmitter {
+
+        @Override
+        public void send(SseEventBuilder builder) {
+            String event = builder.build().stream().map(data -> String.valueOf(data.getData())).collect(Collectors.joining());
+            Matcher matcher = Pattern.compile("^(event|id):(.*)$", Pattern.MULTILINE).matcher(event);
+            while (matcher.find()) {
+                sent.add(matcher.group(1).equals("id") ? matcher.group(2).substring(matcher.group(2).lastIndexOf('/') + 1)
+                    : matcher.group(2));
+            }
+        }
+    }
+
+    private void receive(InboxEntry... entries) {
+        listener.onMessage(new Message<>(InboxPushService.INBOX_TOPIC, new ArrayList<>(Arrays.asList(entries)), 0L, null));
+    }
+
+    @Test
+    public void publishOutsideATransactionPublishesRightAway() {
+        inboxPushService.publish(Collections.singletonList(entry(1L, "user")));
+        inboxPushService.publish(Collections.emptyList());
+
+        verify(inboxTopic).publish(any());
+    }
+
+    @Test
+    public void slowConnectionsAreClosedWithoutClosingTheOthers() {
+        inboxPushService.connect("user", null);
+        inboxPushService.connect("someone-else", null);
+        assertThat(meterRegistry.get("inbox.push.connections").gauge().value()).isEqualTo(2);
+
+        receive(entry(1L, "user"), entry(2L, "user"), entry(3L, "someone-else"));
+        assertThat(inboxPushService.getConnections()).isEqualTo(2);
+
+        receive(entry(4L, "user"));
+        assertThat(inboxPushService.getConnections()).isEqualTo(1);
+        assertThat(meterRegistry.counter("inbox.push.disconnected").count()).isEqualTo(1);
+    }
+
+    @Test
+    public void connectionsResumeFromTheLastEventReceived() {
+        InboxEntry last = entry(7L, "user");
+        when(inboxEntryRepository.findPageSince(eq("user"), eq(NOW), eq(7L), any()))
+            .thenReturn(Arrays.asList(entry(8L, "user"), entry(9L, "user"), entry(10L, "user")));
+
+        inboxPushService.connect("user", InboxPushService.eventId(last));
+
+        // more entries to resume from than the buffer holds
+        assertThat(inboxPushService.getConnections()).isZero();
+        assertThat(meterRegistry.counter("inbox.push.disconnected").count()).isEqualTo(1);
+    }
+
+    @Test
+    public void connectionsFromAnUnknownEventDoNotResume() {
+        inboxPushService.connect("user", "not-an-event");
+
+        verify(inboxEntryRepository, never()).findPageSince(any(), any(), any(), any());
+        assertThat(inboxPushService.getConnections()).isEqualTo(1);
+    }
+
+    @Test
+    public void entriesPushedWhileResumingAreSentOnceAfterTheOnesResumedFrom() {
+        sending = true;
+        properties.setBufferCapacity(10);
+        when(inboxEntryRepository.findPageSince(eq("user"), eq(NOW), eq(7L), any())).thenAnswer(invocation -> {
+            // stored and pushed while the entries to resume from are read, the first one in time to be read too
+            receive(entry(9L, "user"), entry(11L, "user"));
+            return Arrays.asList(entry(8L, "user"), entry(9L, "user"), entry(10L, "user"));
+        });
+
+        inboxPushService.connect("user", InboxPushService.eventId(entry(7L, "user")));
+        receive(entry(10L, "user"), entry(12L, "user"));
+
+        String entry = InboxPushService.ENTRY_EVENT;
+        assertThat(sent).containsExactly(entry, "8", entry, "9", entry, "10", entry, "11", entry, "12");
+        assertThat(inboxPushService.getConnections()).isEqualTo(1);
+    }
+
+    @Test
+    public void connectionsFurtherBehindThanTheReplayLimitAreClosedAfterIt() {
+        sending = true;
+        properties.setBufferCapacity(10);
+        properties.setReplayLimit(2);
+        when(inboxEntryRepository.findPageSince(eq("user"), eq(NOW), eq(7L), any()))
+            .thenReturn(Arrays.asList(entry(8L, "user"), entry(9L, "user"), entry(10L, "user")));
+
+        inboxPushService.connect("user", InboxPushService.eventId(entry(7L, "user")));
+        receive(entry(11L, "user"));
+
+        String entry = InboxPushService.ENTRY_EVENT;
+        assertThat(sent).containsExactly(entry, "8", entry, "9", InboxPushService.TRUNCATED_EVENT);
+        assertThat(inboxPushService.getConnections()).isZero();
+        assertThat(meterRegistry.counter("inbox.push.disconnected").count()).isZero();
+    }
+}
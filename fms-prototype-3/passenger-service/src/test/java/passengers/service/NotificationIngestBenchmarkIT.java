@@ -0,0 +1,121 @@
+package passengers.service;
+
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.MockConsumer;
+import org.apache.kafka.clients.consumer.OffsetResetStrategy;
+import org.apache.kafka.common.TopicPartition;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import passengers.PassengersApp;
+import passengers.domain.Passenger;
+import passengers.repository.NotificationRepoRepository;
+import passengers.repository.PassengerRepository;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import java.util.Collections;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Measures the sustained rate at which the {@link PassengerKafkaConsumer} ingests {@code notification_set},
+ * from reading the records of a poll to committing their offsets, on an in-memory H2 database.
+ * <p>
+ * Not run by default, as it asserts nothing about the rate it logs:
+ * {@code ./mvnw verify -Dit.test=NotificationIngest*BenchmarkIT -Dbenchmark=true}.
+ */
+@SpringBootTest(classes = PassengersApp.class)
+@TestPropertySource(properties = "spring.datasource.url=jdbc:h2:mem:passengers-benchmark;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE")
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+public class NotificationIngestBenchmarkIT {
+
+    private static final Logger log = LoggerFactory.getLogger(NotificationIngestBenchmarkIT.class);
+
+    private static final TopicPartition NOTIFICATIONS_0 = new TopicPartition("notification_set", 0);
+    private static final int PASSENGERS = 50;
+    private static final int WARMUP_POLLS = 5;
+    private static final int POLLS = 20;
+    private static final int POLL_SIZE = 500;
+
+    @Autowired
+    private NotificationRepoRepository notificationRepoRepository;
+
+    @Autowired
+    private PassengerRepository passengerRepository;
+
+    @Autowired
+    private InboxService inboxService;
+
+    @Autowired
+    private EntityManager em;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private MockConsumer<String, String> consumer;
+    private PassengerKafkaConsumer passengerKafkaConsumer;
+    private long offset;
+
+    @BeforeEach
+    public void setUp() {
+        for (int i = 0; i < PASSENGERS; i++) {
+            String username = "benchmark-" + i;
+            if (!passengerRepository.findOneByUsername(username).isPresent()) {
+                passengerRepository.saveAndFlush(new Passenger(username, "Bench", "Mark", username + "@localhost").password("secret"));
+            }
+        }
+        consumer = new MockConsumer<>(OffsetResetStrategy.EARLIEST);
+        consumer.subscribe(Collections.singletonList(NOTIFICATIONS_0.topic()));
+        consumer.rebalance(Collections.singletonList(NOTIFICATIONS_0));
+        offset = notificationRepoRepository.count();
+        consumer.updateBeginningOffsets(Collections.singletonMap(NOTIFICATIONS_0, offset));
+        passengerKafkaConsumer = new PassengerKafkaConsumer(consumer, notificationRepoRepository, passengerRepository,
+            inboxService, em, new TransactionTemplate(transactionManager));
+    }
+
+    private void poll() {
+        for (int i = 0; i < POLL_SIZE; i++, offset++) {
+            String value = "{\"name\":\"FLIGHT_UPDATED\",\"message\":\"Flight " + offset + " was updated\","
+                + "\"passengerId\":\"benchmark-" + (offset % PASSENGERS) + "\"}";
+            consumer.addRecord(new ConsumerRecord<>(NOTIFICATIONS_0.topic(), 0, offset, null, value));
+        }
+        passengerKafkaConsumer.poll();
+    }
+
+    @Test
+    public void sustainedIngestRate() {
+        for (int i = 0; i < WARMUP_POLLS; i++) {
+            poll();
+        }
+        long storedBefore = notificationRepoRepository.count();
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.setStatisticsEnabled(true);
+        statistics.clear();
+
+        long start = System.nanoTime();
+        for (int i = 0; i < POLLS; i++) {
+            poll();
+        }
+        long elapsed = System.nanoTime() - start;
+        statistics.setStatisticsEnabled(false);
+
+        assertThat(notificationRepoRepository.count()).isEqualTo(storedBefore + (long) POLLS * POLL_SIZE);
+        assertThat(consumer.position(NOTIFICATIONS_0)).isEqualTo(offset);
+        log.info("{}: {} polls of {} notifications in {} ms, {} notifications/s, {} statements prepared per poll",
+            getClass().getSimpleName(), POLLS, POLL_SIZE, elapsed / 1_000_000,
+            (long) POLLS * POLL_SIZE * 1_000_000_000L / elapsed, statistics.getPrepareStatementCount() / POLLS);
+    }
+}
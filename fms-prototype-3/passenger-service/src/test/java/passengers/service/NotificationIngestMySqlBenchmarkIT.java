@@ -0,0 +1,12 @@
+package passengers.service;
+
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.test.context.TestPropertySource;
+
+/**
+ * The {@link NotificationIngestBenchmarkIT} on the MySQL-compatible schema, as H2 builds it in MySQL mode.
+ */
+@TestPropertySource(properties = "spring.datasource.url=jdbc:h2:mem:passengers-benchmark-mysql;MODE=MySQL;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE")
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+public class NotificationIngestMySqlBenchmarkIT extends NotificationIngestBenchmarkIT {
+}
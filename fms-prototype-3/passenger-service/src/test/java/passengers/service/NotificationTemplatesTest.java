@@ -0,0 +1,73 @@
+package passengers.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.support.StaticMessageSource;
+import passengers.domain.InboxEntry;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Test class for the {@link NotificationTemplates}.
+ */
+public class NotificationTemplatesTest {
+
+    private StaticMessageSource messageSource;
+    private NotificationTemplates notificationTemplates;
+
+    @BeforeEach
+    public void setUp() {
+        messageSource = new StaticMessageSource();
+        messageSource.addMessage("notification.template.FLIGHT_UPDATED", Locale.ENGLISH,
+            "The flight {flightNumber} to {destination} has been updated.");
+        notificationTemplates = new NotificationTemplates(messageSource);
+    }
+
+    private static Map<String, String> params(String flightNumber, String destination) {
+        Map<String, String> params = new LinkedHashMap<>();
+        params.put("flightNumber", flightNumber);
+        params.put("destination", destination);
+        return params;
+    }
+
+    @Test
+    public void templatesAreRenderedWithTheirParameters() {
+        assertThat(notificationTemplates.render("FLIGHT_UPDATED", params("LH300", "MUC")))
+            .isEqualTo("The flight LH300 to MUC has been updated.");
+        assertThat(notificationTemplates.render("FLIGHT_UPDATED", Collections.singletonMap("flightNumber", "LH400")))
+            .isEqualTo("The flight LH400 to  has been updated.");
+        assertThat(notificationTemplates.render(null, params("LH300", "MUC"))).isNull();
+    }
+
+    @Test
+    public void templatesAreCompiledOnce() {
+        notificationTemplates.render("FLIGHT_UPDATED", params("LH300", "MUC"));
+        messageSource.addMessage("notification.template.FLIGHT_UPDATED", Locale.ENGLISH, "The flight {flightNumber} is late.");
+
+        assertThat(notificationTemplates.render("FLIGHT_UPDATED", params("LH400", "FRA")))
+            .isEqualTo("The flight LH400 to FRA has been updated.");
+    }
+
+    @Test
+    public void unknownTemplatesRenderTheirParameters() {
+        assertThat(notificationTemplates.render("FLIGHT_DIVERTED", params("LH300", "MUC")))
+            .isEqualTo("FLIGHT_DIVERTED: {flightNumber=LH300, destination=MUC}");
+    }
+
+    @Test
+    public void entriesStoredWithTheirTextKeepIt() {
+        InboxEntry stored = new InboxEntry().message("The flight LH300 has been updated.");
+        InboxEntry templated = new InboxEntry().template("FLIGHT_UPDATED").params(params("LH300", "MUC"));
+
+        notificationTemplates.renderEntries(Arrays.asList(stored, templated));
+
+        assertThat(stored.getMessage()).isEqualTo("The flight LH300 has been updated.");
+        assertThat(templated.getMessage()).isEqualTo("The flight LH300 to MUC has been updated.");
+    }
+}
@@ -0,0 +1,160 @@
+package passengers.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+import passengers.PassengersApp;
+import passengers.domain.InboxEntry;
+import passengers.domain.NotificationRepo;
+import passengers.domain.Passenger;
+import passengers.repository.InboxEntryRepository;
+import passengers.repository.NotificationRepoRepository;
+import passengers.repository.PassengerRepository;
+import passengers.service.dto.NotificationDTO;
+
+import javax.persistence.EntityManager;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.entry;
+
+/**
+ * Integration tests for the {@link PassengerKafkaConsumer}.
+ */
+@SpringBootTest(classes = PassengersApp.class)
+@Transactional
+public class PassengerKafkaConsumerIT {
+
+    @Autowired
+    private PassengerKafkaConsumer passengerKafkaConsumer;
+
+    @Autowired
+    private PassengerRepository passengerRepository;
+
+    @Autowired
+    private NotificationRepoRepository notificationRepoRepository;
+
+    @Autowired
+    private InboxEntryRepository inboxEntryRepository;
+
+    @Autowired
+    private InboxService inboxService;
+
+    @Autowired
+    private NotificationTemplates notificationTemplates;
+
+    @Autowired
+    private EntityManager em;
+
+    private Passenger alice;
+    private Passenger bob;
+
+    @BeforeEach
+    public void initTest() {
+        alice = passengerRepository.saveAndFlush(new Passenger("alice", "Alice", "Doe", "alice@localhost").password("secret"));
+        bob = passengerRepository.saveAndFlush(new Passenger("bob", "Bob", "Doe", "bob@localhost").password("secret"));
+    }
+
+    private static NotificationDTO notification(String name, String passengerId) {
+        NotificationDTO notificationDTO = new NotificationDTO();
+        notificationDTO.setName(name);
+        notificationDTO.setMessage(name + " for " + passengerId);
+        notificationDTO.setPassengerId(passengerId);
+        return notificationDTO;
+    }
+
+    @Test
+    public void notificationsAreAttachedToTheirPassengers() {
+        int databaseSizeBeforeStore = notificationRepoRepository.findAll().size();
+
+        List<NotificationRepo> stored = passengerKafkaConsumer.store(Arrays.asList(
+            notification("FLIGHT_CANCELLED", "alice"),
+            notification("FLIGHT_CANCELLED", "bob"),
+            notification("BOOKING_CONFIRMED", "alice")));
+
+        assertThat(stored).hasSize(3);
+        assertThat(notificationRepoRepository.findAll()).hasSize(databaseSizeBeforeStore + 3);
+        assertThat(stored.get(0).getPassengers()).containsExactly(alice);
+        assertThat(stored.get(1).getPassengers()).containsExactly(bob);
+        assertThat(stored.get(2).getPassengers()).containsExactly(alice);
+    }
+
+    @Test
+    public void notificationsOfUnknownPassengersAreSkipped() {
+        int databaseSizeBeforeStore = notificationRepoRepository.findAll().size();
+
+        List<NotificationRepo> stored = passengerKafkaConsumer.store(Arrays.asList(
+            notification("FLIGHT_UPDATED", "carol"),
+            notification("FLIGHT_UPDATED", null)));
+
+        assertThat(stored).hasSize(1);
+        assertThat(stored.get(0).getPassengers()).isEmpty();
+        assertThat(notificationRepoRepository.findAll()).hasSize(databaseSizeBeforeStore + 1);
+    }
+
+    @Test
+    public void notificationsAreDeliveredToTheInboxesOfTheirPassengers() {
+        passengerKafkaConsumer.store(Arrays.asList(
+            notification("FLIGHT_CANCELLED", "alice"),
+            notification("FLIGHT_CANCELLED", "bob"),
+            notification("FLIGHT_UPDATED", null)));
+        passengerKafkaConsumer.store(Arrays.asList(
+            notification("BOOKING_CONFIRMED", "alice"),
+            notification("FLIGHT_UPDATED", "carol")));
+
+        assertThat(inboxService.unread("alice")).isEqualTo(2);
+        assertThat(inboxService.unread("bob")).isEqualTo(1);
+        assertThat(inboxService.unread("carol")).isZero();
+        List<InboxEntry> inbox = inboxService.page("alice", null, null, 10);
+        assertThat(inbox).extracting(InboxEntry::getName).containsExactly("BOOKING_CONFIRMED", "FLIGHT_CANCELLED");
+        assertThat(inboxEntryRepository.findAll()).extracting(InboxEntry::getPassengerId).doesNotContainNull();
+    }
+
+    @Test
+    public void templatedNotificationsAreStoredWithoutTheirTextAndRenderedWhenRead() {
+        NotificationDTO notificationDTO = new NotificationDTO();
+        notificationDTO.setName("BOOKING_CONFIRMED");
+        notificationDTO.setTemplate("BOOKING_CONFIRMED");
+        Map<String, String> params = new LinkedHashMap<>();
+        params.put("bookingNumber", "1001");
+        params.put("flightNumber", "LH300");
+        notificationDTO.setParams(params);
+        notificationDTO.setPassengerId("alice");
+
+        Long id = passengerKafkaConsumer.store(Arrays.asList(notificationDTO)).get(0).getId();
+        em.flush();
+        em.clear();
+
+        NotificationRepo stored = notificationRepoRepository.findById(id).get();
+        assertThat(stored.getDescription()).isNull();
+        assertThat(stored.getTemplate()).isEqualTo("BOOKING_CONFIRMED");
+        assertThat(stored.getParams()).containsExactly(entry("bookingNumber", "1001"), entry("flightNumber", "LH300"));
+        assertThat(notificationTemplates.renderNotifications(Arrays.asList(stored)).get(0).getDescription())
+            .isEqualTo("Dear Sir/Madam, the booking with booking number: 1001 for flight with flight number: LH300 " +
+                "has been confirmed. Safe travels and best regards!");
+        assertThat(inboxService.page("alice", null, null, 10)).extracting(InboxEntry::getMessage)
+            .containsExactly(stored.getDescription());
+    }
+
+    @Test
+    public void notificationsConsumedAgainAreStoredOnce() {
+        NotificationDTO first = notification("FLIGHT_CANCELLED", "alice");
+        first.setEventKey("notification_set-0-42");
+        NotificationDTO second = notification("FLIGHT_UPDATED", "alice");
+        second.setEventKey("notification_set-0-43");
+        passengerKafkaConsumer.store(Arrays.asList(first, second));
+
+        // the same poll again, after its offsets could not be committed
+        List<NotificationRepo> stored = passengerKafkaConsumer.store(Arrays.asList(first, second, first));
+
+        assertThat(stored).isEmpty();
+        assertThat(notificationRepoRepository.findEventKeysIn(Arrays.asList("notification_set-0-42", "notification_set-0-43")))
+            .containsOnly("notification_set-0-42", "notification_set-0-43");
+        assertThat(inboxService.unread("alice")).isEqualTo(2);
+    }
+}
@@ -0,0 +1,89 @@
+package passengers.service;
+
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.MockConsumer;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.clients.consumer.OffsetResetStrategy;
+import org.apache.kafka.common.TopicPartition;
+import org.hibernate.Session;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import passengers.domain.NotificationRepo;
+import passengers.repository.NotificationRepoRepository;
+import passengers.repository.PassengerRepository;
+
+import javax.persistence.EntityManager;
+import java.util.Collections;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Test class for the {@link PassengerKafkaConsumer}.
+ */
+public class PassengerKafkaConsumerTest {
+
+    private static final TopicPartition NOTIFICATIONS_0 = new TopicPartition("notification_set", 0);
+
+    private MockConsumer<String, String> consumer;
+    private NotificationRepoRepository notificationRepoRepository;
+    private PassengerKafkaConsumer passengerKafkaConsumer;
+
+    @BeforeEach
+    public void setUp() {
+        consumer = new MockConsumer<>(OffsetResetStrategy.EARLIEST);
+        notificationRepoRepository = mock(NotificationRepoRepository.class);
+        EntityManager entityManager = mock(EntityManager.class);
+        when(entityManager.unwrap(Session.class)).thenReturn(mock(Session.class));
+        passengerKafkaConsumer = new PassengerKafkaConsumer(consumer, notificationRepoRepository, mock(PassengerRepository.class),
+            mock(InboxService.class), entityManager, new TransactionTemplate(mock(PlatformTransactionManager.class)));
+        consumer.subscribe(Collections.singletonList(NOTIFICATIONS_0.topic()));
+        consumer.rebalance(Collections.singletonList(NOTIFICATIONS_0));
+        consumer.updateBeginningOffsets(Collections.singletonMap(NOTIFICATIONS_0, 0L));
+    }
+
+    private void add(long offset, String value) {
+        consumer.addRecord(new ConsumerRecord<>(NOTIFICATIONS_0.topic(), 0, offset, null, value));
+    }
+
+    private static String notification(String name) {
+        return "{\"name\":\"" + name + "\",\"message\":\"" + name + " for everyone\",\"passengerId\":null,\"sentAt\":\"later\"}";
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void eachPollIsStoredInOneBatchThenCommitted() {
+        add(0, notification("FLIGHT_UPDATED"));
+        add(1, "not a notification");
+        add(2, notification("FLIGHT_CANCELLED"));
+
+        passengerKafkaConsumer.poll();
+
+        ArgumentCaptor<List<NotificationRepo>> saved = ArgumentCaptor.forClass(List.class);
+        verify(notificationRepoRepository).saveAll(saved.capture());
+        assertThat(saved.getValue()).extracting(NotificationRepo::getName).containsExactly("FLIGHT_UPDATED", "FLIGHT_CANCELLED");
+        assertThat(saved.getValue()).extracting(NotificationRepo::getEventKey)
+            .containsExactly("notification_set-0-0", "notification_set-0-2");
+        OffsetAndMetadata committed = consumer.committed(Collections.singleton(NOTIFICATIONS_0)).get(NOTIFICATIONS_0);
+        assertThat(committed.offset()).isEqualTo(3);
+    }
+
+    @Test
+    public void aFailedPollIsStoredAgain() {
+        when(notificationRepoRepository.saveAll(anyList())).thenThrow(new IllegalStateException("database down"));
+        add(0, notification("FLIGHT_UPDATED"));
+        add(1, notification("FLIGHT_CANCELLED"));
+
+        passengerKafkaConsumer.poll();
+
+        assertThat(consumer.committed(Collections.singleton(NOTIFICATIONS_0)).get(NOTIFICATIONS_0)).isNull();
+        assertThat(consumer.position(NOTIFICATIONS_0)).isZero();
+    }
+}
@@ -0,0 +1,128 @@
+package passengers.web.rest;
+
+import passengers.PassengersApp;
+import passengers.domain.InboxCounter;
+import passengers.domain.InboxEntry;
+import passengers.repository.InboxCounterRepository;
+import passengers.repository.InboxEntryRepository;
+import passengers.service.InboxPushService;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.Arrays;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.not;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * Integration tests for the {@link InboxResource} REST controller.
+ */
+@SpringBootTest(classes = PassengersApp.class)
+@AutoConfigureMockMvc
+@WithMockUser
+@Transactional
+public class InboxResourceIT {
+
+    private static final Instant NOW = Instant.parse("2020-10-13T12:00:00Z");
+
+    @Autowired
+    private InboxEntryRepository inboxEntryRepository;
+
+    @Autowired
+    private InboxCounterRepository inboxCounterRepository;
+
+    @Autowired
+    private MockMvc restInboxMockMvc;
+
+    private InboxEntry entry(String passengerId, String name, long secondsAgo) {
+        return inboxEntryRepository.saveAndFlush(new InboxEntry().passengerId(passengerId).name(name)
+            .message(name + " for " + passengerId).createdAt(NOW.minusSeconds(secondsAgo)));
+    }
+
+    private void unread(String passengerId, long unread) {
+        inboxCounterRepository.saveAndFlush(new InboxCounter().passengerId(passengerId).unread(unread));
+    }
+
+    @Test
+    public void getTheInboxOfTheUserPageByPage() throws Exception {
+        entry("user", "FLIGHT_UPDATED", 30);
+        InboxEntry second = entry("user", "FLIGHT_CANCELLED", 20);
+        entry("user", "BOOKING_CONFIRMED", 20);
+        entry("someone-else", "FLIGHT_CANCELLED", 10);
+
+        restInboxMockMvc.perform(get("/api/inbox?size=2"))
+            .andExpect(status().isOk())
+            .andExpect(content().contentType(MediaType.APPLICATION_JSON_VALUE))
+            .andExpect(jsonPath("$.[*].name").value(contains("BOOKING_CONFIRMED", "FLIGHT_CANCELLED")))
+            .andExpect(header().string(HttpHeaders.LINK, containsString("beforeId=" + second.getId())))
+            .andExpect(header().string(HttpHeaders.LINK, containsString("rel=\"next\"")));
+
+        restInboxMockMvc.perform(get("/api/inbox?size=2&beforeCreatedAt={createdAt}&beforeId={id}", second.getCreatedAt(), second.getId()))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.[*].name").value(contains("FLIGHT_UPDATED")))
+            .andExpect(header().doesNotExist(HttpHeaders.LINK));
+    }
+
+    @Test
+    public void getTheUnreadCountOfTheUser() throws Exception {
+        unread("user", 3);
+        unread("someone-else", 5);
+
+        restInboxMockMvc.perform(get("/api/inbox/unread"))
+            .andExpect(status().isOk())
+            .andExpect(content().string("3"));
+    }
+
+    @Test
+    public void markEntriesOfTheUserAsRead() throws Exception {
+        InboxEntry first = entry("user", "FLIGHT_UPDATED", 30);
+        entry("user", "FLIGHT_CANCELLED", 20);
+        InboxEntry someoneElses = entry("someone-else", "FLIGHT_CANCELLED", 10);
+        unread("user", 2);
+        unread("someone-else", 1);
+
+        restInboxMockMvc.perform(post("/api/inbox/read")
+            .contentType(MediaType.APPLICATION_JSON)
+            .content(TestUtil.convertObjectToJsonBytes(Arrays.asList(first.getId(), someoneElses.getId()))))
+            .andExpect(status().isOk())
+            .andExpect(content().string("1"));
+        restInboxMockMvc.perform(get("/api/inbox/unread"))
+            .andExpect(content().string("1"));
+
+        restInboxMockMvc.perform(post("/api/inbox/read-all"))
+            .andExpect(status().isOk())
+            .andExpect(content().string("1"));
+        restInboxMockMvc.perform(get("/api/inbox/unread"))
+            .andExpect(content().string("0"));
+        assertThat(inboxCounterRepository.findOneByPassengerId("someone-else")).hasValueSatisfying(counter ->
+            assertThat(counter.getUnread()).isEqualTo(1));
+    }
+
+    @Test
+    public void streamTheInboxOfTheUserFromTheLastEventReceived() throws Exception {
+        InboxEntry received = entry("user", "FLIGHT_UPDATED", 30);
+        entry("user", "FLIGHT_CANCELLED", 20);
+        entry("someone-else", "BOOKING_CONFIRMED", 10);
+
+        restInboxMockMvc.perform(get("/api/inbox/stream")
+            .header("Last-Event-ID", InboxPushService.eventId(received)))
+            .andExpect(request().asyncStarted())
+            .andExpect(content().string(containsString("event:" + InboxPushService.ENTRY_EVENT)))
+            .andExpect(content().string(containsString("FLIGHT_CANCELLED")))
+            .andExpect(content().string(not(containsString("FLIGHT_UPDATED"))))
+            .andExpect(content().string(not(containsString("BOOKING_CONFIRMED"))));
+    }
+}
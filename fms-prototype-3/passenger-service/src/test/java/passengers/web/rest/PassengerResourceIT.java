@@ -3,12 +3,14 @@ package passengers.web.rest;
 import passengers.PassengersApp;
 import passengers.domain.Passenger;
 import passengers.repository.PassengerRepository;
+import passengers.service.dto.PassengerDTO;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.CacheManager;
 import org.springframework.http.MediaType;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.web.servlet.MockMvc;
@@ -47,6 +49,9 @@ public class PassengerResourceIT {
     @Autowired
     private PassengerRepository passengerRepository;
 
+    @Autowired
+    private CacheManager cacheManager;
+
     @Autowired
     private EntityManager em;
 
@@ -88,6 +93,7 @@ public class PassengerResourceIT {
 
     @BeforeEach
     public void initTest() {
+        cacheManager.getCache(PassengerRepository.PASSENGERS_BY_USERNAME_CACHE).clear();
         passenger = createEntity(em);
     }
 
@@ -338,4 +344,108 @@ public class PassengerResourceIT {
         List<Passenger> passengerList = passengerRepository.findAll();
         assertThat(passengerList).hasSize(databaseSizeBeforeDelete - 1);
     }
+
+    @Test
+    @Transactional
+    public void getPassengerByUsername() throws Exception {
+        // Initialize the database
+        passengerRepository.saveAndFlush(passenger);
+
+        assertThat(cacheManager.getCache(PassengerRepository.PASSENGERS_BY_USERNAME_CACHE).get(DEFAULT_USERNAME)).isNull();
+
+        // Get the passenger
+        restPassengerMockMvc.perform(get("/api/passengers/by-username/{username}", DEFAULT_USERNAME))
+            .andExpect(status().isOk())
+            .andExpect(content().contentType(MediaType.APPLICATION_JSON_VALUE))
+            .andExpect(jsonPath("$.id").value(passenger.getId().intValue()))
+            .andExpect(jsonPath("$.email").value(DEFAULT_EMAIL));
+
+        assertThat(cacheManager.getCache(PassengerRepository.PASSENGERS_BY_USERNAME_CACHE).get(DEFAULT_USERNAME)).isNotNull();
+
+        restPassengerMockMvc.perform(get("/api/passengers/by-username/{username}", UPDATED_USERNAME))
+            .andExpect(status().isNotFound());
+    }
+
+    @Test
+    @Transactional
+    public void updatedPassengersAreNotLookedUpFromTheCache() throws Exception {
+        // Initialize the database
+        passengerRepository.saveAndFlush(passenger);
+        restPassengerMockMvc.perform(get("/api/passengers/by-username/{username}", DEFAULT_USERNAME))
+            .andExpect(status().isOk());
+
+        Passenger updatedPassenger = passengerRepository.findById(passenger.getId()).get();
+        em.detach(updatedPassenger);
+        updatedPassenger.name(UPDATED_NAME);
+        restPassengerMockMvc.perform(put("/api/passengers")
+            .contentType(MediaType.APPLICATION_JSON)
+            .content(TestUtil.convertObjectToJsonBytes(updatedPassenger)))
+            .andExpect(status().isOk());
+
+        restPassengerMockMvc.perform(get("/api/passengers/by-username/{username}", DEFAULT_USERNAME))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.name").value(UPDATED_NAME));
+    }
+
+    @Test
+    @Transactional
+    public void upsertPassenger() throws Exception {
+        int databaseSizeBeforeUpsert = passengerRepository.findAll().size();
+
+        // Create the passenger of the username
+        restPassengerMockMvc.perform(put("/api/passengers/by-username/{username}", DEFAULT_USERNAME)
+            .contentType(MediaType.APPLICATION_JSON)
+            .content(TestUtil.convertObjectToJsonBytes(passenger)))
+            .andExpect(status().isCreated());
+
+        // Update it
+        Passenger updatedPassenger = createUpdatedEntity(em).username(DEFAULT_USERNAME);
+        restPassengerMockMvc.perform(put("/api/passengers/by-username/{username}", DEFAULT_USERNAME)
+            .contentType(MediaType.APPLICATION_JSON)
+            .content(TestUtil.convertObjectToJsonBytes(updatedPassenger)))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.name").value(UPDATED_NAME))
+            .andExpect(jsonPath("$.email").value(UPDATED_EMAIL));
+
+        List<Passenger> passengerList = passengerRepository.findAll();
+        assertThat(passengerList).hasSize(databaseSizeBeforeUpsert + 1);
+        Passenger testPassenger = passengerList.get(passengerList.size() - 1);
+        assertThat(testPassenger.getUsername()).isEqualTo(DEFAULT_USERNAME);
+        assertThat(testPassenger.getPassword()).isEqualTo(UPDATED_PASSWORD);
+        assertThat(testPassenger.getSurname()).isEqualTo(UPDATED_SURNAME);
+    }
+
+    @Test
+    @Transactional
+    public void upsertPassengerOfAnotherUsername() throws Exception {
+        restPassengerMockMvc.perform(put("/api/passengers/by-username/{username}", UPDATED_USERNAME)
+            .contentType(MediaType.APPLICATION_JSON)
+            .content(TestUtil.convertObjectToJsonBytes(passenger)))
+            .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @Transactional
+    public void registerAnExistingPassenger() throws Exception {
+        // Initialize the database
+        passengerRepository.saveAndFlush(passenger);
+        int databaseSizeBeforeRegister = passengerRepository.findAll().size();
+
+        PassengerDTO passengerDTO = new PassengerDTO();
+        passengerDTO.setUsername(DEFAULT_USERNAME);
+        passengerDTO.setName(UPDATED_NAME);
+        passengerDTO.setSurname(UPDATED_SURNAME);
+        passengerDTO.setEmail(UPDATED_EMAIL);
+        restPassengerMockMvc.perform(post("/api/registerpassenger")
+            .contentType(MediaType.APPLICATION_JSON)
+            .content(TestUtil.convertObjectToJsonBytes(passengerDTO)))
+            .andExpect(status().isNoContent());
+
+        List<Passenger> passengerList = passengerRepository.findAll();
+        assertThat(passengerList).hasSize(databaseSizeBeforeRegister);
+        Passenger testPassenger = passengerList.get(passengerList.size() - 1);
+        assertThat(testPassenger.getName()).isEqualTo(UPDATED_NAME);
+        assertThat(testPassenger.getEmail()).isEqualTo(UPDATED_EMAIL);
+        assertThat(testPassenger.getPassword()).isEqualTo(DEFAULT_PASSWORD);
+    }
 }
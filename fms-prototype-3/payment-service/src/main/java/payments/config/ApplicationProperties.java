@@ -2,6 +2,10 @@ package payments.config;
 
 import org.springframework.boot.context.properties.ConfigurationProperties;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
 /**
  * Properties specific to Payments.
  * <p>
@@ -10,4 +14,377 @@ import org.springframework.boot.context.properties.ConfigurationProperties;
  */
 @ConfigurationProperties(prefix = "application", ignoreUnknownFields = false)
 public class ApplicationProperties {
+
+    private final Authorization authorization = new Authorization();
+    private final Velocity velocity = new Velocity();
+    private final Ledger ledger = new Ledger();
+    private final Reports reports = new Reports();
+
+    public Authorization getAuthorization() {
+        return authorization;
+    }
+
+    public Velocity getVelocity() {
+        return velocity;
+    }
+
+    public Ledger getLedger() {
+        return ledger;
+    }
+
+    public Reports getReports() {
+        return reports;
+    }
+
+    public static class Authorization {
+
+        /**
+         * Number of payments authorized at the same time by this instance.
+         */
+        private int concurrency = 8;
+
+        /**
+         * Number of payments waiting for authorization on this instance; more are left pending for the sweep.
+         */
+        private int queueCapacity = 1000;
+
+        /**
+         * How long an authorization attempt waits for the processor.
+         */
+        private long timeoutMillis = 5000;
+
+        /**
+         * Number of attempts at authorizing a payment, when the processor fails or times out.
+         */
+        private int maxAttempts = 3;
+
+        /**
+         * Delay before the second attempt, doubled before each attempt after that.
+         */
+        private long backoffMillis = 200;
+
+        /**
+         * Delay between two sweeps of the payments left pending, which are authorized again.
+         */
+        private long sweepMillis = 30000;
+
+        /**
+         * How long a payment stays pending, or claimed by an authorization, before a sweep authorizes it again:
+         * longer than all the attempts at authorizing it, so that it is not authorized twice.
+         */
+        private long staleAfterMillis = 60000;
+
+        private final Stub stub = new Stub();
+
+        public int getConcurrency() {
+            return concurrency;
+        }
+
+        public void setConcurrency(int concurrency) {
+            this.concurrency = concurrency;
+        }
+
+        public int getQueueCapacity() {
+            return queueCapacity;
+        }
+
+        public void setQueueCapacity(int queueCapacity) {
+            this.queueCapacity = queueCapacity;
+        }
+
+        public long getTimeoutMillis() {
+            return timeoutMillis;
+        }
+
+        public void setTimeoutMillis(long timeoutMillis) {
+            this.timeoutMillis = timeoutMillis;
+        }
+
+        public int getMaxAttempts() {
+            return maxAttempts;
+        }
+
+        public void setMaxAttempts(int maxAttempts) {
+            this.maxAttempts = maxAttempts;
+        }
+
+        public long getBackoffMillis() {
+            return backoffMillis;
+        }
+
+        public void setBackoffMillis(long backoffMillis) {
+            this.backoffMillis = backoffMillis;
+        }
+
+        public long getSweepMillis() {
+            return sweepMillis;
+        }
+
+        public void setSweepMillis(long sweepMillis) {
+            this.sweepMillis = sweepMillis;
+        }
+
+        public long getStaleAfterMillis() {
+            return staleAfterMillis;
+        }
+
+        public void setStaleAfterMillis(long staleAfterMillis) {
+            this.staleAfterMillis = staleAfterMillis;
+        }
+
+        public Stub getStub() {
+            return stub;
+        }
+    }
+
+    /**
+     * The local processor, standing in for a real one.
+     */
+    public static class Stub {
+
+        /**
+         * How long the stub takes to answer.
+         */
+        private long latencyMillis = 50;
+
+        /**
+         * Share of the attempts failing, to be retried, between 0 and 1.
+         */
+        private double failureRate = 0;
+
+        /**
+         * Share of the payments declined, between 0 and 1.
+         */
+        private double declineRate = 0;
+
+        public long getLatencyMillis() {
+            return latencyMillis;
+        }
+
+        public void setLatencyMillis(long latencyMillis) {
+            this.latencyMillis = latencyMillis;
+        }
+
+        public double getFailureRate() {
+            return failureRate;
+        }
+
+        public void setFailureRate(double failureRate) {
+            this.failureRate = failureRate;
+        }
+
+        public double getDeclineRate() {
+            return declineRate;
+        }
+
+        public void setDeclineRate(double declineRate) {
+            this.declineRate = declineRate;
+        }
+    }
+
+    public static class Velocity {
+
+        /**
+         * Whether payments are checked against the velocity rules before they are authorized.
+         */
+        private boolean enabled = true;
+
+        /**
+         * Width of the buckets payments are counted in: windows slide by one bucket at a time.
+         */
+        private long bucketMillis = 1000;
+
+        /**
+         * Number of buckets kept for each card, passenger and booking, which bounds the longest window.
+         */
+        private int buckets = 60;
+
+        /**
+         * Delay between two publications of the payments counted here to the other instances.
+         */
+        private long flushMillis = 200;
+
+        /**
+         * Secret the card numbers are hashed with, the same on every instance, to count payments by card without
+         * keeping card numbers; cards are counted by id when it is not set.
+         */
+        private String cardKeySecret;
+
+        private List<Rule> rules = new ArrayList<>(Arrays.asList(
+            new Rule(Rule.Dimension.CARD, 60000, 5),
+            new Rule(Rule.Dimension.PASSENGER, 60000, 10),
+            new Rule(Rule.Dimension.BOOKING, 60000, 3)));
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public long getBucketMillis() {
+            return bucketMillis;
+        }
+
+        public void setBucketMillis(long bucketMillis) {
+            this.bucketMillis = bucketMillis;
+        }
+
+        public int getBuckets() {
+            return buckets;
+        }
+
+        public void setBuckets(int buckets) {
+            this.buckets = buckets;
+        }
+
+        public long getFlushMillis() {
+            return flushMillis;
+        }
+
+        public void setFlushMillis(long flushMillis) {
+            this.flushMillis = flushMillis;
+        }
+
+        public String getCardKeySecret() {
+            return cardKeySecret;
+        }
+
+        public void setCardKeySecret(String cardKeySecret) {
+            this.cardKeySecret = cardKeySecret;
+        }
+
+        public List<Rule> getRules() {
+            return rules;
+        }
+
+        public void setRules(List<Rule> rules) {
+            this.rules = rules;
+        }
+    }
+
+    /**
+     * At most {@code limit} payments by the same card, passenger or booking within a window.
+     */
+    public static class Rule {
+
+        public enum Dimension {
+            CARD, PASSENGER, BOOKING
+        }
+
+        private Dimension dimension;
+
+        private long windowMillis;
+
+        private int limit;
+
+        public Rule() {
+        }
+
+        public Rule(Dimension dimension, long windowMillis, int limit) {
+            this.dimension = dimension;
+            this.windowMillis = windowMillis;
+            this.limit = limit;
+        }
+
+        public Dimension getDimension() {
+            return dimension;
+        }
+
+        public void setDimension(Dimension dimension) {
+            this.dimension = dimension;
+        }
+
+        public long getWindowMillis() {
+            return windowMillis;
+        }
+
+        public void setWindowMillis(long windowMillis) {
+            this.windowMillis = windowMillis;
+        }
+
+        public int getLimit() {
+            return limit;
+        }
+
+        public void setLimit(int limit) {
+            this.limit = limit;
+        }
+    }
+
+    public static class Ledger {
+
+        /**
+         * Delay between two snapshots of the balances of the accounts. One instance at a time takes them, under a
+         * Hazelcast lock.
+         */
+        private long snapshotMillis = 60000;
+
+        /**
+         * How far behind snapshots stay, more than the clocks of the instances differ by. Transactions still writing
+         * entries are waited for whatever their age.
+         */
+        private long settleMillis = 5000;
+
+        /**
+         * How long a transaction writing entries is waited for, longer than any lasts, so that the writes of an
+         * instance that stopped do not hold the snapshots back for ever.
+         */
+        private long writeTimeoutMillis = 600000;
+
+        /**
+         * Number of entries read at a time when snapshots are rebuilt from the whole ledger.
+         */
+        private int replayBatchSize = 1000;
+
+        public long getSnapshotMillis() {
+            return snapshotMillis;
+        }
+
+        public void setSnapshotMillis(long snapshotMillis) {
+            this.snapshotMillis = snapshotMillis;
+        }
+
+        public long getSettleMillis() {
+            return settleMillis;
+        }
+
+        public void setSettleMillis(long settleMillis) {
+            this.settleMillis = settleMillis;
+        }
+
+        public long getWriteTimeoutMillis() {
+            return writeTimeoutMillis;
+        }
+
+        public void setWriteTimeoutMillis(long writeTimeoutMillis) {
+            this.writeTimeoutMillis = writeTimeoutMillis;
+        }
+
+        public int getReplayBatchSize() {
+            return replayBatchSize;
+        }
+
+        public void setReplayBatchSize(int replayBatchSize) {
+            this.replayBatchSize = replayBatchSize;
+        }
+    }
+
+    public static class Reports {
+
+        /**
+         * Number of rows the database sends at a time while a report is streamed. With MySQL, the rows only come
+         * through a server-side cursor with {@code useCursorFetch=true} in the URL.
+         */
+        private int fetchSize = 1000;
+
+        public int getFetchSize() {
+            return fetchSize;
+        }
+
+        public void setFetchSize(int fetchSize) {
+            this.fetchSize = fetchSize;
+        }
+    }
 }
@@ -42,6 +42,12 @@ public class CreditCard implements Serializable {
     @Column(name = "validity_date", nullable = false)
     private LocalDate validityDate;
 
+    /**
+     * The username of the passenger owning the card.
+     */
+    @Column(name = "passenger_id")
+    private String passengerId;
+
     // jhipster-needle-entity-add-field - JHipster will add fields here
     public Long getId() {
         return id;
@@ -102,6 +108,19 @@ public class CreditCard implements Serializable {
     public void setValidityDate(LocalDate validityDate) {
         this.validityDate = validityDate;
     }
+
+    public String getPassengerId() {
+        return passengerId;
+    }
+
+    public CreditCard passengerId(String passengerId) {
+        this.passengerId = passengerId;
+        return this;
+    }
+
+    public void setPassengerId(String passengerId) {
+        this.passengerId = passengerId;
+    }
     // jhipster-needle-entity-add-getters-setters - JHipster will add getters and setters here
 
     @Override
@@ -129,6 +148,7 @@ public class CreditCard implements Serializable {
             ", cvc=" + getCvc() +
             ", cardNumber=" + getCardNumber() +
             ", validityDate='" + getValidityDate() + "'" +
+            ", passengerId='" + getPassengerId() + "'" +
             "}";
     }
 }
@@ -0,0 +1,258 @@
+package payments.domain;
+
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Immutable;
+import org.hibernate.annotations.Parameter;
+
+import javax.persistence.*;
+import javax.validation.constraints.*;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.time.Instant;
+
+import payments.domain.enumeration.ECardType;
+import payments.domain.enumeration.ELedgerEntryKind;
+
+/**
+ * A LedgerEntry: one leg of a journal of the double-entry ledger, debiting an account with a positive amount or
+ * crediting it with a negative one. The legs of a journal share its id and sum to zero.
+ * <p>
+ * Entries are only ever appended, in the transaction of the change they record, by the
+ * {@link payments.service.LedgerService}: they are never updated nor deleted, and not cached.
+ */
+@Entity
+@Immutable
+@Table(name = "ledger_entry")
+public class LedgerEntry implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Ids are handed out in blocks from the {@code id_generator} table (pooled-lo), so that the legs of the
+     * journals written together are inserted in JDBC batches.
+     */
+    @Id
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "ledgerEntryIdGenerator")
+    @GenericGenerator(
+        name = "ledgerEntryIdGenerator",
+        strategy = "org.hibernate.id.enhanced.TableGenerator",
+        parameters = {
+            @Parameter(name = "table_name", value = "id_generator"),
+            @Parameter(name = "segment_value", value = "ledger_entry"),
+            @Parameter(name = "increment_size", value = "50"),
+            @Parameter(name = "optimizer", value = "pooled-lo")
+        })
+    private Long id;
+
+    @NotNull
+    @Column(name = "journal", nullable = false)
+    private String journal;
+
+    @NotNull
+    @Column(name = "account", nullable = false)
+    private String account;
+
+    @NotNull
+    @Column(name = "amount", precision = 21, scale = 2, nullable = false)
+    private BigDecimal amount;
+
+    @NotNull
+    @Enumerated(EnumType.STRING)
+    @Column(name = "kind", nullable = false)
+    private ELedgerEntryKind kind;
+
+    @Column(name = "payment_id")
+    private Long paymentId;
+
+    @Column(name = "booking_number")
+    private Long bookingNumber;
+
+    @Column(name = "flight_id")
+    private Long flightId;
+
+    @Column(name = "passenger_id")
+    private String passengerId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "card_type")
+    private ECardType cardType;
+
+    @NotNull
+    @Column(name = "created_at", nullable = false)
+    private Instant createdAt;
+
+    // jhipster-needle-entity-add-field - JHipster will add fields here
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getJournal() {
+        return journal;
+    }
+
+    public LedgerEntry journal(String journal) {
+        this.journal = journal;
+        return this;
+    }
+
+    public void setJournal(String journal) {
+        this.journal = journal;
+    }
+
+    public String getAccount() {
+        return account;
+    }
+
+    public LedgerEntry account(String account) {
+        this.account = account;
+        return this;
+    }
+
+    public void setAccount(String account) {
+        this.account = account;
+    }
+
+    public BigDecimal getAmount() {
+        return amount;
+    }
+
+    public LedgerEntry amount(BigDecimal amount) {
+        this.amount = amount;
+        return this;
+    }
+
+    public void setAmount(BigDecimal amount) {
+        this.amount = amount;
+    }
+
+    public ELedgerEntryKind getKind() {
+        return kind;
+    }
+
+    public LedgerEntry kind(ELedgerEntryKind kind) {
+        this.kind = kind;
+        return this;
+    }
+
+    public void setKind(ELedgerEntryKind kind) {
+        this.kind = kind;
+    }
+
+    public Long getPaymentId() {
+        return paymentId;
+    }
+
+    public LedgerEntry paymentId(Long paymentId) {
+        this.paymentId = paymentId;
+        return this;
+    }
+
+    public void setPaymentId(Long paymentId) {
+        this.paymentId = paymentId;
+    }
+
+    public Long getBookingNumber() {
+        return bookingNumber;
+    }
+
+    public LedgerEntry bookingNumber(Long bookingNumber) {
+        this.bookingNumber = bookingNumber;
+        return this;
+    }
+
+    public void setBookingNumber(Long bookingNumber) {
+        this.bookingNumber = bookingNumber;
+    }
+
+    public Long getFlightId() {
+        return flightId;
+    }
+
+    public LedgerEntry flightId(Long flightId) {
+        this.flightId = flightId;
+        return this;
+    }
+
+    public void setFlightId(Long flightId) {
+        this.flightId = flightId;
+    }
+
+    public String getPassengerId() {
+        return passengerId;
+    }
+
+    public LedgerEntry passengerId(String passengerId) {
+        this.passengerId = passengerId;
+        return this;
+    }
+
+    public void setPassengerId(String passengerId) {
+        this.passengerId = passengerId;
+    }
+
+    public ECardType getCardType() {
+        return cardType;
+    }
+
+    public LedgerEntry cardType(ECardType cardType) {
+        this.cardType = cardType;
+        return this;
+    }
+
+    public void setCardType(ECardType cardType) {
+        this.cardType = cardType;
+    }
+
+    public Instant getCreatedAt() {
+        return createdAt;
+    }
+
+    public LedgerEntry createdAt(Instant createdAt) {
+        this.createdAt = createdAt;
+        return this;
+    }
+
+    public void setCreatedAt(Instant createdAt) {
+        this.createdAt = createdAt;
+    }
+    // jhipster-needle-entity-add-getters-setters - JHipster will add getters and setters here
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof LedgerEntry)) {
+            return false;
+        }
+        return id != null && id.equals(((LedgerEntry) o).id);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31;
+    }
+
+    // prettier-ignore
+    @Override
+    public String toString() {
+        return "LedgerEntry{" +
+            "id=" + getId() +
+            ", journal='" + getJournal() + "'" +
+            ", account='" + getAccount() + "'" +
+            ", amount=" + getAmount() +
+            ", kind='" + getKind() + "'" +
+            ", paymentId=" + getPaymentId() +
+            ", bookingNumber=" + getBookingNumber() +
+            ", flightId=" + getFlightId() +
+            ", passengerId='" + getPassengerId() + "'" +
+            ", cardType='" + getCardType() + "'" +
+            ", createdAt='" + getCreatedAt() + "'" +
+            "}";
+    }
+}
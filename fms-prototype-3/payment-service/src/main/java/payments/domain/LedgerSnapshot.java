@@ -0,0 +1,134 @@
+package payments.domain;
+
+import javax.persistence.*;
+import javax.validation.constraints.*;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.time.Instant;
+
+/**
+ * A LedgerSnapshot: the balance of an account of the ledger, summing its entries created up to a point in time.
+ * <p>
+ * The balance of an account is its latest snapshot plus the entries created after it, see
+ * {@link payments.service.LedgerService}.
+ */
+@Entity
+@Table(name = "ledger_snapshot")
+public class LedgerSnapshot implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @NotNull
+    @Column(name = "account", nullable = false)
+    private String account;
+
+    @NotNull
+    @Column(name = "balance", precision = 21, scale = 2, nullable = false)
+    private BigDecimal balance;
+
+    /**
+     * The entries created up to this time, included, are summed in the balance.
+     */
+    @NotNull
+    @Column(name = "up_to", nullable = false)
+    private Instant upTo;
+
+    @NotNull
+    @Column(name = "created_at", nullable = false)
+    private Instant createdAt;
+
+    // jhipster-needle-entity-add-field - JHipster will add fields here
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getAccount() {
+        return account;
+    }
+
+    public LedgerSnapshot account(String account) {
+        this.account = account;
+        return this;
+    }
+
+    public void setAccount(String account) {
+        this.account = account;
+    }
+
+    public BigDecimal getBalance() {
+        return balance;
+    }
+
+    public LedgerSnapshot balance(BigDecimal balance) {
+        this.balance = balance;
+        return this;
+    }
+
+    public void setBalance(BigDecimal balance) {
+        this.balance = balance;
+    }
+
+    public Instant getUpTo() {
+        return upTo;
+    }
+
+    public LedgerSnapshot upTo(Instant upTo) {
+        this.upTo = upTo;
+        return this;
+    }
+
+    public void setUpTo(Instant upTo) {
+        this.upTo = upTo;
+    }
+
+    public Instant getCreatedAt() {
+        return createdAt;
+    }
+
+    public LedgerSnapshot createdAt(Instant createdAt) {
+        this.createdAt = createdAt;
+        return this;
+    }
+
+    public void setCreatedAt(Instant createdAt) {
+        this.createdAt = createdAt;
+    }
+    // jhipster-needle-entity-add-getters-setters - JHipster will add getters and setters here
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof LedgerSnapshot)) {
+            return false;
+        }
+        return id != null && id.equals(((LedgerSnapshot) o).id);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31;
+    }
+
+    // prettier-ignore
+    @Override
+    public String toString() {
+        return "LedgerSnapshot{" +
+            "id=" + getId() +
+            ", account='" + getAccount() + "'" +
+            ", balance=" + getBalance() +
+            ", upTo='" + getUpTo() + "'" +
+            ", createdAt='" + getCreatedAt() + "'" +
+            "}";
+    }
+}
@@ -8,9 +8,15 @@ import javax.persistence.*;
 import javax.validation.constraints.*;
 
 import java.io.Serializable;
+import java.time.Instant;
+
+import payments.domain.enumeration.EPaymentStatus;
 
 /**
  * A Payment.
+ * <p>
+ * A payment is accepted as {@link EPaymentStatus#PENDING pending}, and authorized or declined later on by the
+ * {@link payments.service.PaymentAuthorizer}.
  */
 @Entity
 @Table(name = "payment")
@@ -33,7 +39,29 @@ public class Payment implements Serializable {
 
     @NotNull
     @Column(name = "booking_number", nullable = false)
-    private Integer bookingNumber;
+    private Long bookingNumber;
+
+    /**
+     * The id of the dated flight of the booking, in the flight service.
+     */
+    @Column(name = "flight_id")
+    private Long flightId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "status", nullable = false)
+    private EPaymentStatus status = EPaymentStatus.PENDING;
+
+    /**
+     * Why the payment was declined.
+     */
+    @Column(name = "status_reason")
+    private String statusReason;
+
+    /**
+     * When the status last changed.
+     */
+    @Column(name = "updated_at")
+    private Instant updatedAt;
 
     @ManyToOne(optional = false)
     @NotNull
@@ -75,19 +103,71 @@ public class Payment implements Serializable {
         this.toPay = toPay;
     }
 
-    public Integer getBookingNumber() {
+    public Long getBookingNumber() {
         return bookingNumber;
     }
 
-    public Payment bookingNumber(Integer bookingNumber) {
+    public Payment bookingNumber(Long bookingNumber) {
         this.bookingNumber = bookingNumber;
         return this;
     }
 
-    public void setBookingNumber(Integer bookingNumber) {
+    public void setBookingNumber(Long bookingNumber) {
         this.bookingNumber = bookingNumber;
     }
 
+    public Long getFlightId() {
+        return flightId;
+    }
+
+    public Payment flightId(Long flightId) {
+        this.flightId = flightId;
+        return this;
+    }
+
+    public void setFlightId(Long flightId) {
+        this.flightId = flightId;
+    }
+
+    public EPaymentStatus getStatus() {
+        return status;
+    }
+
+    public Payment status(EPaymentStatus status) {
+        this.status = status;
+        return this;
+    }
+
+    public void setStatus(EPaymentStatus status) {
+        this.status = status;
+    }
+
+    public String getStatusReason() {
+        return statusReason;
+    }
+
+    public Payment statusReason(String statusReason) {
+        this.statusReason = statusReason;
+        return this;
+    }
+
+    public void setStatusReason(String statusReason) {
+        this.statusReason = statusReason;
+    }
+
+    public Instant getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public Payment updatedAt(Instant updatedAt) {
+        this.updatedAt = updatedAt;
+        return this;
+    }
+
+    public void setUpdatedAt(Instant updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+
     public CreditCard getCreditCard() {
         return creditCard;
     }
@@ -126,6 +206,10 @@ public class Payment implements Serializable {
             ", passengerId='" + getPassengerId() + "'" +
             ", toPay=" + getToPay() +
             ", bookingNumber=" + getBookingNumber() +
+            ", flightId=" + getFlightId() +
+            ", status='" + getStatus() + "'" +
+            ", statusReason='" + getStatusReason() + "'" +
+            ", updatedAt='" + getUpdatedAt() + "'" +
             "}";
     }
 }
@@ -0,0 +1,9 @@
+package payments.domain.enumeration;
+
+/**
+ * The ELedgerEntryKind enumeration: what a journal of the ledger records. Adjustments were recorded when the amount
+ * of an authorized payment could still change, and are only read since.
+ */
+public enum ELedgerEntryKind {
+    PAYMENT, ADJUSTMENT, REFUND
+}
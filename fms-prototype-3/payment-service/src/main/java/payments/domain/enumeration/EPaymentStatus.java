@@ -0,0 +1,8 @@
+package payments.domain.enumeration;
+
+/**
+ * The EPaymentStatus enumeration: a payment is accepted as pending, until the processor authorizes or declines it.
+ */
+public enum EPaymentStatus {
+    PENDING, AUTHORIZED, DECLINED
+}
@@ -2,13 +2,32 @@ package payments.repository;
 
 import payments.domain.CreditCard;
 
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.*;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Optional;
+
 /**
  * Spring Data  repository for the CreditCard entity.
  */
 @SuppressWarnings("unused")
 @Repository
 public interface CreditCardRepository extends JpaRepository<CreditCard, Long> {
+
+    Page<CreditCard> findAllByPassengerId(String passengerId, Pageable pageable);
+
+    Optional<CreditCard> findOneByIdAndPassengerId(Long id, String passengerId);
+
+    /**
+     * The cards of a passenger not used by any payment yet, read as an anti-join on the credit card index of the
+     * payments, in id order so that pages are stable, whatever the sort of the page.
+     */
+    @Query(value = "select card from CreditCard card where card.passengerId = :passengerId " +
+        "and not exists (select payment.id from Payment payment where payment.creditCard = card) order by card.id",
+        countQuery = "select count(card) from CreditCard card where card.passengerId = :passengerId " +
+            "and not exists (select payment.id from Payment payment where payment.creditCard = card)")
+    Page<CreditCard> findAllUnassignedByPassengerId(@Param("passengerId") String passengerId, Pageable pageable);
 }
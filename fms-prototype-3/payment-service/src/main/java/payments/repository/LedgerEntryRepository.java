@@ -0,0 +1,38 @@
+package payments.repository;
+
+import payments.domain.LedgerEntry;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.*;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Spring Data  repository for the LedgerEntry entity.
+ */
+@SuppressWarnings("unused")
+@Repository
+public interface LedgerEntryRepository extends JpaRepository<LedgerEntry, Long> {
+
+    @Query("select coalesce(sum(entry.amount), 0) from LedgerEntry entry where entry.account = :account and entry.createdAt > :after")
+    BigDecimal sumByAccountCreatedAfter(@Param("account") String account, @Param("after") Instant after);
+
+    /**
+     * @return the account and the sum of the amounts of each account with entries in the period.
+     */
+    @Query("select entry.account, sum(entry.amount) from LedgerEntry entry " +
+        "where entry.createdAt > :after and entry.createdAt <= :upTo group by entry.account")
+    List<Object[]> sumByAccountCreatedBetween(@Param("after") Instant after, @Param("upTo") Instant upTo);
+
+    /**
+     * @return the page of entries created up to {@code upTo} following the entry created at {@code at} with id
+     * {@code id}, in creation order.
+     */
+    @Query("select entry from LedgerEntry entry where entry.createdAt <= :upTo " +
+        "and (entry.createdAt > :at or (entry.createdAt = :at and entry.id > :id)) order by entry.createdAt, entry.id")
+    List<LedgerEntry> findPageAfter(@Param("at") Instant at, @Param("id") Long id, @Param("upTo") Instant upTo, Pageable pageable);
+}
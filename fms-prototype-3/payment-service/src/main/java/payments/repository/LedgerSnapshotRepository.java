@@ -0,0 +1,22 @@
+package payments.repository;
+
+import payments.domain.LedgerSnapshot;
+
+import org.springframework.data.jpa.repository.*;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+import java.util.Optional;
+
+/**
+ * Spring Data  repository for the LedgerSnapshot entity.
+ */
+@SuppressWarnings("unused")
+@Repository
+public interface LedgerSnapshotRepository extends JpaRepository<LedgerSnapshot, Long> {
+
+    Optional<LedgerSnapshot> findFirstByAccountOrderByUpToDesc(String account);
+
+    @Query("select max(snapshot.upTo) from LedgerSnapshot snapshot")
+    Instant findLatestUpTo();
+}
@@ -1,14 +1,71 @@
 package payments.repository;
 
 import payments.domain.Payment;
+import payments.domain.enumeration.EPaymentStatus;
 
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.*;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import javax.persistence.LockModeType;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
 /**
  * Spring Data  repository for the Payment entity.
  */
 @SuppressWarnings("unused")
 @Repository
 public interface PaymentRepository extends JpaRepository<Payment, Long> {
+
+    Page<Payment> findAllByPassengerId(String passengerId, Pageable pageable);
+
+    Optional<Payment> findOneByIdAndPassengerId(Long id, String passengerId);
+
+    /**
+     * Finds a payment of a passenger to change or delete, locking it so that it is not authorized meanwhile.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select payment from Payment payment where payment.id = :id and payment.passengerId = :passengerId")
+    Optional<Payment> findOneForUpdate(@Param("id") Long id, @Param("passengerId") String passengerId);
+
+    @Query("select distinct payment.bookingNumber from Payment payment where payment.bookingNumber in :bookingNumbers")
+    List<Long> findBookingNumbersIn(@Param("bookingNumbers") Collection<Long> bookingNumbers);
+
+    /**
+     * Finds the payments of bookings to refund, locking them so that they are not authorized meanwhile.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select payment from Payment payment where payment.bookingNumber in :bookingNumbers")
+    List<Payment> findAllForUpdateByBookingNumberIn(@Param("bookingNumbers") Collection<Long> bookingNumbers);
+
+    @Modifying
+    @Query("delete from Payment payment where payment.bookingNumber in :bookingNumbers")
+    int deleteByBookingNumberIn(@Param("bookingNumbers") Collection<Long> bookingNumbers);
+
+    /**
+     * Records the authorization of a payment, unless it was already recorded, or the payment refunded, meanwhile.
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("update Payment payment set payment.status = :status, payment.statusReason = :statusReason, " +
+        "payment.updatedAt = :updatedAt where payment.id = :id and payment.status = 'PENDING'")
+    int updateStatusIfPending(@Param("id") Long id, @Param("status") EPaymentStatus status,
+                              @Param("statusReason") String statusReason, @Param("updatedAt") Instant updatedAt);
+
+    /**
+     * Claims a pending payment for an authorization, moving its update time on, unless it changed since it was read.
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("update Payment payment set payment.updatedAt = :claimedAt " +
+        "where payment.id = :id and payment.status = 'PENDING' and payment.updatedAt = :updatedAt")
+    int claimIfPending(@Param("id") Long id, @Param("updatedAt") Instant updatedAt, @Param("claimedAt") Instant claimedAt);
+
+    @Query("select payment.id from Payment payment where payment.status = :status and payment.updatedAt < :before " +
+        "order by payment.id")
+    List<Long> findIdsByStatusAndUpdatedAtBefore(@Param("status") EPaymentStatus status, @Param("before") Instant before,
+                                                 Pageable pageable);
 }
@@ -0,0 +1,324 @@
+package payments.service;
+
+import com.hazelcast.core.HazelcastInstance;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import payments.config.ApplicationProperties;
+import payments.domain.LedgerEntry;
+import payments.domain.LedgerSnapshot;
+import payments.domain.Payment;
+import payments.domain.enumeration.ELedgerEntryKind;
+import payments.domain.enumeration.EPaymentStatus;
+import payments.repository.LedgerEntryRepository;
+import payments.repository.LedgerSnapshotRepository;
+import payments.service.dto.LedgerBalanceDTO;
+import payments.service.dto.LedgerReplayDTO;
+
+import javax.annotation.PreDestroy;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
+
+/**
+ * Keeps the double-entry ledger of the payments: an authorized payment debits the {@value #CLEARING} account, the
+ * money due by the processor, and credits {@value #REVENUE}; a refund debits {@value #REFUNDS} and credits
+ * {@value #CLEARING} back.
+ * <p>
+ * Journals are appended in the transaction of the change they record, their legs inserted in JDBC batches, and
+ * never changed after that: the ledger is what payments were, whatever happens to the {@code payment} rows.
+ * <p>
+ * The balance of an account is its latest snapshot plus the entries created after it. Snapshots are taken every
+ * {@code snapshot-millis}, by one instance at a time under a Hazelcast lock, up to a watermark no entry still to
+ * commit is created before: every transaction writing entries is registered in a Hazelcast map, with when it started,
+ * until it completes, and snapshots stop short of the oldest one, whatever its age. They also stay
+ * {@code settle-millis} behind, more than the clocks of the instances differ by. They can be rebuilt from the whole
+ * ledger with {@link #replay()}, which also checks that every journal balances.
+ */
+@Service
+public class LedgerService {
+
+    private static final Logger log = LoggerFactory.getLogger(LedgerService.class);
+
+    public static final String CLEARING = "clearing";
+    public static final String REVENUE = "revenue";
+    public static final String REFUNDS = "refunds";
+
+    public static final String SNAPSHOT_LOCK = "payment-ledger-snapshot";
+    public static final String WRITES_MAP = "payment-ledger-writes";
+
+    private final ApplicationProperties.Ledger properties;
+    private final LedgerEntryRepository ledgerEntryRepository;
+    private final LedgerSnapshotRepository ledgerSnapshotRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final Lock snapshotLock;
+    private final ConcurrentMap<String, Long> writes;
+    private final Clock clock;
+    private ScheduledExecutorService snapshotter;
+
+    @Autowired
+    @SuppressWarnings("deprecation") // the CP subsystem, which replaces ILock, is not enabled in this cluster
+    public LedgerService(ApplicationProperties applicationProperties, LedgerEntryRepository ledgerEntryRepository,
+                         LedgerSnapshotRepository ledgerSnapshotRepository, PlatformTransactionManager transactionManager,
+                         HazelcastInstance hazelcastInstance) {
+        this(applicationProperties.getLedger(), ledgerEntryRepository, ledgerSnapshotRepository,
+            new TransactionTemplate(transactionManager), hazelcastInstance.getLock(SNAPSHOT_LOCK),
+            hazelcastInstance.getMap(WRITES_MAP), Clock.systemUTC());
+    }
+
+    LedgerService(ApplicationProperties.Ledger properties, LedgerEntryRepository ledgerEntryRepository,
+                  LedgerSnapshotRepository ledgerSnapshotRepository, TransactionTemplate transactionTemplate,
+                  Lock snapshotLock, ConcurrentMap<String, Long> writes, Clock clock) {
+        this.properties = properties;
+        this.ledgerEntryRepository = ledgerEntryRepository;
+        this.ledgerSnapshotRepository = ledgerSnapshotRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.snapshotLock = snapshotLock;
+        this.writes = writes;
+        this.clock = clock;
+    }
+
+    /**
+     * Starts taking snapshots, once the schema is up to date.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        snapshotter = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "payment-ledger-snapshot");
+            thread.setDaemon(true);
+            return thread;
+        });
+        snapshotter.scheduleWithFixedDelay(this::snapshot, properties.getSnapshotMillis(), properties.getSnapshotMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Records an authorized payment.
+     *
+     * @param payment the payment.
+     */
+    @Transactional
+    public void recordPayment(Payment payment) {
+        Instant now = beginWrite();
+        List<LedgerEntry> entries = new ArrayList<>(2);
+        journal(entries, ELedgerEntryKind.PAYMENT, payment, amount(payment.getToPay()), CLEARING, REVENUE, now);
+        ledgerEntryRepository.saveAll(entries);
+    }
+
+    /**
+     * Records the refund of payments: only the authorized ones were recorded as paid.
+     *
+     * @param payments the payments refunded.
+     */
+    @Transactional
+    public void recordRefunds(Collection<Payment> payments) {
+        Instant now = beginWrite();
+        List<LedgerEntry> entries = new ArrayList<>(payments.size() * 2);
+        for (Payment payment : payments) {
+            if (payment.getStatus() == EPaymentStatus.AUTHORIZED) {
+                journal(entries, ELedgerEntryKind.REFUND, payment, amount(payment.getToPay()), REFUNDS, CLEARING, now);
+            }
+        }
+        ledgerEntryRepository.saveAll(entries);
+    }
+
+    /**
+     * Registers the current transaction as writing entries until it completes, so that no snapshot is taken past it.
+     *
+     * @return when the entries are created, not before the transaction was registered.
+     */
+    private Instant beginWrite() {
+        String write = UUID.randomUUID().toString();
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                writes.remove(write);
+            }
+        });
+        writes.put(write, clock.millis());
+        return clock.instant();
+    }
+
+    private static void journal(List<LedgerEntry> entries, ELedgerEntryKind kind, Payment payment, BigDecimal amount,
+                                String debited, String credited, Instant now) {
+        String journal = UUID.randomUUID().toString();
+        entries.add(entry(journal, kind, payment, debited, amount, now));
+        entries.add(entry(journal, kind, payment, credited, amount.negate(), now));
+    }
+
+    private static LedgerEntry entry(String journal, ELedgerEntryKind kind, Payment payment, String account,
+                                     BigDecimal amount, Instant now) {
+        return new LedgerEntry().journal(journal).kind(kind).account(account).amount(amount)
+            .paymentId(payment.getId()).bookingNumber(payment.getBookingNumber()).flightId(payment.getFlightId())
+            .passengerId(payment.getPassengerId())
+            .cardType(payment.getCreditCard() == null ? null : payment.getCreditCard().getCardType()).createdAt(now);
+    }
+
+    private static BigDecimal amount(Double amount) {
+        return BigDecimal.valueOf(amount == null ? 0D : amount).setScale(2, RoundingMode.HALF_EVEN);
+    }
+
+    /**
+     * Gets the balance of an account, from its latest snapshot and the entries created after it.
+     *
+     * @param account the account.
+     * @return the balance, zero for an account without entries.
+     */
+    @Transactional(readOnly = true)
+    public LedgerBalanceDTO balance(String account) {
+        Optional<LedgerSnapshot> snapshot = ledgerSnapshotRepository.findFirstByAccountOrderByUpToDesc(account);
+        Instant upTo = snapshot.map(LedgerSnapshot::getUpTo).orElse(null);
+        BigDecimal tail = ledgerEntryRepository.sumByAccountCreatedAfter(account, upTo == null ? Instant.EPOCH : upTo);
+        BigDecimal balance = snapshot.map(LedgerSnapshot::getBalance).orElse(BigDecimal.ZERO).add(tail);
+        return new LedgerBalanceDTO(account, balance, upTo);
+    }
+
+    /**
+     * Takes a snapshot of the accounts with entries since the latest one, unless another instance is taking it.
+     *
+     * @return the number of snapshots taken.
+     */
+    public int snapshot() {
+        if (!snapshotLock.tryLock()) {
+            return 0;
+        }
+        try {
+            Instant upTo = watermark();
+            Integer taken = transactionTemplate.execute(status -> {
+                Instant after = ledgerSnapshotRepository.findLatestUpTo();
+                if (after != null && !upTo.isAfter(after)) {
+                    return 0;
+                }
+                Instant now = clock.instant();
+                List<LedgerSnapshot> snapshots = new ArrayList<>();
+                for (Object[] sum : ledgerEntryRepository.sumByAccountCreatedBetween(after == null ? Instant.EPOCH : after, upTo)) {
+                    String account = (String) sum[0];
+                    BigDecimal previous = ledgerSnapshotRepository.findFirstByAccountOrderByUpToDesc(account)
+                        .map(LedgerSnapshot::getBalance).orElse(BigDecimal.ZERO);
+                    snapshots.add(new LedgerSnapshot().account(account).balance(previous.add((BigDecimal) sum[1]))
+                        .upTo(upTo).createdAt(now));
+                }
+                ledgerSnapshotRepository.saveAll(snapshots);
+                return snapshots.size();
+            });
+            log.debug("Took {} ledger snapshots up to {}", taken, upTo);
+            return taken == null ? 0 : taken;
+        } catch (RuntimeException e) {
+            log.warn("Could not take the ledger snapshots: {}", e.getMessage());
+            return 0;
+        } finally {
+            snapshotLock.unlock();
+        }
+    }
+
+    /**
+     * Replays the whole ledger, in creation order and {@code replay-batch-size} entries at a time, checking that
+     * every journal balances, and replaces the snapshots by the balances replayed.
+     *
+     * @return the outcome of the replay, or empty if snapshots are being taken meanwhile.
+     */
+    public Optional<LedgerReplayDTO> replay() {
+        if (!snapshotLock.tryLock()) {
+            return Optional.empty();
+        }
+        try {
+            Instant upTo = watermark();
+            Map<String, BigDecimal> balances = new TreeMap<>();
+            Map<String, BigDecimal> openJournals = new LinkedHashMap<>();
+            LedgerReplayDTO replay = new LedgerReplayDTO();
+            Instant at = Instant.EPOCH;
+            long id = 0;
+            List<LedgerEntry> page;
+            do {
+                Instant pageAt = at;
+                long pageId = id;
+                page = transactionTemplate.execute(status ->
+                    ledgerEntryRepository.findPageAfter(pageAt, pageId, upTo, PageRequest.of(0, properties.getReplayBatchSize())));
+                if (page == null) {
+                    break;
+                }
+                for (LedgerEntry entry : page) {
+                    balances.merge(entry.getAccount(), entry.getAmount(), BigDecimal::add);
+                    if (!openJournals.containsKey(entry.getJournal())) {
+                        replay.setJournals(replay.getJournals() + 1);
+                    }
+                    BigDecimal journal = openJournals.merge(entry.getJournal(), entry.getAmount(), BigDecimal::add);
+                    if (journal.signum() == 0) {
+                        openJournals.remove(entry.getJournal());
+                    }
+                    at = entry.getCreatedAt();
+                    id = entry.getId();
+                }
+                replay.setEntries(replay.getEntries() + page.size());
+            } while (page.size() == properties.getReplayBatchSize());
+
+            Instant now = clock.instant();
+            transactionTemplate.execute(status -> {
+                ledgerSnapshotRepository.deleteAllInBatch();
+                List<LedgerSnapshot> snapshots = new ArrayList<>(balances.size());
+                balances.forEach((account, balance) ->
+                    snapshots.add(new LedgerSnapshot().account(account).balance(balance).upTo(upTo).createdAt(now)));
+                return ledgerSnapshotRepository.saveAll(snapshots);
+            });
+            replay.setUpTo(upTo);
+            replay.setUnbalancedJournals(new ArrayList<>(openJournals.keySet()));
+            balances.forEach((account, balance) -> replay.getBalances().add(new LedgerBalanceDTO(account, balance, upTo)));
+            if (!openJournals.isEmpty()) {
+                log.warn("Replayed {} unbalanced ledger journals: {}", openJournals.size(), openJournals.keySet());
+            }
+            log.info("Replayed {} ledger entries of {} journals up to {}", replay.getEntries(), replay.getJournals(), upTo);
+            return Optional.of(replay);
+        } finally {
+            snapshotLock.unlock();
+        }
+    }
+
+    /**
+     * @return up to when every entry is committed, in whole seconds, which every database stores as is: before the
+     * oldest transaction still writing entries, and {@code settle-millis} ago at the latest. A transaction registered
+     * for longer than {@code write-timeout-millis} is of an instance that stopped, and forgotten.
+     */
+    Instant watermark() {
+        long now = clock.millis();
+        long upTo = now - properties.getSettleMillis();
+        for (Map.Entry<String, Long> write : writes.entrySet()) {
+            if (write.getValue() < now - properties.getWriteTimeoutMillis()) {
+                log.warn("Forgot the ledger write {}, started at {}", write.getKey(), Instant.ofEpochMilli(write.getValue()));
+                writes.remove(write.getKey(), write.getValue());
+            } else {
+                upTo = Math.min(upTo, write.getValue() - 1);
+            }
+        }
+        return Instant.ofEpochMilli(upTo).truncatedTo(ChronoUnit.SECONDS);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (snapshotter != null) {
+            snapshotter.shutdownNow();
+        }
+    }
+}
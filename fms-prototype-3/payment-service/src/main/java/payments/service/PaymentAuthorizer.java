@@ -0,0 +1,315 @@
+package payments.service;
+
+import com.hazelcast.core.HazelcastInstance;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import payments.config.ApplicationProperties;
+import payments.domain.CreditCard;
+import payments.domain.Payment;
+import payments.domain.enumeration.EPaymentStatus;
+import payments.repository.PaymentRepository;
+
+import javax.annotation.PreDestroy;
+import java.time.Instant;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Lock;
+
+/**
+ * Authorizes the payments accepted as pending against the {@link PaymentProcessor}, and publishes the result of
+ * each: {@code payment_set} once authorized, {@code payment_failed} once declined.
+ * <p>
+ * Payments breaking the velocity rules of the {@link VelocityEngine} are declined without asking the processor.
+ * Payments are submitted once the transaction accepting them commits, and authorized by a bounded pool of threads,
+ * off the request threads: no database connection is held while the processor works, only while a payment is read
+ * and while its result is recorded, with the journal of an authorized payment in the {@link LedgerService}. Each attempt waits for the processor for a limited time; an attempt that fails
+ * or times out is retried with a growing backoff, up to a number of attempts.
+ * <p>
+ * A payment the pool had no room for, or whose attempts were all used up, or submitted by an instance that stopped
+ * meanwhile, stays pending: one instance at a time, under a Hazelcast lock, sweeps the payments pending for too long
+ * and submits them again. Before the processor is asked, a payment is claimed by moving its update time on, unless
+ * it changed since it was read: this leases it to one authorization, on any instance, for as long as the sweep
+ * leaves it alone, and a swept payment is only claimed if its lease is still over. Results are only recorded for
+ * payments still pending, so a payment authorized twice anyway is published once.
+ */
+@Service
+public class PaymentAuthorizer {
+
+    private final Logger log = LoggerFactory.getLogger(PaymentAuthorizer.class);
+
+    public static final String SWEEP_LOCK = "payment-authorizer-sweep";
+
+    private final ApplicationProperties.Authorization properties;
+    private final PaymentRepository paymentRepository;
+    private final PaymentProcessor paymentProcessor;
+    private final VelocityEngine velocityEngine;
+    private final PaymentKafkaProducer paymentKafkaProducer;
+    private final LedgerService ledgerService;
+    private final TransactionTemplate transactionTemplate;
+    private final Lock sweepLock;
+    private final MeterRegistry meterRegistry;
+    private final Set<Long> inFlight = ConcurrentHashMap.newKeySet();
+    private final ThreadPoolExecutor executor;
+    private ScheduledExecutorService sweeper;
+
+    @Autowired
+    @SuppressWarnings("deprecation") // the CP subsystem, which replaces ILock, is not enabled in this cluster
+    public PaymentAuthorizer(ApplicationProperties applicationProperties, PaymentRepository paymentRepository,
+                             PaymentProcessor paymentProcessor, VelocityEngine velocityEngine,
+                             PaymentKafkaProducer paymentKafkaProducer, LedgerService ledgerService,
+                             PlatformTransactionManager transactionManager, HazelcastInstance hazelcastInstance,
+                             MeterRegistry meterRegistry) {
+        this(applicationProperties.getAuthorization(), paymentRepository, paymentProcessor, velocityEngine, paymentKafkaProducer,
+            ledgerService, new TransactionTemplate(transactionManager), hazelcastInstance.getLock(SWEEP_LOCK), meterRegistry);
+    }
+
+    PaymentAuthorizer(ApplicationProperties.Authorization properties, PaymentRepository paymentRepository,
+                      PaymentProcessor paymentProcessor, VelocityEngine velocityEngine, PaymentKafkaProducer paymentKafkaProducer,
+                      LedgerService ledgerService, TransactionTemplate transactionTemplate, Lock sweepLock, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.paymentRepository = paymentRepository;
+        this.paymentProcessor = paymentProcessor;
+        this.velocityEngine = velocityEngine;
+        this.paymentKafkaProducer = paymentKafkaProducer;
+        this.ledgerService = ledgerService;
+        this.transactionTemplate = transactionTemplate;
+        this.sweepLock = sweepLock;
+        this.meterRegistry = meterRegistry;
+        AtomicInteger count = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(properties.getConcurrency(), properties.getConcurrency(), 0L, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(properties.getQueueCapacity()), runnable -> {
+                Thread thread = new Thread(runnable, "payment-authorizer-" + count.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+        Gauge.builder("payments.authorization.in.flight", inFlight, Set::size).register(meterRegistry);
+        long attempts = properties.getMaxAttempts() * properties.getTimeoutMillis()
+            + properties.getBackoffMillis() * ((1L << Math.max(properties.getMaxAttempts() - 1, 0)) - 1);
+        if (properties.getStaleAfterMillis() <= attempts) {
+            log.warn("Payments are swept after {} ms, before their attempts are over, up to {} ms later: they may be "
+                + "authorized twice", properties.getStaleAfterMillis(), attempts);
+        }
+    }
+
+    /**
+     * Starts sweeping the payments left pending, once the schema is up to date.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        sweeper = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "payment-authorizer-sweep");
+            thread.setDaemon(true);
+            return thread;
+        });
+        sweeper.scheduleWithFixedDelay(this::sweep, properties.getSweepMillis(), properties.getSweepMillis(), TimeUnit.MILLISECONDS);
+        log.debug("Payment authorizer started");
+    }
+
+    /**
+     * Submits a pending payment for authorization, once the current transaction, if any, commits.
+     *
+     * @param paymentId the id of the payment.
+     */
+    public void submit(Long paymentId) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    enqueue(paymentId, false);
+                }
+            });
+        } else {
+            enqueue(paymentId, false);
+        }
+    }
+
+    private void enqueue(Long paymentId, boolean swept) {
+        if (!inFlight.add(paymentId)) {
+            return;
+        }
+        try {
+            executor.execute(() -> {
+                try {
+                    authorize(paymentId, swept);
+                } finally {
+                    inFlight.remove(paymentId);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            inFlight.remove(paymentId);
+            log.debug("No room to authorize payment {}, left pending for the sweep", paymentId);
+        }
+    }
+
+    /**
+     * Authorizes a pending payment and records the result, unless the processor could not tell.
+     *
+     * @param paymentId the id of the payment.
+     * @param swept whether the payment was found by the sweep, and may still be leased to another authorization.
+     * @return the status of the payment, {@code null} if it is not found, or another authorization claimed it.
+     */
+    EPaymentStatus authorize(Long paymentId, boolean swept) {
+        Payment payment = transactionTemplate.execute(status -> paymentRepository.findById(paymentId).orElse(null));
+        if (payment == null || payment.getStatus() != EPaymentStatus.PENDING) {
+            return payment == null ? null : payment.getStatus();
+        }
+        if (!claim(payment, swept)) {
+            log.debug("Payment {} is being authorized by another authorization", paymentId);
+            return null;
+        }
+        String invalid = check(payment);
+        if (invalid == null) {
+            invalid = velocityEngine.check(payment);
+        }
+        PaymentProcessor.Authorization authorization = invalid != null
+            ? PaymentProcessor.Authorization.declined(invalid)
+            : attempt(payment);
+        if (authorization == null) {
+            meterRegistry.counter("payments.authorization", "result", "unanswered").increment();
+            log.warn("Could not authorize payment {} in {} attempts, left pending", paymentId, properties.getMaxAttempts());
+            return EPaymentStatus.PENDING;
+        }
+        return record(payment, authorization);
+    }
+
+    private boolean claim(Payment payment, boolean swept) {
+        Instant updatedAt = payment.getUpdatedAt();
+        if (swept && updatedAt != null && !updatedAt.isBefore(Instant.now().minusMillis(properties.getStaleAfterMillis()))) {
+            return false;
+        }
+        Instant claimedAt = Instant.now();
+        Integer claimed = transactionTemplate.execute(status -> paymentRepository.claimIfPending(payment.getId(), updatedAt, claimedAt));
+        if (claimed == null || claimed == 0) {
+            return false;
+        }
+        payment.setUpdatedAt(claimedAt);
+        return true;
+    }
+
+    private static String check(Payment payment) {
+        CreditCard card = payment.getCreditCard();
+        if (payment.getToPay() == null || payment.getToPay() < 0) {
+            return "Invalid amount to pay";
+        }
+        if (card == null || card.getValidityDate() == null || card.getCardNumber() == null || card.getCardNumber() < 0
+            || card.getCvc() == null || card.getCvc() < 0) {
+            return "Credit Card Data is not correct";
+        }
+        return null;
+    }
+
+    /**
+     * @return the authorization, or {@code null} if the processor could not tell in any attempt.
+     */
+    private PaymentProcessor.Authorization attempt(Payment payment) {
+        long backoff = properties.getBackoffMillis();
+        for (int attempt = 1; attempt <= properties.getMaxAttempts(); attempt++) {
+            CompletableFuture<PaymentProcessor.Authorization> authorization = paymentProcessor.authorize(payment);
+            try {
+                return authorization.get(properties.getTimeoutMillis(), TimeUnit.MILLISECONDS);
+            } catch (TimeoutException e) {
+                authorization.cancel(true);
+                log.debug("Authorization attempt {} of payment {} timed out", attempt, payment.getId());
+            } catch (ExecutionException e) {
+                log.debug("Authorization attempt {} of payment {} failed: {}", attempt, payment.getId(), e.getCause().getMessage());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return null;
+            }
+            meterRegistry.counter("payments.authorization.retries").increment();
+            if (attempt < properties.getMaxAttempts()) {
+                try {
+                    Thread.sleep(backoff);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return null;
+                }
+                backoff *= 2;
+            }
+        }
+        return null;
+    }
+
+    private EPaymentStatus record(Payment payment, PaymentProcessor.Authorization authorization) {
+        EPaymentStatus status = authorization.isApproved() ? EPaymentStatus.AUTHORIZED : EPaymentStatus.DECLINED;
+        Integer recorded = transactionTemplate.execute(transaction -> {
+            int updated = paymentRepository.updateStatusIfPending(payment.getId(), status, authorization.getReason(), Instant.now());
+            if (updated == 0) {
+                return 0;
+            }
+            // read again, under the lock of the update, as it is recorded rather than as it was authorized
+            Payment current = paymentRepository.findById(payment.getId()).orElse(payment);
+            if (authorization.isApproved()) {
+                ledgerService.recordPayment(current.status(status));
+                paymentKafkaProducer.sendPaymentSuccess(current);
+            } else {
+                paymentKafkaProducer.sendPaymentFailure(current.getBookingNumber(), authorization.getReason());
+            }
+            return updated;
+        });
+        if (recorded == null || recorded == 0) {
+            log.debug("Payment {} was authorized or refunded meanwhile", payment.getId());
+            return null;
+        }
+        meterRegistry.counter("payments.authorization", "result", status.name().toLowerCase()).increment();
+        log.debug("Payment {} {}", payment.getId(), status);
+        return status;
+    }
+
+    /**
+     * Submits again the payments pending for too long, unless another instance is sweeping them.
+     *
+     * @return the number of payments submitted.
+     */
+    public int sweep() {
+        if (!sweepLock.tryLock()) {
+            return 0;
+        }
+        try {
+            Instant before = Instant.now().minusMillis(properties.getStaleAfterMillis());
+            List<Long> pending = transactionTemplate.execute(status -> paymentRepository.findIdsByStatusAndUpdatedAtBefore(
+                EPaymentStatus.PENDING, before, PageRequest.of(0, properties.getQueueCapacity())));
+            if (pending == null || pending.isEmpty()) {
+                return 0;
+            }
+            log.debug("Authorizing again {} payments left pending", pending.size());
+            pending.forEach(paymentId -> enqueue(paymentId, true));
+            return pending.size();
+        } catch (RuntimeException e) {
+            log.warn("Could not sweep the pending payments: {}", e.getMessage());
+            return 0;
+        } finally {
+            sweepLock.unlock();
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (sweeper != null) {
+            sweeper.shutdownNow();
+        }
+        executor.shutdownNow();
+    }
+}
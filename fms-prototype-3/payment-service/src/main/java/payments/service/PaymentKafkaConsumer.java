@@ -0,0 +1,254 @@
+package payments.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import fms.common.config.KafkaProperties;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.ConsumerRecords;
+import org.apache.kafka.clients.consumer.KafkaConsumer;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.errors.WakeupException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import payments.domain.CreditCard;
+import payments.domain.Payment;
+import payments.domain.enumeration.EPaymentStatus;
+import payments.repository.CreditCardRepository;
+import payments.repository.PaymentRepository;
+import payments.service.dto.CheckoutFailureDTO;
+import payments.service.dto.PaymentRequestDTO;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Pays the bookings requested on {@code payment_requested}, and refunds the ones requested on
+ * {@code payment_refund_requested}, for the checkouts of the booking service.
+ * <p>
+ * The requests of a poll are handled together: the booking numbers already paid and the credit cards
+ * are looked up in one query each, and the payments saved in one transaction, pending, with the failures of the
+ * invalid requests, on {@code payment_failed}; the {@link PaymentAuthorizer} authorizes the pending payments once
+ * the transaction commits, and publishes their results. Offsets are committed once a poll is
+ * handled, so a request is handled at least once; a booking already paid is not paid again.
+ */
+@Service
+public class PaymentKafkaConsumer {
+
+    private static final Logger logger = LoggerFactory.getLogger(PaymentKafkaConsumer.class);
+    public static final String TOPIC_PAYMENT_REQUESTED = "payment_requested";
+    public static final String TOPIC_PAYMENT_REFUND_REQUESTED = "payment_refund_requested";
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final AtomicBoolean closed = new AtomicBoolean(false);
+    private final KafkaProperties kafkaProperties;
+    private final PaymentRepository paymentRepository;
+    private final CreditCardRepository creditCardRepository;
+    private final PaymentKafkaProducer paymentKafkaProducer;
+    private final PaymentAuthorizer paymentAuthorizer;
+    private final LedgerService ledgerService;
+    private final TransactionTemplate transactionTemplate;
+
+    private KafkaConsumer<String, String> consumer;
+    private ExecutorService executorService = Executors.newSingleThreadExecutor();
+
+    @Autowired
+    public PaymentKafkaConsumer(KafkaProperties kafkaProperties, PaymentRepository paymentRepository,
+                                CreditCardRepository creditCardRepository, PaymentKafkaProducer paymentKafkaProducer,
+                                PaymentAuthorizer paymentAuthorizer, LedgerService ledgerService,
+                                PlatformTransactionManager transactionManager) {
+        this(kafkaProperties, paymentRepository, creditCardRepository, paymentKafkaProducer, paymentAuthorizer, ledgerService,
+            new TransactionTemplate(transactionManager));
+    }
+
+    PaymentKafkaConsumer(KafkaProperties kafkaProperties, PaymentRepository paymentRepository,
+                         CreditCardRepository creditCardRepository, PaymentKafkaProducer paymentKafkaProducer,
+                         PaymentAuthorizer paymentAuthorizer, LedgerService ledgerService, TransactionTemplate transactionTemplate) {
+        this.kafkaProperties = kafkaProperties;
+        this.paymentRepository = paymentRepository;
+        this.creditCardRepository = creditCardRepository;
+        this.paymentKafkaProducer = paymentKafkaProducer;
+        this.paymentAuthorizer = paymentAuthorizer;
+        this.ledgerService = ledgerService;
+        this.transactionTemplate = transactionTemplate;
+    }
+
+    @PostConstruct
+    public void start() {
+        Map<String, Object> consumerProps = kafkaProperties.getConsumerProps();
+        // offsets are committed once their poll is handled
+        consumerProps.put("enable.auto.commit", "false");
+        this.consumer = new KafkaConsumer<>(consumerProps);
+        consumer.subscribe(Arrays.asList(TOPIC_PAYMENT_REQUESTED, TOPIC_PAYMENT_REFUND_REQUESTED));
+        logger.debug("Payment kafka consumer started.");
+
+        executorService.execute(() -> {
+            try {
+                while (!closed.get()) {
+                    ConsumerRecords<String, String> records = consumer.poll(Duration.ofSeconds(3));
+                    if (records.isEmpty()) {
+                        continue;
+                    }
+                    try {
+                        handle(records);
+                        consumer.commitSync();
+                    } catch (WakeupException e) {
+                        throw e;
+                    } catch (RuntimeException e) {
+                        logger.error("Could not handle payment requests, retrying: {}", e.getMessage(), e);
+                        for (TopicPartition partition : records.partitions()) {
+                            consumer.seek(partition, records.records(partition).get(0).offset());
+                        }
+                    }
+                }
+            } catch (WakeupException e) {
+                // shutting down
+            } catch (Exception e) {
+                logger.error(e.getMessage(), e);
+            } finally {
+                logger.debug("Kafka consumer close");
+                consumer.close();
+            }
+        });
+    }
+
+    private void handle(ConsumerRecords<String, String> records) {
+        List<PaymentRequestDTO> requests = new ArrayList<>();
+        Set<Long> refunds = new LinkedHashSet<>();
+        for (ConsumerRecord<String, String> record : records) {
+            logger.debug("Consumed message in {} : {}", record.topic(), record.value());
+            try {
+                if (TOPIC_PAYMENT_REQUESTED.equals(record.topic())) {
+                    requests.add(objectMapper.readValue(record.value(), PaymentRequestDTO.class));
+                } else {
+                    refunds.add(Long.valueOf(objectMapper.readValue(record.value(), CheckoutFailureDTO.class).getBookingNumber()));
+                }
+            } catch (IOException | NumberFormatException e) {
+                logger.warn("Skipped an unreadable event of {}: {}", record.topic(), e.getMessage());
+            }
+        }
+        // refunds are only requested once a payment was announced, so after its request
+        pay(requests);
+        refund(refunds);
+    }
+
+    /**
+     * Pays bookings, in one transaction, unless they are already paid.
+     *
+     * @param requests the payment requests consumed.
+     * @return the payments saved, pending.
+     */
+    public List<Payment> pay(List<PaymentRequestDTO> requests) {
+        if (requests.isEmpty()) {
+            return new ArrayList<>();
+        }
+        Instant now = Instant.now();
+        return transactionTemplate.execute(status -> {
+            Set<Long> bookingNumbers = new LinkedHashSet<>();
+            Set<Long> creditCardIds = new HashSet<>();
+            for (PaymentRequestDTO request : requests) {
+                bookingNumbers.add(parse(request.getBookingNumber()));
+                creditCardIds.add(parse(request.getCreditCardId()));
+            }
+            bookingNumbers.remove(null);
+            creditCardIds.remove(null);
+            Set<Long> paid = bookingNumbers.isEmpty() ? new HashSet<>() : new HashSet<>(paymentRepository.findBookingNumbersIn(bookingNumbers));
+            Map<Long, CreditCard> creditCards = creditCardRepository.findAllById(creditCardIds).stream()
+                .collect(Collectors.toMap(CreditCard::getId, Function.identity()));
+
+            List<Payment> payments = new ArrayList<>(requests.size());
+            for (PaymentRequestDTO request : requests) {
+                Long bookingNumber = parse(request.getBookingNumber());
+                if (bookingNumber == null || !paid.add(bookingNumber)) {
+                    continue;
+                }
+                Double toPay = parseAmount(request.getToPay());
+                CreditCard creditCard = creditCards.get(parse(request.getCreditCardId()));
+                String failure = request.getPassengerId() == null ? "Unknown passenger"
+                    : toPay == null || toPay < 0 ? "Invalid amount to pay"
+                    // a card of another passenger is as unknown to the payer as a card that does not exist
+                    : creditCard == null || !request.getPassengerId().equals(creditCard.getPassengerId()) ? "Unknown credit card"
+                    : !isValid(creditCard) ? "Credit Card Data is not correct"
+                    : null;
+                if (failure != null) {
+                    paymentKafkaProducer.sendPaymentFailure(bookingNumber, failure);
+                    continue;
+                }
+                payments.add(new Payment().bookingNumber(bookingNumber).flightId(parse(request.getFlightId()))
+                    .passengerId(request.getPassengerId())
+                    .toPay(toPay).creditCard(creditCard).status(EPaymentStatus.PENDING).updatedAt(now));
+            }
+            List<Payment> saved = paymentRepository.saveAll(payments);
+            saved.forEach(payment -> paymentAuthorizer.submit(payment.getId()));
+            return saved;
+        });
+    }
+
+    /**
+     * Refunds bookings, recording the refunds of their authorized payments in the ledger, and deleting them in one
+     * statement.
+     *
+     * @param bookingNumbers the booking numbers to refund.
+     * @return the number of payments refunded.
+     */
+    public int refund(Collection<Long> bookingNumbers) {
+        if (bookingNumbers.isEmpty()) {
+            return 0;
+        }
+        Integer refunded = transactionTemplate.execute(status -> {
+            ledgerService.recordRefunds(paymentRepository.findAllForUpdateByBookingNumberIn(bookingNumbers));
+            return paymentRepository.deleteByBookingNumberIn(bookingNumbers);
+        });
+        logger.debug("Refunded {} payments of {} bookings", refunded, bookingNumbers.size());
+        return refunded == null ? 0 : refunded;
+    }
+
+    private static boolean isValid(CreditCard card) {
+        return card.getValidityDate() != null && card.getCardNumber() != null && card.getCardNumber() >= 0
+            && card.getCvc() != null && card.getCvc() >= 0;
+    }
+
+    private static Long parse(String value) {
+        try {
+            return value == null ? null : Long.valueOf(value);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private static Double parseAmount(String value) {
+        try {
+            return value == null ? null : Double.valueOf(value);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        logger.debug("Shutdown Kafka consumer");
+        closed.set(true);
+        if (consumer != null) {
+            consumer.wakeup();
+        }
+        executorService.shutdown();
+    }
+}
@@ -2,54 +2,61 @@ package payments.service;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
-import org.apache.kafka.clients.producer.KafkaProducer;
-import org.apache.kafka.clients.producer.ProducerRecord;
+import fms.common.service.KafkaEventPublisher;
+import fms.common.service.OutboxService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
-import payments.config.KafkaProperties;
 import payments.domain.Payment;
+import payments.service.dto.CheckoutFailureDTO;
 import payments.service.dto.PaymentDTO;
 
-import javax.annotation.PostConstruct;
-import javax.annotation.PreDestroy;
-
 @Service
 public class PaymentKafkaProducer {
 
     private static final Logger logger = LoggerFactory.getLogger(PaymentKafkaProducer.class);
     private static final String TOPIC_PAYMENT_SET = "payment_set";
+    private static final String TOPIC_PAYMENT_FAILED = "payment_failed";
 
     private final ObjectMapper objectMapper = new ObjectMapper();
-    private final KafkaProperties kafkaProperties;
-    private KafkaProducer<String, String> producer;
-
-    public PaymentKafkaProducer(KafkaProperties kafkaProperties) {
-        this.kafkaProperties = kafkaProperties;
-    }
+    private final OutboxService outboxService;
 
-    @PostConstruct
-    public void initialize() {
-        this.producer = new KafkaProducer<>(kafkaProperties.getProducerProps());
-        Runtime.getRuntime().addShutdownHook(new Thread(this::shutdown));
-        logger.debug("Payment kafka producer initialized.");
+    public PaymentKafkaProducer(OutboxService outboxService, KafkaEventPublisher kafkaEventPublisher) {
+        this.outboxService = outboxService;
+        kafkaEventPublisher.declareTopics(TOPIC_PAYMENT_SET, TOPIC_PAYMENT_FAILED);
     }
 
+    /**
+     * Publishes a payment event, keyed by booking number so the events of a booking stay in order.
+     * The event is written to the outbox, and sent only if the current transaction commits.
+     *
+     * @param payment the payment.
+     */
     public void sendPaymentSuccess(Payment payment) {
         try{
             PaymentDTO paymentDTO = new PaymentDTO(payment);
             String message = objectMapper.writeValueAsString(paymentDTO);
-            ProducerRecord<String, String> event = new ProducerRecord<>(TOPIC_PAYMENT_SET, message);
-            logger.debug("Produced an event for topic {} : {}", TOPIC_PAYMENT_SET, event.value());
-            producer.send(event);
+            outboxService.append(TOPIC_PAYMENT_SET, String.valueOf(payment.getBookingNumber()), message);
         } catch (JsonProcessingException e) {
             logger.error(e.getMessage());
         }
     }
 
-    @PreDestroy
-    private void shutdown() {
-        logger.debug("Payment kafka producer shutting down");
-        producer.close();
+    /**
+     * Publishes the failure of a requested payment, keyed and written to the outbox as the payment events.
+     *
+     * @param bookingNumber the booking that could not be paid.
+     * @param reason why.
+     */
+    public void sendPaymentFailure(Long bookingNumber, String reason) {
+        try{
+            CheckoutFailureDTO checkoutFailureDTO = new CheckoutFailureDTO();
+            checkoutFailureDTO.setBookingNumber(String.valueOf(bookingNumber));
+            checkoutFailureDTO.setReason(reason);
+            String message = objectMapper.writeValueAsString(checkoutFailureDTO);
+            outboxService.append(TOPIC_PAYMENT_FAILED, String.valueOf(bookingNumber), message);
+        } catch (JsonProcessingException e) {
+            logger.error(e.getMessage());
+        }
     }
 }
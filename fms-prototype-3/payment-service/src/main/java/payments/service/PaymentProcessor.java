@@ -0,0 +1,55 @@
+package payments.service;
+
+import payments.domain.Payment;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Authorizes payments against a card processor, see {@link PaymentAuthorizer}.
+ * <p>
+ * An authorization either approves or declines the payment. A processor that could not tell completes its future
+ * exceptionally, and the attempt is retried: processors are given the id of the payment to recognize a retry by.
+ */
+public interface PaymentProcessor {
+
+    /**
+     * Authorizes a payment.
+     *
+     * @param payment the payment, with its credit card.
+     * @return the authorization, completed exceptionally if the processor could not tell.
+     */
+    CompletableFuture<Authorization> authorize(Payment payment);
+
+    /**
+     * The answer of the processor to a payment.
+     */
+    final class Authorization {
+
+        private final boolean approved;
+        private final String reason;
+
+        private Authorization(boolean approved, String reason) {
+            this.approved = approved;
+            this.reason = reason;
+        }
+
+        public static Authorization approved() {
+            return new Authorization(true, null);
+        }
+
+        public static Authorization declined(String reason) {
+            return new Authorization(false, reason);
+        }
+
+        public boolean isApproved() {
+            return approved;
+        }
+
+        /**
+         * @return why the payment was declined, {@code null} if it was approved.
+         */
+        public String getReason() {
+            return reason;
+        }
+    }
+}
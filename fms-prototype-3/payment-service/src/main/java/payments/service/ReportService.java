@@ -0,0 +1,225 @@
+package payments.service;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ResultSetExtractor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import payments.config.ApplicationProperties;
+import payments.domain.enumeration.ELedgerEntryKind;
+
+import javax.sql.DataSource;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.Date;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.Locale;
+
+/**
+ * Streams the daily reports of the payments, read from the ledger kept by the {@link LedgerService}: it has every
+ * payment, adjustment and refund on the day it happened, whatever happens to the {@code payment} rows since.
+ * <p>
+ * The database sums the entries of each day and group, and the rows of the report are written out as they are
+ * fetched, {@code fetch-size} at a time, so that a report takes the same memory whatever the number of payments.
+ * Days are UTC days.
+ */
+@Service
+@Transactional(readOnly = true)
+public class ReportService {
+
+    private static final Logger log = LoggerFactory.getLogger(ReportService.class);
+
+    public static final String CSV_SEPARATOR = ";";
+
+    private static final JsonFactory JSON_FACTORY = new JsonFactory()
+        .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET)
+        .setRootValueSeparator(null);
+
+    private static final String REVENUE_SQL = "select cast(e.created_at as date) as payment_day%s,"
+        + " sum(case when e.kind = ? then 1 else 0 end) as payments,"
+        + " coalesce(sum(case when e.kind <> ? then e.amount end), 0) as paid,"
+        + " sum(case when e.kind = ? then 1 else 0 end) as refunds,"
+        + " coalesce(-sum(case when e.kind = ? then e.amount end), 0) as refunded,"
+        + " sum(e.amount) as net"
+        + " from ledger_entry e"
+        + " where e.account = ? and e.created_at >= ? and e.created_at < ?"
+        + " group by cast(e.created_at as date)%s"
+        + " order by 1%s";
+
+    private static final String RECONCILIATION_SQL = "select cast(e.created_at as date) as ledger_day,"
+        + " count(distinct e.journal) as journals,"
+        + " coalesce(sum(case when e.account = ? then e.amount end), 0) as clearing,"
+        + " coalesce(sum(case when e.account = ? then e.amount end), 0) as revenue,"
+        + " coalesce(sum(case when e.account = ? then e.amount end), 0) as refunds,"
+        + " sum(e.amount) as imbalance"
+        + " from ledger_entry e"
+        + " where e.created_at >= ? and e.created_at < ?"
+        + " group by cast(e.created_at as date)"
+        + " order by 1";
+
+    /**
+     * The format of a report: a header line then a line a row, separated by {@value #CSV_SEPARATOR}, or a JSON
+     * object a line.
+     */
+    public enum Format {
+        CSV, NDJSON
+    }
+
+    /**
+     * What the revenue is totalled by, on top of the day.
+     */
+    public enum Grouping {
+        DAY(null), CARD_TYPE("card_type"), PASSENGER("passenger_id"), FLIGHT("flight_id");
+
+        private final String column;
+
+        Grouping(String column) {
+            this.column = column;
+        }
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public ReportService(ApplicationProperties applicationProperties, DataSource dataSource) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.jdbcTemplate.setFetchSize(applicationProperties.getReports().getFetchSize());
+    }
+
+    /**
+     * Write the revenue of the days from {@code from} to {@code to} included: the payments authorized, the amount
+     * they and their adjustments brought in, the refunds and their amount, and the net amount due by the processor.
+     *
+     * @param grouping what the revenue of each day is totalled by.
+     * @param from the first day.
+     * @param to the last day.
+     * @param format the format of the report.
+     * @param out where to write the report to, left open.
+     * @return the number of rows written.
+     * @throws IOException if the report could not be written, usually because the client went away.
+     */
+    public long revenue(Grouping grouping, LocalDate from, LocalDate to, Format format, OutputStream out) throws IOException {
+        log.debug("Request to report the revenue by {} from {} to {}", grouping, from, to);
+        String sql = grouping.column == null ? String.format(REVENUE_SQL, "", "", "")
+            : String.format(REVENUE_SQL, ", e." + grouping.column, ", e." + grouping.column, ", 2");
+        String payment = ELedgerEntryKind.PAYMENT.name();
+        String refund = ELedgerEntryKind.REFUND.name();
+        return query(sql, format, out, payment, refund, refund, refund, LedgerService.CLEARING,
+            from.atStartOfDay(), to.plusDays(1).atStartOfDay());
+    }
+
+    /**
+     * Write what each account of the ledger moved by on the days from {@code from} to {@code to} included, and the
+     * imbalance of each day, zero unless a journal is missing a leg.
+     *
+     * @param from the first day.
+     * @param to the last day.
+     * @param format the format of the report.
+     * @param out where to write the report to, left open.
+     * @return the number of rows written.
+     * @throws IOException if the report could not be written, usually because the client went away.
+     */
+    public long reconciliation(LocalDate from, LocalDate to, Format format, OutputStream out) throws IOException {
+        log.debug("Request to report the reconciliation of the ledger from {} to {}", from, to);
+        return query(RECONCILIATION_SQL, format, out, LedgerService.CLEARING, LedgerService.REVENUE,
+            LedgerService.REFUNDS, from.atStartOfDay(), to.plusDays(1).atStartOfDay());
+    }
+
+    private long query(String sql, Format format, OutputStream out, Object... args) throws IOException {
+        try {
+            Long rows = jdbcTemplate.query(sql, (ResultSetExtractor<Long>) resultSet -> {
+                try {
+                    return write(resultSet, format, out);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }, args);
+            return rows == null ? 0 : rows;
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    private static long write(ResultSet resultSet, Format format, OutputStream out) throws SQLException, IOException {
+        ResultSetMetaData metaData = resultSet.getMetaData();
+        String[] columns = new String[metaData.getColumnCount()];
+        for (int i = 0; i < columns.length; i++) {
+            columns[i] = metaData.getColumnLabel(i + 1).toLowerCase(Locale.ROOT);
+        }
+        long rows = 0;
+        if (format == Format.CSV) {
+            Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+            writer.write(String.join(CSV_SEPARATOR, columns));
+            writer.write('\n');
+            while (resultSet.next()) {
+                for (int i = 0; i < columns.length; i++) {
+                    if (i > 0) {
+                        writer.write(CSV_SEPARATOR);
+                    }
+                    writer.write(csv(resultSet.getObject(i + 1)));
+                }
+                writer.write('\n');
+                rows++;
+            }
+            writer.flush();
+        } else {
+            JsonGenerator generator = JSON_FACTORY.createGenerator(out);
+            while (resultSet.next()) {
+                generator.writeStartObject();
+                for (int i = 0; i < columns.length; i++) {
+                    generator.writeFieldName(columns[i]);
+                    json(generator, resultSet.getObject(i + 1));
+                }
+                generator.writeEndObject();
+                generator.writeRaw('\n');
+                rows++;
+            }
+            generator.flush();
+        }
+        return rows;
+    }
+
+    private static String csv(Object value) {
+        String text = text(value);
+        if (text.contains(CSV_SEPARATOR) || text.contains("\"") || text.contains("\n")) {
+            return '"' + text.replace("\"", "\"\"") + '"';
+        }
+        return text;
+    }
+
+    private static void json(JsonGenerator generator, Object value) throws IOException {
+        if (value instanceof BigDecimal) {
+            generator.writeNumber((BigDecimal) value);
+        } else if (value instanceof Number) {
+            generator.writeNumber(value.toString());
+        } else if (value == null) {
+            generator.writeNull();
+        } else {
+            generator.writeString(text(value));
+        }
+    }
+
+    private static String text(Object value) {
+        if (value == null) {
+            return "";
+        }
+        if (value instanceof BigDecimal) {
+            return ((BigDecimal) value).toPlainString();
+        }
+        if (value instanceof Date) {
+            return ((Date) value).toLocalDate().toString();
+        }
+        return value.toString();
+    }
+}
@@ -0,0 +1,68 @@
+package payments.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import payments.config.ApplicationProperties;
+import payments.domain.Payment;
+
+import javax.annotation.PreDestroy;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.DoubleSupplier;
+
+/**
+ * A local {@link PaymentProcessor}, standing in for a real one: it answers after a configured latency, fails and
+ * declines the configured shares of the payments, and approves the others.
+ * <p>
+ * Answers are scheduled rather than waited for, so a slow stub holds no thread while it makes the authorizer wait.
+ */
+@Service
+public class StubPaymentProcessor implements PaymentProcessor {
+
+    private final ApplicationProperties.Stub properties;
+    private final DoubleSupplier draws;
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "payment-processor-stub");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    @Autowired
+    public StubPaymentProcessor(ApplicationProperties applicationProperties) {
+        this(applicationProperties.getAuthorization().getStub(), new Random()::nextDouble);
+    }
+
+    StubPaymentProcessor(ApplicationProperties.Stub properties, DoubleSupplier draws) {
+        this.properties = properties;
+        this.draws = draws;
+    }
+
+    @Override
+    public CompletableFuture<Authorization> authorize(Payment payment) {
+        CompletableFuture<Authorization> authorization = new CompletableFuture<>();
+        double draw = draws.getAsDouble();
+        Runnable answer = () -> {
+            if (draw < properties.getFailureRate()) {
+                authorization.completeExceptionally(new IllegalStateException("The processor is unavailable"));
+            } else if (draw < properties.getFailureRate() + properties.getDeclineRate()) {
+                authorization.complete(Authorization.declined("Declined by the processor"));
+            } else {
+                authorization.complete(Authorization.approved());
+            }
+        };
+        if (properties.getLatencyMillis() > 0) {
+            scheduler.schedule(answer, properties.getLatencyMillis(), TimeUnit.MILLISECONDS);
+        } else {
+            answer.run();
+        }
+        return authorization;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        scheduler.shutdownNow();
+    }
+}
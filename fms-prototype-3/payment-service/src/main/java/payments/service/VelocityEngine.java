@@ -0,0 +1,401 @@
+package payments.service;
+
+import com.hazelcast.core.HazelcastInstance;
+import com.hazelcast.core.ITopic;
+import com.hazelcast.core.Message;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import payments.config.ApplicationProperties;
+import payments.config.ApplicationProperties.Rule;
+import payments.domain.CreditCard;
+import payments.domain.Payment;
+
+import javax.annotation.PreDestroy;
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.Serializable;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.time.Clock;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Checks payments against velocity rules, at most so many payments by the same card, passenger or booking within a
+ * sliding window, to stop card-testing bursts before they reach the processor.
+ * <p>
+ * Payments are counted in memory rather than in the {@code payment} table: each card, passenger and booking has a
+ * ring of buckets, one per {@code bucket-millis}, updated by compare-and-set, so checking a payment takes a bounded
+ * number of atomic operations whatever the traffic, and takes no lock. Windows slide one bucket at a time.
+ * <p>
+ * Instances share their counts over a Hazelcast topic: the payments counted here are published every
+ * {@code flush-millis}, and added to the windows of the other instances, so a burst spread over the instances is
+ * seen by each of them, one flush late at most.
+ * <p>
+ * A payment is counted once in any window, however many times it is checked: a payment the sweep of the
+ * {@link PaymentAuthorizer} authorizes again is checked against the counts it is already part of. The ids of the
+ * payments counted are kept for as long as the ring of buckets, and shared with the other instances with the counts.
+ * <p>
+ * Cards are never counted by their number, which would then be kept here and published in plain text: they are
+ * counted by an HMAC of their number under {@code card-key-secret}, so that a card registered twice is still one card,
+ * or by their id if no secret is configured.
+ */
+@Service
+public class VelocityEngine {
+
+    private static final Logger log = LoggerFactory.getLogger(VelocityEngine.class);
+
+    public static final String VELOCITY_TOPIC = "payment-velocity";
+
+    /**
+     * Bits of a bucket holding its count, the others holding the number of the bucket since the epoch.
+     */
+    private static final int COUNT_BITS = 20;
+    private static final long COUNT_MASK = (1L << COUNT_BITS) - 1;
+
+    private static final String CARD_KEY_ALGORITHM = "HmacSHA256";
+    /**
+     * Bytes of the HMAC kept in a card key, which is plenty to tell the cards counted within a window apart.
+     */
+    private static final int CARD_KEY_BYTES = 16;
+
+    private final ApplicationProperties.Velocity properties;
+    private final ITopic<Delta> velocityTopic;
+    private final Clock clock;
+    private final String origin = UUID.randomUUID().toString();
+    private final Map<Rule.Dimension, ConcurrentMap<String, Window>> windows = new EnumMap<>(Rule.Dimension.class);
+    private final Map<Rule.Dimension, int[]> rules = new EnumMap<>(Rule.Dimension.class);
+    private final Map<Rule.Dimension, Counter> declined = new EnumMap<>(Rule.Dimension.class);
+    private final Map<Rule.Dimension, ConcurrentMap<String, LongAdder>> unpublished = new EnumMap<>(Rule.Dimension.class);
+    private final ConcurrentMap<Long, Long> counted = new ConcurrentHashMap<>();
+    private final Set<Long> unpublishedPayments = ConcurrentHashMap.newKeySet();
+    private final ThreadLocal<Mac> cardKeyMacs;
+    private long swept = -1;
+    private ScheduledExecutorService flusher;
+
+    @Autowired
+    public VelocityEngine(ApplicationProperties applicationProperties, HazelcastInstance hazelcastInstance,
+                          MeterRegistry meterRegistry) {
+        this(applicationProperties.getVelocity(), hazelcastInstance.getTopic(VELOCITY_TOPIC), Clock.systemUTC(), meterRegistry);
+    }
+
+    VelocityEngine(ApplicationProperties.Velocity properties, ITopic<Delta> velocityTopic, Clock clock, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.velocityTopic = velocityTopic;
+        this.clock = clock;
+        this.cardKeyMacs = cardKeyMacs(properties.getCardKeySecret());
+        for (Rule.Dimension dimension : Rule.Dimension.values()) {
+            ConcurrentMap<String, Window> dimensionWindows = new ConcurrentHashMap<>();
+            windows.put(dimension, dimensionWindows);
+            unpublished.put(dimension, new ConcurrentHashMap<>());
+            Gauge.builder("payments.velocity.windows", dimensionWindows, Map::size)
+                .tag("dimension", dimension.name().toLowerCase()).register(meterRegistry);
+            declined.put(dimension, meterRegistry.counter("payments.velocity.declined", "dimension", dimension.name().toLowerCase()));
+        }
+        // the rules are read once, as (buckets, limit) pairs by dimension
+        for (Rule rule : properties.getRules()) {
+            int buckets = (int) Math.max(1, Math.min(properties.getBuckets(),
+                (rule.getWindowMillis() + properties.getBucketMillis() - 1) / properties.getBucketMillis()));
+            int[] previous = rules.getOrDefault(rule.getDimension(), new int[0]);
+            int[] merged = new int[previous.length + 2];
+            System.arraycopy(previous, 0, merged, 0, previous.length);
+            merged[previous.length] = buckets;
+            merged[previous.length + 1] = rule.getLimit();
+            rules.put(rule.getDimension(), merged);
+        }
+        if (velocityTopic != null) {
+            velocityTopic.addMessageListener(this::receive);
+        }
+    }
+
+    /**
+     * Starts publishing the payments counted here, once the application is ready.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "payment-velocity-flush");
+            thread.setDaemon(true);
+            return thread;
+        });
+        flusher.scheduleWithFixedDelay(this::flush, properties.getFlushMillis(), properties.getFlushMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Counts a payment by its card, passenger and booking, unless it was counted already, and checks it against the
+     * rules.
+     *
+     * @param payment the payment, with its credit card.
+     * @return why the payment breaks a rule, or {@code null} if it breaks none.
+     */
+    public String check(Payment payment) {
+        if (!properties.isEnabled()) {
+            return null;
+        }
+        long bucket = clock.millis() / properties.getBucketMillis();
+        boolean add = firstCount(payment.getId(), bucket);
+        // every dimension counts the payment, even once it broke a rule in another
+        String card = count(Rule.Dimension.CARD, cardKey(payment.getCreditCard()), bucket, add);
+        String passenger = count(Rule.Dimension.PASSENGER, payment.getPassengerId(), bucket, add);
+        String booking = count(Rule.Dimension.BOOKING, payment.getBookingNumber(), bucket, add);
+        return card != null ? card : passenger != null ? passenger : booking;
+    }
+
+    /**
+     * @return whether the payment is not counted in the windows yet, marking it counted.
+     */
+    private boolean firstCount(Long paymentId, long bucket) {
+        if (paymentId == null) {
+            return true;
+        }
+        Long previous = counted.putIfAbsent(paymentId, bucket);
+        if (previous == null) {
+            unpublishedPayments.add(paymentId);
+            return true;
+        }
+        // counted so long ago that it left the ring
+        if (previous <= bucket - properties.getBuckets() && counted.replace(paymentId, previous, bucket)) {
+            unpublishedPayments.add(paymentId);
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * @return the HMACs of card numbers, one per thread checking payments, or {@code null} if there is no secret.
+     */
+    private static ThreadLocal<Mac> cardKeyMacs(String secret) {
+        if (secret == null || secret.isEmpty()) {
+            return null;
+        }
+        SecretKeySpec key = new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), CARD_KEY_ALGORITHM);
+        ThreadLocal<Mac> macs = ThreadLocal.withInitial(() -> {
+            try {
+                Mac mac = Mac.getInstance(CARD_KEY_ALGORITHM);
+                mac.init(key);
+                return mac;
+            } catch (GeneralSecurityException e) {
+                throw new IllegalStateException("Could not hash card numbers with " + CARD_KEY_ALGORITHM, e);
+            }
+        });
+        // fail on start rather than on the first payment
+        macs.get();
+        return macs;
+    }
+
+    /**
+     * @return the key the card is counted by, an HMAC of its number, or its id if there is no secret to hash it with.
+     */
+    String cardKey(CreditCard card) {
+        if (card == null) {
+            return null;
+        }
+        if (cardKeyMacs == null || card.getCardNumber() == null) {
+            return card.getId() == null ? null : card.getId().toString();
+        }
+        byte[] hash = cardKeyMacs.get().doFinal(card.getCardNumber().toString().getBytes(StandardCharsets.UTF_8));
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(Arrays.copyOf(hash, CARD_KEY_BYTES));
+    }
+
+    private String count(Rule.Dimension dimension, Object key, long bucket, boolean add) {
+        if (key == null) {
+            return null;
+        }
+        String id = key.toString();
+        Window window = window(dimension, id);
+        long count;
+        if (add) {
+            count = window.add(bucket, 1);
+            // counted for the other instances, if any
+            if (velocityTopic != null) {
+                unpublished.get(dimension).computeIfAbsent(id, k -> new LongAdder()).increment();
+            }
+        } else {
+            count = window.sum(bucket, 1);
+        }
+        int[] limits = rules.get(dimension);
+        if (limits == null) {
+            return null;
+        }
+        for (int i = 0; i < limits.length; i += 2) {
+            // the count of this bucket as it was counted, not as other checks counted on since
+            long total = limits[i] == 1 ? count : count + window.sum(bucket - 1, limits[i] - 1);
+            if (total > limits[i + 1]) {
+                declined.get(dimension).increment();
+                return "Too many payments by the same " + dimension.name().toLowerCase();
+            }
+        }
+        return null;
+    }
+
+    private Window window(Rule.Dimension dimension, String id) {
+        return windows.get(dimension).computeIfAbsent(id, k -> new Window(properties.getBuckets()));
+    }
+
+    /**
+     * Publishes the payments counted here since the last flush, and forgets the windows left empty.
+     */
+    void flush() {
+        try {
+            long bucket = clock.millis() / properties.getBucketMillis();
+            if (velocityTopic == null) {
+                unpublishedPayments.clear();
+            } else {
+                HashMap<String, Long> counts = new HashMap<>();
+                unpublished.forEach((dimension, adders) -> adders.forEach((id, adder) -> {
+                    long count = adder.sumThenReset();
+                    if (count > 0) {
+                        counts.put(dimension.name() + ':' + id, count);
+                    }
+                }));
+                HashSet<Long> payments = new HashSet<>();
+                for (Iterator<Long> ids = unpublishedPayments.iterator(); ids.hasNext(); ) {
+                    payments.add(ids.next());
+                    ids.remove();
+                }
+                if (!counts.isEmpty() || !payments.isEmpty()) {
+                    velocityTopic.publish(new Delta(origin, bucket, counts, payments));
+                }
+            }
+            unpublished.values().forEach(adders -> adders.values().removeIf(adder -> adder.sum() == 0));
+            // nothing leaves the ring until the next bucket
+            if (bucket != swept) {
+                swept = bucket;
+                counted.values().removeIf(countedIn -> countedIn <= bucket - properties.getBuckets());
+                windows.values().forEach(dimensionWindows ->
+                    dimensionWindows.values().removeIf(window -> window.isEmpty(bucket)));
+            }
+        } catch (RuntimeException e) {
+            log.warn("Could not publish the payments counted: {}", e.getMessage());
+        }
+    }
+
+    private void receive(Message<Delta> message) {
+        Delta delta = message.getMessageObject();
+        if (origin.equals(delta.origin)) {
+            return;
+        }
+        delta.counts.forEach((key, count) -> {
+            int separator = key.indexOf(':');
+            try {
+                Rule.Dimension dimension = Rule.Dimension.valueOf(key.substring(0, separator));
+                window(dimension, key.substring(separator + 1)).add(delta.bucket, count);
+            } catch (IllegalArgumentException | StringIndexOutOfBoundsException e) {
+                log.debug("Skipped the velocity count of {}", key);
+            }
+        });
+        // none from an instance that does not share them yet
+        if (delta.payments != null) {
+            delta.payments.forEach(paymentId -> counted.merge(paymentId, delta.bucket, Math::max));
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (flusher != null) {
+            flusher.shutdownNow();
+        }
+    }
+
+    /**
+     * The payments counted by another instance since its last flush, by dimension and key, and their ids.
+     */
+    static final class Delta implements Serializable {
+
+        private static final long serialVersionUID = 1L;
+
+        private final String origin;
+        private final long bucket;
+        private final HashMap<String, Long> counts;
+        private final HashSet<Long> payments;
+
+        Delta(String origin, long bucket, HashMap<String, Long> counts, HashSet<Long> payments) {
+            this.origin = origin;
+            this.bucket = bucket;
+            this.counts = counts;
+            this.payments = payments;
+        }
+    }
+
+    /**
+     * A ring of buckets, each holding the number of its bucket and its count in one long, so that moving a slot on
+     * to a new bucket and counting in it is a single compare-and-set.
+     */
+    static final class Window {
+
+        private final AtomicLongArray slots;
+        /**
+         * The last bucket counted in, so that an empty window is told without reading its slots.
+         */
+        private final AtomicLong last = new AtomicLong();
+
+        Window(int buckets) {
+            this.slots = new AtomicLongArray(buckets);
+        }
+
+        /**
+         * @return the count of the bucket, once added to; 0 if the bucket already left the ring.
+         */
+        long add(long bucket, long count) {
+            if (bucket > last.get()) {
+                last.accumulateAndGet(bucket, Math::max);
+            }
+            int slot = (int) (bucket % slots.length());
+            while (true) {
+                long current = slots.get(slot);
+                long currentBucket = current >>> COUNT_BITS;
+                long next;
+                if (currentBucket == bucket) {
+                    next = (bucket << COUNT_BITS) | Math.min(COUNT_MASK, (current & COUNT_MASK) + count);
+                } else if (currentBucket < bucket) {
+                    next = (bucket << COUNT_BITS) | Math.min(COUNT_MASK, count);
+                } else {
+                    return 0;
+                }
+                if (slots.compareAndSet(slot, current, next)) {
+                    return next & COUNT_MASK;
+                }
+            }
+        }
+
+        /**
+         * @return the count of the {@code buckets} last buckets, up to {@code bucket}.
+         */
+        long sum(long bucket, int buckets) {
+            long sum = 0;
+            for (int i = 0; i < buckets && i <= bucket; i++) {
+                long current = slots.get((int) ((bucket - i) % slots.length()));
+                if (current >>> COUNT_BITS == bucket - i) {
+                    sum += current & COUNT_MASK;
+                }
+            }
+            return sum;
+        }
+
+        boolean isEmpty(long bucket) {
+            return last.get() <= bucket - slots.length();
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package payments.service.dto;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+
+/**
+ * The balance of an account of the ledger: its latest snapshot, if any, plus the entries created after it.
+ */
+public class LedgerBalanceDTO {
+
+    private String account;
+    private BigDecimal balance;
+    private Instant snapshotUpTo;
+
+    public LedgerBalanceDTO() {
+    }
+
+    public LedgerBalanceDTO(String account, BigDecimal balance, Instant snapshotUpTo) {
+        this.account = account;
+        this.balance = balance;
+        this.snapshotUpTo = snapshotUpTo;
+    }
+
+    public String getAccount() {
+        return account;
+    }
+
+    public void setAccount(String account) {
+        this.account = account;
+    }
+
+    public BigDecimal getBalance() {
+        return balance;
+    }
+
+    public void setBalance(BigDecimal balance) {
+        this.balance = balance;
+    }
+
+    /**
+     * @return up to when the entries of the account are summed in its latest snapshot, {@code null} if it has none.
+     */
+    public Instant getSnapshotUpTo() {
+        return snapshotUpTo;
+    }
+
+    public void setSnapshotUpTo(Instant snapshotUpTo) {
+        this.snapshotUpTo = snapshotUpTo;
+    }
+}
@@ -0,0 +1,63 @@
+package payments.service.dto;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The outcome of a replay of the ledger, rebuilding the snapshots of the balances of its accounts.
+ */
+public class LedgerReplayDTO {
+
+    private Instant upTo;
+    private long entries;
+    private long journals;
+    private List<String> unbalancedJournals = new ArrayList<>();
+    private List<LedgerBalanceDTO> balances = new ArrayList<>();
+
+    /**
+     * @return up to when the entries were replayed.
+     */
+    public Instant getUpTo() {
+        return upTo;
+    }
+
+    public void setUpTo(Instant upTo) {
+        this.upTo = upTo;
+    }
+
+    public long getEntries() {
+        return entries;
+    }
+
+    public void setEntries(long entries) {
+        this.entries = entries;
+    }
+
+    public long getJournals() {
+        return journals;
+    }
+
+    public void setJournals(long journals) {
+        this.journals = journals;
+    }
+
+    /**
+     * @return the journals whose entries do not sum to zero, which the balances still include.
+     */
+    public List<String> getUnbalancedJournals() {
+        return unbalancedJournals;
+    }
+
+    public void setUnbalancedJournals(List<String> unbalancedJournals) {
+        this.unbalancedJournals = unbalancedJournals;
+    }
+
+    public List<LedgerBalanceDTO> getBalances() {
+        return balances;
+    }
+
+    public void setBalances(List<LedgerBalanceDTO> balances) {
+        this.balances = balances;
+    }
+}
@@ -0,0 +1,53 @@
+package payments.service.dto;
+
+/**
+ * Asks to pay for a booking, on {@code payment_requested}.
+ */
+public class PaymentRequestDTO {
+
+    private String bookingNumber;
+    private String passengerId;
+    private String flightId;
+    private String toPay;
+    private String creditCardId;
+
+    public String getBookingNumber() {
+        return bookingNumber;
+    }
+
+    public void setBookingNumber(String bookingNumber) {
+        this.bookingNumber = bookingNumber;
+    }
+
+    public String getPassengerId() {
+        return passengerId;
+    }
+
+    public void setPassengerId(String passengerId) {
+        this.passengerId = passengerId;
+    }
+
+    public String getFlightId() {
+        return flightId;
+    }
+
+    public void setFlightId(String flightId) {
+        this.flightId = flightId;
+    }
+
+    public String getToPay() {
+        return toPay;
+    }
+
+    public void setToPay(String toPay) {
+        this.toPay = toPay;
+    }
+
+    public String getCreditCardId() {
+        return creditCardId;
+    }
+
+    public void setCreditCardId(String creditCardId) {
+        this.creditCardId = creditCardId;
+    }
+}
@@ -2,16 +2,22 @@ package payments.web.rest;
 
 import payments.domain.CreditCard;
 import payments.repository.CreditCardRepository;
+import payments.security.SecurityUtils;
 import payments.web.rest.errors.BadRequestAlertException;
 
 import io.github.jhipster.web.util.HeaderUtil;
+import io.github.jhipster.web.util.PaginationUtil;
 import io.github.jhipster.web.util.ResponseUtil;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
 import javax.validation.Valid;
 import java.net.URI;
@@ -53,6 +59,9 @@ public class CreditCardResource {
         if (creditCard.getId() != null) {
             throw new BadRequestAlertException("A new creditCard cannot already have an ID", ENTITY_NAME, "idexists");
         }
+        if (creditCard.getPassengerId() == null) {
+            SecurityUtils.getCurrentUserLogin().ifPresent(creditCard::setPassengerId);
+        }
         CreditCard result = creditCardRepository.save(creditCard);
         return ResponseEntity.created(new URI("/api/credit-cards/" + result.getId()))
             .headers(HeaderUtil.createEntityCreationAlert(applicationName, false, ENTITY_NAME, result.getId().toString()))
@@ -60,11 +69,12 @@ public class CreditCardResource {
     }
 
     /**
-     * {@code PUT  /credit-cards} : Updates an existing creditCard.
+     * {@code PUT  /credit-cards} : Updates an existing creditCard of the connected user, who stays its passenger.
      *
      * @param creditCard the creditCard to update.
      * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the updated creditCard,
      * or with status {@code 400 (Bad Request)} if the creditCard is not valid,
+     * or with status {@code 404 (Not Found)} if the creditCard is not a card of the connected user,
      * or with status {@code 500 (Internal Server Error)} if the creditCard couldn't be updated.
      * @throws URISyntaxException if the Location URI syntax is incorrect.
      */
@@ -74,6 +84,13 @@ public class CreditCardResource {
         if (creditCard.getId() == null) {
             throw new BadRequestAlertException("Invalid id", ENTITY_NAME, "idnull");
         }
+        Optional<CreditCard> stored = SecurityUtils.getCurrentUserLogin()
+            .flatMap(login -> creditCardRepository.findOneByIdAndPassengerId(creditCard.getId(), login));
+        // Return 404 if the entity is not owned by the connected user
+        if (!stored.isPresent()) {
+            return ResponseEntity.notFound().build();
+        }
+        creditCard.setPassengerId(stored.get().getPassengerId());
         CreditCard result = creditCardRepository.save(creditCard);
         return ResponseEntity.ok()
             .headers(HeaderUtil.createEntityUpdateAlert(applicationName, false, ENTITY_NAME, creditCard.getId().toString()))
@@ -81,14 +98,28 @@ public class CreditCardResource {
     }
 
     /**
-     * {@code GET  /credit-cards} : get all the creditCards.
+     * {@code GET  /credit-cards} : get the creditCards of the connected user.
      *
+     * @param filter the filter of the request, {@code payment-is-null} for the cards not used by any payment yet.
+     * @param pageable the pagination information.
      * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the list of creditCards in body.
      */
     @GetMapping("/credit-cards")
-    public List<CreditCard> getAllCreditCards() {
-        log.debug("REST request to get all CreditCards");
-        return creditCardRepository.findAll();
+    public ResponseEntity<List<CreditCard>> getAllCreditCards(@RequestParam(required = false) String filter, Pageable pageable) {
+        Page<CreditCard> page;
+        if ("payment-is-null".equals(filter)) {
+            log.debug("REST request to get a page of the CreditCards of the user where payment is null");
+            page = SecurityUtils.getCurrentUserLogin()
+                .map(login -> creditCardRepository.findAllUnassignedByPassengerId(login, pageable))
+                .orElseGet(() -> Page.empty(pageable));
+        } else {
+            log.debug("REST request to get a page of the CreditCards of the user");
+            page = SecurityUtils.getCurrentUserLogin()
+                .map(login -> creditCardRepository.findAllByPassengerId(login, pageable))
+                .orElseGet(() -> Page.empty(pageable));
+        }
+        HttpHeaders headers = PaginationUtil.generatePaginationHttpHeaders(ServletUriComponentsBuilder.fromCurrentRequest(), page);
+        return ResponseEntity.ok().headers(headers).body(page.getContent());
     }
 
     /**
@@ -100,7 +131,9 @@ public class CreditCardResource {
     @GetMapping("/credit-cards/{id}")
     public ResponseEntity<CreditCard> getCreditCard(@PathVariable Long id) {
         log.debug("REST request to get CreditCard : {}", id);
-        Optional<CreditCard> creditCard = creditCardRepository.findById(id);
+        // Return 404 if the entity is not owned by the connected user
+        Optional<CreditCard> creditCard = SecurityUtils.getCurrentUserLogin()
+            .flatMap(login -> creditCardRepository.findOneByIdAndPassengerId(id, login));
         return ResponseUtil.wrapOrNotFound(creditCard);
     }
 
@@ -108,13 +141,19 @@ public class CreditCardResource {
      * {@code DELETE  /credit-cards/:id} : delete the "id" creditCard.
      *
      * @param id the id of the creditCard to delete.
-     * @return the {@link ResponseEntity} with status {@code 204 (NO_CONTENT)}.
+     * @return the {@link ResponseEntity} with status {@code 204 (NO_CONTENT)},
+     * or with status {@code 404 (Not Found)} if the creditCard is not a card of the connected user.
      */
     @DeleteMapping("/credit-cards/{id}")
     public ResponseEntity<Void> deleteCreditCard(@PathVariable Long id) {
         log.debug("REST request to delete CreditCard : {}", id);
-
-        creditCardRepository.deleteById(id);
+        Optional<CreditCard> creditCard = SecurityUtils.getCurrentUserLogin()
+            .flatMap(login -> creditCardRepository.findOneByIdAndPassengerId(id, login));
+        // Return 404 if the entity is not owned by the connected user
+        if (!creditCard.isPresent()) {
+            return ResponseEntity.notFound().build();
+        }
+        creditCardRepository.delete(creditCard.get());
         return ResponseEntity.noContent().headers(HeaderUtil.createEntityDeletionAlert(applicationName, false, ENTITY_NAME, id.toString())).build();
     }
 }
@@ -0,0 +1,57 @@
+package payments.web.rest;
+
+import payments.security.AuthoritiesConstants;
+import payments.service.LedgerService;
+import payments.service.dto.LedgerBalanceDTO;
+import payments.service.dto.LedgerReplayDTO;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+/**
+ * REST controller for the payment ledger, see {@link LedgerService}, for the administrators.
+ */
+@RestController
+@RequestMapping("/api/ledger")
+@PreAuthorize("hasAuthority(\"" + AuthoritiesConstants.ADMIN + "\")")
+public class LedgerResource {
+
+    private final Logger log = LoggerFactory.getLogger(LedgerResource.class);
+
+    private final LedgerService ledgerService;
+
+    public LedgerResource(LedgerService ledgerService) {
+        this.ledgerService = ledgerService;
+    }
+
+    /**
+     * {@code GET  /ledger/balances/:account} : get the balance of the "account" account.
+     *
+     * @param account the account.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the balance, zero for an account
+     * without entries.
+     */
+    @GetMapping("/balances/{account}")
+    public LedgerBalanceDTO getBalance(@PathVariable String account) {
+        log.debug("REST request to get the ledger balance of {}", account);
+        return ledgerService.balance(account);
+    }
+
+    /**
+     * {@code POST  /ledger/snapshots/replay} : rebuild the snapshots of the balances by replaying the whole ledger.
+     *
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the outcome of the replay, or
+     * with status {@code 409 (Conflict)} if snapshots are being taken meanwhile.
+     */
+    @PostMapping("/snapshots/replay")
+    public ResponseEntity<LedgerReplayDTO> replay() {
+        log.debug("REST request to replay the ledger");
+        return ledgerService.replay()
+            .map(ResponseEntity::ok)
+            .orElseGet(() -> ResponseEntity.status(HttpStatus.CONFLICT).build());
+    }
+}
@@ -1,27 +1,35 @@
 package payments.web.rest;
 
-import payments.domain.CreditCard;
 import payments.domain.Payment;
+import payments.domain.enumeration.EPaymentStatus;
 import payments.repository.PaymentRepository;
 import payments.security.SecurityUtils;
+import payments.service.LedgerService;
+import payments.service.PaymentAuthorizer;
 import payments.service.PaymentKafkaProducer;
 import payments.web.rest.errors.BadRequestAlertException;
 
 import io.github.jhipster.web.util.HeaderUtil;
+import io.github.jhipster.web.util.PaginationUtil;
 import io.github.jhipster.web.util.ResponseUtil;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
 import javax.validation.Valid;
 import java.net.URI;
 import java.net.URISyntaxException;
-import java.time.LocalDate;
-import java.util.ArrayList;
+import java.time.Instant;
+import java.util.Collections;
 import java.util.List;
+import java.util.Objects;
 import java.util.Optional;
 
 /**
@@ -41,14 +49,19 @@ public class PaymentResource {
 
     private final PaymentRepository paymentRepository;
     private final PaymentKafkaProducer paymentKafkaProducer;
+    private final PaymentAuthorizer paymentAuthorizer;
+    private final LedgerService ledgerService;
 
-    public PaymentResource(PaymentRepository paymentRepository, PaymentKafkaProducer paymentKafkaProducer) {
+    public PaymentResource(PaymentRepository paymentRepository, PaymentKafkaProducer paymentKafkaProducer,
+                           PaymentAuthorizer paymentAuthorizer, LedgerService ledgerService) {
         this.paymentRepository = paymentRepository;
         this.paymentKafkaProducer = paymentKafkaProducer;
+        this.paymentAuthorizer = paymentAuthorizer;
+        this.ledgerService = ledgerService;
     }
 
     /**
-     * {@code POST  /payments} : Create a new payment.
+     * {@code POST  /payments} : Create a new payment, pending until the {@link PaymentAuthorizer} authorizes it.
      *
      * @param payment the payment to create.
      * @return the {@link ResponseEntity} with status {@code 201 (Created)} and with body the new payment, or with status {@code 400 (Bad Request)} if the payment has already an ID.
@@ -60,16 +73,9 @@ public class PaymentResource {
         if (payment.getId() != null) {
             throw new BadRequestAlertException("A new payment cannot already have an ID", ENTITY_NAME, "idexists");
         }
-
-        try{
-            checkPayment(payment.getToPay());
-            creditCardValidityCheck(payment.getCreditCard());
-        } catch (Exception e) {
-            log.error(e.getMessage());
-        }
-
+        payment.status(EPaymentStatus.PENDING).statusReason(null).updatedAt(Instant.now());
         Payment result = paymentRepository.save(payment);
-        paymentKafkaProducer.sendPaymentSuccess(result);
+        paymentAuthorizer.submit(result.getId());
 
         return ResponseEntity.created(new URI("/api/payments/" + result.getId()))
             .headers(HeaderUtil.createEntityCreationAlert(applicationName, false, ENTITY_NAME, result.getId().toString()))
@@ -77,11 +83,15 @@ public class PaymentResource {
     }
 
     /**
-     * {@code PUT  /payments} : Updates an existing payment.
+     * {@code PUT  /payments} : Updates an existing payment of the connected user.
+     * <p>
+     * A payment is submitted for authorization as soon as it is created, so its amount and credit card cannot
+     * change afterwards; its status is the {@link PaymentAuthorizer}'s to change.
      *
      * @param payment the payment to update.
      * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the updated payment,
-     * or with status {@code 400 (Bad Request)} if the payment is not valid,
+     * or with status {@code 400 (Bad Request)} if the payment is not valid, or changes its amount or credit card,
+     * or with status {@code 404 (Not Found)} if the payment is not a payment of the connected user,
      * or with status {@code 500 (Internal Server Error)} if the payment couldn't be updated.
      * @throws URISyntaxException if the Location URI syntax is incorrect.
      */
@@ -91,15 +101,26 @@ public class PaymentResource {
         if (payment.getId() == null) {
             throw new BadRequestAlertException("Invalid id", ENTITY_NAME, "idnull");
         }
-        try{
-            checkPayment(payment.getToPay());
-            creditCardValidityCheck(payment.getCreditCard());
-        } catch (Exception e) {
-            log.error(e.getMessage());
+        // locked, so that it is not authorized meanwhile
+        Optional<Payment> stored = SecurityUtils.getCurrentUserLogin()
+            .flatMap(login -> paymentRepository.findOneForUpdate(payment.getId(), login));
+        // Return 404 if the entity is not owned by the connected user
+        if (!stored.isPresent()) {
+            return ResponseEntity.notFound().build();
+        }
+        Payment current = stored.get();
+        if (!Objects.equals(payment.getToPay(), current.getToPay()) || payment.getCreditCard() == null
+            || !Objects.equals(payment.getCreditCard().getId(), current.getCreditCard().getId())) {
+            throw new BadRequestAlertException("A submitted payment cannot change its amount or credit card", ENTITY_NAME, "paymentsubmitted");
         }
-
+        payment.passengerId(current.getPassengerId())
+            .status(current.getStatus())
+            .statusReason(current.getStatusReason())
+            .updatedAt(current.getUpdatedAt());
         Payment result = paymentRepository.save(payment);
-        paymentKafkaProducer.sendPaymentSuccess(result);
+        if (result.getStatus() == EPaymentStatus.AUTHORIZED) {
+            paymentKafkaProducer.sendPaymentSuccess(result);
+        }
 
         return ResponseEntity.ok()
             .headers(HeaderUtil.createEntityUpdateAlert(applicationName, false, ENTITY_NAME, payment.getId().toString()))
@@ -107,24 +128,19 @@ public class PaymentResource {
     }
 
     /**
-     * {@code GET  /payments} : get all the payments.
+     * {@code GET  /payments} : get the payments of the connected user.
      *
+     * @param pageable the pagination information.
      * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the list of payments in body.
      */
     @GetMapping("/payments")
-    public List<Payment> getAllPayments() {
-        log.debug("REST request to get all Payments");
-        List<Payment> resultingPayments = new ArrayList<>();
-        // Return 404 if the entity is not owned by the connected user
-        Optional<String> userLogin = SecurityUtils.getCurrentUserLogin();
-
-        for(Payment p: paymentRepository.findAll()) {
-            if(userLogin.isPresent() && userLogin.get().equals(p.getPassengerId())) {
-                resultingPayments.add(p);
-            }
-        }
-
-        return resultingPayments;
+    public ResponseEntity<List<Payment>> getAllPayments(Pageable pageable) {
+        log.debug("REST request to get a page of Payments");
+        Page<Payment> page = SecurityUtils.getCurrentUserLogin()
+            .map(login -> paymentRepository.findAllByPassengerId(login, pageable))
+            .orElseGet(() -> Page.empty(pageable));
+        HttpHeaders headers = PaginationUtil.generatePaginationHttpHeaders(ServletUriComponentsBuilder.fromCurrentRequest(), page);
+        return ResponseEntity.ok().headers(headers).body(page.getContent());
     }
 
     /**
@@ -136,20 +152,14 @@ public class PaymentResource {
     @GetMapping("/payments/{id}")
     public ResponseEntity<Payment> getPayment(@PathVariable Long id) {
         log.debug("REST request to get Payment : {}", id);
-        Optional<Payment> payment = paymentRepository.findById(id);
         // Return 404 if the entity is not owned by the connected user
-        Optional<String> userLogin = SecurityUtils.getCurrentUserLogin();
-        if(payment.isPresent() &&
-            userLogin.isPresent() &&
-            userLogin.get().equals(payment.get().getPassengerId())) {
-            return ResponseUtil.wrapOrNotFound(payment);
-        } else {
-            return ResponseEntity.notFound().build();
-        }
+        Optional<Payment> payment = SecurityUtils.getCurrentUserLogin()
+            .flatMap(login -> paymentRepository.findOneByIdAndPassengerId(id, login));
+        return ResponseUtil.wrapOrNotFound(payment);
     }
 
     /**
-     * {@code DELETE  /payments/:id} : delete the "id" payment.
+     * {@code DELETE  /payments/:id} : delete the "id" payment, recording its refund in the ledger if it was authorized.
      *
      * @param id the id of the payment to delete.
      * @return the {@link ResponseEntity} with status {@code 204 (NO_CONTENT)}.
@@ -157,29 +167,14 @@ public class PaymentResource {
     @DeleteMapping("/payments/{id}")
     public ResponseEntity<Void> deletePayment(@PathVariable Long id) {
         log.debug("REST request to delete Payment : {}", id);
-        Optional<Payment> payment = paymentRepository.findById(id);
-
+        Optional<Payment> payment = SecurityUtils.getCurrentUserLogin()
+            .flatMap(login -> paymentRepository.findOneForUpdate(id, login));
         // Return 404 if the entity is not owned by the connected user
-        Optional<String> userLogin = SecurityUtils.getCurrentUserLogin();
-        if(payment.isPresent() &&
-            userLogin.isPresent() &&
-            userLogin.get().equals(payment.get().getPassengerId())) {
-            paymentRepository.deleteById(id);
-        } else {
+        if (!payment.isPresent()) {
             return ResponseEntity.notFound().build();
         }
+        ledgerService.recordRefunds(Collections.singletonList(payment.get()));
+        paymentRepository.delete(payment.get());
         return ResponseEntity.noContent().headers(HeaderUtil.createEntityDeletionAlert(applicationName, false, ENTITY_NAME, id.toString())).build();
-   }
-
-   private void creditCardValidityCheck(CreditCard card) throws Exception {
-        if(card.getValidityDate() == null || card.getCardNumber() < 0 || card.getCvc() <0) {
-            throw new Exception("Credit Card Data is not correct");
-        }
-   }
-
-   private void checkPayment(Double toPay) throws Exception {
-        if(toPay == null || toPay < 0) {
-            throw new Exception("Invalid amount to pay");
-        }
-   }
+    }
 }
@@ -0,0 +1,127 @@
+package payments.web.rest;
+
+import payments.security.AuthoritiesConstants;
+import payments.service.ReportService;
+import payments.web.rest.errors.BadRequestAlertException;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * REST controller for the daily reports of the payments, see {@link ReportService}, for the administrators.
+ * <p>
+ * Reports are written to the response as the database returns their rows, as CSV or NDJSON, whichever the
+ * {@code Accept} header prefers, CSV by default.
+ */
+@RestController
+@RequestMapping("/api/reports")
+@PreAuthorize("hasAuthority(\"" + AuthoritiesConstants.ADMIN + "\")")
+public class ReportResource {
+
+    private final Logger log = LoggerFactory.getLogger(ReportResource.class);
+
+    private static final String ENTITY_NAME = "paymentsReport";
+
+    public static final String TEXT_CSV_VALUE = "text/csv";
+    public static final String APPLICATION_NDJSON_VALUE = "application/x-ndjson";
+
+    private final ReportService reportService;
+
+    public ReportResource(ReportService reportService) {
+        this.reportService = reportService;
+    }
+
+    /**
+     * {@code GET  /reports/revenue} : get the daily revenue, from the payments, adjustments and refunds.
+     *
+     * @param from the first day of the report.
+     * @param to the last day of the report.
+     * @param groupBy what the revenue of each day is totalled by: {@code day}, {@code card-type}, {@code passenger} or
+     * {@code flight}.
+     * @param accept the formats the client accepts.
+     * @param response the response the report is written to, with status {@code 200 (OK)}, or with status
+     * {@code 400 (Bad Request)} if the days or the grouping are not valid.
+     * @throws IOException if the report could not be written.
+     */
+    @GetMapping(value = "/revenue", produces = { TEXT_CSV_VALUE, APPLICATION_NDJSON_VALUE })
+    public void getRevenue(@RequestParam LocalDate from, @RequestParam LocalDate to,
+                           @RequestParam(defaultValue = "day") String groupBy,
+                           @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept,
+                           HttpServletResponse response) throws IOException {
+        log.debug("REST request to get the revenue from {} to {} by {}", from, to, groupBy);
+        checkDays(from, to);
+        ReportService.Grouping grouping = groupingOf(groupBy);
+        ReportService.Format format = formatOf(accept);
+        reportService.revenue(grouping, from, to, format, prepare(response, format, "revenue", from, to));
+    }
+
+    /**
+     * {@code GET  /reports/reconciliation} : get what each account of the ledger moved by each day.
+     *
+     * @param from the first day of the report.
+     * @param to the last day of the report.
+     * @param accept the formats the client accepts.
+     * @param response the response the report is written to, with status {@code 200 (OK)}, or with status
+     * {@code 400 (Bad Request)} if the days are not valid.
+     * @throws IOException if the report could not be written.
+     */
+    @GetMapping(value = "/reconciliation", produces = { TEXT_CSV_VALUE, APPLICATION_NDJSON_VALUE })
+    public void getReconciliation(@RequestParam LocalDate from, @RequestParam LocalDate to,
+                                  @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept,
+                                  HttpServletResponse response) throws IOException {
+        log.debug("REST request to get the reconciliation from {} to {}", from, to);
+        checkDays(from, to);
+        ReportService.Format format = formatOf(accept);
+        reportService.reconciliation(from, to, format, prepare(response, format, "reconciliation", from, to));
+    }
+
+    private static OutputStream prepare(HttpServletResponse response, ReportService.Format format, String name,
+                                        LocalDate from, LocalDate to) throws IOException {
+        String extension = format == ReportService.Format.CSV ? "csv" : "ndjson";
+        response.setContentType((format == ReportService.Format.CSV ? TEXT_CSV_VALUE : APPLICATION_NDJSON_VALUE) + ";charset=UTF-8");
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION,
+            "attachment; filename=\"" + name + "-" + from + "-" + to + "." + extension + "\"");
+        return response.getOutputStream();
+    }
+
+    private static void checkDays(LocalDate from, LocalDate to) {
+        if (from.isAfter(to)) {
+            throw new BadRequestAlertException("The report ends before it starts", ENTITY_NAME, "reportdays");
+        }
+    }
+
+    private static ReportService.Grouping groupingOf(String groupBy) {
+        try {
+            return ReportService.Grouping.valueOf(groupBy.replace('-', '_').toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new BadRequestAlertException("Unsupported report grouping " + groupBy, ENTITY_NAME, "reportgrouping");
+        }
+    }
+
+    private static ReportService.Format formatOf(String accept) {
+        if (accept != null) {
+            List<MediaType> mediaTypes = MediaType.parseMediaTypes(accept);
+            MediaType.sortBySpecificityAndQuality(mediaTypes);
+            for (MediaType mediaType : mediaTypes) {
+                if (mediaType.isCompatibleWith(MediaType.parseMediaType(TEXT_CSV_VALUE))) {
+                    return ReportService.Format.CSV;
+                }
+                if (mediaType.isCompatibleWith(MediaType.parseMediaType(APPLICATION_NDJSON_VALUE))) {
+                    return ReportService.Format.NDJSON;
+                }
+            }
+        }
+        return ReportService.Format.CSV;
+    }
+}
@@ -0,0 +1,22 @@
+package payments.domain;
+
+import org.junit.jupiter.api.Test;
+import static org.assertj.core.api.Assertions.assertThat;
+import payments.web.rest.TestUtil;
+
+public class LedgerSnapshotTest {
+
+    @Test
+    public void equalsVerifier() throws Exception {
+        TestUtil.equalsVerifier(LedgerSnapshot.class);
+        LedgerSnapshot ledgerSnapshot1 = new LedgerSnapshot();
+        ledgerSnapshot1.setId(1L);
+        LedgerSnapshot ledgerSnapshot2 = new LedgerSnapshot();
+        ledgerSnapshot2.setId(ledgerSnapshot1.getId());
+        assertThat(ledgerSnapshot1).isEqualTo(ledgerSnapshot2);
+        ledgerSnapshot2.setId(2L);
+        assertThat(ledgerSnapshot1).isNotEqualTo(ledgerSnapshot2);
+        ledgerSnapshot1.setId(null);
+        assertThat(ledgerSnapshot1).isNotEqualTo(ledgerSnapshot2);
+    }
+}
@@ -0,0 +1,98 @@
+package payments.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import payments.config.ApplicationProperties;
+import payments.domain.Payment;
+import payments.domain.enumeration.EPaymentStatus;
+import payments.repository.LedgerEntryRepository;
+import payments.repository.LedgerSnapshotRepository;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.Collections;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Test class for the {@link LedgerService}.
+ */
+public class LedgerServiceTest {
+
+    private static final Instant NOW = Instant.parse("2020-10-20T12:00:00.500Z");
+
+    private final ApplicationProperties.Ledger properties = new ApplicationProperties.Ledger();
+    private final ConcurrentMap<String, Long> writes = new ConcurrentHashMap<>();
+    private LedgerEntryRepository ledgerEntryRepository;
+    private LedgerService ledgerService;
+
+    @BeforeEach
+    public void setUp() {
+        properties.setSettleMillis(5000);
+        properties.setWriteTimeoutMillis(600000);
+        ledgerEntryRepository = mock(LedgerEntryRepository.class);
+        ledgerService = new LedgerService(properties, ledgerEntryRepository, mock(LedgerSnapshotRepository.class),
+            new TransactionTemplate(mock(PlatformTransactionManager.class)), new ReentrantLock(), writes,
+            Clock.fixed(NOW, ZoneOffset.UTC));
+    }
+
+    @AfterEach
+    public void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    public void snapshotsStaySettledBehindWithoutWrites() {
+        assertThat(ledgerService.watermark()).isEqualTo(Instant.parse("2020-10-20T11:59:55Z"));
+    }
+
+    @Test
+    public void snapshotsStopShortOfTheOldestWriteWhateverItsAge() {
+        writes.put("slow", NOW.minusSeconds(120).toEpochMilli());
+        writes.put("fast", NOW.minusSeconds(1).toEpochMilli());
+        when(ledgerEntryRepository.sumByAccountCreatedBetween(Instant.EPOCH, Instant.parse("2020-10-20T11:58:00Z")))
+            .thenReturn(Collections.emptyList());
+
+        ledgerService.snapshot();
+
+        verify(ledgerEntryRepository).sumByAccountCreatedBetween(Instant.EPOCH, Instant.parse("2020-10-20T11:58:00Z"));
+    }
+
+    @Test
+    public void writesOfAStoppedInstanceAreForgotten() {
+        writes.put("stopped", NOW.minusSeconds(601).toEpochMilli());
+
+        assertThat(ledgerService.watermark()).isEqualTo(Instant.parse("2020-10-20T11:59:55Z"));
+        assertThat(writes).isEmpty();
+    }
+
+    @Test
+    public void writesHoldSnapshotsBackUntilTheirTransactionCompletes() {
+        TransactionSynchronizationManager.initSynchronization();
+
+        ledgerService.recordPayment(new Payment().bookingNumber(1L).toPay(10D).status(EPaymentStatus.AUTHORIZED));
+
+        assertThat(writes).hasSize(1);
+        assertThat(ledgerService.watermark()).isEqualTo(Instant.parse("2020-10-20T11:59:55Z"));
+        writes.replaceAll((write, started) -> NOW.minusSeconds(30).toEpochMilli());
+        assertThat(ledgerService.watermark()).isEqualTo(Instant.parse("2020-10-20T11:59:30Z"));
+        for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+            synchronization.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK);
+        }
+        assertThat(writes).isEmpty();
+    }
+}
@@ -0,0 +1,207 @@
+package payments.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import payments.config.ApplicationProperties;
+import payments.domain.CreditCard;
+import payments.domain.Payment;
+import payments.domain.enumeration.EPaymentStatus;
+import payments.repository.PaymentRepository;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Optional;
+import java.util.PrimitiveIterator;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.DoubleStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Test class for the {@link PaymentAuthorizer}.
+ */
+public class PaymentAuthorizerTest {
+
+    private static final Instant ACCEPTED_AT = Instant.parse("2020-10-18T12:00:00Z");
+
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final PaymentRepository paymentRepository = mock(PaymentRepository.class);
+    private final PaymentKafkaProducer paymentKafkaProducer = mock(PaymentKafkaProducer.class);
+    private final PaymentProcessor paymentProcessor = mock(PaymentProcessor.class);
+    private final VelocityEngine velocityEngine = mock(VelocityEngine.class);
+    private final LedgerService ledgerService = mock(LedgerService.class);
+    private ApplicationProperties.Authorization properties;
+    private PaymentAuthorizer paymentAuthorizer;
+    private Payment payment;
+
+    @BeforeEach
+    public void setUp() {
+        properties = new ApplicationProperties.Authorization();
+        properties.setTimeoutMillis(50);
+        properties.setBackoffMillis(1);
+        properties.setMaxAttempts(3);
+        paymentAuthorizer = authorizer(paymentProcessor);
+        CreditCard creditCard = new CreditCard().cardNumber(1234).cvc(123).validityDate(LocalDate.now().plusYears(1));
+        payment = new Payment().bookingNumber(1L).passengerId("user").toPay(100D).creditCard(creditCard).updatedAt(ACCEPTED_AT);
+        payment.setId(10L);
+        when(paymentRepository.findById(10L)).thenReturn(Optional.of(payment));
+        when(paymentRepository.claimIfPending(eq(10L), eq(ACCEPTED_AT), any())).thenReturn(1);
+        when(paymentRepository.updateStatusIfPending(eq(10L), any(), any(), any())).thenReturn(1);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        paymentAuthorizer.shutdown();
+    }
+
+    private PaymentAuthorizer authorizer(PaymentProcessor processor) {
+        return new PaymentAuthorizer(properties, paymentRepository, processor, velocityEngine, paymentKafkaProducer,
+            ledgerService, new TransactionTemplate(mock(PlatformTransactionManager.class)), new ReentrantLock(), meterRegistry);
+    }
+
+    private static CompletableFuture<PaymentProcessor.Authorization> failed() {
+        CompletableFuture<PaymentProcessor.Authorization> authorization = new CompletableFuture<>();
+        authorization.completeExceptionally(new IllegalStateException("The processor is unavailable"));
+        return authorization;
+    }
+
+    @Test
+    public void approvedPaymentsAreAuthorizedAndPublished() {
+        when(paymentProcessor.authorize(payment)).thenReturn(CompletableFuture.completedFuture(PaymentProcessor.Authorization.approved()));
+
+        assertThat(paymentAuthorizer.authorize(10L, false)).isEqualTo(EPaymentStatus.AUTHORIZED);
+        verify(paymentRepository).updateStatusIfPending(eq(10L), eq(EPaymentStatus.AUTHORIZED), isNull(), any());
+        verify(ledgerService).recordPayment(payment);
+        verify(paymentKafkaProducer).sendPaymentSuccess(payment);
+        assertThat(meterRegistry.counter("payments.authorization", "result", "authorized").count()).isEqualTo(1);
+    }
+
+    @Test
+    public void declinedPaymentsFail() {
+        when(paymentProcessor.authorize(payment)).thenReturn(CompletableFuture.completedFuture(PaymentProcessor.Authorization.declined("Declined by the processor")));
+
+        assertThat(paymentAuthorizer.authorize(10L, false)).isEqualTo(EPaymentStatus.DECLINED);
+        verify(paymentKafkaProducer).sendPaymentFailure(1L, "Declined by the processor");
+        verify(paymentKafkaProducer, never()).sendPaymentSuccess(any());
+        verify(ledgerService, never()).recordPayment(any());
+    }
+
+    @Test
+    public void invalidPaymentsAreDeclinedWithoutTheProcessor() {
+        payment.toPay(-1D);
+
+        assertThat(paymentAuthorizer.authorize(10L, false)).isEqualTo(EPaymentStatus.DECLINED);
+        verify(paymentProcessor, never()).authorize(any());
+        verify(paymentKafkaProducer).sendPaymentFailure(1L, "Invalid amount to pay");
+    }
+
+    @Test
+    public void paymentsBreakingAVelocityRuleAreDeclinedWithoutTheProcessor() {
+        when(velocityEngine.check(payment)).thenReturn("Too many payments by the same card");
+
+        assertThat(paymentAuthorizer.authorize(10L, false)).isEqualTo(EPaymentStatus.DECLINED);
+        verify(paymentProcessor, never()).authorize(any());
+        verify(paymentKafkaProducer).sendPaymentFailure(1L, "Too many payments by the same card");
+    }
+
+    @Test
+    public void failedAndTimedOutAttemptsAreRetried() {
+        CompletableFuture<PaymentProcessor.Authorization> unanswered = new CompletableFuture<>();
+        when(paymentProcessor.authorize(payment)).thenReturn(failed()).thenReturn(unanswered)
+            .thenReturn(CompletableFuture.completedFuture(PaymentProcessor.Authorization.approved()));
+
+        assertThat(paymentAuthorizer.authorize(10L, false)).isEqualTo(EPaymentStatus.AUTHORIZED);
+        assertThat(unanswered).isCancelled();
+        verify(paymentProcessor, times(3)).authorize(payment);
+        assertThat(meterRegistry.counter("payments.authorization.retries").count()).isEqualTo(2);
+    }
+
+    @Test
+    public void paymentsAreLeftPendingOnceTheAttemptsAreUsedUp() {
+        when(paymentProcessor.authorize(payment)).thenReturn(failed());
+
+        assertThat(paymentAuthorizer.authorize(10L, false)).isEqualTo(EPaymentStatus.PENDING);
+        verify(paymentProcessor, times(3)).authorize(payment);
+        verify(paymentRepository, never()).updateStatusIfPending(anyLong(), any(), any(), any());
+        verify(paymentKafkaProducer, never()).sendPaymentFailure(anyLong(), anyString());
+    }
+
+    @Test
+    public void paymentsNoLongerPendingArePublishedOnce() {
+        when(paymentProcessor.authorize(payment)).thenReturn(CompletableFuture.completedFuture(PaymentProcessor.Authorization.approved()));
+        when(paymentRepository.updateStatusIfPending(eq(10L), any(), any(), any())).thenReturn(0);
+
+        assertThat(paymentAuthorizer.authorize(10L, false)).isNull();
+        verify(paymentKafkaProducer, never()).sendPaymentSuccess(any());
+
+        payment.status(EPaymentStatus.AUTHORIZED);
+        assertThat(paymentAuthorizer.authorize(10L, false)).isEqualTo(EPaymentStatus.AUTHORIZED);
+        verify(paymentProcessor, times(1)).authorize(payment);
+    }
+
+    @Test
+    public void paymentsClaimedByAnotherAuthorizationAreLeftToIt() {
+        when(paymentRepository.claimIfPending(eq(10L), eq(ACCEPTED_AT), any())).thenReturn(0);
+
+        assertThat(paymentAuthorizer.authorize(10L, false)).isNull();
+        verify(velocityEngine, never()).check(any());
+        verify(paymentProcessor, never()).authorize(any());
+        verify(paymentRepository, never()).updateStatusIfPending(anyLong(), any(), any(), any());
+    }
+
+    @Test
+    public void sweptPaymentsAreOnlyClaimedOnceTheirLeaseIsOver() {
+        when(paymentProcessor.authorize(payment)).thenReturn(CompletableFuture.completedFuture(PaymentProcessor.Authorization.approved()));
+        Instant claimedAt = Instant.now();
+        payment.updatedAt(claimedAt);
+
+        assertThat(paymentAuthorizer.authorize(10L, true)).isNull();
+        verify(paymentRepository, never()).claimIfPending(anyLong(), any(), any());
+
+        Instant leaseOver = claimedAt.minusMillis(properties.getStaleAfterMillis() + 1);
+        payment.updatedAt(leaseOver);
+        when(paymentRepository.claimIfPending(eq(10L), eq(leaseOver), any())).thenReturn(1);
+        assertThat(paymentAuthorizer.authorize(10L, true)).isEqualTo(EPaymentStatus.AUTHORIZED);
+        verify(paymentProcessor).authorize(payment);
+    }
+
+    @Test
+    public void theSweepSubmitsThePaymentsLeftPending() {
+        when(paymentRepository.findIdsByStatusAndUpdatedAtBefore(eq(EPaymentStatus.PENDING), any(), any()))
+            .thenReturn(Arrays.asList(10L, 11L));
+
+        assertThat(paymentAuthorizer.sweep()).isEqualTo(2);
+    }
+
+    @Test
+    public void theStubAnswersWithTheConfiguredRates() {
+        ApplicationProperties.Stub stub = new ApplicationProperties.Stub();
+        stub.setLatencyMillis(0);
+        stub.setFailureRate(0.25);
+        stub.setDeclineRate(0.25);
+        PrimitiveIterator.OfDouble draws = DoubleStream.of(0.1, 0.3, 0.9).iterator();
+        StubPaymentProcessor processor = new StubPaymentProcessor(stub, draws::nextDouble);
+
+        assertThat(processor.authorize(payment)).isCompletedExceptionally();
+        assertThat(processor.authorize(payment).join().getReason()).isEqualTo("Declined by the processor");
+        assertThat(processor.authorize(payment).join().isApproved()).isTrue();
+        processor.shutdown();
+    }
+}
@@ -0,0 +1,112 @@
+package payments.service;
+
+import fms.common.config.KafkaProperties;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import payments.domain.CreditCard;
+import payments.domain.Payment;
+import payments.domain.enumeration.EPaymentStatus;
+import payments.repository.CreditCardRepository;
+import payments.repository.PaymentRepository;
+import payments.service.dto.PaymentRequestDTO;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Test class for the {@link PaymentKafkaConsumer}.
+ */
+public class PaymentKafkaConsumerTest {
+
+    private PaymentRepository paymentRepository;
+    private CreditCardRepository creditCardRepository;
+    private PaymentKafkaProducer paymentKafkaProducer;
+    private PaymentAuthorizer paymentAuthorizer;
+    private LedgerService ledgerService;
+    private PaymentKafkaConsumer consumer;
+
+    @BeforeEach
+    public void setUp() {
+        paymentRepository = mock(PaymentRepository.class);
+        creditCardRepository = mock(CreditCardRepository.class);
+        paymentKafkaProducer = mock(PaymentKafkaProducer.class);
+        paymentAuthorizer = mock(PaymentAuthorizer.class);
+        ledgerService = mock(LedgerService.class);
+        consumer = new PaymentKafkaConsumer(new KafkaProperties(), paymentRepository, creditCardRepository, paymentKafkaProducer,
+            paymentAuthorizer, ledgerService, new TransactionTemplate(mock(PlatformTransactionManager.class)));
+        CreditCard creditCard = new CreditCard().passengerId("user").cardNumber(1234).cvc(123).validityDate(LocalDate.now().plusYears(1));
+        creditCard.setId(1L);
+        CreditCard otherCreditCard = new CreditCard().passengerId("other").cardNumber(5678).cvc(456).validityDate(LocalDate.now().plusYears(1));
+        otherCreditCard.setId(2L);
+        when(creditCardRepository.findAllById(any())).thenReturn(Arrays.asList(creditCard, otherCreditCard));
+        when(paymentRepository.saveAll(any())).thenAnswer(invocation -> {
+            List<Payment> payments = invocation.getArgument(0);
+            payments.forEach(payment -> payment.setId(payment.getBookingNumber() * 10));
+            return payments;
+        });
+    }
+
+    private static PaymentRequestDTO request(String bookingNumber, String toPay, String creditCardId) {
+        PaymentRequestDTO request = new PaymentRequestDTO();
+        request.setBookingNumber(bookingNumber);
+        request.setFlightId("7");
+        request.setPassengerId("user");
+        request.setToPay(toPay);
+        request.setCreditCardId(creditCardId);
+        return request;
+    }
+
+    @Test
+    public void requestsArePaidOnceAndAuthorizedAfterwards() {
+        when(paymentRepository.findBookingNumbersIn(any())).thenReturn(Collections.singletonList(2L));
+
+        List<Payment> payments = consumer.pay(Arrays.asList(request("1", "100.0", "1"), request("1", "100.0", "1"), request("2", "100.0", "1")));
+
+        assertThat(payments).hasSize(1);
+        assertThat(payments.get(0).getBookingNumber()).isEqualTo(1L);
+        assertThat(payments.get(0).getFlightId()).isEqualTo(7L);
+        assertThat(payments.get(0).getToPay()).isEqualTo(100D);
+        assertThat(payments.get(0).getPassengerId()).isEqualTo("user");
+        assertThat(payments.get(0).getStatus()).isEqualTo(EPaymentStatus.PENDING);
+        verify(paymentAuthorizer).submit(10L);
+        verify(paymentKafkaProducer, never()).sendPaymentSuccess(any());
+        verify(paymentKafkaProducer, never()).sendPaymentFailure(anyLong(), anyString());
+    }
+
+    @Test
+    public void invalidRequestsFail() {
+        when(paymentRepository.findBookingNumbersIn(any())).thenReturn(Collections.emptyList());
+
+        List<Payment> payments = consumer.pay(Arrays.asList(request("3", "-1", "1"), request("4", "100.0", "9"), request("6", "100.0", "2")));
+
+        assertThat(payments).isEmpty();
+        verify(paymentAuthorizer, never()).submit(any());
+        verify(paymentKafkaProducer).sendPaymentFailure(3L, "Invalid amount to pay");
+        verify(paymentKafkaProducer).sendPaymentFailure(4L, "Unknown credit card");
+        verify(paymentKafkaProducer).sendPaymentFailure(6L, "Unknown credit card");
+    }
+
+    @Test
+    public void refundsDeleteThePaymentsOfTheirBookings() {
+        Payment payment = new Payment().bookingNumber(5L).toPay(100D).status(EPaymentStatus.AUTHORIZED);
+        when(paymentRepository.findAllForUpdateByBookingNumberIn(any())).thenReturn(Collections.singletonList(payment));
+        when(paymentRepository.deleteByBookingNumberIn(any())).thenReturn(1);
+
+        assertThat(consumer.refund(Collections.singleton(5L))).isEqualTo(1);
+        verify(ledgerService).recordRefunds(Collections.singletonList(payment));
+        verify(paymentRepository).deleteByBookingNumberIn(Collections.singleton(5L));
+    }
+}
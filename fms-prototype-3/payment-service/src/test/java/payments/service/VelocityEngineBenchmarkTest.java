@@ -0,0 +1,92 @@
+package payments.service;
+
+import com.hazelcast.core.ITopic;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import payments.config.ApplicationProperties;
+import payments.domain.CreditCard;
+import payments.domain.Payment;
+
+import java.time.Clock;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.withSettings;
+
+/**
+ * Measures how many payments the {@link VelocityEngine} checks a second, with the default rules, card numbers hashed,
+ * and the windows flushed as often as in production, from as many threads as there are processors.
+ * <p>
+ * Not run by default, as it asserts nothing about the rate it logs, against a target of 100,000 checks a second:
+ * {@code ./mvnw test -Dtest=VelocityEngineBenchmarkTest -Dbenchmark=true}.
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+public class VelocityEngineBenchmarkTest {
+
+    private static final Logger log = LoggerFactory.getLogger(VelocityEngineBenchmarkTest.class);
+
+    private static final int CARDS = 100000;
+    private static final int PASSENGERS = 20000;
+    private static final int BOOKINGS = 50000;
+    private static final long WARMUP_MILLIS = 2000;
+    private static final long MEASURE_MILLIS = 5000;
+
+    private final AtomicLong paymentIds = new AtomicLong();
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void checksPerSecond() throws Exception {
+        ApplicationProperties.Velocity properties = new ApplicationProperties.Velocity();
+        properties.setCardKeySecret("velocity-benchmark-secret");
+        // published to no instance, but counted for them all the same
+        VelocityEngine engine = new VelocityEngine(properties, mock(ITopic.class, withSettings().stubOnly()), Clock.systemUTC(), new SimpleMeterRegistry());
+        ScheduledExecutorService flusher = Executors.newSingleThreadScheduledExecutor();
+        flusher.scheduleWithFixedDelay(engine::flush, properties.getFlushMillis(), properties.getFlushMillis(), TimeUnit.MILLISECONDS);
+
+        int threads = Runtime.getRuntime().availableProcessors();
+        run(engine, threads, WARMUP_MILLIS);
+        long checks = run(engine, threads, MEASURE_MILLIS);
+        flusher.shutdownNow();
+
+        assertThat(checks).isPositive();
+        log.info("{} threads: {} checks in {} ms, {} checks/s", threads, checks, MEASURE_MILLIS, checks * 1000 / MEASURE_MILLIS);
+    }
+
+    /**
+     * @return the number of payments checked by the threads within the time.
+     */
+    private long run(VelocityEngine engine, int threads, long millis) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(millis);
+        AtomicLong checks = new AtomicLong();
+        Future<?>[] runs = new Future<?>[threads];
+        for (int thread = 0; thread < threads; thread++) {
+            runs[thread] = executor.submit(() -> {
+                long checked = 0;
+                while (System.nanoTime() < deadline) {
+                    long id = paymentIds.incrementAndGet();
+                    Payment payment = new Payment().passengerId("user-" + id % PASSENGERS).bookingNumber(id % BOOKINGS).toPay(100D)
+                        .creditCard(new CreditCard().cardNumber((int) (4_000_000 + id % CARDS)));
+                    payment.setId(id);
+                    engine.check(payment);
+                    checked++;
+                }
+                checks.addAndGet(checked);
+            });
+        }
+        for (Future<?> run : runs) {
+            run.get(millis + 30000, TimeUnit.MILLISECONDS);
+        }
+        executor.shutdown();
+        return checks.get();
+    }
+}
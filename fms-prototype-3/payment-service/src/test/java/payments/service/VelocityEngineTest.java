@@ -0,0 +1,247 @@
+package payments.service;
+
+import com.hazelcast.core.ITopic;
+import com.hazelcast.core.Message;
+import com.hazelcast.core.MessageListener;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import payments.config.ApplicationProperties;
+import payments.config.ApplicationProperties.Rule;
+import payments.domain.CreditCard;
+import payments.domain.Payment;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+/**
+ * Test class for the {@link VelocityEngine}.
+ */
+public class VelocityEngineTest {
+
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final MutableClock clock = new MutableClock(Instant.parse("2020-10-18T12:00:00Z").toEpochMilli());
+    private ApplicationProperties.Velocity properties;
+
+    @BeforeEach
+    public void setUp() {
+        properties = new ApplicationProperties.Velocity();
+        properties.setBucketMillis(1000);
+        properties.setBuckets(60);
+        properties.setRules(Arrays.asList(new Rule(Rule.Dimension.CARD, 10000, 3), new Rule(Rule.Dimension.PASSENGER, 60000, 100)));
+        properties.setCardKeySecret("velocity-test-secret");
+    }
+
+    private static Payment payment(int cardNumber, String passengerId, long bookingNumber) {
+        return new Payment().passengerId(passengerId).bookingNumber(bookingNumber).toPay(100D)
+            .creditCard(new CreditCard().cardNumber(cardNumber));
+    }
+
+    @Test
+    public void paymentsOverALimitAreDeclinedUntilTheWindowSlides() {
+        VelocityEngine engine = new VelocityEngine(properties, null, clock, meterRegistry);
+
+        for (int i = 0; i < 3; i++) {
+            assertThat(engine.check(payment(1234, "user", i))).isNull();
+            clock.advance(2000);
+        }
+        assertThat(engine.check(payment(1234, "user", 3))).isEqualTo("Too many payments by the same card");
+        assertThat(engine.check(payment(5678, "user", 4))).isNull();
+        assertThat(meterRegistry.counter("payments.velocity.declined", "dimension", "card").count()).isEqualTo(1);
+
+        // the first two payments left the window, the declined one still counts
+        clock.advance(7000);
+        assertThat(engine.check(payment(1234, "user", 5))).isNull();
+        assertThat(engine.check(payment(1234, "user", 6))).isEqualTo("Too many payments by the same card");
+    }
+
+    @Test
+    public void cardsAreCountedByAHashOfTheirNumber() {
+        VelocityEngine engine = new VelocityEngine(properties, null, clock, meterRegistry);
+        String key = engine.cardKey(new CreditCard().cardNumber(41111111));
+
+        assertThat(key).doesNotContain("41111111");
+        assertThat(engine.cardKey(new CreditCard().cardNumber(41111111))).isEqualTo(key);
+        assertThat(engine.cardKey(new CreditCard().cardNumber(41111112))).isNotEqualTo(key);
+        properties.setCardKeySecret("another-secret");
+        assertThat(new VelocityEngine(properties, null, clock, meterRegistry).cardKey(new CreditCard().cardNumber(41111111)))
+            .isNotEqualTo(key);
+    }
+
+    @Test
+    public void cardsAreCountedByIdWithoutASecret() {
+        properties.setCardKeySecret(null);
+        VelocityEngine engine = new VelocityEngine(properties, null, clock, meterRegistry);
+        CreditCard card = new CreditCard().cardNumber(1234);
+        card.setId(7L);
+
+        assertThat(engine.cardKey(card)).isEqualTo("7");
+        for (int i = 0; i < 3; i++) {
+            assertThat(engine.check(payment(1234, "user", i).creditCard(card))).isNull();
+        }
+        assertThat(engine.check(payment(1234, "user", 3).creditCard(card))).isEqualTo("Too many payments by the same card");
+    }
+
+    @Test
+    public void disabledChecksCountNothing() {
+        properties.setEnabled(false);
+        VelocityEngine engine = new VelocityEngine(properties, null, clock, meterRegistry);
+
+        for (int i = 0; i < 10; i++) {
+            assertThat(engine.check(payment(1234, "user", i))).isNull();
+        }
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void countsAreSharedWithTheOtherInstances() {
+        ITopic<VelocityEngine.Delta> topic = mock(ITopic.class);
+        ArgumentCaptor<MessageListener<VelocityEngine.Delta>> listener = ArgumentCaptor.forClass(MessageListener.class);
+        VelocityEngine here = new VelocityEngine(properties, topic, clock, meterRegistry);
+        verify(topic).addMessageListener(listener.capture());
+        ITopic<VelocityEngine.Delta> otherTopic = mock(ITopic.class);
+        ArgumentCaptor<MessageListener<VelocityEngine.Delta>> otherListener = ArgumentCaptor.forClass(MessageListener.class);
+        VelocityEngine there = new VelocityEngine(properties, otherTopic, clock, meterRegistry);
+        verify(otherTopic).addMessageListener(otherListener.capture());
+
+        here.check(payment(1234, "user", 1));
+        here.check(payment(1234, "user", 2));
+        here.check(payment(1234, "user", 3));
+        ArgumentCaptor<VelocityEngine.Delta> delta = ArgumentCaptor.forClass(VelocityEngine.Delta.class);
+        here.flush();
+        verify(topic).publish(delta.capture());
+
+        // published to every instance, this one included, which skips its own counts
+        listener.getValue().onMessage(new Message<>(VelocityEngine.VELOCITY_TOPIC, delta.getValue(), 0L, null));
+        otherListener.getValue().onMessage(new Message<>(VelocityEngine.VELOCITY_TOPIC, delta.getValue(), 0L, null));
+        assertThat(there.check(payment(1234, "user", 4))).isEqualTo("Too many payments by the same card");
+        assertThat(here.check(payment(9999, "user", 5))).isNull();
+    }
+
+    @Test
+    public void paymentsCheckedAgainAreCountedOnce() {
+        properties.setRules(Arrays.asList(new Rule(Rule.Dimension.BOOKING, 60000, 2)));
+        VelocityEngine engine = new VelocityEngine(properties, null, clock, meterRegistry);
+        Payment first = payment(1234, "user", 1);
+        first.setId(1L);
+        Payment second = payment(5678, "user", 1);
+        second.setId(2L);
+
+        assertThat(engine.check(first)).isNull();
+        assertThat(engine.check(second)).isNull();
+        // authorized again by the sweep
+        clock.advance(1000);
+        assertThat(engine.check(first)).isNull();
+        assertThat(engine.check(second)).isNull();
+        assertThat(engine.check(payment(9999, "user", 1))).isEqualTo("Too many payments by the same booking");
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void paymentsCountedByAnotherInstanceAreNotCountedAgain() {
+        properties.setRules(Arrays.asList(new Rule(Rule.Dimension.BOOKING, 60000, 1)));
+        ITopic<VelocityEngine.Delta> topic = mock(ITopic.class);
+        VelocityEngine here = new VelocityEngine(properties, topic, clock, meterRegistry);
+        ITopic<VelocityEngine.Delta> otherTopic = mock(ITopic.class);
+        ArgumentCaptor<MessageListener<VelocityEngine.Delta>> otherListener = ArgumentCaptor.forClass(MessageListener.class);
+        VelocityEngine there = new VelocityEngine(properties, otherTopic, clock, meterRegistry);
+        verify(otherTopic).addMessageListener(otherListener.capture());
+        Payment payment = payment(1234, "user", 1);
+        payment.setId(1L);
+
+        assertThat(here.check(payment)).isNull();
+        ArgumentCaptor<VelocityEngine.Delta> delta = ArgumentCaptor.forClass(VelocityEngine.Delta.class);
+        here.flush();
+        verify(topic).publish(delta.capture());
+        otherListener.getValue().onMessage(new Message<>(VelocityEngine.VELOCITY_TOPIC, delta.getValue(), 0L, null));
+
+        assertThat(there.check(payment)).isNull();
+    }
+
+    @Test
+    public void windowsLeftEmptyAreForgotten() {
+        VelocityEngine engine = new VelocityEngine(properties, null, clock, meterRegistry);
+        engine.check(payment(1234, "user", 1));
+        assertThat(meterRegistry.get("payments.velocity.windows").tag("dimension", "card").gauge().value()).isEqualTo(1);
+
+        clock.advance(61000);
+        engine.flush();
+
+        assertThat(meterRegistry.get("payments.velocity.windows").tag("dimension", "card").gauge().value()).isZero();
+    }
+
+    @Test
+    public void concurrentChecksAreAllCounted() throws Exception {
+        properties.setRules(Arrays.asList(new Rule(Rule.Dimension.PASSENGER, 60000, 40000)));
+        VelocityEngine engine = new VelocityEngine(properties, null, clock, meterRegistry);
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        AtomicInteger declined = new AtomicInteger();
+        Future<?>[] checks = new Future<?>[4];
+        for (int thread = 0; thread < checks.length; thread++) {
+            int offset = thread;
+            checks[thread] = executor.submit(() -> {
+                // 100000 checks, on a few hot passengers and many cards
+                for (int i = 0; i < 25000; i++) {
+                    if (engine.check(payment(offset * 25000 + i, "user-" + (i % 2), i)) != null) {
+                        declined.incrementAndGet();
+                    }
+                }
+            });
+        }
+        for (Future<?> check : checks) {
+            check.get(30, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+
+        // 50000 checks by each passenger, 40000 allowed
+        assertThat(declined.get()).isEqualTo(20000);
+    }
+
+    private static final class MutableClock extends Clock {
+
+        private final AtomicLong millis;
+
+        private MutableClock(long millis) {
+            this.millis = new AtomicLong(millis);
+        }
+
+        private void advance(long delta) {
+            millis.addAndGet(delta);
+        }
+
+        @Override
+        public long millis() {
+            return millis.get();
+        }
+
+        @Override
+        public Instant instant() {
+            return Instant.ofEpochMilli(millis());
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+    }
+}
@@ -2,7 +2,9 @@ package payments.web.rest;
 
 import payments.PaymentsApp;
 import payments.domain.CreditCard;
+import payments.domain.Payment;
 import payments.repository.CreditCardRepository;
+import payments.repository.PaymentRepository;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -19,7 +21,9 @@ import java.time.ZoneId;
 import java.util.List;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.contains;
 import static org.hamcrest.Matchers.hasItem;
+import static org.hamcrest.Matchers.not;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
@@ -44,9 +48,15 @@ public class CreditCardResourceIT {
     private static final LocalDate DEFAULT_VALIDITY_DATE = LocalDate.ofEpochDay(0L);
     private static final LocalDate UPDATED_VALIDITY_DATE = LocalDate.now(ZoneId.systemDefault());
 
+    private static final String DEFAULT_PASSENGER_ID = "user";
+    private static final String OTHER_PASSENGER_ID = "someone-else";
+
     @Autowired
     private CreditCardRepository creditCardRepository;
 
+    @Autowired
+    private PaymentRepository paymentRepository;
+
     @Autowired
     private EntityManager em;
 
@@ -66,7 +76,8 @@ public class CreditCardResourceIT {
             .cardType(DEFAULT_CARD_TYPE)
             .cvc(DEFAULT_CVC)
             .cardNumber(DEFAULT_CARD_NUMBER)
-            .validityDate(DEFAULT_VALIDITY_DATE);
+            .validityDate(DEFAULT_VALIDITY_DATE)
+            .passengerId(DEFAULT_PASSENGER_ID);
         return creditCard;
     }
     /**
@@ -210,18 +221,48 @@ public class CreditCardResourceIT {
     public void getAllCreditCards() throws Exception {
         // Initialize the database
         creditCardRepository.saveAndFlush(creditCard);
+        CreditCard other = creditCardRepository.saveAndFlush(createEntity(em).passengerId(OTHER_PASSENGER_ID));
 
         // Get all the creditCardList
         restCreditCardMockMvc.perform(get("/api/credit-cards?sort=id,desc"))
             .andExpect(status().isOk())
             .andExpect(content().contentType(MediaType.APPLICATION_JSON_VALUE))
             .andExpect(jsonPath("$.[*].id").value(hasItem(creditCard.getId().intValue())))
+            .andExpect(jsonPath("$.[*].id").value(not(hasItem(other.getId().intValue()))))
             .andExpect(jsonPath("$.[*].cardType").value(hasItem(DEFAULT_CARD_TYPE.toString())))
             .andExpect(jsonPath("$.[*].cvc").value(hasItem(DEFAULT_CVC)))
             .andExpect(jsonPath("$.[*].cardNumber").value(hasItem(DEFAULT_CARD_NUMBER)))
             .andExpect(jsonPath("$.[*].validityDate").value(hasItem(DEFAULT_VALIDITY_DATE.toString())));
     }
     
+    @Test
+    @Transactional
+    public void getUnassignedCreditCardsOfTheUser() throws Exception {
+        CreditCard used = creditCardRepository.saveAndFlush(createEntity(em).passengerId("user"));
+        CreditCard first = creditCardRepository.saveAndFlush(createEntity(em).passengerId("user"));
+        CreditCard second = creditCardRepository.saveAndFlush(createEntity(em).passengerId("user"));
+        creditCardRepository.saveAndFlush(createEntity(em).passengerId(OTHER_PASSENGER_ID));
+        paymentRepository.saveAndFlush(new Payment().passengerId("user").toPay(100.0).bookingNumber(4601L).creditCard(used));
+
+        restCreditCardMockMvc.perform(get("/api/credit-cards?filter=payment-is-null&sort=id,asc&size=1"))
+            .andExpect(status().isOk())
+            .andExpect(header().string("X-Total-Count", "2"))
+            .andExpect(jsonPath("$.[*].id").value(contains(first.getId().intValue())));
+        restCreditCardMockMvc.perform(get("/api/credit-cards?filter=payment-is-null&size=1&page=1"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.[*].id").value(contains(second.getId().intValue())));
+    }
+
+    @Test
+    @Transactional
+    public void createdCreditCardsBelongToTheUser() throws Exception {
+        restCreditCardMockMvc.perform(post("/api/credit-cards")
+            .contentType(MediaType.APPLICATION_JSON)
+            .content(TestUtil.convertObjectToJsonBytes(creditCard)))
+            .andExpect(status().isCreated())
+            .andExpect(jsonPath("$.passengerId").value("user"));
+    }
+
     @Test
     @Transactional
     public void getCreditCard() throws Exception {
@@ -238,6 +279,18 @@ public class CreditCardResourceIT {
             .andExpect(jsonPath("$.cardNumber").value(DEFAULT_CARD_NUMBER))
             .andExpect(jsonPath("$.validityDate").value(DEFAULT_VALIDITY_DATE.toString()));
     }
+
+    @Test
+    @Transactional
+    public void getCreditCardOfAnotherPassenger() throws Exception {
+        // Initialize the database
+        creditCardRepository.saveAndFlush(creditCard.passengerId(OTHER_PASSENGER_ID));
+
+        // Get the creditCard of another passenger
+        restCreditCardMockMvc.perform(get("/api/credit-cards/{id}", creditCard.getId()))
+            .andExpect(status().isNotFound());
+    }
+
     @Test
     @Transactional
     public void getNonExistingCreditCard() throws Exception {
@@ -262,7 +315,8 @@ public class CreditCardResourceIT {
             .cardType(UPDATED_CARD_TYPE)
             .cvc(UPDATED_CVC)
             .cardNumber(UPDATED_CARD_NUMBER)
-            .validityDate(UPDATED_VALIDITY_DATE);
+            .validityDate(UPDATED_VALIDITY_DATE)
+            .passengerId(OTHER_PASSENGER_ID);
 
         restCreditCardMockMvc.perform(put("/api/credit-cards")
             .contentType(MediaType.APPLICATION_JSON)
@@ -277,6 +331,26 @@ public class CreditCardResourceIT {
         assertThat(testCreditCard.getCvc()).isEqualTo(UPDATED_CVC);
         assertThat(testCreditCard.getCardNumber()).isEqualTo(UPDATED_CARD_NUMBER);
         assertThat(testCreditCard.getValidityDate()).isEqualTo(UPDATED_VALIDITY_DATE);
+        assertThat(testCreditCard.getPassengerId()).as("the passenger is kept").isEqualTo(DEFAULT_PASSENGER_ID);
+    }
+
+    @Test
+    @Transactional
+    public void updateCreditCardOfAnotherPassenger() throws Exception {
+        creditCardRepository.saveAndFlush(creditCard.passengerId(OTHER_PASSENGER_ID));
+        CreditCard updatedCreditCard = creditCardRepository.findById(creditCard.getId()).get();
+        em.detach(updatedCreditCard);
+        updatedCreditCard.cvc(UPDATED_CVC).passengerId(DEFAULT_PASSENGER_ID);
+
+        restCreditCardMockMvc.perform(put("/api/credit-cards")
+            .contentType(MediaType.APPLICATION_JSON)
+            .content(TestUtil.convertObjectToJsonBytes(updatedCreditCard)))
+            .andExpect(status().isNotFound());
+
+        em.clear();
+        CreditCard testCreditCard = creditCardRepository.findById(creditCard.getId()).get();
+        assertThat(testCreditCard.getCvc()).isEqualTo(DEFAULT_CVC);
+        assertThat(testCreditCard.getPassengerId()).isEqualTo(OTHER_PASSENGER_ID);
     }
 
     @Test
@@ -312,4 +386,21 @@ public class CreditCardResourceIT {
         List<CreditCard> creditCardList = creditCardRepository.findAll();
         assertThat(creditCardList).hasSize(databaseSizeBeforeDelete - 1);
     }
+
+    @Test
+    @Transactional
+    public void deleteCreditCardOfAnotherPassenger() throws Exception {
+        // Initialize the database
+        creditCardRepository.saveAndFlush(creditCard.passengerId(OTHER_PASSENGER_ID));
+
+        int databaseSizeBeforeDelete = creditCardRepository.findAll().size();
+
+        // Delete the creditCard of another passenger
+        restCreditCardMockMvc.perform(delete("/api/credit-cards/{id}", creditCard.getId())
+            .accept(MediaType.APPLICATION_JSON))
+            .andExpect(status().isNotFound());
+
+        // Validate the database still contains it
+        assertThat(creditCardRepository.findAll()).hasSize(databaseSizeBeforeDelete);
+    }
 }
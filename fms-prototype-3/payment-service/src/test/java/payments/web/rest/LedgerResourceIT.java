@@ -0,0 +1,114 @@
+package payments.web.rest;
+
+import payments.PaymentsApp;
+import payments.domain.LedgerEntry;
+import payments.domain.Payment;
+import payments.domain.enumeration.ELedgerEntryKind;
+import payments.domain.enumeration.EPaymentStatus;
+import payments.repository.LedgerEntryRepository;
+import payments.security.AuthoritiesConstants;
+import payments.service.LedgerService;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.Instant;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * Integration tests for the {@link LedgerResource} REST controller.
+ */
+@SpringBootTest(classes = PaymentsApp.class)
+@AutoConfigureMockMvc
+@WithMockUser(authorities = AuthoritiesConstants.ADMIN)
+public class LedgerResourceIT {
+
+    private static final Instant SETTLED = Instant.now().minus(Duration.ofHours(2));
+
+    @Autowired
+    private LedgerEntryRepository ledgerEntryRepository;
+
+    @Autowired
+    private LedgerService ledgerService;
+
+    @Autowired
+    private EntityManager em;
+
+    @Autowired
+    private MockMvc restLedgerMockMvc;
+
+    private LedgerEntry entry(String journal, String account, String amount) {
+        return ledgerEntryRepository.save(new LedgerEntry().journal(journal).account(account).amount(new BigDecimal(amount))
+            .kind(ELedgerEntryKind.PAYMENT).createdAt(SETTLED));
+    }
+
+    @Test
+    @Transactional
+    public void balancesAreTheLatestSnapshotPlusTheEntriesAfterIt() throws Exception {
+        entry("j1", LedgerService.CLEARING, "10.00");
+        entry("j1", LedgerService.REVENUE, "-10.00");
+        assertThat(ledgerService.snapshot()).isEqualTo(2);
+        Payment payment = new Payment().bookingNumber(1L).toPay(2.5D).status(EPaymentStatus.AUTHORIZED);
+        ledgerService.recordPayment(payment);
+
+        restLedgerMockMvc.perform(get("/api/ledger/balances/{account}", LedgerService.CLEARING))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.balance").value(12.5D))
+            .andExpect(jsonPath("$.snapshotUpTo").value(notNullValue()));
+        restLedgerMockMvc.perform(get("/api/ledger/balances/{account}", LedgerService.REFUNDS))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.balance").value(0));
+    }
+
+    @Test
+    @Transactional
+    public void replayRebuildsTheSnapshotsAndFindsTheUnbalancedJournals() throws Exception {
+        entry("j1", LedgerService.CLEARING, "10.00");
+        entry("j1", LedgerService.REVENUE, "-10.00");
+        entry("j2", LedgerService.CLEARING, "5.00");
+
+        restLedgerMockMvc.perform(post("/api/ledger/snapshots/replay"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.entries").value(3))
+            .andExpect(jsonPath("$.journals").value(2))
+            .andExpect(jsonPath("$.unbalancedJournals").value(contains("j2")))
+            .andExpect(jsonPath("$.balances[?(@.account == 'clearing')].balance").value(contains(15D)));
+
+        assertThat(ledgerService.balance(LedgerService.CLEARING).getBalance()).isEqualByComparingTo("15.00");
+    }
+
+    @Test
+    @Transactional
+    public void deletingAnAuthorizedPaymentRecordsItsRefund() throws Exception {
+        Payment payment = PaymentResourceIT.createEntity(em).passengerId("user").toPay(100D).status(EPaymentStatus.AUTHORIZED);
+        em.persist(payment);
+        em.flush();
+
+        restLedgerMockMvc.perform(delete("/api/payments/{id}", payment.getId()))
+            .andExpect(status().isNoContent());
+
+        assertThat(ledgerService.balance(LedgerService.REFUNDS).getBalance()).isEqualByComparingTo("100.00");
+        assertThat(ledgerService.balance(LedgerService.CLEARING).getBalance()).isEqualByComparingTo("-100.00");
+    }
+
+    @Test
+    @Transactional
+    @WithMockUser
+    public void theLedgerIsForTheAdministratorsOnly() throws Exception {
+        restLedgerMockMvc.perform(get("/api/ledger/balances/{account}", LedgerService.CLEARING))
+            .andExpect(status().isForbidden());
+    }
+}
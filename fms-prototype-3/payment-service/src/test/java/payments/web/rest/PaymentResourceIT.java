@@ -1,8 +1,11 @@
 package payments.web.rest;
 
+import fms.common.repository.OutboxEventRepository;
+import fms.common.web.filter.IdempotencyFilter;
 import payments.PaymentsApp;
 import payments.domain.Payment;
 import payments.domain.CreditCard;
+import payments.domain.enumeration.EPaymentStatus;
 import payments.repository.PaymentRepository;
 
 import org.junit.jupiter.api.BeforeEach;
@@ -16,8 +19,10 @@ import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.transaction.annotation.Transactional;
 import javax.persistence.EntityManager;
 import java.util.List;
+import java.util.UUID;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.contains;
 import static org.hamcrest.Matchers.hasItem;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
@@ -30,18 +35,22 @@ import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.
 @WithMockUser
 public class PaymentResourceIT {
 
-    private static final String DEFAULT_PASSENGER_ID = "AAAAAAAAAA";
+    // the user the tests run as, who owns the entity of each test
+    private static final String DEFAULT_PASSENGER_ID = "user";
     private static final String UPDATED_PASSENGER_ID = "BBBBBBBBBB";
 
     private static final Double DEFAULT_TO_PAY = 1D;
     private static final Double UPDATED_TO_PAY = 2D;
 
-    private static final Integer DEFAULT_BOOKING_NUMBER = 1;
-    private static final Integer UPDATED_BOOKING_NUMBER = 2;
+    private static final Long DEFAULT_BOOKING_NUMBER = 1L;
+    private static final Long UPDATED_BOOKING_NUMBER = 2L;
 
     @Autowired
     private PaymentRepository paymentRepository;
 
+    @Autowired
+    private OutboxEventRepository outboxEventRepository;
+
     @Autowired
     private EntityManager em;
 
@@ -106,6 +115,7 @@ public class PaymentResourceIT {
     @Transactional
     public void createPayment() throws Exception {
         int databaseSizeBeforeCreate = paymentRepository.findAll().size();
+        int outboxSizeBeforeCreate = outboxEventRepository.findAll().size();
         // Create the Payment
         restPaymentMockMvc.perform(post("/api/payments")
             .contentType(MediaType.APPLICATION_JSON)
@@ -119,6 +129,38 @@ public class PaymentResourceIT {
         assertThat(testPayment.getPassengerId()).isEqualTo(DEFAULT_PASSENGER_ID);
         assertThat(testPayment.getToPay()).isEqualTo(DEFAULT_TO_PAY);
         assertThat(testPayment.getBookingNumber()).isEqualTo(DEFAULT_BOOKING_NUMBER);
+        assertThat(testPayment.getStatus()).isEqualTo(EPaymentStatus.PENDING);
+        assertThat(testPayment.getUpdatedAt()).isNotNull();
+
+        // Validate the Payment is announced once authorized, not on creation
+        assertThat(outboxEventRepository.findAll()).hasSize(outboxSizeBeforeCreate);
+    }
+
+    @Test
+    @Transactional
+    public void retriedCreatePaymentIsNotDuplicated() throws Exception {
+        int databaseSizeBeforeCreate = paymentRepository.findAll().size();
+        int outboxSizeBeforeCreate = outboxEventRepository.findAll().size();
+        String idempotencyKey = UUID.randomUUID().toString();
+
+        // Create the Payment, then retry
+        String created = restPaymentMockMvc.perform(post("/api/payments")
+            .header(IdempotencyFilter.IDEMPOTENCY_KEY_HEADER, idempotencyKey)
+            .contentType(MediaType.APPLICATION_JSON)
+            .content(TestUtil.convertObjectToJsonBytes(payment)))
+            .andExpect(status().isCreated())
+            .andReturn().getResponse().getContentAsString();
+        restPaymentMockMvc.perform(post("/api/payments")
+            .header(IdempotencyFilter.IDEMPOTENCY_KEY_HEADER, idempotencyKey)
+            .contentType(MediaType.APPLICATION_JSON)
+            .content(TestUtil.convertObjectToJsonBytes(payment)))
+            .andExpect(status().isCreated())
+            .andExpect(header().string(IdempotencyFilter.IDEMPOTENT_REPLAYED_HEADER, "true"))
+            .andExpect(content().string(created));
+
+        // Validate a single Payment, pending
+        assertThat(paymentRepository.findAll()).hasSize(databaseSizeBeforeCreate + 1);
+        assertThat(outboxEventRepository.findAll()).hasSize(outboxSizeBeforeCreate);
     }
 
     @Test
@@ -211,7 +253,7 @@ public class PaymentResourceIT {
             .andExpect(jsonPath("$.[*].id").value(hasItem(payment.getId().intValue())))
             .andExpect(jsonPath("$.[*].passengerId").value(hasItem(DEFAULT_PASSENGER_ID)))
             .andExpect(jsonPath("$.[*].toPay").value(hasItem(DEFAULT_TO_PAY.doubleValue())))
-            .andExpect(jsonPath("$.[*].bookingNumber").value(hasItem(DEFAULT_BOOKING_NUMBER)));
+            .andExpect(jsonPath("$.[*].bookingNumber").value(hasItem(DEFAULT_BOOKING_NUMBER.intValue())));
     }
     
     @Test
@@ -227,7 +269,7 @@ public class PaymentResourceIT {
             .andExpect(jsonPath("$.id").value(payment.getId().intValue()))
             .andExpect(jsonPath("$.passengerId").value(DEFAULT_PASSENGER_ID))
             .andExpect(jsonPath("$.toPay").value(DEFAULT_TO_PAY.doubleValue()))
-            .andExpect(jsonPath("$.bookingNumber").value(DEFAULT_BOOKING_NUMBER));
+            .andExpect(jsonPath("$.bookingNumber").value(DEFAULT_BOOKING_NUMBER.intValue()));
     }
     @Test
     @Transactional
@@ -249,9 +291,9 @@ public class PaymentResourceIT {
         Payment updatedPayment = paymentRepository.findById(payment.getId()).get();
         // Disconnect from session so that the updates on updatedPayment are not directly saved in db
         em.detach(updatedPayment);
+        // the passenger is kept, the amount and credit card cannot change
         updatedPayment
             .passengerId(UPDATED_PASSENGER_ID)
-            .toPay(UPDATED_TO_PAY)
             .bookingNumber(UPDATED_BOOKING_NUMBER);
 
         restPaymentMockMvc.perform(put("/api/payments")
@@ -263,11 +305,43 @@ public class PaymentResourceIT {
         List<Payment> paymentList = paymentRepository.findAll();
         assertThat(paymentList).hasSize(databaseSizeBeforeUpdate);
         Payment testPayment = paymentList.get(paymentList.size() - 1);
-        assertThat(testPayment.getPassengerId()).isEqualTo(UPDATED_PASSENGER_ID);
-        assertThat(testPayment.getToPay()).isEqualTo(UPDATED_TO_PAY);
+        assertThat(testPayment.getPassengerId()).isEqualTo(DEFAULT_PASSENGER_ID);
+        assertThat(testPayment.getToPay()).isEqualTo(DEFAULT_TO_PAY);
         assertThat(testPayment.getBookingNumber()).isEqualTo(UPDATED_BOOKING_NUMBER);
     }
 
+    @Test
+    @Transactional
+    public void updateTheAmountOfASubmittedPaymentIsRejected() throws Exception {
+        paymentRepository.saveAndFlush(payment);
+        Payment updatedPayment = paymentRepository.findById(payment.getId()).get();
+        em.detach(updatedPayment);
+        updatedPayment.toPay(UPDATED_TO_PAY);
+
+        restPaymentMockMvc.perform(put("/api/payments")
+            .contentType(MediaType.APPLICATION_JSON)
+            .content(TestUtil.convertObjectToJsonBytes(updatedPayment)))
+            .andExpect(status().isBadRequest());
+
+        assertThat(paymentRepository.findById(payment.getId()).get().getToPay()).isEqualTo(DEFAULT_TO_PAY);
+    }
+
+    @Test
+    @Transactional
+    public void updatePaymentOfAnotherPassenger() throws Exception {
+        paymentRepository.saveAndFlush(payment.passengerId(UPDATED_PASSENGER_ID));
+        Payment updatedPayment = paymentRepository.findById(payment.getId()).get();
+        em.detach(updatedPayment);
+        updatedPayment.bookingNumber(UPDATED_BOOKING_NUMBER);
+
+        restPaymentMockMvc.perform(put("/api/payments")
+            .contentType(MediaType.APPLICATION_JSON)
+            .content(TestUtil.convertObjectToJsonBytes(updatedPayment)))
+            .andExpect(status().isNotFound());
+
+        assertThat(paymentRepository.findById(payment.getId()).get().getBookingNumber()).isEqualTo(DEFAULT_BOOKING_NUMBER);
+    }
+
     @Test
     @Transactional
     public void updateNonExistingPayment() throws Exception {
@@ -301,4 +375,49 @@ public class PaymentResourceIT {
         List<Payment> paymentList = paymentRepository.findAll();
         assertThat(paymentList).hasSize(databaseSizeBeforeDelete - 1);
     }
+
+    @Test
+    @Transactional
+    @WithMockUser(username = DEFAULT_PASSENGER_ID)
+    public void getAllPaymentsOfTheConnectedPassengerOnly() throws Exception {
+        // Initialize the database
+        paymentRepository.saveAndFlush(payment);
+        paymentRepository.saveAndFlush(createEntity(em).passengerId(UPDATED_PASSENGER_ID));
+
+        // Get the first page of the connected passenger's payments
+        restPaymentMockMvc.perform(get("/api/payments?page=0&size=20&sort=id,desc"))
+            .andExpect(status().isOk())
+            .andExpect(header().string("X-Total-Count", "1"))
+            .andExpect(jsonPath("$.[*].id").value(contains(payment.getId().intValue())));
+    }
+
+    @Test
+    @Transactional
+    @WithMockUser(username = UPDATED_PASSENGER_ID)
+    public void getPaymentOfAnotherPassenger() throws Exception {
+        // Initialize the database
+        paymentRepository.saveAndFlush(payment);
+
+        // Get the payment of another passenger
+        restPaymentMockMvc.perform(get("/api/payments/{id}", payment.getId()))
+            .andExpect(status().isNotFound());
+    }
+
+    @Test
+    @Transactional
+    @WithMockUser(username = UPDATED_PASSENGER_ID)
+    public void deletePaymentOfAnotherPassenger() throws Exception {
+        // Initialize the database
+        paymentRepository.saveAndFlush(payment);
+
+        int databaseSizeBeforeDelete = paymentRepository.findAll().size();
+
+        // Delete the payment of another passenger
+        restPaymentMockMvc.perform(delete("/api/payments/{id}", payment.getId())
+            .accept(MediaType.APPLICATION_JSON))
+            .andExpect(status().isNotFound());
+
+        // Validate the database still contains it
+        assertThat(paymentRepository.findAll()).hasSize(databaseSizeBeforeDelete);
+    }
 }
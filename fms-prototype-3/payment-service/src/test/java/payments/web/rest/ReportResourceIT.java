@@ -0,0 +1,136 @@
+package payments.web.rest;
+
+import payments.PaymentsApp;
+import payments.domain.LedgerEntry;
+import payments.domain.enumeration.ECardType;
+import payments.domain.enumeration.ELedgerEntryKind;
+import payments.repository.LedgerEntryRepository;
+import payments.security.AuthoritiesConstants;
+import payments.service.LedgerService;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * Integration tests for the {@link ReportResource} REST controller.
+ */
+@SpringBootTest(classes = PaymentsApp.class)
+@AutoConfigureMockMvc
+@WithMockUser(authorities = AuthoritiesConstants.ADMIN)
+public class ReportResourceIT {
+
+    private static final Instant FIRST_DAY = Instant.parse("2020-10-20T10:00:00Z");
+    private static final Instant SECOND_DAY = Instant.parse("2020-10-21T23:59:59Z");
+
+    @Autowired
+    private LedgerEntryRepository ledgerEntryRepository;
+
+    @Autowired
+    private MockMvc restReportMockMvc;
+
+    private void journal(String journal, ELedgerEntryKind kind, String debited, String credited, String amount,
+                         Long flightId, String passengerId, ECardType cardType, Instant createdAt) {
+        for (String account : new String[] { debited, credited }) {
+            BigDecimal value = new BigDecimal(amount);
+            ledgerEntryRepository.saveAndFlush(new LedgerEntry().journal(journal).kind(kind).account(account)
+                .amount(account.equals(debited) ? value : value.negate()).flightId(flightId).passengerId(passengerId).cardType(cardType)
+                .createdAt(createdAt));
+        }
+    }
+
+    @BeforeEach
+    public void initTest() {
+        journal("j1", ELedgerEntryKind.PAYMENT, LedgerService.CLEARING, LedgerService.REVENUE, "100.00", 1L, "alice", ECardType.VISA, FIRST_DAY);
+        journal("j2", ELedgerEntryKind.PAYMENT, LedgerService.CLEARING, LedgerService.REVENUE, "50.00", 2L, "bob", ECardType.MASTERCARD, FIRST_DAY);
+        journal("j3", ELedgerEntryKind.ADJUSTMENT, LedgerService.CLEARING, LedgerService.REVENUE, "10.00", 1L, "alice", ECardType.VISA, FIRST_DAY);
+        journal("j4", ELedgerEntryKind.REFUND, LedgerService.REFUNDS, LedgerService.CLEARING, "50.00", 2L, "bob", ECardType.MASTERCARD, FIRST_DAY);
+        journal("j5", ELedgerEntryKind.PAYMENT, LedgerService.CLEARING, LedgerService.REVENUE, "20.00", 1L, "alice", ECardType.VISA, SECOND_DAY);
+    }
+
+    @Test
+    @Transactional
+    public void revenueIsStreamedAsCsvByDay() throws Exception {
+        restReportMockMvc.perform(get("/api/reports/revenue?from=2020-10-20&to=2020-10-21"))
+            .andExpect(status().isOk())
+            .andExpect(content().contentType("text/csv;charset=UTF-8"))
+            .andExpect(content().string(
+                "payment_day;payments;paid;refunds;refunded;net\n" +
+                "2020-10-20;2;160.00;1;50.00;110.00\n" +
+                "2020-10-21;1;20.00;0;0;20.00\n"));
+    }
+
+    @Test
+    @Transactional
+    public void revenueIsStreamedAsNdjsonByCardType() throws Exception {
+        restReportMockMvc.perform(get("/api/reports/revenue?from=2020-10-20&to=2020-10-20&groupBy=card-type")
+            .header("Accept", ReportResource.APPLICATION_NDJSON_VALUE))
+            .andExpect(status().isOk())
+            .andExpect(content().contentType("application/x-ndjson;charset=UTF-8"))
+            .andExpect(content().string(
+                "{\"payment_day\":\"2020-10-20\",\"card_type\":\"MASTERCARD\",\"payments\":1,\"paid\":50.00,\"refunds\":1,\"refunded\":50.00,\"net\":0.00}\n" +
+                "{\"payment_day\":\"2020-10-20\",\"card_type\":\"VISA\",\"payments\":1,\"paid\":110.00,\"refunds\":0,\"refunded\":0,\"net\":110.00}\n"));
+    }
+
+    @Test
+    @Transactional
+    public void revenueIsTotalledByPassenger() throws Exception {
+        restReportMockMvc.perform(get("/api/reports/revenue?from=2020-10-21&to=2020-10-21&groupBy=passenger")
+            .header("Accept", ReportResource.TEXT_CSV_VALUE))
+            .andExpect(status().isOk())
+            .andExpect(content().string(
+                "payment_day;passenger_id;payments;paid;refunds;refunded;net\n" +
+                "2020-10-21;alice;1;20.00;0;0;20.00\n"));
+    }
+
+    @Test
+    @Transactional
+    public void revenueIsTotalledByFlight() throws Exception {
+        restReportMockMvc.perform(get("/api/reports/revenue?from=2020-10-20&to=2020-10-20&groupBy=flight")
+            .header("Accept", ReportResource.TEXT_CSV_VALUE))
+            .andExpect(status().isOk())
+            .andExpect(content().string(
+                "payment_day;flight_id;payments;paid;refunds;refunded;net\n" +
+                "2020-10-20;1;1;110.00;0;0;110.00\n" +
+                "2020-10-20;2;1;50.00;1;50.00;0.00\n"));
+    }
+
+    @Test
+    @Transactional
+    public void theReconciliationBalancesEachDay() throws Exception {
+        restReportMockMvc.perform(get("/api/reports/reconciliation?from=2020-10-20&to=2020-10-21"))
+            .andExpect(status().isOk())
+            .andExpect(content().string(
+                "ledger_day;journals;clearing;revenue;refunds;imbalance\n" +
+                "2020-10-20;4;110.00;-160.00;50.00;0.00\n" +
+                "2020-10-21;1;20.00;-20.00;0;0.00\n"));
+    }
+
+    @Test
+    @Transactional
+    public void invalidReportsAreRejected() throws Exception {
+        restReportMockMvc.perform(get("/api/reports/revenue?from=2020-10-21&to=2020-10-20"))
+            .andExpect(status().isBadRequest());
+        restReportMockMvc.perform(get("/api/reports/revenue?from=2020-10-20&to=2020-10-21&groupBy=airline"))
+            .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @Transactional
+    @WithMockUser
+    public void theReportsAreForTheAdministratorsOnly() throws Exception {
+        restReportMockMvc.perform(get("/api/reports/revenue?from=2020-10-20&to=2020-10-21"))
+            .andExpect(status().isForbidden());
+    }
+}